@@ -56,11 +56,14 @@ import io.crate.data.RowN;
 import io.crate.data.SkippingBatchIterator;
 import io.crate.execution.engine.collect.InputCollectExpression;
 import io.crate.execution.engine.join.HashInnerJoinBatchIterator;
+import io.crate.execution.engine.join.HashOuterJoinBatchIterator;
+import io.crate.execution.engine.join.HashSemiJoinBatchIterator;
 import io.crate.execution.engine.window.WindowFunction;
 import io.crate.execution.engine.window.WindowFunctionBatchIterator;
 import io.crate.metadata.Functions;
 import io.crate.metadata.functions.Signature;
 import io.crate.module.ExtraFunctionsModule;
+import io.crate.planner.node.dql.join.JoinType;
 import io.crate.types.DataTypes;
 
 @BenchmarkMode(Mode.AverageTime)
@@ -153,6 +156,27 @@ public class RowsBatchIteratorBenchmark {
         }
     }
 
+    @Benchmark
+    public void measureConsumeHashLeftJoin(Blackhole blackhole) {
+        BatchIterator<Row> leftJoin = new HashOuterJoinBatchIterator(
+            InMemoryBatchIterator.of(oneThousandRows, SENTINEL, true),
+            InMemoryBatchIterator.of(tenThousandRows, SENTINEL, true),
+            JoinType.LEFT,
+            rowAccounting,
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1)),
+            row -> Objects.hash(row.get(0)),
+            row -> Objects.hash(row.get(0)),
+            () -> 1000,
+            8,
+            null,
+            null
+        );
+        while (leftJoin.moveNext()) {
+            blackhole.consume(leftJoin.currentElement().get(0));
+        }
+    }
+
     @Benchmark
     public void measureConsumeHashInnerJoin(Blackhole blackhole) {
         BatchIterator<Row> leftJoin = new HashInnerJoinBatchIterator(
@@ -163,7 +187,10 @@ public class RowsBatchIteratorBenchmark {
             row -> Objects.equals(row.get(0), row.get(1)),
             row -> Objects.hash(row.get(0)),
             row -> Objects.hash(row.get(0)),
-            () -> 1000
+            () -> 1000,
+            8,
+            null,
+            null
         );
         while (leftJoin.moveNext()) {
             blackhole.consume(leftJoin.currentElement().get(0));
@@ -185,13 +212,88 @@ public class RowsBatchIteratorBenchmark {
                 return value < 500 ? value : (value % 100) + 500;
             },
             row -> (Integer) row.get(0) % 500,
-            () -> 1000
+            () -> 1000,
+            8,
+            null,
+            null
         );
         while (leftJoin.moveNext()) {
             blackhole.consume(leftJoin.currentElement().get(0));
         }
     }
 
+    @Benchmark
+    public void measureConsumeNestedLoopSemiJoin(Blackhole blackhole) {
+        BatchIterator<Row> semiJoin = new SemiJoinNLBatchIterator<>(
+            InMemoryBatchIterator.of(oneThousandRows, SENTINEL, true),
+            InMemoryBatchIterator.of(tenThousandRows, SENTINEL, true),
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1))
+        );
+        while (semiJoin.moveNext()) {
+            blackhole.consume(semiJoin.currentElement().get(0));
+        }
+    }
+
+    @Benchmark
+    public void measureConsumeHashSemiJoin(Blackhole blackhole) {
+        BatchIterator<Row> semiJoin = new HashSemiJoinBatchIterator(
+            InMemoryBatchIterator.of(oneThousandRows, SENTINEL, true),
+            InMemoryBatchIterator.of(tenThousandRows, SENTINEL, true),
+            JoinType.SEMI,
+            rowAccounting,
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1)),
+            row -> Objects.hash(row.get(0)),
+            row -> Objects.hash(row.get(0)),
+            null,
+            null,
+            () -> 1000,
+            8,
+            null,
+            null
+        );
+        while (semiJoin.moveNext()) {
+            blackhole.consume(semiJoin.currentElement().get(0));
+        }
+    }
+
+    @Benchmark
+    public void measureConsumeNestedLoopAntiJoin(Blackhole blackhole) {
+        BatchIterator<Row> antiJoin = new AntiJoinNLBatchIterator<>(
+            InMemoryBatchIterator.of(oneThousandRows, SENTINEL, true),
+            InMemoryBatchIterator.of(tenThousandRows, SENTINEL, true),
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1))
+        );
+        while (antiJoin.moveNext()) {
+            blackhole.consume(antiJoin.currentElement().get(0));
+        }
+    }
+
+    @Benchmark
+    public void measureConsumeHashAntiJoin(Blackhole blackhole) {
+        BatchIterator<Row> antiJoin = new HashSemiJoinBatchIterator(
+            InMemoryBatchIterator.of(oneThousandRows, SENTINEL, true),
+            InMemoryBatchIterator.of(tenThousandRows, SENTINEL, true),
+            JoinType.ANTI,
+            rowAccounting,
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1)),
+            row -> Objects.hash(row.get(0)),
+            row -> Objects.hash(row.get(0)),
+            null,
+            null,
+            () -> 1000,
+            8,
+            null,
+            null
+        );
+        while (antiJoin.moveNext()) {
+            blackhole.consume(antiJoin.currentElement().get(0));
+        }
+    }
+
     @Benchmark
     public void measureConsumeWindowBatchIterator(Blackhole blackhole) throws Exception {
         InputCollectExpression input = new InputCollectExpression(0);
@@ -219,12 +321,17 @@ public class RowsBatchIteratorBenchmark {
     private static class NoRowAccounting<T> implements RowAccounting<T> {
 
         @Override
-        public void accountForAndMaybeBreak(T row) {
+        public long accountForAndMaybeBreak(T row) {
+            return 0;
         }
 
         @Override
         public void release() {
 
         }
+
+        @Override
+        public void release(long bytes) {
+        }
     }
 }
@@ -87,6 +87,7 @@ import io.netty.util.collection.LongObjectHashMap;
 public class GroupingLongCollectorBenchmark {
 
     private GroupingCollector groupBySumCollector;
+    private SpillableGroupingCollector groupBySumHashTableCollector;
     private List<Row> rows;
     private long[] numbers;
     private IndexSearcher searcher;
@@ -109,6 +110,7 @@ public class GroupingLongCollectorBenchmark {
         );
         var memoryManager = new OnHeapMemoryManager(bytes -> {});
         groupBySumCollector = createGroupBySumCollector(sumAgg, memoryManager);
+        groupBySumHashTableCollector = createGroupBySumHashTableCollector(sumAgg, memoryManager);
 
         int size = 20_000_000;
         rows = new ArrayList<>(size);
@@ -147,12 +149,39 @@ public class GroupingLongCollectorBenchmark {
         );
     }
 
+    private static SpillableGroupingCollector createGroupBySumHashTableCollector(AggregationFunction sumAgg,
+                                                                                 MemoryManager memoryManager) {
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        CollectExpression[] collectExpressions = new CollectExpression[]{keyInput};
+
+        return new SpillableGroupingCollector(
+            collectExpressions,
+            AggregateMode.ITER_FINAL,
+            new AggregationFunction[] { sumAgg },
+            new Input[][] { new Input[] { keyInput }},
+            new Input[] { Literal.BOOLEAN_TRUE },
+            RamAccounting.NO_ACCOUNTING,
+            memoryManager,
+            Version.CURRENT,
+            List.of(keyInput),
+            List.of(DataTypes.LONG),
+            Version.CURRENT,
+            null,
+            () -> Long.MAX_VALUE
+        );
+    }
     @Benchmark
     public void measureGroupBySumLong(Blackhole blackhole) throws Exception {
         var rowsIterator = InMemoryBatchIterator.of(rows, SENTINEL, true);
         blackhole.consume(BatchIterators.collect(rowsIterator, groupBySumCollector).get());
     }
 
+    @Benchmark
+    public void measureGroupBySumLongWithHashTable(Blackhole blackhole) throws Exception {
+        var rowsIterator = InMemoryBatchIterator.of(rows, SENTINEL, true);
+        blackhole.consume(BatchIterators.collect(rowsIterator, groupBySumHashTableCollector).get());
+    }
+
     @Benchmark
     public LongObjectHashMap<Long> measureGroupingOnNumericDocValues() throws Exception {
         Weight weight = searcher.createWeight(new MatchAllDocsQuery(), ScoreMode.COMPLETE_NO_SCORES, 1.0f);
@@ -80,7 +80,8 @@ public class LuceneBatchIteratorBenchmark {
             false,
             collectorContext,
             columnRefs,
-            columnRefs
+            columnRefs,
+            null
         );
 
         while (it.moveNext()) {
@@ -0,0 +1,126 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.pipeline;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.crate.data.BatchIterators;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Projector;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.expression.InputFactory;
+import io.crate.expression.RowFilter;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.OperatorModule;
+import io.crate.expression.scalar.ScalarFunctionModule;
+import io.crate.expression.scalar.arithmetic.ArithmeticFunctions;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.Functions;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.SearchPath;
+import io.crate.metadata.TransactionContext;
+import io.crate.metadata.settings.session.SessionSettingModule;
+import io.crate.types.DataTypes;
+
+/**
+ * Filters rows with {@code x * 2 + y > 10_000} row by row and batch-at-a-time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FilterProjectorBenchmark {
+
+    private final List<Row> rows = IntStream.range(0, 10_000)
+        .mapToObj(i -> new RowN((long) i, (long) i % 100))
+        .collect(Collectors.toList());
+
+    private Projector rowFilterProjector;
+    private Projector vectorizedProjector;
+
+    @Setup
+    public void setup() {
+        Functions functions = new ModulesBuilder()
+            .add(new SessionSettingModule())
+            .add(new OperatorModule())
+            .add(new ScalarFunctionModule())
+            .createInjector()
+            .getInstance(Functions.class);
+        NodeContext nodeCtx = new NodeContext(functions);
+        TransactionContext txnCtx = CoordinatorTxnCtx.systemTransactionContext();
+
+        Symbol x = new InputColumn(0, DataTypes.LONG);
+        Symbol y = new InputColumn(1, DataTypes.LONG);
+        Symbol query = function(
+            nodeCtx,
+            GtOperator.NAME,
+            function(
+                nodeCtx,
+                ArithmeticFunctions.Names.ADD,
+                function(nodeCtx, ArithmeticFunctions.Names.MULTIPLY, x, Literal.of(2L)),
+                y
+            ),
+            Literal.of(10_000L)
+        );
+        rowFilterProjector = new FilterProjector(RowFilter.create(txnCtx, new InputFactory(nodeCtx), query));
+        vectorizedProjector = VectorizedProjector.forFilter(txnCtx, nodeCtx, query, 2);
+    }
+
+    private static Symbol function(NodeContext nodeCtx, String name, Symbol... arguments) {
+        List<Symbol> args = List.of(arguments);
+        FunctionImplementation impl = nodeCtx.functions().get(null, name, args, SearchPath.pathWithPGCatalogAndDoc());
+        return new Function(impl.signature(), args, impl.boundSignature().getReturnType().createType());
+    }
+
+    @Benchmark
+    public long measureRowFilter() throws Exception {
+        return BatchIterators.collect(
+            rowFilterProjector.apply(InMemoryBatchIterator.of(rows, null, false)),
+            Collectors.counting()
+        ).get();
+    }
+
+    @Benchmark
+    public long measureVectorizedFilter() throws Exception {
+        return BatchIterators.collect(
+            vectorizedProjector.apply(InMemoryBatchIterator.of(rows, null, false)),
+            Collectors.counting()
+        ).get();
+    }
+}
@@ -31,12 +31,16 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collector;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -44,7 +48,9 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.Blackhole;
 
 import io.crate.analyze.CopyFromParserProperties;
+import io.crate.breaker.RamAccounting;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.files.FileReadingIterator;
@@ -77,6 +83,11 @@ public class CsvReaderBenchmark {
         new SessionSettings("dummyUser",
                             SearchPath.createSearchPathFrom("dummySchema")));
     File tempFile;
+    File largeFile;
+    private ExecutorService executor;
+
+    @Param({"1", "4"})
+    public int parserParallelism;
 
     public static Reference createReference(String columnName, DataType<?> dataType) {
         return new Reference(
@@ -130,6 +141,15 @@ public class CsvReaderBenchmark {
             writer.write("Rory,1\n");
             writer.write("Martin,11\n");
         }
+        // large enough to be split into chunks which are parsed concurrently
+        largeFile = File.createTempFile("large", null);
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(largeFile), StandardCharsets.UTF_8)) {
+            writer.write("name,id\n");
+            for (int i = 0; i < 1_500_000; i++) {
+                writer.write("Arthur" + i + "," + i + "\n");
+            }
+        }
+        executor = Executors.newFixedThreadPool(parserParallelism);
     }
 
     @Benchmark()
@@ -156,8 +176,38 @@ public class CsvReaderBenchmark {
         }
     }
 
+    @Benchmark()
+    public void measureFileReadingIteratorForLargeCsv(Blackhole blackhole) {
+        Reference raw = createReference("_raw", DataTypes.STRING);
+        InputFactory.Context<LineCollectorExpression<?>> ctx = inputFactory.ctxForRefs(
+            txnCtx, FileLineReferenceResolver::getImplementation);
+
+        List<Input<?>> inputs = Collections.singletonList(ctx.add(raw));
+        BatchIterator<Row> batchIterator = FileReadingIterator.newInstance(
+            Collections.singletonList(largeFile.toURI().getPath()),
+            inputs,
+            ctx.expressions(),
+            null,
+            Map.of(
+                LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+            false,
+            1,
+            0,
+            new CopyFromParserProperties(false, ',', parserParallelism),
+            CSV,
+            executor,
+            RamAccounting.NO_ACCOUNTING);
+
+        BatchIterators.collect(
+            batchIterator,
+            Collector.of(() -> blackhole, (bh, row) -> bh.consume(row.get(0)), (bh1, bh2) -> bh1)
+        ).join();
+    }
+
     @TearDown
     public void cleanup() throws InterruptedException {
         tempFile.delete();
+        largeFile.delete();
+        executor.shutdown();
     }
 }
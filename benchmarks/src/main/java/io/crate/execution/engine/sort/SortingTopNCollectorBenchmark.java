@@ -72,12 +72,17 @@ public class SortingTopNCollectorBenchmark {
             new RowAccounting<Object[]>() {
 
                 @Override
-                public void accountForAndMaybeBreak(Object[] row) {
+                public long accountForAndMaybeBreak(Object[] row) {
+                    return 0;
                 }
 
                 @Override
                 public void release() {
                 }
+
+                @Override
+                public void release(long bytes) {
+                }
             },
             INPUTS,
             COLLECT_EXPRESSIONS,
@@ -90,12 +95,17 @@ public class SortingTopNCollectorBenchmark {
             new RowAccounting<Object[]>() {
 
                 @Override
-                public void accountForAndMaybeBreak(Object[] row) {
+                public long accountForAndMaybeBreak(Object[] row) {
+                    return 0;
                 }
 
                 @Override
                 public void release() {
                 }
+
+                @Override
+                public void release(long bytes) {
+                }
             },
             INPUTS,
             COLLECT_EXPRESSIONS,
@@ -0,0 +1,94 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.aggregation;
+
+import io.crate.analyze.MaterializedAggregation;
+import io.crate.breaker.RamAccounting;
+import io.crate.data.Input;
+import io.crate.expression.symbol.Function;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.SearchPath;
+import io.crate.module.ExtraFunctionsModule;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import org.elasticsearch.Version;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
+import static org.hamcrest.Matchers.is;
+
+public class MaterializedHyperLogLogDistinctTest extends CrateDummyClusterServiceUnitTest {
+
+    private final OnHeapMemoryManager memoryManager = new OnHeapMemoryManager(bytes -> { });
+    private SQLExecutor e;
+
+    @Before
+    public void setUpExecutor() throws Exception {
+        e = SQLExecutor.builder(clusterService, new ExtraFunctionsModule())
+            .addTable("create table doc.t (g text, x int)")
+            .build();
+    }
+
+    /**
+     * Computes the partial state of the hyperloglog_distinct aggregate for rows with the given values of {@code x}
+     */
+    private Object[] states(MaterializedAggregation aggregation, int... values) {
+        Function aggregate = aggregation.aggregates().get(0);
+        var function = (HyperLogLogDistinctAggregation) e.nodeCtx.functions().getQualified(
+            aggregate, SearchPath.pathWithPGCatalogAndDoc());
+        var state = function.newState(RamAccounting.NO_ACCOUNTING, Version.CURRENT, Version.CURRENT, memoryManager);
+        for (int value : values) {
+            Input<?> input = () -> value;
+            state = function.iterate(RamAccounting.NO_ACCOUNTING, memoryManager, state, input);
+        }
+        return new Object[] { state };
+    }
+
+    @Test
+    public void test_hyperloglog_distinct_states_of_shards_are_merged_per_group() {
+        MaterializedAggregation aggregation = MaterializedAggregation.of(
+            e.analyze("select g, hyperloglog_distinct(x) from doc.t group by g"),
+            e.nodeCtx,
+            SearchPath.pathWithPGCatalogAndDoc()
+        );
+
+        HashMap<List<Object>, Object[]> storedShard = new HashMap<>();
+        aggregation.merge(storedShard, List.of("a"), states(aggregation, 0, 1, 2, 3, 4));
+        aggregation.merge(storedShard, List.of("b"), states(aggregation, 10, 10));
+        HashMap<List<Object>, Object[]> changedShard = new HashMap<>();
+        aggregation.merge(changedShard, List.of("a"), states(aggregation, 3, 4, 5, 6, 7, 8, 9));
+
+        HashMap<List<Object>, Object[]> groups = new HashMap<>();
+        aggregation.deserializeInto(aggregation.serialize(changedShard.entrySet()), groups);
+        aggregation.deserializeInto(aggregation.serialize(storedShard.entrySet()), groups);
+
+        Map<List<Object>, Object[]> rows = new HashMap<>();
+        aggregation.terminate(groups, rows::put);
+        assertThat(rows.get(List.of("a")), is($("a", 10L)));
+        assertThat(rows.get(List.of("b")), is($("b", 1L)));
+    }
+}
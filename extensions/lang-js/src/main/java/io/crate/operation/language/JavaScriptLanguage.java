@@ -38,7 +38,11 @@ import org.graalvm.polyglot.Value;
 import javax.annotation.Nullable;
 import javax.script.ScriptException;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class JavaScriptLanguage implements UDFLanguage {
@@ -54,6 +58,17 @@ public class JavaScriptLanguage implements UDFLanguage {
         .allowArrayAccess(true)
         .build();
 
+    private record FunctionKey(String schema, String specificName) {
+    }
+
+    /**
+     * The current implementation of each function by its schema and specific name.
+     * The implementations of a schema are re-created on every change of the schema,
+     * an unchanged function keeps its implementation and with it the pooled contexts.
+     * The contexts of a replaced or dropped function are closed.
+     */
+    private final Map<FunctionKey, JavaScriptUserDefinedFunction> functions = new ConcurrentHashMap<>();
+
     @Inject
     public JavaScriptLanguage(UserDefinedFunctionService udfService) {
         udfService.registerLanguage(this);
@@ -61,7 +76,29 @@ public class JavaScriptLanguage implements UDFLanguage {
 
     public Scalar createFunctionImplementation(UserDefinedFunctionMetadata meta,
                                                Signature signature) throws ScriptException {
-        return new JavaScriptUserDefinedFunction(signature, meta.definition());
+        FunctionKey key = new FunctionKey(meta.schema(), meta.specificName());
+        return functions.compute(key, (k, current) -> {
+            if (current != null) {
+                if (current.signature().equals(signature) && current.script().equals(meta.definition())) {
+                    return current;
+                }
+                current.close();
+            }
+            return new JavaScriptUserDefinedFunction(signature, meta.definition());
+        });
+    }
+
+    @Override
+    public void retainFunctions(String schema, Set<String> specificNames) {
+        Iterator<Map.Entry<FunctionKey, JavaScriptUserDefinedFunction>> it = functions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<FunctionKey, JavaScriptUserDefinedFunction> entry = it.next();
+            FunctionKey key = entry.getKey();
+            if (key.schema().equals(schema) && !specificNames.contains(key.specificName())) {
+                it.remove();
+                entry.getValue().close();
+            }
+        }
     }
 
     @Nullable
@@ -23,7 +23,11 @@ package io.crate.operation.language;
 
 import io.crate.common.collections.Lists2;
 import io.crate.data.Input;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.SelectionVector;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.vector.ColumnVectors;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.TransactionContext;
@@ -31,60 +35,171 @@ import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
 import io.crate.types.TypeSignature;
 import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static io.crate.operation.language.JavaScriptLanguage.resolvePolyglotFunctionValue;
 
+/**
+ * A JavaScript user defined function.
+ * <p>
+ * A polyglot context must not be used by multiple threads at the same time, and creating one and
+ * evaluating the script is expensive. The function therefore keeps a pool of handles, each bound to
+ * its own context. A handle is taken out of the pool for the duration of a call and returned afterwards.
+ * If the call fails, the context is closed instead, as its state is unknown after a failed execution.
+ * The pooled contexts are closed once the function is replaced or dropped, see {@link JavaScriptLanguage}.
+ */
 public class JavaScriptUserDefinedFunction extends Scalar<Object, Object> {
 
     private final Signature signature;
     private final String script;
+    private final List<DataType<?>> argumentTypes;
+    private final DataType<?> returnType;
+    private final Source batchSource;
+    private final Queue<PolyglotFunction> pool = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed = false;
 
     JavaScriptUserDefinedFunction(Signature signature, String script) {
         this.signature = signature;
         this.script = script;
+        this.argumentTypes = Lists2.map(signature.getArgumentTypes(), TypeSignature::createType);
+        this.returnType = signature.getReturnType().createType();
+        this.batchSource = batchSource(argumentTypes.size());
+    }
+
+    String script() {
+        return script;
+    }
+
+    /**
+     * Creates a script which wraps the function to call it for a batch of rows at once.
+     * The arguments are passed column-wise, e.g. for a function with 2 arguments:
+     * <pre>
+     *  (function(f) {
+     *      return function(numRows, arg0, arg1) {
+     *          var results = new Array(numRows);
+     *          for (var i = 0; i < numRows; i++) {
+     *              results[i] = f(arg0[i], arg1[i]);
+     *          }
+     *          return results;
+     *      };
+     *  })
+     * </pre>
+     */
+    private static Source batchSource(int numArguments) {
+        StringBuilder params = new StringBuilder("numRows");
+        StringBuilder args = new StringBuilder();
+        for (int i = 0; i < numArguments; i++) {
+            params.append(", arg").append(i);
+            if (i > 0) {
+                args.append(", ");
+            }
+            args.append("arg").append(i).append("[i]");
+        }
+        String batchScript = "(function(f) {" +
+                             " return function(" + params + ") {" +
+                             " var results = new Array(numRows);" +
+                             " for (var i = 0; i < numRows; i++) { results[i] = f(" + args + "); }" +
+                             " return results;" +
+                             " };" +
+                             " })";
+        return Source.create("js", batchScript);
     }
 
     @Override
     public Scalar<Object, Object> compile(List<Symbol> arguments) {
+        // Acquire a handle upfront to raise compile errors before the evaluation starts
+        PolyglotFunction function = acquire("compile error");
+        release(function, true);
+        return this;
+    }
+
+    @Override
+    public Object evaluate(TransactionContext txnCtx, NodeContext nodeCtx, Input<Object>[] args) {
+        Object[] polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(args, argumentTypes);
+        PolyglotFunction function = acquire(null);
+        boolean success = false;
         try {
-            return new CompiledFunction(
-                resolvePolyglotFunctionValue(
-                    signature.getName().name(),
-                    script));
-        } catch (PolyglotException | IOException e) {
-            // this should not happen if the script was validated upfront
+            Object result = toCrateObject(function.function.execute(polyglotValueArgs), returnType);
+            success = true;
+            return result;
+        } catch (PolyglotException e) {
             throw new io.crate.exceptions.ScriptException(
-                "compile error",
+                e.getLocalizedMessage(),
                 e,
                 JavaScriptLanguage.NAME
             );
+        } finally {
+            release(function, success);
         }
     }
 
     @Override
-    public Object evaluate(TransactionContext txnCtx, NodeContext nodeCtx, Input<Object>[] args) {
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return new BatchExpression(arguments);
+    }
+
+    /**
+     * @param errorMessage message of the exception raised if the script can't be evaluated,
+     *                     the message of the cause is used if null.
+     */
+    private PolyglotFunction acquire(@Nullable String errorMessage) {
+        PolyglotFunction function = pool.poll();
+        if (function != null) {
+            return function;
+        }
         try {
-            var function = resolvePolyglotFunctionValue(signature.getName().name(), script);
-            Object[] polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(
-                args,
-                Lists2.map(signature.getArgumentTypes(), TypeSignature::createType)
-            );
-            return PolyglotValuesConverter.toCrateObject(
-                function.execute(polyglotValueArgs),
-                signature.getReturnType().createType());
+            return new PolyglotFunction(resolvePolyglotFunctionValue(signature.getName().name(), script));
         } catch (PolyglotException | IOException e) {
+            // this should not happen if the script was validated upfront
             throw new io.crate.exceptions.ScriptException(
-                e.getLocalizedMessage(),
+                errorMessage == null ? e.getLocalizedMessage() : errorMessage,
                 e,
                 JavaScriptLanguage.NAME
             );
         }
     }
 
+    /**
+     * Returns the handle to the pool, or closes its context if the call failed or the function was closed.
+     */
+    private void release(PolyglotFunction function, boolean success) {
+        if (!success || closed) {
+            function.close();
+            return;
+        }
+        pool.offer(function);
+        if (closed) {
+            // closed concurrently, the handle may have been added after the pool was drained
+            closePooled();
+        }
+    }
+
+    /**
+     * Closes the contexts of all pooled handles. Calls which are still running afterwards close
+     * their context once they are done instead of returning it to the pool.
+     */
+    void close() {
+        closed = true;
+        closePooled();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void closePooled() {
+        PolyglotFunction function;
+        while ((function = pool.poll()) != null) {
+            function.close();
+        }
+    }
 
     @Override
     public Signature signature() {
@@ -96,45 +211,87 @@ public class JavaScriptUserDefinedFunction extends Scalar<Object, Object> {
         return signature();
     }
 
-    private class CompiledFunction extends Scalar<Object, Object> {
+    /**
+     * The function of the script and its batch variant, bound to the same context.
+     */
+    private final class PolyglotFunction {
 
         private final Value function;
+        private Value batchFunction;
 
-        private CompiledFunction(Value function) {
+        private PolyglotFunction(Value function) {
             this.function = function;
         }
 
+        private Value batchFunction() {
+            if (batchFunction == null) {
+                batchFunction = function.getContext().eval(batchSource).execute(function);
+            }
+            return batchFunction;
+        }
+
+        private void close() {
+            function.getContext().close();
+        }
+    }
+
+    /**
+     * Calls the function once for all selected rows of a batch, so that the rows cross the
+     * boundary between Java and JavaScript in a single call.
+     */
+    private final class BatchExpression implements VectorExpression {
+
+        private final List<VectorExpression> arguments;
+        private ColumnVector result;
+
+        private BatchExpression(List<VectorExpression> arguments) {
+            this.arguments = arguments;
+        }
+
         @Override
-        public final Object evaluate(TransactionContext txnCtx, NodeContext nodeCtx, Input<Object>[] args) {
-            Object[] polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(
-                args,
-                Lists2.map(signature.getArgumentTypes(), TypeSignature::createType)
-            );
+        public DataType<?> valueType() {
+            return returnType;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            int numRows = selection.size();
+            int[] positions = selection.positions();
+            Object[] args = new Object[arguments.size() + 1];
+            args[0] = numRows;
+            for (int a = 0; a < arguments.size(); a++) {
+                ColumnVector vector = arguments.get(a).evaluate(batch, selection);
+                DataType<?> argumentType = argumentTypes.get(a);
+                Object[] values = new Object[numRows];
+                for (int i = 0; i < numRows; i++) {
+                    values[i] = PolyglotValuesConverter.toPolyglotValue(vector.get(positions[i]), argumentType);
+                }
+                args[a + 1] = values;
+            }
+            if (result == null) {
+                result = ColumnVectors.create(returnType, selection.capacity());
+            }
+            PolyglotFunction function = acquire(null);
+            boolean success = false;
             try {
-                return toCrateObject(
-                    function.execute(polyglotValueArgs),
-                    signature.getReturnType().createType());
+                Value results = function.batchFunction().execute(args);
+                for (int i = 0; i < numRows; i++) {
+                    result.set(positions[i], toCrateObject(results.getArrayElement(i), returnType));
+                }
+                success = true;
             } catch (PolyglotException e) {
                 throw new io.crate.exceptions.ScriptException(
                     e.getLocalizedMessage(),
                     e,
                     JavaScriptLanguage.NAME
                 );
+            } finally {
+                release(function, success);
             }
-        }
-
-        @Override
-        public Signature signature() {
-            return signature;
-        }
-
-        @Override
-        public Signature boundSignature() {
-            return signature;
+            return result;
         }
     }
 
-
     private static Object toCrateObject(Value value, DataType<?> type) {
         if ("undefined".equalsIgnoreCase(value.getClass().getSimpleName())) {
             return null;
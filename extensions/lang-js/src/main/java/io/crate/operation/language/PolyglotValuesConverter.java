@@ -87,13 +87,16 @@ class PolyglotValuesConverter {
     static Object[] toPolyglotValues(Input<Object>[] inputs, List<DataType<?>> dataTypes) {
         Object[] args = new Object[inputs.length];
         for (int i = 0; i < inputs.length; i++) {
-            switch (dataTypes.get(i).id()) {
-                case ObjectType.ID, GeoShapeType.ID ->
-                    //noinspection unchecked
-                    args[i] = ProxyObject.fromMap((Map<String, Object>) inputs[i].value());
-                default -> args[i] = Value.asValue(inputs[i].value());
-            }
+            args[i] = toPolyglotValue(inputs[i].value(), dataTypes.get(i));
         }
         return args;
     }
+
+    @SuppressWarnings("unchecked")
+    static Object toPolyglotValue(Object value, DataType<?> dataType) {
+        return switch (dataType.id()) {
+            case ObjectType.ID, GeoShapeType.ID -> value == null ? null : ProxyObject.fromMap((Map<String, Object>) value);
+            default -> Value.asValue(value);
+        };
+    }
 }
@@ -22,13 +22,26 @@
 package io.crate.operation.language;
 
 import io.crate.analyze.FunctionArgumentDefinition;
+import io.crate.data.Input;
+import io.crate.data.vector.BooleanColumnVector;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.LongColumnVector;
+import io.crate.data.vector.SelectionVector;
 import io.crate.expression.scalar.ScalarTestCase;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
 import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
 import io.crate.expression.udf.UserDefinedFunctionMetadata;
 import io.crate.expression.udf.UserDefinedFunctionService;
 import io.crate.metadata.FunctionProvider;
+import io.crate.expression.vector.VectorExpression;
+import io.crate.expression.vector.VectorExpressions;
 import io.crate.metadata.FunctionName;
+import io.crate.metadata.FunctionType;
+import io.crate.metadata.Scalar;
 import io.crate.metadata.Schemas;
+import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -44,13 +57,19 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static io.crate.testing.SymbolMatchers.isLiteral;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.mock;
 
@@ -380,4 +399,146 @@ public class JavascriptUserDefinedFunctionTest extends ScalarTestCase {
             "function f(a) { return a.type; }");
         assertEvaluate("f('POINT(1 2)')", is("Point"));
     }
+
+    private Function multiplyFunction(List<Symbol> arguments) throws Exception {
+        registerUserDefinedFunction(
+            "f",
+            DataTypes.LONG,
+            List.of(DataTypes.LONG, DataTypes.LONG),
+            "function f(a, b) { return a * b; }");
+        Signature signature = Signature.builder()
+            .name(new FunctionName(Schemas.DOC_SCHEMA_NAME, "f"))
+            .kind(FunctionType.SCALAR)
+            .argumentTypes(DataTypes.LONG.getTypeSignature(), DataTypes.LONG.getTypeSignature())
+            .returnType(DataTypes.LONG.getTypeSignature())
+            .build();
+        return new Function(signature, arguments, DataTypes.LONG);
+    }
+
+    @Test
+    public void test_vectorized_evaluation_calls_function_for_selected_rows_of_batch() throws Exception {
+        Function function = multiplyFunction(List.of(
+            new InputColumn(0, DataTypes.LONG),
+            new InputColumn(1, DataTypes.LONG)));
+        VectorExpression expression = new VectorExpressions(txnCtx, sqlExpressions.nodeCtx).compile(function);
+        assertThat(expression, notNullValue());
+
+        LongColumnVector a = new LongColumnVector(3, x -> x);
+        LongColumnVector b = new LongColumnVector(3, x -> x);
+        BooleanColumnVector selected = new BooleanColumnVector(3);
+        long[][] rows = {{2, 3}, {4, 5}, {6, 7}};
+        for (int i = 0; i < rows.length; i++) {
+            a.set(i, rows[i][0]);
+            b.set(i, rows[i][1]);
+            selected.set(i, i != 1);
+        }
+        SelectionVector selection = new SelectionVector(3);
+        selection.selectAll(3);
+        selection.retainTrue(selected);
+
+        ColumnVector result = expression.evaluate(new ColumnVector[] { a, b }, selection);
+        assertThat(result.get(0), is(6L));
+        assertThat(result.get(2), is(42L));
+    }
+
+    @Test
+    public void test_function_can_be_evaluated_concurrently() throws Exception {
+        Function function = multiplyFunction(List.of(Literal.of(6L), Literal.of(7L)));
+        Scalar scalar = (Scalar) sqlExpressions.nodeCtx.functions().getQualified(
+            function, txnCtx.sessionSettings().searchPath());
+        Scalar compiled = scalar.compile(function.arguments());
+        Input[] args = new Input[] { Literal.of(6L), Literal.of(7L) };
+
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Object result = null;
+                for (int j = 0; j < 100; j++) {
+                    result = compiled.evaluate(txnCtx, sqlExpressions.nodeCtx, args);
+                }
+                return result;
+            }));
+        }
+        List<Object> results = new ArrayList<>();
+        for (CompletableFuture<Object> future : futures) {
+            results.add(future.get());
+        }
+        assertThat(results, contains(42L, 42L, 42L, 42L));
+    }
+
+    @Test
+    public void test_context_of_failed_call_is_not_reused() throws Exception {
+        Function function = new Function(
+            Signature.builder()
+                .name(new FunctionName(Schemas.DOC_SCHEMA_NAME, "f"))
+                .kind(FunctionType.SCALAR)
+                .argumentTypes(DataTypes.LONG.getTypeSignature())
+                .returnType(DataTypes.LONG.getTypeSignature())
+                .build(),
+            List.of(Literal.of(1L)),
+            DataTypes.LONG);
+        registerUserDefinedFunction(
+            "f",
+            DataTypes.LONG,
+            List.of(DataTypes.LONG),
+            "var calls = 0; function f(x) { calls++; if (x < 0) { throw 'negative'; } return calls; }");
+        Scalar scalar = (Scalar) sqlExpressions.nodeCtx.functions().getQualified(
+            function, txnCtx.sessionSettings().searchPath());
+
+        assertThat(scalar.evaluate(txnCtx, sqlExpressions.nodeCtx, new Input[] { Literal.of(1L) }), is(1L));
+        assertThat(scalar.evaluate(txnCtx, sqlExpressions.nodeCtx, new Input[] { Literal.of(1L) }), is(2L));
+        expectThrows(
+            io.crate.exceptions.ScriptException.class,
+            () -> scalar.evaluate(txnCtx, sqlExpressions.nodeCtx, new Input[] { Literal.of(-1L) }));
+        // the state of the failed context is discarded
+        assertThat(scalar.evaluate(txnCtx, sqlExpressions.nodeCtx, new Input[] { Literal.of(1L) }), is(1L));
+    }
+
+    @Test
+    public void test_implementation_is_kept_if_unchanged_and_closed_if_replaced() throws Exception {
+        Signature signature = Signature.builder()
+            .name(new FunctionName(Schemas.DOC_SCHEMA_NAME, "f"))
+            .kind(FunctionType.SCALAR)
+            .returnType(DataTypes.LONG.getTypeSignature())
+            .build();
+        UserDefinedFunctionMetadata udf = new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME, "f", List.of(), DataTypes.LONG, JS, "function f() { return 1; }");
+        UserDefinedFunctionMetadata replacement = new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME, "f", List.of(), DataTypes.LONG, JS, "function f() { return 2; }");
+        var language = udfService.getLanguage(JS);
+
+        Scalar first = language.createFunctionImplementation(udf, signature);
+        assertThat(first.evaluate(txnCtx, sqlExpressions.nodeCtx), is(1L));
+        assertThat(language.createFunctionImplementation(udf, signature), sameInstance(first));
+
+        Scalar second = language.createFunctionImplementation(replacement, signature);
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second.evaluate(txnCtx, sqlExpressions.nodeCtx), is(2L));
+        // calls which still use the replaced implementation work with a short-lived context
+        assertThat(first.evaluate(txnCtx, sqlExpressions.nodeCtx), is(1L));
+    }
+
+    @Test
+    public void test_implementation_is_closed_if_dropped() throws Exception {
+        UserDefinedFunctionMetadata f = new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME, "f", List.of(), DataTypes.LONG, JS, "function f() { return 1; }");
+        UserDefinedFunctionMetadata g = new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME, "g", List.of(), DataTypes.LONG, JS, "function g() { return 2; }");
+        udfService.updateImplementations(Schemas.DOC_SCHEMA_NAME, Stream.of(f, g));
+        var language = udfService.getLanguage(JS);
+        var fImpl = (JavaScriptUserDefinedFunction) language.createFunctionImplementation(
+            f, udfService.buildFunctionResolver(f).getSignature());
+        var gImpl = (JavaScriptUserDefinedFunction) language.createFunctionImplementation(
+            g, udfService.buildFunctionResolver(g).getSignature());
+        assertThat(fImpl.evaluate(txnCtx, sqlExpressions.nodeCtx), is(1L));
+
+        // DROP FUNCTION f
+        udfService.updateImplementations(Schemas.DOC_SCHEMA_NAME, Stream.of(g));
+        assertThat(fImpl.isClosed(), is(true));
+        assertThat(gImpl.isClosed(), is(false));
+
+        // DROP SCHEMA doc
+        udfService.removeImplementations(Schemas.DOC_SCHEMA_NAME);
+        assertThat(gImpl.isClosed(), is(true));
+    }
 }
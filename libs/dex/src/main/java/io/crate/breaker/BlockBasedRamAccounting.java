@@ -25,6 +25,7 @@ import java.util.function.LongConsumer;
 
 /**
  * A RamAccounting implementation that reserves blocks of memory up-front.
+ * If bytes are released with a negative {@link #addBytes(long)}, reserved memory exceeding a block is returned.
  * This implementation should be used from a single thread only.
  */
 public final class BlockBasedRamAccounting implements RamAccounting {
@@ -77,6 +78,12 @@ public final class BlockBasedRamAccounting implements RamAccounting {
                 throw e;
             }
             reservedBytes += reserveBytes;
+        } else if (bytes < 0) {
+            long unusedBytes = reservedBytes - usedBytes - blockSizeInBytes;
+            if (unusedBytes > 0) {
+                reserveMemory.accept(- unusedBytes);
+                reservedBytes -= unusedBytes;
+            }
         }
         assert reservedBytes >= usedBytes : "reservedBytes must be >= usedBytes: " + toString();
     }
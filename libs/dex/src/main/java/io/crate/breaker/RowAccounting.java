@@ -31,12 +31,19 @@ public interface RowAccounting<T> {
      * Accounts memory usage of the supplied row representation.
      * May throw an exception if it thinks that the entities accounted for
      * occupy too much memory.
+     * @return the number of accounted bytes
      * @throws CircuitBreakingException if too much memory would be consumer after materializing this row.
      */
-    void accountForAndMaybeBreak(T row);
+    long accountForAndMaybeBreak(T row);
 
     /**
      * Stops accounting for previously accounted rows.
      */
     void release();
+
+    /**
+     * Stops accounting for the given number of bytes, for example the sum of what
+     * {@link #accountForAndMaybeBreak(Object)} returned for rows which are no longer kept in memory.
+     */
+    void release(long bytes);
 }
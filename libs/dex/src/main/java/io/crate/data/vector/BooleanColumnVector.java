@@ -0,0 +1,51 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data.vector;
+
+public final class BooleanColumnVector extends ColumnVector {
+
+    private final boolean[] values;
+
+    public BooleanColumnVector(int capacity) {
+        super(capacity);
+        this.values = new boolean[capacity];
+    }
+
+    public boolean[] values() {
+        return values;
+    }
+
+    @Override
+    public Object get(int position) {
+        return nulls[position] ? null : values[position];
+    }
+
+    @Override
+    public void set(int position, Object value) {
+        if (value == null) {
+            nulls[position] = true;
+        } else {
+            nulls[position] = false;
+            values[position] = (Boolean) value;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data.vector;
+
+/**
+ * A column of a batch of rows.
+ *
+ * <p>
+ * Implementations store the values of one column for up to {@link #capacity()} rows.
+ * Values of primitive types are stored unboxed so that functions can be
+ * evaluated in tight loops, see {@link LongColumnVector}, {@link DoubleColumnVector}
+ * and {@link BooleanColumnVector}. All other values are stored in an {@link ObjectColumnVector}.
+ * </p>
+ *
+ * <p>
+ * Vectors are re-used for subsequent batches. Only the positions of the
+ * {@link SelectionVector} which has been used to fill the vector contain valid values.
+ * </p>
+ */
+public abstract class ColumnVector {
+
+    protected final boolean[] nulls;
+
+    protected ColumnVector(int capacity) {
+        this.nulls = new boolean[capacity];
+    }
+
+    public final int capacity() {
+        return nulls.length;
+    }
+
+    public final boolean isNull(int position) {
+        return nulls[position];
+    }
+
+    public final boolean[] nulls() {
+        return nulls;
+    }
+
+    /**
+     * Returns the value at the given position. Primitive values are boxed.
+     */
+    public abstract Object get(int position);
+
+    /**
+     * Sets the value at the given position. Values of primitive vectors must be of the matching boxed type.
+     */
+    public abstract void set(int position, Object value);
+}
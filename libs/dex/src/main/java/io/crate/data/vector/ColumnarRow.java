@@ -0,0 +1,57 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data.vector;
+
+import io.crate.data.Row;
+
+/**
+ * A {@link Row} view on a position of a batch of {@link ColumnVector}s.
+ *
+ * This is the adapter for consumers which operate row by row.
+ */
+public final class ColumnarRow extends Row {
+
+    private ColumnVector[] columns;
+    private int position;
+
+    public ColumnarRow(ColumnVector[] columns) {
+        this.columns = columns;
+    }
+
+    public void columns(ColumnVector[] columns) {
+        this.columns = columns;
+    }
+
+    public void position(int position) {
+        this.position = position;
+    }
+
+    @Override
+    public int numColumns() {
+        return columns.length;
+    }
+
+    @Override
+    public Object get(int index) {
+        return columns[index].get(position);
+    }
+}
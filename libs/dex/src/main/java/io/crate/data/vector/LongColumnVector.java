@@ -0,0 +1,61 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data.vector;
+
+import java.util.function.LongFunction;
+
+/**
+ * A vector of integral values.
+ *
+ * Values of smaller integral types are widened to long, {@code box} converts them back into their
+ * original type if they're accessed via {@link #get(int)}.
+ */
+public final class LongColumnVector extends ColumnVector {
+
+    private final long[] values;
+    private final LongFunction<Object> box;
+
+    public LongColumnVector(int capacity, LongFunction<Object> box) {
+        super(capacity);
+        this.values = new long[capacity];
+        this.box = box;
+    }
+
+    public long[] values() {
+        return values;
+    }
+
+    @Override
+    public Object get(int position) {
+        return nulls[position] ? null : box.apply(values[position]);
+    }
+
+    @Override
+    public void set(int position, Object value) {
+        if (value == null) {
+            nulls[position] = true;
+        } else {
+            nulls[position] = false;
+            values[position] = ((Number) value).longValue();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data.vector;
+
+/**
+ * The positions of a batch which are still selected.
+ *
+ * Filters narrow the selection instead of copying the remaining rows,
+ * functions are only evaluated for the selected positions.
+ * The positions are in ascending order.
+ */
+public final class SelectionVector {
+
+    private final int[] positions;
+    private int size;
+
+    public SelectionVector(int capacity) {
+        this.positions = new int[capacity];
+    }
+
+    public int capacity() {
+        return positions.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int idx) {
+        return positions[idx];
+    }
+
+    public int[] positions() {
+        return positions;
+    }
+
+    /**
+     * Selects the positions {@code 0..numRows-1}
+     */
+    public void selectAll(int numRows) {
+        assert numRows <= positions.length : "numRows must not exceed the capacity";
+        for (int i = 0; i < numRows; i++) {
+            positions[i] = i;
+        }
+        size = numRows;
+    }
+
+    /**
+     * Selects only the given position
+     */
+    public void select(int position) {
+        assert position < positions.length : "position must be within the capacity";
+        positions[0] = position;
+        size = 1;
+    }
+
+    /**
+     * Keeps only the positions for which the vector contains {@code true}.
+     * Positions with {@code false} or {@code null} values are removed from the selection.
+     */
+    public void retainTrue(ColumnVector vector) {
+        int newSize = 0;
+        if (vector instanceof BooleanColumnVector booleans) {
+            boolean[] values = booleans.values();
+            boolean[] nulls = booleans.nulls();
+            for (int i = 0; i < size; i++) {
+                int pos = positions[i];
+                if (values[pos] && !nulls[pos]) {
+                    positions[newSize++] = pos;
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                int pos = positions[i];
+                if (Boolean.TRUE.equals(vector.get(pos))) {
+                    positions[newSize++] = pos;
+                }
+            }
+        }
+        size = newSize;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data.vector;
+
+import java.util.concurrent.CompletionStage;
+
+import javax.annotation.Nonnull;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+
+/**
+ * A BatchIterator which buffers the rows of the source into {@link ColumnVector}s and
+ * processes them batch-at-a-time using an {@link Evaluator}.
+ *
+ * <pre>
+ *  source rows  -> [input columns] -> evaluator -> [output columns + selection]
+ *                                                          |
+ *  currentElement  <-------------- ColumnarRow ------------+
+ * </pre>
+ *
+ * A batch is evaluated once it's full or the source can't provide more rows without loading the next batch.
+ *
+ * Evaluating a batch can fail because of a row which a consumer never reaches, e.g. if it stops after a limit.
+ * If the evaluation of a batch fails, the rows of the batch are therefore evaluated one at a time as they're
+ * consumed, so that an error is only raised once the row causing it is consumed, like with row-at-a-time evaluation.
+ */
+public final class VectorizedBatchIterator implements BatchIterator<Row> {
+
+    @FunctionalInterface
+    public interface Evaluator {
+
+        /**
+         * Evaluates the batch.
+         *
+         * @param input columns containing the values of the source rows.
+         * @param selection all rows of the batch are selected. The evaluator can narrow the selection to filter rows.
+         * @return the output columns. Only the selected positions are emitted.
+         */
+        ColumnVector[] evaluate(ColumnVector[] input, SelectionVector selection);
+    }
+
+    private final BatchIterator<Row> source;
+    private final ColumnVector[] input;
+    private final Evaluator evaluator;
+    private final SelectionVector selection;
+    private final ColumnarRow row;
+    private final int batchSize;
+
+    private int selectionIdx = 0;
+
+    /**
+     * The number of rows of the current batch
+     */
+    private int numRows = 0;
+
+    /**
+     * The position of the next row to evaluate if the batch is evaluated row-at-a-time, -1 otherwise
+     */
+    private int nextRowPosition = -1;
+
+    /**
+     * @param input vectors for each column of the source rows.
+     *              The capacity of the vectors is used as batch size.
+     */
+    public VectorizedBatchIterator(BatchIterator<Row> source, ColumnVector[] input, Evaluator evaluator) {
+        assert input.length > 0 : "Must have at least one input column";
+        this.source = source;
+        this.input = input;
+        this.evaluator = evaluator;
+        this.batchSize = input[0].capacity();
+        this.selection = new SelectionVector(batchSize);
+        this.row = new ColumnarRow(input);
+    }
+
+    @Override
+    public Row currentElement() {
+        return row;
+    }
+
+    @Override
+    public void moveToStart() {
+        source.moveToStart();
+        resetBatch();
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (true) {
+            if (selectionIdx < selection.size()) {
+                row.position(selection.get(selectionIdx));
+                selectionIdx++;
+                return true;
+            }
+            if (nextRowPosition >= 0 && nextRowPosition < numRows) {
+                evaluateRow(nextRowPosition);
+                nextRowPosition++;
+                continue;
+            }
+            if (!nextBatch()) {
+                return false;
+            }
+        }
+    }
+
+    private boolean nextBatch() {
+        numRows = 0;
+        nextRowPosition = -1;
+        while (numRows < batchSize && source.moveNext()) {
+            Row sourceRow = source.currentElement();
+            for (int i = 0; i < input.length; i++) {
+                input[i].set(numRows, sourceRow.get(i));
+            }
+            numRows++;
+        }
+        selectionIdx = 0;
+        if (numRows == 0) {
+            selection.clear();
+            return false;
+        }
+        selection.selectAll(numRows);
+        try {
+            row.columns(evaluator.evaluate(input, selection));
+        } catch (RuntimeException e) {
+            selection.clear();
+            nextRowPosition = 0;
+        }
+        return true;
+    }
+
+    private void evaluateRow(int position) {
+        selectionIdx = 0;
+        selection.select(position);
+        try {
+            row.columns(evaluator.evaluate(input, selection));
+        } catch (RuntimeException e) {
+            selection.clear();
+            throw e;
+        }
+    }
+
+    private void resetBatch() {
+        selection.clear();
+        selectionIdx = 0;
+        numRows = 0;
+        nextRowPosition = -1;
+    }
+
+    @Override
+    public void close() {
+        resetBatch();
+        source.close();
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        return source.loadNextBatch();
+    }
+
+    @Override
+    public boolean allLoaded() {
+        return source.allLoaded();
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        source.kill(throwable);
+    }
+
+    @Override
+    public boolean hasLazyResultSet() {
+        return source.hasLazyResultSet();
+    }
+}
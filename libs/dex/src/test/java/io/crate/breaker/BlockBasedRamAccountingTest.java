@@ -60,4 +60,25 @@ public class BlockBasedRamAccountingTest {
         ramAccounting.addBytes(5432);
         assertThat(accountedBytes.get(), is(5432L));
     }
+
+    @Test
+    public void test_reserved_bytes_exceeding_a_block_are_returned_if_bytes_are_released() {
+        var requestedBytes = new AtomicLong(0L);
+        var ramAccounting = new BlockBasedRamAccounting(requestedBytes::addAndGet, 100);
+
+        ramAccounting.addBytes(1000);
+        ramAccounting.addBytes(50);
+        assertThat(requestedBytes.get(), is(1100L));
+
+        ramAccounting.addBytes(-1000);
+        assertThat(ramAccounting.totalBytes(), is(50L));
+        assertThat(requestedBytes.get(), is(150L));
+
+        ramAccounting.addBytes(60);
+        assertThat(ramAccounting.totalBytes(), is(110L));
+        assertThat(requestedBytes.get(), is(150L));
+
+        ramAccounting.release();
+        assertThat(requestedBytes.get(), is(0L));
+    }
 }
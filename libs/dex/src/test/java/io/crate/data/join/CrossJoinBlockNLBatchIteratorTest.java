@@ -229,13 +229,18 @@ public class CrossJoinBlockNLBatchIteratorTest {
         int numReleaseCalled;
 
         @Override
-        public void accountForAndMaybeBreak(Object[] row) {
+        public long accountForAndMaybeBreak(Object[] row) {
             numRows++;
+            return 1;
         }
 
         @Override
         public void release() {
             numReleaseCalled++;
         }
+
+        @Override
+        public void release(long bytes) {
+        }
     }
 }
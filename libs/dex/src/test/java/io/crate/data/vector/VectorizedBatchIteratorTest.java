@@ -0,0 +1,116 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data.vector;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.BatchSimulatingIterator;
+import io.crate.testing.TestingBatchIterators;
+
+public class VectorizedBatchIteratorTest {
+
+    private final List<Object[]> expectedResult = IntStream.range(0, 20)
+        .filter(x -> x % 3 == 0)
+        .mapToObj(x -> new Object[] { (long) x * 2 })
+        .collect(Collectors.toList());
+
+    /**
+     * Keeps multiples of 3 and doubles them
+     */
+    private static ColumnVector[] evaluate(ColumnVector[] input, SelectionVector selection) {
+        LongColumnVector values = (LongColumnVector) input[0];
+        BooleanColumnVector isMultipleOf3 = new BooleanColumnVector(selection.capacity());
+        for (int i = 0; i < selection.size(); i++) {
+            int pos = selection.get(i);
+            isMultipleOf3.values()[pos] = values.values()[pos] % 3 == 0;
+        }
+        selection.retainTrue(isMultipleOf3);
+        LongColumnVector doubled = new LongColumnVector(selection.capacity(), x -> x);
+        for (int i = 0; i < selection.size(); i++) {
+            int pos = selection.get(i);
+            doubled.values()[pos] = values.values()[pos] * 2;
+        }
+        return new ColumnVector[] { doubled };
+    }
+
+    private static BatchIterator<Row> vectorized(BatchIterator<Row> source) {
+        ColumnVector[] input = new ColumnVector[] { new LongColumnVector(4, x -> x) };
+        return new VectorizedBatchIterator(source, input, VectorizedBatchIteratorTest::evaluate);
+    }
+
+    @Test
+    public void test_vectorized_batch_iterator_evaluates_batches() throws Exception {
+        BatchIteratorTester tester = new BatchIteratorTester(() -> vectorized(TestingBatchIterators.range(0, 20)));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_vectorized_batch_iterator_with_batched_source() throws Exception {
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> vectorized(new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 20), 3, 7, null))
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_vectorized_batch_iterator_raises_errors_only_for_consumed_rows() throws Exception {
+        ColumnVector[] input = new ColumnVector[] { new LongColumnVector(4, x -> x) };
+        BatchIterator<Row> it = new VectorizedBatchIterator(
+            TestingBatchIterators.range(0, 20),
+            input,
+            (in, selection) -> {
+                LongColumnVector values = (LongColumnVector) in[0];
+                for (int i = 0; i < selection.size(); i++) {
+                    if (values.values()[selection.get(i)] == 6) {
+                        throw new IllegalArgumentException("6 is not allowed");
+                    }
+                }
+                return VectorizedBatchIteratorTest.evaluate(in, selection);
+            }
+        );
+        List<Object> rows = new ArrayList<>();
+        assertThat(it.moveNext(), is(true));
+        rows.add(it.currentElement().get(0));
+        assertThat(it.moveNext(), is(true));
+        rows.add(it.currentElement().get(0));
+        assertThat(rows, is(List.of(0L, 6L)));
+        try {
+            it.moveNext();
+            fail("Consuming the row 6 must raise the error of its evaluation");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("6 is not allowed"));
+        }
+        it.close();
+    }
+}
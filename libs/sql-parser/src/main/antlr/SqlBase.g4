@@ -38,6 +38,7 @@ statement
     | EXPLAIN (ANALYZE)? statement                                                   #explain
     | OPTIMIZE TABLE tableWithPartitions withProperties?                             #optimize
     | REFRESH TABLE tableWithPartitions                                              #refreshTable
+    | REFRESH MATERIALIZED VIEW name=qname                                           #refreshMaterializedView
     | UPDATE aliasedRelation
         SET assignment (',' assignment)*
         where?
@@ -82,6 +83,9 @@ statement
     | RESTORE SNAPSHOT qname
         (ALL | METADATA | TABLE tableWithPartitions | metatypes=idents)
         withProperties?                                                              #restore
+    | COPY qname ('(' ident (',' ident)* ')')? FROM STDIN withProperties?            #copyFromStdin
+    | COPY (qname ('(' ident (',' ident)* ')')? | '(' query ')')
+        TO STDOUT withProperties?                                                    #copyToStdout
     | COPY tableWithPartition FROM path=expr withProperties? (RETURN SUMMARY)?       #copyFrom
     | COPY tableWithPartition columns? where?
         TO DIRECTORY? path=expr withProperties?                                      #copyTo
@@ -93,7 +97,7 @@ statement
     | DROP FUNCTION (IF EXISTS)? name=qname
         '(' (functionArgument (',' functionArgument)*)? ')'                          #dropFunction
     | DROP USER (IF EXISTS)? name=ident                                              #dropUser
-    | DROP VIEW (IF EXISTS)? names=qnames                                            #dropView
+    | DROP MATERIALIZED? VIEW (IF EXISTS)? names=qnames                              #dropView
     | DROP ANALYZER name=ident                                                       #dropAnalyzer
     | GRANT (priviliges=idents | ALL PRIVILEGES?)
         (ON clazz qnames)? TO users=idents                                           #grantPrivilege
@@ -499,7 +503,7 @@ createStmt
         LANGUAGE language=parameterOrIdent
         AS body=parameterOrString                                                    #createFunction
     | CREATE USER name=ident withProperties?                                         #createUser
-    | CREATE ( OR REPLACE )? VIEW name=qname AS query                                #createView
+    | CREATE ( OR REPLACE )? MATERIALIZED? VIEW name=qname AS query                  #createView
     ;
 
 functionArgument
@@ -691,7 +695,7 @@ nonReserved
     | STRING_TYPE | IP | DOUBLE | FLOAT | TIMESTAMP | LONG | INT | INTEGER | SHORT | BYTE | BOOLEAN | PRECISION
     | REPLACE | RETURNING | SWAP | GC | DANGLING | ARTIFACTS | DECOMMISSION | LEADING | TRAILING | BOTH | TRIM
     | CURRENT_SCHEMA | PROMOTE | CHARACTER | VARYING
-    | DISCARD | PLANS | SEQUENCES | TEMPORARY | TEMP | METADATA
+    | DISCARD | PLANS | SEQUENCES | TEMPORARY | TEMP | METADATA | STDIN | STDOUT
     ;
 
 AUTHORIZATION: 'AUTHORIZATION';
@@ -916,6 +920,8 @@ SET: 'SET';
 RESET: 'RESET';
 DEFAULT: 'DEFAULT';
 COPY: 'COPY';
+STDIN: 'STDIN';
+STDOUT: 'STDOUT';
 CLUSTERED: 'CLUSTERED';
 SHARDS: 'SHARDS';
 PRIMARY_KEY: 'PRIMARY KEY';
@@ -35,6 +35,8 @@ import io.crate.sql.tree.ColumnDefinition;
 import io.crate.sql.tree.ColumnStorageDefinition;
 import io.crate.sql.tree.ColumnType;
 import io.crate.sql.tree.CopyFrom;
+import io.crate.sql.tree.CopyFromStdin;
+import io.crate.sql.tree.CopyToStdout;
 import io.crate.sql.tree.CreateFunction;
 import io.crate.sql.tree.CreateSnapshot;
 import io.crate.sql.tree.CreateTable;
@@ -194,6 +196,35 @@ public final class SqlFormatter {
             return null;
         }
 
+        @Override
+        public Void visitCopyFromStdin(CopyFromStdin<?> node, Integer indent) {
+            append(indent, "COPY ");
+            node.table().accept(this, indent);
+            if (!node.columns().isEmpty()) {
+                builder.append(" (")
+                    .append(String.join(", ", node.columns()))
+                    .append(')');
+            }
+            append(indent, " FROM STDIN");
+            if (!node.properties().isEmpty()) {
+                append(indent, " ");
+                node.properties().accept(this, indent);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitCopyToStdout(CopyToStdout<?> node, Integer indent) {
+            append(indent, "COPY (");
+            node.query().accept(this, indent);
+            append(indent, ") TO STDOUT");
+            if (!node.properties().isEmpty()) {
+                append(indent, " ");
+                node.properties().accept(this, indent);
+            }
+            return null;
+        }
+
         @Override
         public Void visitRefreshStatement(RefreshStatement node, Integer indent) {
             append(indent, "REFRESH TABLE ");
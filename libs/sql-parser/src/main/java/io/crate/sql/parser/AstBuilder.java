@@ -68,7 +68,9 @@ import io.crate.sql.tree.ColumnType;
 import io.crate.sql.tree.CommitStatement;
 import io.crate.sql.tree.ComparisonExpression;
 import io.crate.sql.tree.CopyFrom;
+import io.crate.sql.tree.CopyFromStdin;
 import io.crate.sql.tree.CopyTo;
+import io.crate.sql.tree.CopyToStdout;
 import io.crate.sql.tree.CreateAnalyzer;
 import io.crate.sql.tree.CreateBlobTable;
 import io.crate.sql.tree.CreateFunction;
@@ -149,6 +151,7 @@ import io.crate.sql.tree.Query;
 import io.crate.sql.tree.QueryBody;
 import io.crate.sql.tree.QuerySpecification;
 import io.crate.sql.tree.RecordSubscript;
+import io.crate.sql.tree.RefreshMaterializedView;
 import io.crate.sql.tree.RefreshStatement;
 import io.crate.sql.tree.Relation;
 import io.crate.sql.tree.RerouteAllocateReplicaShard;
@@ -382,7 +385,8 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
         return new CreateView(
             getQualifiedName(ctx.qname()),
             (Query) visit(ctx.query()),
-            ctx.REPLACE() != null
+            ctx.REPLACE() != null,
+            ctx.MATERIALIZED() != null
         );
     }
 
@@ -607,6 +611,42 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
             extractGenericProperties(context.withProperties()));
     }
 
+    @Override
+    public Node visitCopyFromStdin(SqlBaseParser.CopyFromStdinContext context) {
+        return new CopyFromStdin<>(
+            new Table<>(getQualifiedName(context.qname())),
+            identsToStrings(context.ident()),
+            extractGenericProperties(context.withProperties()));
+    }
+
+    @Override
+    public Node visitCopyToStdout(SqlBaseParser.CopyToStdoutContext context) {
+        Query query;
+        if (context.query() != null) {
+            query = (Query) visit(context.query());
+        } else {
+            List<String> columns = identsToStrings(context.ident());
+            List<SelectItem> selectItems = columns.isEmpty()
+                ? List.of(new AllColumns())
+                : Lists2.map(columns, column -> new SingleColumn(new QualifiedNameReference(QualifiedName.of(column))));
+            query = new Query(
+                new QuerySpecification(
+                    new Select(false, selectItems),
+                    List.of(new Table<>(getQualifiedName(context.qname()))),
+                    Optional.empty(),
+                    List.of(),
+                    Optional.empty(),
+                    Map.of(),
+                    List.of(),
+                    Optional.empty(),
+                    Optional.empty()),
+                List.of(),
+                Optional.empty(),
+                Optional.empty());
+        }
+        return new CopyToStdout<>(query, extractGenericProperties(context.withProperties()));
+    }
+
     @Override
     public Node visitInsert(SqlBaseParser.InsertContext context) {
         List<String> columns = identsToStrings(context.ident());
@@ -836,6 +876,11 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
         return new RefreshStatement(visitCollection(context.tableWithPartitions().tableWithPartition(), Table.class));
     }
 
+    @Override
+    public Node visitRefreshMaterializedView(SqlBaseParser.RefreshMaterializedViewContext context) {
+        return new RefreshMaterializedView(getQualifiedName(context.qname()));
+    }
+
     @Override
     public Node visitTableOnly(SqlBaseParser.TableOnlyContext context) {
         return new Table(getQualifiedName(context.qname()));
@@ -0,0 +1,222 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.sql.parser;
+
+import io.crate.sql.parser.antlr.v4.SqlBaseLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Creates a normalized representation of a statement, used to group executions of the same statement which only
+ * differ in their literal values, whitespace, comments or the case of keywords and unquoted identifiers.
+ *
+ * <pre>
+ *     SELECT name FROM  t WHERE x = 10 -- comment
+ *     select name from t where x = $1
+ *
+ *     both result in: select name from t where x = ?
+ * </pre>
+ *
+ * Lists only differing in their number of values are normalized to a single value, so that for example
+ * {@code x IN (1, 2, 3)} and {@code x IN (4, 5)} both result in {@code x in (?)}, and
+ * {@code VALUES (1, 'a'), (2, 'b')} results in {@code values (?, ?)}.
+ *
+ * The statement is only tokenized, not parsed, so this works for any input, including invalid statements.
+ * The result is truncated to {@link #MAX_LENGTH} characters.
+ */
+public final class StatementFingerprint {
+
+    public static final int MAX_LENGTH = 4096;
+
+    private static final String PLACEHOLDER = "?";
+
+    private record Term(String text, boolean isIdentifier) {
+    }
+
+    private StatementFingerprint() {
+    }
+
+    public static String of(String statement) {
+        List<Term> terms = collapseLists(tokenize(statement));
+        StringBuilder sb = new StringBuilder(Math.min(statement.length(), MAX_LENGTH));
+        Term previous = null;
+        for (Term term : terms) {
+            if (previous != null && needsSeparator(previous, term)) {
+                sb.append(' ');
+            }
+            sb.append(term.text);
+            if (sb.length() >= MAX_LENGTH) {
+                sb.setLength(MAX_LENGTH);
+                break;
+            }
+            previous = term;
+        }
+        return sb.toString();
+    }
+
+    private static List<Term> tokenize(String statement) {
+        SqlBaseLexer lexer = new SqlBaseLexer(new CaseInsensitiveStream(CharStreams.fromString(statement)));
+        lexer.removeErrorListeners();
+        ArrayList<Term> terms = new ArrayList<>();
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            if (token.getChannel() == Token.HIDDEN_CHANNEL) {
+                continue;
+            }
+            switch (token.getType()) {
+                case SqlBaseLexer.STRING:
+                case SqlBaseLexer.ESCAPED_STRING:
+                case SqlBaseLexer.BIT_STRING:
+                case SqlBaseLexer.INTEGER_VALUE:
+                case SqlBaseLexer.DECIMAL_VALUE:
+                    int last = terms.size() - 1;
+                    if (last >= 0 && terms.get(last).text.equals("$")) {
+                        // positional parameter `$1`, replaces the `$`
+                        terms.remove(last);
+                    }
+                    terms.add(new Term(PLACEHOLDER, false));
+                    break;
+
+                case SqlBaseLexer.QUOTED_IDENTIFIER:
+                case SqlBaseLexer.BACKQUOTED_IDENTIFIER:
+                    terms.add(new Term(token.getText(), true));
+                    break;
+
+                default:
+                    String text = token.getText().toLowerCase(Locale.ENGLISH);
+                    if (!text.equals(";")) {
+                        terms.add(new Term(text, token.getType() == SqlBaseLexer.IDENTIFIER));
+                    }
+                    break;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Replaces {@code in (?, ?, ...)} with {@code in (?)} and removes repetitions of the same tuple after
+     * {@code values}.
+     */
+    private static List<Term> collapseLists(List<Term> terms) {
+        ArrayList<Term> result = new ArrayList<>(terms.size());
+        int i = 0;
+        while (i < terms.size()) {
+            Term term = terms.get(i);
+            result.add(term);
+            i++;
+            if (term.text.equals("in")) {
+                int end = endOfPlaceholderList(terms, i);
+                if (end > 0) {
+                    result.add(terms.get(i));
+                    result.add(terms.get(i + 1));
+                    result.add(terms.get(end));
+                    i = end + 1;
+                }
+            } else if (term.text.equals("values")) {
+                List<Term> previousTuple = null;
+                while (i < terms.size() && terms.get(i).text.equals("(")) {
+                    int end = closingParenthesis(terms, i);
+                    if (end < 0) {
+                        break;
+                    }
+                    List<Term> tuple = terms.subList(i, end + 1);
+                    if (!tuple.equals(previousTuple)) {
+                        if (previousTuple != null) {
+                            result.add(terms.get(i - 1));
+                        }
+                        result.addAll(tuple);
+                        previousTuple = tuple;
+                    }
+                    i = end + 1;
+                    if (i + 1 < terms.size() && terms.get(i).text.equals(",") && terms.get(i + 1).text.equals("(")) {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the index of the closing parenthesis of a {@code (?, ?, ...)} list starting at {@code start},
+     *         or -1 if there is no such list.
+     */
+    private static int endOfPlaceholderList(List<Term> terms, int start) {
+        if (start >= terms.size() || !terms.get(start).text.equals("(")) {
+            return -1;
+        }
+        boolean expectPlaceholder = true;
+        for (int i = start + 1; i < terms.size(); i++) {
+            String text = terms.get(i).text;
+            if (expectPlaceholder && text.equals(PLACEHOLDER)) {
+                expectPlaceholder = false;
+            } else if (!expectPlaceholder && text.equals(",")) {
+                expectPlaceholder = true;
+            } else if (!expectPlaceholder && text.equals(")")) {
+                return i;
+            } else {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int closingParenthesis(List<Term> terms, int start) {
+        int depth = 0;
+        for (int i = start; i < terms.size(); i++) {
+            String text = terms.get(i).text;
+            if (text.equals("(")) {
+                depth++;
+            } else if (text.equals(")")) {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean needsSeparator(Term previous, Term next) {
+        String prev = previous.text;
+        String text = next.text;
+        if (prev.equals("(")
+            || prev.equals("[")
+            || prev.equals("{")
+            || prev.equals(".")
+            || prev.equals("$")
+            || text.equals(",")
+            || text.equals(")")
+            || text.equals("]")
+            || text.equals("}")
+            || text.equals(".")) {
+            return false;
+        }
+        // function call
+        return !text.equals("(") || !previous.isIdentifier;
+    }
+}
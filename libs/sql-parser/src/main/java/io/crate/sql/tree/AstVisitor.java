@@ -460,6 +460,14 @@ public abstract class AstVisitor<R, C> {
         return visitStatement(node, context);
     }
 
+    public R visitCopyFromStdin(CopyFromStdin<?> node, C context) {
+        return visitStatement(node, context);
+    }
+
+    public R visitCopyToStdout(CopyToStdout<?> node, C context) {
+        return visitStatement(node, context);
+    }
+
     public R visitPartitionedBy(PartitionedBy node, C context) {
         return visitNode(node, context);
     }
@@ -588,6 +596,10 @@ public abstract class AstVisitor<R, C> {
         return visitStatement(dropView, context);
     }
 
+    public R visitRefreshMaterializedView(RefreshMaterializedView refreshMaterializedView, C context) {
+        return visitStatement(refreshMaterializedView, context);
+    }
+
     public R visitSwapTable(SwapTable<?> swapTable, C context) {
         return visitStatement(swapTable, context);
     }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.sql.tree;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@code COPY table [(column, ...)] FROM STDIN [WITH (...)]}
+ *
+ * The rows are sent by the client, this is only supported via the PostgreSQL wire protocol.
+ */
+public class CopyFromStdin<T> extends Statement {
+
+    private final Table<T> table;
+    private final List<String> columns;
+    private final GenericProperties<T> properties;
+
+    public CopyFromStdin(Table<T> table, List<String> columns, GenericProperties<T> properties) {
+        this.table = table;
+        this.columns = columns;
+        this.properties = properties;
+    }
+
+    public Table<T> table() {
+        return table;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    public GenericProperties<T> properties() {
+        return properties;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CopyFromStdin<?> that = (CopyFromStdin<?>) o;
+        return Objects.equals(table, that.table) &&
+               Objects.equals(columns, that.columns) &&
+               Objects.equals(properties, that.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(table, columns, properties);
+    }
+
+    @Override
+    public String toString() {
+        return "CopyFromStdin{" +
+               "table=" + table +
+               ", columns=" + columns +
+               ", properties=" + properties +
+               '}';
+    }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitCopyFromStdin(this, context);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.sql.tree;
+
+import java.util.Objects;
+
+/**
+ * {@code COPY (query) TO STDOUT [WITH (...)]}
+ *
+ * {@code COPY table [(column, ...)] TO STDOUT} is represented as {@code COPY (SELECT column, ... FROM table) TO STDOUT}.
+ * The rows are streamed to the client, this is only supported via the PostgreSQL wire protocol.
+ */
+public class CopyToStdout<T> extends Statement {
+
+    private final Query query;
+    private final GenericProperties<T> properties;
+
+    public CopyToStdout(Query query, GenericProperties<T> properties) {
+        this.query = query;
+        this.properties = properties;
+    }
+
+    public Query query() {
+        return query;
+    }
+
+    public GenericProperties<T> properties() {
+        return properties;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CopyToStdout<?> that = (CopyToStdout<?>) o;
+        return Objects.equals(query, that.query) &&
+               Objects.equals(properties, that.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, properties);
+    }
+
+    @Override
+    public String toString() {
+        return "CopyToStdout{" +
+               "query=" + query +
+               ", properties=" + properties +
+               '}';
+    }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitCopyToStdout(this, context);
+    }
+}
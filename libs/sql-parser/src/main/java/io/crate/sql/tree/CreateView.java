@@ -26,11 +26,17 @@ public final class CreateView extends Statement {
     private final QualifiedName name;
     private final Query query;
     private final boolean replaceExisting;
+    private final boolean materialized;
 
     public CreateView(QualifiedName name, Query query, boolean replaceExisting) {
+        this(name, query, replaceExisting, false);
+    }
+
+    public CreateView(QualifiedName name, Query query, boolean replaceExisting, boolean materialized) {
         this.name = name;
         this.query = query;
         this.replaceExisting = replaceExisting;
+        this.materialized = materialized;
     }
 
     public QualifiedName name() {
@@ -45,6 +51,10 @@ public final class CreateView extends Statement {
         return replaceExisting;
     }
 
+    public boolean materialized() {
+        return materialized;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -53,6 +63,7 @@ public final class CreateView extends Statement {
         CreateView that = (CreateView) o;
 
         if (replaceExisting != that.replaceExisting) return false;
+        if (materialized != that.materialized) return false;
         if (!name.equals(that.name)) return false;
         return query.equals(that.query);
     }
@@ -62,6 +73,7 @@ public final class CreateView extends Statement {
         int result = name.hashCode();
         result = 31 * result + query.hashCode();
         result = 31 * result + (replaceExisting ? 1 : 0);
+        result = 31 * result + (materialized ? 1 : 0);
         return result;
     }
 
@@ -71,6 +83,7 @@ public final class CreateView extends Statement {
                "name=" + name +
                ", query=" + query +
                ", replaceExisting=" + replaceExisting +
+               ", materialized=" + materialized +
                '}';
     }
 
@@ -0,0 +1,99 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.sql.parser;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class StatementFingerprintTest {
+
+    @Test
+    public void test_literals_and_parameters_are_replaced() {
+        String expected = "select name from t where x = ? and y = ? and z in (?)";
+        assertThat(StatementFingerprint.of("select name from t where x = 10 and y = 'foo' and z in (1.5, E'\\n')"),
+                   is(expected));
+        assertThat(StatementFingerprint.of("select name from t where x = $1 and y = $2 and z in ($3, $4)"),
+                   is(expected));
+        assertThat(StatementFingerprint.of("select name from t where x = ? and y = ? and z in (?, ?)"),
+                   is(expected));
+    }
+
+    @Test
+    public void test_whitespace_comments_and_keyword_case_are_normalized() {
+        assertThat(
+            StatementFingerprint.of("SELECT  Name\n FROM doc.T -- comment\n WHERE x > 1 LIMIT 100;"),
+            is("select name from doc.t where x > ? limit ?"));
+    }
+
+    @Test
+    public void test_quoted_identifiers_are_kept() {
+        assertThat(
+            StatementFingerprint.of("SELECT \"Name\", count(*) FROM \"T\" GROUP BY 1"),
+            is("select \"Name\", count(*) from \"T\" group by ?"));
+    }
+
+    @Test
+    public void test_array_and_object_literals_and_casts() {
+        assertThat(
+            StatementFingerprint.of("INSERT INTO t (a, o) VALUES ([1, 2], {x = 'y'}) RETURNING a::TEXT"),
+            is("insert into t(a, o) values ([?, ?], {x = ?}) returning a :: text"));
+    }
+
+    @Test
+    public void test_invalid_statement_is_fingerprinted() {
+        assertThat(StatementFingerprint.of("SELEKT 'x' FROM"), is("selekt ? from"));
+    }
+
+    @Test
+    public void test_in_lists_are_collapsed() {
+        String expected = "select * from t where x in (?) and y not in (?)";
+        assertThat(StatementFingerprint.of("select * from t where x in (1, 2, 3) and y not in ('a')"), is(expected));
+        assertThat(StatementFingerprint.of("select * from t where x in ($1, $2) and y not in ($3, $4, $5)"), is(expected));
+        assertThat(
+            StatementFingerprint.of("select * from t where x in (1, y)"),
+            is("select * from t where x in (?, y)"));
+    }
+
+    @Test
+    public void test_repeated_values_tuples_are_collapsed() {
+        String expected = "insert into t(a, b) values (?, ?)";
+        assertThat(StatementFingerprint.of("insert into t (a, b) values (1, 'a')"), is(expected));
+        assertThat(StatementFingerprint.of("insert into t (a, b) values (1, 'a'), (2, 'b'), (3, 'c')"), is(expected));
+        assertThat(
+            StatementFingerprint.of("insert into t (a, b) values (1, 'a'), (2, now()), (3, now()) on conflict do nothing"),
+            is("insert into t(a, b) values (?, ?), (?, now()) on conflict do nothing"));
+    }
+
+    @Test
+    public void test_fingerprint_is_truncated() {
+        StringBuilder sb = new StringBuilder("select ");
+        for (int i = 0; i < StatementFingerprint.MAX_LENGTH; i++) {
+            sb.append("col").append(i).append(", ");
+        }
+        sb.append("1 from t");
+        String fingerprint = StatementFingerprint.of(sb.toString());
+        assertThat(fingerprint.length(), is(StatementFingerprint.MAX_LENGTH));
+        assertThat(fingerprint.startsWith("select col0, col1, col2"), is(true));
+    }
+}
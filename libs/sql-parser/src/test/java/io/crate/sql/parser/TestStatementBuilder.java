@@ -29,9 +29,12 @@ import io.crate.sql.tree.ArrayLiteral;
 import io.crate.sql.tree.Assignment;
 import io.crate.sql.tree.ComparisonExpression;
 import io.crate.sql.tree.CopyFrom;
+import io.crate.sql.tree.CopyFromStdin;
+import io.crate.sql.tree.CopyToStdout;
 import io.crate.sql.tree.CreateFunction;
 import io.crate.sql.tree.CreateTable;
 import io.crate.sql.tree.CreateUser;
+import io.crate.sql.tree.CreateView;
 import io.crate.sql.tree.DeallocateStatement;
 import io.crate.sql.tree.DefaultTraversalVisitor;
 import io.crate.sql.tree.DenyPrivilege;
@@ -58,6 +61,7 @@ import io.crate.sql.tree.ParameterExpression;
 import io.crate.sql.tree.QualifiedName;
 import io.crate.sql.tree.QualifiedNameReference;
 import io.crate.sql.tree.Query;
+import io.crate.sql.tree.RefreshMaterializedView;
 import io.crate.sql.tree.RevokePrivilege;
 import io.crate.sql.tree.SetSessionAuthorizationStatement;
 import io.crate.sql.tree.SetStatement;
@@ -74,6 +78,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.crate.sql.parser.TreeAssertions.assertFormattedSql;
@@ -1097,6 +1102,33 @@ public class TestStatementBuilder {
         printStatement("copy foo where a = 'x' to DIRECTORY '/folder'");
     }
 
+    @Test
+    public void test_copy_from_stdin_and_to_stdout() {
+        printStatement("copy foo from stdin");
+        printStatement("copy foo (a, b) from stdin");
+        printStatement("copy doc.foo from stdin with (format='csv', header=true)");
+
+        printStatement("copy foo to stdout");
+        printStatement("copy foo (a, b) to stdout with (format='binary')");
+        printStatement("copy (select a, count(*) from foo group by a) to stdout");
+
+        CopyFromStdin<?> copyFrom = (CopyFromStdin<?>) SqlParser.createStatement("copy foo (a, b) from stdin");
+        assertThat(copyFrom.table().getName(), is(QualifiedName.of("foo")));
+        assertThat(copyFrom.columns(), is(List.of("a", "b")));
+
+        // The table form is a short-hand for a query
+        assertThat(
+            SqlParser.createStatement("copy foo (a, b) to stdout"),
+            is(SqlParser.createStatement("copy (select a, b from foo) to stdout")));
+        assertThat(
+            SqlParser.createStatement("copy foo to stdout"),
+            is(SqlParser.createStatement("copy (select * from foo) to stdout")));
+
+        // stdin/stdout are still valid identifiers
+        assertThat(SqlParser.createStatement("copy foo from stdin_path"), instanceOf(CopyFrom.class));
+        printStatement("select stdin, stdout from foo");
+    }
+
     @Test
     public void testInsertStmtBuilder() {
         // insert from values
@@ -1665,6 +1697,27 @@ public class TestStatementBuilder {
     public void testCreateViewParsing() {
         printStatement("CREATE VIEW myView AS SELECT * FROM foobar");
         printStatement("CREATE OR REPLACE VIEW myView AS SELECT * FROM foobar");
+        printStatement("CREATE MATERIALIZED VIEW myView AS SELECT x, count(*) FROM foobar GROUP BY x");
+        printStatement("CREATE OR REPLACE MATERIALIZED VIEW myView AS SELECT sum(x) FROM foobar");
+    }
+
+    @Test
+    public void test_create_materialized_view() {
+        CreateView createView = (CreateView) SqlParser.createStatement(
+            "CREATE MATERIALIZED VIEW v1 AS SELECT x, count(*) FROM t GROUP BY x");
+        assertThat(createView.materialized(), is(true));
+        assertThat(createView.replaceExisting(), is(false));
+
+        createView = (CreateView) SqlParser.createStatement("CREATE VIEW v1 AS SELECT x FROM t");
+        assertThat(createView.materialized(), is(false));
+    }
+
+    @Test
+    public void test_refresh_materialized_view() {
+        printStatement("REFRESH MATERIALIZED VIEW myView");
+        printStatement("REFRESH MATERIALIZED VIEW x.myView");
+        Statement stmt = SqlParser.createStatement("REFRESH MATERIALIZED VIEW x.v1");
+        assertThat(stmt, is(new RefreshMaterializedView(QualifiedName.of("x", "v1"))));
     }
 
     @Test
@@ -1673,6 +1726,8 @@ public class TestStatementBuilder {
         printStatement("DROP VIEW v1, v2, x.v3");
         printStatement("DROP VIEW IF EXISTS myView");
         printStatement("DROP VIEW IF EXISTS v1, x.v2, y.v3");
+        printStatement("DROP MATERIALIZED VIEW myView");
+        printStatement("DROP MATERIALIZED VIEW IF EXISTS v1, x.v2");
     }
 
     @Test
@@ -1730,6 +1785,8 @@ public class TestStatementBuilder {
         if (statement instanceof Query ||
             statement instanceof CreateTable ||
             statement instanceof CopyFrom ||
+            statement instanceof CopyFromStdin ||
+            statement instanceof CopyToStdout ||
             statement instanceof SwapTable ||
             statement instanceof GCDanglingArtifacts ||
             statement instanceof CreateFunction ||
@@ -22,6 +22,7 @@
 package io.crate.copy.s3;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
@@ -94,14 +95,37 @@ public class S3FileInput implements FileInput {
         if (client == null) {
             client = clientBuilder.client(uri);
         }
-        String key = uri.getPath().length() > 1 ? uri.getPath().substring(1) : "";
-        S3Object object = client.getObject(uri.getHost(), key);
+        S3Object object = client.getObject(uri.getHost(), key(uri));
         if (object != null) {
             return object.getObjectContent();
         }
         throw new IOException("Failed to load S3 URI: " + uri.toString());
     }
 
+    @Override
+    public InputStream getStream(URI uri, long start, long end) throws IOException {
+        if (client == null) {
+            client = clientBuilder.client(uri);
+        }
+        S3Object object = client.getObject(new GetObjectRequest(uri.getHost(), key(uri)).withRange(start, end - 1));
+        if (object != null) {
+            return object.getObjectContent();
+        }
+        throw new IOException("Failed to load S3 URI: " + uri.toString());
+    }
+
+    @Override
+    public long size(URI uri) throws IOException {
+        if (client == null) {
+            client = clientBuilder.client(uri);
+        }
+        return client.getObjectMetadata(uri.getHost(), key(uri)).getContentLength();
+    }
+
+    private static String key(URI uri) {
+        return uri.getPath().length() > 1 ? uri.getPath().substring(1) : "";
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return true;
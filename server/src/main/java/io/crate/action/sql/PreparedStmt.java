@@ -23,6 +23,7 @@ package io.crate.action.sql;
 
 import io.crate.analyze.AnalyzedStatement;
 import io.crate.analyze.ParamTypeHints;
+import io.crate.sql.parser.StatementFingerprint;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 
@@ -32,6 +33,7 @@ public class PreparedStmt {
     private final Statement parsedStatement;
     private final String rawStatement;
     private final DataType[] describedParameterTypes;
+    private String fingerprint;
 
     PreparedStmt(Statement parsedStatement,
                  AnalyzedStatement analyzedStatement,
@@ -71,4 +73,15 @@ public class PreparedStmt {
     public String rawStatement() {
         return rawStatement;
     }
+
+    /**
+     * The {@link StatementFingerprint} of the statement, computed on the first call.
+     * It is shared by all executions of the prepared statement.
+     */
+    public String fingerprint() {
+        if (fingerprint == null) {
+            fingerprint = StatementFingerprint.of(rawStatement);
+        }
+        return fingerprint;
+    }
 }
@@ -28,7 +28,7 @@ import io.crate.exceptions.SQLExceptions;
 
 import javax.annotation.Nullable;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 
 public class RowConsumerToResultReceiver implements RowConsumer {
 
@@ -38,11 +38,17 @@ public class RowConsumerToResultReceiver implements RowConsumer {
     private long rowCount = 0;
     private BatchIterator<Row> activeIt;
 
-    public RowConsumerToResultReceiver(ResultReceiver resultReceiver, int maxRows, Consumer<Throwable> onCompletion) {
+    /**
+     * @param onCompletion called with the failure (or null) and the number of rows
+     *                     passed to the resultReceiver once the consumer completed.
+     */
+    public RowConsumerToResultReceiver(ResultReceiver resultReceiver,
+                                       int maxRows,
+                                       ObjLongConsumer<Throwable> onCompletion) {
         this.resultReceiver = resultReceiver;
         this.maxRows = maxRows;
         completionFuture.whenComplete((res, err) -> {
-            onCompletion.accept(err);
+            onCompletion.accept(err, rowCount);
         });
     }
 
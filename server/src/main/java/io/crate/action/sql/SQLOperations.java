@@ -27,6 +27,7 @@ import io.crate.user.UserManager;
 import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.metadata.NodeContext;
 import io.crate.planner.DependencyCarrier;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
@@ -50,6 +51,7 @@ public class SQLOperations {
     private final NodeContext nodeCtx;
     private final Analyzer analyzer;
     private final Planner planner;
+    private final PlanCache planCache;
     private final Provider<DependencyCarrier> executorProvider;
     private final JobsLogs jobsLogs;
     private final ClusterService clusterService;
@@ -61,6 +63,7 @@ public class SQLOperations {
     public SQLOperations(NodeContext nodeCtx,
                          Analyzer analyzer,
                          Planner planner,
+                         PlanCache planCache,
                          Provider<DependencyCarrier> executorProvider,
                          JobsLogs jobsLogs,
                          Settings settings,
@@ -69,6 +72,7 @@ public class SQLOperations {
         this.nodeCtx = nodeCtx;
         this.analyzer = analyzer;
         this.planner = planner;
+        this.planCache = planCache;
         this.executorProvider = executorProvider;
         this.jobsLogs = jobsLogs;
         this.clusterService = clusterService;
@@ -84,6 +88,7 @@ public class SQLOperations {
             nodeCtx,
             analyzer,
             planner,
+            planCache,
             jobsLogs,
             isReadOnly,
             executorProvider.get(),
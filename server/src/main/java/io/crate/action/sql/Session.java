@@ -42,6 +42,7 @@ import org.elasticsearch.common.Randomness;
 
 import io.crate.analyze.AnalyzedBegin;
 import io.crate.analyze.AnalyzedCommit;
+import io.crate.analyze.AnalyzedCopyFromStdin;
 import io.crate.analyze.AnalyzedDeallocate;
 import io.crate.analyze.AnalyzedDiscard;
 import io.crate.analyze.AnalyzedStatement;
@@ -54,12 +55,14 @@ import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.auth.AccessControl;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.collections.Lists2;
+import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.data.Row1;
 import io.crate.data.RowConsumer;
 import io.crate.data.RowN;
 import io.crate.exceptions.ReadOnlyException;
 import io.crate.exceptions.SQLExceptions;
+import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.Symbols;
@@ -68,10 +71,13 @@ import io.crate.metadata.RoutingProvider;
 import io.crate.metadata.table.TableInfo;
 import io.crate.planner.DependencyCarrier;
 import io.crate.planner.Plan;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import io.crate.planner.PlannerContext;
+import io.crate.planner.operators.LogicalPlan;
 import io.crate.planner.operators.StatementClassifier;
 import io.crate.planner.operators.SubQueryResults;
+import io.crate.planner.statement.CopyFromStdinPlan;
 import io.crate.protocols.postgres.FormatCodes;
 import io.crate.protocols.postgres.JobsLogsUpdateListener;
 import io.crate.protocols.postgres.Portal;
@@ -138,6 +144,7 @@ public class Session implements AutoCloseable {
     private final NodeContext nodeCtx;
     private final Analyzer analyzer;
     private final Planner planner;
+    private final PlanCache planCache;
     private final JobsLogs jobsLogs;
     private final boolean isReadOnly;
     private final ParameterTypeExtractor parameterTypeExtractor;
@@ -147,6 +154,7 @@ public class Session implements AutoCloseable {
     public Session(NodeContext nodeCtx,
                    Analyzer analyzer,
                    Planner planner,
+                   PlanCache planCache,
                    JobsLogs jobsLogs,
                    boolean isReadOnly,
                    DependencyCarrier executor,
@@ -155,6 +163,7 @@ public class Session implements AutoCloseable {
         this.nodeCtx = nodeCtx;
         this.analyzer = analyzer;
         this.planner = planner;
+        this.planCache = planCache;
         this.jobsLogs = jobsLogs;
         this.isReadOnly = isReadOnly;
         this.executor = executor;
@@ -423,7 +432,8 @@ public class Session implements AutoCloseable {
             resultReceiver.allFinished(false);
         } else if (analyzedStmt instanceof AnalyzedDiscard) {
             AnalyzedDiscard discard = (AnalyzedDiscard) analyzedStmt;
-            // We don't cache plans, don't have sequences or temporary tables
+            // Cached plans are shared between sessions and invalidated on schema changes,
+            // we don't have sequences or temporary tables
             // See https://www.postgresql.org/docs/current/sql-discard.html
             if (discard.target() == Target.ALL) {
                 close();
@@ -543,7 +553,7 @@ public class Session implements AutoCloseable {
 
         Plan plan;
         try {
-            plan = planner.plan(analyzedStatement, plannerContext);
+            plan = plan(firstPreparedStatement, plannerContext);
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(
                 jobId,
@@ -555,6 +565,7 @@ public class Session implements AutoCloseable {
         jobsLogs.logExecutionStart(
             jobId,
             firstPreparedStatement.rawStatement(),
+            firstPreparedStatement.fingerprint(),
             sessionContext.sessionUser(),
             StatementClassifier.classify(plan)
         );
@@ -623,7 +634,7 @@ public class Session implements AutoCloseable {
         }
         Plan plan;
         try {
-            plan = planner.plan(analyzedStmt, plannerContext);
+            plan = plan(portal.preparedStmt(), plannerContext);
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(jobId, rawStatement, SQLExceptions.messageOf(t), sessionContext.sessionUser());
             throw t;
@@ -650,7 +661,12 @@ public class Session implements AutoCloseable {
             );
         }
         jobsLogs.logExecutionStart(
-            jobId, rawStatement, sessionContext.sessionUser(), StatementClassifier.classify(plan));
+            jobId,
+            rawStatement,
+            portal.preparedStmt().fingerprint(),
+            sessionContext.sessionUser(),
+            StatementClassifier.classify(plan)
+        );
         RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
             resultReceiver, maxRows, new JobsLogsUpdateListener(jobId, jobsLogs));
         portal.setActiveConsumer(consumer);
@@ -658,6 +674,81 @@ public class Session implements AutoCloseable {
         return resultReceiver.completionFuture();
     }
 
+    /**
+     * Executes the {@code COPY ... FROM STDIN} statement bound to the portal.
+     *
+     * @param rows the rows sent by the client, casted to the types of {@link AnalyzedCopyFromStdin#columns()}
+     * @return a future which completes once all rows are indexed and the result has been sent to the resultReceiver.
+     */
+    public CompletableFuture<?> copyFromStdin(String portalName, BatchIterator<Row> rows, ResultReceiver<?> resultReceiver) {
+        Portal portal = getSafePortal(portalName);
+        var analyzedStmt = portal.analyzedStatement();
+        if (!(analyzedStmt instanceof AnalyzedCopyFromStdin)) {
+            throw new IllegalArgumentException("Portal " + portalName + " is not a COPY FROM STDIN statement");
+        }
+        String rawStatement = portal.preparedStmt().rawStatement();
+        if (isReadOnly) {
+            throw new ReadOnlyException(rawStatement);
+        }
+        if (!deferredExecutionsByStmt.isEmpty()) {
+            throw new UnsupportedFeatureException("COPY FROM STDIN is not allowed in Batch statements");
+        }
+        var jobId = UUID.randomUUID();
+        var routingProvider = new RoutingProvider(Randomness.get().nextInt(), planner.getAwarenessAttributes());
+        var txnCtx = new CoordinatorTxnCtx(sessionContext);
+        var plannerContext = new PlannerContext(
+            executor.clusterService().state(), routingProvider, jobId, txnCtx, nodeCtx, 0, null);
+        CopyFromStdinPlan plan;
+        try {
+            plan = (CopyFromStdinPlan) planner.plan(analyzedStmt, plannerContext);
+        } catch (Throwable t) {
+            jobsLogs.logPreExecutionFailure(jobId, rawStatement, SQLExceptions.messageOf(t), sessionContext.sessionUser());
+            throw t;
+        }
+        jobsLogs.logExecutionStart(
+            jobId, rawStatement, sessionContext.sessionUser(), StatementClassifier.classify(plan));
+        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
+            resultReceiver, 0, new JobsLogsUpdateListener(jobId, jobsLogs));
+        portal.setActiveConsumer(consumer);
+        plan.execute(executor, plannerContext, rows, consumer);
+        CompletableFuture<?> completionFuture = resultReceiver.completionFuture();
+        activeExecution = activeExecution == null
+            ? completionFuture
+            : activeExecution.thenCompose(ignored -> completionFuture);
+        return completionFuture;
+    }
+
+    /**
+     * Looks up the plan of a read-only statement with parameters in the {@link PlanCache} or creates and caches it.
+     * Write operations are always planned, their plans are cheap compared to their execution.
+     */
+    private Plan plan(PreparedStmt preparedStmt, PlannerContext plannerContext) {
+        AnalyzedStatement analyzedStmt = preparedStmt.analyzedStatement();
+        if (analyzedStmt.isWriteOperation() || preparedStmt.parameterTypes().length == 0) {
+            return planner.plan(analyzedStmt, plannerContext);
+        }
+        PlanCache.Key key = new PlanCache.Key(
+            preparedStmt.rawStatement(),
+            preparedStmt.parameterTypes(),
+            sessionContext
+        );
+        LogicalPlan cachedPlan = planCache.get(key);
+        if (cachedPlan != null) {
+            return cachedPlan;
+        }
+        long tableStatsVersion = planCache.tableStatsVersion();
+        Plan plan = planner.plan(analyzedStmt, plannerContext);
+        if (plan instanceof LogicalPlan) {
+            planCache.put(
+                key,
+                (LogicalPlan) plan,
+                plannerContext.clusterState().metadata().version(),
+                tableStatsVersion
+            );
+        }
+        return plan;
+    }
+
     @Nullable
     public List<? extends DataType> getOutputTypes(String portalName) {
         Portal portal = getSafePortal(portalName);
@@ -669,6 +760,10 @@ public class Session implements AutoCloseable {
         return null;
     }
 
+    public AnalyzedStatement getAnalyzedStatement(String portalName) {
+        return getSafePortal(portalName).analyzedStatement();
+    }
+
     public String getQuery(String portalName) {
         return getSafePortal(portalName).preparedStmt().rawStatement();
     }
@@ -40,6 +40,7 @@ public class SessionContext {
     private SearchPath searchPath;
     private boolean hashJoinEnabled = true;
     private boolean errorOnUnknownObjectKey = true;
+    private int shardCollectConcurrency = 0;
     private Set<Class<? extends Rule<?>>> excludedOptimizerRules;
 
     /**
@@ -95,6 +96,14 @@ public class SessionContext {
         this.errorOnUnknownObjectKey = errorOnUnknownObjectKey;
     }
 
+    public int shardCollectConcurrency() {
+        return shardCollectConcurrency;
+    }
+
+    public void setShardCollectConcurrency(int shardCollectConcurrency) {
+        this.shardCollectConcurrency = shardCollectConcurrency;
+    }
+
     public User authenticatedUser() {
         return authenticatedUser;
     }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.DocTableInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * {@code COPY table [(column, ...)] FROM STDIN}
+ *
+ * The rows are streamed by the client. They're inserted like the rows of an {@code INSERT INTO table (column, ...)},
+ * see {@link #insert()}.
+ */
+public class AnalyzedCopyFromStdin implements AnalyzedStatement {
+
+    private final AnalyzedInsertStatement insert;
+    private final CopyStdioOptions options;
+
+    AnalyzedCopyFromStdin(DocTableInfo tableInfo, List<Reference> targetColumns, CopyStdioOptions options) {
+        // There is no source relation, the rows are provided by the client
+        this.insert = new AnalyzedInsertStatement(null, tableInfo, targetColumns, false, Map.of(), null);
+        this.options = options;
+    }
+
+    public DocTableInfo tableInfo() {
+        return insert.tableInfo();
+    }
+
+    /**
+     * The columns of the rows sent by the client, in order.
+     */
+    public List<Reference> columns() {
+        return insert.columns();
+    }
+
+    /**
+     * The insert without a source relation, used to resolve the primary key, routing and partition values of the rows.
+     */
+    public AnalyzedInsertStatement insert() {
+        return insert;
+    }
+
+    public CopyStdioOptions options() {
+        return options;
+    }
+
+    @Override
+    public <C, R> R accept(AnalyzedStatementVisitor<C, R> analyzedStatementVisitor, C context) {
+        return analyzedStatementVisitor.visitCopyFromStdin(this, context);
+    }
+
+    @Override
+    public void visitSymbols(Consumer<? super Symbol> consumer) {
+        insert.columns().forEach(consumer);
+    }
+
+    @Override
+    public boolean isWriteOperation() {
+        return true;
+    }
+}
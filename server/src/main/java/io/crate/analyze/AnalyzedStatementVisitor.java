@@ -37,6 +37,14 @@ public class AnalyzedStatementVisitor<C, R> {
         return visitAnalyzedStatement(analysis, context);
     }
 
+    public R visitCopyFromStdin(AnalyzedCopyFromStdin analysis, C context) {
+        return visitAnalyzedStatement(analysis, context);
+    }
+
+    public R visitCopyToStdout(AnalyzedCopyToStdout analysis, C context) {
+        return visitAnalyzedStatement(analysis, context);
+    }
+
     protected R visitCreateRepositoryAnalyzedStatement(AnalyzedCreateRepository analysis, C context) {
         return visitDDLStatement(analysis, context);
     }
@@ -206,6 +214,10 @@ public class AnalyzedStatementVisitor<C, R> {
         return visitAnalyzedStatement(dropView, context);
     }
 
+    public R visitRefreshMaterializedView(AnalyzedRefreshMaterializedView refreshMaterializedView, C context) {
+        return visitAnalyzedStatement(refreshMaterializedView, context);
+    }
+
     public R visitSwapTable(AnalyzedSwapTable swapTable, C context) {
         return visitAnalyzedStatement(swapTable, context);
     }
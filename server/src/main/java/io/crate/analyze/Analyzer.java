@@ -43,7 +43,9 @@ import io.crate.sql.tree.AstVisitor;
 import io.crate.sql.tree.BeginStatement;
 import io.crate.sql.tree.CommitStatement;
 import io.crate.sql.tree.CopyFrom;
+import io.crate.sql.tree.CopyFromStdin;
 import io.crate.sql.tree.CopyTo;
+import io.crate.sql.tree.CopyToStdout;
 import io.crate.sql.tree.CreateAnalyzer;
 import io.crate.sql.tree.CreateBlobTable;
 import io.crate.sql.tree.CreateFunction;
@@ -75,6 +77,7 @@ import io.crate.sql.tree.Insert;
 import io.crate.sql.tree.KillStatement;
 import io.crate.sql.tree.OptimizeStatement;
 import io.crate.sql.tree.Query;
+import io.crate.sql.tree.RefreshMaterializedView;
 import io.crate.sql.tree.RefreshStatement;
 import io.crate.sql.tree.ResetStatement;
 import io.crate.sql.tree.RestoreSnapshot;
@@ -160,7 +163,7 @@ public class Analyzer {
         this.alterTableAnalyzer = new AlterTableAnalyzer(schemas, nodeCtx);
         this.alterTableAddColumnAnalyzer = new AlterTableAddColumnAnalyzer(schemas, nodeCtx);
         this.swapTableAnalyzer = new SwapTableAnalyzer(nodeCtx, schemas);
-        this.viewAnalyzer = new ViewAnalyzer(relationAnalyzer, schemas);
+        this.viewAnalyzer = new ViewAnalyzer(relationAnalyzer, schemas, nodeCtx);
         this.explainStatementAnalyzer = new ExplainStatementAnalyzer(this);
         this.showStatementAnalyzer = new ShowStatementAnalyzer(this, schemas, sessionSettingRegistry);
         this.updateAnalyzer = new UpdateAnalyzer(nodeCtx, relationAnalyzer);
@@ -186,7 +189,7 @@ public class Analyzer {
         this.killAnalyzer = new KillAnalyzer(nodeCtx);
         this.alterTableRerouteAnalyzer = new AlterTableRerouteAnalyzer(nodeCtx, schemas);
         this.privilegesAnalyzer = new PrivilegesAnalyzer(userManager.isEnabled(), schemas);
-        this.copyAnalyzer = new CopyAnalyzer(schemas, nodeCtx);
+        this.copyAnalyzer = new CopyAnalyzer(schemas, nodeCtx, relationAnalyzer);
         this.setStatementAnalyzer = new SetStatementAnalyzer(nodeCtx);
         this.resetStatementAnalyzer = new ResetStatementAnalyzer(nodeCtx);
     }
@@ -321,6 +324,22 @@ public class Analyzer {
                 context.transactionContext());
         }
 
+        @Override
+        public AnalyzedStatement visitCopyFromStdin(CopyFromStdin<?> node, Analysis context) {
+            return copyAnalyzer.analyzeCopyFromStdin(
+                (CopyFromStdin<Expression>) node,
+                context.paramTypeHints(),
+                context.transactionContext());
+        }
+
+        @Override
+        public AnalyzedStatement visitCopyToStdout(CopyToStdout<?> node, Analysis context) {
+            return copyAnalyzer.analyzeCopyToStdout(
+                (CopyToStdout<Expression>) node,
+                context.paramTypeHints(),
+                context.transactionContext());
+        }
+
         @Override
         public AnalyzedStatement visitCreateAnalyzer(CreateAnalyzer<?> node, Analysis context) {
             return createAnalyzerStatementAnalyzer.analyze(
@@ -458,6 +477,11 @@ public class Analyzer {
             return viewAnalyzer.analyze(node, context.transactionContext());
         }
 
+        @Override
+        public AnalyzedStatement visitRefreshMaterializedView(RefreshMaterializedView node, Analysis context) {
+            return viewAnalyzer.analyze(node, context.transactionContext());
+        }
+
         @Override
         protected AnalyzedStatement visitExplain(Explain node, Analysis context) {
             return explainStatementAnalyzer.analyze(node, context);
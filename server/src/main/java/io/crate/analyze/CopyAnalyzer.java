@@ -23,34 +23,44 @@ package io.crate.analyze;
 
 import io.crate.analyze.expressions.ExpressionAnalysisContext;
 import io.crate.analyze.expressions.ExpressionAnalyzer;
+import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.DocTableRelation;
 import io.crate.analyze.relations.FieldProvider;
 import io.crate.analyze.relations.NameFieldProvider;
+import io.crate.analyze.relations.RelationAnalyzer;
 import io.crate.analyze.relations.TableRelation;
 import io.crate.common.collections.Lists2;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.NodeContext;
+import io.crate.metadata.Reference;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.Operation;
 import io.crate.metadata.table.TableInfo;
 import io.crate.sql.tree.CopyFrom;
+import io.crate.sql.tree.CopyFromStdin;
 import io.crate.sql.tree.CopyTo;
+import io.crate.sql.tree.CopyToStdout;
 import io.crate.sql.tree.Expression;
 import io.crate.sql.tree.GenericProperties;
 import io.crate.sql.tree.Table;
 
+import java.util.ArrayList;
+import java.util.List;
+
 class CopyAnalyzer {
 
     private final Schemas schemas;
     private final NodeContext nodeCtx;
+    private final RelationAnalyzer relationAnalyzer;
 
-    CopyAnalyzer(Schemas schemas, NodeContext nodeCtx) {
+    CopyAnalyzer(Schemas schemas, NodeContext nodeCtx, RelationAnalyzer relationAnalyzer) {
         this.schemas = schemas;
         this.nodeCtx = nodeCtx;
+        this.relationAnalyzer = relationAnalyzer;
     }
 
     AnalyzedCopyFrom analyzeCopyFrom(CopyFrom<Expression> node,
@@ -147,4 +157,39 @@ class CopyAnalyzer {
             columns,
             whereClause);
     }
+
+    AnalyzedCopyFromStdin analyzeCopyFromStdin(CopyFromStdin<Expression> node,
+                                               ParamTypeHints paramTypeHints,
+                                               CoordinatorTxnCtx txnCtx) {
+        DocTableInfo tableInfo = (DocTableInfo) schemas.resolveTableInfo(
+            node.table().getName(),
+            Operation.INSERT,
+            txnCtx.sessionContext().sessionUser(),
+            txnCtx.sessionContext().searchPath());
+        List<Reference> targetColumns = new ArrayList<>(
+            InsertAnalyzer.resolveTargetColumns(node.columns(), tableInfo));
+        InsertAnalyzer.ensureClusteredByPresentOrNotRequired(targetColumns, tableInfo);
+        return new AnalyzedCopyFromStdin(
+            tableInfo,
+            targetColumns,
+            CopyStdioOptions.of(analyzeStdioProperties(node.properties(), paramTypeHints, txnCtx)));
+    }
+
+    AnalyzedCopyToStdout analyzeCopyToStdout(CopyToStdout<Expression> node,
+                                             ParamTypeHints paramTypeHints,
+                                             CoordinatorTxnCtx txnCtx) {
+        AnalyzedRelation relation = relationAnalyzer.analyze(node.query(), txnCtx, paramTypeHints);
+        return new AnalyzedCopyToStdout(
+            relation,
+            CopyStdioOptions.of(analyzeStdioProperties(node.properties(), paramTypeHints, txnCtx)));
+    }
+
+    private GenericProperties<Symbol> analyzeStdioProperties(GenericProperties<Expression> properties,
+                                                             ParamTypeHints paramTypeHints,
+                                                             CoordinatorTxnCtx txnCtx) {
+        var exprCtx = new ExpressionAnalysisContext(txnCtx.sessionContext());
+        var exprAnalyzer = new ExpressionAnalyzer(txnCtx, nodeCtx, paramTypeHints, FieldProvider.UNSUPPORTED, null);
+        var normalizer = EvaluatingNormalizer.functionOnlyNormalizer(nodeCtx);
+        return properties.map(x -> normalizer.normalize(exprAnalyzer.convert(x, exprCtx), txnCtx));
+    }
 }
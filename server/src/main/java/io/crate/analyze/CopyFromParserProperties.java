@@ -22,6 +22,7 @@
 package io.crate.analyze;
 
 import io.crate.common.annotations.VisibleForTesting;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -32,6 +33,7 @@ import java.util.Objects;
 
 import static io.crate.analyze.CopyStatementSettings.CSV_COLUMN_SEPARATOR;
 import static io.crate.analyze.CopyStatementSettings.EMPTY_STRING_AS_NULL;
+import static io.crate.analyze.CopyStatementSettings.PARSER_PARALLELISM;
 
 
 public class CopyFromParserProperties implements Writeable {
@@ -40,24 +42,39 @@ public class CopyFromParserProperties implements Writeable {
 
     private final boolean emptyStringAsNull;
     private final char columnSeparator;
+    private final int parallelism;
 
     public static CopyFromParserProperties of(Settings settings) {
         return new CopyFromParserProperties(
             EMPTY_STRING_AS_NULL.get(settings),
-            CSV_COLUMN_SEPARATOR.get(settings)
+            CSV_COLUMN_SEPARATOR.get(settings),
+            PARSER_PARALLELISM.get(settings)
         );
     }
 
     @VisibleForTesting
     public CopyFromParserProperties(boolean emptyStringAsNull,
                                     char columnSeparator) {
+        this(emptyStringAsNull, columnSeparator, 1);
+    }
+
+    @VisibleForTesting
+    public CopyFromParserProperties(boolean emptyStringAsNull,
+                                    char columnSeparator,
+                                    int parallelism) {
         this.emptyStringAsNull = emptyStringAsNull;
         this.columnSeparator = columnSeparator;
+        this.parallelism = parallelism;
     }
 
     public CopyFromParserProperties(StreamInput in) throws IOException {
         emptyStringAsNull = in.readBoolean();
         columnSeparator = (char) in.readByte();
+        if (in.getVersion().onOrAfter(Version.V_4_7_0)) {
+            parallelism = in.readVInt();
+        } else {
+            parallelism = 1;
+        }
     }
 
     public boolean emptyStringAsNull() {
@@ -68,10 +85,20 @@ public class CopyFromParserProperties implements Writeable {
         return columnSeparator;
     }
 
+    /**
+     * The maximum number of chunks of a single file which are parsed concurrently.
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeBoolean(emptyStringAsNull);
         out.writeByte((byte) columnSeparator);
+        if (out.getVersion().onOrAfter(Version.V_4_7_0)) {
+            out.writeVInt(parallelism);
+        }
     }
 
     @Override
@@ -84,12 +111,13 @@ public class CopyFromParserProperties implements Writeable {
         }
         CopyFromParserProperties that = (CopyFromParserProperties) o;
         return emptyStringAsNull == that.emptyStringAsNull &&
-               columnSeparator == that.columnSeparator;
+               columnSeparator == that.columnSeparator &&
+               parallelism == that.parallelism;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(emptyStringAsNull, columnSeparator);
+        return Objects.hash(emptyStringAsNull, columnSeparator, parallelism);
     }
 
     @Override
@@ -97,6 +125,7 @@ public class CopyFromParserProperties implements Writeable {
         return "CopyFromParserProperties{" +
                "emptyStringAsNull=" + emptyStringAsNull +
                ", columnSeparator=" + columnSeparator +
+               ", parallelism=" + parallelism +
                '}';
     }
 }
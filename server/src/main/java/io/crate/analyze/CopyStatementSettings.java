@@ -72,11 +72,44 @@ public final class CopyStatementSettings {
         Setting.Property.Dynamic
     );
 
+    public static final Setting<Integer> PARSER_PARALLELISM = Setting.intSetting(
+        "parser_parallelism",
+        1,
+        1,
+        Setting.Property.Dynamic);
+
     public static final Map<String, Setting<?>> OUTPUT_SETTINGS = Map.of(
         COMPRESSION_SETTING.getKey(), COMPRESSION_SETTING,
         OUTPUT_FORMAT_SETTING.getKey(), OUTPUT_FORMAT_SETTING
     );
 
+    public static final Setting<String> STDIO_FORMAT_SETTING = new Setting<>(
+        "format",
+        "text",
+        (s) -> s,
+        Validators.stringValidator("format", "text", "csv", "binary"),
+        DataTypes.STRING,
+        Setting.Property.Dynamic);
+
+    public static final Setting<String> STDIO_NULL_STRING = Setting.simpleString(
+        "null",
+        Setting.Property.Dynamic);
+
+    public static final Setting<Boolean> STDIO_HEADER = Setting.boolSetting(
+        "header",
+        false,
+        Setting.Property.Dynamic);
+
+    /**
+     * Options of {@code COPY ... FROM STDIN} and {@code COPY ... TO STDOUT}
+     */
+    public static final Map<String, Setting<?>> STDIO_SETTINGS = Map.of(
+        STDIO_FORMAT_SETTING.getKey(), STDIO_FORMAT_SETTING,
+        CSV_COLUMN_SEPARATOR.getKey(), CSV_COLUMN_SEPARATOR,
+        STDIO_NULL_STRING.getKey(), STDIO_NULL_STRING,
+        STDIO_HEADER.getKey(), STDIO_HEADER
+    );
+
     public static <E extends Enum<E>> E settingAsEnum(Class<E> settingsEnum, String settingValue) {
         if (settingValue == null || settingValue.isEmpty()) {
             return null;
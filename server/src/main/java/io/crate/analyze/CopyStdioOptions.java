@@ -0,0 +1,152 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.sql.tree.GenericProperties;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.Locale;
+import java.util.Objects;
+
+import static io.crate.analyze.CopyStatementSettings.CSV_COLUMN_SEPARATOR;
+import static io.crate.analyze.CopyStatementSettings.STDIO_FORMAT_SETTING;
+import static io.crate.analyze.CopyStatementSettings.STDIO_HEADER;
+import static io.crate.analyze.CopyStatementSettings.STDIO_NULL_STRING;
+import static io.crate.analyze.CopyStatementSettings.STDIO_SETTINGS;
+import static io.crate.analyze.CopyStatementSettings.settingAsEnum;
+import static io.crate.analyze.GenericPropertiesConverter.genericPropertiesToSettings;
+
+/**
+ * The data format of {@code COPY ... FROM STDIN} and {@code COPY ... TO STDOUT}.
+ *
+ * The formats follow the PostgreSQL COPY formats so that clients like psql can be used as is.
+ */
+public final class CopyStdioOptions {
+
+    public enum Format {
+        TEXT,
+        CSV,
+        BINARY
+    }
+
+    public static final CopyStdioOptions DEFAULT = new CopyStdioOptions(Format.TEXT, '\t', "\\N", false);
+
+    private final Format format;
+    private final char delimiter;
+    private final String nullString;
+    private final boolean header;
+
+    /**
+     * @param properties the {@code WITH} clause; the values must be literals.
+     */
+    public static CopyStdioOptions of(GenericProperties<Symbol> properties) {
+        GenericProperties<Object> values = properties.map(symbol -> {
+            if (symbol instanceof Literal<?> literal) {
+                return literal.value();
+            }
+            throw new IllegalArgumentException(String.format(
+                Locale.ENGLISH, "COPY options must be literals, got: %s", symbol));
+        });
+        Settings settings = genericPropertiesToSettings(values, STDIO_SETTINGS);
+        Format format = settingAsEnum(Format.class, STDIO_FORMAT_SETTING.get(settings));
+        if (format == Format.BINARY && settings.size() > 1) {
+            throw new IllegalArgumentException("COPY options other than `format` are not supported in binary format");
+        }
+        boolean header = STDIO_HEADER.get(settings);
+        if (header && format != Format.CSV) {
+            throw new IllegalArgumentException("COPY option `header` is only supported in csv format");
+        }
+        char delimiter = CSV_COLUMN_SEPARATOR.exists(settings)
+            ? CSV_COLUMN_SEPARATOR.get(settings)
+            : (format == Format.CSV ? ',' : '\t');
+        String nullString = STDIO_NULL_STRING.exists(settings)
+            ? STDIO_NULL_STRING.get(settings)
+            : (format == Format.CSV ? "" : "\\N");
+        if (delimiter > 127 || delimiter == '\n' || delimiter == '\r' || delimiter == '\\' || delimiter == '"') {
+            throw new IllegalArgumentException(
+                "Invalid COPY delimiter. The delimiter must be a single-byte character other than newline, " +
+                "carriage return, backslash or double quote");
+        }
+        return new CopyStdioOptions(format, delimiter, nullString, header);
+    }
+
+    private CopyStdioOptions(Format format, char delimiter, String nullString, boolean header) {
+        this.format = format;
+        this.delimiter = delimiter;
+        this.nullString = nullString;
+        this.header = header;
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    public char delimiter() {
+        return delimiter;
+    }
+
+    /**
+     * The string representing a NULL value. Not used in binary format.
+     */
+    public String nullString() {
+        return nullString;
+    }
+
+    /**
+     * If true the first line contains the column names. Only used in CSV format.
+     */
+    public boolean header() {
+        return header;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CopyStdioOptions that = (CopyStdioOptions) o;
+        return delimiter == that.delimiter &&
+               header == that.header &&
+               format == that.format &&
+               nullString.equals(that.nullString);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(format, delimiter, nullString, header);
+    }
+
+    @Override
+    public String toString() {
+        return "CopyStdioOptions{" +
+               "format=" + format +
+               ", delimiter=" + delimiter +
+               ", nullString=" + nullString +
+               ", header=" + header +
+               '}';
+    }
+}
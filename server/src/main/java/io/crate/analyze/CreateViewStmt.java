@@ -38,6 +38,7 @@ public final class CreateViewStmt implements AnalyzedStatement {
     private final AnalyzedRelation analyzedQuery;
     private final Query query;
     private final boolean replaceExisting;
+    private final boolean materialized;
     @Nullable
     private final User owner;
 
@@ -45,11 +46,13 @@ public final class CreateViewStmt implements AnalyzedStatement {
                    AnalyzedRelation analyzedQuery,
                    Query query,
                    boolean replaceExisting,
+                   boolean materialized,
                    @Nullable User owner) {
         this.name = name;
         this.analyzedQuery = analyzedQuery;
         this.query = query;
         this.replaceExisting = replaceExisting;
+        this.materialized = materialized;
         this.owner = owner;
     }
 
@@ -70,6 +73,10 @@ public final class CreateViewStmt implements AnalyzedStatement {
         return replaceExisting;
     }
 
+    public boolean materialized() {
+        return materialized;
+    }
+
     @Nullable
     public User owner() {
         return owner;
@@ -225,8 +225,8 @@ class InsertAnalyzer {
         }
     }
 
-    private static Collection<Reference> resolveTargetColumns(Collection<String> targetColumnNames,
-                                                              DocTableInfo targetTable) {
+    static Collection<Reference> resolveTargetColumns(Collection<String> targetColumnNames,
+                                                      DocTableInfo targetTable) {
         if (targetColumnNames.isEmpty()) {
             return targetTable.columns();
         }
@@ -251,7 +251,7 @@ class InsertAnalyzer {
         return columns;
     }
 
-    private static void ensureClusteredByPresentOrNotRequired(List<Reference> targetColumnRefs, DocTableInfo tableInfo) {
+    static void ensureClusteredByPresentOrNotRequired(List<Reference> targetColumnRefs, DocTableInfo tableInfo) {
         ColumnIdent clusteredBy = tableInfo.clusteredBy();
         if (clusteredBy == null || clusteredBy.equals(DocSysColumns.ID)) {
             return;
@@ -0,0 +1,310 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.Streamer;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.breaker.RamAccounting;
+import io.crate.exceptions.UnsupportedFeatureException;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.expression.symbol.AliasSymbol;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.expression.symbol.WindowFunction;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.FunctionType;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.SearchPath;
+import io.crate.metadata.doc.DocTableInfo;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The query of a materialized view: A GROUP BY or a global aggregation on a single table whose
+ * aggregates have partial states that can be merged.
+ *
+ * The partial states are computed per shard and stored in a backing table
+ * (see {@link io.crate.execution.ddl.views.MaterializedViewTables}) so that a refresh only needs to
+ * re-compute the states of shards which received writes. The final values are computed by merging
+ * the states of all shards.
+ */
+public final class MaterializedAggregation {
+
+    private static final Set<String> SUPPORTED_AGGREGATES = Set.of(
+        "count",
+        "sum",
+        "min",
+        "max",
+        "avg",
+        "mean",
+        "hyperloglog_distinct",
+        "percentile"
+    );
+
+    private final DocTableRelation table;
+    private final Symbol where;
+    private final List<Symbol> groupKeys;
+    private final List<Function> aggregates;
+    private final List<AggregationFunction> aggregations;
+    private final List<Symbol> outputs;
+    private final int[] outputPositions;
+    private final Streamer<?>[] keyStreamers;
+    private final Streamer<?>[] stateStreamers;
+
+    /**
+     * @throws UnsupportedFeatureException if the relation cannot be materialized.
+     */
+    public static MaterializedAggregation of(AnalyzedRelation relation, NodeContext nodeCtx, SearchPath searchPath) {
+        if (!(relation instanceof QueriedSelectRelation select)) {
+            throw unsupported("must be a SELECT statement");
+        }
+        if (select.from().size() != 1 || !(select.from().get(0) instanceof DocTableRelation table)) {
+            throw unsupported("must select from a single table");
+        }
+        if (select.isDistinct()
+            || select.having() != null
+            || select.orderBy() != null
+            || select.limit() != null
+            || select.offset() != null) {
+            throw unsupported("must not contain DISTINCT, HAVING, ORDER BY, LIMIT or OFFSET");
+        }
+        if (SymbolVisitors.any(MaterializedAggregation::isUnsupported, select.where())
+            || SymbolVisitors.any(MaterializedAggregation::isUnsupported, select.groupBy())) {
+            throw unsupported("must not contain sub-queries, window functions or non-deterministic functions");
+        }
+        List<Symbol> groupKeys = select.groupBy();
+        List<Function> aggregates = new ArrayList<>();
+        List<Symbol> outputs = select.outputs();
+        int[] outputPositions = new int[outputs.size()];
+        for (int i = 0; i < outputs.size(); i++) {
+            Symbol output = outputs.get(i);
+            if (output instanceof AliasSymbol alias) {
+                output = alias.symbol();
+            }
+            int keyPosition = groupKeys.indexOf(output);
+            if (keyPosition >= 0) {
+                outputPositions[i] = keyPosition;
+            } else if (output instanceof Function function
+                       && function.type() == FunctionType.AGGREGATE
+                       && SUPPORTED_AGGREGATES.contains(function.name())
+                       && !SymbolVisitors.any(MaterializedAggregation::isUnsupported, function.arguments())) {
+                outputPositions[i] = groupKeys.size() + aggregates.size();
+                aggregates.add(function);
+            } else {
+                throw unsupported(
+                    "must only select group keys and the aggregates " + String.join(", ", SUPPORTED_AGGREGATES.stream().sorted().toList()));
+            }
+        }
+        if (aggregates.isEmpty()) {
+            throw unsupported("must contain at least one aggregate");
+        }
+        List<AggregationFunction> aggregations = new ArrayList<>(aggregates.size());
+        for (Function aggregate : aggregates) {
+            aggregations.add((AggregationFunction) nodeCtx.functions().getQualified(aggregate, searchPath));
+        }
+        return new MaterializedAggregation(
+            table, select.where(), groupKeys, aggregates, aggregations, outputs, outputPositions);
+    }
+
+    private static boolean isUnsupported(Symbol symbol) {
+        return symbol instanceof SelectSymbol
+               || symbol instanceof WindowFunction
+               || symbol instanceof Function function && !function.isDeterministic();
+    }
+
+    private static UnsupportedFeatureException unsupported(String reason) {
+        return new UnsupportedFeatureException("The query of a materialized view " + reason);
+    }
+
+    private MaterializedAggregation(DocTableRelation table,
+                                    Symbol where,
+                                    List<Symbol> groupKeys,
+                                    List<Function> aggregates,
+                                    List<AggregationFunction> aggregations,
+                                    List<Symbol> outputs,
+                                    int[] outputPositions) {
+        this.table = table;
+        this.where = where;
+        this.groupKeys = groupKeys;
+        this.aggregates = aggregates;
+        this.aggregations = aggregations;
+        this.outputs = outputs;
+        this.outputPositions = outputPositions;
+        this.keyStreamers = new Streamer[groupKeys.size()];
+        for (int i = 0; i < keyStreamers.length; i++) {
+            keyStreamers[i] = groupKeys.get(i).valueType().streamer();
+        }
+        this.stateStreamers = new Streamer[aggregations.size()];
+        for (int i = 0; i < stateStreamers.length; i++) {
+            stateStreamers[i] = aggregations.get(i).partialType().streamer();
+        }
+    }
+
+    public DocTableRelation table() {
+        return table;
+    }
+
+    public DocTableInfo tableInfo() {
+        return table.tableInfo();
+    }
+
+    public Symbol where() {
+        return where;
+    }
+
+    public List<Symbol> groupKeys() {
+        return groupKeys;
+    }
+
+    public List<Function> aggregates() {
+        return aggregates;
+    }
+
+    /**
+     * The outputs of the view query. They're either group keys or aggregates.
+     */
+    public List<Symbol> outputs() {
+        return outputs;
+    }
+
+    /**
+     * Merges the partial states of a group into the states of the same group, or adds the group if it doesn't exist yet.
+     *
+     * @param states the partial states of the {@link #aggregates()}, they're re-used if the group doesn't exist yet.
+     */
+    @SuppressWarnings("unchecked")
+    public void merge(Map<List<Object>, Object[]> groups, List<Object> key, Object[] states) {
+        Object[] existing = groups.putIfAbsent(key, states);
+        if (existing != null) {
+            for (int i = 0; i < existing.length; i++) {
+                existing[i] = aggregations.get(i).reduce(RamAccounting.NO_ACCOUNTING, existing[i], states[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public BytesReference serialize(Collection<Map.Entry<List<Object>, Object[]>> groups) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeVInt(groups.size());
+            for (Map.Entry<List<Object>, Object[]> group : groups) {
+                List<Object> key = group.getKey();
+                for (int i = 0; i < keyStreamers.length; i++) {
+                    ((Streamer<Object>) keyStreamers[i]).writeValueTo(out, key.get(i));
+                }
+                Object[] states = group.getValue();
+                for (int i = 0; i < stateStreamers.length; i++) {
+                    ((Streamer<Object>) stateStreamers[i]).writeValueTo(out, states[i]);
+                }
+            }
+            return out.bytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the groups serialized with {@link #serialize(Collection)} and merges them into {@code groups}
+     */
+    public void deserializeInto(BytesReference bytes, Map<List<Object>, Object[]> groups) {
+        try (StreamInput in = bytes.streamInput()) {
+            int numGroups = in.readVInt();
+            for (int g = 0; g < numGroups; g++) {
+                Object[] key = new Object[keyStreamers.length];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = keyStreamers[i].readValueFrom(in);
+                }
+                Object[] states = new Object[stateStreamers.length];
+                for (int i = 0; i < states.length; i++) {
+                    states[i] = stateStreamers[i].readValueFrom(in);
+                }
+                merge(groups, Arrays.asList(key), states);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serializes a group key, the result is never empty, not even for the key of a global aggregation.
+     */
+    @SuppressWarnings("unchecked")
+    public BytesReference serializeKey(List<Object> key) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeVInt(key.size());
+            for (int i = 0; i < keyStreamers.length; i++) {
+                ((Streamer<Object>) keyStreamers[i]).writeValueTo(out, key.get(i));
+            }
+            return out.bytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Computes the final values of the groups.
+     *
+     * @param consumer receives the key and the values of the {@link #outputs()} of each group.
+     */
+    @SuppressWarnings("unchecked")
+    public void terminate(Map<List<Object>, Object[]> groups, BiConsumer<List<Object>, Object[]> consumer) {
+        if (groups.isEmpty() && groupKeys.isEmpty()) {
+            // A global aggregation always results in a single row
+            Object[] states = new Object[aggregations.size()];
+            var memoryManager = new OnHeapMemoryManager(bytes -> { });
+            for (int i = 0; i < states.length; i++) {
+                states[i] = aggregations.get(i).newState(
+                    RamAccounting.NO_ACCOUNTING, Version.CURRENT, Version.CURRENT, memoryManager);
+            }
+            groups = Map.of(List.of(), states);
+        }
+        for (Map.Entry<List<Object>, Object[]> group : groups.entrySet()) {
+            List<Object> key = group.getKey();
+            Object[] states = group.getValue();
+            Object[] values = new Object[outputPositions.length];
+            for (int i = 0; i < outputPositions.length; i++) {
+                int position = outputPositions[i];
+                if (position < key.size()) {
+                    values[i] = key.get(position);
+                } else {
+                    int aggIdx = position - key.size();
+                    values[i] = aggregations.get(aggIdx).terminatePartial(RamAccounting.NO_ACCOUNTING, states[aggIdx]);
+                }
+            }
+            consumer.accept(key, values);
+        }
+    }
+}
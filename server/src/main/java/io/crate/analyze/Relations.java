@@ -56,6 +56,12 @@ public class Relations {
             return null;
         }
 
+        @Override
+        public Void visitCopyToStdout(AnalyzedCopyToStdout analysis, Consumer<? super Symbol> consumer) {
+            TraverseDeepSymbolsRelations.traverse(analysis.relation(), consumer);
+            return null;
+        }
+
         @Override
         protected Void visitAnalyzedStatement(AnalyzedStatement analyzedStatement, Consumer<? super Symbol> consumer) {
             analyzedStatement.visitSymbols(consumer);
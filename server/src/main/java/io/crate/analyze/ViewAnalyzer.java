@@ -22,20 +22,26 @@
 package io.crate.analyze;
 
 import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.AnalyzedView;
 import io.crate.analyze.relations.RelationAnalyzer;
 import io.crate.exceptions.RelationUnknown;
 import io.crate.exceptions.RelationsUnknown;
+import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.expression.symbol.Symbols;
+import io.crate.common.collections.Tuple;
 import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.NodeContext;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.blob.BlobSchemaInfo;
+import io.crate.metadata.view.ViewMetadata;
 import io.crate.sql.SqlFormatter;
 import io.crate.sql.parser.SqlParser;
 import io.crate.sql.tree.CreateView;
 import io.crate.sql.tree.DropView;
 import io.crate.sql.tree.QualifiedName;
 import io.crate.sql.tree.Query;
+import io.crate.sql.tree.RefreshMaterializedView;
 
 import java.util.ArrayList;
 
@@ -43,10 +49,12 @@ public final class ViewAnalyzer {
 
     private final RelationAnalyzer relationAnalyzer;
     private final Schemas schemas;
+    private final NodeContext nodeCtx;
 
-    ViewAnalyzer(RelationAnalyzer relationAnalyzer, Schemas schemas) {
+    ViewAnalyzer(RelationAnalyzer relationAnalyzer, Schemas schemas, NodeContext nodeCtx) {
         this.relationAnalyzer = relationAnalyzer;
         this.schemas = schemas;
+        this.nodeCtx = nodeCtx;
     }
 
     public CreateViewStmt analyze(CreateView createView, CoordinatorTxnCtx txnCtx) {
@@ -79,15 +87,37 @@ public final class ViewAnalyzer {
         if (query.outputs().stream().map(f -> Symbols.pathFromSymbol(f).sqlFqn()).distinct().count() != query.outputs().size()) {
             throw new IllegalArgumentException("Query in CREATE VIEW must not have duplicate column names");
         }
+        if (createView.materialized()) {
+            MaterializedAggregation.of(query, nodeCtx, txnCtx.sessionContext().searchPath());
+        }
         return new CreateViewStmt(
             name,
             query,
             createView.query(),
             createView.replaceExisting(),
+            createView.materialized(),
             txnCtx.sessionContext().sessionUser()
         );
     }
 
+    public AnalyzedRefreshMaterializedView analyze(RefreshMaterializedView refreshMaterializedView,
+                                                   CoordinatorTxnCtx txnCtx) {
+        Tuple<ViewMetadata, RelationName> viewMetadata = schemas.resolveView(
+            refreshMaterializedView.name(),
+            txnCtx.sessionContext().searchPath()
+        );
+        ViewMetadata view = viewMetadata.v1();
+        if (!view.materialized()) {
+            throw new UnsupportedFeatureException(
+                "Cannot refresh view \"" + viewMetadata.v2() + "\", it is not a materialized view");
+        }
+        AnalyzedRelation query = relationAnalyzer.analyze(
+            (Query) SqlParser.createStatement(view.stmt()),
+            txnCtx,
+            ParamTypeHints.EMPTY);
+        return new AnalyzedRefreshMaterializedView(new AnalyzedView(viewMetadata.v2(), view.owner(), query));
+    }
+
     public AnalyzedDropView analyze(DropView dropView, CoordinatorTxnCtx txnCtx) {
         // No exists check to avoid stale clusterState race conditions
         ArrayList<RelationName> views = new ArrayList<>(dropView.names().size());
@@ -42,18 +42,30 @@ import java.util.function.Consumer;
  *
  * This is semantically equivalent to {@code <relation> AS <viewName>} with the
  * addition of special privilege behavior (Users can be granted privileges on a view)
+ *
+ * For materialized views the relation reads the rows stored in a backing table, the privileges of
+ * the owner are checked against the {@link #source()} relation instead.
  **/
 public final class AnalyzedView implements AnalyzedRelation, FieldResolver {
 
     private final RelationName name;
     private final String owner;
     private final AnalyzedRelation relation;
+    private final AnalyzedRelation source;
     private final List<Symbol> outputSymbols;
 
     public AnalyzedView(RelationName name, String owner, AnalyzedRelation relation) {
+        this(name, owner, relation, relation);
+    }
+
+    /**
+     * @param source the relation of the view query, used to check the privileges of the owner.
+     */
+    public AnalyzedView(RelationName name, String owner, AnalyzedRelation relation, AnalyzedRelation source) {
         this.name = name;
         this.owner = owner;
         this.relation = relation;
+        this.source = source;
         var childOutputs = relation.outputs();
         ArrayList<Symbol> outputs = new ArrayList<>(childOutputs.size());
         for (int i = 0; i < childOutputs.size(); i++) {
@@ -72,6 +84,13 @@ public final class AnalyzedView implements AnalyzedRelation, FieldResolver {
         return relation;
     }
 
+    /**
+     * @return the relation of the view query. Same as {@link #relation()} unless the view is materialized.
+     */
+    public AnalyzedRelation source() {
+        return source;
+    }
+
     public RelationName name() {
         return name;
     }
@@ -41,9 +41,12 @@ import io.crate.exceptions.AmbiguousColumnAliasException;
 import io.crate.exceptions.ColumnUnknownException;
 import io.crate.exceptions.RelationUnknown;
 import io.crate.exceptions.RelationValidationException;
+import io.crate.exceptions.SchemaUnknownException;
 import io.crate.exceptions.UnsupportedFeatureException;
+import io.crate.execution.ddl.views.MaterializedViewTables;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.scalar.arithmetic.ArrayFunction;
+import io.crate.expression.symbol.AliasSymbol;
 import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.GroupAndAggregateSemantics;
 import io.crate.expression.symbol.Literal;
@@ -51,6 +54,7 @@ import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.Symbols;
 import io.crate.expression.tablefunctions.TableFunctionFactory;
 import io.crate.expression.tablefunctions.ValuesFunction;
+import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.NodeContext;
@@ -614,13 +618,55 @@ public class RelationAnalyzer extends DefaultTraversalVisitor<AnalyzedRelation,
             }
             ViewMetadata view = viewMetadata.v1();
             AnalyzedRelation resolvedView = SqlParser.createStatement(view.stmt()).accept(this, context);
-            relation = new AnalyzedView(viewMetadata.v2(), view.owner(), resolvedView);
+            AnalyzedRelation materialized = view.materialized() ? materialize(viewMetadata.v2(), resolvedView) : null;
+            if (materialized == null) {
+                relation = new AnalyzedView(viewMetadata.v2(), view.owner(), resolvedView);
+            } else {
+                relation = new AnalyzedView(viewMetadata.v2(), view.owner(), materialized, resolvedView);
+            }
         }
 
         context.currentRelationContext().addSourceRelation(relation);
         return relation;
     }
 
+    /**
+     * Replaces the query of a materialized view with a query on the table containing its rows,
+     * see {@link MaterializedViewTables}
+     *
+     * @return the replaced query or null if the rows table doesn't exist.
+     */
+    @Nullable
+    private AnalyzedRelation materialize(RelationName viewName, AnalyzedRelation viewQuery) {
+        DocTableInfo rowsTable;
+        try {
+            rowsTable = schemas.getTableInfo(MaterializedViewTables.rowsTable(viewName));
+        } catch (RelationUnknown | SchemaUnknownException e) {
+            // Not refreshed yet, fall back to the query of the view
+            return null;
+        }
+        DocTableRelation rows = new DocTableRelation(rowsTable);
+        List<Symbol> viewOutputs = viewQuery.outputs();
+        List<Symbol> outputs = new ArrayList<>(viewOutputs.size());
+        for (int i = 0; i < viewOutputs.size(); i++) {
+            String name = Symbols.pathFromSymbol(viewOutputs.get(i)).sqlFqn();
+            Symbol column = rows.getField(new ColumnIdent(MaterializedViewTables.column(i)));
+            outputs.add(new AliasSymbol(name, column));
+        }
+        return new QueriedSelectRelation(
+            false,
+            List.of(rows),
+            List.of(),
+            outputs,
+            Literal.BOOLEAN_TRUE,
+            List.of(),
+            null,
+            null,
+            null,
+            null
+        );
+    }
+
     @Override
     public AnalyzedRelation visitTableFunction(TableFunction node, StatementAnalysisContext statementContext) {
         RelationAnalysisContext context = statementContext.currentRelationContext();
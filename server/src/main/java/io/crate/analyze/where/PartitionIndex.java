@@ -0,0 +1,279 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze.where;
+
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.operator.any.AnyEqOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.Reference;
+import io.crate.types.ArrayType;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index over the values of the partitions of a table, used to narrow down the partitions
+ * a query can match before {@link WhereClauseAnalyzer} evaluates the query against each of them.
+ * <p>
+ * Contains one array of the (non-null) partition values per partition column, sorted by value,
+ * which resolves `=`, `<`, `<=`, `>`, `>=` and `= ANY([...])` comparisons of a partition column
+ * against a literal using binary search. Conjunctions and disjunctions of these are resolved by
+ * intersecting or uniting the matching partitions.
+ * <p>
+ * Predicates on generated partition columns like `date_trunc('day', ts)` are covered as well,
+ * because {@link io.crate.analyze.GeneratedColumnExpander} adds the corresponding predicates on
+ * the partition column to the query before partitions are resolved.
+ */
+public final class PartitionIndex {
+
+    private static final Set<Integer> SUPPORTED_TYPES = Set.of(
+        ByteType.ID,
+        ShortType.ID,
+        IntegerType.ID,
+        LongType.ID,
+        StringType.ID,
+        BooleanType.ID,
+        TimestampType.ID_WITH_TZ,
+        TimestampType.ID_WITHOUT_TZ
+    );
+
+    private final int numPartitions;
+    private final Map<ColumnIdent, Column> columns;
+
+    public PartitionIndex(List<Reference> partitionedByColumns, List<PartitionName> partitions) {
+        this.numPartitions = partitions.size();
+        this.columns = new HashMap<>();
+        for (int i = 0; i < partitionedByColumns.size(); i++) {
+            Reference ref = partitionedByColumns.get(i);
+            if (SUPPORTED_TYPES.contains(ref.valueType().id())) {
+                columns.put(ref.column(), new Column(ref.valueType(), i, partitions));
+            }
+        }
+    }
+
+    /**
+     * @return the positions within {@link io.crate.metadata.doc.DocTableInfo#partitions()} of all
+     *         partitions the query can match, or null if the index can't narrow down the partitions.
+     *         Partitions which are not included can't match the query.
+     */
+    @Nullable
+    public BitSet candidates(Symbol query) {
+        if (columns.isEmpty() || !(query instanceof Function)) {
+            return null;
+        }
+        Function function = (Function) query;
+        List<Symbol> args = function.arguments();
+        switch (function.name()) {
+            case AndOperator.NAME: {
+                BitSet result = null;
+                for (Symbol arg : args) {
+                    BitSet candidates = candidates(arg);
+                    if (candidates == null) {
+                        continue;
+                    }
+                    if (result == null) {
+                        result = candidates;
+                    } else {
+                        result.and(candidates);
+                    }
+                }
+                return result;
+            }
+
+            case OrOperator.NAME: {
+                BitSet result = new BitSet(numPartitions);
+                for (Symbol arg : args) {
+                    BitSet candidates = candidates(arg);
+                    if (candidates == null) {
+                        return null;
+                    }
+                    result.or(candidates);
+                }
+                return result;
+            }
+
+            case EqOperator.NAME:
+            case GtOperator.NAME:
+            case GteOperator.NAME:
+            case LtOperator.NAME:
+            case LteOperator.NAME:
+                if (args.get(0) instanceof Reference && args.get(1) instanceof Literal) {
+                    return compare(function.name(), (Reference) args.get(0), (Literal<?>) args.get(1));
+                }
+                if (args.get(0) instanceof Literal && args.get(1) instanceof Reference) {
+                    return compare(flip(function.name()), (Reference) args.get(1), (Literal<?>) args.get(0));
+                }
+                return null;
+
+            default:
+                if (AnyEqOperator.NAME.equals(function.name())
+                    && args.get(0) instanceof Reference
+                    && args.get(1) instanceof Literal) {
+                    return anyEq((Reference) args.get(0), (Literal<?>) args.get(1));
+                }
+                return null;
+        }
+    }
+
+    @Nullable
+    private BitSet compare(String operator, Reference ref, Literal<?> literal) {
+        Column column = columns.get(ref.column());
+        Object value = literal.value();
+        if (column == null || value == null || literal.valueType().id() != column.type.id()) {
+            return null;
+        }
+        return switch (operator) {
+            case EqOperator.NAME -> column.select(column.lowerBound(value), column.upperBound(value));
+            case GtOperator.NAME -> column.select(column.upperBound(value), column.values.length);
+            case GteOperator.NAME -> column.select(column.lowerBound(value), column.values.length);
+            case LtOperator.NAME -> column.select(0, column.lowerBound(value));
+            case LteOperator.NAME -> column.select(0, column.upperBound(value));
+            default -> throw new IllegalArgumentException("Unsupported comparison operator: " + operator);
+        };
+    }
+
+    @Nullable
+    private BitSet anyEq(Reference ref, Literal<?> arrayLiteral) {
+        Column column = columns.get(ref.column());
+        DataType<?> innerType = ArrayType.unnest(arrayLiteral.valueType());
+        if (column == null
+            || !(arrayLiteral.valueType() instanceof ArrayType)
+            || innerType.id() != column.type.id()
+            || !(arrayLiteral.value() instanceof List)) {
+            return null;
+        }
+        BitSet result = new BitSet(numPartitions);
+        for (Object value : (List<?>) arrayLiteral.value()) {
+            // `null = ANY(..)` can't match, so null values don't add candidates
+            if (value != null) {
+                result.or(column.select(column.lowerBound(value), column.upperBound(value)));
+            }
+        }
+        return result;
+    }
+
+    private static String flip(String operator) {
+        return switch (operator) {
+            case GtOperator.NAME -> LtOperator.NAME;
+            case GteOperator.NAME -> LteOperator.NAME;
+            case LtOperator.NAME -> GtOperator.NAME;
+            case LteOperator.NAME -> GteOperator.NAME;
+            default -> operator;
+        };
+    }
+
+    private final class Column {
+
+        private final DataType<Object> type;
+        private final Object[] values;
+        private final int[] partitionIndices;
+
+        @SuppressWarnings("unchecked")
+        Column(DataType<?> type, int columnIdx, List<PartitionName> partitions) {
+            this.type = (DataType<Object>) type;
+            Object[] allValues = new Object[partitions.size()];
+            Integer[] order = new Integer[partitions.size()];
+            int numValues = 0;
+            for (int i = 0; i < partitions.size(); i++) {
+                Object value = type.implicitCast(partitions.get(i).values().get(columnIdx));
+                // Partitions with a null value can't match any of the supported comparisons
+                if (value != null) {
+                    allValues[i] = value;
+                    order[numValues] = i;
+                    numValues++;
+                }
+            }
+            Arrays.sort(order, 0, numValues, (a, b) -> this.type.compare(allValues[a], allValues[b]));
+            this.values = new Object[numValues];
+            this.partitionIndices = new int[numValues];
+            for (int i = 0; i < numValues; i++) {
+                values[i] = allValues[order[i]];
+                partitionIndices[i] = order[i];
+            }
+        }
+
+        /**
+         * @return position of the first value which is greater than or equal to the given value
+         */
+        private int lowerBound(Object value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (type.compare(values[mid], value) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return position of the first value which is greater than the given value
+         */
+        private int upperBound(Object value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (type.compare(values[mid], value) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private BitSet select(int from, int to) {
+            BitSet result = new BitSet(numPartitions);
+            for (int i = from; i < to; i++) {
+                result.set(partitionIndices[i]);
+            }
+            return result;
+        }
+    }
+}
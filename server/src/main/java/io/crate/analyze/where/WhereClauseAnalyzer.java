@@ -42,6 +42,7 @@ import io.crate.common.collections.Tuple;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -110,10 +111,15 @@ public class WhereClauseAnalyzer {
         EvaluatingNormalizer normalizer = new EvaluatingNormalizer(
             nodeCtx, RowGranularity.PARTITION, partitionReferenceResolver, null);
 
+        List<PartitionName> partitions = candidatePartitions(query, tableInfo);
+        if (partitions.isEmpty()) {
+            return new PartitionResult(Literal.BOOLEAN_FALSE, Collections.emptyList());
+        }
+
         Symbol normalized;
         Map<Symbol, List<Literal>> queryPartitionMap = new HashMap<>();
 
-        for (PartitionName partitionName : tableInfo.partitions()) {
+        for (PartitionName partitionName : partitions) {
             for (PartitionExpression partitionExpression : partitionReferenceResolver.expressions()) {
                 partitionExpression.setNextRow(partitionName);
             }
@@ -145,13 +151,30 @@ public class WhereClauseAnalyzer {
             return partitionResult == null
                 // if partitionResult is null we can't narrow the partitions and keep the full query + use all partitions
                 // the query will then be evaluated correctly within each partition to see whether it matches or not
-                ? new PartitionResult(query, Lists2.map(tableInfo.partitions(), PartitionName::asIndexName))
+                ? new PartitionResult(query, Lists2.map(partitions, PartitionName::asIndexName))
                 : partitionResult;
         } else {
             return new PartitionResult(Literal.BOOLEAN_FALSE, Collections.emptyList());
         }
     }
 
+    /**
+     * Uses the {@link PartitionIndex} of the table to skip partitions which can't match the query,
+     * so that the query only needs to be normalized for the remaining ones.
+     */
+    private static List<PartitionName> candidatePartitions(Symbol query, DocTableInfo tableInfo) {
+        List<PartitionName> partitions = tableInfo.partitions();
+        BitSet candidates = tableInfo.partitionIndex().candidates(query);
+        if (candidates == null) {
+            return partitions;
+        }
+        ArrayList<PartitionName> result = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            result.add(partitions.get(i));
+        }
+        return result;
+    }
+
     @Nullable
     private static PartitionResult tieBreakPartitionQueries(EvaluatingNormalizer normalizer,
                                                             Map<Symbol, List<Literal>> queryPartitionMap,
@@ -32,7 +32,9 @@ import io.crate.analyze.AnalyzedAlterUser;
 import io.crate.analyze.AnalyzedBegin;
 import io.crate.analyze.AnalyzedCommit;
 import io.crate.analyze.AnalyzedCopyFrom;
+import io.crate.analyze.AnalyzedCopyFromStdin;
 import io.crate.analyze.AnalyzedCopyTo;
+import io.crate.analyze.AnalyzedCopyToStdout;
 import io.crate.analyze.AnalyzedCreateAnalyzer;
 import io.crate.analyze.AnalyzedCreateBlobTable;
 import io.crate.analyze.AnalyzedCreateFunction;
@@ -55,6 +57,7 @@ import io.crate.analyze.AnalyzedInsertStatement;
 import io.crate.analyze.AnalyzedKill;
 import io.crate.analyze.AnalyzedOptimizeTable;
 import io.crate.analyze.AnalyzedPrivileges;
+import io.crate.analyze.AnalyzedRefreshMaterializedView;
 import io.crate.analyze.AnalyzedRefreshTable;
 import io.crate.analyze.AnalyzedRerouteRetryFailed;
 import io.crate.analyze.AnalyzedResetStatement;
@@ -227,7 +230,7 @@ public final class AccessControlImpl implements AccessControl {
             }
             User currentUser = context.user;
             context.user = owner;
-            analyzedView.relation().accept(this, context);
+            analyzedView.source().accept(this, context);
             context.user = currentUser;
             return null;
         }
@@ -332,6 +335,23 @@ public final class AccessControlImpl implements AccessControl {
             return null;
         }
 
+        @Override
+        public Void visitCopyFromStdin(AnalyzedCopyFromStdin analysis, User user) {
+            Privileges.ensureUserHasPrivilege(
+                Privilege.Type.DML,
+                Privilege.Clazz.TABLE,
+                analysis.tableInfo().ident().toString(),
+                user,
+                defaultSchema);
+            return null;
+        }
+
+        @Override
+        public Void visitCopyToStdout(AnalyzedCopyToStdout analysis, User user) {
+            visitRelation(analysis.relation(), user, Privilege.Type.DQL);
+            return null;
+        }
+
         @Override
         public Void visitCreateTable(AnalyzedCreateTable createTable, User user) {
             Privileges.ensureUserHasPrivilege(
@@ -718,6 +738,18 @@ public final class AccessControlImpl implements AccessControl {
             return null;
         }
 
+        @Override
+        public Void visitRefreshMaterializedView(AnalyzedRefreshMaterializedView refreshMaterializedView, User user) {
+            Privileges.ensureUserHasPrivilege(
+                Privilege.Type.DDL,
+                Privilege.Clazz.VIEW,
+                refreshMaterializedView.name().toString(),
+                user,
+                defaultSchema);
+            visitRelation(refreshMaterializedView.view(), user, Privilege.Type.DQL);
+            return null;
+        }
+
         @Override
         public Void visitDiscard(AnalyzedDiscard discard, User context) {
             return null;
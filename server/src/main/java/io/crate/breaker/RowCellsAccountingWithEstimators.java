@@ -57,17 +57,23 @@ public class RowCellsAccountingWithEstimators implements RowAccounting<Object[]>
      * This should only be used if the values are stored/buffered in another in-memory data structure.
      */
     @Override
-    public void accountForAndMaybeBreak(Object[] rowCells) {
+    public long accountForAndMaybeBreak(Object[] rowCells) {
         assert rowCells.length == estimators.size() : "Size of row must match the number of estimators";
         long size = 0;
         for (int i = 0; i < rowCells.length; i++) {
             size += (estimators.get(i).estimateSize(rowCells[i]) + extraSizePerRow);
         }
         ramAccounting.addBytes(size);
+        return size;
     }
 
     @Override
     public void release() {
         ramAccounting.release();
     }
+
+    @Override
+    public void release(long bytes) {
+        ramAccounting.addBytes(- bytes);
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.breaker;
+
+/**
+ * Accounts the bytes on a shared {@link RamAccounting}, but {@link #release()} only releases the bytes that were
+ * accounted through this instance.
+ * <p>
+ * Used by operators which free part of their memory while they're running, e.g. after spilling to disk.
+ */
+public final class ScopedRamAccounting implements RamAccounting {
+
+    private final RamAccounting delegate;
+    private long totalBytes = 0;
+
+    public ScopedRamAccounting(RamAccounting delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void addBytes(long bytes) {
+        delegate.addBytes(bytes);
+        totalBytes += bytes;
+    }
+
+    @Override
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public void release() {
+        delegate.addBytes(- totalBytes);
+        totalBytes = 0;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
@@ -51,7 +51,7 @@ public final class MultiPhaseExecutor {
             LogicalPlan depPlan = entry.getKey();
             SelectSymbol selectSymbol = entry.getValue();
 
-            CollectingRowConsumer<?, ?> rowConsumer = getConsumer(selectSymbol.getResultType());
+            CollectingRowConsumer<?, ?> rowConsumer = getConsumer(selectSymbol);
             depPlan.execute(
                 executor, PlannerContext.forSubPlan(plannerContext), rowConsumer, params, SubQueryResults.EMPTY);
 
@@ -66,13 +66,16 @@ public final class MultiPhaseExecutor {
             .thenApply(ignored -> new SubQueryResults(valueBySubQuery));
     }
 
-    private static CollectingRowConsumer<?, ?> getConsumer(SelectSymbol.ResultType resultType) {
-        switch (resultType) {
+    private static CollectingRowConsumer<?, ?> getConsumer(SelectSymbol selectSymbol) {
+        switch (selectSymbol.getResultType()) {
             case SINGLE_COLUMN_SINGLE_VALUE:
                 return FirstColumnConsumers.createSingleRowConsumer();
 
             case SINGLE_COLUMN_MULTIPLE_VALUES:
-                return FirstColumnConsumers.createAllRowsConsumer();
+                int maxValues = selectSymbol.maxValues();
+                return maxValues < 0
+                    ? FirstColumnConsumers.createAllRowsConsumer()
+                    : FirstColumnConsumers.createAllRowsConsumer(maxValues);
 
             default:
                 throw new IllegalStateException("Can't create consumer: Unknown ResultType");
@@ -39,6 +39,7 @@ import org.elasticsearch.action.admin.indices.create.TransportCreatePartitionsAc
 import org.elasticsearch.action.admin.indices.delete.TransportDeleteIndexAction;
 import org.elasticsearch.action.admin.indices.forcemerge.TransportForceMergeAction;
 import org.elasticsearch.action.admin.indices.refresh.TransportRefreshAction;
+import org.elasticsearch.action.admin.indices.stats.TransportIndicesStatsAction;
 import org.elasticsearch.action.admin.indices.upgrade.post.TransportUpgradeAction;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Provider;
@@ -66,6 +67,7 @@ public class TransportActionProvider {
 
     private final Provider<TransportDecommissionNodeAction> transportDecommissionNodeActionProvider;
     private final Provider<TransportRefreshAction> transportRefreshActionProvider;
+    private final Provider<TransportIndicesStatsAction> transportIndicesStatsActionProvider;
 
     private final Provider<TransportUpgradeAction> transportUpgradeActionProvider;
     private final Provider<TransportForceMergeAction> transportForceMergeActionProvider;
@@ -88,6 +90,7 @@ public class TransportActionProvider {
                                    Provider<TransportGetSnapshotsAction> transportGetSnapshotsActionProvider,
                                    Provider<TransportDecommissionNodeAction> transportDecommissionNodeActionProvider,
                                    Provider<TransportRefreshAction> transportRefreshActionProvider,
+                                   Provider<TransportIndicesStatsAction> transportIndicesStatsActionProvider,
                                    Provider<TransportUpgradeAction> transportUpgradeActionProvider,
                                    Provider<TransportForceMergeAction> transportForceMergeActionProvider,
                                    Provider<TransportClusterRerouteAction> transportClusterRerouteActionProvider) {
@@ -107,6 +110,7 @@ public class TransportActionProvider {
         this.transportGetSnapshotsActionProvider = transportGetSnapshotsActionProvider;
         this.transportDecommissionNodeActionProvider = transportDecommissionNodeActionProvider;
         this.transportRefreshActionProvider = transportRefreshActionProvider;
+        this.transportIndicesStatsActionProvider = transportIndicesStatsActionProvider;
         this.transportUpgradeActionProvider = transportUpgradeActionProvider;
         this.transportForceMergeActionProvider = transportForceMergeActionProvider;
         this.transportClusterRerouteActionProvider = transportClusterRerouteActionProvider;
@@ -176,6 +180,10 @@ public class TransportActionProvider {
         return transportRefreshActionProvider.get();
     }
 
+    public TransportIndicesStatsAction transportIndicesStatsAction() {
+        return transportIndicesStatsActionProvider.get();
+    }
+
     public TransportUpgradeAction transportUpgradeAction() {
         return transportUpgradeActionProvider.get();
     }
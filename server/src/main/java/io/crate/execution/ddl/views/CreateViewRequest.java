@@ -22,6 +22,7 @@
 package io.crate.execution.ddl.views;
 
 import io.crate.metadata.RelationName;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.support.master.MasterNodeRequest;
 import org.elasticsearch.cluster.ack.AckedRequest;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -40,12 +41,22 @@ public final class CreateViewRequest extends MasterNodeRequest<CreateViewRequest
     private final boolean replaceExisting;
     @Nullable
     private final String owner;
+    private final boolean materialized;
 
     public CreateViewRequest(RelationName name, String query, boolean replaceExisting, @Nullable String owner) {
+        this(name, query, replaceExisting, owner, false);
+    }
+
+    public CreateViewRequest(RelationName name,
+                             String query,
+                             boolean replaceExisting,
+                             @Nullable String owner,
+                             boolean materialized) {
         this.name = name;
         this.query = query;
         this.replaceExisting = replaceExisting;
         this.owner = owner;
+        this.materialized = materialized;
     }
 
     public RelationName name() {
@@ -65,6 +76,10 @@ public final class CreateViewRequest extends MasterNodeRequest<CreateViewRequest
         return owner;
     }
 
+    boolean materialized() {
+        return materialized;
+    }
+
     @Override
     public TimeValue ackTimeout() {
         return DEFAULT_ACK_TIMEOUT;
@@ -76,6 +91,11 @@ public final class CreateViewRequest extends MasterNodeRequest<CreateViewRequest
         query = in.readString();
         replaceExisting = in.readBoolean();
         owner = in.readOptionalString();
+        if (in.getVersion().onOrAfter(Version.V_4_7_0)) {
+            materialized = in.readBoolean();
+        } else {
+            materialized = false;
+        }
     }
 
     @Override
@@ -85,5 +105,8 @@ public final class CreateViewRequest extends MasterNodeRequest<CreateViewRequest
         out.writeString(query);
         out.writeBoolean(replaceExisting);
         out.writeOptionalString(owner);
+        if (out.getVersion().onOrAfter(Version.V_4_7_0)) {
+            out.writeBoolean(materialized);
+        }
     }
 }
@@ -0,0 +1,337 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.ddl.views;
+
+import com.google.common.collect.Lists;
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.action.sql.SQLOperations;
+import io.crate.action.sql.Session;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.metadata.RelationName;
+import io.crate.sql.Identifiers;
+import io.crate.sql.SqlFormatter;
+import io.crate.sql.tree.ColumnDefinition;
+import io.crate.sql.tree.ColumnPolicy;
+import io.crate.sql.tree.ColumnType;
+import io.crate.sql.tree.CreateTable;
+import io.crate.sql.tree.Expression;
+import io.crate.sql.tree.GenericProperties;
+import io.crate.sql.tree.PrimaryKeyColumnConstraint;
+import io.crate.sql.tree.Table;
+import io.crate.sql.tree.TableElement;
+import io.crate.types.DataType;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Stores the data of a materialized view in two backing tables, which live in the schema of the view:
+ *
+ * <ul>
+ *     <li>{@code <view>__states} contains one row per shard of the source table with the partial aggregation
+ *     states of the rows of the shard and the local checkpoint of the shard at the time the states were
+ *     computed.</li>
+ *     <li>{@code <view>__rows} contains the final values of the view, one row per group.
+ *     Queries on the view read this table.</li>
+ * </ul>
+ *
+ * The tables are accessed with SQL statements executed by the system user.
+ */
+@Singleton
+public class MaterializedViewTables {
+
+    private static final String STATES_SUFFIX = "__states";
+    private static final String ROWS_SUFFIX = "__rows";
+    private static final String GROUP_KEY = "group_key";
+    private static final List<String> STATES_COLUMNS = List.of(
+        "index_uuid", "shard_id", "index_name", "local_checkpoint", "states");
+    private static final int BATCH_SIZE = 500;
+
+    private final SQLOperations sqlOperations;
+    private Session session;
+
+    @Inject
+    public MaterializedViewTables(SQLOperations sqlOperations) {
+        this.sqlOperations = sqlOperations;
+    }
+
+    public static RelationName statesTable(RelationName view) {
+        return new RelationName(view.schema(), view.name() + STATES_SUFFIX);
+    }
+
+    public static RelationName rowsTable(RelationName view) {
+        return new RelationName(view.schema(), view.name() + ROWS_SUFFIX);
+    }
+
+    /**
+     * @return the name of the column of the rows table which contains the values of the output at {@code idx}.
+     */
+    public static String column(int idx) {
+        return "c" + idx;
+    }
+
+    /**
+     * Shard states as stored in the states table.
+     *
+     * @param states the serialized partial aggregation states of all groups of the shard.
+     */
+    public record ShardStates(ShardId shardId, long localCheckpoint, BytesReference states) {
+    }
+
+    private Session session() {
+        if (session == null) {
+            this.session = sqlOperations.newSystemSession();
+        }
+        return session;
+    }
+
+    /**
+     * Creates the backing tables if they don't exist yet.
+     *
+     * @param types the types of the outputs of the view.
+     */
+    public CompletableFuture<Void> create(RelationName view, List<DataType<?>> types) {
+        String createStates = String.format(
+            Locale.ENGLISH,
+            "CREATE TABLE IF NOT EXISTS %s (" +
+            "index_uuid TEXT, " +
+            "shard_id INTEGER, " +
+            "index_name TEXT, " +
+            "local_checkpoint BIGINT, " +
+            "states TEXT INDEX OFF STORAGE WITH (columnstore = false), " +
+            "PRIMARY KEY (index_uuid, shard_id))",
+            statesTable(view).sqlFqn()
+        );
+        List<TableElement<Expression>> columns = new ArrayList<>(types.size() + 1);
+        columns.add(new ColumnDefinition<>(
+            GROUP_KEY, null, null, new ColumnType<>("text"), List.of(new PrimaryKeyColumnConstraint<>())));
+        for (int i = 0; i < types.size(); i++) {
+            columns.add(new ColumnDefinition<>(
+                column(i), null, null, types.get(i).toColumnType(ColumnPolicy.STRICT, null), List.of()));
+        }
+        CreateTable<Expression> createRows = new CreateTable<>(
+            new Table<>(rowsTable(view).toQualifiedName()),
+            columns,
+            Optional.empty(),
+            Optional.empty(),
+            GenericProperties.empty(),
+            true
+        );
+        return execute(createStates, Row.EMPTY)
+            .thenCompose(ignored -> execute(SqlFormatter.formatSql(createRows), Row.EMPTY))
+            .thenApply(ignored -> null);
+    }
+
+    public CompletableFuture<Void> drop(RelationName view) {
+        return execute("DROP TABLE IF EXISTS " + statesTable(view).sqlFqn(), Row.EMPTY)
+            .thenCompose(ignored -> execute("DROP TABLE IF EXISTS " + rowsTable(view).sqlFqn(), Row.EMPTY))
+            .thenApply(ignored -> null);
+    }
+
+    /**
+     * @return the local checkpoints of the shards whose states are stored.
+     */
+    public CompletableFuture<Map<ShardId, Long>> readCheckpoints(RelationName view) {
+        String stmt = "SELECT index_name, index_uuid, shard_id, local_checkpoint FROM " + statesTable(view).sqlFqn();
+        return execute(stmt, Row.EMPTY).thenApply(rows -> {
+            HashMap<ShardId, Long> checkpoints = new HashMap<>();
+            for (Object[] row : rows) {
+                ShardId shardId = new ShardId((String) row[0], (String) row[1], (Integer) row[2]);
+                checkpoints.put(shardId, (Long) row[3]);
+            }
+            return checkpoints;
+        });
+    }
+
+    /**
+     * Stores the states of the given shards, replacing their previous states,
+     * and removes the states of all shards of the removed indices.
+     */
+    public CompletableFuture<Void> replaceStates(RelationName view,
+                                                 List<ShardStates> states,
+                                                 Collection<String> removedIndexUUIDs) {
+        RelationName table = statesTable(view);
+        List<Object[]> rows = new ArrayList<>(states.size());
+        for (ShardStates shardStates : states) {
+            ShardId shardId = shardStates.shardId();
+            rows.add(new Object[] {
+                shardId.getIndex().getUUID(),
+                shardId.id(),
+                shardId.getIndexName(),
+                shardStates.localCheckpoint(),
+                encode(shardStates.states())
+            });
+        }
+        CompletableFuture<?> result = upsert(table, STATES_COLUMNS, 2, rows);
+        if (!removedIndexUUIDs.isEmpty()) {
+            String delete = "DELETE FROM " + table.sqlFqn() + " WHERE index_uuid = ANY(?)";
+            result = result.thenCompose(ignored -> execute(delete, new RowN(List.copyOf(removedIndexUUIDs))));
+        }
+        return result
+            .thenCompose(ignored -> execute("REFRESH TABLE " + table.sqlFqn(), Row.EMPTY))
+            .thenApply(ignored -> null);
+    }
+
+    /**
+     * @return the serialized states of all shards.
+     */
+    public CompletableFuture<Map<ShardId, BytesReference>> readStates(RelationName view) {
+        String stmt = "SELECT index_name, index_uuid, shard_id, states FROM " + statesTable(view).sqlFqn();
+        return execute(stmt, Row.EMPTY).thenApply(rows -> {
+            HashMap<ShardId, BytesReference> states = new HashMap<>();
+            for (Object[] row : rows) {
+                ShardId shardId = new ShardId((String) row[0], (String) row[1], (Integer) row[2]);
+                states.put(shardId, new BytesArray(Base64.getDecoder().decode((String) row[3])));
+            }
+            return states;
+        });
+    }
+
+    /**
+     * Replaces the rows of the view. Existing rows are updated in place so that concurrent
+     * queries on the view never see an empty table, rows of groups which no longer exist are removed.
+     *
+     * @param keys the serialized group keys.
+     * @param rows the values of the outputs of the view, one row per key.
+     */
+    public CompletableFuture<Void> replaceRows(RelationName view, List<BytesReference> keys, List<Object[]> rows) {
+        assert keys.size() == rows.size() : "There must be one row per key";
+        RelationName table = rowsTable(view);
+        int numColumns = rows.isEmpty() ? 0 : rows.get(0).length;
+        List<String> columns = new ArrayList<>(numColumns + 1);
+        columns.add(GROUP_KEY);
+        for (int i = 0; i < numColumns; i++) {
+            columns.add(column(i));
+        }
+        List<String> encodedKeys = new ArrayList<>(keys.size());
+        List<Object[]> keyedRows = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            String key = encode(keys.get(i));
+            Object[] row = rows.get(i);
+            Object[] keyedRow = new Object[row.length + 1];
+            keyedRow[0] = key;
+            System.arraycopy(row, 0, keyedRow, 1, row.length);
+            encodedKeys.add(key);
+            keyedRows.add(keyedRow);
+        }
+        String delete;
+        Row deleteParams;
+        if (encodedKeys.isEmpty()) {
+            delete = "DELETE FROM " + table.sqlFqn();
+            deleteParams = Row.EMPTY;
+        } else {
+            delete = "DELETE FROM " + table.sqlFqn() + " WHERE NOT " + GROUP_KEY + " = ANY(?)";
+            deleteParams = new RowN(encodedKeys);
+        }
+        return upsert(table, columns, 1, keyedRows)
+            .thenCompose(ignored -> execute(delete, deleteParams))
+            .thenCompose(ignored -> execute("REFRESH TABLE " + table.sqlFqn(), Row.EMPTY))
+            .thenApply(ignored -> null);
+    }
+
+    /**
+     * Inserts the rows in batches, rows whose primary key already exists are updated.
+     *
+     * @param numKeyColumns the number of leading columns which make up the primary key.
+     */
+    private CompletableFuture<?> upsert(RelationName table, List<String> columns, int numKeyColumns, List<Object[]> rows) {
+        CompletableFuture<?> result = CompletableFuture.completedFuture(null);
+        for (List<Object[]> batch : Lists.partition(rows, BATCH_SIZE)) {
+            String stmt = upsertStatement(table, columns, numKeyColumns, batch.size());
+            Object[] params = new Object[batch.size() * columns.size()];
+            int idx = 0;
+            for (Object[] row : batch) {
+                System.arraycopy(row, 0, params, idx, row.length);
+                idx += row.length;
+            }
+            result = result.thenCompose(ignored -> execute(stmt, new RowN(params)));
+        }
+        return result;
+    }
+
+    private static String upsertStatement(RelationName table, List<String> columns, int numKeyColumns, int numRows) {
+        String placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", ", "(", ")"));
+        StringBuilder sb = new StringBuilder("INSERT INTO ")
+            .append(table.sqlFqn())
+            .append(columns.stream().map(Identifiers::quote).collect(Collectors.joining(", ", " (", ")")))
+            .append(" VALUES ");
+        for (int i = 0; i < numRows; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(placeholders);
+        }
+        sb.append(columns.subList(0, numKeyColumns).stream()
+            .map(Identifiers::quote)
+            .collect(Collectors.joining(", ", " ON CONFLICT (", ")")));
+        if (numKeyColumns == columns.size()) {
+            return sb.append(" DO NOTHING").toString();
+        }
+        sb.append(" DO UPDATE SET ");
+        for (int i = numKeyColumns; i < columns.size(); i++) {
+            if (i > numKeyColumns) {
+                sb.append(", ");
+            }
+            String column = Identifiers.quote(columns.get(i));
+            sb.append(column).append(" = excluded.").append(column);
+        }
+        return sb.toString();
+    }
+
+    private static String encode(BytesReference bytes) {
+        return Base64.getEncoder().encodeToString(BytesReference.toBytes(bytes));
+    }
+
+    private CompletableFuture<List<Object[]>> execute(String stmt, Row params) {
+        CollectingResultReceiver resultReceiver = new CollectingResultReceiver();
+        try {
+            session().quickExec(stmt, resultReceiver, params);
+        } catch (Throwable t) {
+            resultReceiver.fail(t);
+        }
+        return resultReceiver.completionFuture().thenApply(ignored -> resultReceiver.rows);
+    }
+
+    private static class CollectingResultReceiver extends BaseResultReceiver {
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void setNextRow(Row row) {
+            rows.add(row.materialize());
+        }
+    }
+}
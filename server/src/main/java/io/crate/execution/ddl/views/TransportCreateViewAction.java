@@ -93,7 +93,12 @@ public final class TransportCreateViewAction extends TransportMasterNodeAction<C
                                 Metadata.builder(currentState.metadata())
                                     .putCustom(
                                         ViewsMetadata.TYPE,
-                                        ViewsMetadata.addOrReplace(views, request.name(), request.query(), request.owner()))
+                                        ViewsMetadata.addOrReplace(
+                                            views,
+                                            request.name(),
+                                            request.query(),
+                                            request.owner(),
+                                            request.materialized()))
                                     .build()
                             ).build();
                     }
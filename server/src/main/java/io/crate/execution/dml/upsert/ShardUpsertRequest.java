@@ -41,6 +41,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -254,6 +255,13 @@ public final class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, S
         @Nullable
         private BytesReference source;
 
+        /**
+         * The typed values of the top-level columns of the {@link #source()}.
+         * Set by the primary if the replicas can index them without parsing the source.
+         */
+        @Nullable
+        private Map<String, Object> sourceValues;
+
         /**
          * List of symbols used on update if document exist
          */
@@ -296,6 +304,15 @@ public final class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, S
             this.source = source;
         }
 
+        @Nullable
+        public Map<String, Object> sourceValues() {
+            return sourceValues;
+        }
+
+        public void sourceValues(@Nullable Map<String, Object> sourceValues) {
+            this.sourceValues = sourceValues;
+        }
+
         boolean retryOnConflict() {
             return seqNo == SequenceNumbers.UNASSIGNED_SEQ_NO && version == Versions.MATCH_ANY;
         }
@@ -331,6 +348,9 @@ public final class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, S
             if (in.readBoolean()) {
                 source = in.readBytesReference();
             }
+            if (in.getVersion().onOrAfter(Version.V_4_7_0) && in.readBoolean()) {
+                sourceValues = in.readMap();
+            }
         }
 
         public void writeTo(StreamOutput out, @Nullable Streamer[] insertValueStreamers) throws IOException {
@@ -359,6 +379,13 @@ public final class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, S
             if (sourceAvailable) {
                 out.writeBytesReference(source);
             }
+            if (out.getVersion().onOrAfter(Version.V_4_7_0)) {
+                boolean sourceValuesAvailable = sourceAvailable && sourceValues != null;
+                out.writeBoolean(sourceValuesAvailable);
+                if (sourceValuesAvailable) {
+                    out.writeMap(sourceValues);
+                }
+            }
         }
 
         @Override
@@ -374,13 +401,14 @@ public final class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, S
             }
             Item item = (Item) o;
             return Objects.equals(source, item.source) &&
+                   Objects.equals(sourceValues, item.sourceValues) &&
                    Arrays.equals(updateAssignments, item.updateAssignments) &&
                    Arrays.equals(insertValues, item.insertValues);
         }
 
         @Override
         public int hashCode() {
-            int result = Objects.hash(super.hashCode(), source);
+            int result = Objects.hash(super.hashCode(), source, sourceValues);
             result = 31 * result + Arrays.hashCode(updateAssignments);
             result = 31 * result + Arrays.hashCode(insertValues);
             return result;
@@ -217,7 +217,9 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 indexShard.shardId().getIndexName(),
                 item.id(),
                 item.source(),
-                XContentType.JSON
+                XContentType.JSON,
+                null,
+                item.sourceValues()
             );
 
             Engine.IndexResult indexResult = indexShard.applyIndexOperationOnReplica(
@@ -327,6 +329,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             throw ExceptionsHelper.convertToElastic(e);
         }
         item.source(rawSource);
+        item.sourceValues(source == null ? null : scalarValuesOrNull(source));
 
         long version = request.duplicateKeyAction() == DuplicateKeyAction.OVERWRITE ? Versions.MATCH_ANY : Versions.MATCH_DELETED;
         long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
@@ -375,6 +378,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         );
         BytesReference rawSource = BytesReference.bytes(XContentFactory.jsonBuilder().map(source, SOURCE_WRITERS));
         item.source(rawSource);
+        item.sourceValues(scalarValuesOrNull(source));
         long seqNo = item.seqNo();
         long primaryTerm = item.primaryTerm();
         long version = Versions.MATCH_ANY;
@@ -408,7 +412,9 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             indexShard.shardId().getIndexName(),
             item.id(),
             item.source(),
-            XContentType.JSON
+            XContentType.JSON,
+            null,
+            item.sourceValues()
         );
 
         Engine.IndexResult indexResult = executeOnPrimaryHandlingMappingUpdate(
@@ -456,6 +462,30 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         }
     }
 
+    /**
+     * Returns the source if it consists only of top-level scalar values.
+     * Such documents are indexed from the typed values instead of parsing the JSON source,
+     * on the primary and on the replicas (See {@link SourceToParse#values()}).
+     */
+    @Nullable
+    @VisibleForTesting
+    static Map<String, Object> scalarValuesOrNull(Map<String, Object> source) {
+        for (Object value : source.values()) {
+            if (value != null
+                && !(value instanceof String)
+                && !(value instanceof Boolean)
+                && !(value instanceof Integer)
+                && !(value instanceof Long)
+                && !(value instanceof Short)
+                && !(value instanceof Byte)
+                && !(value instanceof Float)
+                && !(value instanceof Double)) {
+                return null;
+            }
+        }
+        return source;
+    }
+
     private static Doc getDocument(IndexShard indexShard, String id, long version, long seqNo, long primaryTerm) {
         // when sequence versioning is used, this lookup will throw VersionConflictEngineException
         Doc doc = PKLookupOperation.lookupDoc(indexShard, id, Versions.MATCH_ANY, VersionType.INTERNAL, seqNo, primaryTerm);
@@ -27,6 +27,7 @@ import io.crate.expression.symbol.Symbols;
 import io.crate.planner.node.dql.join.JoinType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
@@ -42,8 +43,11 @@ public class HashJoinPhase extends JoinPhase {
     private final List<Symbol> rightJoinConditionInputs;
 
     private final Collection<DataType<?>> leftOutputTypes;
+    @Nullable
+    private final Collection<DataType<?>> rightOutputTypes;
     private final long estimatedRowSizeForLeft;
     private final long numberOfRowsForLeft;
+    private final boolean nullAware;
 
     public HashJoinPhase(UUID jobId,
                          int executionNodeId,
@@ -54,10 +58,13 @@ public class HashJoinPhase extends JoinPhase {
                          int numLeftOutputs,
                          int numRightOutputs,
                          Collection<String> executionNodes,
+                         JoinType joinType,
+                         boolean nullAware,
                          @Nullable Symbol joinCondition,
                          List<Symbol> leftJoinConditionInputs,
                          List<Symbol> rightJoinConditionInputs,
                          Collection<DataType<?>> leftOutputTypes,
+                         Collection<DataType<?>> rightOutputTypes,
                          long estimatedRowSizeForLeft,
                          long numberOfRowsForLeft) {
         super(
@@ -70,14 +77,16 @@ public class HashJoinPhase extends JoinPhase {
             numLeftOutputs,
             numRightOutputs,
             executionNodes,
-            JoinType.INNER,
+            joinType,
             joinCondition);
         assert joinCondition != null : "JoinCondition for HashJoin cannot be null";
         this.leftJoinConditionInputs = leftJoinConditionInputs;
         this.rightJoinConditionInputs = rightJoinConditionInputs;
         this.leftOutputTypes = leftOutputTypes;
+        this.rightOutputTypes = rightOutputTypes;
         this.estimatedRowSizeForLeft = estimatedRowSizeForLeft;
         this.numberOfRowsForLeft = numberOfRowsForLeft;
+        this.nullAware = nullAware;
     }
 
     public HashJoinPhase(StreamInput in) throws IOException {
@@ -89,6 +98,13 @@ public class HashJoinPhase extends JoinPhase {
 
         estimatedRowSizeForLeft = in.readZLong();
         numberOfRowsForLeft = in.readZLong();
+        if (in.getVersion().onOrAfter(Version.V_4_7_0)) {
+            rightOutputTypes = DataTypes.listFromStream(in);
+            nullAware = in.readBoolean();
+        } else {
+            rightOutputTypes = null;
+            nullAware = false;
+        }
     }
 
     @Override
@@ -101,6 +117,10 @@ public class HashJoinPhase extends JoinPhase {
 
         out.writeZLong(estimatedRowSizeForLeft);
         out.writeZLong(numberOfRowsForLeft);
+        if (out.getVersion().onOrAfter(Version.V_4_7_0)) {
+            DataTypes.toStream(rightOutputTypes, out);
+            out.writeBoolean(nullAware);
+        }
     }
 
     @Override
@@ -125,6 +145,14 @@ public class HashJoinPhase extends JoinPhase {
         return leftOutputTypes;
     }
 
+    /**
+     * @return the types of the right outputs or null if the phase was received from a node older than 4.7.0
+     */
+    @Nullable
+    public Collection<DataType<?>> rightOutputTypes() {
+        return rightOutputTypes;
+    }
+
     public long estimatedRowSizeForLeft() {
         return estimatedRowSizeForLeft;
     }
@@ -132,4 +160,11 @@ public class HashJoinPhase extends JoinPhase {
     public long numberOfRowsForLeft() {
         return numberOfRowsForLeft;
     }
+
+    /**
+     * @return true if the phase is an ANTI join with the null semantics of {@code NOT IN}
+     */
+    public boolean isNullAware() {
+        return nullAware;
+    }
 }
@@ -45,10 +45,23 @@ public class WindowAggProjection extends Projection {
     private final List<Symbol> standaloneWithInputs;
     private final ArrayList<Symbol> outputs;
     private final List<WindowFunction> windowFunctions;
+    private final boolean sourceSorted;
 
     public WindowAggProjection(WindowDefinition windowDefinition,
                                List<WindowFunction> windowFunctions,
                                List<Symbol> standaloneWithInputs) {
+        this(windowDefinition, windowFunctions, standaloneWithInputs, false);
+    }
+
+    /**
+     * @param sourceSorted true if the source rows are already sorted by the PARTITION BY and ORDER BY of the window
+     *                     definition. The partitions are then computed as the rows arrive, without sorting them.
+     */
+    public WindowAggProjection(WindowDefinition windowDefinition,
+                               List<WindowFunction> windowFunctions,
+                               List<Symbol> standaloneWithInputs,
+                               boolean sourceSorted) {
+        this.sourceSorted = sourceSorted;
         this.windowFunctions = windowFunctions;
         assert windowFunctions.stream().noneMatch(Symbols.IS_COLUMN)
             : "Cannot operate on Reference or Field: " + windowFunctions;
@@ -83,6 +96,11 @@ public class WindowAggProjection extends Projection {
                 windowFunctions.add(function);
             }
         }
+        if (version.onOrAfter(Version.V_4_7_0)) {
+            sourceSorted = in.readBoolean();
+        } else {
+            sourceSorted = false;
+        }
         outputs = new ArrayList<>(standaloneWithInputs);
         outputs.addAll(windowFunctions);
     }
@@ -99,6 +117,10 @@ public class WindowAggProjection extends Projection {
         return standaloneWithInputs;
     }
 
+    public boolean sourceSorted() {
+        return sourceSorted;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -108,13 +130,14 @@ public class WindowAggProjection extends Projection {
             return false;
         }
         WindowAggProjection that = (WindowAggProjection) o;
-        return Objects.equals(windowDefinition, that.windowDefinition) &&
+        return sourceSorted == that.sourceSorted &&
+               Objects.equals(windowDefinition, that.windowDefinition) &&
                Objects.equals(windowFunctions, that.windowFunctions);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), windowDefinition, windowFunctions);
+        return Objects.hash(super.hashCode(), windowDefinition, windowFunctions, sourceSorted);
     }
 
     @Override
@@ -158,6 +181,9 @@ public class WindowAggProjection extends Projection {
                 Symbols.toStream(windowFunction.arguments(), out);
             }
         }
+        if (version.onOrAfter(Version.V_4_7_0)) {
+            out.writeBoolean(sourceSorted);
+        }
     }
 
     @Override
@@ -75,6 +75,48 @@ public class FirstColumnConsumers {
 
     }
 
+    /**
+     * Like {@link AllValues}, but results in null if there are more than {@code maxValues} values.
+     * At most {@code maxValues + 1} values are kept.
+     */
+    private static class AllValuesUpTo implements Collector<Row, Collection<Object>, Object[]> {
+
+        private final int maxValues;
+
+        private AllValuesUpTo(int maxValues) {
+            this.maxValues = maxValues;
+        }
+
+        @Override
+        public Supplier<Collection<Object>> supplier() {
+            return () -> new ArrayList<>(1);
+        }
+
+        @Override
+        public BiConsumer<Collection<Object>, Row> accumulator() {
+            return (agg, row) -> {
+                if (agg.size() <= maxValues) {
+                    agg.add(row.get(0));
+                }
+            };
+        }
+
+        @Override
+        public BinaryOperator<Collection<Object>> combiner() {
+            throw new IllegalStateException("Combine is not implemented on this collector");
+        }
+
+        @Override
+        public Function<Collection<Object>, Object[]> finisher() {
+            return agg -> agg.size() > maxValues ? null : agg.toArray();
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return Collections.emptySet();
+        }
+    }
+
     private static class SingleValue implements Collector<Row, Object[], Object> {
 
         private static final SingleValue INSTANCE = new SingleValue();
@@ -129,4 +171,8 @@ public class FirstColumnConsumers {
     public static CollectingRowConsumer<Collection<Object>, Object[]> createAllRowsConsumer() {
         return new CollectingRowConsumer<>(AllValues.INSTANCE);
     }
+
+    public static CollectingRowConsumer<Collection<Object>, Object[]> createAllRowsConsumer(int maxValues) {
+        return new CollectingRowConsumer<>(new AllValuesUpTo(maxValues));
+    }
 }
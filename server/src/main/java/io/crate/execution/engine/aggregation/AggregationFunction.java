@@ -108,6 +108,16 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
         return false;
     }
 
+    /**
+     * Indicates if the partial states are never modified by {@link #iterate} and {@link #reduce}, so that a state can
+     * be used as input of multiple reduce operations.
+     * This allows window functions to compute the aggregation over sliding frames using a segment tree of partial
+     * states, instead of re-computing the aggregation for every frame.
+     */
+    public boolean hasImmutableStates() {
+        return false;
+    }
+
     public TPartial removeFromAggregatedState(RamAccounting ramAccounting,
                                               TPartial previousAggState,
                                               Input[] stateToRemove) {
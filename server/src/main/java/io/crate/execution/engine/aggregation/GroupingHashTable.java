@@ -0,0 +1,542 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import com.carrotsearch.hppc.BitMixer;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccounting;
+import io.crate.memory.MemoryManager;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DateType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.IpType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import io.netty.buffer.ByteBuf;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Open addressing hash table which maps the keys of a GROUP BY to dense group ids and holds the aggregation states
+ * of each group.
+ *
+ * <p>
+ * The keys are stored in pages allocated via the {@link MemoryManager}, so they're stored off-heap if configured:
+ * A single key of an integral type is stored inline as 8 byte value, other keys are serialized using the
+ * {@link Streamer}s of the key types into an arena, next to a fixed width entry per group which points into the arena.
+ * The hash table itself is a primitive array of group ids; apart from the aggregation states there are no objects
+ * per group.
+ * </p>
+ *
+ * <p>
+ * The pages are re-used after {@link #clear()}; they're released once the {@link MemoryManager} is closed.
+ * The memory used by the slots and the state pages is accounted on the given {@link RamAccounting}.
+ * If an allocation trips the circuit breaker the table is left unchanged.
+ * </p>
+ *
+ * Not thread-safe.
+ */
+public abstract class GroupingHashTable {
+
+    static final int PAGE_SIZE = 1 << 15;
+
+    private static final int STATE_PAGE_SHIFT = 10;
+    private static final int GROUPS_PER_STATE_PAGE = 1 << STATE_PAGE_SHIFT;
+    private static final int STATE_PAGE_MASK = GROUPS_PER_STATE_PAGE - 1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static final Set<Integer> INTEGRAL_TYPES = Set.of(
+        ByteType.ID,
+        ShortType.ID,
+        IntegerType.ID,
+        LongType.ID,
+        TimestampType.ID_WITH_TZ,
+        TimestampType.ID_WITHOUT_TZ
+    );
+
+    /**
+     * Types for which values are equal if, and only if, their serialized form is equal
+     */
+    private static final Set<Integer> SERIALIZABLE_TYPES = Set.of(
+        ByteType.ID,
+        ShortType.ID,
+        IntegerType.ID,
+        LongType.ID,
+        TimestampType.ID_WITH_TZ,
+        TimestampType.ID_WITHOUT_TZ,
+        DateType.ID,
+        BooleanType.ID,
+        FloatType.ID,
+        DoubleType.ID,
+        StringType.ID,
+        IpType.ID
+    );
+
+    protected final MemoryManager memoryManager;
+    private final RamAccounting ramAccounting;
+    private final int numStates;
+    private final ArrayList<Object[]> statePages = new ArrayList<>();
+
+    /**
+     * group id + 1 per slot, 0 marks an empty slot
+     */
+    private int[] slots;
+    private int mask;
+    private int threshold;
+    private int size = 0;
+
+    /**
+     * slot and hash of the key of the last {@link #find(Object[])} which didn't find the key; used by {@link #add()}
+     */
+    private int pendingSlot = -1;
+    private int pendingHash;
+
+    public static boolean supports(List<? extends DataType<?>> keyTypes) {
+        for (DataType<?> keyType : keyTypes) {
+            if (SERIALIZABLE_TYPES.contains(keyType.id()) == false) {
+                return false;
+            }
+        }
+        return keyTypes.isEmpty() == false;
+    }
+
+    /**
+     * @param numStates number of aggregation states per group
+     */
+    public static GroupingHashTable create(List<? extends DataType<?>> keyTypes,
+                                           int numStates,
+                                           RamAccounting ramAccounting,
+                                           MemoryManager memoryManager) {
+        assert supports(keyTypes) : "Key types not supported: " + keyTypes;
+        if (keyTypes.size() == 1 && INTEGRAL_TYPES.contains(keyTypes.get(0).id())) {
+            return new LongKeys(keyTypes.get(0), numStates, ramAccounting, memoryManager);
+        }
+        return new SerializedKeys(keyTypes, numStates, ramAccounting, memoryManager);
+    }
+
+    private GroupingHashTable(int numStates, RamAccounting ramAccounting, MemoryManager memoryManager) {
+        this.numStates = numStates;
+        this.ramAccounting = ramAccounting;
+        this.memoryManager = memoryManager;
+        ramAccounting.addBytes(sizeOfSlots(INITIAL_CAPACITY));
+        this.slots = new int[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+        this.threshold = (int) (INITIAL_CAPACITY * LOAD_FACTOR);
+    }
+
+    /**
+     * Looks up the group of a key.
+     * If there is no group for the key, the key is remembered and the group can be created with {@link #add()}.
+     *
+     * @param key the key values; only the first {@code numKeys} values are used.
+     * @return the group id or -1 if there is no group for the key.
+     */
+    public final int find(Object[] key) {
+        int hash = prepareKey(key);
+        int slot = hash & mask;
+        while (true) {
+            int groupId = slots[slot] - 1;
+            if (groupId < 0) {
+                pendingSlot = slot;
+                pendingHash = hash;
+                return -1;
+            }
+            if (hash(groupId) == hash && matchesPendingKey(groupId)) {
+                return groupId;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds a group for the key of the preceding {@link #find(Object[])} call, which must not have found the key.
+     * The states of the new group are null.
+     *
+     * @return the id of the new group.
+     */
+    public final int add() {
+        assert pendingSlot >= 0 : "add must follow a find call which didn't find the key";
+        int groupId = size;
+        if (size + 1 > threshold) {
+            grow();
+            pendingSlot = emptySlot(pendingHash);
+        }
+        if (numStates > 0 && (groupId >>> STATE_PAGE_SHIFT) == statePages.size()) {
+            ramAccounting.addBytes(RamUsageEstimator.alignObjectSize(
+                RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * numStates * GROUPS_PER_STATE_PAGE));
+            statePages.add(new Object[numStates * GROUPS_PER_STATE_PAGE]);
+        }
+        storePendingKey(groupId, pendingHash);
+        slots[pendingSlot] = groupId + 1;
+        pendingSlot = -1;
+        size++;
+        return groupId;
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    @Nullable
+    public final Object state(int groupId, int idx) {
+        return statePages.get(groupId >>> STATE_PAGE_SHIFT)[(groupId & STATE_PAGE_MASK) * numStates + idx];
+    }
+
+    public final void setState(int groupId, int idx, @Nullable Object state) {
+        statePages.get(groupId >>> STATE_PAGE_SHIFT)[(groupId & STATE_PAGE_MASK) * numStates + idx] = state;
+    }
+
+    /**
+     * Removes all groups. The allocated memory is retained and re-used.
+     */
+    public final void clear() {
+        Arrays.fill(slots, 0);
+        int numUsedPages = (size + GROUPS_PER_STATE_PAGE - 1) >>> STATE_PAGE_SHIFT;
+        for (int i = 0; i < numUsedPages && i < statePages.size(); i++) {
+            Arrays.fill(statePages.get(i), null);
+        }
+        size = 0;
+        pendingSlot = -1;
+        clearKeys();
+    }
+
+    /**
+     * @return the hash of the key of a group. Equal keys have the same hash, independent of the table instance.
+     */
+    public abstract int hash(int groupId);
+
+    /**
+     * Writes the key values of a group into {@code target}, starting at index 0
+     */
+    public abstract void readKey(int groupId, Object[] target);
+
+    protected abstract int prepareKey(Object[] key);
+
+    protected abstract boolean matchesPendingKey(int groupId);
+
+    protected abstract void storePendingKey(int groupId, int hash);
+
+    protected abstract void clearKeys();
+
+    private void grow() {
+        int capacity = slots.length;
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Too many groups, the maximum number of groups is " + threshold);
+        }
+        int newCapacity = capacity << 1;
+        ramAccounting.addBytes(sizeOfSlots(newCapacity));
+        int[] newSlots = new int[newCapacity];
+        int newMask = newCapacity - 1;
+        for (int groupId = 0; groupId < size; groupId++) {
+            int slot = hash(groupId) & newMask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            newSlots[slot] = groupId + 1;
+        }
+        ramAccounting.addBytes(- sizeOfSlots(capacity));
+        slots = newSlots;
+        mask = newMask;
+        threshold = (int) (newCapacity * LOAD_FACTOR);
+    }
+
+    private static long sizeOfSlots(int capacity) {
+        return RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) capacity * Integer.BYTES);
+    }
+
+    private int emptySlot(int hash) {
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * A single key of an integral type. The keys are stored as longs in the order of the group ids.
+     */
+    private static final class LongKeys extends GroupingHashTable {
+
+        private static final int KEYS_PER_PAGE_SHIFT = 12;
+        private static final int KEYS_PER_PAGE_MASK = (1 << KEYS_PER_PAGE_SHIFT) - 1;
+        private static final int NULL_HASH = 0;
+
+        static {
+            assert (Long.BYTES << KEYS_PER_PAGE_SHIFT) == PAGE_SIZE : "A key page must have the size of a page";
+        }
+
+        private final int typeId;
+        private final ArrayList<ByteBuf> pages = new ArrayList<>();
+        private int nullGroupId = -1;
+
+        private long pendingKey;
+        private boolean pendingNull;
+
+        LongKeys(DataType<?> type, int numStates, RamAccounting ramAccounting, MemoryManager memoryManager) {
+            super(numStates, ramAccounting, memoryManager);
+            this.typeId = type.id();
+        }
+
+        @Override
+        public int hash(int groupId) {
+            return groupId == nullGroupId ? NULL_HASH : hash(keyAt(groupId));
+        }
+
+        @Override
+        public void readKey(int groupId, Object[] target) {
+            if (groupId == nullGroupId) {
+                target[0] = null;
+                return;
+            }
+            long key = keyAt(groupId);
+            switch (typeId) {
+                case ByteType.ID:
+                    target[0] = (byte) key;
+                    break;
+                case ShortType.ID:
+                    target[0] = (short) key;
+                    break;
+                case IntegerType.ID:
+                    target[0] = (int) key;
+                    break;
+                default:
+                    target[0] = key;
+                    break;
+            }
+        }
+
+        @Override
+        protected int prepareKey(Object[] key) {
+            Object value = key[0];
+            if (value == null) {
+                pendingNull = true;
+                return NULL_HASH;
+            }
+            pendingNull = false;
+            pendingKey = ((Number) value).longValue();
+            return hash(pendingKey);
+        }
+
+        @Override
+        protected boolean matchesPendingKey(int groupId) {
+            if (pendingNull) {
+                return groupId == nullGroupId;
+            }
+            return groupId != nullGroupId && keyAt(groupId) == pendingKey;
+        }
+
+        @Override
+        protected void storePendingKey(int groupId, int hash) {
+            int pageIdx = groupId >>> KEYS_PER_PAGE_SHIFT;
+            if (pageIdx == pages.size()) {
+                pages.add(memoryManager.allocate(PAGE_SIZE));
+            }
+            pages.get(pageIdx).setLong((groupId & KEYS_PER_PAGE_MASK) * Long.BYTES, pendingNull ? 0L : pendingKey);
+            if (pendingNull) {
+                nullGroupId = groupId;
+            }
+        }
+
+        @Override
+        protected void clearKeys() {
+            nullGroupId = -1;
+        }
+
+        private long keyAt(int groupId) {
+            return pages.get(groupId >>> KEYS_PER_PAGE_SHIFT).getLong((groupId & KEYS_PER_PAGE_MASK) * Long.BYTES);
+        }
+
+        private static int hash(long key) {
+            return (int) BitMixer.mix64(key);
+        }
+    }
+
+    /**
+     * Keys serialized using the streamers of their types.
+     * <p>
+     * Per group there is a fixed width entry: (arena page, offset within the arena page, length, hash)
+     * Entries are stored in the order of the group ids, the serialized keys in the arena pages.
+     * </p>
+     */
+    private static final class SerializedKeys extends GroupingHashTable {
+
+        private static final int ENTRY_SIZE = 4 * Integer.BYTES;
+        private static final int ENTRIES_PER_PAGE_SHIFT = 11;
+        private static final int ENTRIES_PER_PAGE_MASK = (1 << ENTRIES_PER_PAGE_SHIFT) - 1;
+
+        static {
+            assert (ENTRY_SIZE << ENTRIES_PER_PAGE_SHIFT) == PAGE_SIZE : "An entry page must have the size of a page";
+        }
+
+        private final List<? extends DataType<?>> types;
+        private final Streamer<?>[] streamers;
+        private final ArrayList<ByteBuf> entryPages = new ArrayList<>();
+        private final ArrayList<ByteBuf> arenaPages = new ArrayList<>();
+        private final BytesStreamOutput scratch = new BytesStreamOutput();
+        private byte[] readBuffer = new byte[64];
+
+        private int arenaPage = 0;
+        private int arenaOffset = 0;
+        private BytesRef pendingKey;
+
+        SerializedKeys(List<? extends DataType<?>> types,
+                       int numStates,
+                       RamAccounting ramAccounting,
+                       MemoryManager memoryManager) {
+            super(numStates, ramAccounting, memoryManager);
+            this.types = types;
+            this.streamers = new Streamer[types.size()];
+            for (int i = 0; i < streamers.length; i++) {
+                streamers[i] = types.get(i).streamer();
+            }
+        }
+
+        @Override
+        public int hash(int groupId) {
+            return entryPage(groupId).getInt(entryOffset(groupId) + 3 * Integer.BYTES);
+        }
+
+        @Override
+        public void readKey(int groupId, Object[] target) {
+            ByteBuf entries = entryPage(groupId);
+            int entryOffset = entryOffset(groupId);
+            ByteBuf arena = arenaPages.get(entries.getInt(entryOffset));
+            int offset = entries.getInt(entryOffset + Integer.BYTES);
+            int length = entries.getInt(entryOffset + 2 * Integer.BYTES);
+            if (readBuffer.length < length) {
+                readBuffer = new byte[length];
+            }
+            arena.getBytes(offset, readBuffer, 0, length);
+            StreamInput in = StreamInput.wrap(readBuffer, 0, length);
+            try {
+                for (int i = 0; i < streamers.length; i++) {
+                    target[i] = streamers[i].readValueFrom(in);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected int prepareKey(Object[] key) {
+            scratch.reset();
+            try {
+                for (int i = 0; i < streamers.length; i++) {
+                    ((Streamer) streamers[i]).writeValueTo(scratch, types.get(i).sanitizeValue(key[i]));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pendingKey = scratch.bytes().toBytesRef();
+            return StringHelper.murmurhash3_x86_32(pendingKey, 0);
+        }
+
+        @Override
+        protected boolean matchesPendingKey(int groupId) {
+            ByteBuf entries = entryPage(groupId);
+            int entryOffset = entryOffset(groupId);
+            int length = entries.getInt(entryOffset + 2 * Integer.BYTES);
+            if (length != pendingKey.length) {
+                return false;
+            }
+            ByteBuf arena = arenaPages.get(entries.getInt(entryOffset));
+            int offset = entries.getInt(entryOffset + Integer.BYTES);
+            byte[] bytes = pendingKey.bytes;
+            int pendingOffset = pendingKey.offset;
+            for (int i = 0; i < length; i++) {
+                if (arena.getByte(offset + i) != bytes[pendingOffset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        protected void storePendingKey(int groupId, int hash) {
+            int length = pendingKey.length;
+            ByteBuf arena = arenaWithSpaceFor(length);
+            int entryPageIdx = groupId >>> ENTRIES_PER_PAGE_SHIFT;
+            if (entryPageIdx == entryPages.size()) {
+                entryPages.add(memoryManager.allocate(PAGE_SIZE));
+            }
+            arena.setBytes(arenaOffset, pendingKey.bytes, pendingKey.offset, length);
+            ByteBuf entries = entryPages.get(entryPageIdx);
+            int entryOffset = entryOffset(groupId);
+            entries.setInt(entryOffset, arenaPage);
+            entries.setInt(entryOffset + Integer.BYTES, arenaOffset);
+            entries.setInt(entryOffset + 2 * Integer.BYTES, length);
+            entries.setInt(entryOffset + 3 * Integer.BYTES, hash);
+            arenaOffset += length;
+        }
+
+        @Override
+        protected void clearKeys() {
+            arenaPage = 0;
+            arenaOffset = 0;
+        }
+
+        /**
+         * Moves {@link #arenaPage} and {@link #arenaOffset} to a position with at least {@code length} free bytes.
+         * Keys larger than a page get a page of their own.
+         */
+        private ByteBuf arenaWithSpaceFor(int length) {
+            while (arenaPage < arenaPages.size() && arenaPages.get(arenaPage).capacity() - arenaOffset < length) {
+                arenaPage++;
+                arenaOffset = 0;
+            }
+            if (arenaPage == arenaPages.size()) {
+                arenaPages.add(memoryManager.allocate(Math.max(PAGE_SIZE, length)));
+                arenaOffset = 0;
+            }
+            return arenaPages.get(arenaPage);
+        }
+
+        private ByteBuf entryPage(int groupId) {
+            return entryPages.get(groupId >>> ENTRIES_PER_PAGE_SHIFT);
+        }
+
+        private static int entryOffset(int groupId) {
+            return (groupId & ENTRIES_PER_PAGE_MASK) * ENTRY_SIZE;
+        }
+    }
+}
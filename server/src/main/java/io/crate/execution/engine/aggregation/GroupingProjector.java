@@ -23,6 +23,7 @@ package io.crate.execution.engine.aggregation;
 
 import io.crate.breaker.RamAccounting;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Projector;
@@ -36,7 +37,10 @@ import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.Version;
 
+import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.LongSupplier;
 import java.util.stream.Collector;
 
 import static io.crate.expression.symbol.Symbols.typeView;
@@ -54,7 +58,9 @@ public class GroupingProjector implements Projector {
                              RamAccounting ramAccounting,
                              MemoryManager memoryManager,
                              Version minNodeVersion,
-                             Version indexVersionCreated) {
+                             Version indexVersionCreated,
+                             @Nullable Path spillDirectory,
+                             LongSupplier maxBytesInMemory) {
         assert keys.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         ensureAllTypesSupported(keys);
 
@@ -67,7 +73,24 @@ public class GroupingProjector implements Projector {
             inputs[i] = aggregation.inputs();
             filters[i] = aggregation.filter();
         }
-        if (keys.size() == 1) {
+        List<DataType<?>> keyTypes = typeView(keys);
+        if (GroupingHashTable.supports(keyTypes)) {
+            collector = new SpillableGroupingCollector(
+                collectExpressions,
+                mode,
+                functions,
+                inputs,
+                filters,
+                ramAccounting,
+                memoryManager,
+                minNodeVersion,
+                keyInputs,
+                keyTypes,
+                indexVersionCreated,
+                spillDirectory,
+                maxBytesInMemory
+            );
+        } else if (keys.size() == 1) {
             Symbol key = keys.get(0);
             collector = GroupingCollector.singleKey(
                 collectExpressions,
@@ -94,7 +117,7 @@ public class GroupingProjector implements Projector {
                 memoryManager,
                 minNodeVersion,
                 keyInputs,
-                typeView(keys),
+                keyTypes,
                 indexVersionCreated
             );
         }
@@ -111,6 +134,20 @@ public class GroupingProjector implements Projector {
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        if (collector instanceof SpillableGroupingCollector spillableCollector) {
+            return CollectingBatchIterator.newInstance(
+                () -> {
+                    try {
+                        batchIterator.close();
+                    } finally {
+                        spillableCollector.close();
+                    }
+                },
+                batchIterator::kill,
+                () -> BatchIterators.collect(batchIterator, collector),
+                batchIterator.hasLazyResultSet()
+            );
+        }
         return CollectingBatchIterator.newInstance(batchIterator, collector);
     }
 
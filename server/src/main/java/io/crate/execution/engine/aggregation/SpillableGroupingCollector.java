@@ -0,0 +1,445 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import com.google.common.collect.Iterables;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.ScopedRamAccounting;
+import io.crate.common.io.IOUtils;
+import io.crate.data.CloseableIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.expression.InputCondition;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.memory.MemoryManager;
+import io.crate.types.DataType;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Collector implementation which uses {@link AggregateMode}s and {@code keyInputs}
+ * to group rows by key and aggregate the grouped values, using a {@link GroupingHashTable}.
+ *
+ * <p>
+ * If a spill directory is available and the groups exceed the memory budget of the operation (see
+ * {@link SpillFile#maxBytesInMemory}), the groups collected so far are written as partial states to spill files,
+ * partitioned by the hash of their keys, and the table is cleared. The same happens as a last resort if the circuit
+ * breaker trips while a new group is added.
+ * Once all rows have been consumed, the partitions are merged (using {@link AggregationFunction#reduce}) one after
+ * another. If a partition doesn't fit into memory either, it's partitioned again, using other bits of the hash.
+ * </p>
+ *
+ * The spill files are deleted on {@link #close()}.
+ */
+public final class SpillableGroupingCollector implements Collector<Row, SpillableGroupingCollector.Groups, Iterable<Row>>,
+                                                         Releasable {
+
+    private static final int PARTITION_BITS = 5;
+    private static final int NUM_PARTITIONS = 1 << PARTITION_BITS;
+    private static final int MAX_SPILL_LEVELS = 3;
+
+    private final CollectExpression<Row, ?>[] expressions;
+    private final AggregationFunction[] aggregations;
+    private final AggregateMode mode;
+    private final Input[][] inputs;
+    private final Input<Boolean>[] filters;
+    private final RamAccounting ramAccounting;
+    private final ScopedRamAccounting statesRamAccounting;
+    private final ScopedRamAccounting tableRamAccounting;
+    private final MemoryManager memoryManager;
+    private final Version minNodeVersion;
+    private final Version indexVersionCreated;
+    private final List<Input<?>> keyInputs;
+    private final List<? extends DataType<?>> keyTypes;
+    private final int numKeyColumns;
+    private final Object[] keys;
+    private final Object[] newStates;
+    private final BiConsumer<Groups, Row> accumulator;
+
+    @Nullable
+    private final SpillFile.Factory spillFiles;
+    private final LongSupplier maxBytesInMemory;
+    private final List<SpillFile> openSpillFiles = new ArrayList<>();
+
+    /**
+     * The table keeps its memory once it's cleared. To not spill a few groups at a time if that memory alone exceeds
+     * the budget, at least half as many groups as on the previous spill must be added before spilling again.
+     */
+    private int minGroupsToSpill = 1;
+
+    /**
+     * @param spillDirectory directory for the spill files. If null, the groups must fit into memory.
+     * @param maxBytesInMemory the memory budget for the groups, the groups are spilled once it's exceeded.
+     */
+    public SpillableGroupingCollector(CollectExpression<Row, ?>[] expressions,
+                                      AggregateMode mode,
+                                      AggregationFunction[] aggregations,
+                                      Input[][] inputs,
+                                      Input<Boolean>[] filters,
+                                      RamAccounting ramAccounting,
+                                      MemoryManager memoryManager,
+                                      Version minNodeVersion,
+                                      List<Input<?>> keyInputs,
+                                      List<? extends DataType<?>> keyTypes,
+                                      Version indexVersionCreated,
+                                      @Nullable Path spillDirectory,
+                                      LongSupplier maxBytesInMemory) {
+        assert keyInputs.size() == keyTypes.size() : "number of key types must match with number of key inputs";
+        this.expressions = expressions;
+        this.aggregations = aggregations;
+        this.mode = mode;
+        this.inputs = inputs;
+        this.filters = filters;
+        this.ramAccounting = ramAccounting;
+        this.statesRamAccounting = new ScopedRamAccounting(ramAccounting);
+        this.tableRamAccounting = new ScopedRamAccounting(ramAccounting);
+        this.memoryManager = memoryManager;
+        this.minNodeVersion = minNodeVersion;
+        this.indexVersionCreated = indexVersionCreated;
+        this.keyInputs = keyInputs;
+        this.keyTypes = keyTypes;
+        this.numKeyColumns = keyTypes.size();
+        this.keys = new Object[numKeyColumns];
+        this.newStates = new Object[aggregations.length];
+        this.accumulator = mode == AggregateMode.PARTIAL_FINAL ? this::reduce : this::iter;
+        if (spillDirectory == null) {
+            this.spillFiles = null;
+        } else {
+            Streamer<?>[] streamers = new Streamer[numKeyColumns + aggregations.length];
+            for (int i = 0; i < numKeyColumns; i++) {
+                streamers[i] = keyTypes.get(i).streamer();
+            }
+            for (int i = 0; i < aggregations.length; i++) {
+                streamers[numKeyColumns + i] = aggregations[i].partialType().streamer();
+            }
+            this.spillFiles = SpillFile.factory(spillDirectory, streamers);
+        }
+        this.maxBytesInMemory = maxBytesInMemory;
+    }
+
+    @Override
+    public Supplier<Groups> supplier() {
+        return () -> new Groups(
+            GroupingHashTable.create(keyTypes, aggregations.length, tableRamAccounting, memoryManager),
+            0
+        );
+    }
+
+    @Override
+    public BiConsumer<Groups, Row> accumulator() {
+        return accumulator;
+    }
+
+    @Override
+    public BinaryOperator<Groups> combiner() {
+        return (state1, state2) -> {
+            throw new UnsupportedOperationException("combine not supported");
+        };
+    }
+
+    @Override
+    public Function<Groups, Iterable<Row>> finisher() {
+        return this::finish;
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void close() {
+        try {
+            IOUtils.close(openSpillFiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            openSpillFiles.clear();
+        }
+    }
+
+    private void iter(Groups groups, Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        for (int i = 0; i < numKeyColumns; i++) {
+            keys[i] = keyInputs.get(i).value();
+        }
+        GroupingHashTable table = groups.table;
+        int groupId = table.find(keys);
+        if (groupId >= 0) {
+            for (int i = 0; i < aggregations.length; i++) {
+                if (InputCondition.matches(filters[i])) {
+                    //noinspection unchecked
+                    table.setState(
+                        groupId,
+                        i,
+                        aggregations[i].iterate(statesRamAccounting, memoryManager, table.state(groupId, i), inputs[i])
+                    );
+                }
+            }
+            return;
+        }
+        maybeSpill(groups, keys);
+        try {
+            addNewGroup(table);
+        } catch (CircuitBreakingException e) {
+            if (groups.spill() == false) {
+                throw e;
+            }
+            table.find(keys);
+            addNewGroup(table);
+        }
+    }
+
+    /**
+     * Spills the groups before a new group is added if they exceed the memory budget.
+     * The key, which the table didn't contain, is looked up again after a spill to prepare the new group.
+     */
+    private void maybeSpill(Groups groups, Object[] key) {
+        GroupingHashTable table = groups.table;
+        if (table.size() >= minGroupsToSpill
+            && tableRamAccounting.totalBytes() + statesRamAccounting.totalBytes() >= maxBytesInMemory.getAsLong()
+            && groups.spill()) {
+            table.find(key);
+        }
+    }
+
+    /**
+     * Adds a group for the key of the last {@link GroupingHashTable#find(Object[])}.
+     * The states are created before the group is added, so that the table doesn't contain a group without states if
+     * the circuit breaker trips.
+     */
+    private void addNewGroup(GroupingHashTable table) {
+        for (int i = 0; i < aggregations.length; i++) {
+            AggregationFunction aggregation = aggregations[i];
+            var newState = aggregation.newState(statesRamAccounting, indexVersionCreated, minNodeVersion, memoryManager);
+            if (InputCondition.matches(filters[i])) {
+                //noinspection unchecked
+                newStates[i] = aggregation.iterate(statesRamAccounting, memoryManager, newState, inputs[i]);
+            } else {
+                newStates[i] = newState;
+            }
+        }
+        int groupId = table.add();
+        for (int i = 0; i < aggregations.length; i++) {
+            table.setState(groupId, i, newStates[i]);
+        }
+    }
+
+    private void reduce(Groups groups, Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        for (int i = 0; i < numKeyColumns; i++) {
+            keys[i] = keyInputs.get(i).value();
+        }
+        for (int i = 0; i < aggregations.length; i++) {
+            newStates[i] = inputs[i][0].value();
+        }
+        reduce(groups, keys, newStates, 0);
+    }
+
+    /**
+     * Merges partial states into the group of the key.
+     *
+     * @param states partial states, starting at {@code statesOffset}
+     */
+    private void reduce(Groups groups, Object[] key, Object[] states, int statesOffset) {
+        GroupingHashTable table = groups.table;
+        int groupId = table.find(key);
+        if (groupId >= 0) {
+            for (int i = 0; i < aggregations.length; i++) {
+                //noinspection unchecked
+                table.setState(
+                    groupId,
+                    i,
+                    aggregations[i].reduce(statesRamAccounting, table.state(groupId, i), states[statesOffset + i])
+                );
+            }
+            return;
+        }
+        maybeSpill(groups, key);
+        try {
+            groupId = table.add();
+        } catch (CircuitBreakingException e) {
+            if (groups.spill() == false) {
+                throw e;
+            }
+            table.find(key);
+            groupId = table.add();
+        }
+        for (int i = 0; i < aggregations.length; i++) {
+            table.setState(groupId, i, states[statesOffset + i]);
+        }
+    }
+
+    private Iterable<Row> finish(Groups groups) {
+        if (groups.partitions == null) {
+            return groups::rows;
+        }
+        groups.spill();
+        List<SpillFile> partitions = new ArrayList<>(NUM_PARTITIONS);
+        for (SpillFile partition : groups.partitions) {
+            if (partition != null) {
+                partitions.add(partition);
+            }
+        }
+        int level = groups.level + 1;
+        return Iterables.concat(Iterables.transform(partitions, partition -> () -> merge(groups.table, partition, level)));
+    }
+
+    /**
+     * Reads the groups of a partition back into the (cleared) table.
+     *
+     * @return an iterator over the rows of the merged groups
+     */
+    private Iterator<Row> merge(GroupingHashTable table, SpillFile partition, int level) {
+        table.clear();
+        statesRamAccounting.release();
+        Groups groups = new Groups(table, level);
+        try (CloseableIterator<Object[]> it = partition.read()) {
+            while (it.hasNext()) {
+                Object[] cells = it.next();
+                reduce(groups, cells, cells, numKeyColumns);
+            }
+        }
+        return finish(groups).iterator();
+    }
+
+    private int partitionIdx(int hash, int level) {
+        return (hash >>> (Integer.SIZE - PARTITION_BITS * (level + 1))) & (NUM_PARTITIONS - 1);
+    }
+
+    /**
+     * The groups of one level: The top level consumes the source rows, the levels below merge the spill files
+     * of a partition of their parent level.
+     */
+    final class Groups {
+
+        private final GroupingHashTable table;
+        private final int level;
+
+        @Nullable
+        private SpillFile[] partitions;
+
+        private Groups(GroupingHashTable table, int level) {
+            this.table = table;
+            this.level = level;
+        }
+
+        /**
+         * Writes all groups to the spill files of their partition and clears the table.
+         *
+         * @return false if the groups couldn't be spilled because spilling is disabled, the maximum level of
+         *         partitions is reached or because there are no groups.
+         */
+        private boolean spill() {
+            if (spillFiles == null || level >= MAX_SPILL_LEVELS || table.size() == 0) {
+                return false;
+            }
+            if (partitions == null) {
+                partitions = new SpillFile[NUM_PARTITIONS];
+            }
+            Object[] cells = new Object[numKeyColumns + aggregations.length];
+            for (int groupId = 0; groupId < table.size(); groupId++) {
+                table.readKey(groupId, cells);
+                for (int i = 0; i < aggregations.length; i++) {
+                    cells[numKeyColumns + i] = table.state(groupId, i);
+                }
+                int partitionIdx = partitionIdx(table.hash(groupId), level);
+                SpillFile partition = partitions[partitionIdx];
+                if (partition == null) {
+                    partition = newSpillFile();
+                    partitions[partitionIdx] = partition;
+                }
+                partition.add(cells);
+            }
+            minGroupsToSpill = Math.max(1, table.size() / 2);
+            table.clear();
+            statesRamAccounting.release();
+            return true;
+        }
+
+        private Iterator<Row> rows() {
+            return new Iterator<>() {
+
+                final int size = table.size();
+                final Object[] cells = new Object[numKeyColumns + aggregations.length];
+                final RowN row = new RowN(cells);
+                int groupId = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return groupId < size;
+                }
+
+                @Override
+                public Row next() {
+                    if (groupId >= size) {
+                        throw new NoSuchElementException("Iterator is exhausted");
+                    }
+                    table.readKey(groupId, cells);
+                    for (int i = 0; i < aggregations.length; i++) {
+                        //noinspection unchecked
+                        cells[numKeyColumns + i] = mode.finishCollect(ramAccounting, aggregations[i], table.state(groupId, i));
+                    }
+                    groupId++;
+                    return row;
+                }
+            };
+        }
+    }
+
+    private SpillFile newSpillFile() {
+        try {
+            SpillFile spillFile = Objects.requireNonNull(spillFiles, "spillFiles must not be null").newSpillFile();
+            openSpillFiles.add(spillFile);
+            return spillFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -133,6 +133,11 @@ public class ArbitraryAggregation extends AggregationFunction<Object, Object> {
         return state;
     }
 
+    @Override
+    public boolean hasImmutableStates() {
+        return true;
+    }
+
     @Nullable
     @Override
     public DocValueAggregator<?> getDocValueAggregator(List<Reference> aggregationReferences,
@@ -339,4 +339,9 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
     public Comparable terminatePartial(RamAccounting ramAccounting, Comparable state) {
         return state;
     }
+
+    @Override
+    public boolean hasImmutableStates() {
+        return true;
+    }
 }
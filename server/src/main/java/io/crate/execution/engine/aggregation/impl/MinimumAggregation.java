@@ -330,6 +330,11 @@ public abstract class MinimumAggregation extends AggregationFunction<Comparable,
         return state;
     }
 
+    @Override
+    public boolean hasImmutableStates() {
+        return true;
+    }
+
     @Override
     public Comparable iterate(RamAccounting ramAccounting,
                               MemoryManager memoryManager,
@@ -33,6 +33,7 @@ import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.dsl.projection.Projections;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.collect.collectors.SliceQuery;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.scalar.cast.ExplicitCastFunction;
 import io.crate.expression.symbol.Aggregation;
@@ -68,6 +69,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 public class DocValuesAggregates {
 
@@ -78,18 +80,36 @@ public class DocValuesAggregates {
                                                  LuceneQueryBuilder luceneQueryBuilder,
                                                  RoutedCollectPhase phase,
                                                  CollectTask collectTask) {
+        List<BatchIterator<Row>> iterators = tryOptimize(functions, indexShard, table, luceneQueryBuilder, phase, collectTask, 1);
+        return iterators == null ? null : iterators.get(0);
+    }
+
+    /**
+     * Like {@link #tryOptimize(Functions, IndexShard, DocTableInfo, LuceneQueryBuilder, RoutedCollectPhase, CollectTask)}
+     * but the shard is split into up to {@code maxSlices} slices if it is large enough, see {@link SliceQuery}.
+     * Each of the iterators emits one row with the partial results of its slice.
+     */
+    @Nullable
+    public static List<BatchIterator<Row>> tryOptimize(Functions functions,
+                                                       IndexShard indexShard,
+                                                       DocTableInfo table,
+                                                       LuceneQueryBuilder luceneQueryBuilder,
+                                                       RoutedCollectPhase phase,
+                                                       CollectTask collectTask,
+                                                       int maxSlices) {
         var shardProjections = Projections.shardProjections(phase.projections());
         AggregationProjection aggregateProjection = aggregateProjection(shardProjections);
         if (aggregateProjection == null) {
             return null;
         }
-        var aggregators = createAggregators(
+        Supplier<List<DocValueAggregator>> createAggregators = () -> createAggregators(
             functions,
             aggregateProjection.aggregations(),
             phase.toCollect(),
             collectTask.txnCtx().sessionSettings().searchPath(),
             table
         );
+        var aggregators = createAggregators.get();
         if (aggregators == null) {
             return null;
         }
@@ -107,7 +127,26 @@ public class DocValuesAggregates {
             table,
             shardContext.indexService().cache()
         );
+        IndexSearcher indexSearcher = searcher.item();
+        List<SliceQuery> slices = maxSlices > 1
+            ? SliceQuery.split(indexSearcher.getTopReaderContext().leaves(), maxSlices, SliceQuery.MIN_DOCS_PER_SLICE)
+            : List.of();
+        if (slices.isEmpty()) {
+            return List.of(aggregate(collectTask, indexSearcher, queryContext.query(), aggregators));
+        }
+        List<BatchIterator<Row>> iterators = new ArrayList<>(slices.size());
+        for (SliceQuery slice : slices) {
+            // aggregators hold the doc values of the current segment, each slice needs its own
+            List<DocValueAggregator> sliceAggregators = iterators.isEmpty() ? aggregators : createAggregators.get();
+            iterators.add(aggregate(collectTask, indexSearcher, slice.filter(queryContext.query()), sliceAggregators));
+        }
+        return iterators;
+    }
 
+    private static BatchIterator<Row> aggregate(CollectTask collectTask,
+                                                IndexSearcher searcher,
+                                                Query query,
+                                                List<DocValueAggregator> aggregators) {
         AtomicReference<Throwable> killed = new AtomicReference<>();
         return CollectingBatchIterator.newInstance(
             () -> killed.set(BatchIterator.CLOSED),
@@ -119,8 +158,8 @@ public class DocValuesAggregates {
                         collectTask.memoryManager(),
                         collectTask.minNodeVersion(),
                         killed,
-                        searcher.item(),
-                        queryContext.query(),
+                        searcher,
+                        query,
                         aggregators
                     ));
                 } catch (Throwable t) {
@@ -21,6 +21,7 @@
 
 package io.crate.execution.engine.collect;
 
+import java.util.List;
 import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
@@ -30,24 +31,31 @@ import io.crate.data.SentinelRow;
 import io.crate.metadata.NodeContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import io.crate.common.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.Projections;
 import io.crate.execution.engine.collect.collectors.LuceneBatchIterator;
+import io.crate.execution.engine.collect.collectors.MinMaxSegmentFilter;
 import io.crate.execution.engine.collect.collectors.LuceneOrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OptimizeQueryForSearchAfter;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
+import io.crate.execution.engine.collect.collectors.SliceQuery;
 import io.crate.execution.engine.sort.LuceneSortGenerator;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.execution.jobs.SharedShardContext;
@@ -75,6 +83,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     private final BigArrays bigArrays;
     private final FieldTypeLookup fieldTypeLookup;
     private final DocTableInfo table;
+    private final ShardResultCache shardResultCache;
 
     public LuceneShardCollectorProvider(Schemas schemas,
                                         LuceneQueryBuilder luceneQueryBuilder,
@@ -86,7 +95,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                                         Settings settings,
                                         TransportActionProvider transportActionProvider,
                                         IndexShard indexShard,
-                                        BigArrays bigArrays) {
+                                        BigArrays bigArrays,
+                                        ShardResultCache shardResultCache) {
         super(
             clusterService,
             circuitBreakerService,
@@ -119,12 +129,21 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             )
         );
         this.bigArrays = bigArrays;
+        this.shardResultCache = shardResultCache;
     }
 
     @Override
     protected BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                       boolean requiresScroll,
                                                       CollectTask collectTask) {
+        return getUnorderedIterators(collectPhase, requiresScroll, collectTask, 1).get(0);
+    }
+
+    @Override
+    protected List<BatchIterator<Row>> getUnorderedIterators(RoutedCollectPhase collectPhase,
+                                                             boolean requiresScroll,
+                                                             CollectTask collectTask,
+                                                             int maxSlices) {
         ShardId shardId = indexShard.shardId();
         SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(shardId);
         var searcher = sharedShardContext.acquireSearcher("unordered-iterator: " + formatSource(collectPhase));
@@ -134,7 +153,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
         // therefore skip it
         boolean isClosed = sharedShardContextShard.mapperService() == null;
         if (isClosed) {
-            return InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
+            return List.of(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
         }
         QueryShardContext queryShardContext = sharedShardContext.indexService().newQueryShardContext();
         LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
@@ -146,23 +165,99 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             table,
             sharedShardContext.indexService().cache()
         );
+        IndexSearcher indexSearcher = searcher.item();
+        MinMaxSegmentFilter segmentFilter = MinMaxSegmentFilter.create(collectPhase.where());
+        List<SliceQuery> slices = SliceQuery.split(indexSearcher.getTopReaderContext().leaves(), maxSlices, SliceQuery.MIN_DOCS_PER_SLICE);
+        if (slices.isEmpty()) {
+            return List.of(createLuceneBatchIterator(
+                collectPhase,
+                collectTask,
+                sharedShardContext,
+                indexSearcher,
+                queryContext.query(),
+                queryContext.minScore(),
+                segmentFilter
+            ));
+        }
+        LOGGER.debug("[{}] Collecting shard={} in {} slices", formatSource(collectPhase), shardId, slices.size());
+        return Lists2.map(slices, slice -> createLuceneBatchIterator(
+            collectPhase,
+            collectTask,
+            sharedShardContext,
+            indexSearcher,
+            slice.filter(queryContext.query()),
+            queryContext.minScore(),
+            segmentFilter
+        ));
+    }
+
+    private LuceneBatchIterator createLuceneBatchIterator(RoutedCollectPhase collectPhase,
+                                                          CollectTask collectTask,
+                                                          SharedShardContext sharedShardContext,
+                                                          IndexSearcher indexSearcher,
+                                                          Query query,
+                                                          @Nullable Float minScore,
+                                                          @Nullable MinMaxSegmentFilter segmentFilter) {
+        // Each iterator needs its own expressions, they hold the state of the current reader and document
         InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
             docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
-
         return new LuceneBatchIterator(
-            searcher.item(),
-            queryContext.query(),
-            queryContext.minScore(),
+            indexSearcher,
+            query,
+            minScore,
             Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
             new CollectorContext(sharedShardContext.readerId()),
             docCtx.topLevelInputs(),
-            docCtx.expressions()
+            docCtx.expressions(),
+            segmentFilter
         );
     }
 
     @Nullable
     @Override
     protected BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase, CollectTask collectTask) {
+        List<BatchIterator<Row>> iterators = getProjectionFusedIterators(normalizedPhase, collectTask, 1);
+        return iterators == null ? null : iterators.get(0);
+    }
+
+    @Nullable
+    @Override
+    protected List<BatchIterator<Row>> getProjectionFusedIterators(RoutedCollectPhase normalizedPhase,
+                                                                   CollectTask collectTask,
+                                                                   int maxSlices) {
+        if (!shardResultCache.enabled() || !Projections.hasAnyShardProjections(normalizedPhase.projections())) {
+            return createProjectionFusedIterators(normalizedPhase, collectTask, maxSlices);
+        }
+        ShardId shardId = indexShard.shardId();
+        ShardResultCache.Key cacheKey;
+        try (Engine.Searcher searcher = indexShard.acquireSearcher("shard-result-cache")) {
+            cacheKey = shardResultCache.key(shardId, searcher.getIndexReader(), normalizedPhase);
+        }
+        if (cacheKey != null) {
+            BatchIterator<Row> cachedRows = shardResultCache.getRows(cacheKey, normalizedPhase);
+            if (cachedRows != null) {
+                return List.of(cachedRows);
+            }
+        }
+        List<BatchIterator<Row>> iterators = createProjectionFusedIterators(normalizedPhase, collectTask, maxSlices);
+        if (iterators == null || cacheKey == null) {
+            return iterators;
+        }
+        // The shard may have been refreshed since the lookup, the result belongs to the reader used by the iterators
+        SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(shardId);
+        try (var searcher = sharedShardContext.acquireSearcher("shard-result-cache: " + formatSource(normalizedPhase))) {
+            cacheKey = shardResultCache.key(shardId, searcher.item().getIndexReader(), normalizedPhase);
+        }
+        if (cacheKey == null) {
+            return iterators;
+        }
+        return shardResultCache.putRows(cacheKey, normalizedPhase, iterators);
+    }
+
+    @Nullable
+    private List<BatchIterator<Row>> createProjectionFusedIterators(RoutedCollectPhase normalizedPhase,
+                                                                    CollectTask collectTask,
+                                                                    int maxSlices) {
         var it = GroupByOptimizedIterator.tryOptimizeSingleStringKey(
             indexShard,
             table,
@@ -175,7 +270,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             collectTask
         );
         if (it != null) {
-            return it;
+            return List.of(it);
         }
         it = DocValuesGroupByOptimizedIterator.tryOptimize(
             nodeCtx.functions(),
@@ -188,7 +283,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             collectTask
         );
         if (it != null) {
-            return it;
+            return List.of(it);
         }
         return DocValuesAggregates.tryOptimize(
             nodeCtx.functions(),
@@ -196,7 +291,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             table,
             luceneQueryBuilder,
             normalizedPhase,
-            collectTask
+            collectTask,
+            maxSlices
         );
     }
 
@@ -205,10 +301,17 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                                                    SharedShardContext sharedShardContext,
                                                    CollectTask collectTask,
                                                    boolean requiresRepeat) {
+        return getOrderedCollectors(phase, sharedShardContext, collectTask, requiresRepeat, 1).get(0);
+    }
+
+    @Override
+    protected List<OrderedDocCollector> getOrderedCollectors(RoutedCollectPhase phase,
+                                                             SharedShardContext sharedShardContext,
+                                                             CollectTask collectTask,
+                                                             boolean requiresRepeat,
+                                                             int maxSlices) {
         RoutedCollectPhase collectPhase = phase.normalize(shardNormalizer, collectTask.txnCtx());
 
-        CollectorContext collectorContext;
-        InputFactory.Context<? extends LuceneCollectorExpression<?>> ctx;
         var searcher = sharedShardContext.acquireSearcher("ordered-collector: " + formatSource(phase));
         collectTask.addSearcher(sharedShardContext.readerId(), searcher);
         IndexService indexService = sharedShardContext.indexService();
@@ -222,8 +325,6 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             table,
             indexService.cache()
         );
-        ctx = docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
-        collectorContext = new CollectorContext(sharedShardContext.readerId());
         int batchSize = collectPhase.shardQueueSize(localNodeId.get());
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("[{}][{}] creating LuceneOrderedDocCollector. Expected number of rows to be collected: {}",
@@ -231,6 +332,34 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                 sharedShardContext.indexShard().shardId(),
                 batchSize);
         }
+        IndexSearcher indexSearcher = searcher.item();
+        List<SliceQuery> slices = SliceQuery.split(indexSearcher.getTopReaderContext().leaves(), maxSlices, SliceQuery.MIN_DOCS_PER_SLICE);
+        if (slices.isEmpty()) {
+            return List.of(createOrderedDocCollector(
+                collectPhase, sharedShardContext, collectTask, indexSearcher, queryContext, queryContext.query(), batchSize));
+        }
+        LOGGER.debug("[{}] Collecting shard={} in {} sorted slices", formatSource(phase), indexShard.shardId(), slices.size());
+        return Lists2.map(slices, slice -> createOrderedDocCollector(
+            collectPhase,
+            sharedShardContext,
+            collectTask,
+            indexSearcher,
+            queryContext,
+            slice.filter(queryContext.query()),
+            batchSize
+        ));
+    }
+
+    private LuceneOrderedDocCollector createOrderedDocCollector(RoutedCollectPhase collectPhase,
+                                                                SharedShardContext sharedShardContext,
+                                                                CollectTask collectTask,
+                                                                IndexSearcher indexSearcher,
+                                                                LuceneQueryBuilder.Context queryContext,
+                                                                Query query,
+                                                                int batchSize) {
+        InputFactory.Context<? extends LuceneCollectorExpression<?>> ctx =
+            docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
+        CollectorContext collectorContext = new CollectorContext(sharedShardContext.readerId());
         OptimizeQueryForSearchAfter optimizeQueryForSearchAfter = new OptimizeQueryForSearchAfter(
             collectPhase.orderBy(),
             queryContext.queryShardContext(),
@@ -238,8 +367,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
         );
         return new LuceneOrderedDocCollector(
             indexShard.shardId(),
-            searcher.item(),
-            queryContext.query(),
+            indexSearcher,
+            query,
             queryContext.minScore(),
             Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
             batchSize,
@@ -21,6 +21,7 @@
 
 package io.crate.execution.engine.collect;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.Nullable;
@@ -33,6 +34,7 @@ import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import io.crate.analyze.WhereClause;
+import io.crate.common.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
@@ -102,20 +104,33 @@ public abstract class ShardCollectorProvider {
     public CompletableFuture<BatchIterator<Row>> getFutureIterator(RoutedCollectPhase collectPhase,
                                                                    boolean requiresScroll,
                                                                    CollectTask collectTask) throws Exception {
-        var futureIt = new CompletableFuture<BatchIterator<Row>>();
+        return getFutureIterators(collectPhase, requiresScroll, collectTask, 1).thenApply(its -> its.get(0));
+    }
+
+    /**
+     * Like {@link #getFutureIterator(RoutedCollectPhase, boolean, CollectTask)}, but the documents of the shard
+     * may be split into up to {@code maxSlices} iterators which can be consumed concurrently.
+     * The shard projections are applied to each of the iterators.
+     */
+    public CompletableFuture<List<BatchIterator<Row>>> getFutureIterators(RoutedCollectPhase collectPhase,
+                                                                          boolean requiresScroll,
+                                                                          CollectTask collectTask,
+                                                                          int maxSlices) throws Exception {
+        var futureIts = new CompletableFuture<List<BatchIterator<Row>>>();
         indexShard.awaitShardSearchActive(b -> {
             try {
-                futureIt.complete(getIterator(collectPhase, requiresScroll, collectTask));
+                futureIts.complete(getIterators(collectPhase, requiresScroll, collectTask, maxSlices));
             } catch (Throwable t) {
-                futureIt.completeExceptionally(t);
+                futureIts.completeExceptionally(t);
             }
         });
-        return futureIt;
+        return futureIts;
     }
 
-    private BatchIterator<Row> getIterator(RoutedCollectPhase collectPhase,
-                                           boolean requiresScroll,
-                                           CollectTask collectTask) throws Exception {
+    private List<BatchIterator<Row>> getIterators(RoutedCollectPhase collectPhase,
+                                                  boolean requiresScroll,
+                                                  CollectTask collectTask,
+                                                  int maxSlices) throws Exception {
         assert collectPhase.orderBy() == null
             : "getDocCollector shouldn't be called if there is an orderBy on the collectPhase";
         assert collectPhase.maxRowGranularity() == RowGranularity.DOC :
@@ -124,18 +139,20 @@ public abstract class ShardCollectorProvider {
         boolean isOpenIndex = indexShard.mapperService() != null;
         RoutedCollectPhase normalizedCollectNode = collectPhase.normalize(shardNormalizer, collectTask.txnCtx());
         if (isOpenIndex) {
-            BatchIterator<Row> fusedIterator = getProjectionFusedIterator(normalizedCollectNode, collectTask);
-            if (fusedIterator != null) {
-                return fusedIterator;
+            List<BatchIterator<Row>> fusedIterators = getProjectionFusedIterators(normalizedCollectNode, collectTask, maxSlices);
+            if (fusedIterators != null) {
+                return fusedIterators;
             }
         }
-        final BatchIterator<Row> iterator;
+        final List<BatchIterator<Row>> iterators;
         if (isOpenIndex && WhereClause.canMatch(normalizedCollectNode.where())) {
-            iterator = getUnorderedIterator(normalizedCollectNode, requiresScroll, collectTask);
+            iterators = maxSlices > 1
+                ? getUnorderedIterators(normalizedCollectNode, requiresScroll, collectTask, maxSlices)
+                : List.of(getUnorderedIterator(normalizedCollectNode, requiresScroll, collectTask));
         } else {
-            iterator = InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
+            iterators = List.of(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
         }
-        return Projectors.wrap(
+        return Lists2.map(iterators, iterator -> Projectors.wrap(
             Projections.shardProjections(collectPhase.projections()),
             collectPhase.jobId(),
             collectTask.txnCtx(),
@@ -143,10 +160,9 @@ public abstract class ShardCollectorProvider {
             collectTask.memoryManager(),
             projectorFactory,
             iterator
-        );
+        ));
     }
 
-
     /**
      * @return A BatchIterator which already applies the transformation described in the shardProjections of the collectPhase.
      *         This can be used to return a specialized BatchIterator for certain projections. If this returns null
@@ -156,18 +172,48 @@ public abstract class ShardCollectorProvider {
     protected abstract BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase,
                                                                      CollectTask collectTask);
 
+    /**
+     * Like {@link #getProjectionFusedIterator(RoutedCollectPhase, CollectTask)}, but the shard may be split
+     * into up to {@code maxSlices} iterators which can be consumed concurrently.
+     */
+    @Nullable
+    protected List<BatchIterator<Row>> getProjectionFusedIterators(RoutedCollectPhase normalizedPhase,
+                                                                   CollectTask collectTask,
+                                                                   int maxSlices) {
+        BatchIterator<Row> fusedIterator = getProjectionFusedIterator(normalizedPhase, collectTask);
+        return fusedIterator == null ? null : List.of(fusedIterator);
+    }
+
     protected abstract BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                                boolean requiresScroll,
                                                                CollectTask collectTask);
 
-    public final CompletableFuture<OrderedDocCollector> getFutureOrderedCollector(RoutedCollectPhase collectPhase,
-                                                                                  SharedShardContext sharedShardContext,
-                                                                                  CollectTask collectTask,
-                                                                                  boolean requiresRepeat) {
-        var futureIt = new CompletableFuture<OrderedDocCollector>();
+    /**
+     * Creates up to {@code maxSlices} iterators which together expose the same documents as
+     * {@link #getUnorderedIterator(RoutedCollectPhase, boolean, CollectTask)}.
+     */
+    protected List<BatchIterator<Row>> getUnorderedIterators(RoutedCollectPhase collectPhase,
+                                                             boolean requiresScroll,
+                                                             CollectTask collectTask,
+                                                             int maxSlices) {
+        return List.of(getUnorderedIterator(collectPhase, requiresScroll, collectTask));
+    }
+
+    /**
+     * Creates one or, if the shard is split into slices, up to {@code maxSlices} collectors.
+     * The documents of each collector are sorted, they need to be merged to get the sorted documents of the shard.
+     */
+    public final CompletableFuture<List<OrderedDocCollector>> getFutureOrderedCollectors(RoutedCollectPhase collectPhase,
+                                                                                         SharedShardContext sharedShardContext,
+                                                                                         CollectTask collectTask,
+                                                                                         boolean requiresRepeat,
+                                                                                         int maxSlices) {
+        var futureIt = new CompletableFuture<List<OrderedDocCollector>>();
         indexShard.awaitShardSearchActive(b -> {
             try {
-                futureIt.complete(getOrderedCollector(collectPhase, sharedShardContext, collectTask, requiresRepeat));
+                futureIt.complete(maxSlices > 1
+                    ? getOrderedCollectors(collectPhase, sharedShardContext, collectTask, requiresRepeat, maxSlices)
+                    : List.of(getOrderedCollector(collectPhase, sharedShardContext, collectTask, requiresRepeat)));
             } catch (Throwable t) {
                 futureIt.completeExceptionally(t);
             }
@@ -180,6 +226,14 @@ public abstract class ShardCollectorProvider {
                                                                CollectTask collectTask,
                                                                boolean requiresRepeat);
 
+    protected List<OrderedDocCollector> getOrderedCollectors(RoutedCollectPhase collectPhase,
+                                                             SharedShardContext sharedShardContext,
+                                                             CollectTask collectTask,
+                                                             boolean requiresRepeat,
+                                                             int maxSlices) {
+        return List.of(getOrderedCollector(collectPhase, sharedShardContext, collectTask, requiresRepeat));
+    }
+
     public ProjectorFactory getProjectorFactory() {
         return projectorFactory;
     }
@@ -0,0 +1,481 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.shard.ShardId;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+
+import io.crate.Streamer;
+import io.crate.common.annotations.VisibleForTesting;
+import io.crate.data.BatchIterator;
+import io.crate.data.ForwardingBatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.SentinelRow;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.FilterProjection;
+import io.crate.execution.dsl.projection.Projection;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.expression.symbol.Symbols;
+import io.crate.metadata.Functions;
+import io.crate.metadata.NodeContext;
+
+/**
+ * Node level cache for the results of shard level aggregations and counts.
+ *
+ * <p>
+ * Entries are keyed by the shard, a fingerprint of the normalized collect phase (or the filter of a count) and the
+ * {@link IndexReader.CacheKey} of the reader which was used to compute the result. Every refresh which makes changes
+ * visible opens a new reader, so a cached result is never used for a different state of the shard.
+ * Entries are removed once the reader they were computed with is closed.
+ * </p>
+ *
+ * <p>
+ * Results of phases which call non-deterministic or user-defined functions are not cached. User-defined functions can
+ * be replaced with a different body under the same signature, which the fingerprint wouldn't reflect.
+ * </p>
+ *
+ * <p>
+ * The cache is disabled by default. It pays off for aggregations which are repeated on shards that rarely change,
+ * e.g. older partitions of a partitioned table.
+ * </p>
+ */
+@Singleton
+public class ShardResultCache {
+
+    public static final Setting<ByteSizeValue> SHARD_RESULT_CACHE_SIZE_SETTING = Setting.byteSizeSetting(
+        "node.sql.shard_result_cache_size",
+        new ByteSizeValue(0),
+        Setting.Property.NodeScope);
+
+    /**
+     * Results larger than this fraction of the cache size are not cached, they would evict too many other entries.
+     */
+    private static final int MAX_ENTRY_FRACTION = 10;
+
+    private final Functions functions;
+    private final long maxSizeInBytes;
+    private final long maxEntrySizeInBytes;
+    private final Cache<Key, BytesReference> cache;
+    private final LongAdder sizeInBytes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Readers which have a listener to invalidate their entries once they're closed
+     */
+    private final Set<IndexReader.CacheKey> registeredReaders = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    public ShardResultCache(Settings settings, NodeContext nodeCtx) {
+        this(SHARD_RESULT_CACHE_SIZE_SETTING.get(settings).getBytes(), nodeCtx.functions());
+    }
+
+    @VisibleForTesting
+    public ShardResultCache(long maxSizeInBytes, Functions functions) {
+        this.functions = functions;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.maxEntrySizeInBytes = Math.min(maxSizeInBytes / MAX_ENTRY_FRACTION, Integer.MAX_VALUE);
+        this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(maxSizeInBytes)
+            .weigher((Key key, BytesReference value) -> key.weight() + value.length())
+            .removalListener(this::onRemoval)
+            .build();
+    }
+
+    private void onRemoval(RemovalNotification<Key, BytesReference> notification) {
+        sizeInBytes.add(-(notification.getKey().weight() + notification.getValue().length()));
+        if (notification.wasEvicted()) {
+            evictions.increment();
+        }
+    }
+
+    public boolean enabled() {
+        return maxSizeInBytes > 0;
+    }
+
+    /**
+     * @return the key for the result of the collect phase or null if the result cannot be cached.
+     */
+    @Nullable
+    public Key key(ShardId shardId, IndexReader reader, RoutedCollectPhase normalizedPhase) {
+        if (!enabled() || !isCacheable(normalizedPhase)) {
+            return null;
+        }
+        IndexReader.CacheKey readerKey = readerKey(reader);
+        if (readerKey == null) {
+            return null;
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            Symbols.toStream(normalizedPhase.where(), out);
+            Symbols.toStream(normalizedPhase.toCollect(), out);
+            var shardProjections = shardProjections(normalizedPhase);
+            out.writeVInt(shardProjections.size());
+            for (Projection projection : shardProjections) {
+                Projection.toStream(projection, out);
+            }
+            return new Key(shardId, readerKey, out.bytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the key for the count of the documents matching {@code filter} or null if the count cannot be cached.
+     */
+    @Nullable
+    public Key key(ShardId shardId, IndexReader reader, Symbol filter) {
+        if (!enabled() || !isCacheable(filter)) {
+            return null;
+        }
+        IndexReader.CacheKey readerKey = readerKey(reader);
+        if (readerKey == null) {
+            return null;
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            Symbols.toStream(filter, out);
+            return new Key(shardId, readerKey, out.bytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Nullable
+    private IndexReader.CacheKey readerKey(IndexReader reader) {
+        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        if (cacheHelper == null) {
+            return null;
+        }
+        IndexReader.CacheKey readerKey = cacheHelper.getKey();
+        if (registeredReaders.add(readerKey)) {
+            try {
+                cacheHelper.addClosedListener(this::invalidate);
+            } catch (AlreadyClosedException e) {
+                registeredReaders.remove(readerKey);
+                return null;
+            }
+        }
+        return readerKey;
+    }
+
+    private boolean isCacheable(RoutedCollectPhase phase) {
+        if (!isCacheable(phase.where()) || !isCacheable(phase.toCollect())) {
+            return false;
+        }
+        for (Projection projection : shardProjections(phase)) {
+            if (!isCacheable(projection.outputs())) {
+                return false;
+            }
+            if (projection instanceof FilterProjection filterProjection && !isCacheable(filterProjection.query())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isCacheable(Symbol symbol) {
+        return !SymbolVisitors.any(
+            s -> s instanceof Function function && (!function.isDeterministic() || isUserDefined(function)),
+            symbol
+        );
+    }
+
+    private boolean isCacheable(List<? extends Symbol> symbols) {
+        for (Symbol symbol : symbols) {
+            if (!isCacheable(symbol)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isUserDefined(Function function) {
+        return functions.udfFunctionResolvers().containsKey(function.fqnName());
+    }
+
+    private static List<Projection> shardProjections(RoutedCollectPhase phase) {
+        ArrayList<Projection> shardProjections = new ArrayList<>();
+        for (Projection projection : phase.projections()) {
+            if (Projection.IS_SHARD_PROJECTION.test(projection)) {
+                shardProjections.add(projection);
+            }
+        }
+        return shardProjections;
+    }
+
+    private static Streamer<?>[] streamers(RoutedCollectPhase phase) {
+        List<Projection> shardProjections = shardProjections(phase);
+        assert !shardProjections.isEmpty() : "Only the results of shard projections can be cached";
+        return Symbols.streamerArray(shardProjections.get(shardProjections.size() - 1).outputs());
+    }
+
+    /**
+     * @return an iterator over the cached rows of the collect phase or null if there is no entry.
+     */
+    @Nullable
+    public BatchIterator<Row> getRows(Key key, RoutedCollectPhase normalizedPhase) {
+        BytesReference bytes = cache.getIfPresent(key);
+        if (bytes == null) {
+            return null;
+        }
+        hits.increment();
+        Streamer<?>[] streamers = streamers(normalizedPhase);
+        ArrayList<Row> rows = new ArrayList<>();
+        try (StreamInput in = bytes.streamInput()) {
+            while (in.available() > 0) {
+                Object[] cells = new Object[streamers.length];
+                for (int i = 0; i < cells.length; i++) {
+                    cells[i] = streamers[i].readValueFrom(in);
+                }
+                rows.add(new RowN(cells));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return InMemoryBatchIterator.of(rows, SentinelRow.SENTINEL, false);
+    }
+
+    /**
+     * Wraps the iterators which compute the result of the collect phase.
+     * The rows are stored in the cache once all iterators are exhausted.
+     */
+    public List<BatchIterator<Row>> putRows(Key key, RoutedCollectPhase normalizedPhase, List<BatchIterator<Row>> iterators) {
+        misses.increment();
+        Streamer<?>[] streamers = streamers(normalizedPhase);
+        BytesReference[] results = new BytesReference[iterators.size()];
+        AtomicInteger remaining = new AtomicInteger(iterators.size());
+        ArrayList<BatchIterator<Row>> recordingIterators = new ArrayList<>(iterators.size());
+        for (int i = 0; i < iterators.size(); i++) {
+            int idx = i;
+            recordingIterators.add(new RecordingBatchIterator(iterators.get(i), streamers, maxEntrySizeInBytes, bytes -> {
+                if (bytes == null) {
+                    // Too large, the other iterators don't need to record anymore but it's not worth to stop them
+                    remaining.set(Integer.MIN_VALUE);
+                    return;
+                }
+                results[idx] = bytes;
+                if (remaining.decrementAndGet() == 0) {
+                    put(key, new CompositeBytesReference(results));
+                }
+            }));
+        }
+        return recordingIterators;
+    }
+
+    @Nullable
+    public Long getCount(Key key) {
+        BytesReference bytes = cache.getIfPresent(key);
+        if (bytes == null) {
+            return null;
+        }
+        hits.increment();
+        try (StreamInput in = bytes.streamInput()) {
+            return in.readVLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void putCount(Key key, long count) {
+        misses.increment();
+        try (BytesStreamOutput out = new BytesStreamOutput(8)) {
+            out.writeVLong(count);
+            put(key, out.bytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void put(Key key, BytesReference bytes) {
+        if (key.weight() + bytes.length() > maxEntrySizeInBytes) {
+            return;
+        }
+        sizeInBytes.add(key.weight() + bytes.length());
+        cache.put(key, bytes);
+    }
+
+    private void invalidate(IndexReader.CacheKey readerKey) {
+        registeredReaders.remove(readerKey);
+        cache.asMap().keySet().removeIf(key -> key.readerKey == readerKey);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long sizeInBytes() {
+        return sizeInBytes.sum();
+    }
+
+    public long maxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public static final class Key {
+
+        private final ShardId shardId;
+        private final IndexReader.CacheKey readerKey;
+        private final BytesReference fingerprint;
+
+        private Key(ShardId shardId, IndexReader.CacheKey readerKey, BytesReference fingerprint) {
+            this.shardId = shardId;
+            this.readerKey = readerKey;
+            this.fingerprint = fingerprint;
+        }
+
+        private int weight() {
+            return fingerprint.length();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return readerKey == key.readerKey
+                   && shardId.equals(key.shardId)
+                   && fingerprint.equals(key.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = shardId.hashCode();
+            result = 31 * result + readerKey.hashCode();
+            result = 31 * result + fingerprint.hashCode();
+            return result;
+        }
+    }
+
+    private static final class RecordingBatchIterator extends ForwardingBatchIterator<Row> {
+
+        private final BatchIterator<Row> delegate;
+        private final Streamer<?>[] streamers;
+        private final long maxSizeInBytes;
+        private final Consumer<BytesReference> onCompletion;
+
+        @Nullable
+        private BytesStreamOutput out = new BytesStreamOutput();
+
+        private RecordingBatchIterator(BatchIterator<Row> delegate,
+                                       Streamer<?>[] streamers,
+                                       long maxSizeInBytes,
+                                       Consumer<BytesReference> onCompletion) {
+            this.delegate = delegate;
+            this.streamers = streamers;
+            this.maxSizeInBytes = maxSizeInBytes;
+            this.onCompletion = onCompletion;
+        }
+
+        @Override
+        protected BatchIterator<Row> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public void moveToStart() {
+            super.moveToStart();
+            out = null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean moveNext() {
+            if (delegate.moveNext()) {
+                if (out != null) {
+                    // The states of the row may be changed by the consumer, they must be written immediately
+                    Row row = delegate.currentElement();
+                    try {
+                        for (int i = 0; i < streamers.length; i++) {
+                            ((Streamer<Object>) streamers[i]).writeValueTo(out, row.get(i));
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (out.size() > maxSizeInBytes) {
+                        out = null;
+                        onCompletion.accept(null);
+                    }
+                }
+                return true;
+            }
+            if (out != null && delegate.allLoaded()) {
+                BytesReference bytes = out.bytes();
+                out = null;
+                onCompletion.accept(bytes);
+            }
+            return false;
+        }
+
+        @Override
+        public void kill(@Nonnull Throwable throwable) {
+            out = null;
+            super.kill(throwable);
+        }
+    }
+}
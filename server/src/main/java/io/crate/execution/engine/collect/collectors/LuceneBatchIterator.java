@@ -50,6 +50,7 @@ import java.util.concurrent.CompletionStage;
 /**
  * BatchIterator implementation which exposes the data stored in a lucene index.
  * It supports filtering the data using a lucene {@link Query} or via {@code minScore}.
+ * Segments which can't match the query according to the {@link MinMaxSegmentFilter} are skipped.
  * <p>
  * Row data depends on {@code inputs} and {@code expressions}. The data is unordered.
  */
@@ -64,6 +65,8 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
     private final InputRow row;
     private Weight weight;
     private final Float minScore;
+    @Nullable
+    private final MinMaxSegmentFilter segmentFilter;
 
     private Iterator<LeafReaderContext> leavesIt;
     private LeafReaderContext currentLeaf;
@@ -77,8 +80,10 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
                                boolean doScores,
                                CollectorContext collectorContext,
                                List<? extends Input<?>> inputs,
-                               Collection<? extends LuceneCollectorExpression<?>> expressions) {
+                               Collection<? extends LuceneCollectorExpression<?>> expressions,
+                               @Nullable MinMaxSegmentFilter segmentFilter) {
         this.indexSearcher = indexSearcher;
+        this.segmentFilter = segmentFilter;
         this.query = query;
         this.doScores = doScores || minScore != null;
         this.minScore = minScore;
@@ -146,6 +151,9 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
         }
         while (leavesIt.hasNext()) {
             LeafReaderContext leaf = leavesIt.next();
+            if (segmentFilter != null && !segmentFilter.canMatch(leaf.reader())) {
+                continue;
+            }
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
@@ -0,0 +1,196 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.Reference;
+import io.crate.metadata.RowGranularity;
+import io.crate.types.ByteType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Skips segments which can't match a query, because the range of values a segment contains for
+ * an integral or timestamp column is disjoint from a `=`, `<`, `<=`, `>` or `>=` comparison of the
+ * query on that column.
+ * <p>
+ * The minimum and maximum values of a column are taken from the {@link PointValues} of a segment.
+ * Segments are immutable, so they always reflect the segments a searcher sees after refreshes and merges.
+ * Only comparisons which are part of the top-level conjunction of the query are considered.
+ */
+public final class MinMaxSegmentFilter {
+
+    private final List<Comparison> comparisons;
+
+    private MinMaxSegmentFilter(List<Comparison> comparisons) {
+        this.comparisons = comparisons;
+    }
+
+    /**
+     * @return a filter for the comparisons of the query, or null if the query contains none which can be used.
+     */
+    @Nullable
+    public static MinMaxSegmentFilter create(Symbol query) {
+        List<Comparison> comparisons = new ArrayList<>();
+        addComparisons(query, comparisons);
+        return comparisons.isEmpty() ? null : new MinMaxSegmentFilter(comparisons);
+    }
+
+    private static void addComparisons(Symbol query, List<Comparison> comparisons) {
+        if (!(query instanceof Function)) {
+            return;
+        }
+        Function function = (Function) query;
+        List<Symbol> args = function.arguments();
+        switch (function.name()) {
+            case AndOperator.NAME:
+                for (Symbol arg : args) {
+                    addComparisons(arg, comparisons);
+                }
+                break;
+
+            case EqOperator.NAME:
+            case GtOperator.NAME:
+            case GteOperator.NAME:
+            case LtOperator.NAME:
+            case LteOperator.NAME: {
+                Comparison comparison;
+                if (args.get(0) instanceof Reference && args.get(1) instanceof Literal) {
+                    comparison = Comparison.of(function.name(), (Reference) args.get(0), (Literal<?>) args.get(1));
+                } else if (args.get(0) instanceof Literal && args.get(1) instanceof Reference) {
+                    comparison = Comparison.of(flip(function.name()), (Reference) args.get(1), (Literal<?>) args.get(0));
+                } else {
+                    comparison = null;
+                }
+                if (comparison != null) {
+                    comparisons.add(comparison);
+                }
+                break;
+            }
+
+            default:
+                break;
+        }
+    }
+
+    private static String flip(String operator) {
+        return switch (operator) {
+            case GtOperator.NAME -> LtOperator.NAME;
+            case GteOperator.NAME -> LteOperator.NAME;
+            case LtOperator.NAME -> GtOperator.NAME;
+            case LteOperator.NAME -> GteOperator.NAME;
+            default -> operator;
+        };
+    }
+
+    /**
+     * @return false if none of the documents of the segment can match the query.
+     */
+    public boolean canMatch(LeafReader reader) throws IOException {
+        for (Comparison comparison : comparisons) {
+            PointValues values = reader.getPointValues(comparison.field);
+            // No points if the segment has no values for the column or if the column isn't indexed
+            if (values == null
+                || values.getNumIndexDimensions() != 1
+                || values.getBytesPerDimension() != comparison.bytesPerDimension()) {
+                continue;
+            }
+            long min = comparison.decode(values.getMinPackedValue());
+            long max = comparison.decode(values.getMaxPackedValue());
+            if (!comparison.canMatch(min, max)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Comparison {
+
+        private final String operator;
+        private final String field;
+        private final boolean intPoint;
+        private final long value;
+
+        private Comparison(String operator, String field, boolean intPoint, long value) {
+            this.operator = operator;
+            this.field = field;
+            this.intPoint = intPoint;
+            this.value = value;
+        }
+
+        @Nullable
+        static Comparison of(String operator, Reference ref, Literal<?> literal) {
+            Object value = literal.value();
+            if (ref.granularity() != RowGranularity.DOC
+                || !(value instanceof Number)
+                || literal.valueType().id() != ref.valueType().id()) {
+                return null;
+            }
+            String field = ref.column().fqn();
+            return switch (ref.valueType().id()) {
+                case ByteType.ID, ShortType.ID, IntegerType.ID ->
+                    new Comparison(operator, field, true, ((Number) value).longValue());
+                case LongType.ID, TimestampType.ID_WITH_TZ, TimestampType.ID_WITHOUT_TZ ->
+                    new Comparison(operator, field, false, ((Number) value).longValue());
+                default -> null;
+            };
+        }
+
+        int bytesPerDimension() {
+            return intPoint ? Integer.BYTES : Long.BYTES;
+        }
+
+        long decode(byte[] packedValue) {
+            return intPoint ? IntPoint.decodeDimension(packedValue, 0) : LongPoint.decodeDimension(packedValue, 0);
+        }
+
+        boolean canMatch(long min, long max) {
+            return switch (operator) {
+                case EqOperator.NAME -> min <= value && value <= max;
+                case GtOperator.NAME -> max > value;
+                case GteOperator.NAME -> max >= value;
+                case LtOperator.NAME -> min < value;
+                case LteOperator.NAME -> min <= value;
+                default -> true;
+            };
+        }
+    }
+}
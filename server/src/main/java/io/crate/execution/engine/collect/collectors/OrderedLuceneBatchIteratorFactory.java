@@ -22,7 +22,6 @@
 package io.crate.execution.engine.collect.collectors;
 
 import io.crate.breaker.RowAccounting;
-import io.crate.common.collections.Lists2;
 import io.crate.concurrent.KillableCompletionStage;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
@@ -33,17 +32,15 @@ import io.crate.execution.engine.distribution.merge.PassThroughPagingIterator;
 import io.crate.execution.engine.distribution.merge.RamAccountingPageIterator;
 import io.crate.execution.engine.distribution.merge.SortedPagingIterator;
 import io.crate.execution.support.ThreadPools;
-import org.elasticsearch.index.shard.ShardId;
 
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
-import java.util.function.Function;
 import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 import static java.util.Collections.singletonList;
 
@@ -68,8 +65,7 @@ public class OrderedLuceneBatchIteratorFactory {
         private final List<OrderedDocCollector> orderedDocCollectors;
         private final Executor executor;
         private final IntSupplier availableThreads;
-        private final PagingIterator<ShardId, Row> pagingIterator;
-        private final Map<ShardId, OrderedDocCollector> collectorsByShardId;
+        private final PagingIterator<Integer, Row> pagingIterator;
 
         Factory(List<OrderedDocCollector> orderedDocCollectors,
                 Comparator<Row> rowComparator,
@@ -84,9 +80,7 @@ public class OrderedLuceneBatchIteratorFactory {
                 pagingIterator = requiresScroll ?
                     new RamAccountingPageIterator<>(PassThroughPagingIterator.repeatable(), rowAccounting)
                     : PassThroughPagingIterator.oneShot();
-                collectorsByShardId = null;
             } else {
-                collectorsByShardId = toMapByShardId(orderedDocCollectors);
                 pagingIterator = new RamAccountingPageIterator<>(
                     new SortedPagingIterator<>(rowComparator, requiresScroll),
                     rowAccounting
@@ -103,33 +97,48 @@ public class OrderedLuceneBatchIteratorFactory {
             );
         }
 
-        private KillableCompletionStage<List<KeyIterable<ShardId, Row>>> tryFetchMore(ShardId shardId) {
+        /**
+         * @param idx the position of the collector within {@link #orderedDocCollectors} from which more rows
+         *            are needed or null to load rows from all collectors.
+         *            A shard may have several collectors, one for each slice, so the position is used as key
+         *            instead of the shardId.
+         */
+        private KillableCompletionStage<List<KeyIterable<Integer, Row>>> tryFetchMore(Integer idx) {
             if (allExhausted()) {
                 return KillableCompletionStage.whenKilled(
                     CompletableFuture.failedFuture(new IllegalStateException("Cannot fetch more if source is exhausted")),
                     t -> { });
             }
-            CompletionStage<List<KeyIterable<ShardId, Row>>> stage;
-            if (shardId == null) {
+            CompletionStage<List<KeyIterable<Integer, Row>>> stage;
+            if (idx == null) {
+                List<Supplier<KeyIterable<Integer, Row>>> suppliers = new ArrayList<>(orderedDocCollectors.size());
+                for (int i = 0; i < orderedDocCollectors.size(); i++) {
+                    int collectorIdx = i;
+                    suppliers.add(() -> collect(collectorIdx));
+                }
                 // when running inside threads, the threads must be cancelled/interrupted to stop further processing
                 stage = ThreadPools.runWithAvailableThreads(
                         executor,
                         availableThreads,
-                        Lists2.map(orderedDocCollectors, Function.identity()));
+                        suppliers);
             } else {
-                stage = loadFrom(collectorsByShardId.get(shardId));
+                stage = loadFrom(idx);
             }
             return KillableCompletionStage.whenKilled(stage, this::kill);
         }
 
-        private static CompletionStage<List<KeyIterable<ShardId, Row>>> loadFrom(OrderedDocCollector collector) {
+        private CompletionStage<List<KeyIterable<Integer, Row>>> loadFrom(int idx) {
             try {
-                return CompletableFuture.completedFuture(singletonList(collector.get()));
+                return CompletableFuture.completedFuture(singletonList(collect(idx)));
             } catch (Exception e) {
                 return CompletableFuture.failedFuture(e);
             }
         }
 
+        private KeyIterable<Integer, Row> collect(int idx) {
+            return new KeyIterable<>(idx, orderedDocCollectors.get(idx).get());
+        }
+
         private void close() {
             for (OrderedDocCollector collector : orderedDocCollectors) {
                 collector.close();
@@ -151,13 +160,4 @@ public class OrderedLuceneBatchIteratorFactory {
             }
         }
     }
-
-
-    private static Map<ShardId, OrderedDocCollector> toMapByShardId(List<OrderedDocCollector> collectors) {
-        Map<ShardId, OrderedDocCollector> collectorsByShardId = new HashMap<>(collectors.size());
-        for (OrderedDocCollector collector : collectors) {
-            collectorsByShardId.put(collector.shardId(), collector);
-        }
-        return collectorsByShardId;
-    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+
+/**
+ * Query which matches all documents within a slice of a shard.
+ *
+ * <p>
+ * A slice consists of one or more consecutive ranges of doc ids. A range covers a whole segment
+ * or, if a segment is larger than a slice, a part of it. The slices of a shard can be collected
+ * concurrently by combining them with the actual query, see {@link #filter(Query)}.
+ * </p>
+ *
+ * <p>
+ * The doc ids are relative to the segments of the reader which has been used to create the slices,
+ * the query must only be used with a searcher on the same reader.
+ * </p>
+ */
+public final class SliceQuery extends Query {
+
+    /**
+     * Shards with less documents per slice aren't split, because the overhead to collect the slices
+     * concurrently outweighs the gain. Same as the limit Lucene uses for {@link IndexSearcher#slices(List)}.
+     */
+    public static final int MIN_DOCS_PER_SLICE = 250_000;
+
+    /**
+     * Doc id ranges indexed by the ord of the leaf; -1 if the leaf is not part of the slice.
+     */
+    private final int[] minDocs;
+    private final int[] maxDocs;
+
+    private SliceQuery(int[] minDocs, int[] maxDocs) {
+        this.minDocs = minDocs;
+        this.maxDocs = maxDocs;
+    }
+
+    /**
+     * Splits the leaves into up to {@code maxSlices} slices of roughly the same number of documents.
+     *
+     * @return the slices, or an empty list if the leaves shouldn't be split into more than one slice.
+     */
+    public static List<SliceQuery> split(List<LeafReaderContext> leaves, int maxSlices, int minDocsPerSlice) {
+        long numDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            numDocs += leaf.reader().maxDoc();
+        }
+        int numSlices = (int) Math.min(maxSlices, numDocs / Math.max(minDocsPerSlice, 1));
+        if (numSlices < 2) {
+            return List.of();
+        }
+        long docsPerSlice = (numDocs + numSlices - 1) / numSlices;
+        List<SliceQuery> slices = new ArrayList<>(numSlices);
+        int[] minDocs = newRanges(leaves.size());
+        int[] maxDocs = newRanges(leaves.size());
+        long remaining = docsPerSlice;
+        for (LeafReaderContext leaf : leaves) {
+            int maxDoc = leaf.reader().maxDoc();
+            int doc = 0;
+            while (doc < maxDoc) {
+                int end = (int) Math.min(maxDoc, doc + remaining);
+                minDocs[leaf.ord] = doc;
+                maxDocs[leaf.ord] = end;
+                remaining -= end - doc;
+                doc = end;
+                if (remaining == 0) {
+                    slices.add(new SliceQuery(minDocs, maxDocs));
+                    minDocs = newRanges(leaves.size());
+                    maxDocs = newRanges(leaves.size());
+                    remaining = docsPerSlice;
+                }
+            }
+        }
+        if (remaining < docsPerSlice) {
+            slices.add(new SliceQuery(minDocs, maxDocs));
+        }
+        return slices;
+    }
+
+    private static int[] newRanges(int numLeaves) {
+        int[] ranges = new int[numLeaves];
+        Arrays.fill(ranges, -1);
+        return ranges;
+    }
+
+    /**
+     * @return a query which matches the documents of {@code query} within this slice.
+     */
+    public Query filter(Query query) {
+        return new BooleanQuery.Builder()
+            .add(query, BooleanClause.Occur.MUST)
+            .add(this, BooleanClause.Occur.FILTER)
+            .build();
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return new ConstantScoreWeight(this, boost) {
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                int ord = context.ord;
+                if (ord >= minDocs.length || minDocs[ord] == -1) {
+                    return null;
+                }
+                return new ConstantScoreScorer(this, score(), scoreMode, DocIdSetIterator.range(minDocs[ord], maxDocs[ord]));
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                // The slices are specific to a single query execution
+                return false;
+            }
+
+            @Override
+            public void extractTerms(Set<Term> terms) {
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        visitor.visitLeaf(this);
+    }
+
+    @Override
+    public String toString(String field) {
+        StringBuilder sb = new StringBuilder("slice(");
+        for (int i = 0; i < minDocs.length; i++) {
+            if (minDocs[i] != -1) {
+                sb.append('[').append(i).append(':').append(minDocs[i]).append('-').append(maxDocs[i]).append(')');
+            }
+        }
+        return sb.append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SliceQuery that = (SliceQuery) o;
+        return Arrays.equals(minDocs, that.minDocs) && Arrays.equals(maxDocs, that.maxDocs);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(minDocs) + Arrays.hashCode(maxDocs);
+    }
+}
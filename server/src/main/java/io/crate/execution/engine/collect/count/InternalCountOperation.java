@@ -26,6 +26,7 @@ import com.carrotsearch.hppc.cursors.IntCursor;
 
 import io.crate.concurrent.CompletableFutures;
 import io.crate.exceptions.JobKilledException;
+import io.crate.execution.engine.collect.ShardResultCache;
 import io.crate.execution.support.ThreadPools;
 import io.crate.expression.symbol.Symbol;
 import io.crate.lucene.LuceneQueryBuilder;
@@ -70,6 +71,7 @@ public class InternalCountOperation implements CountOperation {
     private final ThreadPoolExecutor executor;
     private final int numProcessors;
     private final Schemas schemas;
+    private final ShardResultCache shardResultCache;
 
     @Inject
     public InternalCountOperation(Settings settings,
@@ -77,8 +79,10 @@ public class InternalCountOperation implements CountOperation {
                                   LuceneQueryBuilder queryBuilder,
                                   ClusterService clusterService,
                                   ThreadPool threadPool,
-                                  IndicesService indicesService) {
+                                  IndicesService indicesService,
+                                  ShardResultCache shardResultCache) {
         this.schemas = schemas;
+        this.shardResultCache = shardResultCache;
         this.queryBuilder = queryBuilder;
         this.clusterService = clusterService;
         executor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
@@ -145,6 +149,13 @@ public class InternalCountOperation implements CountOperation {
                            TransactionContext txnCtx,
                            Symbol filter) {
         try (Engine.Searcher searcher = indexShard.acquireSearcher("count-operation")) {
+            ShardResultCache.Key cacheKey = shardResultCache.key(indexShard.shardId(), searcher.getIndexReader(), filter);
+            if (cacheKey != null) {
+                Long cachedCount = shardResultCache.getCount(cacheKey);
+                if (cachedCount != null) {
+                    return cachedCount;
+                }
+            }
             String indexName = indexShard.shardId().getIndexName();
             var relationName = RelationName.fromIndexName(indexName);
             DocTableInfo table = schemas.getTableInfo(relationName, Operation.READ);
@@ -160,7 +171,11 @@ public class InternalCountOperation implements CountOperation {
             if (Thread.interrupted()) {
                 throw JobKilledException.of("thread interrupted during count-operation");
             }
-            return searcher.count(queryCtx.query());
+            int count = searcher.count(queryCtx.query());
+            if (cacheKey != null) {
+                shardResultCache.putCount(cacheKey, count);
+            }
+            return count;
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -0,0 +1,377 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import io.crate.analyze.CopyFromParserProperties;
+import io.crate.breaker.MapSizeEstimator;
+import io.crate.breaker.RamAccounting;
+import io.crate.common.CheckedSupplier;
+import io.crate.exceptions.Exceptions;
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
+import io.crate.execution.support.ThreadPools;
+import io.crate.expression.reference.file.LineContext;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads an uncompressed file in chunks: byte ranges whose boundaries are moved to the start of the next line.
+ *
+ * Up to {@code parallelism} chunks are read and parsed concurrently. Each boundary is located once and shared
+ * by the two chunks adjacent to it. If the source is used as map, the lines are also decoded by the chunk tasks.
+ * The lines are handed out in the order of the file, so that the line numbers are the same as if
+ * the file had been read sequentially by {@link FileReadingIterator}.
+ *
+ * A chunk is accounted on the {@link RamAccounting} once it is handed out and released once all its lines
+ * have been consumed.
+ *
+ * Not thread-safe, only the parsing of the chunks is done by the executor.
+ */
+final class ChunkedLineReader {
+
+    static final long DEFAULT_BYTES_PER_CHUNK = 8 * 1024 * 1024;
+    private static final int PROBE_SIZE = 16 * 1024;
+
+    private final FileInput fileInput;
+    private final URI uri;
+    private final long size;
+    private final long bytesPerChunk;
+    private final int numChunks;
+    private final int parallelism;
+    private final Executor executor;
+    private final CopyFromParserProperties parserProperties;
+    private final FileUriCollectPhase.InputFormat inputFormat;
+    private final boolean decodeSource;
+    private final RamAccounting ramAccounting;
+    @Nullable
+    private final String header;
+    private final ArrayDeque<CompletableFuture<Chunk>> pendingChunks;
+
+    private int nextChunk = 0;
+    private CompletableFuture<Long> nextChunkStart = CompletableFuture.completedFuture(0L);
+    @Nullable
+    private Chunk currentChunk;
+    private int currentLine;
+    private int currentFailure;
+
+    /**
+     * @param decodeSource if true, the chunk tasks also decode the lines into maps.
+     * @return the reader or null if the file cannot be read in chunks or is too small to be split.
+     */
+    @Nullable
+    static ChunkedLineReader open(FileInput fileInput,
+                                  URI uri,
+                                  Executor executor,
+                                  long bytesPerChunk,
+                                  CopyFromParserProperties parserProperties,
+                                  FileUriCollectPhase.InputFormat inputFormat,
+                                  boolean decodeSource,
+                                  RamAccounting ramAccounting) throws IOException {
+        long size = fileInput.size(uri);
+        if (size < 2 * bytesPerChunk) {
+            return null;
+        }
+        String header = null;
+        if (LineParser.isInputCsv(inputFormat, uri)) {
+            long headerEnd = alignToLine(fileInput, uri, size, 1);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                fileInput.getStream(uri, 0, headerEnd), StandardCharsets.UTF_8))) {
+                header = reader.readLine();
+            }
+            // validates the header upfront, the chunks parse it again
+            new LineParser(parserProperties).readFirstLine(uri, inputFormat, header);
+        }
+        return new ChunkedLineReader(
+            fileInput,
+            uri,
+            size,
+            executor,
+            bytesPerChunk,
+            parserProperties,
+            inputFormat,
+            decodeSource,
+            ramAccounting,
+            header
+        );
+    }
+
+    private ChunkedLineReader(FileInput fileInput,
+                              URI uri,
+                              long size,
+                              Executor executor,
+                              long bytesPerChunk,
+                              CopyFromParserProperties parserProperties,
+                              FileUriCollectPhase.InputFormat inputFormat,
+                              boolean decodeSource,
+                              RamAccounting ramAccounting,
+                              @Nullable String header) {
+        this.fileInput = fileInput;
+        this.uri = uri;
+        this.size = size;
+        this.bytesPerChunk = bytesPerChunk;
+        this.numChunks = Math.toIntExact((size + bytesPerChunk - 1) / bytesPerChunk);
+        this.parallelism = parserProperties.parallelism();
+        this.executor = executor;
+        this.parserProperties = parserProperties;
+        this.inputFormat = inputFormat;
+        this.decodeSource = decodeSource;
+        this.ramAccounting = ramAccounting;
+        this.header = header;
+        this.pendingChunks = new ArrayDeque<>(parallelism);
+        scheduleChunks();
+    }
+
+    /**
+     * Moves to the next line and applies it to the lineProcessor.
+     *
+     * @return false if there are no lines left or if the next chunk hasn't been parsed yet.
+     *         Use {@link #isFinished()} to tell the two apart and {@link #loadNextChunk()} to wait for the next chunk.
+     * @throws IOException if the next chunk couldn't be read. The remaining chunks are skipped.
+     */
+    boolean moveNext(LineProcessor lineProcessor) throws IOException {
+        while (true) {
+            if (currentChunk != null && currentLine < currentChunk.lines.size()) {
+                int line = currentLine++;
+                byte[] rawSource = currentChunk.lines.get(line);
+                if (rawSource == null) {
+                    lineProcessor.processFailure(currentChunk.failures.get(currentFailure++));
+                } else {
+                    lineProcessor.process(rawSource, currentChunk.sources.get(line));
+                }
+                return true;
+            }
+            releaseCurrentChunk();
+            CompletableFuture<Chunk> next = pendingChunks.peek();
+            if (next == null || !next.isDone()) {
+                return false;
+            }
+            pendingChunks.poll();
+            Chunk chunk = join(next);
+            ramAccounting.addBytes(chunk.bytes);
+            currentChunk = chunk;
+            currentLine = 0;
+            currentFailure = 0;
+            scheduleChunks();
+        }
+    }
+
+    boolean isFinished() {
+        return currentChunk == null && pendingChunks.isEmpty();
+    }
+
+    /**
+     * @return a future which completes once the next chunk has been parsed (successfully or not)
+     */
+    CompletableFuture<?> loadNextChunk() {
+        CompletableFuture<Chunk> next = pendingChunks.peek();
+        if (next == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return next.handle((chunk, err) -> null);
+    }
+
+    /**
+     * Skips all remaining chunks. Chunks which are already being parsed are discarded once done.
+     */
+    void close() {
+        nextChunk = numChunks;
+        releaseCurrentChunk();
+        pendingChunks.clear();
+    }
+
+    private void releaseCurrentChunk() {
+        if (currentChunk != null) {
+            ramAccounting.addBytes(- currentChunk.bytes);
+            currentChunk = null;
+        }
+    }
+
+    private Chunk join(CompletableFuture<Chunk> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            return Exceptions.rethrowRuntimeException(cause);
+        }
+    }
+
+    /**
+     * Schedules the next chunks. The end of a chunk is located by its own task and is the start of the following
+     * chunk, which is read once both of its boundaries are known.
+     */
+    private void scheduleChunks() {
+        while (nextChunk < numChunks && pendingChunks.size() < parallelism) {
+            int chunkIdx = nextChunk++;
+            CompletableFuture<Long> start = nextChunkStart;
+            CompletableFuture<Long> end = chunkIdx + 1 == numChunks
+                ? CompletableFuture.completedFuture(size)
+                : supplyAsync(() -> alignToLine(fileInput, uri, size, (chunkIdx + 1) * bytesPerChunk));
+            nextChunkStart = end;
+            pendingChunks.add(start
+                .thenCombine(end, (s, e) -> new long[] { s, e })
+                .thenCompose(range -> supplyAsync(() -> readChunk(range[0], range[1]))));
+        }
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(CheckedSupplier<T, IOException> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ThreadPools.forceExecute(executor, () -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private Chunk readChunk(long start, long end) throws IOException {
+        for (int retry = 0; ; retry++) {
+            try {
+                return tryReadChunk(start, end);
+            } catch (SocketTimeoutException e) {
+                if (retry >= FileReadingIterator.MAX_SOCKET_TIMEOUT_RETRIES) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Chunk tryReadChunk(long start, long end) throws IOException {
+        Chunk chunk = new Chunk();
+        if (start >= end) {
+            return chunk;
+        }
+        LineParser lineParser = new LineParser(parserProperties);
+        lineParser.readFirstLine(uri, inputFormat, header);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            fileInput.getStream(uri, start, end), StandardCharsets.UTF_8))) {
+
+            if (start == 0 && header != null) {
+                reader.readLine();
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                byte[] rawSource;
+                try {
+                    rawSource = lineParser.getByteArray(line);
+                } catch (IOException e) {
+                    chunk.addFailure(e.getMessage());
+                    continue;
+                }
+                Map<String, Object> source = null;
+                if (decodeSource) {
+                    try {
+                        source = LineContext.parseSource(rawSource);
+                    } catch (RuntimeException e) {
+                        // left to the consumer, which raises the error once the source of the line is used
+                    }
+                }
+                chunk.add(rawSource, source);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * @return the position following the first line terminator at or after {@code position - 1}.
+     *         A line starting exactly at {@code position} is therefore kept intact.
+     *         Splitting {@code \r\n} results in an empty line which is skipped.
+     */
+    private static long alignToLine(FileInput fileInput, URI uri, long size, long position) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+        long probeStart = position - 1;
+        while (probeStart < size) {
+            long probeEnd = Math.min(probeStart + PROBE_SIZE, size);
+            byte[] bytes;
+            try (InputStream stream = fileInput.getStream(uri, probeStart, probeEnd)) {
+                bytes = stream.readAllBytes();
+            }
+            if (bytes.length == 0) {
+                break;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n' || bytes[i] == '\r') {
+                    return probeStart + i + 1;
+                }
+            }
+            probeStart += bytes.length;
+        }
+        return size;
+    }
+
+    private static final class Chunk {
+
+        /**
+         * The parsed lines, null for lines which failed to parse. The failures are kept in {@link #failures}
+         */
+        private final ArrayList<byte[]> lines = new ArrayList<>();
+
+        /**
+         * The decoded lines, null if not decoded
+         */
+        private final ArrayList<Map<String, Object>> sources = new ArrayList<>();
+        private final ArrayList<String> failures = new ArrayList<>(0);
+
+        /**
+         * The estimated memory used by the lines
+         */
+        private long bytes = 0;
+
+        private void add(byte[] rawSource, @Nullable Map<String, Object> source) {
+            lines.add(rawSource);
+            sources.add(source);
+            bytes += RamUsageEstimator.sizeOf(rawSource);
+            if (source != null) {
+                bytes += MapSizeEstimator.INSTANCE.estimateSize(source);
+            }
+        }
+
+        private void addFailure(String failure) {
+            lines.add(null);
+            sources.add(null);
+            failures.add(failure);
+        }
+    }
+}
@@ -21,6 +21,8 @@
 
 package io.crate.execution.engine.collect.files;
 
+import com.google.common.io.ByteStreams;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -43,5 +45,28 @@ public interface FileInput {
 
     InputStream getStream(URI uri) throws IOException;
 
+    /**
+     * Returns a stream of the bytes within [start, end) of the file.
+     * Implementations which support ranged reads should override this to avoid reading the skipped bytes.
+     */
+    default InputStream getStream(URI uri, long start, long end) throws IOException {
+        InputStream stream = getStream(uri);
+        try {
+            stream.skipNBytes(start);
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        return ByteStreams.limit(stream, end - start);
+    }
+
+    /**
+     * @return the size of the file in bytes or -1 if it is unknown.
+     *         Only files with a known size can be read in chunks, see {@link ChunkedLineReader}
+     */
+    default long size(URI uri) throws IOException {
+        return -1;
+    }
+
     boolean sharedStorageDefault();
 }
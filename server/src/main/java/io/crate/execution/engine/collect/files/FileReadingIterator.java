@@ -22,6 +22,7 @@
 package io.crate.execution.engine.collect.files;
 
 import io.crate.analyze.CopyFromParserProperties;
+import io.crate.breaker.RamAccounting;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.collections.Tuple;
 import io.crate.data.BatchIterator;
@@ -32,6 +33,7 @@ import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.expression.InputRow;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -51,6 +53,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -61,7 +64,7 @@ import static io.crate.exceptions.Exceptions.rethrowUnchecked;
 public class FileReadingIterator implements BatchIterator<Row> {
 
     private static final Logger LOGGER = LogManager.getLogger(FileReadingIterator.class);
-    private static final int MAX_SOCKET_TIMEOUT_RETRIES = 5;
+    static final int MAX_SOCKET_TIMEOUT_RETRIES = 5;
     private final Map<String, FileInputFactory> fileInputFactories;
     private final Boolean shared;
     private final int numReaders;
@@ -77,11 +80,16 @@ public class FileReadingIterator implements BatchIterator<Row> {
     private volatile Throwable killed;
     private final CopyFromParserProperties parserProperties;
     private final FileUriCollectPhase.InputFormat inputFormat;
+    private final Executor executor;
+    private final long bytesPerChunk;
+    private final RamAccounting ramAccounting;
     private Iterator<Tuple<FileInput, UriWithGlob>> fileInputsIterator = null;
     private Tuple<FileInput, UriWithGlob> currentInput = null;
     private Iterator<URI> currentInputIterator = null;
     private URI currentUri;
     private BufferedReader currentReader = null;
+    @Nullable
+    private ChunkedLineReader currentChunkedReader = null;
     private long currentLineNumber;
     private final Row row;
     private LineProcessor lineProcessor;
@@ -95,7 +103,10 @@ public class FileReadingIterator implements BatchIterator<Row> {
                                 int numReaders,
                                 int readerNumber,
                                 CopyFromParserProperties parserProperties,
-                                FileUriCollectPhase.InputFormat inputFormat) {
+                                FileUriCollectPhase.InputFormat inputFormat,
+                                Executor executor,
+                                long bytesPerChunk,
+                                RamAccounting ramAccounting) {
         this.compressed = compression != null && compression.equalsIgnoreCase("gzip");
         this.row = new InputRow(inputs);
         this.fileInputFactories = fileInputFactories;
@@ -106,6 +117,9 @@ public class FileReadingIterator implements BatchIterator<Row> {
         this.collectorExpressions = collectorExpressions;
         this.parserProperties = parserProperties;
         this.inputFormat = inputFormat;
+        this.executor = executor;
+        this.bytesPerChunk = bytesPerChunk;
+        this.ramAccounting = ramAccounting;
         initCollectorState();
     }
 
@@ -129,6 +143,68 @@ public class FileReadingIterator implements BatchIterator<Row> {
                                                  int readerNumber,
                                                  CopyFromParserProperties parserProperties,
                                                  FileUriCollectPhase.InputFormat inputFormat) {
+        return newInstance(
+            fileUris,
+            inputs,
+            collectorExpressions,
+            compression,
+            fileInputFactories,
+            shared,
+            numReaders,
+            readerNumber,
+            parserProperties,
+            inputFormat,
+            EsExecutors.directExecutor(),
+            RamAccounting.NO_ACCOUNTING);
+    }
+
+    /**
+     * @param executor used to parse chunks of large uncompressed files concurrently
+     *                 if {@link CopyFromParserProperties#parallelism()} is greater than 1.
+     * @param ramAccounting used to account the chunks which have been parsed concurrently.
+     */
+    public static BatchIterator<Row> newInstance(Collection<String> fileUris,
+                                                 List<Input<?>> inputs,
+                                                 Iterable<LineCollectorExpression<?>> collectorExpressions,
+                                                 String compression,
+                                                 Map<String, FileInputFactory> fileInputFactories,
+                                                 Boolean shared,
+                                                 int numReaders,
+                                                 int readerNumber,
+                                                 CopyFromParserProperties parserProperties,
+                                                 FileUriCollectPhase.InputFormat inputFormat,
+                                                 Executor executor,
+                                                 RamAccounting ramAccounting) {
+        return newInstance(
+            fileUris,
+            inputs,
+            collectorExpressions,
+            compression,
+            fileInputFactories,
+            shared,
+            numReaders,
+            readerNumber,
+            parserProperties,
+            inputFormat,
+            executor,
+            ChunkedLineReader.DEFAULT_BYTES_PER_CHUNK,
+            ramAccounting);
+    }
+
+    @VisibleForTesting
+    static BatchIterator<Row> newInstance(Collection<String> fileUris,
+                                          List<Input<?>> inputs,
+                                          Iterable<LineCollectorExpression<?>> collectorExpressions,
+                                          String compression,
+                                          Map<String, FileInputFactory> fileInputFactories,
+                                          Boolean shared,
+                                          int numReaders,
+                                          int readerNumber,
+                                          CopyFromParserProperties parserProperties,
+                                          FileUriCollectPhase.InputFormat inputFormat,
+                                          Executor executor,
+                                          long bytesPerChunk,
+                                          RamAccounting ramAccounting) {
         return new FileReadingIterator(
             fileUris,
             inputs,
@@ -139,7 +215,10 @@ public class FileReadingIterator implements BatchIterator<Row> {
             numReaders,
             readerNumber,
             parserProperties,
-            inputFormat);
+            inputFormat,
+            executor,
+            bytesPerChunk,
+            ramAccounting);
     }
 
     private void initCollectorState() {
@@ -157,6 +236,7 @@ public class FileReadingIterator implements BatchIterator<Row> {
     @Override
     public void moveToStart() {
         raiseIfKilled();
+        closeCurrentReader();
         initCollectorState();
     }
 
@@ -164,7 +244,16 @@ public class FileReadingIterator implements BatchIterator<Row> {
     public boolean moveNext() {
         raiseIfKilled();
         try {
-            if (currentReader != null) {
+            if (currentChunkedReader != null) {
+                if (currentChunkedReader.moveNext(lineProcessor)) {
+                    return true;
+                }
+                if (!currentChunkedReader.isFinished()) {
+                    return false;
+                }
+                closeCurrentReader();
+                return moveNext();
+            } else if (currentReader != null) {
                 String line = getLine(currentReader, currentLineNumber, 0);
                 if (line == null) {
                     closeCurrentReader();
@@ -211,6 +300,20 @@ public class FileReadingIterator implements BatchIterator<Row> {
 
     private void initCurrentReader(FileInput fileInput, URI uri) throws IOException {
         lineProcessor.startWithUri(uri);
+        if (!compressed && parserProperties.parallelism() > 1) {
+            currentChunkedReader = ChunkedLineReader.open(
+                fileInput,
+                uri,
+                executor,
+                bytesPerChunk,
+                parserProperties,
+                inputFormat,
+                lineProcessor.usesSourceAsMap(),
+                ramAccounting);
+            if (currentChunkedReader != null) {
+                return;
+            }
+        }
         InputStream stream = fileInput.getStream(uri);
         currentReader = createBufferedReader(stream);
         currentLineNumber = 0;
@@ -218,6 +321,10 @@ public class FileReadingIterator implements BatchIterator<Row> {
     }
 
     private void closeCurrentReader() {
+        if (currentChunkedReader != null) {
+            currentChunkedReader.close();
+            currentChunkedReader = null;
+        }
         if (currentReader != null) {
             try {
                 currentReader.close();
@@ -266,6 +373,7 @@ public class FileReadingIterator implements BatchIterator<Row> {
     public void close() {
         closeCurrentReader();
         releaseBatchIteratorState();
+        ramAccounting.close();
         killed = BatchIterator.CLOSED;
     }
 
@@ -278,12 +386,15 @@ public class FileReadingIterator implements BatchIterator<Row> {
 
     @Override
     public CompletableFuture<?> loadNextBatch() {
-        throw new IllegalStateException("All batches already loaded");
+        if (currentChunkedReader == null) {
+            throw new IllegalStateException("All batches already loaded");
+        }
+        return currentChunkedReader.loadNextChunk();
     }
 
     @Override
     public boolean allLoaded() {
-        return true;
+        return currentChunkedReader == null;
     }
 
     @Override
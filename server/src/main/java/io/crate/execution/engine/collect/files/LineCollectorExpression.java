@@ -27,4 +27,11 @@ import io.crate.expression.reference.file.LineContext;
 public abstract class LineCollectorExpression<ReturnType> implements Input<ReturnType> {
 
     public abstract void startCollect(LineContext context);
+
+    /**
+     * @return true if the value is read from the source parsed as map
+     */
+    public boolean usesSourceAsMap() {
+        return false;
+    }
 }
@@ -25,6 +25,7 @@ import io.crate.analyze.CopyFromParserProperties;
 import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.operation.collect.files.CSVLineParser;
 
+import javax.annotation.Nullable;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.net.URI;
@@ -50,14 +51,32 @@ public class LineParser {
                               FileUriCollectPhase.InputFormat inputFormat,
                               BufferedReader currentReader) throws IOException {
         if (isInputCsv(inputFormat, currentUri)) {
-            csvLineParser = new CSVLineParser(parserProperties);
-            csvLineParser.parseHeader(currentReader.readLine());
-            inputType = InputType.CSV;
+            parseHeader(currentReader.readLine());
         } else {
             inputType = InputType.JSON;
         }
     }
 
+    /**
+     * Like {@link #readFirstLine(URI, FileUriCollectPhase.InputFormat, BufferedReader)} but with the header
+     * line of a CSV file read upfront. Used to parse lines which don't start at the beginning of the file.
+     */
+    void readFirstLine(URI currentUri,
+                       FileUriCollectPhase.InputFormat inputFormat,
+                       @Nullable String header) throws IOException {
+        if (isInputCsv(inputFormat, currentUri)) {
+            parseHeader(header);
+        } else {
+            inputType = InputType.JSON;
+        }
+    }
+
+    private void parseHeader(@Nullable String header) throws IOException {
+        csvLineParser = new CSVLineParser(parserProperties);
+        csvLineParser.parseHeader(header);
+        inputType = InputType.CSV;
+    }
+
     public byte[] getByteArray(String line) throws IOException {
         if (inputType == InputType.CSV) {
             return csvLineParser.parse(line);
@@ -66,7 +85,7 @@ public class LineParser {
         }
     }
 
-    private boolean isInputCsv(FileUriCollectPhase.InputFormat inputFormat, URI currentUri) {
+    static boolean isInputCsv(FileUriCollectPhase.InputFormat inputFormat, URI currentUri) {
         return (inputFormat == FileUriCollectPhase.InputFormat.CSV) || currentUri.toString().endsWith(".csv");
     }
 }
@@ -25,14 +25,17 @@ import io.crate.analyze.CopyFromParserProperties;
 import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
 import io.crate.expression.reference.file.LineContext;
 
+import javax.annotation.Nullable;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
 
 public final class LineProcessor {
 
     private final LineContext lineContext = new LineContext();
     private final LineParser lineParser;
+    private boolean usesSourceAsMap = false;
 
     public LineProcessor(CopyFromParserProperties parserProperties) {
         lineParser = new LineParser(parserProperties);
@@ -41,9 +44,17 @@ public final class LineProcessor {
     public void startCollect(Iterable<LineCollectorExpression<?>> collectorExpressions) {
         for (LineCollectorExpression<?> collectorExpression : collectorExpressions) {
             collectorExpression.startCollect(lineContext);
+            usesSourceAsMap |= collectorExpression.usesSourceAsMap();
         }
     }
 
+    /**
+     * @return true if any of the collector expressions reads the source parsed as map
+     */
+    boolean usesSourceAsMap() {
+        return usesSourceAsMap;
+    }
+
     void startWithUri(URI currentUri) {
         lineContext.resetCurrentLineNumber();
         lineContext.currentUri(currentUri);
@@ -59,6 +70,24 @@ public final class LineProcessor {
         lineContext.rawSource(jsonByteArray);
     }
 
+    /**
+     * Like {@link #process(String)} for a line that has already been parsed, see {@link ChunkedLineReader}
+     *
+     * @param source the line decoded as map, or null if it hasn't been decoded yet
+     */
+    void process(byte[] rawSource, @Nullable Map<String, Object> source) {
+        lineContext.incrementCurrentLineNumber();
+        lineContext.rawSource(rawSource, source);
+    }
+
+    /**
+     * Like {@link #process(String)} for a line that failed to parse, see {@link ChunkedLineReader}
+     */
+    void processFailure(String failure) {
+        lineContext.incrementCurrentLineNumber();
+        lineContext.setCurrentUriFailure(failure);
+    }
+
     public void setFailure(String failure) {
         lineContext.setCurrentUriFailure(failure);
     }
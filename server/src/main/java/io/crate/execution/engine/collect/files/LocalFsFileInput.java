@@ -21,6 +21,7 @@
 
 package io.crate.execution.engine.collect.files;
 
+import com.google.common.io.ByteStreams;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -99,6 +100,23 @@ public class LocalFsFileInput implements FileInput {
         return new FileInputStream(file);
     }
 
+    @Override
+    public InputStream getStream(URI uri, long start, long end) throws IOException {
+        FileInputStream stream = new FileInputStream(new File(uri));
+        try {
+            stream.getChannel().position(start);
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        return ByteStreams.limit(stream, end - start);
+    }
+
+    @Override
+    public long size(URI uri) throws IOException {
+        return Files.size(Paths.get(uri));
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
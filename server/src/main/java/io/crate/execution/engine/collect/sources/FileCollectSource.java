@@ -43,6 +43,7 @@ import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -58,13 +59,18 @@ public class FileCollectSource implements CollectSource {
     private final Map<String, FileInputFactory> fileInputFactoryMap;
     private final InputFactory inputFactory;
     private final NodeContext nodeCtx;
+    private final ThreadPool threadPool;
 
     @Inject
-    public FileCollectSource(NodeContext nodeCtx, ClusterService clusterService, Map<String, FileInputFactory> fileInputFactoryMap) {
+    public FileCollectSource(NodeContext nodeCtx,
+                             ClusterService clusterService,
+                             Map<String, FileInputFactory> fileInputFactoryMap,
+                             ThreadPool threadPool) {
         this.fileInputFactoryMap = fileInputFactoryMap;
         this.nodeCtx = nodeCtx;
         this.inputFactory = new InputFactory(nodeCtx);
         this.clusterService = clusterService;
+        this.threadPool = threadPool;
     }
 
     @Override
@@ -88,7 +94,9 @@ public class FileCollectSource implements CollectSource {
             fileUriCollectPhase.nodeIds().size(),
             getReaderNumber(fileUriCollectPhase.nodeIds(), clusterService.state().nodes().getLocalNodeId()),
             fileUriCollectPhase.parserProperties(),
-            fileUriCollectPhase.inputFormat()
+            fileUriCollectPhase.inputFormat(),
+            threadPool.executor(ThreadPool.Names.SEARCH),
+            collectTask.getRamAccounting()
         ));
     }
 
@@ -38,11 +38,15 @@ import io.crate.exceptions.Exceptions;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.CollectPhase;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.AggregationProjection;
+import io.crate.execution.dsl.projection.GroupProjection;
+import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.dsl.projection.Projections;
 import io.crate.execution.engine.collect.CollectTask;
 import io.crate.execution.engine.collect.RemoteCollectorFactory;
 import io.crate.execution.engine.collect.RowsTransformer;
 import io.crate.execution.engine.collect.ShardCollectorProvider;
+import io.crate.execution.engine.collect.ShardResultCache;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OrderedLuceneBatchIteratorFactory;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
@@ -56,6 +60,7 @@ import io.crate.expression.InputFactory;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.reference.StaticTableReferenceResolver;
 import io.crate.expression.reference.sys.shard.ShardRowContext;
+import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.Symbols;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.IndexParts;
@@ -106,6 +111,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static io.crate.execution.support.ThreadPools.numIdleThreads;
 
@@ -174,7 +180,8 @@ public class ShardCollectSource implements CollectSource {
                               IndexEventListenerProxy indexEventListenerProxy,
                               BlobIndicesService blobIndicesService,
                               PageCacheRecycler pageCacheRecycler,
-                              CircuitBreakerService circuitBreakerService) {
+                              CircuitBreakerService circuitBreakerService,
+                              ShardResultCache shardResultCache) {
         this.unassignedShardReferenceResolver = new StaticTableReferenceResolver<>(
             SysShardsTableInfo.unassignedShardsExpressions());
         this.shardReferenceResolver = new StaticTableReferenceResolver<>(SysShardsTableInfo.create().expressions());
@@ -197,7 +204,8 @@ public class ShardCollectSource implements CollectSource {
             nodeCtx,
             luceneQueryBuilder,
             nodeJobsCounter,
-            bigArrays);
+            bigArrays,
+            shardResultCache);
         EvaluatingNormalizer nodeNormalizer = new EvaluatingNormalizer(
             nodeCtx,
             RowGranularity.DOC,
@@ -292,40 +300,80 @@ public class ShardCollectSource implements CollectSource {
         }
 
         boolean hasShardProjections = Projections.hasAnyShardProjections(collectPhase.projections());
+        int maxSlicesPerShard = hasShardProjections && canCollectShardsInSlices(collectPhase.projections())
+            ? maxSlicesPerShard(collectTask)
+            : 1;
         Map<String, IntIndexedContainer> indexShards = collectPhase.routing().locations().get(localNodeId);
-        List<CompletableFuture<BatchIterator<Row>>> iterators = indexShards == null
+        List<CompletableFuture<List<BatchIterator<Row>>>> iterators = indexShards == null
             ? Collections.emptyList()
-            : getIterators(collectTask, collectPhase, requireMoveToStartSupport, indexShards);
-
-        final CompletableFuture<BatchIterator<Row>> result;
-        switch (iterators.size()) {
-            case 0:
-                result = CompletableFuture.completedFuture(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
-                break;
-
-            case 1:
-                result = iterators.get(0);
-                break;
-
-            default:
-                if (hasShardProjections) {
-                    // use AsyncCompositeBatchIterator for multi-threaded loadNextBatch
-                    // in order to process shard-based projections concurrently
-
-                    //noinspection unchecked
-                    result = CompletableFutures.allAsList(iterators)
-                        .thenApply(its -> CompositeBatchIterator.asyncComposite(
-                            executor,
-                            availableThreads,
-                            its.toArray(new BatchIterator[0])
-                        ));
-                } else {
-                    //noinspection unchecked
-                    result = CompletableFutures.allAsList(iterators)
-                        .thenApply(its -> CompositeBatchIterator.seqComposite(its.toArray(new BatchIterator[0])));
-                }
+            : getIterators(collectTask, collectPhase, requireMoveToStartSupport, indexShards, maxSlicesPerShard);
+
+        if (iterators.isEmpty()) {
+            return CompletableFuture.completedFuture(projectors.wrap(InMemoryBatchIterator.empty(SentinelRow.SENTINEL)));
+        }
+        return CompletableFutures.allAsList(iterators).thenApply(shardIterators -> {
+            List<BatchIterator<Row>> its = new ArrayList<>(shardIterators.size());
+            for (List<BatchIterator<Row>> shardIts : shardIterators) {
+                its.addAll(shardIts);
+            }
+            final BatchIterator<Row> result;
+            if (its.size() == 1) {
+                result = its.get(0);
+            } else if (hasShardProjections) {
+                // use AsyncCompositeBatchIterator for multi-threaded loadNextBatch
+                // in order to process shard-based projections concurrently
+
+                //noinspection unchecked
+                result = CompositeBatchIterator.asyncComposite(
+                    executor,
+                    availableThreads,
+                    its.toArray(new BatchIterator[0])
+                );
+            } else {
+                //noinspection unchecked
+                result = CompositeBatchIterator.seqComposite(its.toArray(new BatchIterator[0]));
+            }
+            return projectors.wrap(result);
+        });
+    }
+
+    /**
+     * Shards can be split into slices if the shard projections compute partial aggregations
+     * that are merged afterwards. Other projections, like writers or final aggregations, rely on
+     * processing all documents of a shard at once.
+     */
+    private static boolean canCollectShardsInSlices(List<Projection> projections) {
+        boolean hasPartialAggregation = false;
+        for (Projection projection : Projections.shardProjections(projections)) {
+            switch (projection.projectionType()) {
+                case FILTER:
+                case EVAL:
+                    break;
+
+                case AGGREGATION:
+                    if (((AggregationProjection) projection).mode() != AggregateMode.ITER_PARTIAL) {
+                        return false;
+                    }
+                    hasPartialAggregation = true;
+                    break;
+
+                case GROUP:
+                    if (((GroupProjection) projection).mode() != AggregateMode.ITER_PARTIAL) {
+                        return false;
+                    }
+                    hasPartialAggregation = true;
+                    break;
+
+                default:
+                    return false;
+            }
         }
-        return result.thenApply(it -> projectors.wrap(it));
+        return hasPartialAggregation;
+    }
+
+    private int maxSlicesPerShard(CollectTask collectTask) {
+        int concurrency = collectTask.txnCtx().sessionSettings().shardCollectConcurrency();
+        return concurrency == 0 ? availableThreads.getAsInt() : concurrency;
     }
 
     private CompletableFuture<BatchIterator<Row>> createMultiShardScoreDocCollector(RoutedCollectPhase collectPhase,
@@ -336,8 +384,9 @@ public class ShardCollectSource implements CollectSource {
         Map<String, Map<String, IntIndexedContainer>> locations = collectPhase.routing().locations();
         SharedShardContexts sharedShardContexts = collectTask.sharedShardContexts();
         Map<String, IntIndexedContainer> indexShards = locations.get(localNodeId);
-        List<CompletableFuture<OrderedDocCollector>> orderedDocCollectors = new ArrayList<>();
+        List<CompletableFuture<List<OrderedDocCollector>>> orderedDocCollectors = new ArrayList<>();
         Metadata metadata = clusterService.state().metadata();
+        int maxSlicesPerShard = maxSlicesPerShard(collectTask);
         for (Map.Entry<String, IntIndexedContainer> entry : indexShards.entrySet()) {
             String indexName = entry.getKey();
             Index index = metadata.index(indexName).getIndex();
@@ -348,11 +397,12 @@ public class ShardCollectSource implements CollectSource {
                 try {
                     SharedShardContext context = sharedShardContexts.getOrCreateContext(shardId);
                     ShardCollectorProvider shardCollectorProvider = getCollectorProviderSafe(shardId);
-                    orderedDocCollectors.add(shardCollectorProvider.getFutureOrderedCollector(
+                    orderedDocCollectors.add(shardCollectorProvider.getFutureOrderedCollectors(
                         collectPhase,
                         context,
                         collectTask,
-                        supportMoveToStart)
+                        supportMoveToStart,
+                        maxSlicesPerShard)
                     );
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
                     throw e;
@@ -369,8 +419,8 @@ public class ShardCollectSource implements CollectSource {
         OrderBy orderBy = collectPhase.orderBy();
         assert orderBy != null : "orderBy must not be null";
 
-        return CompletableFutures.allAsList(orderedDocCollectors).thenApply(collectors -> OrderedLuceneBatchIteratorFactory.newInstance(
-            collectors,
+        return CompletableFutures.allAsList(orderedDocCollectors).thenApply(shardCollectors -> OrderedLuceneBatchIteratorFactory.newInstance(
+            shardCollectors.stream().flatMap(List::stream).collect(Collectors.toList()),
             OrderingByPosition.rowOrdering(
                 OrderByPositionVisitor.orderByPositions(orderBy.orderBySymbols(), collectPhase.toCollect()),
                 orderBy.reverseFlags(),
@@ -395,13 +445,14 @@ public class ShardCollectSource implements CollectSource {
         return shardCollectorProvider;
     }
 
-    private List<CompletableFuture<BatchIterator<Row>>> getIterators(CollectTask collectTask,
-                                                                     RoutedCollectPhase collectPhase,
-                                                                     boolean requiresScroll,
-                                                                     Map<String, IntIndexedContainer> indexShards) {
+    private List<CompletableFuture<List<BatchIterator<Row>>>> getIterators(CollectTask collectTask,
+                                                                           RoutedCollectPhase collectPhase,
+                                                                           boolean requiresScroll,
+                                                                           Map<String, IntIndexedContainer> indexShards,
+                                                                           int maxSlicesPerShard) {
 
         Metadata metadata = clusterService.state().metadata();
-        List<CompletableFuture<BatchIterator<Row>>> iterators = new ArrayList<>();
+        List<CompletableFuture<List<BatchIterator<Row>>>> iterators = new ArrayList<>();
         for (Map.Entry<String, IntIndexedContainer> entry : indexShards.entrySet()) {
             String indexName = entry.getKey();
             IndexMetadata indexMD = metadata.index(indexName);
@@ -424,12 +475,13 @@ public class ShardCollectSource implements CollectSource {
                 ShardId shardId = new ShardId(index, shardCursor.value);
                 try {
                     ShardCollectorProvider shardCollectorProvider = getCollectorProviderSafe(shardId);
-                    CompletableFuture<BatchIterator<Row>> iterator = shardCollectorProvider.getFutureIterator(
+                    CompletableFuture<List<BatchIterator<Row>>> shardIterators = shardCollectorProvider.getFutureIterators(
                         collectPhase,
                         requiresScroll,
-                        collectTask
+                        collectTask,
+                        maxSlicesPerShard
                     );
-                    iterators.add(iterator);
+                    iterators.add(shardIterators);
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
                     // If toCollect contains a docId it means that this is a QueryThenFetch operation.
                     // In such a case RemoteCollect cannot be used because on that node the FetchTask is missing
@@ -437,7 +489,9 @@ public class ShardCollectSource implements CollectSource {
                     if (Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.FETCHID)) {
                         throw e;
                     }
-                    iterators.add(remoteCollectorFactory.createCollector(shardId, collectPhase, collectTask, shardCollectorProviderFactory));
+                    iterators.add(
+                        remoteCollectorFactory.createCollector(shardId, collectPhase, collectTask, shardCollectorProviderFactory)
+                            .thenApply(List::of));
                 } catch (IndexNotFoundException e) {
                     // Prevent wrapping this to not break retry-detection
                     throw e;
@@ -27,6 +27,7 @@ import io.crate.execution.TransportActionProvider;
 import io.crate.execution.engine.collect.BlobShardCollectorProvider;
 import io.crate.execution.engine.collect.LuceneShardCollectorProvider;
 import io.crate.execution.engine.collect.ShardCollectorProvider;
+import io.crate.execution.engine.collect.ShardResultCache;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.NodeContext;
@@ -54,6 +55,7 @@ public class ShardCollectorProviderFactory {
     private final BigArrays bigArrays;
     private final Settings settings;
     private final CircuitBreakerService circuitBreakerService;
+    private final ShardResultCache shardResultCache;
 
     ShardCollectorProviderFactory(ClusterService clusterService,
                                   CircuitBreakerService circuitBreakerService,
@@ -65,7 +67,8 @@ public class ShardCollectorProviderFactory {
                                   NodeContext nodeCtx,
                                   LuceneQueryBuilder luceneQueryBuilder,
                                   NodeLimits nodeJobsCounter,
-                                  BigArrays bigArrays) {
+                                  BigArrays bigArrays,
+                                  ShardResultCache shardResultCache) {
         this.settings = settings;
         this.circuitBreakerService = circuitBreakerService;
         this.schemas = schemas;
@@ -77,6 +80,7 @@ public class ShardCollectorProviderFactory {
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.nodeJobsCounter = nodeJobsCounter;
         this.bigArrays = bigArrays;
+        this.shardResultCache = shardResultCache;
     }
 
     public ShardCollectorProvider create(IndexShard indexShard) {
@@ -105,7 +109,8 @@ public class ShardCollectorProviderFactory {
                 settings,
                 transportActionProvider,
                 indexShard,
-                bigArrays);
+                bigArrays,
+                shardResultCache);
         }
     }
 }
@@ -118,6 +118,9 @@ public class JobsLogService extends AbstractLifecycleComponent implements Provid
     public static final Setting<TimeValue> STATS_OPERATIONS_LOG_EXPIRATION_SETTING = Setting.timeSetting(
         "stats.operations_log_expiration", TimeValue.timeValueSeconds(0L), Setting.Property.NodeScope, Setting.Property.Dynamic);
 
+    public static final Setting<Integer> STATS_STATEMENT_STATS_SIZE_SETTING = Setting.intSetting(
+        "stats.statement_stats_size", 1000, 0, Setting.Property.NodeScope, Setting.Property.Dynamic);
+
     private static final JobContextLogSizeEstimator JOB_CONTEXT_LOG_ESTIMATOR = new JobContextLogSizeEstimator();
     private static final OperationContextLogSizeEstimator OPERATION_CONTEXT_LOG_SIZE_ESTIMATOR = new OperationContextLogSizeEstimator();
 
@@ -192,6 +195,7 @@ public class JobsLogService extends AbstractLifecycleComponent implements Provid
         );
         setOperationsLogSink(
             STATS_OPERATIONS_LOG_SIZE_SETTING.get(settings), STATS_OPERATIONS_LOG_EXPIRATION_SETTING.get(settings));
+        jobsLogs.updateStatementStatsSize(STATS_STATEMENT_STATS_SIZE_SETTING.get(settings));
 
         clusterSettings.addSettingsUpdateConsumer(STATS_JOBS_LOG_FILTER, filter -> {
             JobsLogService.this.memoryFilter = createFilter(filter, STATS_JOBS_LOG_FILTER.getKey());
@@ -208,6 +212,7 @@ public class JobsLogService extends AbstractLifecycleComponent implements Provid
             this::setJobsLogSink);
         clusterSettings.addSettingsUpdateConsumer(
             STATS_OPERATIONS_LOG_SIZE_SETTING, STATS_OPERATIONS_LOG_EXPIRATION_SETTING, this::setOperationsLogSink);
+        clusterSettings.addSettingsUpdateConsumer(STATS_STATEMENT_STATS_SIZE_SETTING, jobsLogs::updateStatementStatsSize);
     }
 
     private Symbol asSymbol(String expression) {
@@ -28,8 +28,11 @@ import io.crate.expression.reference.sys.operation.OperationContext;
 import io.crate.expression.reference.sys.operation.OperationContextLog;
 import io.crate.metadata.sys.ClassifiedMetrics;
 import io.crate.metadata.sys.MetricsView;
+import io.crate.metadata.sys.StatementStats;
+import io.crate.metadata.sys.StatementStatsView;
 import io.crate.planner.operators.StatementClassifier;
 import io.crate.common.collections.Tuple;
+import org.elasticsearch.common.settings.Settings;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -47,7 +50,7 @@ import static io.crate.planner.Plan.StatementType.UNDEFINED;
 /**
  * JobsLogs is responsible for adding jobs and operations of that node.
  * It also provides the functionality to expose that data for system tables,
- * such as sys.jobs, sys.jobs_log, sys.operations and sys.operations_log;
+ * such as sys.jobs, sys.jobs_log, sys.operations, sys.operations_log, sys.jobs_metrics and sys.statement_stats;
  * <p>
  * The data is exposed via the properties
  *
@@ -76,6 +79,8 @@ public class JobsLogs {
     private final LongAdder activeRequests = new LongAdder();
     private final BooleanSupplier enabled;
     private final ClassifiedMetrics classifiedMetrics = new ClassifiedMetrics();
+    private final StatementStats statementStats = new StatementStats(
+        JobsLogService.STATS_STATEMENT_STATS_SIZE_SETTING.getDefault(Settings.EMPTY));
 
     public JobsLogs(BooleanSupplier enabled) {
         this.enabled = enabled;
@@ -103,26 +108,51 @@ public class JobsLogs {
      * If {@link #isEnabled()} is false this method won't do anything.
      */
     public void logExecutionStart(UUID jobId, String statement, User user, StatementClassifier.Classification classification) {
+        logExecutionStart(jobId, statement, null, user, classification);
+    }
+
+    /**
+     * Track a job, see {@link #logExecutionStart(UUID, String, User, StatementClassifier.Classification)}
+     *
+     * @param fingerprint the fingerprint of the statement if already known, e.g. of a prepared statement.
+     *                    It is computed from the statement otherwise.
+     */
+    public void logExecutionStart(UUID jobId,
+                                  String statement,
+                                  @Nullable String fingerprint,
+                                  User user,
+                                  StatementClassifier.Classification classification) {
         activeRequests.increment();
         if (!isEnabled()) {
             return;
         }
-        jobsTable.put(jobId, new JobContext(jobId, statement, System.currentTimeMillis(), user, classification));
+        jobsTable.put(
+            jobId,
+            new JobContext(jobId, statement, fingerprint, System.currentTimeMillis(), user, classification));
+    }
+
+    /**
+     * mark a job as finished, see {@link #logExecutionEnd(UUID, String, long)}
+     */
+    public void logExecutionEnd(UUID jobId, @Nullable String errorMessage) {
+        logExecutionEnd(jobId, errorMessage, 0L);
     }
 
     /**
      * mark a job as finished.
      * <p>
      * If {@link #isEnabled()} is false this method won't do anything.
+     *
+     * @param rowCount the number of rows the job returned, recorded in sys.statement_stats
      */
-    public void logExecutionEnd(UUID jobId, @Nullable String errorMessage) {
+    public void logExecutionEnd(UUID jobId, @Nullable String errorMessage, long rowCount) {
         activeRequests.decrement();
         JobContext jobContext = jobsTable.remove(jobId);
         if (!isEnabled() || jobContext == null) {
             return;
         }
         JobContextLog jobContextLog = new JobContextLog(jobContext, errorMessage);
-        recordMetrics(jobContextLog);
+        recordMetrics(jobContextLog, rowCount);
         long stamp = jobsLogLock.readLock();
         try {
             jobsLog.add(jobContextLog);
@@ -131,7 +161,7 @@ public class JobsLogs {
         }
     }
 
-    private void recordMetrics(JobContextLog log) {
+    private void recordMetrics(JobContextLog log, long rowCount) {
         StatementClassifier.Classification classification = log.classification();
         assert classification != null : "A job must have a classification";
         if (log.errorMessage() == null) {
@@ -139,6 +169,7 @@ public class JobsLogs {
         } else {
             classifiedMetrics.recordFailedExecution(classification, log.ended() - log.started());
         }
+        statementStats.record(log, rowCount);
     }
 
     /**
@@ -157,7 +188,7 @@ public class JobsLogs {
         } finally {
             jobsLogLock.unlockRead(stamp);
         }
-        recordMetrics(jobContextLog);
+        recordMetrics(jobContextLog, 0L);
     }
 
     public void operationStarted(int operationId, UUID jobId, String name, LongSupplier bytesUsed) {
@@ -172,6 +203,10 @@ public class JobsLogs {
         return classifiedMetrics;
     }
 
+    public Iterable<StatementStatsView> statementStats() {
+        return statementStats;
+    }
+
     public void operationFinished(int operationId, UUID jobId, @Nullable String errorMessage) {
         if (!isEnabled()) {
             return;
@@ -232,6 +267,10 @@ public class JobsLogs {
         }
     }
 
+    void updateStatementStatsSize(int size) {
+        statementStats.updateMaxEntries(size);
+    }
+
     void updateJobsLog(LogSink<JobContextLog> sink) {
         long stamp = jobsLogLock.writeLock();
         try {
@@ -245,6 +284,7 @@ public class JobsLogs {
 
     void resetMetrics() {
         classifiedMetrics.reset();
+        statementStats.reset();
     }
 
     public void close() {
@@ -0,0 +1,518 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.store.InputStreamDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Column oriented encoding for the rows of a {@link StreamBucket}.
+ *
+ * <p>
+ * Layout of a page:
+ * <pre>
+ *  flags (byte)               - {@link #FLAG_LZ4} if the columns are LZ4 compressed
+ *  [uncompressedLength VInt]  - only if compressed
+ *  column 1 .. column N
+ * </pre>
+ *
+ * Each column starts with its encoding:
+ * <ul>
+ *     <li>{@link #PACKED_LONG}: integral types and timestamps. Null bitmap, first value and the
+ *     deltas between consecutive values, bit-packed relative to the smallest delta.</li>
+ *     <li>{@link #DICT_STRING}: null bitmap, the distinct values and the bit-packed ordinals of each row.</li>
+ *     <li>{@link #PLAIN_STRING}: null bitmap and the values; used if a dictionary wouldn't pay off.</li>
+ *     <li>{@link #GENERIC}: the values as written by the {@link Streamer} of the column.</li>
+ * </ul>
+ */
+final class ColumnarPage {
+
+    static final byte FLAG_LZ4 = 1;
+
+    private static final byte GENERIC = 0;
+    private static final byte PACKED_LONG = 1;
+    private static final byte DICT_STRING = 2;
+    private static final byte PLAIN_STRING = 3;
+
+    /**
+     * Pages smaller than this aren't worth compressing
+     */
+    private static final int LZ4_MIN_BYTES = 1024;
+
+    private ColumnarPage() {
+    }
+
+    static final class Writer {
+
+        private final Column[] columns;
+        private int size = 0;
+
+        Writer(Streamer<?>[] streamers) {
+            columns = new Column[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                columns[i] = newColumn(streamers[i]);
+            }
+        }
+
+        /**
+         * @return the number of bytes the writer grew by adding the row
+         */
+        long add(Row row) {
+            long bytes = 0;
+            for (int i = 0; i < columns.length; i++) {
+                bytes += columns[i].add(row.get(i), size);
+            }
+            size++;
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        BytesReference encode() throws IOException {
+            BytesStreamOutput body = new BytesStreamOutput();
+            for (Column column : columns) {
+                column.writeTo(body, size);
+            }
+            BytesStreamOutput page = new BytesStreamOutput(body.size() + 1);
+            if (body.size() >= LZ4_MIN_BYTES) {
+                byte[] raw = BytesReference.toBytes(body.bytes());
+                BytesStreamOutput compressed = new BytesStreamOutput(raw.length / 2);
+                LZ4.compress(raw, 0, raw.length, new OutputStreamDataOutput(compressed), new LZ4.FastCompressionHashTable());
+                if (compressed.size() < raw.length) {
+                    page.writeByte(FLAG_LZ4);
+                    page.writeVInt(raw.length);
+                    compressed.bytes().writeTo(page);
+                    return page.bytes();
+                }
+            }
+            page.writeByte((byte) 0);
+            body.bytes().writeTo(page);
+            return page.bytes();
+        }
+    }
+
+    /**
+     * Decodes all columns of the page and returns an iterator over the rows.
+     * The returned row is re-used across calls to {@link Iterator#next()}.
+     */
+    static Iterator<Row> rows(BytesReference page, Streamer<?>[] streamers, int size) throws IOException {
+        StreamInput in = page.streamInput();
+        byte flags = in.readByte();
+        if ((flags & FLAG_LZ4) != 0) {
+            int uncompressedLength = in.readVInt();
+            byte[] raw = new byte[uncompressedLength];
+            LZ4.decompress(new InputStreamDataInput(in), uncompressedLength, raw, 0);
+            in = StreamInput.wrap(raw);
+        }
+        Object[][] columns = new Object[streamers.length][];
+        for (int i = 0; i < streamers.length; i++) {
+            columns[i] = readColumn(in, streamers[i], size);
+        }
+        return new ColumnIterator(columns, size);
+    }
+
+    private static Column newColumn(Streamer<?> streamer) {
+        if (streamer instanceof DataType<?>) {
+            switch (((DataType<?>) streamer).id()) {
+                case ByteType.ID:
+                case ShortType.ID:
+                case IntegerType.ID:
+                case LongType.ID:
+                case TimestampType.ID_WITH_TZ:
+                case TimestampType.ID_WITHOUT_TZ:
+                    return new LongColumn();
+
+                case StringType.ID:
+                    return new StringColumn();
+
+                default:
+                    break;
+            }
+        }
+        return new GenericColumn(streamer);
+    }
+
+    private static Object[] readColumn(StreamInput in, Streamer<?> streamer, int size) throws IOException {
+        byte encoding = in.readByte();
+        Object[] values = new Object[size];
+        switch (encoding) {
+            case PACKED_LONG: {
+                BitSet nulls = readNulls(in);
+                int typeId = ((DataType<?>) streamer).id();
+                int numValues = size - nulls.cardinality();
+                if (numValues == 0) {
+                    return values;
+                }
+                long prev = in.readZLong();
+                long minDelta = in.readZLong();
+                int bitsPerValue = in.readByte();
+                long[] deltas = readPacked(in, numValues - 1, bitsPerValue);
+                int d = 0;
+                for (int i = 0; i < size; i++) {
+                    if (nulls.get(i)) {
+                        continue;
+                    }
+                    if (d > 0) {
+                        prev = prev + minDelta + deltas[d - 1];
+                    }
+                    d++;
+                    values[i] = box(prev, typeId);
+                }
+                return values;
+            }
+
+            case DICT_STRING: {
+                BitSet nulls = readNulls(in);
+                int numValues = size - nulls.cardinality();
+                String[] dictionary = new String[in.readVInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = in.readString();
+                }
+                int bitsPerValue = in.readByte();
+                long[] ordinals = readPacked(in, numValues, bitsPerValue);
+                int o = 0;
+                for (int i = 0; i < size; i++) {
+                    if (!nulls.get(i)) {
+                        values[i] = dictionary[(int) ordinals[o++]];
+                    }
+                }
+                return values;
+            }
+
+            case PLAIN_STRING: {
+                BitSet nulls = readNulls(in);
+                for (int i = 0; i < size; i++) {
+                    if (!nulls.get(i)) {
+                        values[i] = in.readString();
+                    }
+                }
+                return values;
+            }
+
+            case GENERIC:
+                for (int i = 0; i < size; i++) {
+                    values[i] = streamer.readValueFrom(in);
+                }
+                return values;
+
+            default:
+                throw new IllegalStateException("Unknown column encoding: " + encoding);
+        }
+    }
+
+    private static Object box(long value, int typeId) {
+        switch (typeId) {
+            case ByteType.ID:
+                return (byte) value;
+            case ShortType.ID:
+                return (short) value;
+            case IntegerType.ID:
+                return (int) value;
+            default:
+                return value;
+        }
+    }
+
+    private static void writeNulls(StreamOutput out, @Nullable BitSet nulls) throws IOException {
+        if (nulls == null) {
+            out.writeVInt(0);
+            return;
+        }
+        long[] words = nulls.toLongArray();
+        out.writeVInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readNulls(StreamInput in) throws IOException {
+        long[] words = new long[in.readVInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private static int bitsRequired(long maxValue) {
+        return 64 - Long.numberOfLeadingZeros(maxValue);
+    }
+
+    /**
+     * Writes the lower {@code bitsPerValue} bits of each value, least significant bits first.
+     */
+    private static void writePacked(StreamOutput out, long[] values, int count, int bitsPerValue) throws IOException {
+        if (bitsPerValue == 0) {
+            return;
+        }
+        long word = 0;
+        int bitsInWord = 0;
+        for (int i = 0; i < count; i++) {
+            long value = values[i];
+            word |= value << bitsInWord;
+            int free = 64 - bitsInWord;
+            if (bitsPerValue >= free) {
+                out.writeLong(word);
+                word = free == 64 ? 0 : value >>> free;
+                bitsInWord = bitsPerValue - free;
+            } else {
+                bitsInWord += bitsPerValue;
+            }
+        }
+        if (bitsInWord > 0) {
+            out.writeLong(word);
+        }
+    }
+
+    private static long[] readPacked(StreamInput in, int count, int bitsPerValue) throws IOException {
+        long[] values = new long[count];
+        if (bitsPerValue == 0) {
+            return values;
+        }
+        long mask = bitsPerValue == 64 ? -1L : (1L << bitsPerValue) - 1;
+        long word = 0;
+        int consumed = 64;
+        for (int i = 0; i < count; i++) {
+            if (consumed == 64) {
+                word = in.readLong();
+                consumed = 0;
+            }
+            long value = word >>> consumed;
+            int available = 64 - consumed;
+            if (bitsPerValue > available) {
+                word = in.readLong();
+                value |= word << available;
+                consumed = bitsPerValue - available;
+            } else {
+                consumed += bitsPerValue;
+            }
+            values[i] = value & mask;
+        }
+        return values;
+    }
+
+    private abstract static class Column {
+
+        /**
+         * @return the number of bytes the column grew by adding the value
+         */
+        abstract long add(@Nullable Object value, int rowIdx);
+
+        abstract void writeTo(StreamOutput out, int size) throws IOException;
+    }
+
+    private static final class LongColumn extends Column {
+
+        private long[] values = new long[16];
+        private int numValues = 0;
+
+        @Nullable
+        private BitSet nulls;
+
+        @Override
+        long add(@Nullable Object value, int rowIdx) {
+            if (value == null) {
+                if (nulls == null) {
+                    nulls = new BitSet();
+                }
+                nulls.set(rowIdx);
+                return 0;
+            }
+            values = ArrayUtil.grow(values, numValues + 1);
+            values[numValues++] = ((Number) value).longValue();
+            return Long.BYTES;
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int size) throws IOException {
+            out.writeByte(PACKED_LONG);
+            writeNulls(out, nulls);
+            if (numValues == 0) {
+                return;
+            }
+            long minDelta = Long.MAX_VALUE;
+            for (int i = 1; i < numValues; i++) {
+                minDelta = Math.min(minDelta, values[i] - values[i - 1]);
+            }
+            // Deltas may overflow; the arithmetic is done modulo 2^64 on both ends,
+            // so the offsets are compared as unsigned values
+            long[] offsets = new long[Math.max(numValues - 1, 0)];
+            long maxOffset = 0;
+            for (int i = 1; i < numValues; i++) {
+                long offset = values[i] - values[i - 1] - minDelta;
+                offsets[i - 1] = offset;
+                if (Long.compareUnsigned(offset, maxOffset) > 0) {
+                    maxOffset = offset;
+                }
+            }
+            int bitsPerValue = bitsRequired(maxOffset);
+            out.writeZLong(values[0]);
+            out.writeZLong(numValues > 1 ? minDelta : 0L);
+            out.writeByte((byte) bitsPerValue);
+            writePacked(out, offsets, offsets.length, bitsPerValue);
+        }
+    }
+
+    private static final class StringColumn extends Column {
+
+        private final ObjectIntHashMap<String> ordinalByValue = new ObjectIntHashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private long[] ordinals = new long[16];
+        private int numValues = 0;
+
+        @Nullable
+        private BitSet nulls;
+
+        @Override
+        long add(@Nullable Object value, int rowIdx) {
+            if (value == null) {
+                if (nulls == null) {
+                    nulls = new BitSet();
+                }
+                nulls.set(rowIdx);
+                return 0;
+            }
+            String str = (String) value;
+            long bytes = Long.BYTES;
+            int ordinal = ordinalByValue.getOrDefault(str, -1);
+            if (ordinal == -1) {
+                ordinal = dictionary.size();
+                dictionary.add(str);
+                ordinalByValue.put(str, ordinal);
+                bytes += RamUsageEstimator.sizeOf(str) + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + Integer.BYTES;
+            }
+            ordinals = ArrayUtil.grow(ordinals, numValues + 1);
+            ordinals[numValues++] = ordinal;
+            return bytes;
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int size) throws IOException {
+            if (dictionary.size() > numValues / 2) {
+                out.writeByte(PLAIN_STRING);
+                writeNulls(out, nulls);
+                for (int i = 0; i < numValues; i++) {
+                    out.writeString(dictionary.get((int) ordinals[i]));
+                }
+                return;
+            }
+            out.writeByte(DICT_STRING);
+            writeNulls(out, nulls);
+            out.writeVInt(dictionary.size());
+            for (String value : dictionary) {
+                out.writeString(value);
+            }
+            int bitsPerValue = bitsRequired(Math.max(dictionary.size() - 1, 0));
+            out.writeByte((byte) bitsPerValue);
+            writePacked(out, ordinals, numValues, bitsPerValue);
+        }
+    }
+
+    private static final class GenericColumn extends Column {
+
+        private final Streamer<?> streamer;
+        private final BytesStreamOutput values = new BytesStreamOutput();
+
+        GenericColumn(Streamer<?> streamer) {
+            this.streamer = streamer;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        long add(@Nullable Object value, int rowIdx) {
+            int prevSize = values.size();
+            try {
+                ((Streamer) streamer).writeValueTo(values, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return values.size() - prevSize;
+        }
+
+        @Override
+        void writeTo(StreamOutput out, int size) throws IOException {
+            out.writeByte(GENERIC);
+            values.bytes().writeTo(out);
+        }
+    }
+
+    private static final class ColumnIterator implements Iterator<Row> {
+
+        private final Object[][] columns;
+        private final int size;
+        private final Object[] current;
+        private final RowN row;
+        private int pos = 0;
+
+        private ColumnIterator(Object[][] columns, int size) {
+            this.columns = columns;
+            this.size = size;
+            this.current = new Object[columns.length];
+            this.row = new RowN(current);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Row next() {
+            if (pos >= size) {
+                throw new NoSuchElementException("Iterator is exhausted");
+            }
+            for (int c = 0; c < columns.length; c++) {
+                current[c] = columns[c][pos];
+            }
+            pos++;
+            return row;
+        }
+    }
+}
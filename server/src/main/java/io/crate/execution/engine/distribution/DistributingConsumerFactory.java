@@ -84,7 +84,7 @@ public class DistributingConsumerFactory {
                     multiBucketBuilder = new ModuloBucketBuilder(
                         streamers,
                         nodeOperation.downstreamNodes().size(),
-                        distributionInfo.distributeByColumn(),
+                        distributionInfo.distributeByColumns(),
                         ramAccounting
                     );
                 }
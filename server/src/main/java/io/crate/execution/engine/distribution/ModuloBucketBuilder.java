@@ -31,21 +31,30 @@ import java.util.List;
 
 /**
  * builds N buckets where N is passed in the CTOR.
- * The rows that are added via {@link #add(Row)} are assigned to the buckets by modulo calculation.
+ * The rows that are added via {@link #add(Row)} are assigned to the buckets by modulo calculation of the hash of
+ * the distributed-by columns.
+ * The buckets are encoded column-wise, see {@link ColumnarPage}.
  */
 public class ModuloBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
     private final List<StreamBucket.Builder> bucketBuilders;
-    private final int distributedByColumnIdx;
+    private final int[] distributedByColumnIdxs;
     private int size = 0;
 
     public ModuloBucketBuilder(Streamer<?>[] streamers, int numBuckets, int distributedByColumnIdx, RamAccounting ramAccounting) {
+        this(streamers, numBuckets, new int[] { distributedByColumnIdx }, ramAccounting);
+    }
+
+    public ModuloBucketBuilder(Streamer<?>[] streamers,
+                               int numBuckets,
+                               int[] distributedByColumnIdxs,
+                               RamAccounting ramAccounting) {
         this.numBuckets = numBuckets;
-        this.distributedByColumnIdx = distributedByColumnIdx;
+        this.distributedByColumnIdxs = distributedByColumnIdxs;
         this.bucketBuilders = new ArrayList<>(numBuckets);
         for (int i = 0; i < numBuckets; i++) {
-            bucketBuilders.add(new StreamBucket.Builder(streamers, ramAccounting));
+            bucketBuilders.add(new StreamBucket.Builder(streamers, true, ramAccounting));
         }
     }
 
@@ -73,10 +82,14 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
     }
 
     /**
-     * get bucket number by doing modulo hashcode of the defined row-element
+     * get bucket number by doing modulo hashcode of the defined row-elements
      */
     private int getBucket(Row row) {
-        int hash = hashCode(row.get(distributedByColumnIdx));
+        // A single column is hashed as before, so that nodes on older versions assign rows to the same buckets
+        int hash = hashCode(row.get(distributedByColumnIdxs[0]));
+        for (int i = 1; i < distributedByColumnIdxs.length; i++) {
+            hash = 31 * hash + hashCode(row.get(distributedByColumnIdxs[i]));
+        }
         if (hash == Integer.MIN_VALUE) {
             hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
         }
@@ -27,6 +27,7 @@ import io.crate.data.Bucket;
 import io.crate.data.Row;
 import io.crate.data.RowN;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -48,6 +49,11 @@ public class StreamBucket implements Bucket, Writeable {
     private int size = -1;
     private BytesReference bytes;
 
+    /**
+     * If true {@link #bytes} contains a {@link ColumnarPage}, otherwise the rows are encoded one after another.
+     */
+    private boolean columnar = false;
+
     public static class Builder implements Accountable {
 
         private static final int INITIAL_PAGE_SIZE = 1024;
@@ -58,17 +64,37 @@ public class StreamBucket implements Bucket, Writeable {
         private BytesStreamOutput out;
         private int prevOutSize = 0;
 
+        @Nullable
+        private ColumnarPage.Writer columns;
+
         public Builder(Streamer<?>[] streamers, RamAccounting ramAccounting) {
+            this(streamers, false, ramAccounting);
+        }
+
+        /**
+         * @param columnar if true, the rows are encoded column-wise using a {@link ColumnarPage}.
+         *                 This results in less bytes on the wire for larger buckets.
+         *                 Nodes which don't support the columnar format receive the rows one after another.
+         */
+        public Builder(Streamer<?>[] streamers, boolean columnar, RamAccounting ramAccounting) {
             this.ramAccounting = requireNonNull(ramAccounting, "RamAccounting must not be null");
             assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
             this.streamers = streamers;
-            out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            if (columnar) {
+                columns = new ColumnarPage.Writer(streamers);
+            } else {
+                out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            }
         }
 
         public void add(Row row) {
             assert streamers.length == row.numColumns() : "number of streamer must match row size";
 
             size++;
+            if (columns != null) {
+                ramAccounting.addBytes(columns.add(row));
+                return;
+            }
             for (int i = 0; i < row.numColumns(); i++) {
                 try {
                     //noinspection unchecked
@@ -84,12 +110,25 @@ public class StreamBucket implements Bucket, Writeable {
         public StreamBucket build() {
             StreamBucket sb = new StreamBucket(streamers);
             sb.size = size;
-            sb.bytes = out.bytes();
+            if (columns == null) {
+                sb.bytes = out.bytes();
+            } else {
+                try {
+                    sb.bytes = columns.encode();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                sb.columnar = true;
+            }
             return sb;
         }
 
         public void reset() {
-            out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            if (columns == null) {
+                out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            } else {
+                columns = new ColumnarPage.Writer(streamers);
+            }
             size = 0;
         }
 
@@ -178,6 +217,9 @@ public class StreamBucket implements Bucket, Writeable {
         }
         assert streamers != null : "streamers must not be null";
         try {
+            if (columnar) {
+                return ColumnarPage.rows(bytes, streamers, size);
+            }
             return new RowIterator(bytes.streamInput(), streamers, size);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -200,6 +242,9 @@ public class StreamBucket implements Bucket, Writeable {
     public StreamBucket(StreamInput in) throws IOException {
         size = in.readVInt();
         if (size > 0) {
+            if (in.getVersion().onOrAfter(Version.V_4_7_0)) {
+                columnar = in.readBoolean();
+            }
             bytes = in.readBytesReference();
         }
     }
@@ -216,7 +261,29 @@ public class StreamBucket implements Bucket, Writeable {
         assert size > -1 : "size must be > -1";
         out.writeVInt(size);
         if (size > 0) {
-            out.writeBytesReference(bytes);
+            if (out.getVersion().onOrAfter(Version.V_4_7_0)) {
+                out.writeBoolean(columnar);
+                out.writeBytesReference(bytes);
+            } else if (columnar) {
+                out.writeBytesReference(rowBytes());
+            } else {
+                out.writeBytesReference(bytes);
+            }
+        }
+    }
+
+    /**
+     * Re-encodes the rows of a columnar bucket one after another, for nodes that don't understand the columnar format.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BytesReference rowBytes() throws IOException {
+        assert streamers != null : "streamers must not be null";
+        BytesStreamOutput rowsOut = new BytesStreamOutput(bytes.length());
+        for (Row row : this) {
+            for (int i = 0; i < streamers.length; i++) {
+                ((Streamer) streamers[i]).writeValueTo(rowsOut, row.get(i));
+            }
         }
+        return rowsOut.bytes();
     }
 }
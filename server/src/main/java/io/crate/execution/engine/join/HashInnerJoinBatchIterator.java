@@ -22,53 +22,77 @@
 package io.crate.execution.engine.join;
 
 import io.crate.breaker.RowAccounting;
+import io.crate.common.io.IOUtils;
 import io.crate.data.BatchIterator;
-import io.crate.data.Paging;
+import io.crate.data.CloseableIterator;
 import io.crate.data.Row;
 import io.crate.data.UnsafeArrayRow;
 import io.crate.data.join.CombinedRow;
 import io.crate.data.join.JoinBatchIterator;
+import io.crate.exceptions.Exceptions;
+import io.crate.execution.engine.spill.SpillFile;
 import io.netty.util.collection.IntObjectHashMap;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.CompletionStage;
 import java.util.function.IntSupplier;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
 /**
+ * A partitioned (grace) hash join.
+ *
  * <pre>
  *     Build Phase:
  *     for (leftRow in left) {
- *         calculate hash and put in Buffer (HashMap) until the blockSize is reached
+ *         partition = partitionFor(hash(leftRow))
+ *         if (partition is spilled) {
+ *             append leftRow to the left spill file of the partition
+ *         } else {
+ *             put leftRow into the hash table of the partition
+ *             if (too many rows in memory or the circuit breaker trips) {
+ *                 spill the largest in-memory partition to disk
+ *             }
+ *         }
  *     }
  *
  *     Probe Phase:
- *     // We iterate on the right until we find a matching row or the right side needs to be loaded a next batch of data
  *     for (rightRow in right) {
- *         if (hash(rightRow) found in Buffer {
- *            for (row in matchedInBuffer) { // Handle duplicate values from left and hash collisions
- *                if (joinCondition matches) {
- *                    // We need to check that the joinCondition matches as we can have a hash collision
- *                    // or the join condition can contain more operators.
- *                    //
- *                    // Row-lookup-by-hash-code can only work by the EQ operators of a join condition,
- *                    // all other possible operators must be checked afterwards.
- *                    emmit(combinedRow)
- *                }
- *            }
+ *         partition = partitionFor(hash(rightRow))
+ *         if (partition is spilled) {
+ *             append rightRow to the right spill file of the partition
+ *         } else {
+ *             for (leftRow in partition.get(hash(rightRow))) { // Handle duplicate values from left and hash collisions
+ *                 if (joinCondition matches) {
+ *                     // We need to check that the joinCondition matches as we can have a hash collision
+ *                     // or the join condition can contain more operators.
+ *                     //
+ *                     // Row-lookup-by-hash-code can only work by the EQ operators of a join condition,
+ *                     // all other possible operators must be checked afterwards.
+ *                     emit(combinedRow)
+ *                 }
+ *             }
  *         }
  *     }
  *
- *     When the right side is all loaded, we reset the right iterator to start, clear the buffer and switch back to
- *     iterate the next elements in the left side and re-build the buffer based on the next items in the left until we
- *     reach the blockSize again.
- *
- *     Repeat until both sides are all loaded and processed.
+ *     Spilled Phase:
+ *     for (partition in spilledPartitions) {
+ *         load the left spill file into a hash table
+ *         probe it with the rows of the right spill file
+ *     }
  * </pre>
  * <p>
+ * Both sides are consumed exactly once; rows of spilled partitions are read a second time from local disk.
+ * If a spilled partition is still too large to fit into memory it is joined in blocks, reading the right spill
+ * file of the partition once per block.
+ * <p>
  * The caller of the constructor needs to pass two functions {@link #hashBuilderForLeft} and {@link #hashBuilderForRight}.
  * Those functions are called on each row of the left and right side respectively and they return the hash value of
  * the relevant columns of the row.
@@ -78,6 +102,15 @@ import java.util.function.ToIntFunction;
  */
 public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
 
+    static final int MIN_PARTITIONS = 8;
+    static final int MAX_PARTITIONS = 64;
+
+    private enum Phase {
+        BUILD,
+        PROBE,
+        SPILLED
+    }
+
     private final RowAccounting<Object[]> leftRowAccounting;
     private final Predicate<Row> joinCondition;
 
@@ -85,20 +118,50 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
      * Used to avoid instantiating multiple times RowN in {@link #findMatchingRows()}
      */
     private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+    private final UnsafeArrayRow spilledRightRow = new UnsafeArrayRow();
     private final ToIntFunction<Row> hashBuilderForLeft;
     private final ToIntFunction<Row> hashBuilderForRight;
-    private final IntSupplier calculateBlockSize;
-    private final IntObjectHashMap<List<Object[]>> buffer;
+    private final IntSupplier maxRowsInMemory;
+
+    @Nullable
+    private final SpillFile.Factory leftSpillFiles;
+    @Nullable
+    private final SpillFile.Factory rightSpillFiles;
 
-    private final UnsafeArrayRow unsafeArrayRow = new UnsafeArrayRow();
+    private final Partition[] partitions;
+    private final int partitionShift;
 
-    private int blockSize;
-    private int numberOfRowsInBuffer = 0;
-    private boolean leftBatchHasItems = false;
-    private int numberOfLeftBatchesForBlock;
-    private int numberOfLeftBatchesLoadedForBlock;
+    /**
+     * Hash table of the spilled partition that is currently joined
+     */
+    private final IntObjectHashMap<List<Object[]>> spilledBuffer = new IntObjectHashMap<>();
+
+    private Phase phase;
+    private int rowsInMemoryLimit;
+    private int numberOfRowsInMemory;
     private Iterator<Object[]> leftMatchingRowsIterator;
 
+    private int spilledPartitionIdx;
+    @Nullable
+    private CloseableIterator<Object[]> spilledLeftRows;
+    @Nullable
+    private CloseableIterator<Object[]> spilledRightRows;
+    @Nullable
+    private Object[] pendingSpilledLeftRow;
+
+    private volatile Throwable killed;
+
+    /**
+     * @param leftRowAccounting accounts the left rows kept in memory. It's released whenever these rows are dropped,
+     *                          so it must only account the rows of this join,
+     *                          see {@link io.crate.breaker.ScopedRamAccounting}.
+     * @param maxRowsInMemory number of left rows which may be kept in memory before partitions are spilled to disk.
+     *                        Partitions are also spilled if the circuit breaker trips on {@code leftRowAccounting}.
+     * @param numPartitions number of partitions, must be a power of two.
+     *                      See {@link #numPartitions(long, int)}
+     * @param leftSpillFiles factory for the spill files of the left rows, spilling is disabled if null.
+     * @param rightSpillFiles factory for the spill files of the right rows, spilling is disabled if null.
+     */
     public HashInnerJoinBatchIterator(BatchIterator<Row> left,
                                       BatchIterator<Row> right,
                                       RowAccounting<Object[]> leftRowAccounting,
@@ -106,18 +169,45 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
                                       Predicate<Row> joinCondition,
                                       ToIntFunction<Row> hashBuilderForLeft,
                                       ToIntFunction<Row> hashBuilderForRight,
-                                      IntSupplier calculateBlockSize) {
+                                      IntSupplier maxRowsInMemory,
+                                      int numPartitions,
+                                      @Nullable SpillFile.Factory leftSpillFiles,
+                                      @Nullable SpillFile.Factory rightSpillFiles) {
         super(left, right, combiner);
+        assert numPartitions > 1 && Integer.bitCount(numPartitions) == 1
+            : "numPartitions must be a power of two greater than 1";
         this.leftRowAccounting = leftRowAccounting;
         this.joinCondition = joinCondition;
         this.hashBuilderForLeft = hashBuilderForLeft;
         this.hashBuilderForRight = hashBuilderForRight;
-        this.calculateBlockSize = calculateBlockSize;
-        // resized upon block size calculation
-        this.buffer = new IntObjectHashMap<>();
-        resetBuffer();
-        numberOfLeftBatchesLoadedForBlock = 0;
-        this.activeIt = left;
+        this.maxRowsInMemory = maxRowsInMemory;
+        if (leftSpillFiles == null || rightSpillFiles == null) {
+            this.leftSpillFiles = null;
+            this.rightSpillFiles = null;
+        } else {
+            this.leftSpillFiles = leftSpillFiles;
+            this.rightSpillFiles = rightSpillFiles;
+        }
+        this.partitions = new Partition[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            partitions[i] = new Partition();
+        }
+        this.partitionShift = Integer.SIZE - Integer.numberOfTrailingZeros(numPartitions);
+        resetState();
+    }
+
+    /**
+     * Calculates the number of partitions so that a single partition of the left side is expected to fit into memory.
+     */
+    public static int numPartitions(long expectedNumberOfLeftRows, int maxRowsInMemory) {
+        int numPartitions = MIN_PARTITIONS;
+        if (expectedNumberOfLeftRows <= 0 || maxRowsInMemory <= 0) {
+            return numPartitions;
+        }
+        while (numPartitions < MAX_PARTITIONS && (long) numPartitions * maxRowsInMemory < expectedNumberOfLeftRows) {
+            numPartitions <<= 1;
+        }
+        return numPartitions;
     }
 
     @Override
@@ -127,107 +217,245 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
 
     @Override
     public void moveToStart() {
-        left.moveToStart();
-        right.moveToStart();
-        activeIt = left;
-        resetBuffer();
-        leftMatchingRowsIterator = null;
+        raiseIfClosedOrKilled();
+        super.moveToStart();
+        releaseResources();
+        leftRowAccounting.release();
+        resetState();
     }
 
     @Override
-    public CompletionStage<?> loadNextBatch() throws Exception {
-        if (activeIt == left) {
-            numberOfLeftBatchesLoadedForBlock++;
+    public boolean moveNext() {
+        raiseIfClosedOrKilled();
+        while (true) {
+            switch (phase) {
+                case BUILD:
+                    if (consumeLeft() == false) {
+                        // left needs the next batch loaded
+                        return false;
+                    }
+                    phase = Phase.PROBE;
+                    activeIt = right;
+                    break;
+
+                case PROBE:
+                    if (matchRight()) {
+                        return true;
+                    }
+                    if (right.allLoaded() == false) {
+                        // need to load the next batch of the right relation
+                        return false;
+                    }
+                    releaseInMemoryPartitions();
+                    phase = Phase.SPILLED;
+                    break;
+
+                case SPILLED:
+                    return matchSpilledPartitions();
+
+                default:
+                    throw new AssertionError("Unexpected phase: " + phase);
+            }
         }
-        return super.loadNextBatch();
     }
 
     @Override
-    public boolean moveNext() {
-        while (buildBufferAndMatchRight() == false) {
-            if (right.allLoaded() && leftBatchHasItems == false && left.allLoaded()) {
-                // both sides are fully loaded, we're done here
-                return false;
-            } else if (activeIt == left) {
-                // left needs the next batch loaded
-                return false;
-            } else if (right.allLoaded()) {
-                right.moveToStart();
-                activeIt = left;
-                resetBuffer();
-            } else {
-                return false;
-            }
+    public void close() {
+        if (killed == BatchIterator.CLOSED) {
+            return;
         }
+        killed = BatchIterator.CLOSED;
+        try {
+            super.close();
+        } finally {
+            releaseResources();
+        }
+    }
 
-        // match found
-        return true;
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        killed = throwable;
+        super.kill(throwable);
     }
 
-    private void resetBuffer() {
-        blockSize = calculateBlockSize.getAsInt();
-        buffer.clear();
-        numberOfRowsInBuffer = 0;
-        leftRowAccounting.release();
+    private void raiseIfClosedOrKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
 
-        // A batch is not guaranteed to deliver PAGE_SIZE number of rows. It could be more or less.
-        // So we cannot rely on that to decide if processing 1 block is done, we must also know and track how much
-        // batches should be required for processing 1 block.
-        numberOfLeftBatchesForBlock = Math.max(1, (int) Math.ceil((double) blockSize / Paging.PAGE_SIZE));
-        numberOfLeftBatchesLoadedForBlock = leftBatchHasItems ? 1 : 0;
+    private void resetState() {
+        phase = Phase.BUILD;
+        activeIt = left;
+        rowsInMemoryLimit = Math.max(1, maxRowsInMemory.getAsInt());
+        numberOfRowsInMemory = 0;
+        leftMatchingRowsIterator = null;
+        spilledPartitionIdx = 0;
     }
 
-    private boolean buildBufferAndMatchRight() {
-        if (activeIt == left) {
-            while (leftBatchHasItems = left.moveNext()) {
-                Object[] leftRow = left.currentElement().materialize();
-                leftRowAccounting.accountForAndMaybeBreak(leftRow);
-                int hash = hashBuilderForLeft.applyAsInt(unsafeArrayRow.cells(leftRow));
-                addToBuffer(leftRow, hash);
-                if (numberOfRowsInBuffer == blockSize) {
-                    break;
-                }
-            }
+    /**
+     * @return true if the left side is fully consumed
+     */
+    private boolean consumeLeft() {
+        while (left.moveNext()) {
+            Row row = left.currentElement();
+            int hash = hashBuilderForLeft.applyAsInt(row);
+            addLeftRow(partitions[partitionIdx(hash)], hash, row.materialize());
+        }
+        return left.allLoaded();
+    }
 
-            if (mustLoadLeftNextBatch()) {
-                // we should load the left side
-                return false;
+    private void addLeftRow(Partition partition, int hash, Object[] row) {
+        while (partition.isSpilled() == false) {
+            if (numberOfRowsInMemory < rowsInMemoryLimit || spillLargestPartition() == false) {
+                try {
+                    long bytes = leftRowAccounting.accountForAndMaybeBreak(row);
+                    partition.add(hash, row, bytes);
+                    numberOfRowsInMemory++;
+                    return;
+                } catch (CircuitBreakingException e) {
+                    if (spillLargestPartition() == false) {
+                        throw e;
+                    }
+                }
             }
+        }
+        partition.leftSpill.add(row);
+    }
 
-            if (mustSwitchToRight()) {
-                activeIt = right;
+    /**
+     * @return false if no partition could be spilled, either because spilling is disabled or because there is no
+     *         partition left with rows in memory.
+     */
+    private boolean spillLargestPartition() {
+        if (leftSpillFiles == null) {
+            return false;
+        }
+        Partition largest = null;
+        for (Partition partition : partitions) {
+            if (partition.isSpilled() == false
+                && partition.numRows > 0
+                && (largest == null || partition.numRows > largest.numRows)) {
+                largest = partition;
             }
         }
+        if (largest == null) {
+            return false;
+        }
+        numberOfRowsInMemory -= largest.numRows;
+        leftRowAccounting.release(largest.bytes);
+        largest.spill(newSpillFile(leftSpillFiles));
+        return true;
+    }
 
+    private boolean matchRight() {
         // In case of multiple matches on the left side (duplicate values or hash collisions)
         if (leftMatchingRowsIterator != null && findMatchingRows()) {
             return true;
         }
         leftMatchingRowsIterator = null;
         while (right.moveNext()) {
-            int rightHash = hashBuilderForRight.applyAsInt(right.currentElement());
-            List<Object[]> leftMatchingRows = buffer.get(rightHash);
+            Row row = right.currentElement();
+            int rightHash = hashBuilderForRight.applyAsInt(row);
+            Partition partition = partitions[partitionIdx(rightHash)];
+            if (partition.isSpilled()) {
+                if (partition.rightSpill == null) {
+                    partition.rightSpill = newSpillFile(rightSpillFiles);
+                }
+                partition.rightSpill.add(row);
+                continue;
+            }
+            List<Object[]> leftMatchingRows = partition.rows.get(rightHash);
             if (leftMatchingRows != null) {
                 leftMatchingRowsIterator = leftMatchingRows.iterator();
-                combiner.setRight(right.currentElement());
+                combiner.setRight(row);
                 if (findMatchingRows()) {
                     return true;
                 }
             }
         }
-
-        // need to load the next batch of the right relation
+        leftMatchingRowsIterator = null;
         return false;
     }
 
-    private void addToBuffer(Object[] currentRow, int hash) {
-        List<Object[]> existingRows = buffer.get(hash);
-        if (existingRows == null) {
-            existingRows = new ArrayList<>();
-            buffer.put(hash, existingRows);
+    private boolean matchSpilledPartitions() {
+        while (true) {
+            if (leftMatchingRowsIterator != null && findMatchingRows()) {
+                return true;
+            }
+            leftMatchingRowsIterator = null;
+            if (spilledRightRows != null) {
+                while (spilledRightRows.hasNext()) {
+                    spilledRightRow.cells(spilledRightRows.next());
+                    List<Object[]> leftMatchingRows = spilledBuffer.get(hashBuilderForRight.applyAsInt(spilledRightRow));
+                    if (leftMatchingRows != null) {
+                        leftMatchingRowsIterator = leftMatchingRows.iterator();
+                        combiner.setRight(spilledRightRow);
+                        if (findMatchingRows()) {
+                            return true;
+                        }
+                    }
+                }
+                spilledRightRows.close();
+                spilledRightRows = null;
+            }
+            if (loadNextSpilledBlock() == false) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Loads the next block of left rows of a spilled partition into {@link #spilledBuffer} and opens the right rows
+     * of the partition for probing.
+     *
+     * @return false if all spilled partitions have been processed
+     */
+    private boolean loadNextSpilledBlock() {
+        spilledBuffer.clear();
+        leftRowAccounting.release();
+        while (pendingSpilledLeftRow == null && (spilledLeftRows == null || spilledLeftRows.hasNext() == false)) {
+            if (spilledLeftRows != null) {
+                spilledLeftRows.close();
+                spilledLeftRows = null;
+                partitions[spilledPartitionIdx].closeSpillFiles();
+                spilledPartitionIdx++;
+            }
+            while (spilledPartitionIdx < partitions.length && partitions[spilledPartitionIdx].hasSpilledMatches() == false) {
+                partitions[spilledPartitionIdx].closeSpillFiles();
+                spilledPartitionIdx++;
+            }
+            if (spilledPartitionIdx == partitions.length) {
+                return false;
+            }
+            spilledLeftRows = partitions[spilledPartitionIdx].leftSpill.read();
         }
-        existingRows.add(currentRow);
-        numberOfRowsInBuffer++;
+
+        int numRows = 0;
+        while (numRows < rowsInMemoryLimit && (pendingSpilledLeftRow != null || spilledLeftRows.hasNext())) {
+            Object[] row;
+            if (pendingSpilledLeftRow == null) {
+                row = spilledLeftRows.next();
+            } else {
+                row = pendingSpilledLeftRow;
+                pendingSpilledLeftRow = null;
+            }
+            try {
+                leftRowAccounting.accountForAndMaybeBreak(row);
+            } catch (CircuitBreakingException e) {
+                if (numRows == 0) {
+                    throw e;
+                }
+                // Join the rows loaded so far and continue with this row in the next block
+                pendingSpilledLeftRow = row;
+                break;
+            }
+            int hash = hashBuilderForLeft.applyAsInt(leftRow.cells(row));
+            addToBuffer(spilledBuffer, hash, row);
+            numRows++;
+        }
+        spilledRightRows = partitions[spilledPartitionIdx].rightSpill.read();
+        return true;
     }
 
     private boolean findMatchingRows() {
@@ -241,16 +469,124 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
         return false;
     }
 
-    private boolean mustSwitchToRight() {
-        return left.allLoaded()
-               || numberOfRowsInBuffer == blockSize
-               || (leftBatchHasItems == false && numberOfLeftBatchesLoadedForBlock == numberOfLeftBatchesForBlock);
+    private int partitionIdx(int hash) {
+        // Use the high bits of the (scrambled) hash, the low bits are used by the hash tables within a partition
+        return (hash * 0x9E3779B9) >>> partitionShift;
+    }
+
+    private void releaseInMemoryPartitions() {
+        clearInMemoryPartitions();
+        leftRowAccounting.release();
+    }
+
+    private void clearInMemoryPartitions() {
+        for (Partition partition : partitions) {
+            partition.rows.clear();
+            partition.numRows = 0;
+            partition.bytes = 0;
+        }
+        numberOfRowsInMemory = 0;
+    }
+
+    /**
+     * Closes the spill files and drops the buffered rows.
+     * The accounted memory is not released here; on close that's up to the owner of the RamAccounting,
+     * which might already have released it.
+     */
+    private void releaseResources() {
+        try {
+            if (spilledLeftRows != null) {
+                spilledLeftRows.close();
+            }
+            if (spilledRightRows != null) {
+                spilledRightRows.close();
+            }
+            ArrayList<Closeable> spillFiles = new ArrayList<>(partitions.length * 2);
+            for (Partition partition : partitions) {
+                spillFiles.add(partition.leftSpill);
+                spillFiles.add(partition.rightSpill);
+                partition.leftSpill = null;
+                partition.rightSpill = null;
+            }
+            IOUtils.close(spillFiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            spilledLeftRows = null;
+            spilledRightRows = null;
+            pendingSpilledLeftRow = null;
+            spilledBuffer.clear();
+            clearInMemoryPartitions();
+        }
+    }
+
+    private static SpillFile newSpillFile(SpillFile.Factory spillFiles) {
+        try {
+            return spillFiles.newSpillFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void addToBuffer(IntObjectHashMap<List<Object[]>> buffer, int hash, Object[] row) {
+        List<Object[]> existingRows = buffer.get(hash);
+        if (existingRows == null) {
+            existingRows = new ArrayList<>();
+            buffer.put(hash, existingRows);
+        }
+        existingRows.add(row);
     }
 
-    private boolean mustLoadLeftNextBatch() {
-        return leftBatchHasItems == false
-               && left.allLoaded() == false
-               && numberOfRowsInBuffer < blockSize
-               && numberOfLeftBatchesLoadedForBlock < numberOfLeftBatchesForBlock;
+    private static final class Partition {
+
+        private final IntObjectHashMap<List<Object[]>> rows = new IntObjectHashMap<>();
+        private int numRows = 0;
+
+        /**
+         * Accounted bytes of the rows in memory
+         */
+        private long bytes = 0;
+
+        @Nullable
+        private SpillFile leftSpill;
+        @Nullable
+        private SpillFile rightSpill;
+
+        boolean isSpilled() {
+            return leftSpill != null;
+        }
+
+        boolean hasSpilledMatches() {
+            return leftSpill != null && rightSpill != null;
+        }
+
+        void add(int hash, Object[] row, long rowBytes) {
+            addToBuffer(rows, hash, row);
+            numRows++;
+            bytes += rowBytes;
+        }
+
+        void spill(SpillFile spillFile) {
+            for (List<Object[]> bucket : rows.values()) {
+                for (Object[] row : bucket) {
+                    spillFile.add(row);
+                }
+            }
+            rows.clear();
+            numRows = 0;
+            bytes = 0;
+            leftSpill = spillFile;
+        }
+
+        void closeSpillFiles() {
+            try {
+                IOUtils.close(leftSpill, rightSpill);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                leftSpill = null;
+                rightSpill = null;
+            }
+        }
     }
 }
@@ -25,18 +25,23 @@ import io.crate.breaker.RowAccounting;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.BatchIterator;
 import io.crate.data.CapturingRowConsumer;
-import io.crate.data.Paging;
 import io.crate.data.Row;
 import io.crate.data.RowConsumer;
 import io.crate.data.join.CombinedRow;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillFile;
 import io.crate.expression.InputFactory;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.TransactionContext;
+import io.crate.planner.node.dql.join.JoinType;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
@@ -49,6 +54,8 @@ public class HashJoinOperation implements CompletionListenable {
     public HashJoinOperation(int numLeftCols,
                              int numRightCols,
                              RowConsumer nlResultConsumer,
+                             JoinType joinType,
+                             boolean nullAware,
                              Predicate<Row> joinPredicate,
                              List<Symbol> joinLeftInputs,
                              List<Symbol> joinRightInputs,
@@ -57,7 +64,9 @@ public class HashJoinOperation implements CompletionListenable {
                              InputFactory inputFactory,
                              CircuitBreaker circuitBreaker,
                              long estimatedRowSizeForLeft,
-                             long numberOfRowsForLeft) {
+                             long numberOfRowsForLeft,
+                             @Nullable SpillFile.Factory leftSpillFiles,
+                             @Nullable SpillFile.Factory rightSpillFiles) {
 
         this.resultConsumer = nlResultConsumer;
         this.leftConsumer = new CapturingRowConsumer(nlResultConsumer.requiresScroll(), nlResultConsumer.completionFuture());
@@ -72,16 +81,19 @@ public class HashJoinOperation implements CompletionListenable {
                             numLeftCols,
                             rightConsumer.capturedBatchIterator().join(),
                             numRightCols,
+                            joinType,
                             joinPredicate,
                             getHashBuilderFromSymbols(txnCtx, inputFactory, joinLeftInputs),
                             getHashBuilderFromSymbols(txnCtx, inputFactory, joinRightInputs),
-                            rowAccounting,
-                            new RamBlockSizeCalculator(
-                                Paging.PAGE_SIZE,
-                                circuitBreaker,
-                                estimatedRowSizeForLeft,
-                                numberOfRowsForLeft
-                            )
+                            nullAware ? getKeyIsNullFromSymbols(txnCtx, inputFactory, joinLeftInputs) : null,
+                            nullAware ? getKeyIsNullFromSymbols(txnCtx, inputFactory, joinRightInputs) : null,
+                            leftSpillFiles == null || rightSpillFiles == null
+                                ? rowAccounting
+                                : new BudgetedRowAccounting(rowAccounting, SpillFile.maxBytesInMemory(circuitBreaker)),
+                            maxRowsInMemory(circuitBreaker, estimatedRowSizeForLeft),
+                            numberOfRowsForLeft,
+                            leftSpillFiles,
+                            rightSpillFiles
                         );
                         nlResultConsumer.accept(joinIterator, null);
                     } catch (Exception e) {
@@ -125,16 +137,96 @@ public class HashJoinOperation implements CompletionListenable {
         };
     }
 
+    private static Predicate<Row> getKeyIsNullFromSymbols(TransactionContext txnCtx,
+                                                          InputFactory inputFactory,
+                                                          List<Symbol> inputs) {
+        InputFactory.Context<? extends CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(txnCtx, inputs);
+        var topLevelInputs = ctx.topLevelInputs();
+        var expressions = ctx.expressions();
+        return row -> {
+            for (int i = 0; i < expressions.size(); i++) {
+                expressions.get(i).setNextRow(row);
+            }
+            for (int i = 0; i < topLevelInputs.size(); i++) {
+                if (topLevelInputs.get(i).value() == null) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * The hash join never switches back to the left side once the right side is consumed, so unlike
+     * {@link RamBlockSizeCalculator} the number of rows in memory doesn't need to be capped by the page size.
+     * The rows are limited to the share of the breaker limit given by {@link SpillFile#maxBytesInMemory(CircuitBreaker)},
+     * like the other operators which spill, so that a single join can't use up the memory of concurrent queries.
+     * Without statistics the rows are only limited by their accounted bytes, see {@link BudgetedRowAccounting}.
+     */
+    private static IntSupplier maxRowsInMemory(CircuitBreaker circuitBreaker, long estimatedRowSizeForLeft) {
+        LongSupplier maxBytesInMemory = SpillFile.maxBytesInMemory(circuitBreaker);
+        return () -> {
+            long maxBytes = maxBytesInMemory.getAsLong();
+            if (estimatedRowSizeForLeft <= 0 || maxBytes == Long.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            }
+            long numRowsFittingIntoMemory = maxBytes / estimatedRowSizeForLeft;
+            return (int) Math.max(10, Math.min(Integer.MAX_VALUE, numRowsFittingIntoMemory));
+        };
+    }
+
     private static BatchIterator<Row> createHashJoinIterator(BatchIterator<Row> left,
                                                              int leftNumCols,
                                                              BatchIterator<Row> right,
                                                              int rightNumCols,
+                                                             JoinType joinType,
                                                              Predicate<Row> joinCondition,
                                                              ToIntFunction<Row> hashBuilderForLeft,
                                                              ToIntFunction<Row> hashBuilderForRight,
+                                                             @Nullable Predicate<Row> leftKeyIsNull,
+                                                             @Nullable Predicate<Row> rightKeyIsNull,
                                                              RowAccounting<Object[]> rowAccounting,
-                                                             RamBlockSizeCalculator blockSizeCalculator) {
+                                                             IntSupplier maxRowsInMemory,
+                                                             long numberOfRowsForLeft,
+                                                             @Nullable SpillFile.Factory leftSpillFiles,
+                                                             @Nullable SpillFile.Factory rightSpillFiles) {
         CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
+        int numPartitions = HashInnerJoinBatchIterator.numPartitions(numberOfRowsForLeft, maxRowsInMemory.getAsInt());
+        if (joinType == JoinType.SEMI || joinType == JoinType.ANTI) {
+            // Without the key null predicates null keys never match (`NOT EXISTS` semantics for ANTI),
+            // with them an ANTI join is null-aware (`NOT IN` semantics)
+            return new HashSemiJoinBatchIterator(
+                left,
+                right,
+                joinType,
+                rowAccounting,
+                combiner,
+                joinCondition,
+                hashBuilderForLeft,
+                hashBuilderForRight,
+                leftKeyIsNull,
+                rightKeyIsNull,
+                maxRowsInMemory,
+                numPartitions,
+                leftSpillFiles,
+                rightSpillFiles);
+        }
+        if (joinType.isOuter()) {
+            return new HashOuterJoinBatchIterator(
+                left,
+                right,
+                joinType,
+                rowAccounting,
+                combiner,
+                joinCondition,
+                hashBuilderForLeft,
+                hashBuilderForRight,
+                maxRowsInMemory,
+                numPartitions,
+                leftSpillFiles,
+                rightSpillFiles);
+        }
+        assert joinType == JoinType.INNER : "Hash join doesn't support joins of type " + joinType;
         return new HashInnerJoinBatchIterator(
             left,
             right,
@@ -143,6 +235,53 @@ public class HashJoinOperation implements CompletionListenable {
             joinCondition,
             hashBuilderForLeft,
             hashBuilderForRight,
-            blockSizeCalculator);
+            maxRowsInMemory,
+            numPartitions,
+            leftSpillFiles,
+            rightSpillFiles);
+    }
+
+    /**
+     * Raises a {@link CircuitBreakingException} once the accounted rows exceed the memory budget, before the
+     * circuit breaker trips. The join iterators react to it by spilling a partition.
+     */
+    static final class BudgetedRowAccounting implements RowAccounting<Object[]> {
+
+        private final RowAccounting<Object[]> delegate;
+        private final LongSupplier maxBytesInMemory;
+        private long bytesInMemory = 0;
+
+        BudgetedRowAccounting(RowAccounting<Object[]> delegate, LongSupplier maxBytesInMemory) {
+            this.delegate = delegate;
+            this.maxBytesInMemory = maxBytesInMemory;
+        }
+
+        @Override
+        public long accountForAndMaybeBreak(Object[] row) {
+            long bytes = delegate.accountForAndMaybeBreak(row);
+            long maxBytes = maxBytesInMemory.getAsLong();
+            if (bytesInMemory + bytes > maxBytes) {
+                delegate.release(bytes);
+                throw new CircuitBreakingException(
+                    "Rows of the hash join exceed the memory limit of " + maxBytes + " bytes",
+                    bytesInMemory + bytes,
+                    maxBytes
+                );
+            }
+            bytesInMemory += bytes;
+            return bytes;
+        }
+
+        @Override
+        public void release() {
+            delegate.release();
+            bytesInMemory = 0;
+        }
+
+        @Override
+        public void release(long bytes) {
+            delegate.release(bytes);
+            bytesInMemory -= bytes;
+        }
     }
 }
@@ -0,0 +1,741 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import com.carrotsearch.hppc.IntArrayList;
+import io.crate.breaker.RowAccounting;
+import io.crate.common.io.IOUtils;
+import io.crate.data.BatchIterator;
+import io.crate.data.CloseableIterator;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.join.JoinBatchIterator;
+import io.crate.exceptions.Exceptions;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.planner.node.dql.join.JoinType;
+import io.netty.util.collection.IntObjectHashMap;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A partitioned (grace) hash join for {@link JoinType#LEFT}, {@link JoinType#RIGHT} and {@link JoinType#FULL} joins.
+ * The left side is the build side, the right side is the probe side.
+ *
+ * <pre>
+ *     Build Phase:
+ *     for (leftRow in left) {
+ *         put leftRow into the hash table of its partition, or into the left spill file of the partition
+ *     }
+ *
+ *     Probe Phase:
+ *     for (rightRow in right) {
+ *         partition = partitionFor(hash(rightRow))
+ *         if (partition is spilled) {
+ *             append rightRow to the right spill file of the partition
+ *         } else {
+ *             for (leftRow in partition.get(hash(rightRow))) {
+ *                 if (joinCondition matches) {
+ *                     mark leftRow as matched
+ *                     emit(leftRow, rightRow)
+ *                 }
+ *             }
+ *             if (RIGHT or FULL join && no leftRow matched) {
+ *                 emit(null, rightRow)
+ *             }
+ *         }
+ *     }
+ *     if (LEFT or FULL join) {
+ *         emit(leftRow, null) for all in-memory leftRows which are not marked as matched
+ *     }
+ *
+ *     Spilled Phase:
+ *     for (spilledPartition in spilledPartitions) {
+ *         for (block of leftRows in spilledPartition) {
+ *             probe the block with the right spill file of the partition as in the probe phase,
+ *             but only mark the unmatched right rows instead of emitting them
+ *             if (LEFT or FULL join) {
+ *                 emit(leftRow, null) for all leftRows of the block which are not marked as matched
+ *             }
+ *         }
+ *         if (RIGHT or FULL join) {
+ *             emit(null, rightRow) for all rows of the right spill file which didn't match any block
+ *         }
+ *     }
+ * </pre>
+ * <p>
+ * The matched rows are tracked with a {@link BitSet} per hash table (position of a left row in the table), and
+ * per spilled partition (position of a right row in the right spill file).
+ * <p>
+ * The sides of RIGHT joins are usually switched to LEFT joins by the planner; the build side should be the smaller one.
+ */
+public class HashOuterJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
+
+    private enum Phase {
+        BUILD,
+        PROBE,
+        EMIT_UNMATCHED_LEFT,
+        NEXT_SPILLED_BLOCK,
+        PROBE_SPILLED_BLOCK,
+        EMIT_UNMATCHED_LEFT_OF_SPILLED_BLOCK,
+        EMIT_UNMATCHED_SPILLED_RIGHT
+    }
+
+    private final boolean emitUnmatchedLeft;
+    private final boolean emitUnmatchedRight;
+    private final RowAccounting<Object[]> leftRowAccounting;
+    private final Predicate<Row> joinCondition;
+    private final ToIntFunction<Row> hashBuilderForLeft;
+    private final ToIntFunction<Row> hashBuilderForRight;
+    private final IntSupplier maxRowsInMemory;
+
+    @Nullable
+    private final SpillFile.Factory leftSpillFiles;
+    @Nullable
+    private final SpillFile.Factory rightSpillFiles;
+
+    private final Partition[] partitions;
+    private final int partitionShift;
+
+    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+    private final UnsafeArrayRow spilledRightRow = new UnsafeArrayRow();
+
+    /**
+     * Hash table of the spilled partition block that is currently joined
+     */
+    private final Table spilledBlock = new Table();
+
+    /**
+     * Positions of the rows in the right spill file of the current spilled partition which matched a left row
+     */
+    private final BitSet matchedSpilledRightRows = new BitSet();
+
+    private Phase phase;
+    private int rowsInMemoryLimit;
+    private int numberOfRowsInMemory;
+
+    @Nullable
+    private Row probeRow;
+    private int probeRowPosition;
+    private boolean probeRowMatched;
+    private Table probeTable;
+    @Nullable
+    private IntArrayList candidates;
+    private int candidateIdx;
+
+    private int emitPartitionIdx;
+    private int emitPosition;
+
+    private int spilledPartitionIdx;
+    @Nullable
+    private CloseableIterator<Object[]> spilledLeftRows;
+    @Nullable
+    private Object[] pendingSpilledLeftRow;
+    @Nullable
+    private CloseableIterator<Object[]> spilledRightRows;
+    private int spilledRightPosition;
+
+    private volatile Throwable killed;
+
+    /**
+     * @param joinType {@link JoinType#LEFT}, {@link JoinType#RIGHT} or {@link JoinType#FULL}
+     * @param leftRowAccounting accounts the left rows kept in memory. It's released whenever these rows are dropped,
+     *                          so it must only account the rows of this join,
+     *                          see {@link io.crate.breaker.ScopedRamAccounting}.
+     * @param maxRowsInMemory number of left rows which may be kept in memory before partitions are spilled to disk.
+     * @param numPartitions number of partitions, must be a power of two.
+     *                      See {@link HashInnerJoinBatchIterator#numPartitions(long, int)}
+     * @param leftSpillFiles factory for the spill files of the left rows, spilling is disabled if null.
+     * @param rightSpillFiles factory for the spill files of the right rows, spilling is disabled if null.
+     */
+    public HashOuterJoinBatchIterator(BatchIterator<Row> left,
+                                      BatchIterator<Row> right,
+                                      JoinType joinType,
+                                      RowAccounting<Object[]> leftRowAccounting,
+                                      CombinedRow combiner,
+                                      Predicate<Row> joinCondition,
+                                      ToIntFunction<Row> hashBuilderForLeft,
+                                      ToIntFunction<Row> hashBuilderForRight,
+                                      IntSupplier maxRowsInMemory,
+                                      int numPartitions,
+                                      @Nullable SpillFile.Factory leftSpillFiles,
+                                      @Nullable SpillFile.Factory rightSpillFiles) {
+        super(left, right, combiner);
+        assert joinType.isOuter() : "joinType must be LEFT, RIGHT or FULL";
+        assert numPartitions > 1 && Integer.bitCount(numPartitions) == 1
+            : "numPartitions must be a power of two greater than 1";
+        this.emitUnmatchedLeft = joinType == JoinType.LEFT || joinType == JoinType.FULL;
+        this.emitUnmatchedRight = joinType == JoinType.RIGHT || joinType == JoinType.FULL;
+        this.leftRowAccounting = leftRowAccounting;
+        this.joinCondition = joinCondition;
+        this.hashBuilderForLeft = hashBuilderForLeft;
+        this.hashBuilderForRight = hashBuilderForRight;
+        this.maxRowsInMemory = maxRowsInMemory;
+        if (leftSpillFiles == null || rightSpillFiles == null) {
+            this.leftSpillFiles = null;
+            this.rightSpillFiles = null;
+        } else {
+            this.leftSpillFiles = leftSpillFiles;
+            this.rightSpillFiles = rightSpillFiles;
+        }
+        this.partitions = new Partition[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            partitions[i] = new Partition();
+        }
+        this.partitionShift = Integer.SIZE - Integer.numberOfTrailingZeros(numPartitions);
+        resetState();
+    }
+
+    @Override
+    public void moveToStart() {
+        raiseIfClosedOrKilled();
+        super.moveToStart();
+        releaseResources();
+        leftRowAccounting.release();
+        resetState();
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfClosedOrKilled();
+        while (true) {
+            switch (phase) {
+                case BUILD:
+                    if (consumeLeft() == false) {
+                        // left needs the next batch loaded
+                        return false;
+                    }
+                    phase = Phase.PROBE;
+                    activeIt = right;
+                    break;
+
+                case PROBE:
+                    if (emitNextMatch()) {
+                        return true;
+                    }
+                    if (moveToNextRightRow() == false) {
+                        if (right.allLoaded() == false) {
+                            // need to load the next batch of the right relation
+                            return false;
+                        }
+                        emitPartitionIdx = 0;
+                        emitPosition = 0;
+                        phase = Phase.EMIT_UNMATCHED_LEFT;
+                    }
+                    break;
+
+                case EMIT_UNMATCHED_LEFT:
+                    if (emitUnmatchedLeft && emitNextUnmatchedInMemoryLeftRow()) {
+                        return true;
+                    }
+                    releaseInMemoryPartitions();
+                    phase = Phase.NEXT_SPILLED_BLOCK;
+                    break;
+
+                case NEXT_SPILLED_BLOCK:
+                    if (loadNextSpilledBlock() == false) {
+                        return false;
+                    }
+                    phase = Phase.PROBE_SPILLED_BLOCK;
+                    break;
+
+                case PROBE_SPILLED_BLOCK:
+                    if (emitNextMatch()) {
+                        return true;
+                    }
+                    if (moveToNextSpilledRightRow() == false) {
+                        emitPosition = 0;
+                        phase = Phase.EMIT_UNMATCHED_LEFT_OF_SPILLED_BLOCK;
+                    }
+                    break;
+
+                case EMIT_UNMATCHED_LEFT_OF_SPILLED_BLOCK:
+                    if (emitUnmatchedLeft && emitNextUnmatchedLeftRow(spilledBlock)) {
+                        return true;
+                    }
+                    finishSpilledBlock();
+                    break;
+
+                case EMIT_UNMATCHED_SPILLED_RIGHT:
+                    if (emitNextUnmatchedSpilledRightRow()) {
+                        return true;
+                    }
+                    closeSpilledPartition();
+                    phase = Phase.NEXT_SPILLED_BLOCK;
+                    break;
+
+                default:
+                    throw new AssertionError("Unexpected phase: " + phase);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (killed == BatchIterator.CLOSED) {
+            return;
+        }
+        killed = BatchIterator.CLOSED;
+        try {
+            super.close();
+        } finally {
+            releaseResources();
+        }
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        killed = throwable;
+        super.kill(throwable);
+    }
+
+    private void raiseIfClosedOrKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+
+    private void resetState() {
+        phase = Phase.BUILD;
+        activeIt = left;
+        rowsInMemoryLimit = Math.max(1, maxRowsInMemory.getAsInt());
+        numberOfRowsInMemory = 0;
+        probeRow = null;
+        candidates = null;
+        emitPartitionIdx = 0;
+        emitPosition = 0;
+        spilledPartitionIdx = 0;
+    }
+
+    /**
+     * @return true if the left side is fully consumed
+     */
+    private boolean consumeLeft() {
+        while (left.moveNext()) {
+            Row row = left.currentElement();
+            int hash = hashBuilderForLeft.applyAsInt(row);
+            addLeftRow(partitions[partitionIdx(hash)], hash, row.materialize());
+        }
+        return left.allLoaded();
+    }
+
+    private void addLeftRow(Partition partition, int hash, Object[] row) {
+        while (partition.isSpilled() == false) {
+            if (numberOfRowsInMemory < rowsInMemoryLimit || spillLargestPartition() == false) {
+                try {
+                    long bytes = leftRowAccounting.accountForAndMaybeBreak(row);
+                    partition.add(hash, row, bytes);
+                    numberOfRowsInMemory++;
+                    return;
+                } catch (CircuitBreakingException e) {
+                    if (spillLargestPartition() == false) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        partition.leftSpill.add(row);
+    }
+
+    /**
+     * @return false if no partition could be spilled, either because spilling is disabled or because there is no
+     *         partition left with rows in memory.
+     */
+    private boolean spillLargestPartition() {
+        if (leftSpillFiles == null) {
+            return false;
+        }
+        Partition largest = null;
+        for (Partition partition : partitions) {
+            if (partition.isSpilled() == false
+                && partition.table.size() > 0
+                && (largest == null || partition.table.size() > largest.table.size())) {
+                largest = partition;
+            }
+        }
+        if (largest == null) {
+            return false;
+        }
+        numberOfRowsInMemory -= largest.table.size();
+        leftRowAccounting.release(largest.bytes);
+        largest.spill(newSpillFile(leftSpillFiles));
+        return true;
+    }
+
+    /**
+     * Moves to the next right row whose partition is in memory and prepares it to be probed.
+     * Rows of spilled partitions are appended to the right spill file of the partition.
+     *
+     * @return false if there is no right row left in the current batch
+     */
+    private boolean moveToNextRightRow() {
+        while (right.moveNext()) {
+            Row row = right.currentElement();
+            int hash = hashBuilderForRight.applyAsInt(row);
+            Partition partition = partitions[partitionIdx(hash)];
+            if (partition.isSpilled()) {
+                if (partition.rightSpill == null) {
+                    partition.rightSpill = newSpillFile(rightSpillFiles);
+                }
+                partition.rightSpill.add(row);
+            } else {
+                startProbe(row, -1, partition.table, hash);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return false if the right spill file of the current spilled partition has been fully probed
+     */
+    private boolean moveToNextSpilledRightRow() {
+        if (spilledRightRows == null) {
+            return false;
+        }
+        if (spilledRightRows.hasNext() == false) {
+            spilledRightRows.close();
+            spilledRightRows = null;
+            return false;
+        }
+        spilledRightRow.cells(spilledRightRows.next());
+        startProbe(spilledRightRow, spilledRightPosition, spilledBlock, hashBuilderForRight.applyAsInt(spilledRightRow));
+        spilledRightPosition++;
+        return true;
+    }
+
+    private void startProbe(Row row, int position, Table table, int hash) {
+        probeRow = row;
+        probeRowPosition = position;
+        probeRowMatched = false;
+        probeTable = table;
+        candidates = table.positionsByHash.get(hash);
+        candidateIdx = 0;
+    }
+
+    /**
+     * Emits the next match of the current probe row; or the probe row with nulls for the left side if it doesn't
+     * match any left row. Right rows of a spilled partition are only marked as matched because they can still
+     * match a left row of another block.
+     *
+     * @return false if there is nothing left to emit for the current probe row
+     */
+    private boolean emitNextMatch() {
+        if (probeRow == null) {
+            return false;
+        }
+        if (candidates != null) {
+            combiner.setRight(probeRow);
+            while (candidateIdx < candidates.size()) {
+                int position = candidates.get(candidateIdx++);
+                leftRow.cells(probeTable.rows.get(position));
+                combiner.setLeft(leftRow);
+                if (joinCondition.test(combiner.currentElement())) {
+                    probeTable.matched.set(position);
+                    probeRowMatched = true;
+                    return true;
+                }
+            }
+        }
+        Row row = probeRow;
+        probeRow = null;
+        candidates = null;
+        if (probeRowPosition >= 0) {
+            if (probeRowMatched) {
+                matchedSpilledRightRows.set(probeRowPosition);
+            }
+            return false;
+        }
+        if (emitUnmatchedRight && probeRowMatched == false) {
+            combiner.nullLeft();
+            combiner.setRight(row);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean emitNextUnmatchedInMemoryLeftRow() {
+        while (emitPartitionIdx < partitions.length) {
+            if (emitNextUnmatchedLeftRow(partitions[emitPartitionIdx].table)) {
+                return true;
+            }
+            emitPartitionIdx++;
+            emitPosition = 0;
+        }
+        return false;
+    }
+
+    private boolean emitNextUnmatchedLeftRow(Table table) {
+        int position = table.matched.nextClearBit(emitPosition);
+        if (position >= table.size()) {
+            return false;
+        }
+        emitPosition = position + 1;
+        leftRow.cells(table.rows.get(position));
+        combiner.setLeft(leftRow);
+        combiner.nullRight();
+        return true;
+    }
+
+    private boolean emitNextUnmatchedSpilledRightRow() {
+        while (spilledRightRows.hasNext()) {
+            Object[] row = spilledRightRows.next();
+            int position = spilledRightPosition++;
+            if (matchedSpilledRightRows.get(position) == false) {
+                spilledRightRow.cells(row);
+                combiner.nullLeft();
+                combiner.setRight(spilledRightRow);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads the next block of left rows of a spilled partition into {@link #spilledBlock} and opens the right spill
+     * file of the partition to probe the block.
+     *
+     * @return false if all spilled partitions have been processed
+     */
+    private boolean loadNextSpilledBlock() {
+        spilledBlock.clear();
+        leftRowAccounting.release();
+        if (spilledLeftRows == null) {
+            // Without right rows, only a LEFT or FULL join emits rows of the partition
+            while (spilledPartitionIdx < partitions.length
+                   && (partitions[spilledPartitionIdx].isSpilled() == false
+                       || (emitUnmatchedLeft == false && partitions[spilledPartitionIdx].rightSpill == null))) {
+                partitions[spilledPartitionIdx].closeSpillFiles();
+                spilledPartitionIdx++;
+            }
+            if (spilledPartitionIdx == partitions.length) {
+                return false;
+            }
+            matchedSpilledRightRows.clear();
+            spilledLeftRows = partitions[spilledPartitionIdx].leftSpill.read();
+        }
+
+        int numRows = 0;
+        while (numRows < rowsInMemoryLimit && (pendingSpilledLeftRow != null || spilledLeftRows.hasNext())) {
+            Object[] row;
+            if (pendingSpilledLeftRow == null) {
+                row = spilledLeftRows.next();
+            } else {
+                row = pendingSpilledLeftRow;
+                pendingSpilledLeftRow = null;
+            }
+            try {
+                leftRowAccounting.accountForAndMaybeBreak(row);
+            } catch (CircuitBreakingException e) {
+                if (numRows == 0) {
+                    throw e;
+                }
+                // Join the rows loaded so far and continue with this row in the next block
+                pendingSpilledLeftRow = row;
+                break;
+            }
+            spilledBlock.add(hashBuilderForLeft.applyAsInt(leftRow.cells(row)), row);
+            numRows++;
+        }
+        SpillFile rightSpill = partitions[spilledPartitionIdx].rightSpill;
+        if (rightSpill != null) {
+            spilledRightRows = rightSpill.read();
+            spilledRightPosition = 0;
+        }
+        return true;
+    }
+
+    private void finishSpilledBlock() {
+        if (pendingSpilledLeftRow != null || spilledLeftRows.hasNext()) {
+            phase = Phase.NEXT_SPILLED_BLOCK;
+            return;
+        }
+        spilledLeftRows.close();
+        spilledLeftRows = null;
+        spilledBlock.clear();
+        leftRowAccounting.release();
+        SpillFile rightSpill = partitions[spilledPartitionIdx].rightSpill;
+        if (emitUnmatchedRight && rightSpill != null) {
+            spilledRightRows = rightSpill.read();
+            spilledRightPosition = 0;
+            phase = Phase.EMIT_UNMATCHED_SPILLED_RIGHT;
+        } else {
+            closeSpilledPartition();
+            phase = Phase.NEXT_SPILLED_BLOCK;
+        }
+    }
+
+    private void closeSpilledPartition() {
+        if (spilledRightRows != null) {
+            spilledRightRows.close();
+            spilledRightRows = null;
+        }
+        matchedSpilledRightRows.clear();
+        partitions[spilledPartitionIdx].closeSpillFiles();
+        spilledPartitionIdx++;
+    }
+
+    private int partitionIdx(int hash) {
+        // Use the high bits of the (scrambled) hash, the low bits are used by the hash tables within a partition
+        return (hash * 0x9E3779B9) >>> partitionShift;
+    }
+
+    private void releaseInMemoryPartitions() {
+        clearInMemoryPartitions();
+        leftRowAccounting.release();
+    }
+
+    private void clearInMemoryPartitions() {
+        for (Partition partition : partitions) {
+            partition.table.clear();
+            partition.bytes = 0;
+        }
+        numberOfRowsInMemory = 0;
+        probeRow = null;
+        candidates = null;
+    }
+
+    /**
+     * Closes the spill files and drops the buffered rows.
+     * The accounted memory is not released here; on close that's up to the owner of the RamAccounting,
+     * which might already have released it.
+     */
+    private void releaseResources() {
+        try {
+            if (spilledLeftRows != null) {
+                spilledLeftRows.close();
+            }
+            if (spilledRightRows != null) {
+                spilledRightRows.close();
+            }
+            ArrayList<Closeable> spillFiles = new ArrayList<>(partitions.length * 2);
+            for (Partition partition : partitions) {
+                spillFiles.add(partition.leftSpill);
+                spillFiles.add(partition.rightSpill);
+                partition.leftSpill = null;
+                partition.rightSpill = null;
+            }
+            IOUtils.close(spillFiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            spilledLeftRows = null;
+            spilledRightRows = null;
+            pendingSpilledLeftRow = null;
+            spilledBlock.clear();
+            matchedSpilledRightRows.clear();
+            clearInMemoryPartitions();
+        }
+    }
+
+    private static SpillFile newSpillFile(SpillFile.Factory spillFiles) {
+        try {
+            return spillFiles.newSpillFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Left rows by their position, the positions by hash and which of the rows matched a right row.
+     */
+    private static final class Table {
+
+        private final ArrayList<Object[]> rows = new ArrayList<>();
+        private final IntObjectHashMap<IntArrayList> positionsByHash = new IntObjectHashMap<>();
+        private final BitSet matched = new BitSet();
+
+        int size() {
+            return rows.size();
+        }
+
+        void add(int hash, Object[] row) {
+            IntArrayList positions = positionsByHash.get(hash);
+            if (positions == null) {
+                positions = new IntArrayList();
+                positionsByHash.put(hash, positions);
+            }
+            positions.add(rows.size());
+            rows.add(row);
+        }
+
+        void clear() {
+            rows.clear();
+            positionsByHash.clear();
+            matched.clear();
+        }
+    }
+
+    private static final class Partition {
+
+        private final Table table = new Table();
+
+        /**
+         * Accounted bytes of the rows in memory
+         */
+        private long bytes = 0;
+
+        @Nullable
+        private SpillFile leftSpill;
+        @Nullable
+        private SpillFile rightSpill;
+
+        boolean isSpilled() {
+            return leftSpill != null;
+        }
+
+        void add(int hash, Object[] row, long rowBytes) {
+            table.add(hash, row);
+            bytes += rowBytes;
+        }
+
+        void spill(SpillFile spillFile) {
+            for (Object[] row : table.rows) {
+                spillFile.add(row);
+            }
+            table.clear();
+            bytes = 0;
+            leftSpill = spillFile;
+        }
+
+        void closeSpillFiles() {
+            try {
+                IOUtils.close(leftSpill, rightSpill);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                leftSpill = null;
+                rightSpill = null;
+            }
+        }
+    }
+}
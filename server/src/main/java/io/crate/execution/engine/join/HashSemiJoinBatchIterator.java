@@ -0,0 +1,642 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.breaker.RowAccounting;
+import io.crate.common.io.IOUtils;
+import io.crate.data.BatchIterator;
+import io.crate.data.CloseableIterator;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.join.JoinBatchIterator;
+import io.crate.exceptions.Exceptions;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.planner.node.dql.join.JoinType;
+import io.netty.util.collection.IntObjectHashMap;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A partitioned (grace) hash join for {@link JoinType#SEMI} and {@link JoinType#ANTI} joins.
+ * It emits the rows of the left side which have (SEMI) or don't have (ANTI) a matching row on the right side.
+ *
+ * <pre>
+ *     Build Phase:
+ *     for (leftRow in left) {
+ *         put leftRow into the hash table of its partition, or into the left spill file of the partition
+ *     }
+ *
+ *     Probe Phase:
+ *     for (rightRow in right) {
+ *         partition = partitionFor(hash(rightRow))
+ *         if (partition is spilled) {
+ *             append rightRow to the right spill file of the partition
+ *         } else {
+ *             for (leftRow in partition.get(hash(rightRow))) {
+ *                 if (leftRow not yet matched && joinCondition matches) {
+ *                     mark leftRow as matched
+ *                 }
+ *             }
+ *         }
+ *     }
+ *
+ *     Emit Phase:
+ *     for (leftRow in in-memory partitions) {
+ *         emit if matched (SEMI) or not matched (ANTI)
+ *     }
+ *
+ *     Spilled Phase:
+ *     for (block of leftRows in spilledPartitions) {
+ *         mark the left rows of the block using the rows of the right spill file of the partition
+ *         emit the left rows of the block as in the emit phase
+ *     }
+ * </pre>
+ * <p>
+ * Unlike the nested loop variants, each side is consumed only once and each right row is only compared with
+ * the left rows that have the same hash.
+ * The left rows are emitted after the right side has been consumed, in no particular order.
+ * <p>
+ * If {@code leftKeyIsNull} and {@code rightKeyIsNull} are provided, an ANTI join is null-aware and follows the
+ * semantics of {@code NOT IN}: No rows are emitted if the right side contains a null key, and left rows
+ * with a null key are only emitted if the right side is empty.
+ * Otherwise null keys never match, which corresponds to {@code NOT EXISTS}.
+ */
+public class HashSemiJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
+
+    private enum Phase {
+        BUILD,
+        PROBE,
+        EMIT,
+        SPILLED
+    }
+
+    private final boolean anti;
+    private final RowAccounting<Object[]> leftRowAccounting;
+    private final Predicate<Row> joinCondition;
+    private final ToIntFunction<Row> hashBuilderForLeft;
+    private final ToIntFunction<Row> hashBuilderForRight;
+    @Nullable
+    private final Predicate<Row> leftKeyIsNull;
+    @Nullable
+    private final Predicate<Row> rightKeyIsNull;
+    private final IntSupplier maxRowsInMemory;
+
+    @Nullable
+    private final SpillFile.Factory leftSpillFiles;
+    @Nullable
+    private final SpillFile.Factory rightSpillFiles;
+
+    private final Partition[] partitions;
+    private final int partitionShift;
+
+    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+    private final UnsafeArrayRow spilledRightRow = new UnsafeArrayRow();
+
+    /**
+     * Hash table of the spilled partition block that is currently joined
+     */
+    private final IntObjectHashMap<List<LeftRow>> spilledBuffer = new IntObjectHashMap<>();
+
+    private Phase phase;
+    private int rowsInMemoryLimit;
+    private int numberOfRowsInMemory;
+    private boolean rightHasRows;
+    private boolean rightHasNullKey;
+    private Iterator<LeftRow> rowsToEmit;
+
+    private int spilledPartitionIdx;
+    @Nullable
+    private CloseableIterator<Object[]> spilledLeftRows;
+    @Nullable
+    private Object[] pendingSpilledLeftRow;
+
+    private volatile Throwable killed;
+
+    /**
+     * @param joinType {@link JoinType#SEMI} or {@link JoinType#ANTI}
+     * @param leftKeyIsNull tests if a left row has a null join key; makes an ANTI join null-aware together with
+     *                      {@code rightKeyIsNull}
+     * @param leftRowAccounting accounts the left rows kept in memory. It's released whenever these rows are dropped,
+     *                          so it must only account the rows of this join,
+     *                          see {@link io.crate.breaker.ScopedRamAccounting}.
+     * @param maxRowsInMemory number of left rows which may be kept in memory before partitions are spilled to disk.
+     * @param numPartitions number of partitions, must be a power of two.
+     *                      See {@link HashInnerJoinBatchIterator#numPartitions(long, int)}
+     * @param leftSpillFiles factory for the spill files of the left rows, spilling is disabled if null.
+     * @param rightSpillFiles factory for the spill files of the right rows, spilling is disabled if null.
+     */
+    public HashSemiJoinBatchIterator(BatchIterator<Row> left,
+                                     BatchIterator<Row> right,
+                                     JoinType joinType,
+                                     RowAccounting<Object[]> leftRowAccounting,
+                                     CombinedRow combiner,
+                                     Predicate<Row> joinCondition,
+                                     ToIntFunction<Row> hashBuilderForLeft,
+                                     ToIntFunction<Row> hashBuilderForRight,
+                                     @Nullable Predicate<Row> leftKeyIsNull,
+                                     @Nullable Predicate<Row> rightKeyIsNull,
+                                     IntSupplier maxRowsInMemory,
+                                     int numPartitions,
+                                     @Nullable SpillFile.Factory leftSpillFiles,
+                                     @Nullable SpillFile.Factory rightSpillFiles) {
+        super(left, right, combiner);
+        assert joinType == JoinType.SEMI || joinType == JoinType.ANTI : "joinType must be SEMI or ANTI";
+        assert numPartitions > 1 && Integer.bitCount(numPartitions) == 1
+            : "numPartitions must be a power of two greater than 1";
+        this.anti = joinType == JoinType.ANTI;
+        this.leftRowAccounting = leftRowAccounting;
+        this.joinCondition = joinCondition;
+        this.hashBuilderForLeft = hashBuilderForLeft;
+        this.hashBuilderForRight = hashBuilderForRight;
+        if (anti && leftKeyIsNull != null && rightKeyIsNull != null) {
+            this.leftKeyIsNull = leftKeyIsNull;
+            this.rightKeyIsNull = rightKeyIsNull;
+        } else {
+            this.leftKeyIsNull = null;
+            this.rightKeyIsNull = null;
+        }
+        this.maxRowsInMemory = maxRowsInMemory;
+        if (leftSpillFiles == null || rightSpillFiles == null) {
+            this.leftSpillFiles = null;
+            this.rightSpillFiles = null;
+        } else {
+            this.leftSpillFiles = leftSpillFiles;
+            this.rightSpillFiles = rightSpillFiles;
+        }
+        this.partitions = new Partition[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            partitions[i] = new Partition();
+        }
+        this.partitionShift = Integer.SIZE - Integer.numberOfTrailingZeros(numPartitions);
+        resetState();
+    }
+
+    @Override
+    public Row currentElement() {
+        return leftRow;
+    }
+
+    @Override
+    public void moveToStart() {
+        raiseIfClosedOrKilled();
+        super.moveToStart();
+        releaseResources();
+        leftRowAccounting.release();
+        resetState();
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfClosedOrKilled();
+        while (true) {
+            switch (phase) {
+                case BUILD:
+                    if (consumeLeft() == false) {
+                        // left needs the next batch loaded
+                        return false;
+                    }
+                    phase = Phase.PROBE;
+                    activeIt = right;
+                    break;
+
+                case PROBE:
+                    if (consumeRight() == false) {
+                        // need to load the next batch of the right relation
+                        return false;
+                    }
+                    rowsToEmit = inMemoryRows();
+                    phase = Phase.EMIT;
+                    break;
+
+                case EMIT:
+                    if (emitNext()) {
+                        return true;
+                    }
+                    releaseInMemoryPartitions();
+                    phase = Phase.SPILLED;
+                    break;
+
+                case SPILLED:
+                    if (emitNext()) {
+                        return true;
+                    }
+                    if (loadAndProbeNextSpilledBlock() == false) {
+                        return false;
+                    }
+                    break;
+
+                default:
+                    throw new AssertionError("Unexpected phase: " + phase);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (killed == BatchIterator.CLOSED) {
+            return;
+        }
+        killed = BatchIterator.CLOSED;
+        try {
+            super.close();
+        } finally {
+            releaseResources();
+        }
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        killed = throwable;
+        super.kill(throwable);
+    }
+
+    private void raiseIfClosedOrKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+
+    private void resetState() {
+        phase = Phase.BUILD;
+        activeIt = left;
+        rowsInMemoryLimit = Math.max(1, maxRowsInMemory.getAsInt());
+        numberOfRowsInMemory = 0;
+        rightHasRows = false;
+        rightHasNullKey = false;
+        rowsToEmit = Collections.emptyIterator();
+        spilledPartitionIdx = 0;
+    }
+
+    /**
+     * @return true if the left side is fully consumed
+     */
+    private boolean consumeLeft() {
+        while (left.moveNext()) {
+            Row row = left.currentElement();
+            int hash = hashBuilderForLeft.applyAsInt(row);
+            addLeftRow(partitions[partitionIdx(hash)], hash, row.materialize());
+        }
+        return left.allLoaded();
+    }
+
+    private void addLeftRow(Partition partition, int hash, Object[] row) {
+        while (partition.isSpilled() == false) {
+            if (numberOfRowsInMemory < rowsInMemoryLimit || spillLargestPartition() == false) {
+                try {
+                    long bytes = leftRowAccounting.accountForAndMaybeBreak(row);
+                    partition.add(hash, row, bytes);
+                    numberOfRowsInMemory++;
+                    return;
+                } catch (CircuitBreakingException e) {
+                    if (spillLargestPartition() == false) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        partition.leftSpill.add(row);
+    }
+
+    /**
+     * @return false if no partition could be spilled, either because spilling is disabled or because there is no
+     *         partition left with rows in memory.
+     */
+    private boolean spillLargestPartition() {
+        if (leftSpillFiles == null) {
+            return false;
+        }
+        Partition largest = null;
+        for (Partition partition : partitions) {
+            if (partition.isSpilled() == false
+                && partition.numRows > 0
+                && (largest == null || partition.numRows > largest.numRows)) {
+                largest = partition;
+            }
+        }
+        if (largest == null) {
+            return false;
+        }
+        numberOfRowsInMemory -= largest.numRows;
+        leftRowAccounting.release(largest.bytes);
+        largest.spill(newSpillFile(leftSpillFiles));
+        return true;
+    }
+
+    /**
+     * Marks the in-memory left rows which match a right row and spills right rows of spilled partitions.
+     *
+     * @return true if the right side is fully consumed
+     */
+    private boolean consumeRight() {
+        while (right.moveNext()) {
+            Row row = right.currentElement();
+            rightHasRows = true;
+            if (rightKeyIsNull != null && rightKeyIsNull.test(row)) {
+                rightHasNullKey = true;
+            }
+            int rightHash = hashBuilderForRight.applyAsInt(row);
+            Partition partition = partitions[partitionIdx(rightHash)];
+            if (partition.isSpilled()) {
+                if (partition.rightSpill == null) {
+                    partition.rightSpill = newSpillFile(rightSpillFiles);
+                }
+                partition.rightSpill.add(row);
+            } else {
+                markMatchingRows(partition.rows.get(rightHash), row);
+            }
+        }
+        return right.allLoaded();
+    }
+
+    private void markMatchingRows(@Nullable List<LeftRow> candidates, Row right) {
+        if (candidates == null) {
+            return;
+        }
+        combiner.setRight(right);
+        for (int i = 0; i < candidates.size(); i++) {
+            LeftRow candidate = candidates.get(i);
+            if (candidate.matched == false) {
+                leftRow.cells(candidate.cells);
+                combiner.setLeft(leftRow);
+                if (joinCondition.test(combiner.currentElement())) {
+                    candidate.matched = true;
+                }
+            }
+        }
+    }
+
+    private boolean emitNext() {
+        while (rowsToEmit.hasNext()) {
+            LeftRow row = rowsToEmit.next();
+            if (row.matched == anti) {
+                continue;
+            }
+            leftRow.cells(row.cells);
+            if (leftKeyIsNull != null && (rightHasNullKey || (rightHasRows && leftKeyIsNull.test(leftRow)))) {
+                // NOT IN: `x NOT IN (.., null)` and `null NOT IN (..)` are null, not true
+                continue;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private Iterator<LeftRow> inMemoryRows() {
+        ArrayList<Iterator<LeftRow>> iterators = new ArrayList<>(partitions.length);
+        for (Partition partition : partitions) {
+            if (partition.isSpilled() == false) {
+                for (List<LeftRow> rows : partition.rows.values()) {
+                    iterators.add(rows.iterator());
+                }
+            }
+        }
+        return concat(iterators);
+    }
+
+    private static Iterator<LeftRow> concat(List<Iterator<LeftRow>> iterators) {
+        Iterator<Iterator<LeftRow>> it = iterators.iterator();
+        return new Iterator<>() {
+
+            Iterator<LeftRow> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (current.hasNext() == false && it.hasNext()) {
+                    current = it.next();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public LeftRow next() {
+                hasNext();
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Loads the next block of left rows of a spilled partition into {@link #spilledBuffer}, marks the rows that
+     * match a row of the right spill file of the partition and prepares them to be emitted.
+     *
+     * @return false if all spilled partitions have been processed
+     */
+    private boolean loadAndProbeNextSpilledBlock() {
+        spilledBuffer.clear();
+        leftRowAccounting.release();
+        while (pendingSpilledLeftRow == null && (spilledLeftRows == null || spilledLeftRows.hasNext() == false)) {
+            if (spilledLeftRows != null) {
+                spilledLeftRows.close();
+                spilledLeftRows = null;
+                partitions[spilledPartitionIdx].closeSpillFiles();
+                spilledPartitionIdx++;
+            }
+            // Without right rows, a SEMI join can't emit any row of the partition but an ANTI join emits all of them
+            while (spilledPartitionIdx < partitions.length
+                   && (partitions[spilledPartitionIdx].isSpilled() == false
+                       || (anti == false && partitions[spilledPartitionIdx].rightSpill == null))) {
+                partitions[spilledPartitionIdx].closeSpillFiles();
+                spilledPartitionIdx++;
+            }
+            if (spilledPartitionIdx == partitions.length) {
+                return false;
+            }
+            spilledLeftRows = partitions[spilledPartitionIdx].leftSpill.read();
+        }
+
+        int numRows = 0;
+        while (numRows < rowsInMemoryLimit && (pendingSpilledLeftRow != null || spilledLeftRows.hasNext())) {
+            Object[] row;
+            if (pendingSpilledLeftRow == null) {
+                row = spilledLeftRows.next();
+            } else {
+                row = pendingSpilledLeftRow;
+                pendingSpilledLeftRow = null;
+            }
+            try {
+                leftRowAccounting.accountForAndMaybeBreak(row);
+            } catch (CircuitBreakingException e) {
+                if (numRows == 0) {
+                    throw e;
+                }
+                // Join the rows loaded so far and continue with this row in the next block
+                pendingSpilledLeftRow = row;
+                break;
+            }
+            int hash = hashBuilderForLeft.applyAsInt(leftRow.cells(row));
+            addToBuffer(spilledBuffer, hash, new LeftRow(row));
+            numRows++;
+        }
+        SpillFile rightSpill = partitions[spilledPartitionIdx].rightSpill;
+        if (rightSpill != null) {
+            try (CloseableIterator<Object[]> spilledRightRows = rightSpill.read()) {
+                while (spilledRightRows.hasNext()) {
+                    spilledRightRow.cells(spilledRightRows.next());
+                    markMatchingRows(spilledBuffer.get(hashBuilderForRight.applyAsInt(spilledRightRow)), spilledRightRow);
+                }
+            }
+        }
+        ArrayList<Iterator<LeftRow>> iterators = new ArrayList<>(spilledBuffer.size());
+        for (List<LeftRow> rows : spilledBuffer.values()) {
+            iterators.add(rows.iterator());
+        }
+        rowsToEmit = concat(iterators);
+        return true;
+    }
+
+    private int partitionIdx(int hash) {
+        // Use the high bits of the (scrambled) hash, the low bits are used by the hash tables within a partition
+        return (hash * 0x9E3779B9) >>> partitionShift;
+    }
+
+    private void releaseInMemoryPartitions() {
+        clearInMemoryPartitions();
+        leftRowAccounting.release();
+    }
+
+    private void clearInMemoryPartitions() {
+        for (Partition partition : partitions) {
+            partition.rows.clear();
+            partition.numRows = 0;
+            partition.bytes = 0;
+        }
+        numberOfRowsInMemory = 0;
+        rowsToEmit = Collections.emptyIterator();
+    }
+
+    /**
+     * Closes the spill files and drops the buffered rows.
+     * The accounted memory is not released here; on close that's up to the owner of the RamAccounting,
+     * which might already have released it.
+     */
+    private void releaseResources() {
+        try {
+            if (spilledLeftRows != null) {
+                spilledLeftRows.close();
+            }
+            ArrayList<Closeable> spillFiles = new ArrayList<>(partitions.length * 2);
+            for (Partition partition : partitions) {
+                spillFiles.add(partition.leftSpill);
+                spillFiles.add(partition.rightSpill);
+                partition.leftSpill = null;
+                partition.rightSpill = null;
+            }
+            IOUtils.close(spillFiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            spilledLeftRows = null;
+            pendingSpilledLeftRow = null;
+            spilledBuffer.clear();
+            clearInMemoryPartitions();
+        }
+    }
+
+    private static SpillFile newSpillFile(SpillFile.Factory spillFiles) {
+        try {
+            return spillFiles.newSpillFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void addToBuffer(IntObjectHashMap<List<LeftRow>> buffer, int hash, LeftRow row) {
+        List<LeftRow> existingRows = buffer.get(hash);
+        if (existingRows == null) {
+            existingRows = new ArrayList<>();
+            buffer.put(hash, existingRows);
+        }
+        existingRows.add(row);
+    }
+
+    private static final class LeftRow {
+
+        private final Object[] cells;
+        private boolean matched = false;
+
+        LeftRow(Object[] cells) {
+            this.cells = cells;
+        }
+    }
+
+    private static final class Partition {
+
+        private final IntObjectHashMap<List<LeftRow>> rows = new IntObjectHashMap<>();
+        private int numRows = 0;
+
+        /**
+         * Accounted bytes of the rows in memory
+         */
+        private long bytes = 0;
+
+        @Nullable
+        private SpillFile leftSpill;
+        @Nullable
+        private SpillFile rightSpill;
+
+        boolean isSpilled() {
+            return leftSpill != null;
+        }
+
+        void add(int hash, Object[] row, long rowBytes) {
+            addToBuffer(rows, hash, new LeftRow(row));
+            numRows++;
+            bytes += rowBytes;
+        }
+
+        void spill(SpillFile spillFile) {
+            for (List<LeftRow> bucket : rows.values()) {
+                for (LeftRow row : bucket) {
+                    spillFile.add(row.cells);
+                }
+            }
+            rows.clear();
+            numRows = 0;
+            bytes = 0;
+            leftSpill = spillFile;
+        }
+
+        void closeSpillFiles() {
+            try {
+                IOUtils.close(leftSpill, rightSpill);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                leftSpill = null;
+                rightSpill = null;
+            }
+        }
+    }
+}
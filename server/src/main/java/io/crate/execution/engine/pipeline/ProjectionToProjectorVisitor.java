@@ -26,6 +26,7 @@ import io.crate.analyze.NumberOfReplicas;
 import io.crate.analyze.SymbolEvaluator;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowCellsAccountingWithEstimators;
+import io.crate.breaker.ScopedRamAccounting;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Input;
 import io.crate.data.Projector;
@@ -74,6 +75,7 @@ import io.crate.execution.engine.indexing.UpsertResultContext;
 import io.crate.execution.engine.sort.OrderingByPosition;
 import io.crate.execution.engine.sort.SortingProjector;
 import io.crate.execution.engine.sort.SortingTopNProjector;
+import io.crate.execution.engine.spill.SpillFile;
 import io.crate.execution.engine.window.WindowProjector;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.execution.support.ThreadPools;
@@ -96,6 +98,7 @@ import io.crate.metadata.RowGranularity;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.sys.SysNodeChecksTableInfo;
 import io.crate.planner.operators.SubQueryResults;
+import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.StringType;
 import org.elasticsearch.Version;
@@ -111,6 +114,7 @@ import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -119,6 +123,7 @@ import java.util.UUID;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
@@ -155,6 +160,9 @@ public class ProjectionToProjectorVisitor
     private final ShardId shardId;
     private final int numProcessors;
 
+    @Nullable
+    private final Path spillDirectory;
+
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
                                         NodeLimits nodeJobsCounter,
@@ -169,6 +177,41 @@ public class ProjectionToProjectorVisitor
                                         Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter,
                                         Version indexVersionCreated,
                                         @Nullable ShardId shardId) {
+        this(clusterService,
+            nodeJobsCounter,
+            circuitBreakerService,
+            nodeCtx,
+            threadPool,
+            settings,
+            transportActionProvider,
+            inputFactory,
+            normalizer,
+            sysUpdaterGetter,
+            staticTableDefinitionGetter,
+            indexVersionCreated,
+            shardId,
+            null
+        );
+    }
+
+    /**
+     * @param spillDirectory directory for temporary files of operators which support spilling to disk.
+     *                       If null, these operators are limited to the memory available.
+     */
+    public ProjectionToProjectorVisitor(ClusterService clusterService,
+                                        NodeLimits nodeJobsCounter,
+                                        CircuitBreakerService circuitBreakerService,
+                                        NodeContext nodeCtx,
+                                        ThreadPool threadPool,
+                                        Settings settings,
+                                        TransportActionProvider transportActionProvider,
+                                        InputFactory inputFactory,
+                                        EvaluatingNormalizer normalizer,
+                                        Function<RelationName, SysRowUpdater<?>> sysUpdaterGetter,
+                                        Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter,
+                                        Version indexVersionCreated,
+                                        @Nullable ShardId shardId,
+                                        @Nullable Path spillDirectory) {
         this.clusterService = clusterService;
         this.nodeJobsCounter = nodeJobsCounter;
         this.circuitBreakerService = circuitBreakerService;
@@ -183,6 +226,7 @@ public class ProjectionToProjectorVisitor
         this.indexVersionCreated = indexVersionCreated;
         this.shardId = shardId;
         this.numProcessors = EsExecutors.numberOfProcessors(settings);
+        this.spillDirectory = spillDirectory;
     }
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
@@ -245,11 +289,21 @@ public class ProjectionToProjectorVisitor
         }
 
         int rowMemoryOverhead = 32; // priority queues implementation are backed by an arrayList
+        List<DataType<?>> rowTypes = Symbols.typeView(Lists2.concat(projection.outputs(), projection.orderBy()));
+        SpillFile.Factory spillFiles = null;
+        RamAccounting ramAccounting = context.ramAccounting;
+        if (spillDirectory != null) {
+            spillFiles = SpillFile.factory(spillDirectory, DataTypes.getStreamers(rowTypes));
+            // The memory of the rows is released whenever a sorted run is spilled
+            ramAccounting = new ScopedRamAccounting(context.ramAccounting);
+        }
         RowCellsAccountingWithEstimators rowAccounting = new RowCellsAccountingWithEstimators(
-            Symbols.typeView(Lists2.concat(projection.outputs(), projection.orderBy())),
-            context.ramAccounting,
+            rowTypes,
+            ramAccounting,
             rowMemoryOverhead
         );
+        LongSupplier maxBytesInMemory = SpillFile.maxBytesInMemory(
+            circuitBreakerService.getBreaker(HierarchyCircuitBreakerService.QUERY));
         if (projection.limit() > TopN.NO_LIMIT) {
             return new SortingTopNProjector(
                 rowAccounting,
@@ -259,7 +313,9 @@ public class ProjectionToProjectorVisitor
                 OrderingByPosition.arrayOrdering(orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
                 projection.limit(),
                 projection.offset(),
-                UNBOUNDED_COLLECTOR_THRESHOLD
+                UNBOUNDED_COLLECTOR_THRESHOLD,
+                spillFiles,
+                maxBytesInMemory
             );
         }
         return new SortingProjector(
@@ -268,7 +324,9 @@ public class ProjectionToProjectorVisitor
             ctx.expressions(),
             numOutputs,
             OrderingByPosition.arrayOrdering(orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
-            projection.offset()
+            projection.offset(),
+            spillFiles,
+            maxBytesInMemory
         );
     }
 
@@ -290,6 +348,10 @@ public class ProjectionToProjectorVisitor
 
     @Override
     public Projector visitEvalProjection(EvalProjection projection, Context context) {
+        Projector vectorized = VectorizedProjector.forEval(context.txnCtx, nodeCtx, projection.outputs());
+        if (vectorized != null) {
+            return vectorized;
+        }
         InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(context.txnCtx, projection.outputs());
         return new InputRowProjector(ctx.topLevelInputs(), ctx.expressions());
     }
@@ -311,7 +373,9 @@ public class ProjectionToProjectorVisitor
             context.ramAccounting,
             context.memoryManager,
             clusterService.state().getNodes().getMinNodeVersion(),
-            indexVersionCreated
+            indexVersionCreated,
+            spillDirectory,
+            SpillFile.maxBytesInMemory(circuitBreakerService.getBreaker(HierarchyCircuitBreakerService.QUERY))
         );
     }
 
@@ -506,6 +570,15 @@ public class ProjectionToProjectorVisitor
 
     @Override
     public Projector visitFilterProjection(FilterProjection projection, Context context) {
+        Projector vectorized = VectorizedProjector.forFilter(
+            context.txnCtx,
+            nodeCtx,
+            projection.query(),
+            projection.outputs().size()
+        );
+        if (vectorized != null) {
+            return vectorized;
+        }
         Predicate<Row> rowFilter = RowFilter.create(context.txnCtx, inputFactory, projection.query());
         return new FilterProjector(rowFilter);
     }
@@ -686,7 +759,9 @@ public class ProjectionToProjectorVisitor
             clusterService.state().nodes().getMinNodeVersion(),
             indexVersionCreated,
             ThreadPools.numIdleThreads(searchThreadPool, numProcessors),
-            searchThreadPool
+            searchThreadPool,
+            spillDirectory,
+            SpillFile.maxBytesInMemory(circuitBreakerService.getBreaker(HierarchyCircuitBreakerService.QUERY))
         );
     }
 
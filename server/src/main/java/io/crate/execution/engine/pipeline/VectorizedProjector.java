@@ -0,0 +1,130 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Projector;
+import io.crate.data.Row;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.ObjectColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.data.vector.VectorizedBatchIterator;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.vector.VectorExpression;
+import io.crate.expression.vector.VectorExpressions;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.TransactionContext;
+
+/**
+ * Projector which evaluates a filter and scalars batch-at-a-time, see {@link VectorizedBatchIterator}.
+ *
+ * Used instead of {@link FilterProjector} and {@link InputRowProjector} if at least one of the
+ * functions has a vectorized implementation.
+ */
+class VectorizedProjector implements Projector {
+
+    static final int BATCH_SIZE = 1024;
+
+    private final int numInputColumns;
+    @Nullable
+    private final VectorExpression filter;
+    @Nullable
+    private final List<VectorExpression> outputs;
+
+    /**
+     * @param numColumns the number of columns of the input rows, which are also the output columns.
+     * @return the projector or null if the query cannot be vectorized.
+     */
+    @Nullable
+    static Projector forFilter(TransactionContext txnCtx, NodeContext nodeCtx, Symbol query, int numColumns) {
+        VectorExpressions vectorExpressions = new VectorExpressions(txnCtx, nodeCtx);
+        VectorExpression filter = vectorExpressions.compile(query);
+        if (filter == null || vectorExpressions.numVectorized() == 0) {
+            return null;
+        }
+        int numInputColumns = Math.max(numColumns, vectorExpressions.numInputColumns());
+        if (numInputColumns == 0) {
+            return null;
+        }
+        return new VectorizedProjector(numInputColumns, filter, null);
+    }
+
+    /**
+     * @return the projector or null if the outputs cannot be vectorized.
+     */
+    @Nullable
+    static Projector forEval(TransactionContext txnCtx, NodeContext nodeCtx, List<? extends Symbol> outputs) {
+        VectorExpressions vectorExpressions = new VectorExpressions(txnCtx, nodeCtx);
+        List<VectorExpression> vectorOutputs = new ArrayList<>(outputs.size());
+        for (Symbol output : outputs) {
+            VectorExpression vectorOutput = vectorExpressions.compile(output);
+            if (vectorOutput == null) {
+                return null;
+            }
+            vectorOutputs.add(vectorOutput);
+        }
+        if (vectorExpressions.numVectorized() == 0 || vectorExpressions.numInputColumns() == 0) {
+            return null;
+        }
+        return new VectorizedProjector(vectorExpressions.numInputColumns(), null, vectorOutputs);
+    }
+
+    private VectorizedProjector(int numInputColumns,
+                                @Nullable VectorExpression filter,
+                                @Nullable List<VectorExpression> outputs) {
+        this.numInputColumns = numInputColumns;
+        this.filter = filter;
+        this.outputs = outputs;
+    }
+
+    @Override
+    public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        ColumnVector[] input = new ColumnVector[numInputColumns];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = new ObjectColumnVector(BATCH_SIZE);
+        }
+        ColumnVector[] result = outputs == null ? input : new ColumnVector[outputs.size()];
+        return new VectorizedBatchIterator(batchIterator, input, (batch, selection) -> evaluate(batch, selection, result));
+    }
+
+    private ColumnVector[] evaluate(ColumnVector[] batch, SelectionVector selection, ColumnVector[] result) {
+        if (filter != null) {
+            selection.retainTrue(filter.evaluate(batch, selection));
+        }
+        if (outputs != null) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = outputs.get(i).evaluate(batch, selection);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean providesIndependentScroll() {
+        return false;
+    }
+}
@@ -30,10 +30,14 @@ import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.pipeline.TopN;
+import io.crate.execution.engine.spill.SpillFile;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.LongSupplier;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
@@ -52,6 +56,9 @@ public class SortingProjector implements Projector {
     private final int offset;
     private final int numOutputs;
     private final RowAccounting<Object[]> rowAccounting;
+    @Nullable
+    private final SpillFile.Factory spillFiles;
+    private final LongSupplier maxBytesInMemory;
 
     /**
      * @param rowAccounting               sorting is a pipeline breaker so account for the used memory
@@ -67,6 +74,22 @@ public class SortingProjector implements Projector {
                             int numOutputs,
                             Comparator<Object[]> comparator,
                             int offset) {
+        this(rowAccounting, inputs, collectExpressions, numOutputs, comparator, offset, null, () -> Long.MAX_VALUE);
+    }
+
+    /**
+     * @param spillFiles if not null, sorted runs of rows are spilled to disk if they exceed {@code maxBytesInMemory}
+     *                   or if the circuit breaker trips, see {@link SpillableSortingCollector}.
+     *                   The row accounting must be exclusive to this projector then.
+     */
+    public SortingProjector(RowAccounting<Object[]> rowAccounting,
+                            Collection<? extends Input<?>> inputs,
+                            Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
+                            int numOutputs,
+                            Comparator<Object[]> comparator,
+                            int offset,
+                            @Nullable SpillFile.Factory spillFiles,
+                            LongSupplier maxBytesInMemory) {
         if (offset < 0) {
             throw new IllegalArgumentException("invalid offset " + offset);
         }
@@ -76,11 +99,27 @@ public class SortingProjector implements Projector {
         this.collectExpressions = collectExpressions;
         this.comparator = comparator;
         this.offset = offset;
+        this.spillFiles = spillFiles;
+        this.maxBytesInMemory = maxBytesInMemory;
     }
 
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        if (spillFiles != null) {
+            var collector = new SpillableSortingCollector(
+                rowAccounting,
+                inputs,
+                collectExpressions,
+                numOutputs,
+                comparator,
+                TopN.NO_LIMIT,
+                offset,
+                spillFiles,
+                maxBytesInMemory
+            );
+            return collector.apply(batchIterator);
+        }
         Collector<Row, ?, Bucket> collector = Collectors.mapping(
             this::getCells,
             Collectors.collectingAndThen(Collectors.toList(), this::sortAndCreateBucket));
@@ -23,20 +23,22 @@ package io.crate.execution.engine.sort;
 
 import io.crate.breaker.RowAccounting;
 import io.crate.data.BatchIterator;
-import io.crate.data.Bucket;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillFile;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.function.LongSupplier;
 import java.util.stream.Collector;
 
 public class SortingTopNProjector implements Projector {
 
-    private final Collector<Row, ?, Bucket> collector;
+    private final Collector<Row, ?, ? extends Iterable<Row>> collector;
 
     /**
      * @param rowAccounting               sorting is a pipeline breaker so account for the used memory
@@ -57,6 +59,36 @@ public class SortingTopNProjector implements Projector {
                                 int limit,
                                 int offset,
                                 int unboundedCollectorThreshold) {
+        this(
+            rowAccounting,
+            inputs,
+            collectExpressions,
+            numOutputs,
+            ordering,
+            limit,
+            offset,
+            unboundedCollectorThreshold,
+            null,
+            () -> Long.MAX_VALUE
+        );
+    }
+
+    /**
+     * @param spillFiles if not null, the unbounded collector is replaced by a {@link SpillableSortingCollector}
+     *                   which spills sorted runs of rows to disk if they exceed {@code maxBytesInMemory}
+     *                   or if the circuit breaker trips.
+     *                   The row accounting must be exclusive to this projector then.
+     */
+    public SortingTopNProjector(RowAccounting<Object[]> rowAccounting,
+                                Collection<? extends Input<?>> inputs,
+                                Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
+                                int numOutputs,
+                                Comparator<Object[]> ordering,
+                                int limit,
+                                int offset,
+                                int unboundedCollectorThreshold,
+                                @Nullable SpillFile.Factory spillFiles,
+                                LongSupplier maxBytesInMemory) {
         /**
          * We'll use an unbounded queue with the initial capacity of {@link unboundedCollectorThreshold}
          * if the maximum number of rows we have to accommodate in the queue in order to maintain correctness is
@@ -65,7 +97,19 @@ public class SortingTopNProjector implements Projector {
          * Otherwise, we'll use a bounded queue as we want to avoid the case where we pre-allocate a large queue that
          * will never be filled.
          */
-        if ((limit + offset) > unboundedCollectorThreshold) {
+        if ((limit + offset) > unboundedCollectorThreshold && spillFiles != null) {
+            collector = new SpillableSortingCollector(
+                rowAccounting,
+                inputs,
+                collectExpressions,
+                numOutputs,
+                ordering,
+                limit,
+                offset,
+                spillFiles,
+                maxBytesInMemory
+            );
+        } else if ((limit + offset) > unboundedCollectorThreshold) {
             collector = new UnboundedSortingTopNCollector(
                 rowAccounting,
                 inputs,
@@ -91,6 +135,9 @@ public class SortingTopNProjector implements Projector {
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        if (collector instanceof SpillableSortingCollector spillableCollector) {
+            return spillableCollector.apply(batchIterator);
+        }
         return CollectingBatchIterator.newInstance(batchIterator, collector);
     }
 
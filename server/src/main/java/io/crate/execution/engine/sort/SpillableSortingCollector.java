@@ -0,0 +1,355 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import com.google.common.collect.Iterators;
+import io.crate.breaker.RowAccounting;
+import io.crate.common.io.IOUtils;
+import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
+import io.crate.data.Buckets;
+import io.crate.data.CloseableIterator;
+import io.crate.data.CollectingBatchIterator;
+import io.crate.data.CollectionBucket;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.pipeline.TopN;
+import io.crate.execution.engine.spill.SpillFile;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Collector implementation which sorts rows with an external merge sort.
+ *
+ * <p>
+ * The rows are buffered in memory until they exceed the memory budget of the operation (see
+ * {@link SpillFile#maxBytesInMemory}), or, as a last resort, until the circuit breaker trips. The buffered rows are
+ * then sorted and written as a sorted run to a {@link SpillFile}, and their memory is released. Once all rows have
+ * been consumed, the runs are merged with a k-way merge, which only keeps the current row of each run in memory.
+ * If there are more than {@link #MAX_MERGE_FAN_IN} runs, they're first merged into fewer, longer runs.
+ * </p>
+ *
+ * <p>
+ * If the rows fit into memory, they're sorted in memory.
+ * With a limit, at most {@code limit + offset} rows of each run are spilled.
+ * </p>
+ *
+ * The spill files are deleted on {@link #close()}.
+ */
+public final class SpillableSortingCollector implements Collector<Row, SpillableSortingCollector.Runs, Iterable<Row>>,
+                                                        Releasable {
+
+    static final int MAX_MERGE_FAN_IN = 64;
+
+    private final RowAccounting<Object[]> rowAccounting;
+    private final Collection<? extends Input<?>> inputs;
+    private final Iterable<? extends CollectExpression<Row, ?>> expressions;
+    private final int numOutputs;
+    private final Comparator<Object[]> comparator;
+    private final int limit;
+    private final int offset;
+    private final int maxRowsPerRun;
+    private final SpillFile.Factory spillFiles;
+    private final LongSupplier maxBytesInMemory;
+    private final List<SpillFile> openSpillFiles = new ArrayList<>();
+    private final List<CloseableIterator<Object[]>> openIterators = new ArrayList<>();
+
+    /**
+     * @param rowAccounting accounts for the buffered rows. It's released once a run is spilled, so it must not
+     *                      account for the memory of other operators.
+     * @param inputs        contains output {@link Input}s and orderBy {@link Input}s
+     * @param expressions   expressions linked to the inputs
+     * @param numOutputs    <code>inputs</code> contains this much output {@link Input}s starting form index 0
+     * @param comparator    used to sort the rows
+     * @param limit         the max number of rows the result should contain or {@link TopN#NO_LIMIT}
+     * @param offset        the number of rows to skip (after sort)
+     * @param spillFiles    creates the files for the sorted runs, the rows contain all <code>inputs</code>
+     * @param maxBytesInMemory the memory budget for the buffered rows, a run is spilled once it's exceeded
+     */
+    public SpillableSortingCollector(RowAccounting<Object[]> rowAccounting,
+                                     Collection<? extends Input<?>> inputs,
+                                     Iterable<? extends CollectExpression<Row, ?>> expressions,
+                                     int numOutputs,
+                                     Comparator<Object[]> comparator,
+                                     int limit,
+                                     int offset,
+                                     SpillFile.Factory spillFiles,
+                                     LongSupplier maxBytesInMemory) {
+        if (limit != TopN.NO_LIMIT && limit <= 0) {
+            throw new IllegalArgumentException("Invalid LIMIT: value must be > 0; got: " + limit);
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Invalid OFFSET: value must be >= 0; got: " + offset);
+        }
+        this.rowAccounting = rowAccounting;
+        this.inputs = inputs;
+        this.expressions = expressions;
+        this.numOutputs = numOutputs;
+        this.comparator = comparator;
+        this.limit = limit;
+        this.offset = offset;
+        long maxRows = limit == TopN.NO_LIMIT ? Integer.MAX_VALUE : (long) limit + offset;
+        this.maxRowsPerRun = (int) Math.min(maxRows, Integer.MAX_VALUE);
+        this.spillFiles = spillFiles;
+        this.maxBytesInMemory = maxBytesInMemory;
+    }
+
+    /**
+     * Consumes the source and returns the sorted rows.
+     * The spill files are deleted once the returned iterator is closed.
+     */
+    public BatchIterator<Row> apply(BatchIterator<Row> source) {
+        return CollectingBatchIterator.newInstance(
+            () -> {
+                try {
+                    source.close();
+                } finally {
+                    close();
+                }
+            },
+            source::kill,
+            () -> BatchIterators.collect(source, this),
+            source.hasLazyResultSet()
+        );
+    }
+
+    @Override
+    public Supplier<Runs> supplier() {
+        return Runs::new;
+    }
+
+    @Override
+    public BiConsumer<Runs, Row> accumulator() {
+        return this::onNextRow;
+    }
+
+    @Override
+    public BinaryOperator<Runs> combiner() {
+        return (runs1, runs2) -> {
+            throw new UnsupportedOperationException("combine not supported");
+        };
+    }
+
+    @Override
+    public Function<Runs, Iterable<Row>> finisher() {
+        return this::finish;
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void close() {
+        try {
+            closeIterators(openIterators);
+            IOUtils.close(openSpillFiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            openIterators.clear();
+            openSpillFiles.clear();
+        }
+    }
+
+    private static void closeIterators(List<CloseableIterator<Object[]>> iterators) {
+        for (CloseableIterator<Object[]> it : iterators) {
+            it.close();
+        }
+    }
+
+    private void onNextRow(Runs runs, Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        Object[] cells = new Object[inputs.size()];
+        int i = 0;
+        for (Input<?> input : inputs) {
+            cells[i++] = input.value();
+        }
+        long bytes;
+        try {
+            bytes = rowAccounting.accountForAndMaybeBreak(cells);
+        } catch (CircuitBreakingException e) {
+            if (runs.rows.isEmpty()) {
+                throw e;
+            }
+            runs.spill();
+            bytes = rowAccounting.accountForAndMaybeBreak(cells);
+        }
+        if (runs.bytes + bytes > maxBytesInMemory.getAsLong() && !runs.rows.isEmpty()) {
+            // Releases the accounted bytes of all rows, including the ones of this row
+            runs.spill();
+            bytes = rowAccounting.accountForAndMaybeBreak(cells);
+        }
+        runs.rows.add(cells);
+        runs.bytes += bytes;
+    }
+
+    private Iterable<Row> finish(Runs runs) {
+        if (!runs.hasSpilled()) {
+            List<Object[]> rows = runs.rows;
+            rows.sort(comparator);
+            int end = Math.min(rows.size(), maxRowsPerRun);
+            if (offset >= end) {
+                return Collections.emptyList();
+            }
+            return new CollectionBucket(rows.subList(offset, end), numOutputs);
+        }
+        Iterable<Object[]> sorted = sortedCells(runs);
+        Function<Object[], Row> arrayToSharedRow = Buckets.arrayToSharedRow(numOutputs);
+        return () -> Iterators.transform(sorted.iterator(), arrayToSharedRow);
+    }
+
+    /**
+     * Merges the runs and returns the cells of the sorted rows, including the cells of the orderBy {@link Input}s.
+     * Every call to {@link Iterable#iterator()} re-reads the spill files.
+     */
+    public Iterable<Object[]> sortedCells(Runs runs) {
+        runs.rows.sort(comparator);
+        // One source of the final merge is the last run, which is still in memory
+        while (runs.spilled.size() >= MAX_MERGE_FAN_IN) {
+            List<SpillFile> toMerge = runs.spilled.subList(0, MAX_MERGE_FAN_IN);
+            SpillFile merged = merge(toMerge);
+            toMerge.clear();
+            runs.spilled.add(merged);
+        }
+        List<SpillFile> spilled = List.copyOf(runs.spilled);
+        List<Object[]> lastRun = runs.rows;
+        return () -> {
+            List<Iterator<Object[]>> sources = new ArrayList<>(spilled.size() + 1);
+            for (SpillFile spillFile : spilled) {
+                sources.add(read(spillFile));
+            }
+            sources.add(lastRun.iterator());
+            Iterator<Object[]> sorted = Iterators.mergeSorted(sources, comparator);
+            Iterators.advance(sorted, offset);
+            if (limit != TopN.NO_LIMIT) {
+                sorted = Iterators.limit(sorted, limit);
+            }
+            return sorted;
+        };
+    }
+
+    /**
+     * Merges sorted runs into a single, new run. The merged runs are deleted.
+     */
+    private SpillFile merge(List<SpillFile> runs) {
+        List<CloseableIterator<Object[]>> sources = new ArrayList<>(runs.size());
+        for (SpillFile run : runs) {
+            sources.add(read(run));
+        }
+        SpillFile merged = newSpillFile();
+        Iterator<Object[]> sorted = Iterators.limit(Iterators.mergeSorted(sources, comparator), maxRowsPerRun);
+        while (sorted.hasNext()) {
+            merged.add(sorted.next());
+        }
+        closeIterators(sources);
+        openIterators.removeAll(sources);
+        try {
+            IOUtils.close(runs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        openSpillFiles.removeAll(runs);
+        return merged;
+    }
+
+    private CloseableIterator<Object[]> read(SpillFile spillFile) {
+        CloseableIterator<Object[]> it = spillFile.read();
+        openIterators.add(it);
+        return it;
+    }
+
+    private SpillFile newSpillFile() {
+        try {
+            SpillFile spillFile = spillFiles.newSpillFile();
+            openSpillFiles.add(spillFile);
+            return spillFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The sorted runs that have been spilled so far and the rows of the current run, which are still in memory.
+     */
+    public final class Runs {
+
+        private final List<SpillFile> spilled = new ArrayList<>();
+        private List<Object[]> rows = new ArrayList<>();
+
+        /**
+         * The accounted bytes of {@link #rows}
+         */
+        private long bytes = 0;
+
+        private Runs() {
+        }
+
+        public boolean hasSpilled() {
+            return !spilled.isEmpty();
+        }
+
+        /**
+         * The rows of the current run, which are still in memory.
+         * They're unsorted until {@link SpillableSortingCollector#sortedCells(Runs)} is called.
+         */
+        public List<Object[]> rows() {
+            return rows;
+        }
+
+        /**
+         * Sorts the rows of the current run, writes them to a new spill file and releases their memory.
+         */
+        private void spill() {
+            rows.sort(comparator);
+            SpillFile run = newSpillFile();
+            int numRows = Math.min(rows.size(), maxRowsPerRun);
+            for (int i = 0; i < numRows; i++) {
+                run.add(rows.get(i));
+            }
+            spilled.add(run);
+            rows = new ArrayList<>();
+            bytes = 0;
+            rowAccounting.release();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.spill;
+
+import com.google.common.io.CountingOutputStream;
+import io.crate.Streamer;
+import io.crate.data.CloseableIterator;
+import io.crate.data.Row;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.function.LongSupplier;
+
+/**
+ * A temporary file to which rows are appended using the {@link Streamer}s of their columns.
+ * The rows can be read back (multiple times) in the order they were added, either all of them or, starting at a
+ * {@link #position()} that was recorded while adding them, a range of them.
+ * <p>
+ * Used by operators which have to buffer more rows than fit into memory.
+ * The file is deleted on {@link #close()}.
+ * <p>
+ * Not thread-safe.
+ */
+public final class SpillFile implements Closeable {
+
+    /**
+     * Creates new (empty) {@link SpillFile}s for rows of a fixed shape.
+     */
+    @FunctionalInterface
+    public interface Factory {
+
+        SpillFile newSpillFile() throws IOException;
+    }
+
+    /**
+     * The share of the circuit breaker limit an operator may use for the data it buffers before it spills.
+     */
+    static final double MAX_BREAKER_SHARE = 0.25;
+
+    private static final String FILE_PREFIX = "crate-spill-";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Path path;
+    private final Streamer<?>[] streamers;
+    private final CountingOutputStream bytesWritten;
+    private final StreamOutput out;
+    private int numRows = 0;
+
+    public static Factory factory(Path directory, Streamer<?>[] streamers) {
+        return () -> new SpillFile(directory, streamers);
+    }
+
+    /**
+     * The number of bytes an operator may buffer before it spills. Operators spill once they reach this share of
+     * the breaker limit, so that several of them can run concurrently. The breaker tripping remains the last resort,
+     * e.g. if the memory is used up by other operations.
+     * The limit is read on every call, it can be changed at runtime.
+     */
+    public static LongSupplier maxBytesInMemory(CircuitBreaker breaker) {
+        return () -> {
+            long limit = breaker.getLimit();
+            if (limit == -1) {
+                return Long.MAX_VALUE;
+            }
+            return (long) (limit * MAX_BREAKER_SHARE);
+        };
+    }
+
+    public SpillFile(Path directory, Streamer<?>[] streamers) throws IOException {
+        this.path = Files.createTempFile(directory, FILE_PREFIX, ".bin");
+        this.streamers = streamers;
+        this.bytesWritten = new CountingOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+        this.out = new OutputStreamStreamOutput(bytesWritten);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void add(Row row) {
+        assert row.numColumns() == streamers.length : "number of streamers must match row size";
+        try {
+            for (int i = 0; i < streamers.length; i++) {
+                ((Streamer) streamers[i]).writeValueTo(out, row.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        numRows++;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void add(Object[] cells) {
+        assert cells.length == streamers.length : "number of streamers must match row size";
+        try {
+            for (int i = 0; i < streamers.length; i++) {
+                ((Streamer) streamers[i]).writeValueTo(out, cells[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        numRows++;
+    }
+
+    public int numRows() {
+        return numRows;
+    }
+
+    /**
+     * The position in the file at which the next row is added, see {@link #read(long, int)}.
+     */
+    public long position() {
+        return bytesWritten.getCount();
+    }
+
+    /**
+     * Returns an iterator over all rows added so far. Every row is returned as a new array.
+     * Rows added after this call are not visible to the returned iterator.
+     */
+    public CloseableIterator<Object[]> read() {
+        try {
+            out.flush();
+            StreamInput in = new InputStreamStreamInput(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE));
+            return new RowIterator(in, streamers, numRows);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns an iterator over <code>numRows</code> rows, starting with the row that was added at the given
+     * {@link #position()}. Every row is returned as a new array.
+     */
+    public CloseableIterator<Object[]> read(long position, int numRows) {
+        assert position <= position() : "position must not be beyond the rows added so far";
+        try {
+            out.flush();
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                channel.position(position);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            StreamInput in = new InputStreamStreamInput(
+                new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            return new RowIterator(in, streamers, numRows);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static final class RowIterator implements CloseableIterator<Object[]> {
+
+        private final StreamInput in;
+        private final Streamer<?>[] streamers;
+        private int remaining;
+
+        RowIterator(StreamInput in, Streamer<?>[] streamers, int numRows) {
+            this.in = in;
+            this.streamers = streamers;
+            this.remaining = numRows;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Object[] next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException("SpillFile has no more rows");
+            }
+            Object[] cells = new Object[streamers.length];
+            try {
+                for (int i = 0; i < streamers.length; i++) {
+                    cells[i] = streamers[i].readValueFrom(in);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            remaining--;
+            return cells;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
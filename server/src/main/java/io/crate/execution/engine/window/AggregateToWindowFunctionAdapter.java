@@ -34,6 +34,7 @@ import io.crate.memory.MemoryManager;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.Version;
 
 import javax.annotation.Nullable;
@@ -55,6 +56,14 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
     private int seenFrameUpperBound = -1;
     private Object resultForCurrentFrame;
 
+    /**
+     * Segment tree over the partial states of the rows in the current partition. The leaves are stored at
+     * {@code [partitionSize, 2 * partitionSize)}, the parent of a node at {@code i} is at {@code i / 2}.
+     * Only used for sliding frames of aggregations with immutable states, see {@link #reduceFrameWithSegmentTree}.
+     */
+    @Nullable
+    private Object[] segmentTree;
+
     AggregateToWindowFunctionAdapter(AggregationFunction aggregationFunction,
                                      ExpressionsInput<Row, Boolean> filter,
                                      Version indexVersionCreated,
@@ -98,6 +107,7 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
                           Input... args) {
         assert ignoreNulls == null;
         if (idxInPartition == 0) {
+            segmentTree = null;
             recomputeFunction(frame, expressions, args);
         } else if (isLowerBoundIncreasing(frame, seenFrameLowerBound)) {
             if (aggregationFunction.isRemovableCumulative()) {
@@ -109,6 +119,8 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
                 }
                 seenFrameLowerBound = frame.lowerBound();
                 seenFrameUpperBound = frame.upperBoundExclusive();
+            } else if (aggregationFunction.hasImmutableStates()) {
+                reduceFrameWithSegmentTree(frame, expressions, args);
             } else {
                 recomputeFunction(frame, expressions, args);
             }
@@ -139,6 +151,69 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
         }
     }
 
+    /**
+     * Computes the state of the frame by reducing O(log n) nodes of the segment tree instead of iterating over all
+     * rows of the frame. For sliding frames like {@code ROWS BETWEEN 10 PRECEDING AND CURRENT ROW} this reduces the
+     * cost from O(n * frameSize) to O(n * log n) for aggregations which can't remove rows from their state.
+     */
+    @SuppressWarnings("unchecked")
+    private void reduceFrameWithSegmentTree(WindowFrameState frame,
+                                            List<? extends CollectExpression<Row, ?>> expressions,
+                                            Input[] args) {
+        if (segmentTree == null) {
+            segmentTree = buildSegmentTree(frame, expressions, args);
+        }
+        int numLeaves = segmentTree.length / 2;
+        // Two states are used to reduce the nodes in the order of the rows
+        Object leftState = newState();
+        Object rightState = newState();
+        for (int lo = frame.lowerBound() + numLeaves, hi = frame.upperBoundExclusive() + numLeaves;
+             lo < hi;
+             lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                leftState = aggregationFunction.reduce(ramAccounting, leftState, segmentTree[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                rightState = aggregationFunction.reduce(ramAccounting, segmentTree[--hi], rightState);
+            }
+        }
+        accumulatedState = aggregationFunction.reduce(ramAccounting, leftState, rightState);
+        resultForCurrentFrame = aggregationFunction.terminatePartial(ramAccounting, accumulatedState);
+        seenFrameLowerBound = frame.lowerBound();
+        seenFrameUpperBound = frame.upperBoundExclusive();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object[] buildSegmentTree(WindowFrameState frame,
+                                      List<? extends CollectExpression<Row, ?>> expressions,
+                                      Input[] args) {
+        int numLeaves = frame.partitionSize();
+        Object[] tree = new Object[2 * numLeaves];
+        ramAccounting.addBytes(RamUsageEstimator.shallowSizeOf(tree));
+        var row = new ArrayRow();
+        for (int i = 0; i < numLeaves; i++) {
+            Object[] cells = frame.getRowInPartitionAtIndexOrNull(i);
+            assert cells != null : "No row at idx=" + i + " in current partition=" + frame;
+            row.cells(cells);
+            for (int j = 0, expressionsSize = expressions.size(); j < expressionsSize; j++) {
+                expressions.get(j).setNextRow(row);
+            }
+            Object state = newState();
+            if (filter.value(row)) {
+                state = aggregationFunction.iterate(ramAccounting, memoryManager, state, args);
+            }
+            tree[numLeaves + i] = state;
+        }
+        for (int i = numLeaves - 1; i > 0; i--) {
+            tree[i] = aggregationFunction.reduce(ramAccounting, tree[2 * i], tree[2 * i + 1]);
+        }
+        return tree;
+    }
+
+    private Object newState() {
+        return aggregationFunction.newState(ramAccounting, indexVersionCreated, minNodeVersion, memoryManager);
+    }
+
     private void recomputeFunction(WindowFrameState frame,
                                    List<? extends CollectExpression<Row, ?>> expressions,
                                    Input[] args) {
@@ -0,0 +1,180 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.window;
+
+import io.crate.breaker.RowAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Buckets;
+import io.crate.data.MappedForwardingBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.SentinelRow;
+import io.crate.execution.engine.spill.SpillFile;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * BatchIterator which computes window functions over a source which is already sorted by the PARTITION BY and
+ * ORDER BY of the window definition.
+ *
+ * <p>
+ * Unlike {@link WindowFunctionBatchIterator#of} this is not a pipeline breaker: only the rows of the current partition
+ * are buffered. Once the first row of the next partition is consumed, or the source is exhausted, the window
+ * functions are computed for the buffered partition and its rows are emitted.
+ * Partitions which don't fit into memory are spilled, see {@link SpillablePartition}.
+ * </p>
+ */
+final class SortedPartitionsBatchIterator extends MappedForwardingBatchIterator<Row, Row> {
+
+    private final BatchIterator<Row> source;
+    private final RowAccounting<Object[]> rowAccounting;
+    @Nullable
+    private final SpillFile.Factory spillFiles;
+    private final LongSupplier maxBytesInMemory;
+    @Nullable
+    private final Comparator<Object[]> cmpPartitionBy;
+    private final int numWindowFunctions;
+    private final Function<List<Object[]>, Iterable<Object[]>> computeWindowFunctions;
+    private final Function<Object[], Row> arrayToSharedRow = Buckets.arrayToSharedRow();
+
+    private SpillablePartition partition;
+    @Nullable
+    private Object[] firstInPartition;
+    /**
+     * The partition of which the {@link #computedRows} are emitted
+     */
+    @Nullable
+    private SpillablePartition computedPartition;
+    private Iterator<Object[]> computedRows = Collections.emptyIterator();
+    private Row current = SentinelRow.SENTINEL;
+
+    /**
+     * @param rowAccounting accounts for the rows of the current partition, see {@link SpillablePartition}
+     * @param spillFiles creates the spill files for partitions which exceed <code>maxBytesInMemory</code>.
+     *                   The rows contain the source cells and the spare cells. Partitions aren't spilled if null.
+     * @param computeWindowFunctions computes the window functions of the rows of a single partition
+     */
+    SortedPartitionsBatchIterator(BatchIterator<Row> source,
+                                  RowAccounting<Object[]> rowAccounting,
+                                  @Nullable SpillFile.Factory spillFiles,
+                                  LongSupplier maxBytesInMemory,
+                                  @Nullable Comparator<Object[]> cmpPartitionBy,
+                                  int numWindowFunctions,
+                                  Function<List<Object[]>, Iterable<Object[]>> computeWindowFunctions) {
+        this.source = source;
+        this.rowAccounting = rowAccounting;
+        this.spillFiles = spillFiles;
+        this.maxBytesInMemory = maxBytesInMemory;
+        this.cmpPartitionBy = cmpPartitionBy;
+        this.numWindowFunctions = numWindowFunctions;
+        this.computeWindowFunctions = computeWindowFunctions;
+        this.partition = newPartition();
+    }
+
+    private SpillablePartition newPartition() {
+        return new SpillablePartition(rowAccounting, spillFiles, maxBytesInMemory);
+    }
+
+    @Override
+    protected BatchIterator<Row> delegate() {
+        return source;
+    }
+
+    @Override
+    public Row currentElement() {
+        return current;
+    }
+
+    @Override
+    public void moveToStart() {
+        source.moveToStart();
+        closePartitions();
+        partition = newPartition();
+        firstInPartition = null;
+        computedRows = Collections.emptyIterator();
+        current = SentinelRow.SENTINEL;
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (true) {
+            if (computedRows.hasNext()) {
+                current = arrayToSharedRow.apply(computedRows.next());
+                return true;
+            }
+            if (computedPartition != null) {
+                computedPartition.close();
+                computedPartition = null;
+            }
+            if (source.moveNext()) {
+                Row row = source.currentElement();
+                Object[] cells = WindowFunctionBatchIterator.materializeWithSpare(row, numWindowFunctions);
+                if (firstInPartition != null
+                    && cmpPartitionBy != null
+                    && cmpPartitionBy.compare(firstInPartition, cells) != 0) {
+                    computePartition();
+                }
+                if (firstInPartition == null) {
+                    firstInPartition = cells;
+                }
+                partition.add(cells);
+            } else if (source.allLoaded() && !partition.isEmpty()) {
+                computePartition();
+            } else {
+                current = SentinelRow.SENTINEL;
+                return false;
+            }
+        }
+    }
+
+    private void computePartition() {
+        computedPartition = partition;
+        computedRows = computeWindowFunctions.apply(partition).iterator();
+        partition = newPartition();
+        firstInPartition = null;
+    }
+
+    private void closePartitions() {
+        try {
+            partition.close();
+        } finally {
+            if (computedPartition != null) {
+                computedPartition.close();
+                computedPartition = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            source.close();
+        } finally {
+            closePartitions();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.window;
+
+import io.crate.breaker.RowAccounting;
+import io.crate.data.CloseableIterator;
+import io.crate.execution.engine.spill.SpillFile;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.LongSupplier;
+
+/**
+ * The rows of a single window partition.
+ *
+ * <p>
+ * The rows are kept in memory until their accounted bytes exceed the memory budget (or the circuit breaker trips).
+ * They're then written to a {@link SpillFile}, together with all rows which are added afterwards, and their memory
+ * is released.
+ * </p>
+ *
+ * <p>
+ * A spilled partition is read back in blocks of {@link #BLOCK_SIZE} rows. The position of every block in the file is
+ * recorded while the rows are added, so that any row can be read without reading the rows before it. The recently
+ * used blocks are cached within the memory budget. The window functions mostly access rows close to the current row
+ * and the bounds of its frame, e.g. a frame ending at CURRENT ROW or N FOLLOWING moves forward through the partition,
+ * so most rows are read from the file only once.
+ * </p>
+ *
+ * <p>
+ * The window function results are injected into the cells returned by {@link #get(int)}. They're lost once a block
+ * is evicted from the cache, so a row must be consumed before the next rows are accessed.
+ * </p>
+ *
+ * Not thread-safe.
+ */
+final class SpillablePartition extends AbstractList<Object[]> implements RandomAccess, Closeable {
+
+    static final int BLOCK_SIZE = 256;
+
+    private final RowAccounting<Object[]> rowAccounting;
+    @Nullable
+    private final SpillFile.Factory spillFiles;
+    private final LongSupplier maxBytesInMemory;
+    private final LinkedHashMap<Integer, Block> cachedBlocks = new LinkedHashMap<>(16, 0.75f, true);
+
+    private List<Object[]> rows = new ArrayList<>();
+    private int size = 0;
+
+    /**
+     * The accounted bytes of the rows in memory: all rows until the partition is spilled, the cached blocks after.
+     */
+    private long bytes = 0;
+
+    @Nullable
+    private SpillFile spillFile;
+    private long[] blockPositions;
+
+    /**
+     * @param rowAccounting accounts for the rows which are kept in memory
+     * @param spillFiles creates the spill file, the rows are never spilled if null
+     * @param maxBytesInMemory the memory budget for the rows, they're spilled once it's exceeded
+     */
+    SpillablePartition(RowAccounting<Object[]> rowAccounting,
+                       @Nullable SpillFile.Factory spillFiles,
+                       LongSupplier maxBytesInMemory) {
+        this.rowAccounting = rowAccounting;
+        this.spillFiles = spillFiles;
+        this.maxBytesInMemory = maxBytesInMemory;
+    }
+
+    @Override
+    public boolean add(Object[] cells) {
+        if (spillFile != null) {
+            addToSpillFile(cells);
+        } else if (spillFiles == null) {
+            bytes += rowAccounting.accountForAndMaybeBreak(cells);
+            rows.add(cells);
+        } else {
+            long rowBytes;
+            try {
+                rowBytes = rowAccounting.accountForAndMaybeBreak(cells);
+            } catch (CircuitBreakingException e) {
+                if (rows.isEmpty()) {
+                    throw e;
+                }
+                spill();
+                addToSpillFile(cells);
+                size++;
+                return true;
+            }
+            bytes += rowBytes;
+            rows.add(cells);
+            if (bytes > maxBytesInMemory.getAsLong()) {
+                spill();
+            }
+        }
+        size++;
+        return true;
+    }
+
+    boolean hasSpilled() {
+        return spillFile != null;
+    }
+
+    @Override
+    public Object[] get(int index) {
+        if (spillFile == null) {
+            return rows.get(index);
+        }
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int blockIdx = index / BLOCK_SIZE;
+        Block block = cachedBlocks.get(blockIdx);
+        if (block == null) {
+            block = readBlock(blockIdx);
+            cachedBlocks.put(blockIdx, block);
+            bytes += block.bytes;
+            long maxBytes = maxBytesInMemory.getAsLong();
+            Iterator<Map.Entry<Integer, Block>> it = cachedBlocks.entrySet().iterator();
+            while (bytes > maxBytes && cachedBlocks.size() > 1) {
+                Block evicted = it.next().getValue();
+                it.remove();
+                bytes -= evicted.bytes;
+                rowAccounting.release(evicted.bytes);
+            }
+        }
+        return block.rows[index - blockIdx * BLOCK_SIZE];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the rows to a spill file and releases their memory.
+     */
+    private void spill() {
+        assert spillFiles != null : "spill must only be called if spillFiles are available";
+        try {
+            spillFile = spillFiles.newSpillFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        blockPositions = new long[8];
+        for (Object[] row : rows) {
+            addToSpillFile(row);
+        }
+        rows = List.of();
+        rowAccounting.release(bytes);
+        bytes = 0;
+    }
+
+    private void addToSpillFile(Object[] cells) {
+        int numRows = spillFile.numRows();
+        if (numRows % BLOCK_SIZE == 0) {
+            int blockIdx = numRows / BLOCK_SIZE;
+            blockPositions = ArrayUtil.grow(blockPositions, blockIdx + 1);
+            blockPositions[blockIdx] = spillFile.position();
+        }
+        spillFile.add(cells);
+    }
+
+    private Block readBlock(int blockIdx) {
+        int numRows = Math.min(BLOCK_SIZE, size - blockIdx * BLOCK_SIZE);
+        Object[][] blockRows = new Object[numRows][];
+        long blockBytes = 0;
+        try (CloseableIterator<Object[]> it = spillFile.read(blockPositions[blockIdx], numRows)) {
+            for (int i = 0; i < numRows; i++) {
+                Object[] row = it.next();
+                blockBytes += rowAccounting.accountForAndMaybeBreak(row);
+                blockRows[i] = row;
+            }
+        } catch (RuntimeException e) {
+            rowAccounting.release(blockBytes);
+            throw e;
+        }
+        return new Block(blockRows, blockBytes);
+    }
+
+    @Override
+    public void close() {
+        cachedBlocks.clear();
+        rows = List.of();
+        rowAccounting.release(bytes);
+        bytes = 0;
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                spillFile = null;
+            }
+        }
+    }
+
+    private record Block(Object[][] rows, long bytes) {
+    }
+}
@@ -22,6 +22,8 @@
 package io.crate.execution.engine.window;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.BatchIterators;
@@ -30,11 +32,17 @@ import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.execution.engine.pipeline.TopN;
 import io.crate.execution.engine.sort.Sort;
+import io.crate.execution.engine.sort.SpillableSortingCollector;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.expression.symbol.Literal;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -44,6 +52,9 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 import static io.crate.common.collections.Lists2.findFirstNonPeer;
@@ -119,7 +130,210 @@ public final class WindowFunctionBatchIterator {
         );
     }
 
-    private static Object[] materializeWithSpare(Row row, int numWindowFunctions) {
+    /**
+     * Computes the window functions over a source which is already sorted by the PARTITION BY and ORDER BY of the
+     * window definition. Only the rows of one partition are kept in memory, see {@link SortedPartitionsBatchIterator}.
+     *
+     * @param partitionAccounting accounts for the rows of the current partition, including the spare cells for the
+     *                            window function results.
+     * @param spillFiles          creates the spill files for partitions which exceed <code>maxBytesInMemory</code>.
+     *                            The rows contain the source cells and the spare cells. Partitions aren't spilled if
+     *                            null.
+     */
+    public static BatchIterator<Row> ofSortedSource(BatchIterator<Row> source,
+                                                    RowAccounting<Object[]> partitionAccounting,
+                                                    @Nullable SpillFile.Factory spillFiles,
+                                                    LongSupplier maxBytesInMemory,
+                                                    ComputeFrameBoundary<Object[]> computeFrameStart,
+                                                    ComputeFrameBoundary<Object[]> computeFrameEnd,
+                                                    @Nullable Comparator<Object[]> cmpPartitionBy,
+                                                    int numCellsInSourceRow,
+                                                    List<WindowFunction> windowFunctions,
+                                                    List<? extends CollectExpression<Row, ?>> argsExpressions,
+                                                    Boolean[] ignoreNulls,
+                                                    Input[]... args) {
+        assert windowFunctions.size() == args.length : "arguments must be defined for each window function";
+        assert args.length == ignoreNulls.length : "ignore-nulls option must be defined for each window function";
+        return new SortedPartitionsBatchIterator(
+            source,
+            partitionAccounting,
+            spillFiles,
+            maxBytesInMemory,
+            cmpPartitionBy,
+            windowFunctions.size(),
+            partitionRows -> computeWindowFunctions(
+                partitionRows,
+                computeFrameStart,
+                computeFrameEnd,
+                null,
+                numCellsInSourceRow,
+                windowFunctions,
+                argsExpressions,
+                ignoreNulls,
+                args
+            )
+        );
+    }
+
+    /**
+     * Like {@link #of}, but sorts the rows with a {@link SpillableSortingCollector} if they don't fit into memory.
+     * In that case the sorted rows are read back one partition at a time, and partitions which don't fit into memory
+     * are spilled again, see {@link SpillablePartition}.
+     *
+     * @param rowAccounting       accounts for the buffered rows, including the spare cells for the window function
+     *                            results. It's released whenever rows are spilled.
+     * @param partitionAccounting accounts for the rows of the partition which is read back from the spill files.
+     * @param spillFiles          creates the spill files. The rows contain the source cells and the spare cells.
+     * @param maxBytesInMemory    the memory budget for the buffered rows, they're spilled once it's exceeded.
+     */
+    public static BatchIterator<Row> spillable(BatchIterator<Row> source,
+                                               RowAccounting<Object[]> rowAccounting,
+                                               RowAccounting<Object[]> partitionAccounting,
+                                               SpillFile.Factory spillFiles,
+                                               LongSupplier maxBytesInMemory,
+                                               ComputeFrameBoundary<Object[]> computeFrameStart,
+                                               ComputeFrameBoundary<Object[]> computeFrameEnd,
+                                               @Nullable Comparator<Object[]> cmpPartitionBy,
+                                               @Nullable Comparator<Object[]> cmpOrderBy,
+                                               int numCellsInSourceRow,
+                                               IntSupplier numAvailableThreads,
+                                               Executor executor,
+                                               List<WindowFunction> windowFunctions,
+                                               List<? extends CollectExpression<Row, ?>> argsExpressions,
+                                               Boolean[] ignoreNulls,
+                                               Input[]... args) {
+        assert windowFunctions.size() == args.length : "arguments must be defined for each window function";
+        assert args.length == ignoreNulls.length : "ignore-nulls option must be defined for each window function";
+        List<Input<?>> inputs = new ArrayList<>(numCellsInSourceRow + windowFunctions.size());
+        List<InputCollectExpression> expressions = new ArrayList<>(numCellsInSourceRow);
+        for (int i = 0; i < numCellsInSourceRow; i++) {
+            InputCollectExpression expression = new InputCollectExpression(i);
+            expressions.add(expression);
+            inputs.add(expression);
+        }
+        for (int i = 0; i < windowFunctions.size(); i++) {
+            inputs.add(Literal.NULL);
+        }
+        Comparator<Object[]> cmpPartitionThenOrderBy = joinCmp(cmpPartitionBy, cmpOrderBy);
+        assert cmpPartitionThenOrderBy != null : "Window definition must have a PARTITION BY or ORDER BY to spill";
+        var sortingCollector = new SpillableSortingCollector(
+            rowAccounting,
+            inputs,
+            expressions,
+            inputs.size(),
+            cmpPartitionThenOrderBy,
+            TopN.NO_LIMIT,
+            0,
+            spillFiles,
+            maxBytesInMemory
+        );
+        Collector<Row, SpillableSortingCollector.Runs, SpillableSortingCollector.Runs> collectRuns = Collector.of(
+            sortingCollector.supplier(),
+            sortingCollector.accumulator(),
+            sortingCollector.combiner()
+        );
+        Function<List<Object[]>, Iterable<Object[]>> computePartition = partitionRows -> computeWindowFunctions(
+            partitionRows,
+            computeFrameStart,
+            computeFrameEnd,
+            null,
+            numCellsInSourceRow,
+            windowFunctions,
+            argsExpressions,
+            ignoreNulls,
+            args
+        );
+        List<SpillablePartition> openPartitions = new ArrayList<>();
+        return CollectingBatchIterator.newInstance(
+            () -> {
+                try {
+                    source.close();
+                } finally {
+                    try {
+                        sortingCollector.close();
+                    } finally {
+                        openPartitions.forEach(SpillablePartition::close);
+                        openPartitions.clear();
+                        partitionAccounting.release();
+                    }
+                }
+            },
+            source::kill,
+            () -> BatchIterators.collect(source, collectRuns)
+                .thenCompose(runs -> {
+                    if (runs.hasSpilled()) {
+                        Iterable<Object[]> sortedRows = sortingCollector.sortedCells(runs);
+                        Iterable<Object[]> computedRows = () -> computeByPartition(
+                            sortedRows.iterator(),
+                            cmpPartitionBy,
+                            () -> new SpillablePartition(partitionAccounting, spillFiles, maxBytesInMemory),
+                            openPartitions,
+                            computePartition
+                        );
+                        return CompletableFuture.completedFuture(computedRows);
+                    }
+                    return sortAndComputeWindowFunctions(
+                        runs.rows(),
+                        computeFrameStart,
+                        computeFrameEnd,
+                        cmpPartitionBy,
+                        cmpOrderBy,
+                        numCellsInSourceRow,
+                        numAvailableThreads,
+                        executor,
+                        windowFunctions,
+                        argsExpressions,
+                        ignoreNulls,
+                        args
+                    );
+                })
+                .thenApply(rows -> Iterables.transform(rows, Buckets.arrayToSharedRow()::apply)),
+            source.hasLazyResultSet()
+        );
+    }
+
+    /**
+     * Groups the sorted rows into partitions and computes the window functions one partition at a time.
+     * A partition is closed once the next one is read, the remaining open partitions have to be closed by the caller.
+     */
+    private static Iterator<Object[]> computeByPartition(Iterator<Object[]> sortedRows,
+                                                         @Nullable Comparator<Object[]> cmpPartitionBy,
+                                                         Supplier<SpillablePartition> newPartition,
+                                                         List<SpillablePartition> openPartitions,
+                                                         Function<List<Object[]>, Iterable<Object[]>> computePartition) {
+        PeekingIterator<Object[]> rows = Iterators.peekingIterator(sortedRows);
+        Iterator<Iterator<Object[]>> partitions = new Iterator<>() {
+
+            @Nullable
+            private SpillablePartition partition;
+
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Iterator<Object[]> next() {
+                SpillablePartition previous = partition;
+                if (previous != null) {
+                    previous.close();
+                    // Compared by identity, the partitions are lists which would be compared by their rows
+                    openPartitions.removeIf(p -> p == previous);
+                }
+                partition = newPartition.get();
+                openPartitions.add(partition);
+                Object[] first = rows.next();
+                partition.add(first);
+                while (rows.hasNext() && cmpPartitionBy != null && cmpPartitionBy.compare(first, rows.peek()) == 0) {
+                    partition.add(rows.next());
+                }
+                return computePartition.apply(partition).iterator();
+            }
+        };
+        return Iterators.concat(partitions);
+    }
+
+    static Object[] materializeWithSpare(Row row, int numWindowFunctions) {
         Object[] cells = new Object[row.numColumns() + numWindowFunctions];
         for (int i = 0; i < row.numColumns(); i++) {
             cells[i] = row.get(i);
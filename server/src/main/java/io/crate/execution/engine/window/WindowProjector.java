@@ -25,12 +25,16 @@ import io.crate.analyze.OrderBy;
 import io.crate.analyze.WindowDefinition;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccountingWithEstimators;
+import io.crate.breaker.RowCellsAccountingWithEstimators;
+import io.crate.breaker.ScopedRamAccounting;
+import io.crate.common.collections.Lists2;
 import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.dsl.projection.WindowAggProjection;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillFile;
 import io.crate.expression.ExpressionsInput;
 import io.crate.expression.InputFactory;
 import io.crate.expression.symbol.InputColumn;
@@ -44,16 +48,19 @@ import io.crate.metadata.NodeContext;
 import io.crate.metadata.TransactionContext;
 import io.crate.sql.tree.WindowFrame;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import io.crate.types.IntervalType;
 import org.elasticsearch.Version;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 import static io.crate.analyze.SymbolEvaluator.evaluateWithoutParams;
@@ -70,7 +77,9 @@ public class WindowProjector {
                                            Version minNodeVersion,
                                            Version indexVersionCreated,
                                            IntSupplier numThreads,
-                                           Executor executor) {
+                                           Executor executor,
+                                           @Nullable Path spillDirectory,
+                                           LongSupplier maxBytesInMemory) {
         var windowFunctionSymbols = projection.windowFunctions();
         var numWindowFunctions = windowFunctionSymbols.size();
 
@@ -127,8 +136,9 @@ public class WindowProjector {
         Supplier<InputFactory.Context<CollectExpression<Row, ?>>> createInputFactoryContext =
             () -> inputFactory.ctxForInputColumns(txnCtx);
         int arrayListElementOverHead = 32;
+        List<DataType<?>> sourceTypes = Symbols.typeView(projection.standalone());
         RowAccountingWithEstimators accounting = new RowAccountingWithEstimators(
-            Symbols.typeView(projection.standalone()), ramAccounting, arrayListElementOverHead);
+            sourceTypes, ramAccounting, arrayListElementOverHead);
         Comparator<Object[]> cmpPartitionBy = partitions.isEmpty()
             ? null
             : createComparator(createInputFactoryContext, new OrderBy(windowDefinition.partitions()));
@@ -148,6 +158,50 @@ public class WindowProjector {
             windowDefinition,
             cmpOrderBy
         );
+        // The rows include the spare cells for the window function results
+        List<DataType<?>> rowTypes = Lists2.concat(sourceTypes, Symbols.typeView(windowFunctionSymbols));
+        SpillFile.Factory spillFiles = spillDirectory == null
+            ? null
+            : SpillFile.factory(spillDirectory, DataTypes.getStreamers(rowTypes));
+        if (projection.sourceSorted()) {
+            return sourceRows -> WindowFunctionBatchIterator.ofSortedSource(
+                sourceRows,
+                new RowCellsAccountingWithEstimators(
+                    rowTypes, new ScopedRamAccounting(ramAccounting), arrayListElementOverHead),
+                spillFiles,
+                maxBytesInMemory,
+                computeFrameStart,
+                computeFrameEnd,
+                cmpPartitionBy,
+                numCellsInSourceRow,
+                windowFunctions,
+                windowFuncArgsExpressions,
+                ignoreNulls,
+                windowFuncArgsInputs
+            );
+        }
+        if (spillFiles != null && (cmpPartitionBy != null || cmpOrderBy != null)) {
+            return sourceRows -> WindowFunctionBatchIterator.spillable(
+                sourceRows,
+                new RowCellsAccountingWithEstimators(
+                    rowTypes, new ScopedRamAccounting(ramAccounting), arrayListElementOverHead),
+                new RowCellsAccountingWithEstimators(
+                    rowTypes, new ScopedRamAccounting(ramAccounting), arrayListElementOverHead),
+                spillFiles,
+                maxBytesInMemory,
+                computeFrameStart,
+                computeFrameEnd,
+                cmpPartitionBy,
+                cmpOrderBy,
+                numCellsInSourceRow,
+                numThreads,
+                executor,
+                windowFunctions,
+                windowFuncArgsExpressions,
+                ignoreNulls,
+                windowFuncArgsInputs
+            );
+        }
         return sourceRows -> WindowFunctionBatchIterator.of(
             sourceRows,
             accounting,
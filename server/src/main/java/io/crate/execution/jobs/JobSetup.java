@@ -39,6 +39,7 @@ import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccountingWithEstimators;
 import io.crate.breaker.RowCellsAccountingWithEstimators;
+import io.crate.breaker.ScopedRamAccounting;
 import io.crate.common.collections.Tuple;
 import io.crate.data.Paging;
 import io.crate.data.Row;
@@ -79,6 +80,7 @@ import io.crate.execution.engine.join.NestedLoopOperation;
 import io.crate.execution.engine.pipeline.ProjectingRowConsumer;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
+import io.crate.execution.engine.spill.SpillFile;
 import io.crate.expression.InputFactory;
 import io.crate.expression.RowFilter;
 import io.crate.expression.eval.EvaluatingNormalizer;
@@ -96,11 +98,13 @@ import io.crate.planner.operators.PKAndVersion;
 import io.crate.types.DataTypes;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -109,6 +113,7 @@ import org.elasticsearch.node.Node;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
@@ -143,6 +148,7 @@ public class JobSetup {
     private final Executor searchTp;
     private final String nodeName;
     private final Schemas schemas;
+    private final Path spillDirectory;
 
     @Inject
     public JobSetup(Settings settings,
@@ -159,9 +165,11 @@ public class JobSetup {
                     NodeContext nodeCtx,
                     SystemCollectSource systemCollectSource,
                     ShardCollectSource shardCollectSource,
-                    MemoryManagerFactory memoryManagerFactory) {
+                    MemoryManagerFactory memoryManagerFactory,
+                    Environment environment) {
         this.nodeName = Node.NODE_NAME_SETTING.get(settings);
         this.schemas = schemas;
+        this.spillDirectory = environment.tmpFile();
         this.collectOperation = collectOperation;
         this.clusterService = clusterService;
         this.circuitBreakerService = circuitBreakerService;
@@ -184,7 +192,10 @@ public class JobSetup {
             inputFactory,
             normalizer,
             systemCollectSource::getRowUpdater,
-            systemCollectSource::tableDefinition
+            systemCollectSource::tableDefinition,
+            Version.CURRENT,
+            null,
+            spillDirectory
         );
     }
 
@@ -920,10 +931,19 @@ public class JobSetup {
             );
             Predicate<Row> joinCondition = RowFilter.create(context.transactionContext, inputFactory, phase.joinCondition());
 
+            SpillFile.Factory leftSpillFiles = null;
+            SpillFile.Factory rightSpillFiles = null;
+            // The right output types are missing if the phase was created by a node < 4.7.0, spilling is disabled then
+            if (phase.rightOutputTypes() != null) {
+                leftSpillFiles = SpillFile.factory(spillDirectory, DataTypes.getStreamers(phase.leftOutputTypes()));
+                rightSpillFiles = SpillFile.factory(spillDirectory, DataTypes.getStreamers(phase.rightOutputTypes()));
+            }
             HashJoinOperation joinOperation = new HashJoinOperation(
                 phase.numLeftOutputs(),
                 phase.numRightOutputs(),
                 firstConsumer,
+                phase.joinType(),
+                phase.isNullAware(),
                 joinCondition,
                 phase.leftJoinConditionInputs(),
                 phase.rightJoinConditionInputs(),
@@ -931,12 +951,17 @@ public class JobSetup {
                 //    96 bytes for each ArrayList +
                 //    7 bytes per key for the IntHashObjectHashMap  (should be 4 but the map pre-allocates more)
                 //    7 bytes perv value (pointer from the map to the list) (should be 4 but the map pre-allocates more)
-                new RowCellsAccountingWithEstimators(phase.leftOutputTypes(), ramAccountingOfOperation, 110),
+                // The join releases the memory of its rows while it's running (e.g. after spilling a partition),
+                // scoped so that it doesn't release the memory accounted by the projections
+                new RowCellsAccountingWithEstimators(
+                    phase.leftOutputTypes(), new ScopedRamAccounting(ramAccountingOfOperation), 110),
                 context.transactionContext,
                 inputFactory,
                 breaker(),
                 phase.estimatedRowSizeForLeft(),
-                phase.numberOfRowsForLeft());
+                phase.numberOfRowsForLeft(),
+                leftSpillFiles,
+                rightSpillFiles);
             DistResultRXTask left = pageDownstreamContextForNestedLoop(
                 phase.phaseId(),
                 context,
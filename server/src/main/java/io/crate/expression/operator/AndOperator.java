@@ -34,10 +34,13 @@ import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.SymbolVisitor;
+import io.crate.expression.vector.LogicalVectorExpression;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.lucene.LuceneQueryBuilder.Context;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
+import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
 public class AndOperator extends Operator<Boolean> {
@@ -144,6 +147,11 @@ public class AndOperator extends Operator<Boolean> {
         return left && right;
     }
 
+    @Override
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return LogicalVectorExpression.and(arguments.get(0), arguments.get(1));
+    }
+
     @Override
     public Query toQuery(Function function, Context context) {
         BooleanQuery.Builder query = new BooleanQuery.Builder();
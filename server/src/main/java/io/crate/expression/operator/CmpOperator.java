@@ -21,21 +21,27 @@
 
 package io.crate.expression.operator;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.IntPredicate;
 
+import javax.annotation.Nullable;
+
 import org.apache.lucene.search.Query;
 import org.elasticsearch.common.lucene.search.Queries;
 
 import io.crate.common.collections.MapComparator;
 import io.crate.data.Input;
 import io.crate.expression.symbol.Literal;
+import io.crate.expression.vector.CompareVectorExpression;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.lucene.LuceneQueryBuilder.Context;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Reference;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
+import io.crate.types.DataType;
 import io.crate.types.EqQuery;
 import io.crate.types.StorageSupport;
 
@@ -84,6 +90,12 @@ public final class CmpOperator extends Operator<Object> {
         }
     }
 
+    @Override
+    @Nullable
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return CompareVectorExpression.of(arguments.get(0), arguments.get(1), isMatch);
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     public static Query toQuery(String functionName, Reference ref, Object value, Context context) {
         StorageSupport<?> storageSupport = ref.valueType().storageSupport();
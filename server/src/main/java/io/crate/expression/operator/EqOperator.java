@@ -57,6 +57,8 @@ import io.crate.data.Input;
 import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.vector.CompareVectorExpression;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.lucene.LuceneQueryBuilder.Context;
 import io.crate.metadata.NodeContext;
@@ -120,6 +122,12 @@ public final class EqOperator extends Operator<Object> {
         return left.equals(right);
     }
 
+    @Override
+    @Nullable
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return CompareVectorExpression.of(arguments.get(0), arguments.get(1), cmpResult -> cmpResult == 0);
+    }
+
     @Override
     public Signature signature() {
         return signature;
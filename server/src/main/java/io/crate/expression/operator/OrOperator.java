@@ -21,6 +21,8 @@
 
 package io.crate.expression.operator;
 
+import java.util.List;
+
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Query;
@@ -29,10 +31,13 @@ import io.crate.data.Input;
 import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.vector.LogicalVectorExpression;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.lucene.LuceneQueryBuilder.Context;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
+import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
 public class OrOperator extends Operator<Boolean> {
@@ -145,6 +150,11 @@ public class OrOperator extends Operator<Boolean> {
         return left || right;
     }
 
+    @Override
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return LogicalVectorExpression.or(arguments.get(0), arguments.get(1));
+    }
+
     @Override
     public Query toQuery(Function function, Context context) {
         BooleanQuery.Builder query = new BooleanQuery.Builder();
@@ -23,6 +23,7 @@ package io.crate.expression.predicate;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.lucene.search.BooleanClause;
@@ -41,6 +42,8 @@ import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.SymbolVisitor;
+import io.crate.expression.vector.LogicalVectorExpression;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Reference;
@@ -48,6 +51,7 @@ import io.crate.metadata.Scalar;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
 import io.crate.sql.tree.ColumnPolicy;
+import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
 public class NotPredicate extends Scalar<Boolean, Boolean> {
@@ -109,6 +113,11 @@ public class NotPredicate extends Scalar<Boolean, Boolean> {
         return value != null ? !value : null;
     }
 
+    @Override
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return LogicalVectorExpression.not(arguments.get(0));
+    }
+
 
     private final SymbolToNotNullRangeQueryArgs INNER_VISITOR = new SymbolToNotNullRangeQueryArgs();
 
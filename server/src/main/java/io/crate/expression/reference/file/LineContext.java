@@ -55,16 +55,20 @@ public class LineContext {
     Map<String, Object> sourceAsMap() {
         if (parsedSource == null) {
             if (rawSource != null) {
-                try {
-                    parsedSource = XContentHelper.toMap(new BytesArray(rawSource), XContentType.JSON);
-                } catch (ElasticsearchParseException | NotXContentException e) {
-                    throw new RuntimeException("JSON parser error: " + e.getMessage(), e);
-                }
+                parsedSource = parseSource(rawSource);
             }
         }
         return parsedSource;
     }
 
+    public static Map<String, Object> parseSource(byte[] rawSource) {
+        try {
+            return XContentHelper.toMap(new BytesArray(rawSource), XContentType.JSON);
+        } catch (ElasticsearchParseException | NotXContentException e) {
+            throw new RuntimeException("JSON parser error: " + e.getMessage(), e);
+        }
+    }
+
     public Object get(ColumnIdent columnIdent) {
         Map<String, Object> parentMap = sourceAsMap();
         if (parentMap == null) {
@@ -74,8 +78,15 @@ public class LineContext {
     }
 
     public void rawSource(byte[] bytes) {
+        rawSource(bytes, null);
+    }
+
+    /**
+     * @param parsedSource the already parsed source, or null to parse it once it's used
+     */
+    public void rawSource(byte[] bytes, @Nullable Map<String, Object> parsedSource) {
         this.rawSource = bytes;
-        this.parsedSource = null;
+        this.parsedSource = parsedSource;
     }
 
     /**
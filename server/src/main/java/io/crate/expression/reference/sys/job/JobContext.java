@@ -32,13 +32,28 @@ public class JobContext {
     private final UUID id;
     private final String username;
     private final String stmt;
+    @Nullable
+    private final String fingerprint;
     private final long started;
     @Nullable
     private final Classification classification;
 
     public JobContext(UUID id, String stmt, long started, User user, @Nullable Classification classification) {
+        this(id, stmt, null, started, user, classification);
+    }
+
+    /**
+     * @param fingerprint the {@link io.crate.sql.parser.StatementFingerprint} of stmt if already known.
+     */
+    public JobContext(UUID id,
+                      String stmt,
+                      @Nullable String fingerprint,
+                      long started,
+                      User user,
+                      @Nullable Classification classification) {
         this.id = id;
         this.stmt = stmt;
+        this.fingerprint = fingerprint;
         this.started = started;
         this.username = user.name();
         this.classification = classification;
@@ -52,6 +67,11 @@ public class JobContext {
         return stmt;
     }
 
+    @Nullable
+    public String fingerprint() {
+        return fingerprint;
+    }
+
     public String username() {
         return username;
     }
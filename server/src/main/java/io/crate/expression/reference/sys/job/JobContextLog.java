@@ -62,6 +62,11 @@ public class JobContextLog implements ContextLog {
         return jobContext.stmt();
     }
 
+    @Nullable
+    public String fingerprint() {
+        return jobContext.fingerprint();
+    }
+
     public long started() {
         return jobContext.started();
     }
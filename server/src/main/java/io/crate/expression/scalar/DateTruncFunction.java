@@ -26,6 +26,9 @@ import io.crate.data.Input;
 import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.vector.ColumnVectors;
+import io.crate.expression.vector.UnaryVectorExpression;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.TransactionContext;
@@ -187,6 +190,16 @@ public class DateTruncFunction extends Scalar<Long, Object> {
         return truncate(tzRounding, DataTypes.TIMESTAMPZ.sanitizeValue(value));
     }
 
+    @Override
+    @Nullable
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        VectorExpression timestamp = arguments.get(arguments.size() - 1);
+        if (tzRounding == null || !ColumnVectors.isIntegral(timestamp.valueType())) {
+            return null;
+        }
+        return UnaryVectorExpression.ofLongs(returnType, timestamp, tzRounding::round);
+    }
+
     private Rounding rounding(String interval, String timeZoneString) {
         DateTimeUnit intervalAsUnit = intervalAsUnit(interval);
         DateTimeZone timeZone = TimeZoneParser.parseTimeZone(timeZoneString);
@@ -22,12 +22,15 @@
 package io.crate.expression.scalar;
 
 import io.crate.data.Input;
+import io.crate.expression.vector.UnaryVectorExpression;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
 
+import java.util.List;
 import java.util.function.Function;
 
 
@@ -76,4 +79,10 @@ public class UnaryScalar<R, T> extends Scalar<R, T> {
         }
         return func.apply(value);
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return UnaryVectorExpression.of((DataType<R>) returnType, type, arguments.get(0), func);
+    }
 }
@@ -22,6 +22,7 @@
 package io.crate.expression.scalar.arithmetic;
 
 import io.crate.expression.scalar.ScalarFunctionModule;
+import io.crate.expression.vector.ArithmeticVectorExpression;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataTypes;
@@ -32,6 +33,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
 
 public class ArithmeticFunctions {
 
@@ -97,16 +101,16 @@ public class ArithmeticFunctions {
 
         private final Set<Scalar.Feature> features;
 
-        private final BinaryOperator<Integer> integerFunction;
-        private final BinaryOperator<Double> doubleFunction;
-        private final BinaryOperator<Long> longFunction;
+        private final IntBinaryOperator integerFunction;
+        private final DoubleBinaryOperator doubleFunction;
+        private final LongBinaryOperator longFunction;
         private final BinaryOperator<Float> floatFunction;
         private final BinaryOperator<BigDecimal> bdFunction;
 
         Operations(Set<Scalar.Feature> features,
-                   BinaryOperator<Integer> integerFunction,
-                   BinaryOperator<Double> doubleFunction,
-                   BinaryOperator<Long> longFunction,
+                   IntBinaryOperator integerFunction,
+                   DoubleBinaryOperator doubleFunction,
+                   LongBinaryOperator longFunction,
                    BinaryOperator<Float> floatFunction,
                    BinaryOperator<BigDecimal> bdFunction) {
             this.features = features;
@@ -133,7 +137,13 @@ public class ArithmeticFunctions {
                     DataTypes.INTEGER.getTypeSignature()
                 ).withFeatures(op.features),
                 (signature, boundSignature) ->
-                    new BinaryScalar<>(op.integerFunction, signature, boundSignature, DataTypes.INTEGER)
+                    new BinaryScalar<>(
+                        op.integerFunction::applyAsInt,
+                        signature,
+                        boundSignature,
+                        DataTypes.INTEGER,
+                        (x, y) -> ArithmeticVectorExpression.ofInts(DataTypes.INTEGER, op.integerFunction, x, y)
+                    )
             );
             for (var type : List.of(DataTypes.LONG, DataTypes.TIMESTAMP, DataTypes.TIMESTAMPZ)) {
                 module.register(
@@ -144,7 +154,13 @@ public class ArithmeticFunctions {
                         type.getTypeSignature()
                     ).withFeatures(op.features),
                     (signature, boundSignature) ->
-                        new BinaryScalar<>(op.longFunction, signature, boundSignature, type)
+                        new BinaryScalar<>(
+                            op.longFunction::applyAsLong,
+                            signature,
+                            boundSignature,
+                            type,
+                            (x, y) -> ArithmeticVectorExpression.ofLongs(type, op.longFunction, x, y)
+                        )
                 );
             }
             module.register(
@@ -165,7 +181,13 @@ public class ArithmeticFunctions {
                     DataTypes.DOUBLE.getTypeSignature()
                 ).withFeatures(op.features),
                 (signature, boundSignature) ->
-                    new BinaryScalar<>(op.doubleFunction, signature, boundSignature, DataTypes.DOUBLE)
+                    new BinaryScalar<>(
+                        op.doubleFunction::applyAsDouble,
+                        signature,
+                        boundSignature,
+                        DataTypes.DOUBLE,
+                        (x, y) -> ArithmeticVectorExpression.ofDoubles(DataTypes.DOUBLE, op.doubleFunction, x, y)
+                    )
             );
             module.register(
                 Signature.scalar(
@@ -22,31 +22,50 @@
 package io.crate.expression.scalar.arithmetic;
 
 import io.crate.data.Input;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
 
+import java.util.List;
 import java.util.function.BinaryOperator;
 
+import javax.annotation.Nullable;
+
 public final class BinaryScalar<T> extends Scalar<T, T> {
 
     private final BinaryOperator<T> func;
     private final Signature signature;
     private final Signature boundSignature;
     private final DataType<T> type;
+    @Nullable
+    private final BinaryOperator<VectorExpression> vectorFunc;
 
     public BinaryScalar(BinaryOperator<T> func,
                         Signature signature,
                         Signature boundSignature,
                         DataType<T> type) {
+        this(func, signature, boundSignature, type, null);
+    }
+
+    /**
+     * @param vectorFunc creates the vectorized form of {@code func} out of the argument vectors.
+     *                   See {@link Scalar#vectorize(DataType, List)}
+     */
+    public BinaryScalar(BinaryOperator<T> func,
+                        Signature signature,
+                        Signature boundSignature,
+                        DataType<T> type,
+                        @Nullable BinaryOperator<VectorExpression> vectorFunc) {
         assert boundSignature.getArgumentDataTypes().stream().allMatch(t -> t.id() == type.id()) :
             "All bound argument types of the signature must match the type argument";
         this.func = func;
         this.signature = signature;
         this.boundSignature = boundSignature;
         this.type = type;
+        this.vectorFunc = vectorFunc;
     }
 
     @Override
@@ -76,4 +95,13 @@ public final class BinaryScalar<T> extends Scalar<T, T> {
             throw new IllegalArgumentException(ae.getMessage());
         }
     }
+
+    @Override
+    @Nullable
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        if (vectorFunc == null) {
+            return null;
+        }
+        return vectorFunc.apply(arguments.get(0), arguments.get(1));
+    }
 }
@@ -21,11 +21,17 @@
 
 package io.crate.expression.scalar.cast;
 
+import java.util.List;
+
+import javax.annotation.Nullable;
+
 import io.crate.data.Input;
 import io.crate.exceptions.ConversionException;
 import io.crate.expression.scalar.ScalarFunctionModule;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.vector.CastVectorExpression;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.TransactionContext;
@@ -73,6 +79,12 @@ public class ExplicitCastFunction extends Scalar<Object, Object> {
         }
     }
 
+    @Override
+    @Nullable
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return CastVectorExpression.of(returnType, arguments.get(0));
+    }
+
     @Override
     public Signature signature() {
         return signature;
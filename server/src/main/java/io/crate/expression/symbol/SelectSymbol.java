@@ -37,6 +37,7 @@ public class SelectSymbol extends Symbol {
     private final AnalyzedRelation relation;
     private final ArrayType<?> dataType;
     private final ResultType resultType;
+    private final int maxValues;
 
     public enum ResultType {
         SINGLE_COLUMN_SINGLE_VALUE,
@@ -44,9 +45,22 @@ public class SelectSymbol extends Symbol {
     }
 
     public SelectSymbol(AnalyzedRelation relation, ArrayType<?> dataType, ResultType resultType) {
+        this(relation, dataType, resultType, -1);
+    }
+
+    /**
+     * @param maxValues the maximum number of values of a {@link ResultType#SINGLE_COLUMN_MULTIPLE_VALUES} result,
+     *                  or -1 for no limit. If the sub-query returns more values, its result is null and a
+     *                  `x = ANY(sub-query)` condition is dropped instead of being bound.
+     *                  Only use this for conditions which are redundant filters.
+     */
+    public SelectSymbol(AnalyzedRelation relation, ArrayType<?> dataType, ResultType resultType, int maxValues) {
+        assert maxValues < 0 || resultType == ResultType.SINGLE_COLUMN_MULTIPLE_VALUES
+            : "maxValues is only supported for sub-queries with multiple values";
         this.relation = relation;
         this.dataType = dataType;
         this.resultType = resultType;
+        this.maxValues = maxValues;
     }
 
     public AnalyzedRelation relation() {
@@ -84,4 +98,8 @@ public class SelectSymbol extends Symbol {
     public ResultType getResultType() {
         return resultType;
     }
+
+    public int maxValues() {
+        return maxValues;
+    }
 }
@@ -26,6 +26,7 @@ import io.crate.metadata.functions.Signature;
 
 import javax.annotation.Nullable;
 import javax.script.ScriptException;
+import java.util.Set;
 
 
 /**
@@ -61,5 +62,13 @@ public interface UDFLanguage {
      */
     String name();
 
+    /**
+     * Called once the functions of a schema were re-registered, with the specific names of the functions of this
+     * language which still exist in the schema. Languages which keep resources per function can release the
+     * resources of the dropped functions.
+     */
+    default void retainFunctions(String schema, Set<String> specificNames) {
+    }
+
 }
 
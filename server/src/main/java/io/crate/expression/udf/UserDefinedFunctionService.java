@@ -59,10 +59,12 @@ import javax.annotation.Nullable;
 import javax.script.ScriptException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -221,13 +223,40 @@ public class UserDefinedFunctionService {
 
 
     public void updateImplementations(String schema, Stream<UserDefinedFunctionMetadata> userDefinedFunctions) {
-        updateImplementations(schema, userDefinedFunctions, nodeCtx);
+        Map<String, Set<String>> specificNamesByLanguage = registerImplementations(schema, userDefinedFunctions, nodeCtx);
+        for (UDFLanguage language : languageRegistry.values()) {
+            language.retainFunctions(schema, specificNamesByLanguage.getOrDefault(language.name(), Set.of()));
+        }
     }
 
+    /**
+     * Registers the implementations on the given node context, which may be a copy used for validation.
+     * Unlike {@link #updateImplementations(String, Stream)} the languages are not notified about dropped functions.
+     */
     public void updateImplementations(String schema,
                                       Stream<UserDefinedFunctionMetadata> userDefinedFunctions,
                                       NodeContext nodeCtx) {
+        registerImplementations(schema, userDefinedFunctions, nodeCtx);
+    }
+
+    /**
+     * Removes the implementations of all functions of the schema, e.g. once the schema is dropped.
+     */
+    public void removeImplementations(String schema) {
+        nodeCtx.functions().deregisterUdfResolversForSchema(schema);
+        for (UDFLanguage language : languageRegistry.values()) {
+            language.retainFunctions(schema, Set.of());
+        }
+    }
+
+    /**
+     * @return the specific names of the registered functions by their language.
+     */
+    private Map<String, Set<String>> registerImplementations(String schema,
+                                                             Stream<UserDefinedFunctionMetadata> userDefinedFunctions,
+                                                             NodeContext nodeCtx) {
         final Map<FunctionName, List<FunctionProvider>> implementations = new HashMap<>();
+        final Map<String, Set<String>> specificNamesByLanguage = new HashMap<>();
         Iterator<UserDefinedFunctionMetadata> it = userDefinedFunctions.iterator();
         while (it.hasNext()) {
             UserDefinedFunctionMetadata udf = it.next();
@@ -239,8 +268,10 @@ public class UserDefinedFunctionService {
             var resolvers = implementations.computeIfAbsent(
                 functionName, k -> new ArrayList<>());
             resolvers.add(resolver);
+            specificNamesByLanguage.computeIfAbsent(udf.language(), k -> new HashSet<>()).add(udf.specificName());
         }
         nodeCtx.functions().registerUdfFunctionImplementationsForSchema(schema, implementations);
+        return specificNamesByLanguage;
     }
 
     @Nullable
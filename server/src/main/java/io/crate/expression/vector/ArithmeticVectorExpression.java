@@ -0,0 +1,165 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.DoubleColumnVector;
+import io.crate.data.vector.LongColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.types.DataType;
+
+/**
+ * Binary arithmetic on integral or floating point vectors.
+ *
+ * Like {@link io.crate.expression.scalar.arithmetic.BinaryScalar} the result is null if any argument is null
+ * and an {@link ArithmeticException} is re-thrown as {@link IllegalArgumentException}.
+ */
+public abstract class ArithmeticVectorExpression implements VectorExpression {
+
+    protected final DataType<?> type;
+    protected final VectorExpression left;
+    protected final VectorExpression right;
+
+    private ArithmeticVectorExpression(DataType<?> type, VectorExpression left, VectorExpression right) {
+        this.type = type;
+        this.left = left;
+        this.right = right;
+    }
+
+    public static VectorExpression ofInts(DataType<?> type,
+                                          IntBinaryOperator operator,
+                                          VectorExpression left,
+                                          VectorExpression right) {
+        return new LongArithmetic(type, left, right, (x, y) -> operator.applyAsInt((int) x, (int) y));
+    }
+
+    public static VectorExpression ofLongs(DataType<?> type,
+                                           LongBinaryOperator operator,
+                                           VectorExpression left,
+                                           VectorExpression right) {
+        return new LongArithmetic(type, left, right, operator);
+    }
+
+    public static VectorExpression ofDoubles(DataType<?> type,
+                                             DoubleBinaryOperator operator,
+                                             VectorExpression left,
+                                             VectorExpression right) {
+        return new DoubleArithmetic(type, left, right, operator);
+    }
+
+    @Override
+    public DataType<?> valueType() {
+        return type;
+    }
+
+    private static final class LongArithmetic extends ArithmeticVectorExpression {
+
+        private final LongBinaryOperator operator;
+        private LongColumnVector leftLongs;
+        private LongColumnVector rightLongs;
+        private LongColumnVector result;
+
+        private LongArithmetic(DataType<?> type,
+                               VectorExpression left,
+                               VectorExpression right,
+                               LongBinaryOperator operator) {
+            super(type, left, right);
+            this.operator = operator;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            LongColumnVector lhs = leftLongs = ColumnVectors.toLongs(left.evaluate(batch, selection), selection, leftLongs);
+            LongColumnVector rhs = rightLongs = ColumnVectors.toLongs(right.evaluate(batch, selection), selection, rightLongs);
+            if (result == null) {
+                result = (LongColumnVector) ColumnVectors.create(type, selection.capacity());
+            }
+            long[] x = lhs.values();
+            long[] y = rhs.values();
+            boolean[] xNulls = lhs.nulls();
+            boolean[] yNulls = rhs.nulls();
+            long[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            try {
+                for (int i = 0, size = selection.size(); i < size; i++) {
+                    int pos = positions[i];
+                    if (xNulls[pos] || yNulls[pos]) {
+                        nulls[pos] = true;
+                    } else {
+                        nulls[pos] = false;
+                        values[pos] = operator.applyAsLong(x[pos], y[pos]);
+                    }
+                }
+            } catch (ArithmeticException ae) {
+                throw new IllegalArgumentException(ae.getMessage());
+            }
+            return result;
+        }
+    }
+
+    private static final class DoubleArithmetic extends ArithmeticVectorExpression {
+
+        private final DoubleBinaryOperator operator;
+        private DoubleColumnVector leftDoubles;
+        private DoubleColumnVector rightDoubles;
+        private DoubleColumnVector result;
+
+        private DoubleArithmetic(DataType<?> type,
+                                 VectorExpression left,
+                                 VectorExpression right,
+                                 DoubleBinaryOperator operator) {
+            super(type, left, right);
+            this.operator = operator;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            DoubleColumnVector lhs = leftDoubles = ColumnVectors.toDoubles(left.evaluate(batch, selection), selection, leftDoubles);
+            DoubleColumnVector rhs = rightDoubles = ColumnVectors.toDoubles(right.evaluate(batch, selection), selection, rightDoubles);
+            if (result == null) {
+                result = (DoubleColumnVector) ColumnVectors.create(type, selection.capacity());
+            }
+            double[] x = lhs.values();
+            double[] y = rhs.values();
+            boolean[] xNulls = lhs.nulls();
+            boolean[] yNulls = rhs.nulls();
+            double[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                if (xNulls[pos] || yNulls[pos]) {
+                    nulls[pos] = true;
+                } else {
+                    nulls[pos] = false;
+                    values[pos] = operator.applyAsDouble(x[pos], y[pos]);
+                }
+            }
+            return result;
+        }
+    }
+}
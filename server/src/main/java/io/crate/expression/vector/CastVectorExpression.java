@@ -0,0 +1,141 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import javax.annotation.Nullable;
+
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.DoubleColumnVector;
+import io.crate.data.vector.LongColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+/**
+ * Widening casts of numeric values. Narrowing casts need range checks and are evaluated row by row.
+ */
+public final class CastVectorExpression {
+
+    private CastVectorExpression() {
+    }
+
+    /**
+     * @return the cast expression or null if the cast isn't supported on vectors.
+     */
+    @Nullable
+    public static VectorExpression of(DataType<?> targetType, VectorExpression argument) {
+        DataType<?> sourceType = argument.valueType();
+        if (targetType.id() == DataTypes.LONG.id() && ColumnVectors.isIntegral(sourceType)) {
+            return new ToLong(argument);
+        }
+        if (targetType.id() == DataTypes.DOUBLE.id()
+            && (ColumnVectors.isIntegral(sourceType) || ColumnVectors.isFloatingPoint(sourceType))) {
+            return new ToDouble(argument);
+        }
+        return null;
+    }
+
+    private static final class ToLong implements VectorExpression {
+
+        private final VectorExpression argument;
+        private LongColumnVector longs;
+        private LongColumnVector result;
+
+        private ToLong(VectorExpression argument) {
+            this.argument = argument;
+        }
+
+        @Override
+        public DataType<?> valueType() {
+            return DataTypes.LONG;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            LongColumnVector arg = longs = ColumnVectors.toLongs(argument.evaluate(batch, selection), selection, longs);
+            if (result == null) {
+                result = (LongColumnVector) ColumnVectors.create(DataTypes.LONG, selection.capacity());
+            }
+            long[] x = arg.values();
+            boolean[] xNulls = arg.nulls();
+            long[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                nulls[pos] = xNulls[pos];
+                values[pos] = x[pos];
+            }
+            return result;
+        }
+    }
+
+    private static final class ToDouble implements VectorExpression {
+
+        private final VectorExpression argument;
+        private ColumnVector result;
+
+        private ToDouble(VectorExpression argument) {
+            this.argument = argument;
+        }
+
+        @Override
+        public DataType<?> valueType() {
+            return DataTypes.DOUBLE;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            ColumnVector arg = argument.evaluate(batch, selection);
+            if (result == null) {
+                result = ColumnVectors.create(DataTypes.DOUBLE, selection.capacity());
+            }
+            DoubleColumnVector doubles = (DoubleColumnVector) result;
+            double[] values = doubles.values();
+            boolean[] nulls = doubles.nulls();
+            int[] positions = selection.positions();
+            if (arg instanceof LongColumnVector longs) {
+                long[] x = longs.values();
+                boolean[] xNulls = longs.nulls();
+                for (int i = 0, size = selection.size(); i < size; i++) {
+                    int pos = positions[i];
+                    nulls[pos] = xNulls[pos];
+                    values[pos] = x[pos];
+                }
+            } else if (arg instanceof DoubleColumnVector source) {
+                double[] x = source.values();
+                boolean[] xNulls = source.nulls();
+                for (int i = 0, size = selection.size(); i < size; i++) {
+                    int pos = positions[i];
+                    nulls[pos] = xNulls[pos];
+                    values[pos] = x[pos];
+                }
+            } else {
+                for (int i = 0, size = selection.size(); i < size; i++) {
+                    int pos = positions[i];
+                    doubles.set(pos, arg.get(pos));
+                }
+            }
+            return result;
+        }
+    }
+}
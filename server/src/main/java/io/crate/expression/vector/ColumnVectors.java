@@ -0,0 +1,154 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import io.crate.data.vector.BooleanColumnVector;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.DoubleColumnVector;
+import io.crate.data.vector.LongColumnVector;
+import io.crate.data.vector.ObjectColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+
+public final class ColumnVectors {
+
+    private ColumnVectors() {
+    }
+
+    /**
+     * @return true if values of the type are stored in a {@link LongColumnVector}
+     */
+    public static boolean isIntegral(DataType<?> type) {
+        return switch (type.id()) {
+            case ByteType.ID, ShortType.ID, IntegerType.ID, LongType.ID,
+                TimestampType.ID_WITH_TZ, TimestampType.ID_WITHOUT_TZ -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return true if values of the type are stored in a {@link DoubleColumnVector}
+     */
+    public static boolean isFloatingPoint(DataType<?> type) {
+        return type.id() == FloatType.ID || type.id() == DoubleType.ID;
+    }
+
+    public static ColumnVector create(DataType<?> type, int capacity) {
+        return switch (type.id()) {
+            case ByteType.ID -> new LongColumnVector(capacity, x -> (byte) x);
+            case ShortType.ID -> new LongColumnVector(capacity, x -> (short) x);
+            case IntegerType.ID -> new LongColumnVector(capacity, x -> (int) x);
+            case LongType.ID, TimestampType.ID_WITH_TZ, TimestampType.ID_WITHOUT_TZ ->
+                new LongColumnVector(capacity, x -> x);
+            case FloatType.ID -> new DoubleColumnVector(capacity, x -> (float) x);
+            case DoubleType.ID -> new DoubleColumnVector(capacity, x -> x);
+            case BooleanType.ID -> new BooleanColumnVector(capacity);
+            default -> new ObjectColumnVector(capacity);
+        };
+    }
+
+    /**
+     * Returns {@code vector} if it is a {@link LongColumnVector}, otherwise the selected values are
+     * copied into {@code target}, which is created if null.
+     */
+    public static LongColumnVector toLongs(ColumnVector vector, SelectionVector selection, LongColumnVector target) {
+        if (vector instanceof LongColumnVector longs) {
+            return longs;
+        }
+        LongColumnVector result = target == null ? new LongColumnVector(selection.capacity(), x -> x) : target;
+        if (vector instanceof ObjectColumnVector objects) {
+            Object[] source = objects.values();
+            long[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                Object value = source[pos];
+                if (value == null) {
+                    nulls[pos] = true;
+                } else {
+                    nulls[pos] = false;
+                    values[pos] = ((Number) value).longValue();
+                }
+            }
+        } else {
+            copy(vector, selection, result);
+        }
+        return result;
+    }
+
+    /**
+     * See {@link #toLongs(ColumnVector, SelectionVector, LongColumnVector)}
+     */
+    public static DoubleColumnVector toDoubles(ColumnVector vector, SelectionVector selection, DoubleColumnVector target) {
+        if (vector instanceof DoubleColumnVector doubles) {
+            return doubles;
+        }
+        DoubleColumnVector result = target == null ? new DoubleColumnVector(selection.capacity(), x -> x) : target;
+        if (vector instanceof ObjectColumnVector objects) {
+            Object[] source = objects.values();
+            double[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                Object value = source[pos];
+                if (value == null) {
+                    nulls[pos] = true;
+                } else {
+                    nulls[pos] = false;
+                    values[pos] = ((Number) value).doubleValue();
+                }
+            }
+        } else {
+            copy(vector, selection, result);
+        }
+        return result;
+    }
+
+    /**
+     * See {@link #toLongs(ColumnVector, SelectionVector, LongColumnVector)}
+     */
+    public static BooleanColumnVector toBooleans(ColumnVector vector, SelectionVector selection, BooleanColumnVector target) {
+        if (vector instanceof BooleanColumnVector booleans) {
+            return booleans;
+        }
+        BooleanColumnVector result = target == null ? new BooleanColumnVector(selection.capacity()) : target;
+        copy(vector, selection, result);
+        return result;
+    }
+
+    private static void copy(ColumnVector source, SelectionVector selection, ColumnVector target) {
+        for (int i = 0; i < selection.size(); i++) {
+            int pos = selection.get(i);
+            target.set(pos, source.get(pos));
+        }
+    }
+}
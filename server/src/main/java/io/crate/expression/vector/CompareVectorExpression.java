@@ -0,0 +1,186 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import java.util.function.IntPredicate;
+
+import javax.annotation.Nullable;
+
+import io.crate.data.vector.BooleanColumnVector;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.DoubleColumnVector;
+import io.crate.data.vector.LongColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+/**
+ * Compares two vectors of the same type.
+ *
+ * The comparison result is the same as {@link Comparable#compareTo(Object)} on the boxed values,
+ * it's passed to {@code isMatch} as in {@link io.crate.expression.operator.CmpOperator}.
+ */
+public abstract class CompareVectorExpression implements VectorExpression {
+
+    protected final VectorExpression left;
+    protected final VectorExpression right;
+    protected final IntPredicate isMatch;
+    protected BooleanColumnVector result;
+
+    private CompareVectorExpression(VectorExpression left, VectorExpression right, IntPredicate isMatch) {
+        this.left = left;
+        this.right = right;
+        this.isMatch = isMatch;
+    }
+
+    /**
+     * @return the expression or null if values of the type can't be compared in vectors.
+     */
+    @Nullable
+    public static VectorExpression of(VectorExpression left, VectorExpression right, IntPredicate isMatch) {
+        DataType<?> type = left.valueType();
+        if (!type.equals(right.valueType())) {
+            return null;
+        }
+        if (ColumnVectors.isIntegral(type)) {
+            return new LongCompare(left, right, isMatch);
+        }
+        if (ColumnVectors.isFloatingPoint(type)) {
+            return new DoubleCompare(left, right, isMatch);
+        }
+        if (type.id() == DataTypes.STRING.id()) {
+            return new ObjectCompare(left, right, isMatch);
+        }
+        return null;
+    }
+
+    @Override
+    public DataType<?> valueType() {
+        return DataTypes.BOOLEAN;
+    }
+
+    protected BooleanColumnVector result(SelectionVector selection) {
+        if (result == null) {
+            result = new BooleanColumnVector(selection.capacity());
+        }
+        return result;
+    }
+
+    private static final class LongCompare extends CompareVectorExpression {
+
+        private LongColumnVector leftLongs;
+        private LongColumnVector rightLongs;
+
+        private LongCompare(VectorExpression left, VectorExpression right, IntPredicate isMatch) {
+            super(left, right, isMatch);
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            LongColumnVector lhs = leftLongs = ColumnVectors.toLongs(left.evaluate(batch, selection), selection, leftLongs);
+            LongColumnVector rhs = rightLongs = ColumnVectors.toLongs(right.evaluate(batch, selection), selection, rightLongs);
+            BooleanColumnVector result = result(selection);
+            long[] x = lhs.values();
+            long[] y = rhs.values();
+            boolean[] xNulls = lhs.nulls();
+            boolean[] yNulls = rhs.nulls();
+            boolean[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                if (xNulls[pos] || yNulls[pos]) {
+                    nulls[pos] = true;
+                } else {
+                    nulls[pos] = false;
+                    values[pos] = isMatch.test(Long.compare(x[pos], y[pos]));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class DoubleCompare extends CompareVectorExpression {
+
+        private DoubleColumnVector leftDoubles;
+        private DoubleColumnVector rightDoubles;
+
+        private DoubleCompare(VectorExpression left, VectorExpression right, IntPredicate isMatch) {
+            super(left, right, isMatch);
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            DoubleColumnVector lhs = leftDoubles = ColumnVectors.toDoubles(left.evaluate(batch, selection), selection, leftDoubles);
+            DoubleColumnVector rhs = rightDoubles = ColumnVectors.toDoubles(right.evaluate(batch, selection), selection, rightDoubles);
+            BooleanColumnVector result = result(selection);
+            double[] x = lhs.values();
+            double[] y = rhs.values();
+            boolean[] xNulls = lhs.nulls();
+            boolean[] yNulls = rhs.nulls();
+            boolean[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                if (xNulls[pos] || yNulls[pos]) {
+                    nulls[pos] = true;
+                } else {
+                    nulls[pos] = false;
+                    // Double.compare has the same semantics for NaN and -0.0 as Double/Float.compareTo
+                    values[pos] = isMatch.test(Double.compare(x[pos], y[pos]));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class ObjectCompare extends CompareVectorExpression {
+
+        private ObjectCompare(VectorExpression left, VectorExpression right, IntPredicate isMatch) {
+            super(left, right, isMatch);
+        }
+
+        @Override
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            ColumnVector lhs = left.evaluate(batch, selection);
+            ColumnVector rhs = right.evaluate(batch, selection);
+            BooleanColumnVector result = result(selection);
+            boolean[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                Object x = lhs.get(pos);
+                Object y = rhs.get(pos);
+                if (x == null || y == null) {
+                    nulls[pos] = true;
+                } else {
+                    nulls[pos] = false;
+                    values[pos] = isMatch.test(((Comparable) x).compareTo(y));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import io.crate.data.vector.BooleanColumnVector;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+/**
+ * {@code AND}, {@code OR} and {@code NOT} using three valued logic.
+ *
+ * Like the row based operators, both arguments of {@code AND} and {@code OR} are always evaluated.
+ */
+public abstract class LogicalVectorExpression implements VectorExpression {
+
+    protected BooleanColumnVector result;
+
+    public static VectorExpression and(VectorExpression left, VectorExpression right) {
+        return new Binary(left, right, true);
+    }
+
+    public static VectorExpression or(VectorExpression left, VectorExpression right) {
+        return new Binary(left, right, false);
+    }
+
+    public static VectorExpression not(VectorExpression argument) {
+        return new Not(argument);
+    }
+
+    @Override
+    public DataType<?> valueType() {
+        return DataTypes.BOOLEAN;
+    }
+
+    protected BooleanColumnVector result(SelectionVector selection) {
+        if (result == null) {
+            result = new BooleanColumnVector(selection.capacity());
+        }
+        return result;
+    }
+
+    private static final class Binary extends LogicalVectorExpression {
+
+        private final VectorExpression left;
+        private final VectorExpression right;
+
+        /**
+         * The value which decides the result regardless of the other argument. `false` for AND, `true` for OR.
+         */
+        private final boolean dominant;
+        private BooleanColumnVector leftBooleans;
+        private BooleanColumnVector rightBooleans;
+
+        private Binary(VectorExpression left, VectorExpression right, boolean isAnd) {
+            this.left = left;
+            this.right = right;
+            this.dominant = !isAnd;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            BooleanColumnVector lhs = leftBooleans = ColumnVectors.toBooleans(left.evaluate(batch, selection), selection, leftBooleans);
+            BooleanColumnVector rhs = rightBooleans = ColumnVectors.toBooleans(right.evaluate(batch, selection), selection, rightBooleans);
+            BooleanColumnVector result = result(selection);
+            boolean[] x = lhs.values();
+            boolean[] y = rhs.values();
+            boolean[] xNulls = lhs.nulls();
+            boolean[] yNulls = rhs.nulls();
+            boolean[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                if ((!xNulls[pos] && x[pos] == dominant) || (!yNulls[pos] && y[pos] == dominant)) {
+                    nulls[pos] = false;
+                    values[pos] = dominant;
+                } else if (xNulls[pos] || yNulls[pos]) {
+                    nulls[pos] = true;
+                } else {
+                    nulls[pos] = false;
+                    values[pos] = !dominant;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Not extends LogicalVectorExpression {
+
+        private final VectorExpression argument;
+        private BooleanColumnVector booleans;
+
+        private Not(VectorExpression argument) {
+            this.argument = argument;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            BooleanColumnVector arg = booleans = ColumnVectors.toBooleans(argument.evaluate(batch, selection), selection, booleans);
+            BooleanColumnVector result = result(selection);
+            boolean[] x = arg.values();
+            boolean[] xNulls = arg.nulls();
+            boolean[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                nulls[pos] = xNulls[pos];
+                values[pos] = !x[pos];
+            }
+            return result;
+        }
+    }
+}
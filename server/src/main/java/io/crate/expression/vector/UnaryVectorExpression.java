@@ -0,0 +1,131 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.LongColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.types.DataType;
+
+/**
+ * Applies a function to each selected value of a vector. Null values result in null.
+ */
+public abstract class UnaryVectorExpression implements VectorExpression {
+
+    protected final DataType<?> returnType;
+    protected final VectorExpression argument;
+
+    private UnaryVectorExpression(DataType<?> returnType, VectorExpression argument) {
+        this.returnType = returnType;
+        this.argument = argument;
+    }
+
+    /**
+     * @param argumentType the type used to sanitize the argument values, see {@link DataType#sanitizeValue(Object)}
+     */
+    public static <T, R> VectorExpression of(DataType<R> returnType,
+                                             DataType<T> argumentType,
+                                             VectorExpression argument,
+                                             Function<T, R> function) {
+        return new Objects<>(returnType, argumentType, argument, function);
+    }
+
+    /**
+     * Applies a function on integral values. The argument must be of an integral type, see {@link ColumnVectors#isIntegral(DataType)}
+     */
+    public static VectorExpression ofLongs(DataType<?> returnType, VectorExpression argument, LongUnaryOperator function) {
+        assert ColumnVectors.isIntegral(returnType) && ColumnVectors.isIntegral(argument.valueType())
+            : "Argument and return type must be integral";
+        return new Longs(returnType, argument, function);
+    }
+
+    @Override
+    public DataType<?> valueType() {
+        return returnType;
+    }
+
+    private static final class Longs extends UnaryVectorExpression {
+
+        private final LongUnaryOperator function;
+        private LongColumnVector longs;
+        private LongColumnVector result;
+
+        private Longs(DataType<?> returnType, VectorExpression argument, LongUnaryOperator function) {
+            super(returnType, argument);
+            this.function = function;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            LongColumnVector arg = longs = ColumnVectors.toLongs(argument.evaluate(batch, selection), selection, longs);
+            if (result == null) {
+                result = (LongColumnVector) ColumnVectors.create(returnType, selection.capacity());
+            }
+            long[] x = arg.values();
+            boolean[] xNulls = arg.nulls();
+            long[] values = result.values();
+            boolean[] nulls = result.nulls();
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                if (xNulls[pos]) {
+                    nulls[pos] = true;
+                } else {
+                    nulls[pos] = false;
+                    values[pos] = function.applyAsLong(x[pos]);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Objects<T, R> extends UnaryVectorExpression {
+
+        private final DataType<T> argumentType;
+        private final Function<T, R> function;
+        private ColumnVector result;
+
+        private Objects(DataType<R> returnType, DataType<T> argumentType, VectorExpression argument, Function<T, R> function) {
+            super(returnType, argument);
+            this.argumentType = argumentType;
+            this.function = function;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            ColumnVector arg = argument.evaluate(batch, selection);
+            if (result == null) {
+                result = ColumnVectors.create(returnType, selection.capacity());
+            }
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                int pos = positions[i];
+                T value = argumentType.sanitizeValue(arg.get(pos));
+                result.set(pos, value == null ? null : function.apply(value));
+            }
+            return result;
+        }
+    }
+}
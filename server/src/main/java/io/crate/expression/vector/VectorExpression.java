@@ -0,0 +1,50 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.types.DataType;
+
+/**
+ * An expression which is evaluated for a batch of rows at once.
+ *
+ * <p>
+ * Instances hold the vectors of their results and are re-used for subsequent batches,
+ * they must not be shared between concurrent operations.
+ * </p>
+ *
+ * See {@link VectorExpressions} and {@link io.crate.metadata.Scalar#vectorize(DataType, java.util.List)}
+ */
+public interface VectorExpression {
+
+    DataType<?> valueType();
+
+    /**
+     * Evaluates the expression for the selected positions.
+     *
+     * @param batch the columns of the input rows
+     * @return a vector which contains the results at the selected positions.
+     *         The vector is only valid until the next call to {@code evaluate}.
+     */
+    ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection);
+}
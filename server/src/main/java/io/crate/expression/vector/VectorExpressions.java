@@ -0,0 +1,223 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.crate.data.Input;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.ObjectColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.expression.BaseImplementationSymbolVisitor;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.Scalar;
+import io.crate.metadata.TransactionContext;
+import io.crate.types.DataType;
+
+/**
+ * Compiles symbols into {@link VectorExpression}s.
+ *
+ * <ul>
+ *  <li>{@link InputColumn}s refer to the columns of the batch</li>
+ *  <li>{@link Literal}s become constant vectors</li>
+ *  <li>Functions use the expression returned by {@link Scalar#vectorize(DataType, List)}.
+ *  If a scalar doesn't support vectors, the function including its arguments is evaluated
+ *  row by row for the selected positions of the batch.</li>
+ * </ul>
+ *
+ * Symbols which can't be evaluated on the columns of a batch (e.g. references) are not supported.
+ */
+public final class VectorExpressions {
+
+    private final TransactionContext txnCtx;
+    private final NodeContext nodeCtx;
+    private int numVectorized = 0;
+    private int numInputColumns = 0;
+
+    public VectorExpressions(TransactionContext txnCtx, NodeContext nodeCtx) {
+        this.txnCtx = txnCtx;
+        this.nodeCtx = nodeCtx;
+    }
+
+    /**
+     * @return the compiled expression or null if the symbol contains symbols which are not supported.
+     */
+    @Nullable
+    public VectorExpression compile(Symbol symbol) {
+        if (symbol instanceof InputColumn inputColumn) {
+            numInputColumns = Math.max(numInputColumns, inputColumn.index() + 1);
+            return new InputColumnExpression(inputColumn.index(), inputColumn.valueType());
+        }
+        if (symbol instanceof Literal<?> literal) {
+            return new LiteralExpression(literal);
+        }
+        if (symbol instanceof Function function) {
+            return compileFunction(function);
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of functions for which a vectorized implementation is used.
+     */
+    public int numVectorized() {
+        return numVectorized;
+    }
+
+    /**
+     * @return the number of columns the batch must have to contain all compiled input columns.
+     */
+    public int numInputColumns() {
+        return numInputColumns;
+    }
+
+    @Nullable
+    private VectorExpression compileFunction(Function function) {
+        FunctionImplementation implementation = nodeCtx.functions().getQualified(
+            function,
+            txnCtx.sessionSettings().searchPath()
+        );
+        if (!(implementation instanceof Scalar<?, ?> scalar)) {
+            return null;
+        }
+        int numVectorizedArguments = numVectorized;
+        List<Symbol> arguments = function.arguments();
+        List<VectorExpression> vectorArguments = new ArrayList<>(arguments.size());
+        for (Symbol argument : arguments) {
+            VectorExpression vectorArgument = compile(argument);
+            if (vectorArgument == null) {
+                return null;
+            }
+            vectorArguments.add(vectorArgument);
+        }
+        VectorExpression vectorized = scalar.compile(arguments).vectorize(function.valueType(), vectorArguments);
+        if (vectorized == null) {
+            numVectorized = numVectorizedArguments;
+            return new RowAdapter(txnCtx, nodeCtx, function);
+        }
+        numVectorized++;
+        return vectorized;
+    }
+
+    private static final class InputColumnExpression implements VectorExpression {
+
+        private final int index;
+        private final DataType<?> type;
+
+        private InputColumnExpression(int index, DataType<?> type) {
+            this.index = index;
+            this.type = type;
+        }
+
+        @Override
+        public DataType<?> valueType() {
+            return type;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            return batch[index];
+        }
+    }
+
+    private static final class LiteralExpression implements VectorExpression {
+
+        private final Literal<?> literal;
+        private ColumnVector constant;
+
+        private LiteralExpression(Literal<?> literal) {
+            this.literal = literal;
+        }
+
+        @Override
+        public DataType<?> valueType() {
+            return literal.valueType();
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            if (constant == null) {
+                constant = ColumnVectors.create(literal.valueType(), selection.capacity());
+                Object value = literal.value();
+                for (int i = 0; i < constant.capacity(); i++) {
+                    constant.set(i, value);
+                }
+            }
+            return constant;
+        }
+    }
+
+    /**
+     * Evaluates a function which has no vectorized implementation row by row for the selected positions.
+     *
+     * The arguments are evaluated row by row as well, so that functions like {@code CASE}
+     * keep evaluating only the arguments they need.
+     */
+    private static final class RowAdapter extends BaseImplementationSymbolVisitor<Void> implements VectorExpression {
+
+        private final DataType<?> returnType;
+        private final Input<?> input;
+        private ColumnVector[] batch;
+        private int position;
+        private ColumnVector result;
+
+        private RowAdapter(TransactionContext txnCtx, NodeContext nodeCtx, Function function) {
+            super(txnCtx, nodeCtx);
+            this.returnType = function.valueType();
+            this.input = function.accept(this, null);
+        }
+
+        @Override
+        public Input<?> visitInputColumn(InputColumn inputColumn, Void context) {
+            int index = inputColumn.index();
+            return () -> batch[index].get(position);
+        }
+
+        @Override
+        public DataType<?> valueType() {
+            return returnType;
+        }
+
+        @Override
+        public ColumnVector evaluate(ColumnVector[] batch, SelectionVector selection) {
+            this.batch = batch;
+            if (result == null) {
+                // the values are stored as they are, consumers convert them if they need primitive vectors
+                result = new ObjectColumnVector(selection.capacity());
+            }
+            int[] positions = selection.positions();
+            for (int i = 0, size = selection.size(); i < size; i++) {
+                position = positions[i];
+                result.set(position, input.value());
+            }
+            return result;
+        }
+    }
+}
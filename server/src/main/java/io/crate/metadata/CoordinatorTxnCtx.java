@@ -64,7 +64,8 @@ public final class CoordinatorTxnCtx implements TransactionContext {
                                    sessionContext.searchPath(),
                                    sessionContext.isHashJoinEnabled(),
                                    sessionContext.excludedOptimizerRules(),
-                                   sessionContext.errorOnUnknownObjectKey());
+                                   sessionContext.errorOnUnknownObjectKey(),
+                                   sessionContext.shardCollectConcurrency());
     }
 
     public SessionContext sessionContext() {
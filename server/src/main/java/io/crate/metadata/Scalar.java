@@ -26,11 +26,15 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import io.crate.data.Input;
 import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.vector.VectorExpression;
 import io.crate.lucene.FunctionToQuery;
+import io.crate.types.DataType;
 
 /**
  * Base class for Scalar functions in crate.
@@ -86,6 +90,22 @@ public abstract class Scalar<ReturnType, InputType> implements FunctionImplement
         return this;
     }
 
+    /**
+     * Returns an expression which evaluates the function for a batch of rows at once.
+     *
+     * <p>
+     * Called on the instance returned by {@link #compile(List)}.
+     * If `null` is returned, the function is evaluated row by row using {@link #evaluate(TransactionContext, NodeContext, Input[])}.
+     * </p>
+     *
+     * @param returnType the type of the function
+     * @param arguments the arguments in vector form, in the same order as the arguments of the function.
+     */
+    @Nullable
+    public VectorExpression vectorize(DataType<?> returnType, List<VectorExpression> arguments) {
+        return null;
+    }
+
     @Override
     public Symbol normalizeSymbol(Function symbol, TransactionContext txnCtx, NodeContext nodeCtx) {
         try {
@@ -336,6 +336,6 @@ public class DocSchemaInfo implements SchemaInfo {
 
     @Override
     public void close() throws Exception {
-        nodeCtx.functions().deregisterUdfResolversForSchema(schemaName);
+        udfService.removeImplementations(schemaName);
     }
 }
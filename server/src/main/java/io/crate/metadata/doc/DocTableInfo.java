@@ -23,6 +23,7 @@ package io.crate.metadata.doc;
 
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.WhereClause;
+import io.crate.analyze.where.PartitionIndex;
 import io.crate.exceptions.ColumnUnknownException;
 import io.crate.expression.symbol.DynamicReference;
 import io.crate.expression.symbol.Symbol;
@@ -135,6 +136,8 @@ public class DocTableInfo implements TableInfo, ShardedTable, StoredTable {
     private final Set<Operation> supportedOperations;
 
     private final List<PartitionName> partitions;
+    @Nullable
+    private volatile PartitionIndex partitionIndex;
 
     private final boolean hasAutoGeneratedPrimaryKey;
     private final boolean isPartitioned;
@@ -333,6 +336,19 @@ public class DocTableInfo implements TableInfo, ShardedTable, StoredTable {
         return partitions;
     }
 
+    /**
+     * Index over the values of {@link #partitions()}, built on first use.
+     * A new DocTableInfo instance is created whenever the partitions of the table change.
+     */
+    public PartitionIndex partitionIndex() {
+        PartitionIndex index = partitionIndex;
+        if (index == null) {
+            index = new PartitionIndex(partitionedByColumns, partitions);
+            partitionIndex = index;
+        }
+        return index;
+    }
+
     /**
      * returns <code>true</code> if this table is a partitioned table,
      * <code>false</code> otherwise
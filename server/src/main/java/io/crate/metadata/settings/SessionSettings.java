@@ -39,6 +39,7 @@ public final class SessionSettings implements Writeable {
     private final SearchPath searchPath;
     private final boolean hashJoinsEnabled;
     private final boolean errorOnUnknownObjectKey;
+    private final int shardCollectConcurrency;
     private final Set<Class<? extends Rule<?>>> excludedOptimizerRules;
 
     public SessionSettings(StreamInput in) throws IOException {
@@ -51,8 +52,10 @@ public final class SessionSettings implements Writeable {
         this.excludedOptimizerRules = Set.of();
         if (in.getVersion().onOrAfter(Version.V_4_7_0)) {
             this.errorOnUnknownObjectKey = in.readBoolean();
+            this.shardCollectConcurrency = in.readVInt();
         } else {
             this.errorOnUnknownObjectKey = true;
+            this.shardCollectConcurrency = 0;
         }
     }
 
@@ -66,11 +69,21 @@ public final class SessionSettings implements Writeable {
                            boolean hashJoinsEnabled,
                            Set<Class<? extends Rule<?>>> rules,
                            boolean errorOnUnknownObjectKey) {
+        this(userName, searchPath, hashJoinsEnabled, rules, errorOnUnknownObjectKey, 0);
+    }
+
+    public SessionSettings(String userName,
+                           SearchPath searchPath,
+                           boolean hashJoinsEnabled,
+                           Set<Class<? extends Rule<?>>> rules,
+                           boolean errorOnUnknownObjectKey,
+                           int shardCollectConcurrency) {
         this.userName = userName;
         this.searchPath = searchPath;
         this.hashJoinsEnabled = hashJoinsEnabled;
         this.excludedOptimizerRules = rules;
         this.errorOnUnknownObjectKey = errorOnUnknownObjectKey;
+        this.shardCollectConcurrency = shardCollectConcurrency;
     }
 
     public String userName() {
@@ -93,6 +106,14 @@ public final class SessionSettings implements Writeable {
         return errorOnUnknownObjectKey;
     }
 
+    /**
+     * The maximum number of threads used to collect the documents of a single shard.
+     * 0 if it should be determined by the number of idle threads.
+     */
+    public int shardCollectConcurrency() {
+        return shardCollectConcurrency;
+    }
+
     public Set<Class<? extends Rule<?>>> excludedOptimizerRules() {
         return excludedOptimizerRules;
     }
@@ -104,6 +125,7 @@ public final class SessionSettings implements Writeable {
         out.writeBoolean(hashJoinsEnabled);
         if (out.getVersion().onOrAfter(Version.V_4_7_0)) {
             out.writeBoolean(errorOnUnknownObjectKey);
+            out.writeVInt(shardCollectConcurrency);
         }
     }
 
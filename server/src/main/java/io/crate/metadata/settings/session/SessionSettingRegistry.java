@@ -46,6 +46,7 @@ public class SessionSettingRegistry {
     private static final String SERVER_VERSION_NUM = "server_version_num";
     private static final String SERVER_VERSION = "server_version";
     static final String ERROR_ON_UNKNOWN_OBJECT_KEY = "error_on_unknown_object_key";
+    static final String SHARD_COLLECT_CONCURRENCY = "shard_collect_concurrency";
     private final Map<String, SessionSetting<?>> settings;
 
     @Inject
@@ -128,7 +129,27 @@ public class SessionSettingRegistry {
                      s -> Boolean.toString(s.errorOnUnknownObjectKey()),
                      () -> String.valueOf(true),
                      "Raises or suppresses ObjectKeyUnknownException when querying nonexistent keys to dynamic objects.",
-                     DataTypes.BOOLEAN));
+                     DataTypes.BOOLEAN))
+            .put(SHARD_COLLECT_CONCURRENCY,
+                 new SessionSetting<>(
+                     SHARD_COLLECT_CONCURRENCY,
+                     objects -> {
+                         if (objects.length != 1) {
+                             throw new IllegalArgumentException(SHARD_COLLECT_CONCURRENCY + " should have only one argument.");
+                         }
+                     },
+                     objects -> {
+                         Integer concurrency = DataTypes.INTEGER.implicitCast(objects[0]);
+                         if (concurrency == null || concurrency < 0) {
+                             throw new IllegalArgumentException(SHARD_COLLECT_CONCURRENCY + " must be greater than or equal to 0.");
+                         }
+                         return concurrency;
+                     },
+                     SessionContext::setShardCollectConcurrency,
+                     s -> Integer.toString(s.shardCollectConcurrency()),
+                     () -> String.valueOf(0),
+                     "The maximum number of threads used to collect the documents of a single shard. 0 uses the idle threads of the search thread pool.",
+                     DataTypes.INTEGER));
 
         for (var providers : sessionSettingProviders) {
             for (var setting : providers.sessionSettings()) {
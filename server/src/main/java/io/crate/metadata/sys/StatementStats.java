@@ -0,0 +1,207 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import io.crate.common.annotations.VisibleForTesting;
+import io.crate.expression.reference.sys.job.JobContextLog;
+import io.crate.sql.parser.StatementFingerprint;
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aggregated execution statistics per user and {@link StatementFingerprint fingerprint} of a statement.
+ *
+ * <p>
+ * The number of tracked statements is bounded. If a new statement is recorded once the limit is reached,
+ * the statements with the fewest executions are evicted.
+ * Recording the execution of an already tracked statement doesn't acquire any locks.
+ * </p>
+ */
+public class StatementStats implements Iterable<StatementStatsView> {
+
+    private static final long HIGHEST_TRACKABLE_VALUE = TimeUnit.MINUTES.toMillis(10);
+
+    // Each histogram uses about 14kb with 2 significant digits, 3 digits would need about 100kb
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 2;
+
+    private volatile int maxEntries;
+    private volatile int numEntriesToEvict;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private record Key(String username, String fingerprint) {
+    }
+
+    private static class Entry {
+
+        private final Key key;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failedCount = new LongAdder();
+        private final LongAdder sumOfDurations = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAccumulator minDuration = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxDuration = new LongAccumulator(Math::max, 0L);
+        private final AtomicHistogram histogram = new AtomicHistogram(
+            HIGHEST_TRACKABLE_VALUE,
+            NUMBER_OF_SIGNIFICANT_VALUE_DIGITS
+        );
+
+        private Entry(Key key) {
+            this.key = key;
+        }
+
+        private void record(long duration, long rowCount, boolean failed) {
+            // Durations are calculated from the start and end time, adjustments of
+            // the system time could lead to negative durations
+            duration = Math.max(0L, duration);
+            calls.increment();
+            if (failed) {
+                failedCount.increment();
+            }
+            sumOfDurations.add(duration);
+            rows.add(rowCount);
+            minDuration.accumulate(duration);
+            maxDuration.accumulate(duration);
+            histogram.recordValue(Math.min(duration, HIGHEST_TRACKABLE_VALUE));
+        }
+
+        private StatementStatsView createView() {
+            Histogram histogramCopy = new Histogram(HIGHEST_TRACKABLE_VALUE, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+            histogramCopy.add(histogram);
+            long numCalls = calls.sum();
+            long min = minDuration.get();
+            return new StatementStatsView(
+                key.fingerprint(),
+                key.username(),
+                numCalls,
+                failedCount.sum(),
+                rows.sum(),
+                sumOfDurations.sum(),
+                min == Long.MAX_VALUE ? 0L : min,
+                maxDuration.get(),
+                histogramCopy
+            );
+        }
+    }
+
+    public StatementStats(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.numEntriesToEvict = Math.max(1, maxEntries / 20);
+    }
+
+    /**
+     * Changes the maximum number of tracked statements, evicting entries if there are more.
+     * A limit of 0 disables the statistics.
+     */
+    public void updateMaxEntries(int maxEntries) {
+        this.numEntriesToEvict = Math.max(1, maxEntries / 20);
+        this.maxEntries = maxEntries;
+        if (maxEntries == 0) {
+            reset();
+        } else if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * @param rowCount number of rows returned by the statement
+     */
+    public void record(JobContextLog log, long rowCount) {
+        String statement = log.statement();
+        String username = log.username();
+        if (statement == null || username == null || maxEntries == 0) {
+            return;
+        }
+        String fingerprint = log.fingerprint();
+        if (fingerprint == null) {
+            fingerprint = StatementFingerprint.of(statement);
+        }
+        Key key = new Key(username, fingerprint);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                evict();
+            }
+            entry = entries.computeIfAbsent(key, Entry::new);
+        }
+        entry.record(log.ended() - log.started(), rowCount, log.errorMessage() != null);
+    }
+
+    private void evict() {
+        // Concurrent recordings of new statements can skip the eviction
+        // and exceed the limit by a few entries until the next eviction
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (entries.size() < maxEntries) {
+                return;
+            }
+            List<Map.Entry<Key, Long>> callsByKey = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) {
+                callsByKey.add(Map.entry(entry.key, entry.calls.sum()));
+            }
+            callsByKey.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+            int numToEvict = Math.min(callsByKey.size(), numEntriesToEvict + entries.size() - maxEntries);
+            for (int i = 0; i < numToEvict; i++) {
+                entries.remove(callsByKey.get(i).getKey());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @VisibleForTesting
+    @Nullable
+    StatementStatsView get(String username, String statement) {
+        Entry entry = entries.get(new Key(username, StatementFingerprint.of(statement)));
+        return entry == null ? null : entry.createView();
+    }
+
+    public void reset() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Iterator<StatementStatsView> iterator() {
+        return entries.values()
+            .stream()
+            .map(Entry::createView)
+            .iterator();
+    }
+}
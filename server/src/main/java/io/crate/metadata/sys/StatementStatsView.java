@@ -0,0 +1,106 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import org.HdrHistogram.Histogram;
+
+import javax.annotation.concurrent.Immutable;
+
+@Immutable
+public final class StatementStatsView {
+
+    private final String statement;
+    private final String username;
+    private final long calls;
+    private final long failedCount;
+    private final long rows;
+    private final long sumOfDurations;
+    private final long minDuration;
+    private final long maxDuration;
+    private final Histogram histogram;
+
+    /**
+     * The given histogram must not be modified by whoever creates the StatementStatsView.
+     */
+    public StatementStatsView(String statement,
+                              String username,
+                              long calls,
+                              long failedCount,
+                              long rows,
+                              long sumOfDurations,
+                              long minDuration,
+                              long maxDuration,
+                              Histogram histogram) {
+        this.statement = statement;
+        this.username = username;
+        this.calls = calls;
+        this.failedCount = failedCount;
+        this.rows = rows;
+        this.sumOfDurations = sumOfDurations;
+        this.minDuration = minDuration;
+        this.maxDuration = maxDuration;
+        this.histogram = histogram;
+    }
+
+    /**
+     * The statement with all literals replaced by placeholders
+     */
+    public String statement() {
+        return statement;
+    }
+
+    public String username() {
+        return username;
+    }
+
+    public long calls() {
+        return calls;
+    }
+
+    public long failedCount() {
+        return failedCount;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long sumOfDurations() {
+        return sumOfDurations;
+    }
+
+    public long minDuration() {
+        return minDuration;
+    }
+
+    public long maxDuration() {
+        return maxDuration;
+    }
+
+    public double meanDuration() {
+        return calls == 0 ? 0.0 : (double) sumOfDurations / calls;
+    }
+
+    public long getDurationAtPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+}
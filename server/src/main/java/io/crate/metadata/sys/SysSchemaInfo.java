@@ -62,7 +62,10 @@ public class SysSchemaInfo implements SchemaInfo {
         tableInfos.put(SysAllocationsTableInfo.IDENT.name(), SysAllocationsTableInfo.create());
         tableInfos.put(SysHealth.IDENT.name(), SysHealth.create());
         tableInfos.put(SysMetricsTableInfo.NAME.name(), SysMetricsTableInfo.create(localNode));
+        tableInfos.put(SysStatementStatsTableInfo.IDENT.name(), SysStatementStatsTableInfo.create(localNode));
         tableInfos.put(SysSegmentsTableInfo.IDENT.name(), SysSegmentsTableInfo.create(clusterService::localNode));
+        tableInfos.put(SysPlanCacheTableInfo.IDENT.name(), SysPlanCacheTableInfo.create(localNode));
+        tableInfos.put(SysShardResultCacheTableInfo.IDENT.name(), SysShardResultCacheTableInfo.create(localNode));
     }
 
     @Override
@@ -0,0 +1,66 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import static io.crate.types.DataTypes.DOUBLE;
+import static io.crate.types.DataTypes.LONG;
+import static io.crate.types.DataTypes.STRING;
+
+import java.util.function.Supplier;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Routing;
+import io.crate.metadata.SystemTable;
+
+public class SysStatementStatsTableInfo {
+
+    public static final RelationName IDENT = new RelationName(SysSchemaInfo.NAME, "statement_stats");
+
+    public static SystemTable<StatementStatsView> create(Supplier<DiscoveryNode> localNode) {
+        return SystemTable.<StatementStatsView>builder(IDENT)
+            .add("statement", STRING, StatementStatsView::statement)
+            .add("username", STRING, StatementStatsView::username)
+            .add("calls", LONG, StatementStatsView::calls)
+            .add("failed_count", LONG, StatementStatsView::failedCount)
+            .add("rows", LONG, StatementStatsView::rows)
+            .add("sum_of_durations", LONG, StatementStatsView::sumOfDurations)
+            .add("mean", DOUBLE, StatementStatsView::meanDuration)
+            .add("min", LONG, StatementStatsView::minDuration)
+            .add("max", LONG, StatementStatsView::maxDuration)
+            .startObject("percentiles")
+                .add("25", LONG, x -> x.getDurationAtPercentile(25.0))
+                .add("50", LONG, x -> x.getDurationAtPercentile(50.0))
+                .add("75", LONG, x -> x.getDurationAtPercentile(75.0))
+                .add("90", LONG, x -> x.getDurationAtPercentile(90.0))
+                .add("95", LONG, x -> x.getDurationAtPercentile(95.0))
+                .add("99", LONG, x -> x.getDurationAtPercentile(99.0))
+            .endObject()
+            .startObject("node")
+                .add("id", STRING, ignored -> localNode.get().getId())
+                .add("name", STRING, ignored -> localNode.get().getName())
+            .endObject()
+            .withRouting((state, routingProvider, sessionContext) -> Routing.forTableOnAllNodes(IDENT, state.getNodes()))
+            .build();
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate.metadata.sys;
 
 import io.crate.user.Privilege;
+import io.crate.execution.engine.collect.ShardResultCache;
 import io.crate.execution.engine.collect.files.SummitsIterable;
 import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.expression.reference.StaticTableDefinition;
@@ -33,6 +34,7 @@ import io.crate.expression.reference.sys.shard.SysAllocations;
 import io.crate.expression.reference.sys.snapshot.SysSnapshots;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.SystemTable;
+import io.crate.planner.PlanCache;
 import org.elasticsearch.cluster.RestoreInProgress;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -41,6 +43,7 @@ import org.elasticsearch.repositories.RepositoriesService;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -60,7 +63,9 @@ public class SysTableDefinitions {
                                RepositoriesService repositoriesService,
                                SysSnapshots sysSnapshots,
                                SysAllocations sysAllocations,
-                               ShardSegments shardSegmentInfos) {
+                               ShardSegments shardSegmentInfos,
+                               PlanCache planCache,
+                               ShardResultCache shardResultCache) {
         Supplier<DiscoveryNode> localNode = clusterService::localNode;
         var sysClusterTableInfo = (SystemTable<Void>) sysSchemaInfo.getTableInfo(SysClusterTableInfo.IDENT.name());
         assert sysClusterTableInfo != null : "sys.cluster table must exist in sys schema";
@@ -138,10 +143,23 @@ public class SysTableDefinitions {
             () -> completedFuture(jobsLogs.metrics()),
             SysMetricsTableInfo.create(localNode).expressions(),
             false));
+        tableDefinitions.put(SysStatementStatsTableInfo.IDENT, new StaticTableDefinition<>(
+            () -> completedFuture(jobsLogs.statementStats()),
+            SysStatementStatsTableInfo.create(localNode).expressions(),
+            (user, stats) -> user.isSuperUser() || user.name().equals(stats.username()),
+            false));
         tableDefinitions.put(SysSegmentsTableInfo.IDENT, new StaticTableDefinition<>(
             () -> completedFuture(shardSegmentInfos),
             SysSegmentsTableInfo.create(clusterService::localNode).expressions(),
             true));
+        tableDefinitions.put(SysPlanCacheTableInfo.IDENT, new StaticTableDefinition<>(
+            () -> completedFuture(List.of(planCache)),
+            SysPlanCacheTableInfo.create(localNode).expressions(),
+            false));
+        tableDefinitions.put(SysShardResultCacheTableInfo.IDENT, new StaticTableDefinition<>(
+            () -> completedFuture(List.of(shardResultCache)),
+            SysShardResultCacheTableInfo.create(localNode).expressions(),
+            false));
     }
 
     public StaticTableDefinition<?> get(RelationName relationName) {
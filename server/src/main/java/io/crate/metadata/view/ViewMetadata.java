@@ -21,6 +21,7 @@
 
 package io.crate.metadata.view;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -34,21 +35,35 @@ public class ViewMetadata implements Writeable {
     private final String stmt;
     @Nullable
     private final String owner;
+    private final boolean materialized;
 
     ViewMetadata(String stmt, @Nullable String owner) {
+        this(stmt, owner, false);
+    }
+
+    ViewMetadata(String stmt, @Nullable String owner, boolean materialized) {
         this.stmt = stmt;
         this.owner = owner;
+        this.materialized = materialized;
     }
 
     ViewMetadata(StreamInput in) throws IOException {
         stmt = in.readString();
         owner = in.readOptionalString();
+        if (in.getVersion().onOrAfter(Version.V_4_7_0)) {
+            materialized = in.readBoolean();
+        } else {
+            materialized = false;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeString(stmt);
         out.writeOptionalString(owner);
+        if (out.getVersion().onOrAfter(Version.V_4_7_0)) {
+            out.writeBoolean(materialized);
+        }
     }
 
     public String stmt() {
@@ -60,17 +75,26 @@ public class ViewMetadata implements Writeable {
         return owner;
     }
 
+    /**
+     * @return true if the results of the view are stored in backing tables,
+     *         see {@link io.crate.execution.ddl.views.MaterializedViewTables}
+     */
+    public boolean materialized() {
+        return materialized;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ViewMetadata view = (ViewMetadata) o;
-        return Objects.equals(stmt, view.stmt) &&
+        return materialized == view.materialized &&
+               Objects.equals(stmt, view.stmt) &&
                Objects.equals(owner, view.owner);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(stmt, owner);
+        return Objects.hash(stmt, owner, materialized);
     }
 }
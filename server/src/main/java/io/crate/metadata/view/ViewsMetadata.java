@@ -90,7 +90,8 @@ public class ViewsMetadata extends AbstractNamedDiffable<Metadata.Custom> implem
      *       "views": {
      *         "docs.my_view": {
      *           "stmt": "select x, y from t1 where z = 'a'",
-     *           "owner": "user_a"
+     *           "owner": "user_a",
+     *           "materialized": true
      *         }
      *       }
      *     }
@@ -100,6 +101,7 @@ public class ViewsMetadata extends AbstractNamedDiffable<Metadata.Custom> implem
      *     <li>"docs.my_view" is the full qualified name of the view</li>
      *     <li>value of "stmt" is the analyzed SELECT statement</li>
      *     <li>value of "owner" is the name of the user who created the view</li>
+     *     <li>"materialized" is only present for materialized views</li>
      * </ul>
      */
     @Override
@@ -111,6 +113,9 @@ public class ViewsMetadata extends AbstractNamedDiffable<Metadata.Custom> implem
             {
                 builder.field("stmt", view.stmt());
                 builder.field("owner", view.owner());
+                if (view.materialized()) {
+                    builder.field("materialized", true);
+                }
             }
             builder.endObject();
         }
@@ -128,6 +133,7 @@ public class ViewsMetadata extends AbstractNamedDiffable<Metadata.Custom> implem
                     if (parser.nextToken() == XContentParser.Token.START_OBJECT) {
                         String stmt = null;
                         String owner = null;
+                        boolean materialized = false;
                         while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
                             if ("stmt".equals(parser.currentName())) {
                                 parser.nextToken();
@@ -137,11 +143,15 @@ public class ViewsMetadata extends AbstractNamedDiffable<Metadata.Custom> implem
                                 parser.nextToken();
                                 owner = parser.textOrNull();
                             }
+                            if ("materialized".equals(parser.currentName())) {
+                                parser.nextToken();
+                                materialized = parser.booleanValue();
+                            }
                         }
                         if (stmt == null) {
                             throw new ElasticsearchParseException("failed to parse views, expected field 'stmt' in object");
                         }
-                        views.put(viewName, new ViewMetadata(stmt, owner));
+                        views.put(viewName, new ViewMetadata(stmt, owner, materialized));
                     }
                 }
             }
@@ -180,13 +190,24 @@ public class ViewsMetadata extends AbstractNamedDiffable<Metadata.Custom> implem
      * @return A copy of the ViewsMetadata with the new view added (or replaced in case it already existed)
      */
     public static ViewsMetadata addOrReplace(@Nullable ViewsMetadata prevViews, RelationName name, String query, @Nullable String owner) {
+        return addOrReplace(prevViews, name, query, owner, false);
+    }
+
+    /**
+     * @return A copy of the ViewsMetadata with the new view added (or replaced in case it already existed)
+     */
+    public static ViewsMetadata addOrReplace(@Nullable ViewsMetadata prevViews,
+                                             RelationName name,
+                                             String query,
+                                             @Nullable String owner,
+                                             boolean materialized) {
         HashMap<String, ViewMetadata> queryByName;
         if (prevViews == null) {
             queryByName = new HashMap<>();
         } else {
             queryByName = new HashMap<>(prevViews.viewByName);
         }
-        queryByName.put(name.fqn(), new ViewMetadata(query, owner));
+        queryByName.put(name.fqn(), new ViewMetadata(query, owner, materialized));
         return new ViewsMetadata(queryByName);
     }
 
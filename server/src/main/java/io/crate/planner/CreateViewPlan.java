@@ -21,6 +21,7 @@
 
 package io.crate.planner;
 
+import io.crate.action.FutureActionListener;
 import io.crate.analyze.CreateViewStmt;
 import io.crate.analyze.ParamTypeHints;
 import io.crate.analyze.relations.RelationAnalyzer;
@@ -30,6 +31,7 @@ import io.crate.data.Row1;
 import io.crate.data.RowConsumer;
 import io.crate.exceptions.RelationAlreadyExists;
 import io.crate.execution.ddl.views.CreateViewRequest;
+import io.crate.execution.ddl.views.CreateViewResponse;
 import io.crate.execution.support.OneRowActionListener;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.CoordinatorTxnCtx;
@@ -37,6 +39,8 @@ import io.crate.metadata.NodeContext;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.SearchPath;
+import io.crate.metadata.view.ViewMetadata;
+import io.crate.metadata.view.ViewsMetadata;
 import io.crate.planner.operators.SubQueryResults;
 import io.crate.sql.SqlFormatter;
 import io.crate.sql.parser.SqlParser;
@@ -50,6 +54,7 @@ import io.crate.sql.tree.Table;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public final class CreateViewPlan implements Plan {
 
@@ -85,14 +90,39 @@ public final class CreateViewPlan implements Plan {
             createViewStmt.name(),
             formattedQuery,
             createViewStmt.replaceExisting(),
-            owner == null ? null : owner.name()
+            owner == null ? null : owner.name(),
+            createViewStmt.materialized()
         );
-        dependencies.createViewAction().execute(request, new OneRowActionListener<>(consumer, resp -> {
-            if (resp.alreadyExistsFailure()) {
-                throw new RelationAlreadyExists(createViewStmt.name());
-            }
-            return new Row1(1L);
-        }));
+        CompletableFuture<Void> dropped;
+        if (createViewStmt.replaceExisting() && isMaterialized(dependencies, createViewStmt.name())) {
+            // The backing tables depend on the query, a replaced view gets new ones
+            dropped = dependencies.materializedViewTables().drop(createViewStmt.name());
+        } else {
+            dropped = CompletableFuture.completedFuture(null);
+        }
+        dropped
+            .thenCompose(ignored -> {
+                FutureActionListener<CreateViewResponse, CreateViewResponse> created = FutureActionListener.newInstance();
+                dependencies.createViewAction().execute(request, created);
+                return created;
+            })
+            .thenCompose(resp -> {
+                if (resp.alreadyExistsFailure()) {
+                    throw new RelationAlreadyExists(createViewStmt.name());
+                }
+                if (createViewStmt.materialized()) {
+                    // Populate the view right away so that it doesn't fall back to executing the query
+                    return RefreshMaterializedViewPlan.refresh(dependencies, plannerContext, createViewStmt.name());
+                }
+                return CompletableFuture.completedFuture(0L);
+            })
+            .whenComplete(new OneRowActionListener<>(consumer, ignored -> new Row1(1L)));
+    }
+
+    private static boolean isMaterialized(DependencyCarrier dependencies, RelationName name) {
+        ViewsMetadata views = dependencies.clusterService().state().metadata().custom(ViewsMetadata.TYPE);
+        ViewMetadata view = views == null ? null : views.getView(name);
+        return view != null && view.materialized();
     }
 
     private static void ensureFormattedQueryCanStillBeAnalyzed(RelationName viewName,
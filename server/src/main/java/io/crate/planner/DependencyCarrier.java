@@ -30,11 +30,13 @@ import io.crate.statistics.TransportAnalyzeAction;
 import io.crate.execution.ddl.TransportSwapRelationsAction;
 import io.crate.execution.ddl.tables.AlterTableOperation;
 import io.crate.execution.ddl.tables.TransportDropTableAction;
+import io.crate.execution.ddl.views.MaterializedViewTables;
 import io.crate.execution.ddl.views.TransportCreateViewAction;
 import io.crate.execution.ddl.views.TransportDropViewAction;
 import io.crate.execution.dsl.projection.builder.ProjectionBuilder;
 import io.crate.execution.engine.PhasesTaskFactory;
 import io.crate.execution.jobs.NodeLimits;
+import io.crate.execution.jobs.TasksService;
 import io.crate.expression.udf.TransportCreateUserDefinedFunctionAction;
 import io.crate.expression.udf.TransportDropUserDefinedFunctionAction;
 import io.crate.metadata.FulltextAnalyzerResolver;
@@ -45,6 +47,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Provider;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.concurrent.ScheduledExecutorService;
@@ -67,6 +70,7 @@ public class DependencyCarrier {
     private final ProjectionBuilder projectionBuilder;
     private final TransportCreateViewAction createViewAction;
     private final TransportDropViewAction dropViewAction;
+    private final MaterializedViewTables materializedViewTables;
     private final TransportSwapRelationsAction swapRelationsAction;
     private final TransportCreateIndexAction createIndexAction;
     private final TransportCreateUserDefinedFunctionAction createFunctionAction;
@@ -77,6 +81,8 @@ public class DependencyCarrier {
     private final RepositoryService repositoryService;
     private final RepositoryParamValidator repositoryParamValidator;
     private final NodeLimits nodeLimits;
+    private final CircuitBreakerService circuitBreakerService;
+    private final TasksService tasksService;
 
     @Inject
     public DependencyCarrier(Settings settings,
@@ -87,10 +93,13 @@ public class DependencyCarrier {
                              NodeContext nodeCtx,
                              ClusterService clusterService,
                              NodeLimits nodeLimits,
+                             CircuitBreakerService circuitBreakerService,
+                             TasksService tasksService,
                              DCLStatementDispatcher dclStatementDispatcher,
                              TransportDropTableAction transportDropTableAction,
                              TransportCreateViewAction createViewAction,
                              TransportDropViewAction dropViewAction,
+                             MaterializedViewTables materializedViewTables,
                              TransportSwapRelationsAction swapRelationsAction,
                              TransportCreateIndexAction createIndexAction,
                              TransportCreateUserDefinedFunctionAction createFunctionAction,
@@ -108,11 +117,14 @@ public class DependencyCarrier {
         this.nodeCtx = nodeCtx;
         this.clusterService = clusterService;
         this.nodeLimits = nodeLimits;
+        this.circuitBreakerService = circuitBreakerService;
+        this.tasksService = tasksService;
         this.dclStatementDispatcher = dclStatementDispatcher;
         this.transportDropTableAction = transportDropTableAction;
         projectionBuilder = new ProjectionBuilder(nodeCtx);
         this.createViewAction = createViewAction;
         this.dropViewAction = dropViewAction;
+        this.materializedViewTables = materializedViewTables;
         this.swapRelationsAction = swapRelationsAction;
         this.createIndexAction = createIndexAction;
         this.createFunctionAction = createFunctionAction;
@@ -184,6 +196,10 @@ public class DependencyCarrier {
         return dropViewAction;
     }
 
+    public MaterializedViewTables materializedViewTables() {
+        return materializedViewTables;
+    }
+
     public TransportCreateIndexAction createIndexAction() {
         return createIndexAction;
     }
@@ -219,4 +235,12 @@ public class DependencyCarrier {
     public NodeLimits nodeLimits() {
         return nodeLimits;
     }
+
+    public CircuitBreakerService circuitBreakerService() {
+        return circuitBreakerService;
+    }
+
+    public TasksService tasksService() {
+        return tasksService;
+    }
 }
@@ -21,6 +21,7 @@
 
 package io.crate.planner;
 
+import io.crate.action.FutureActionListener;
 import io.crate.analyze.AnalyzedDropView;
 import io.crate.data.Row;
 import io.crate.data.Row1;
@@ -29,8 +30,14 @@ import io.crate.exceptions.RelationsUnknown;
 import io.crate.execution.ddl.views.DropViewRequest;
 import io.crate.execution.ddl.views.DropViewResponse;
 import io.crate.execution.support.OneRowActionListener;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.view.ViewMetadata;
+import io.crate.metadata.view.ViewsMetadata;
 import io.crate.planner.operators.SubQueryResults;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 public class DropViewPlan implements Plan {
@@ -59,6 +66,42 @@ public class DropViewPlan implements Plan {
             }
             throw new RelationsUnknown(resp.missing());
         };
-        dependencies.dropViewAction().execute(request, new OneRowActionListener<>(consumer, responseToRow));
+        List<RelationName> materializedViews = materializedViews(dependencies);
+        if (materializedViews.isEmpty()) {
+            dependencies.dropViewAction().execute(request, new OneRowActionListener<>(consumer, responseToRow));
+            return;
+        }
+        FutureActionListener<DropViewResponse, DropViewResponse> dropped = FutureActionListener.newInstance();
+        dependencies.dropViewAction().execute(request, dropped);
+        dropped
+            .thenCompose(resp -> {
+                CompletableFuture<Void> droppedTables = CompletableFuture.completedFuture(null);
+                for (RelationName view : materializedViews) {
+                    if (!resp.missing().contains(view)) {
+                        droppedTables = droppedTables.thenCompose(
+                            ignored -> dependencies.materializedViewTables().drop(view));
+                    }
+                }
+                return droppedTables.thenApply(ignored -> resp);
+            })
+            .whenComplete(new OneRowActionListener<>(consumer, responseToRow));
+    }
+
+    /**
+     * @return the views to drop which are materialized, their backing tables are dropped together with the view.
+     */
+    private List<RelationName> materializedViews(DependencyCarrier dependencies) {
+        ViewsMetadata views = dependencies.clusterService().state().metadata().custom(ViewsMetadata.TYPE);
+        if (views == null) {
+            return List.of();
+        }
+        ArrayList<RelationName> materializedViews = new ArrayList<>();
+        for (RelationName name : dropView.views()) {
+            ViewMetadata view = views.getView(name);
+            if (view != null && view.materialized()) {
+                materializedViews.add(name);
+            }
+        }
+        return materializedViews;
     }
 }
@@ -0,0 +1,353 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.IndexTemplateMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.crate.action.sql.SessionContext;
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.common.annotations.VisibleForTesting;
+import io.crate.metadata.IndexParts;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.SearchPath;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.optimizer.Rule;
+import io.crate.statistics.TableStats;
+import io.crate.types.DataType;
+
+/**
+ * Node level cache for the {@link LogicalPlan}s of prepared statements with parameter placeholders.
+ *
+ * <p>
+ * A {@link LogicalPlan} doesn't contain the values of the parameters, they're only bound when the plan is executed.
+ * This allows to re-use the plan of a statement for all executions with the same parameter types, as long as the
+ * referenced relations don't change. Statements without parameters are rarely executed with exactly the same
+ * literals again and aren't cached, so that they don't evict the plans of parameterized statements.
+ * </p>
+ *
+ * <p>
+ * Plans are invalidated if the metadata of a relation they reference changes (e.g. columns added, partitions
+ * created or dropped). Changes that could change how a statement is resolved (new tables, views,
+ * user-defined functions, privileges, ...) invalidate all plans.
+ * Plans are also invalidated if the {@link TableStats} of a relation they reference change,
+ * as the statistics determine e.g. the join order.
+ * </p>
+ */
+@Singleton
+public class PlanCache implements ClusterStateListener {
+
+    public static final Setting<Integer> PLAN_CACHE_SIZE_SETTING = Setting.intSetting(
+        "node.sql.plan_cache_size",
+        1000,
+        0,
+        Setting.Property.NodeScope);
+
+    private final int maxSize;
+    private final Cache<Key, Entry> cache;
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Plans created from a cluster state with a lower metadata version must not be cached,
+     * they may be outdated already.
+     */
+    private volatile long minMetadataVersion = 0L;
+
+    /**
+     * Incremented on every change of the table statistics. Plans created with an older version
+     * must not be cached, they may be based on outdated statistics.
+     */
+    private final AtomicLong tableStatsVersion = new AtomicLong();
+
+    @Inject
+    public PlanCache(Settings settings, ClusterService clusterService, TableStats tableStats) {
+        this(PLAN_CACHE_SIZE_SETTING.get(settings));
+        clusterService.addListener(this);
+        tableStats.addListener(this::tableStatsChanged);
+    }
+
+    @VisibleForTesting
+    public PlanCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+    }
+
+    @Nullable
+    public LogicalPlan get(Key key) {
+        if (maxSize == 0) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(key);
+        return entry == null ? null : entry.plan;
+    }
+
+    /**
+     * @return the current version of the table statistics, to be passed to {@link #put} for a plan created afterwards.
+     */
+    public long tableStatsVersion() {
+        return tableStatsVersion.get();
+    }
+
+    /**
+     * @param metadataVersion the version of the metadata of the cluster state that was used to create the plan.
+     * @param tableStatsVersion the {@link #tableStatsVersion()} retrieved before the plan was created.
+     */
+    public void put(Key key, LogicalPlan plan, long metadataVersion, long tableStatsVersion) {
+        if (maxSize == 0 || isOutdated(metadataVersion, tableStatsVersion)) {
+            return;
+        }
+        cache.put(key, new Entry(plan, relationNames(plan)));
+
+        // The cluster state or the statistics may have changed concurrently and the invalidation may have missed
+        // the new entry
+        if (isOutdated(metadataVersion, tableStatsVersion)) {
+            cache.invalidate(key);
+        }
+    }
+
+    private boolean isOutdated(long metadataVersion, long tableStatsVersion) {
+        return metadataVersion < minMetadataVersion || tableStatsVersion < this.tableStatsVersion.get();
+    }
+
+    @VisibleForTesting
+    void tableStatsChanged(Set<RelationName> changedRelations) {
+        tableStatsVersion.incrementAndGet();
+        if (maxSize > 0) {
+            invalidate(changedRelations);
+        }
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (maxSize == 0) {
+            return;
+        }
+        if (event.nodesChanged()) {
+            // Plans may depend on the features supported by the nodes in the cluster
+            invalidateAll(event.state().metadata().version());
+            return;
+        }
+        if (!event.metadataChanged()) {
+            return;
+        }
+        Metadata prevMetadata = event.previousState().metadata();
+        Metadata newMetadata = event.state().metadata();
+        minMetadataVersion = newMetadata.version();
+        if (!newMetadata.customs().equals(prevMetadata.customs())) {
+            // Views, user-defined functions, privileges, ...
+            invalidateAll(newMetadata.version());
+            return;
+        }
+
+        Set<RelationName> changedRelations = new HashSet<>();
+        ImmutableOpenMap<String, IndexTemplateMetadata> prevTemplates = prevMetadata.templates();
+        ImmutableOpenMap<String, IndexTemplateMetadata> newTemplates = newMetadata.templates();
+        if (newTemplates.size() != prevTemplates.size()) {
+            // New or dropped partitioned table
+            invalidateAll(newMetadata.version());
+            return;
+        }
+        for (ObjectObjectCursor<String, IndexTemplateMetadata> cursor : newTemplates) {
+            IndexTemplateMetadata prevTemplate = prevTemplates.get(cursor.key);
+            if (prevTemplate == null) {
+                invalidateAll(newMetadata.version());
+                return;
+            }
+            if (prevTemplate != cursor.value && IndexParts.isPartitioned(cursor.key)) {
+                addRelationName(cursor.key, changedRelations);
+            }
+        }
+        for (Index index : event.indicesDeleted()) {
+            addRelationName(index.getName(), changedRelations);
+        }
+        for (String indexName : event.indicesCreated()) {
+            if (!IndexParts.isPartitioned(indexName)) {
+                // A new table may shadow a table of another schema in the search path
+                invalidateAll(newMetadata.version());
+                return;
+            }
+            addRelationName(indexName, changedRelations);
+        }
+        for (ObjectCursor<IndexMetadata> cursor : newMetadata.indices().values()) {
+            IndexMetadata newIndexMetadata = cursor.value;
+            IndexMetadata prevIndexMetadata = prevMetadata.index(newIndexMetadata.getIndex());
+            if (prevIndexMetadata != null
+                && ClusterChangedEvent.indexMetadataChanged(prevIndexMetadata, newIndexMetadata)) {
+                addRelationName(newIndexMetadata.getIndex().getName(), changedRelations);
+            }
+        }
+        if (!changedRelations.isEmpty()) {
+            invalidate(changedRelations);
+        }
+    }
+
+    private void invalidate(Set<RelationName> changedRelations) {
+        var it = cache.asMap().values().iterator();
+        while (it.hasNext()) {
+            if (!Collections.disjoint(it.next().relations, changedRelations)) {
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    private static void addRelationName(String indexOrTemplateName, Set<RelationName> relationNames) {
+        try {
+            relationNames.add(new IndexParts(indexOrTemplateName).toRelationName());
+        } catch (IllegalArgumentException e) {
+            // Not an index or template of a table
+        }
+    }
+
+    private void invalidateAll(long metadataVersion) {
+        minMetadataVersion = metadataVersion;
+        invalidations.add(cache.size());
+        cache.invalidateAll();
+    }
+
+    private static Set<RelationName> relationNames(LogicalPlan plan) {
+        HashSet<RelationName> relationNames = new HashSet<>();
+        addRelationNames(plan, relationNames);
+        return relationNames;
+    }
+
+    private static void addRelationNames(LogicalPlan plan, Set<RelationName> relationNames) {
+        for (AbstractTableRelation<?> table : plan.baseTables()) {
+            relationNames.add(table.tableInfo().ident());
+        }
+        for (LogicalPlan source : plan.sources()) {
+            addRelationNames(source, relationNames);
+        }
+        for (LogicalPlan dependency : plan.dependencies().keySet()) {
+            addRelationNames(dependency, relationNames);
+        }
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public long hits() {
+        return cache.stats().hitCount();
+    }
+
+    public long misses() {
+        return cache.stats().missCount();
+    }
+
+    public long evictions() {
+        return cache.stats().evictionCount();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    public static final class Key {
+
+        private final String statement;
+        private final List<DataType<?>> parameterTypes;
+        private final SearchPath searchPath;
+        private final String userName;
+        private final boolean hashJoinEnabled;
+        private final Set<Class<? extends Rule<?>>> excludedOptimizerRules;
+
+        /**
+         * @param statement the statement as sent by the client
+         * @param parameterTypes the types of the parameter placeholders, as determined by the analyzer
+         */
+        public Key(String statement, DataType<?>[] parameterTypes, SessionContext sessionContext) {
+            this.statement = statement;
+            this.parameterTypes = Arrays.asList(parameterTypes);
+            this.searchPath = sessionContext.searchPath();
+            this.userName = sessionContext.sessionUser().name();
+            this.hashJoinEnabled = sessionContext.isHashJoinEnabled();
+            this.excludedOptimizerRules = Set.copyOf(sessionContext.excludedOptimizerRules());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hashJoinEnabled == key.hashJoinEnabled &&
+                   statement.equals(key.statement) &&
+                   parameterTypes.equals(key.parameterTypes) &&
+                   searchPath.equals(key.searchPath) &&
+                   userName.equals(key.userName) &&
+                   excludedOptimizerRules.equals(key.excludedOptimizerRules);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(statement, parameterTypes, searchPath, userName, hashJoinEnabled, excludedOptimizerRules);
+        }
+    }
+
+    private static final class Entry {
+
+        private final LogicalPlan plan;
+        private final Set<RelationName> relations;
+
+        private Entry(LogicalPlan plan, Set<RelationName> relations) {
+            this.plan = plan;
+            this.relations = relations;
+        }
+    }
+}
@@ -32,7 +32,9 @@ import io.crate.analyze.AnalyzedAnalyze;
 import io.crate.analyze.AnalyzedBegin;
 import io.crate.analyze.AnalyzedCommit;
 import io.crate.analyze.AnalyzedCopyFrom;
+import io.crate.analyze.AnalyzedCopyFromStdin;
 import io.crate.analyze.AnalyzedCopyTo;
+import io.crate.analyze.AnalyzedCopyToStdout;
 import io.crate.analyze.AnalyzedCreateAnalyzer;
 import io.crate.analyze.AnalyzedCreateBlobTable;
 import io.crate.analyze.AnalyzedCreateFunction;
@@ -57,6 +59,7 @@ import io.crate.analyze.AnalyzedInsertStatement;
 import io.crate.analyze.AnalyzedKill;
 import io.crate.analyze.AnalyzedOptimizeTable;
 import io.crate.analyze.AnalyzedPromoteReplica;
+import io.crate.analyze.AnalyzedRefreshMaterializedView;
 import io.crate.analyze.AnalyzedRefreshTable;
 import io.crate.analyze.AnalyzedRerouteAllocateReplicaShard;
 import io.crate.analyze.AnalyzedRerouteCancelShard;
@@ -118,6 +121,7 @@ import io.crate.planner.node.management.RerouteRetryFailedPlan;
 import io.crate.planner.node.management.ShowCreateTablePlan;
 import io.crate.planner.operators.LogicalPlanner;
 import io.crate.planner.statement.CopyFromPlan;
+import io.crate.planner.statement.CopyFromStdinPlan;
 import io.crate.planner.statement.CopyToPlan;
 import io.crate.planner.statement.DeletePlanner;
 import io.crate.planner.statement.SetLicensePlan;
@@ -277,6 +281,16 @@ public class Planner extends AnalyzedStatementVisitor<PlannerContext, Plan> {
         return new CopyToPlan(analysis, tableStats);
     }
 
+    @Override
+    public Plan visitCopyFromStdin(AnalyzedCopyFromStdin analysis, PlannerContext context) {
+        return new CopyFromStdinPlan(analysis);
+    }
+
+    @Override
+    public Plan visitCopyToStdout(AnalyzedCopyToStdout analysis, PlannerContext context) {
+        return logicalPlanner.plan(analysis.relation(), context);
+    }
+
     @Override
     public Plan visitShowCreateTableAnalyzedStatement(AnalyzedShowCreateTable statement, PlannerContext context) {
         return new ShowCreateTablePlan(statement);
@@ -503,6 +517,12 @@ public class Planner extends AnalyzedStatementVisitor<PlannerContext, Plan> {
         return new DropViewPlan(dropView);
     }
 
+    @Override
+    public Plan visitRefreshMaterializedView(AnalyzedRefreshMaterializedView refreshMaterializedView,
+                                             PlannerContext context) {
+        return new RefreshMaterializedViewPlan(refreshMaterializedView);
+    }
+
     @Override
     public Plan visitOptimizeTableStatement(AnalyzedOptimizeTable analysis, PlannerContext context) {
         return new OptimizeTablePlan(analysis);
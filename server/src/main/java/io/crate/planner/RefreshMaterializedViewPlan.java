@@ -0,0 +1,424 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIndexedContainer;
+import com.carrotsearch.hppc.cursors.IntCursor;
+import com.google.common.collect.Lists;
+import io.crate.action.FutureActionListener;
+import io.crate.analyze.AnalyzedRefreshMaterializedView;
+import io.crate.analyze.MaterializedAggregation;
+import io.crate.analyze.ParamTypeHints;
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.RelationAnalyzer;
+import io.crate.analyze.where.WhereClauseAnalyzer;
+import io.crate.concurrent.CompletableFutures;
+import io.crate.data.CollectingRowConsumer;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.data.RowConsumer;
+import io.crate.exceptions.RelationUnknown;
+import io.crate.execution.ddl.views.MaterializedViewTables;
+import io.crate.execution.ddl.views.MaterializedViewTables.ShardStates;
+import io.crate.execution.dsl.phases.NodeOperationTree;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.Projection;
+import io.crate.execution.engine.NodeOperationTreeGenerator;
+import io.crate.execution.engine.pipeline.TopN;
+import io.crate.execution.support.OneRowActionListener;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Routing;
+import io.crate.metadata.RoutingProvider;
+import io.crate.metadata.RowGranularity;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.SearchPath;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.view.ViewMetadata;
+import io.crate.metadata.view.ViewsMetadata;
+import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.node.dql.Collect;
+import io.crate.planner.operators.SubQueryResults;
+import io.crate.planner.optimizer.symbol.Optimizer;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Query;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsRequest;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.seqno.SeqNoStats;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Re-computes the partial aggregation states of a materialized view, see {@link MaterializedAggregation}.
+ *
+ * The states are kept per shard in the backing tables of the view (see {@link MaterializedViewTables}) and
+ * only the states of shards which received writes since the last refresh are re-computed. To detect writes
+ * the local checkpoint of the primary shard is compared with the one stored together with the states.
+ *
+ * The rows of the view are written before the states, so that a refresh which fails in between re-computes
+ * the same shards again.
+ */
+public final class RefreshMaterializedViewPlan implements Plan {
+
+    /**
+     * The number of shards whose states are computed concurrently.
+     */
+    static final int MAX_CONCURRENT_SHARDS = 8;
+
+    private final AnalyzedRefreshMaterializedView refreshMaterializedView;
+
+    RefreshMaterializedViewPlan(AnalyzedRefreshMaterializedView refreshMaterializedView) {
+        this.refreshMaterializedView = refreshMaterializedView;
+    }
+
+    @Override
+    public StatementType type() {
+        return StatementType.DDL;
+    }
+
+    @Override
+    public void executeOrFail(DependencyCarrier dependencies,
+                              PlannerContext plannerContext,
+                              RowConsumer consumer,
+                              Row params,
+                              SubQueryResults subQueryResults) {
+        refresh(dependencies, plannerContext, refreshMaterializedView.name())
+            .whenComplete(new OneRowActionListener<>(consumer, Row1::new));
+    }
+
+    /**
+     * @return a future containing the number of shards for which the states were re-computed.
+     */
+    static CompletableFuture<Long> refresh(DependencyCarrier dependencies,
+                                           PlannerContext plannerContext,
+                                           RelationName name) {
+        ClusterState state = dependencies.clusterService().state();
+        ViewsMetadata views = state.metadata().custom(ViewsMetadata.TYPE);
+        ViewMetadata view = views == null ? null : views.getView(name);
+        if (view == null) {
+            throw new RelationUnknown(name);
+        }
+        CoordinatorTxnCtx txnCtx = plannerContext.transactionContext();
+        SearchPath searchPath = txnCtx.sessionContext().searchPath();
+        RelationAnalyzer relationAnalyzer = new RelationAnalyzer(dependencies.nodeContext(), dependencies.schemas());
+        AnalyzedRelation query = relationAnalyzer.analyze(
+            (Query) SqlParser.createStatement(view.stmt()),
+            txnCtx,
+            ParamTypeHints.EMPTY
+        );
+        MaterializedAggregation aggregation = MaterializedAggregation.of(query, dependencies.nodeContext(), searchPath);
+        Map<ShardId, String> shards = candidateShards(aggregation, plannerContext, state);
+        MaterializedViewTables tables = dependencies.materializedViewTables();
+        Schemas schemas = dependencies.schemas();
+        boolean created = !schemas.tableExists(MaterializedViewTables.statesTable(name))
+                          || !schemas.tableExists(MaterializedViewTables.rowsTable(name));
+        CompletableFuture<Void> tablesCreated = created
+            ? tables.create(name, Symbols.typeView(aggregation.outputs()))
+            : CompletableFuture.completedFuture(null);
+
+        return tablesCreated
+            .thenCompose(ignored -> tables.readCheckpoints(name))
+            .thenCompose(stored -> checkpoints(dependencies, shards.keySet()).thenCompose(current -> {
+                LinkedHashMap<ShardId, Long> changed = new LinkedHashMap<>();
+                for (ShardId shardId : shards.keySet()) {
+                    Long checkpoint = current.get(shardId);
+                    Long storedCheckpoint = stored.get(shardId);
+                    if (checkpoint == null || !checkpoint.equals(storedCheckpoint)) {
+                        changed.put(shardId, checkpoint == null ? -1L : checkpoint);
+                    }
+                }
+                Set<String> indexUUIDs = new HashSet<>();
+                for (ShardId shardId : shards.keySet()) {
+                    indexUUIDs.add(shardId.getIndex().getUUID());
+                }
+                Set<String> removedIndexUUIDs = new HashSet<>();
+                for (ShardId shardId : stored.keySet()) {
+                    String indexUUID = shardId.getIndex().getUUID();
+                    if (!indexUUIDs.contains(indexUUID)) {
+                        removedIndexUUIDs.add(indexUUID);
+                    }
+                }
+                if (changed.isEmpty() && removedIndexUUIDs.isEmpty() && !created) {
+                    return CompletableFuture.completedFuture(0L);
+                }
+                return refreshIndices(dependencies, changed.keySet())
+                    .thenCompose(ignored -> collect(dependencies, plannerContext, aggregation, shards, changed))
+                    .thenCompose(states -> store(tables, name, aggregation, shards, states, removedIndexUUIDs))
+                    .thenApply(ignored -> (long) changed.size());
+            }));
+    }
+
+    /**
+     * @return the primary shards of the open indices of the table which may contain rows matching the
+     *         where clause of the view query, and the nodes they're located on.
+     */
+    private static Map<ShardId, String> candidateShards(MaterializedAggregation aggregation,
+                                                        PlannerContext plannerContext,
+                                                        ClusterState state) {
+        DocTableInfo table = aggregation.tableInfo();
+        WhereClause where = WhereClauseAnalyzer.resolvePartitions(
+            new WhereClause(aggregation.where()),
+            aggregation.table(),
+            plannerContext.transactionContext(),
+            plannerContext.nodeContext()
+        );
+        if (!WhereClause.canMatch(where.queryOrFallback())) {
+            return Map.of();
+        }
+        List<String> indices = Arrays.asList(table.concreteOpenIndices());
+        if (!where.partitions().isEmpty()) {
+            Set<String> matchingPartitions = new HashSet<>(where.partitions());
+            indices = indices.stream().filter(matchingPartitions::contains).toList();
+        }
+        if (indices.isEmpty()) {
+            return Map.of();
+        }
+        Routing routing = plannerContext.allocateRouting(
+            table,
+            new WhereClause(where.queryOrFallback(), table.isPartitioned() ? indices : List.of(), Set.of()),
+            RoutingProvider.ShardSelection.PRIMARIES,
+            plannerContext.transactionContext().sessionContext()
+        );
+        HashMap<ShardId, String> shards = new HashMap<>();
+        for (Map.Entry<String, Map<String, IntIndexedContainer>> nodeEntry : routing.locations().entrySet()) {
+            for (Map.Entry<String, IntIndexedContainer> indexEntry : nodeEntry.getValue().entrySet()) {
+                IndexMetadata indexMetadata = state.metadata().index(indexEntry.getKey());
+                if (indexMetadata == null) {
+                    continue;
+                }
+                for (IntCursor shard : indexEntry.getValue()) {
+                    shards.put(new ShardId(indexMetadata.getIndex(), shard.value), nodeEntry.getKey());
+                }
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * @return the local checkpoints of the given primary shards.
+     *         Shards without sequence number stats are left out.
+     */
+    private static CompletableFuture<Map<ShardId, Long>> checkpoints(DependencyCarrier dependencies,
+                                                                     Set<ShardId> shards) {
+        if (shards.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        IndicesStatsRequest statsRequest = new IndicesStatsRequest().clear();
+        statsRequest.indices(shards.stream().map(ShardId::getIndexName).distinct().toArray(String[]::new));
+        statsRequest.indicesOptions(IndicesOptions.lenientExpandOpen());
+        FutureActionListener<IndicesStatsResponse, Map<ShardId, Long>> checkpoints = new FutureActionListener<>(response -> {
+            HashMap<ShardId, Long> checkpointByShard = new HashMap<>();
+            for (ShardStats shardStats : response.getShards()) {
+                SeqNoStats seqNoStats = shardStats.getSeqNoStats();
+                if (shardStats.getShardRouting().primary() && seqNoStats != null) {
+                    checkpointByShard.put(shardStats.getShardRouting().shardId(), seqNoStats.getLocalCheckpoint());
+                }
+            }
+            return checkpointByShard;
+        });
+        dependencies.transportActionProvider().transportIndicesStatsAction().execute(statsRequest, checkpoints);
+        return checkpoints;
+    }
+
+    /**
+     * Refreshes the indices of the given shards, so that the states include all writes up to the checkpoints.
+     */
+    private static CompletableFuture<?> refreshIndices(DependencyCarrier dependencies, Set<ShardId> shards) {
+        if (shards.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        RefreshRequest refreshRequest = new RefreshRequest(
+            shards.stream().map(ShardId::getIndexName).distinct().toArray(String[]::new));
+        refreshRequest.indicesOptions(IndicesOptions.lenientExpandOpen());
+        FutureActionListener<RefreshResponse, RefreshResponse> refreshed = FutureActionListener.newInstance();
+        dependencies.transportActionProvider().transportRefreshAction().execute(refreshRequest, refreshed);
+        return refreshed;
+    }
+
+    /**
+     * Computes the states of the changed shards, {@link #MAX_CONCURRENT_SHARDS} at a time.
+     *
+     * @param changed the local checkpoints of the changed shards.
+     */
+    private static CompletableFuture<List<ShardStates>> collect(DependencyCarrier dependencies,
+                                                                PlannerContext plannerContext,
+                                                                MaterializedAggregation aggregation,
+                                                                Map<ShardId, String> shards,
+                                                                Map<ShardId, Long> changed) {
+        List<ShardStates> result = new ArrayList<>(changed.size());
+        CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+        for (List<ShardId> batch : Lists.partition(List.copyOf(changed.keySet()), MAX_CONCURRENT_SHARDS)) {
+            previous = previous.thenCompose(ignored -> {
+                List<CompletableFuture<ShardStates>> futures = new ArrayList<>(batch.size());
+                for (ShardId shardId : batch) {
+                    futures.add(
+                        collectShard(dependencies, plannerContext, aggregation, shardId, shards.get(shardId))
+                            .thenApply(states -> new ShardStates(shardId, changed.get(shardId), states))
+                    );
+                }
+                return CompletableFutures.allAsList(futures).thenAccept(result::addAll);
+            });
+        }
+        return previous.thenApply(ignored -> result);
+    }
+
+    /**
+     * Runs the aggregation with {@link AggregateMode#ITER_PARTIAL} on a single shard.
+     * Each shard is collected in a job of its own.
+     *
+     * @return the serialized partial states of all groups of the shard.
+     */
+    private static CompletableFuture<BytesReference> collectShard(DependencyCarrier dependencies,
+                                                                  PlannerContext parentContext,
+                                                                  MaterializedAggregation aggregation,
+                                                                  ShardId shardId,
+                                                                  String nodeId) {
+        PlannerContext plannerContext = PlannerContext.forSubPlan(parentContext);
+        DocTableInfo table = aggregation.tableInfo();
+        SearchPath searchPath = plannerContext.transactionContext().sessionContext().searchPath();
+
+        List<Symbol> groupKeys = aggregation.groupKeys();
+        LinkedHashSet<Symbol> toCollect = new LinkedHashSet<>(groupKeys);
+        for (Function aggregate : aggregation.aggregates()) {
+            toCollect.addAll(aggregate.arguments());
+            if (aggregate.filter() != null) {
+                toCollect.add(aggregate.filter());
+            }
+        }
+        List<Symbol> inputs = List.copyOf(toCollect);
+        Routing routing = new Routing(Map.of(
+            nodeId,
+            Map.<String, IntIndexedContainer>of(shardId.getIndexName(), IntArrayList.from(shardId.id()))
+        ));
+        RoutedCollectPhase collectPhase = new RoutedCollectPhase(
+            plannerContext.jobId(),
+            plannerContext.nextExecutionPhaseId(),
+            "collect",
+            routing,
+            table.rowGranularity(),
+            inputs,
+            List.of(),
+            Optimizer.optimizeCasts(aggregation.where(), plannerContext),
+            DistributionInfo.DEFAULT_BROADCAST
+        );
+        Projection toPartial;
+        if (groupKeys.isEmpty()) {
+            toPartial = dependencies.projectionBuilder().aggregationProjection(
+                inputs,
+                aggregation.aggregates(),
+                x -> x,
+                AggregateMode.ITER_PARTIAL,
+                RowGranularity.SHARD,
+                searchPath
+            );
+        } else {
+            toPartial = dependencies.projectionBuilder().groupProjection(
+                inputs,
+                groupKeys,
+                aggregation.aggregates(),
+                x -> x,
+                AggregateMode.ITER_PARTIAL,
+                RowGranularity.SHARD,
+                searchPath
+            );
+        }
+        ExecutionPlan executionPlan = new Collect(collectPhase, TopN.NO_LIMIT, 0, inputs.size(), TopN.NO_LIMIT, null);
+        executionPlan.addProjection(toPartial);
+        executionPlan = Merge.ensureOnHandler(executionPlan, plannerContext);
+        NodeOperationTree nodeOpTree = NodeOperationTreeGenerator.fromPlan(executionPlan, dependencies.localNodeId());
+
+        int numKeys = groupKeys.size();
+        int numAggregates = aggregation.aggregates().size();
+        CollectingRowConsumer<?, List<Object[]>> rowConsumer = new CollectingRowConsumer<>(
+            Collectors.mapping(Row::materialize, Collectors.toList()));
+        dependencies.phasesTaskFactory()
+            .create(plannerContext.jobId(), List.of(nodeOpTree))
+            .execute(rowConsumer, plannerContext.transactionContext());
+        return rowConsumer.completionFuture().thenApply(cells -> {
+            HashMap<List<Object>, Object[]> groups = new HashMap<>();
+            for (Object[] cell : cells) {
+                Object[] states = Arrays.copyOfRange(cell, numKeys, numKeys + numAggregates);
+                List<Object> key = Arrays.asList(Arrays.copyOfRange(cell, 0, numKeys));
+                aggregation.merge(groups, key, states);
+            }
+            return aggregation.serialize(groups.entrySet());
+        });
+    }
+
+    /**
+     * Merges the new states with the stored states of the unchanged shards and stores the resulting rows
+     * and the new states.
+     */
+    private static CompletableFuture<Void> store(MaterializedViewTables tables,
+                                                 RelationName name,
+                                                 MaterializedAggregation aggregation,
+                                                 Map<ShardId, String> shards,
+                                                 List<ShardStates> newStates,
+                                                 Set<String> removedIndexUUIDs) {
+        return tables.readStates(name).thenCompose(stored -> {
+            HashMap<List<Object>, Object[]> groups = new HashMap<>();
+            HashSet<ShardId> changed = new HashSet<>(newStates.size());
+            for (ShardStates shardStates : newStates) {
+                changed.add(shardStates.shardId());
+                aggregation.deserializeInto(shardStates.states(), groups);
+            }
+            for (Map.Entry<ShardId, BytesReference> entry : stored.entrySet()) {
+                ShardId shardId = entry.getKey();
+                if (shards.containsKey(shardId) && !changed.contains(shardId)) {
+                    aggregation.deserializeInto(entry.getValue(), groups);
+                }
+            }
+            List<BytesReference> keys = new ArrayList<>(groups.size());
+            List<Object[]> rows = new ArrayList<>(groups.size());
+            aggregation.terminate(groups, (key, values) -> {
+                keys.add(aggregation.serializeKey(key));
+                rows.add(values);
+            });
+            return tables.replaceRows(name, keys, rows)
+                .thenCompose(ignored -> tables.replaceStates(name, newStates, removedIndexUUIDs));
+        });
+    }
+}
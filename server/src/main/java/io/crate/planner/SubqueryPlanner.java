@@ -27,7 +27,9 @@ import io.crate.expression.symbol.SelectSymbol;
 import io.crate.expression.symbol.Symbol;
 import io.crate.planner.operators.LogicalPlan;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -41,7 +43,15 @@ public class SubqueryPlanner {
     }
 
     public Map<LogicalPlan, SelectSymbol> planSubQueries(AnalyzedStatement statement) {
-        Visitor visitor = new Visitor();
+        return planSubQueries(statement, List.of());
+    }
+
+    /**
+     * @param excluded sub-queries which are not planned, because they are already part of the plan of the statement
+     */
+    public Map<LogicalPlan, SelectSymbol> planSubQueries(AnalyzedStatement statement,
+                                                         Collection<SelectSymbol> excluded) {
+        Visitor visitor = new Visitor(excluded);
         statement.visitSymbols(visitor);
         return visitor.subQueries;
     }
@@ -54,9 +64,19 @@ public class SubqueryPlanner {
     private class Visitor extends DefaultTraversalSymbolVisitor<Symbol, Void> implements Consumer<Symbol> {
 
         private final Map<LogicalPlan, SelectSymbol> subQueries = new HashMap<>();
+        private final Collection<SelectSymbol> excluded;
+
+        Visitor(Collection<SelectSymbol> excluded) {
+            this.excluded = excluded;
+        }
 
         @Override
         public Void visitSelectSymbol(SelectSymbol selectSymbol, Symbol parent) {
+            for (SelectSymbol excludedSelectSymbol : excluded) {
+                if (excludedSelectSymbol == selectSymbol) {
+                    return null;
+                }
+            }
             planSubquery(selectSymbol, subQueries);
             return null;
         }
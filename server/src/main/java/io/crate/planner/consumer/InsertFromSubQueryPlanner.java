@@ -63,7 +63,23 @@ public final class InsertFromSubQueryPlanner {
             !plannerContext.clusterState().getNodes().getMinNodeVersion().onOrAfter(Version.V_4_2_0)) {
             throw new UnsupportedFeatureException(RETURNING_VERSION_ERROR_MSG);
         }
+        ColumnIndexWriterProjection indexWriterProjection = createIndexWriterProjection(statement);
+        LogicalPlan plannedSubQuery = logicalPlanner.plan(
+            statement.subQueryRelation(),
+            plannerContext,
+            subqueryPlanner,
+            true
+        );
+        EvalProjection castOutputs = EvalProjection.castValues(
+            Symbols.typeView(statement.columns()), plannedSubQuery.outputs());
+        return new Insert(plannedSubQuery, indexWriterProjection, castOutputs);
+    }
 
+    /**
+     * Creates the projection which writes rows of {@code statement.columns()} into the target table.
+     * The rows are expected to be casted to the types of the target columns.
+     */
+    public static ColumnIndexWriterProjection createIndexWriterProjection(AnalyzedInsertStatement statement) {
         List<Reference> targetColsExclPartitionCols = new ArrayList<>(
             statement.columns().size() - statement.tableInfo().partitionedBy().size());
         for (Reference column : statement.columns()) {
@@ -79,7 +95,7 @@ public final class InsertFromSubQueryPlanner {
         // if fields are null default to number of rows imported
         var outputs = statement.outputs() == null ? List.of(new InputColumn(0, DataTypes.LONG)) : statement.outputs();
 
-        ColumnIndexWriterProjection indexWriterProjection = new ColumnIndexWriterProjection(
+        return new ColumnIndexWriterProjection(
             statement.tableInfo().ident(),
             null,
             statement.tableInfo().primaryKey(),
@@ -97,14 +113,5 @@ public final class InsertFromSubQueryPlanner {
             outputs,
             statement.outputs() == null ? List.of() : statement.outputs()
         );
-        LogicalPlan plannedSubQuery = logicalPlanner.plan(
-            statement.subQueryRelation(),
-            plannerContext,
-            subqueryPlanner,
-            true
-        );
-        EvalProjection castOutputs = EvalProjection.castValues(
-            Symbols.typeView(statement.columns()), plannedSubQuery.outputs());
-        return new Insert(plannedSubQuery, indexWriterProjection, castOutputs);
     }
 }
@@ -21,11 +21,13 @@
 
 package io.crate.planner.distribution;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 public class DistributionInfo implements Writeable {
 
@@ -34,22 +36,46 @@ public class DistributionInfo implements Writeable {
     public static final DistributionInfo DEFAULT_MODULO = new DistributionInfo(DistributionType.MODULO);
 
     private DistributionType distributionType;
-    private int distributeByColumn;
+    private int[] distributeByColumns;
 
     public DistributionInfo(DistributionType distributionType, int distributeByColumn) {
+        this(distributionType, new int[] { distributeByColumn });
+    }
+
+    /**
+     * @param distributeByColumns the positions of the columns whose combined hash determines the target node
+     *                            of a row with {@link DistributionType#MODULO}
+     */
+    public DistributionInfo(DistributionType distributionType, int[] distributeByColumns) {
+        assert distributeByColumns.length > 0 : "Must distribute by at least one column";
         this.distributionType = distributionType;
-        this.distributeByColumn = distributeByColumn;
+        this.distributeByColumns = distributeByColumns;
     }
 
     public DistributionInfo(StreamInput in) throws IOException {
         distributionType = DistributionType.values()[in.readVInt()];
-        distributeByColumn = in.readVInt();
+        int distributeByColumn = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_4_7_0)) {
+            distributeByColumns = new int[in.readVInt() + 1];
+            for (int i = 1; i < distributeByColumns.length; i++) {
+                distributeByColumns[i] = in.readVInt();
+            }
+        } else {
+            distributeByColumns = new int[1];
+        }
+        distributeByColumns[0] = distributeByColumn;
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVInt(distributionType.ordinal());
-        out.writeVInt(distributeByColumn);
+        out.writeVInt(distributeByColumns[0]);
+        if (out.getVersion().onOrAfter(Version.V_4_7_0)) {
+            out.writeVInt(distributeByColumns.length - 1);
+            for (int i = 1; i < distributeByColumns.length; i++) {
+                out.writeVInt(distributeByColumns[i]);
+            }
+        }
     }
 
     public DistributionInfo(DistributionType distributionType) {
@@ -61,7 +87,11 @@ public class DistributionInfo implements Writeable {
     }
 
     public int distributeByColumn() {
-        return distributeByColumn;
+        return distributeByColumns[0];
+    }
+
+    public int[] distributeByColumns() {
+        return distributeByColumns;
     }
 
     @Override
@@ -71,13 +101,14 @@ public class DistributionInfo implements Writeable {
 
         DistributionInfo that = (DistributionInfo) o;
 
-        return distributeByColumn == that.distributeByColumn && distributionType == that.distributionType;
+        return Arrays.equals(distributeByColumns, that.distributeByColumns)
+               && distributionType == that.distributionType;
     }
 
     @Override
     public int hashCode() {
         int result = distributionType.hashCode();
-        result = 31 * result + distributeByColumn;
+        result = 31 * result + Arrays.hashCode(distributeByColumns);
         return result;
     }
 
@@ -85,7 +116,7 @@ public class DistributionInfo implements Writeable {
     public String toString() {
         return "DistributionInfo{" +
                "distributionType=" + distributionType +
-               ", distributeByColumn=" + distributeByColumn +
+               ", distributeByColumns=" + Arrays.toString(distributeByColumns) +
                '}';
     }
 }
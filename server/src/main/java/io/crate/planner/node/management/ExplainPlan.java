@@ -106,7 +106,7 @@ public class ExplainPlan implements Plan {
             if (plan.dependencies().isEmpty()) {
                 UUID jobId = plannerContext.jobId();
                 BaseResultReceiver resultReceiver = new BaseResultReceiver();
-                RowConsumer noopRowConsumer = new RowConsumerToResultReceiver(resultReceiver, 0, t -> {});
+                RowConsumer noopRowConsumer = new RowConsumerToResultReceiver(resultReceiver, 0, (t, rowCount) -> {});
 
                 Timer timer = context.createTimer(Phase.Execute.name());
                 timer.start();
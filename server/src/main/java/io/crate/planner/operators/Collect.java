@@ -91,8 +91,8 @@ public class Collect implements LogicalPlan {
     private final long numExpectedRows;
     private final long estimatedRowSize;
 
-    WhereClause where;
-    DetailedQuery detailedQuery;
+    final WhereClause where;
+    final DetailedQuery detailedQuery;
 
     public static Collect create(AbstractTableRelation<?> relation,
                                  List<Symbol> toCollect,
@@ -138,6 +138,20 @@ public class Collect implements LogicalPlan {
         this.relation = relation;
         this.where = where;
         this.tableInfo = relation.tableInfo();
+        this.detailedQuery = null;
+    }
+
+    private java.util.function.Function<Symbol, Symbol> binder(PlannerContext plannerContext,
+                                                              Row params,
+                                                              SubQueryResults subQueryResults) {
+        EvaluatingNormalizer normalizer = new EvaluatingNormalizer(
+            plannerContext.nodeContext(),
+            RowGranularity.CLUSTER,
+            null,
+            relation
+        );
+        return new SubQueryAndParamBinder(params, subQueryResults)
+            .andThen(x -> normalizer.normalize(x, plannerContext.transactionContext()));
     }
 
     @Override
@@ -150,14 +164,7 @@ public class Collect implements LogicalPlan {
                                @Nullable Integer pageSizeHint,
                                Row params,
                                SubQueryResults subQueryResults) {
-        EvaluatingNormalizer normalizer = new EvaluatingNormalizer(
-            plannerContext.nodeContext(),
-            RowGranularity.CLUSTER,
-            null,
-            relation
-        );
-        var binder = new SubQueryAndParamBinder(params, subQueryResults)
-            .andThen(x -> normalizer.normalize(x, plannerContext.transactionContext()));
+        var binder = binder(plannerContext, params, subQueryResults);
         RoutedCollectPhase collectPhase = createPhase(plannerContext, hints, binder, params, subQueryResults);
         PositionalOrderBy positionalOrderBy = getPositionalOrderBy(order, outputs);
         if (positionalOrderBy != null) {
@@ -248,11 +255,18 @@ public class Collect implements LogicalPlan {
         }
     }
 
-    private RoutedCollectPhase createPhase(PlannerContext plannerContext,
-                                           Set<PlanHint> planHints,
-                                           java.util.function.Function<Symbol, Symbol> binder,
-                                           Row params,
-                                           SubQueryResults subQueryResults) {
+    /**
+     * Binds the parameters and possible subQuery values to the where clause and re-analyzes it
+     * (could result in a NO_MATCH, routing could've changed, etc).
+     */
+    WhereClause boundWhere(PlannerContext plannerContext, Row params, SubQueryResults subQueryResults) {
+        return boundWhere(plannerContext, binder(plannerContext, params, subQueryResults), params, subQueryResults);
+    }
+
+    private WhereClause boundWhere(PlannerContext plannerContext,
+                                   java.util.function.Function<Symbol, Symbol> binder,
+                                   Row params,
+                                   SubQueryResults subQueryResults) {
         WhereClause boundWhere;
         if (tableInfo instanceof DocTableInfo docTable) {
             if (detailedQuery == null) {
@@ -279,15 +293,21 @@ public class Collect implements LogicalPlan {
             boundWhere = where.map(binder);
         }
 
-        // bind all parameters and possible subQuery values and re-analyze the query
-        // (could result in a NO_MATCH, routing could've changed, etc).
-        // the <p>where</p> instance variable must be overwritten as the plan creation of outer operators relies on it
-        // (e.g. GroupHashAggregate will build different plans based on the collect routing)
-        where = WhereClauseAnalyzer.resolvePartitions(
+        return WhereClauseAnalyzer.resolvePartitions(
             boundWhere,
             relation,
             plannerContext.transactionContext(),
             plannerContext.nodeContext());
+    }
+
+    private RoutedCollectPhase createPhase(PlannerContext plannerContext,
+                                           Set<PlanHint> planHints,
+                                           java.util.function.Function<Symbol, Symbol> binder,
+                                           Row params,
+                                           SubQueryResults subQueryResults) {
+        // The plan can be executed several times with different parameters (see PlanCache),
+        // so the bound where clause must not be stored in the `where` instance variable.
+        WhereClause where = boundWhere(plannerContext, binder, params, subQueryResults);
         if (where.hasVersions()) {
             throw VersioningValidationException.versionInvalidUsage();
         } else if (where.hasSeqNoAndPrimaryTerm()) {
@@ -34,6 +34,7 @@ import java.util.Set;
 import javax.annotation.Nullable;
 
 import io.crate.analyze.OrderBy;
+import io.crate.analyze.WhereClause;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Row;
 import io.crate.execution.dsl.phases.ExecutionPhases;
@@ -150,7 +151,7 @@ public class GroupHashAggregate extends ForwardingLogicalPlan {
         SubQueryAndParamBinder paramBinder = new SubQueryAndParamBinder(params, subQueryResults);
 
         List<Symbol> sourceOutputs = source.outputs();
-        if (shardsContainAllGroupKeyValues()) {
+        if (shardsContainAllGroupKeyValues(plannerContext, params, subQueryResults)) {
             GroupProjection groupProjection = projectionBuilder.groupProjection(
                 sourceOutputs,
                 groupKeys,
@@ -301,13 +302,17 @@ public class GroupHashAggregate extends ForwardingLogicalPlan {
      * @return true if it's guaranteed that a group-key-value doesn't occur in more than 1 shard.
      *         Each shard has "group or row authority"
      */
-    private boolean shardsContainAllGroupKeyValues() {
-        return source instanceof Collect &&
-               ((Collect) source).tableInfo instanceof DocTableInfo &&
-               GroupByConsumer.groupedByClusteredColumnOrPrimaryKeys(
-                   ((DocTableInfo) ((Collect) source).tableInfo),
-                   ((Collect) source).where,
-                   groupKeys);
+    private boolean shardsContainAllGroupKeyValues(PlannerContext plannerContext,
+                                                   Row params,
+                                                   SubQueryResults subQueryResults) {
+        if (source instanceof Collect collect && collect.tableInfo instanceof DocTableInfo docTable) {
+            // The partitions are only known once the parameters are bound
+            WhereClause where = docTable.isPartitioned()
+                ? collect.boundWhere(plannerContext, params, subQueryResults)
+                : collect.where;
+            return GroupByConsumer.groupedByClusteredColumnOrPrimaryKeys(docTable, where, groupKeys);
+        }
+        return false;
     }
 
     @Override
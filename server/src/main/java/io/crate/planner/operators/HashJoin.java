@@ -63,10 +63,14 @@ import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.node.dql.join.Join;
 import io.crate.planner.node.dql.join.JoinType;
 import io.crate.statistics.TableStats;
+import org.elasticsearch.Version;
 
 public class HashJoin implements LogicalPlan {
 
     private final Symbol joinCondition;
+    private final JoinType joinType;
+    private final boolean nullAware;
+    private final boolean rewriteFilterOnOuterJoinToInnerJoinDone;
     @VisibleForTesting
     final AnalyzedRelation concreteRelation;
     private final List<Symbol> outputs;
@@ -77,15 +81,72 @@ public class HashJoin implements LogicalPlan {
                     LogicalPlan rhs,
                     Symbol joinCondition,
                     AnalyzedRelation concreteRelation) {
-        this.outputs = Lists2.concat(lhs.outputs(), rhs.outputs());
+        this(lhs, rhs, joinCondition, concreteRelation, JoinType.INNER);
+    }
+
+    /**
+     * @param joinType any join type except {@link JoinType#CROSS}.
+     *                 SEMI and ANTI joins only output the rows of {@code lhs}.
+     */
+    public HashJoin(LogicalPlan lhs,
+                    LogicalPlan rhs,
+                    Symbol joinCondition,
+                    AnalyzedRelation concreteRelation,
+                    JoinType joinType) {
+        this(lhs, rhs, joinCondition, concreteRelation, joinType, false);
+    }
+
+    public HashJoin(LogicalPlan lhs,
+                    LogicalPlan rhs,
+                    Symbol joinCondition,
+                    AnalyzedRelation concreteRelation,
+                    JoinType joinType,
+                    boolean rewriteFilterOnOuterJoinToInnerJoinDone) {
+        this(lhs, rhs, joinCondition, concreteRelation, joinType, false, rewriteFilterOnOuterJoinToInnerJoinDone);
+    }
+
+    /**
+     * @param nullAware only for {@link JoinType#ANTI} joins: Use the semantics of {@code x NOT IN (SELECT y ...)}
+     *                  in a where clause. No rows are emitted if the right side contains a null key,
+     *                  rows with a null key are only emitted if the right side is empty.
+     */
+    public HashJoin(LogicalPlan lhs,
+                    LogicalPlan rhs,
+                    Symbol joinCondition,
+                    AnalyzedRelation concreteRelation,
+                    JoinType joinType,
+                    boolean nullAware,
+                    boolean rewriteFilterOnOuterJoinToInnerJoinDone) {
+        assert joinType != JoinType.CROSS : "HashJoin requires a join condition";
+        assert nullAware == false || joinType == JoinType.ANTI : "Only ANTI joins can be null-aware";
+        if (joinType == JoinType.SEMI || joinType == JoinType.ANTI) {
+            this.outputs = lhs.outputs();
+        } else {
+            this.outputs = Lists2.concat(lhs.outputs(), rhs.outputs());
+        }
         this.lhs = lhs;
         this.rhs = rhs;
         this.concreteRelation = concreteRelation;
         this.joinCondition = joinCondition;
+        this.joinType = joinType;
+        this.nullAware = nullAware;
+        this.rewriteFilterOnOuterJoinToInnerJoinDone = rewriteFilterOnOuterJoinToInnerJoinDone;
     }
 
     public JoinType joinType() {
-        return JoinType.INNER;
+        return joinType;
+    }
+
+    public boolean isNullAware() {
+        return nullAware;
+    }
+
+    public boolean isRewriteFilterOnOuterJoinToInnerJoinDone() {
+        return rewriteFilterOnOuterJoinToInnerJoinDone;
+    }
+
+    public AnalyzedRelation concreteRelation() {
+        return concreteRelation;
     }
 
     public Symbol joinCondition() {
@@ -129,10 +190,13 @@ public class HashJoin implements LogicalPlan {
         LogicalPlan rightLogicalPlan = rhs;
 
         boolean tablesSwitched = false;
-        // We move smaller table to the right side since benchmarking
-        // revealed that this improves performance in most cases.
-        if (lhs.numExpectedRows() < rhs.numExpectedRows()) {
+        JoinType joinType = this.joinType;
+        // The left side is the build side which is loaded into the hash table,
+        // so we move the smaller table to the left.
+        // SEMI and ANTI joins emit the left rows, so their sides can't be switched.
+        if (joinType.supportsInversion() && lhs.numExpectedRows() > rhs.numExpectedRows()) {
             tablesSwitched = true;
+            joinType = joinType.invert();
             leftLogicalPlan = rhs;
             rightLogicalPlan = lhs;
 
@@ -161,6 +225,14 @@ public class HashJoin implements LogicalPlan {
         boolean isDistributed = leftResultDesc.hasRemainingLimitOrOffset() == false
                                 && rightResultDesc.hasRemainingLimitOrOffset() == false;
 
+        // Nodes before 4.7.0 execute every hash join as an inner join, other join types must run on the handler node
+        boolean requiresHandlerNode = joinType != JoinType.INNER
+            && plannerContext.clusterState().nodes().getMinNodeVersion().before(Version.V_4_7_0);
+        // A null-aware join must see all rows of the right side to know if there is a null key or if it's empty
+        if (requiresHandlerNode || nullAware) {
+            isDistributed = false;
+        }
+
         if (joinExecutionNodes.isEmpty()) {
             // The left source might have zero execution nodes, for example in the case of `sys.shards` without any tables
             // If the join then also uses zero execution nodes, a distributed plan no longer works because
@@ -169,6 +241,7 @@ public class HashJoin implements LogicalPlan {
             isDistributed = false;
         }
         if (joinExecutionNodes.size() == 1
+            && requiresHandlerNode == false
             && joinExecutionNodes.equals(rightResultDesc.nodeIds())
             && !rightResultDesc.hasRemainingLimitOrOffset()) {
             // If the left and the right plan are executed on the same single node the mergePhase
@@ -202,10 +275,13 @@ public class HashJoin implements LogicalPlan {
             leftOutputs.size(),
             rightOutputs.size(),
             joinExecutionNodes,
+            joinType,
+            nullAware,
             InputColumns.create(paramBinder.apply(joinCondition), joinOutputs),
             InputColumns.create(Lists2.map(hashSymbols.v1(), paramBinder), new InputColumns.SourceSymbols(leftOutputs)),
             InputColumns.create(Lists2.map(hashSymbols.v2(), paramBinder), new InputColumns.SourceSymbols(rightOutputs)),
             Symbols.typeView(leftOutputs),
+            Symbols.typeView(rightOutputs),
             leftLogicalPlan.estimatedRowSize(),
             leftLogicalPlan.numExpectedRows());
         return new Join(
@@ -241,7 +317,10 @@ public class HashJoin implements LogicalPlan {
             sources.get(0),
             sources.get(1),
             joinCondition,
-            concreteRelation
+            concreteRelation,
+            joinType,
+            nullAware,
+            rewriteFilterOnOuterJoinToInnerJoinDone
         );
     }
 
@@ -264,7 +343,10 @@ public class HashJoin implements LogicalPlan {
             newLhs,
             newRhs,
             joinCondition,
-            concreteRelation
+            concreteRelation,
+            joinType,
+            nullAware,
+            rewriteFilterOnOuterJoinToInnerJoinDone
         );
     }
 
@@ -280,7 +362,10 @@ public class HashJoin implements LogicalPlan {
         SymbolVisitors.intersection(joinCondition, lhs.outputs(), usedFromLeft::add);
         SymbolVisitors.intersection(joinCondition, rhs.outputs(), usedFromRight::add);
         FetchRewrite lhsFetchRewrite = lhs.rewriteToFetch(tableStats, usedFromLeft);
-        FetchRewrite rhsFetchRewrite = rhs.rewriteToFetch(tableStats, usedFromRight);
+        // The rows of the right side are not part of the output of SEMI and ANTI joins, there is nothing to fetch
+        FetchRewrite rhsFetchRewrite = joinType == JoinType.SEMI || joinType == JoinType.ANTI
+            ? null
+            : rhs.rewriteToFetch(tableStats, usedFromRight);
         if (lhsFetchRewrite == null && rhsFetchRewrite == null) {
             return null;
         }
@@ -293,7 +378,10 @@ public class HashJoin implements LogicalPlan {
                 lhsFetchRewrite == null ? lhs : lhsFetchRewrite.newPlan(),
                 rhsFetchRewrite == null ? rhs : rhsFetchRewrite.newPlan(),
                 joinCondition,
-                concreteRelation
+                concreteRelation,
+                joinType,
+                nullAware,
+                rewriteFilterOnOuterJoinToInnerJoinDone
             )
         );
     }
@@ -317,12 +405,18 @@ public class HashJoin implements LogicalPlan {
 
     @Override
     public long numExpectedRows() {
+        if (joinType == JoinType.SEMI || joinType == JoinType.ANTI) {
+            return lhs.numExpectedRows();
+        }
         // We don't have any cardinality estimates, so just take the bigger table
         return Math.max(lhs.numExpectedRows(), rhs.numExpectedRows());
     }
 
     @Override
     public long estimatedRowSize() {
+        if (joinType == JoinType.SEMI || joinType == JoinType.ANTI) {
+            return lhs.estimatedRowSize();
+        }
         return lhs.estimatedRowSize() + rhs.estimatedRowSize();
     }
 
@@ -333,8 +427,13 @@ public class HashJoin implements LogicalPlan {
 
     @Override
     public void print(PrintContext printContext) {
+        printContext.text("HashJoin[");
+        if (nullAware) {
+            printContext.text("NULL_AWARE_").text(joinType.toString()).text(" | ");
+        } else if (joinType != JoinType.INNER) {
+            printContext.text(joinType.toString()).text(" | ");
+        }
         printContext
-            .text("HashJoin[")
             .text(joinCondition.toString())
             .text("]")
             .nest(
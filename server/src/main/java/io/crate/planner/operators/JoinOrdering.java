@@ -22,15 +22,25 @@
 package io.crate.planner.operators;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
+import io.crate.analyze.relations.JoinPair;
 import io.crate.common.annotations.VisibleForTesting;
+import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.RelationName;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.planner.selectivity.SelectivityFunctions;
+import io.crate.statistics.TableStats;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.ToLongFunction;
 
 /**
  * Utility class which is used by the {@link JoinPlanBuilder} for the building of
@@ -38,22 +48,275 @@ import java.util.Set;
  */
 final class JoinOrdering {
 
+    /**
+     * Up to this number of relations all left-deep join trees are considered, above the join order is built greedily.
+     */
+    @VisibleForTesting
+    static final int MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH = 8;
+
     private JoinOrdering() {
     }
 
-    static Collection<RelationName> getOrderedRelationNames(Collection<RelationName> sourceRelations,
-                                                            Set<? extends Set<RelationName>> explicitJoinConditions,
-                                                            Set<? extends Set<RelationName>> implicitJoinConditions) {
+    /**
+     * Orders the relations by the estimated costs of the join tree if the number of rows of all relations are known
+     * and only inner or cross joins are involved. Otherwise the relations are ordered so that the join conditions
+     * can be applied as early as possible.
+     *
+     * @param numRows the estimated number of rows of a relation, -1 if unknown.
+     */
+    static Collection<RelationName> getOrderedRelationNames(List<RelationName> sourceRelations,
+                                                            Map<Set<RelationName>, JoinPair> explicitJoinConditions,
+                                                            Map<Set<RelationName>, Symbol> implicitJoinConditions,
+                                                            ToLongFunction<RelationName> numRows,
+                                                            TableStats tableStats) {
         if (sourceRelations.size() == 2) {
             return sourceRelations;
         }
         if (explicitJoinConditions.isEmpty() && implicitJoinConditions.isEmpty()) {
             return sourceRelations;
         }
+        if (onlyInnerOrCrossJoins(explicitJoinConditions.values())) {
+            Map<Set<RelationName>, Symbol> conditions = new HashMap<>(implicitJoinConditions);
+            for (var entry : explicitJoinConditions.entrySet()) {
+                Symbol condition = entry.getValue().condition();
+                if (condition != null) {
+                    conditions.put(entry.getKey(), condition);
+                }
+            }
+            List<RelationName> orderedByCost = orderByCost(sourceRelations, conditions, numRows, tableStats);
+            if (orderedByCost != null) {
+                return orderedByCost;
+            }
+        }
         return orderByJoinConditions(
             sourceRelations,
-            explicitJoinConditions,
-            implicitJoinConditions);
+            explicitJoinConditions.keySet(),
+            implicitJoinConditions.keySet());
+    }
+
+    private static boolean onlyInnerOrCrossJoins(Collection<JoinPair> joinPairs) {
+        for (JoinPair joinPair : joinPairs) {
+            JoinType joinType = joinPair.joinType();
+            if (joinType != JoinType.INNER && joinType != JoinType.CROSS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the order of the relations for a left-deep join tree with the lowest estimated costs.
+     * The costs of a tree are the sum of the estimated number of rows of all intermediate results.
+     * <p>
+     * Up to {@link #MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH} relations the best order is found using dynamic programming
+     * over all subsets of the relations. Above, the relation which results in the smallest intermediate result is
+     * added next, starting with the cheapest pair of relations.
+     * In both cases cross joins are only used if there is no relation left which has a join condition with the
+     * already joined relations.
+     * <p>
+     * The first relation of the resulting order is the smaller one of the first pair, to make it the build side of
+     * a hash join. On ties the original order is kept.
+     *
+     * @param conditions join conditions and filters by the relations they refer to.
+     * @return the ordered relations or null if the number of rows of a relation is unknown.
+     */
+    @Nullable
+    @VisibleForTesting
+    static List<RelationName> orderByCost(List<RelationName> relations,
+                                          Map<Set<RelationName>, Symbol> conditions,
+                                          ToLongFunction<RelationName> numRows,
+                                          TableStats tableStats) {
+        int numRelations = relations.size();
+        if (numRelations >= Integer.SIZE - 1) {
+            return null;
+        }
+        double[] rows = new double[numRelations];
+        Map<RelationName, Integer> relationIdx = new HashMap<>();
+        for (int i = 0; i < numRelations; i++) {
+            RelationName relation = relations.get(i);
+            long relationRows = numRows.applyAsLong(relation);
+            if (relationRows < 0) {
+                return null;
+            }
+            relationIdx.put(relation, i);
+            rows[i] = relationRows;
+        }
+        List<Predicate> predicates = new ArrayList<>(conditions.size());
+        for (var entry : conditions.entrySet()) {
+            Set<RelationName> conditionRelations = entry.getKey();
+            Symbol condition = entry.getValue();
+            int mask = 0;
+            for (RelationName relation : conditionRelations) {
+                Integer idx = relationIdx.get(relation);
+                if (idx == null) {
+                    return null;
+                }
+                mask |= 1 << idx;
+            }
+            final double selectivity;
+            if (conditionRelations.size() == 1) {
+                RelationName relation = conditionRelations.iterator().next();
+                selectivity = SelectivityFunctions.estimateSelectivity(tableStats.getStats(relation), condition, null);
+            } else {
+                selectivity = SelectivityFunctions.estimateJoinSelectivity(
+                    condition,
+                    tableStats,
+                    relation -> {
+                        Integer idx = relationIdx.get(relation);
+                        return idx == null ? -1 : rows[idx];
+                    }
+                );
+            }
+            predicates.add(new Predicate(mask, selectivity));
+        }
+        int[] order = numRelations <= MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH
+            ? exhaustiveOrder(rows, predicates)
+            : greedyOrder(rows, predicates);
+        List<RelationName> result = new ArrayList<>(numRelations);
+        for (int idx : order) {
+            result.add(relations.get(idx));
+        }
+        return result;
+    }
+
+    private static final class Predicate {
+
+        private final int relations;
+        private final double selectivity;
+
+        Predicate(int relations, double selectivity) {
+            this.relations = relations;
+            this.selectivity = selectivity;
+        }
+    }
+
+    /**
+     * Estimated number of rows of the join of the given relations; independent of the join order.
+     */
+    private static double cardinality(int relations, double[] rows, List<Predicate> predicates) {
+        double cardinality = 1.0;
+        for (int i = 0; i < rows.length; i++) {
+            if ((relations & (1 << i)) != 0) {
+                cardinality *= rows[i];
+            }
+        }
+        for (int i = 0; i < predicates.size(); i++) {
+            Predicate predicate = predicates.get(i);
+            if ((predicate.relations & relations) == predicate.relations) {
+                cardinality *= predicate.selectivity;
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return true if there is a join condition between the joined relations and the next relation
+     */
+    private static boolean isConnected(int joined, int next, List<Predicate> predicates) {
+        int relations = joined | (1 << next);
+        for (int i = 0; i < predicates.size(); i++) {
+            int predicateRelations = predicates.get(i).relations;
+            if ((predicateRelations & relations) == predicateRelations
+                && (predicateRelations & joined) != 0
+                && (predicateRelations & (1 << next)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] exhaustiveOrder(double[] rows, List<Predicate> predicates) {
+        int numRelations = rows.length;
+        int numSubsets = 1 << numRelations;
+        double[] costs = new double[numSubsets];
+        int[] crossJoins = new int[numSubsets];
+        int[] lastRelation = new int[numSubsets];
+        Arrays.fill(lastRelation, -1);
+        for (int i = 0; i < numRelations; i++) {
+            costs[1 << i] = 0.0;
+            lastRelation[1 << i] = i;
+        }
+        for (int subset = 1; subset < numSubsets; subset++) {
+            if (Integer.bitCount(subset) < 2) {
+                continue;
+            }
+            double cardinality = cardinality(subset, rows, predicates);
+            for (int next = 0; next < numRelations; next++) {
+                int nextBit = 1 << next;
+                if ((subset & nextBit) == 0) {
+                    continue;
+                }
+                int joined = subset & ~nextBit;
+                int cross = crossJoins[joined] + (isConnected(joined, next, predicates) ? 0 : 1);
+                double cost = costs[joined] + cardinality;
+                if (lastRelation[subset] == -1
+                    || cross < crossJoins[subset]
+                    || (cross == crossJoins[subset] && cost < costs[subset])) {
+                    costs[subset] = cost;
+                    crossJoins[subset] = cross;
+                    lastRelation[subset] = next;
+                }
+            }
+        }
+        int[] order = new int[numRelations];
+        int subset = numSubsets - 1;
+        for (int i = numRelations - 1; i >= 0; i--) {
+            int relation = lastRelation[subset];
+            order[i] = relation;
+            subset &= ~(1 << relation);
+        }
+        smallerRelationFirst(order, rows, predicates);
+        return order;
+    }
+
+    private static int[] greedyOrder(double[] rows, List<Predicate> predicates) {
+        int numRelations = rows.length;
+        int[] order = new int[numRelations];
+
+        int bestCross = Integer.MAX_VALUE;
+        double bestCardinality = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < numRelations; i++) {
+            for (int j = i + 1; j < numRelations; j++) {
+                int cross = isConnected(1 << i, j, predicates) ? 0 : 1;
+                double cardinality = cardinality((1 << i) | (1 << j), rows, predicates);
+                if (cross < bestCross || (cross == bestCross && cardinality < bestCardinality)) {
+                    bestCross = cross;
+                    bestCardinality = cardinality;
+                    order[0] = i;
+                    order[1] = j;
+                }
+            }
+        }
+        int joined = (1 << order[0]) | (1 << order[1]);
+        for (int pos = 2; pos < numRelations; pos++) {
+            bestCross = Integer.MAX_VALUE;
+            bestCardinality = Double.POSITIVE_INFINITY;
+            for (int next = 0; next < numRelations; next++) {
+                if ((joined & (1 << next)) != 0) {
+                    continue;
+                }
+                int cross = isConnected(joined, next, predicates) ? 0 : 1;
+                double cardinality = cardinality(joined | (1 << next), rows, predicates);
+                if (cross < bestCross || (cross == bestCross && cardinality < bestCardinality)) {
+                    bestCross = cross;
+                    bestCardinality = cardinality;
+                    order[pos] = next;
+                }
+            }
+            joined |= 1 << order[pos];
+        }
+        smallerRelationFirst(order, rows, predicates);
+        return order;
+    }
+
+    private static void smallerRelationFirst(int[] order, double[] rows, List<Predicate> predicates) {
+        double first = cardinality(1 << order[0], rows, predicates);
+        double second = cardinality(1 << order[1], rows, predicates);
+        if (second < first || (second == first && order[1] < order[0])) {
+            int tmp = order[0];
+            order[0] = order[1];
+            order[1] = tmp;
+        }
     }
 
     /**
@@ -30,11 +30,13 @@ import io.crate.expression.operator.AndOperator;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.RelationName;
 import io.crate.planner.node.dql.join.JoinType;
+import io.crate.statistics.TableStats;
 import org.elasticsearch.common.util.set.Sets;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -62,7 +64,8 @@ public class JoinPlanBuilder {
                                      Symbol whereClause,
                                      List<JoinPair> joinPairs,
                                      Function<AnalyzedRelation, LogicalPlan> plan,
-                                     boolean hashJoinEnabled) {
+                                     boolean hashJoinEnabled,
+                                     TableStats tableStats) {
         if (from.size() == 1) {
             return Filter.create(plan.apply(from.get(0)), whereClause);
         }
@@ -71,10 +74,17 @@ public class JoinPlanBuilder {
             JoinOperations.buildRelationsToJoinPairsMap(
                 JoinOperations.convertImplicitJoinConditionsToJoinPairs(joinPairs, queryParts));
 
+        // The plans of the relations are needed upfront for their row count estimates
+        Map<RelationName, LogicalPlan> plansByRelation = new HashMap<>();
+        for (AnalyzedRelation relation : from) {
+            plansByRelation.put(relation.relationName(), plan.apply(relation));
+        }
         Collection<RelationName> orderedRelationNames = JoinOrdering.getOrderedRelationNames(
             Lists2.map(from, AnalyzedRelation::relationName),
-            joinPairsByRelations.keySet(),
-            queryParts.keySet()
+            joinPairsByRelations,
+            queryParts,
+            relationName -> plansByRelation.get(relationName).numExpectedRows(),
+            tableStats
         );
 
         Iterator<RelationName> it = orderedRelationNames.iterator();
@@ -100,8 +110,8 @@ public class JoinPlanBuilder {
             .collect(Collectors.toMap(AnalyzedRelation::relationName, rel -> rel));
         AnalyzedRelation lhs = sources.get(lhsName);
         AnalyzedRelation rhs = sources.get(rhsName);
-        LogicalPlan lhsPlan = plan.apply(lhs);
-        LogicalPlan rhsPlan = plan.apply(rhs);
+        LogicalPlan lhsPlan = plansByRelation.get(lhsName);
+        LogicalPlan rhsPlan = plansByRelation.get(rhsName);
         Symbol query = removeParts(queryParts, lhsName, rhsName);
         LogicalPlan joinPlan = createJoinPlan(
             lhsPlan,
@@ -118,7 +128,7 @@ public class JoinPlanBuilder {
         while (it.hasNext()) {
             AnalyzedRelation nextRel = sources.get(it.next());
             joinPlan = joinWithNext(
-                plan,
+                plansByRelation,
                 joinPlan,
                 nextRel,
                 joinNames,
@@ -151,7 +161,8 @@ public class JoinPlanBuilder {
                 lhsPlan,
                 rhsPlan,
                 joinCondition,
-                rhs);
+                rhs,
+                joinType);
         } else {
             return new NestedLoopJoin(
                 lhsPlan,
@@ -174,7 +185,7 @@ public class JoinPlanBuilder {
         return pair.joinType().invert();
     }
 
-    private static LogicalPlan joinWithNext(Function<AnalyzedRelation, LogicalPlan> plan,
+    private static LogicalPlan joinWithNext(Map<RelationName, LogicalPlan> plansByRelation,
                                             LogicalPlan source,
                                             AnalyzedRelation nextRel,
                                             Set<RelationName> joinNames,
@@ -195,7 +206,7 @@ public class JoinPlanBuilder {
             condition = joinPair.condition();
         }
 
-        LogicalPlan nextPlan = plan.apply(nextRel);
+        LogicalPlan nextPlan = plansByRelation.get(nextName);
         Symbol query = AndOperator.join(
             Stream.of(
                 removeMatch(queryParts, joinNames, nextName),
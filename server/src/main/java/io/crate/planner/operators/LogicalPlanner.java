@@ -99,6 +99,7 @@ import io.crate.planner.optimizer.rule.MoveOrderBeneathRename;
 import io.crate.planner.optimizer.rule.MoveOrderBeneathUnion;
 import io.crate.planner.optimizer.rule.RemoveRedundantFetchOrEval;
 import io.crate.planner.optimizer.rule.OptimizeCollectWhereClauseAccess;
+import io.crate.planner.optimizer.rule.PushBuildKeysIntoHashJoinProbeSide;
 import io.crate.planner.optimizer.rule.RewriteFilterOnOuterJoinToInnerJoin;
 import io.crate.planner.optimizer.rule.RewriteGroupByKeysLimitToTopNDistinct;
 import io.crate.planner.optimizer.rule.RewriteToQueryThenFetch;
@@ -145,6 +146,7 @@ public class LogicalPlanner {
                 new MoveOrderBeneathFetchOrEval(),
                 new MoveOrderBeneathRename(),
                 new DeduplicateOrder(),
+                new PushBuildKeysIntoHashJoinProbeSide(),
                 new OptimizeCollectWhereClauseAccess(),
                 new RewriteGroupByKeysLimitToTopNDistinct()
             )
@@ -331,13 +333,28 @@ public class LogicalPlanner {
         @Override
         public LogicalPlan visitQueriedSelectRelation(QueriedSelectRelation relation, List<Symbol> outputs) {
             SplitPoints splitPoints = SplitPointsBuilder.create(relation);
-            LogicalPlan source = JoinPlanBuilder.buildJoinTree(
-                relation.from(),
+            boolean hashJoinEnabled = txnCtx.sessionContext().isHashJoinEnabled();
+            SemiJoinPlanBuilder semiJoins = SemiJoinPlanBuilder.create(
                 relation.where(),
+                hashJoinEnabled,
+                rel -> rel.accept(this, rel.outputs())
+            );
+            LogicalPlan joinTree = JoinPlanBuilder.buildJoinTree(
+                relation.from(),
+                semiJoins.remainingQuery(),
                 relation.joinPairs(),
                 rel -> {
                     if (relation.from().size() == 1) {
-                        return rel.accept(this, splitPoints.toCollect());
+                        if (semiJoins.keys().isEmpty()) {
+                            return rel.accept(this, splitPoints.toCollect());
+                        }
+                        // The keys of the semi joins are only used by the join, they are not part of `toCollect`
+                        var toCollect = new LinkedHashSet<Symbol>(splitPoints.toCollect());
+                        for (Symbol key : semiJoins.keys()) {
+                            RefVisitor.visitRefs(key, toCollect::add);
+                            FieldsVisitor.visitFields(key, toCollect::add);
+                        }
+                        return rel.accept(this, List.copyOf(toCollect));
                     } else {
                         // Need to pass along the `splitPoints.toCollect` symbols to the relation the symbols belong to
                         // We could get rid of `SplitPoints` and the logic here if we
@@ -371,8 +388,10 @@ public class LogicalPlanner {
                         return rel.accept(this, List.copyOf(toCollect));
                     }
                 },
-                txnCtx.sessionContext().isHashJoinEnabled()
+                hashJoinEnabled,
+                tableStats
             );
+            LogicalPlan source = semiJoins.build(joinTree);
             return MultiPhase.createIfNeeded(
                 Eval.create(
                     Limit.create(
@@ -407,8 +426,7 @@ public class LogicalPlanner {
                     ),
                     outputs
                 ),
-                relation,
-                subqueryPlanner
+                subqueryPlanner.planSubQueries(relation, semiJoins.subQueries())
             );
         }
     }
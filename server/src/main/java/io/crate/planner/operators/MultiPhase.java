@@ -50,7 +50,10 @@ public class MultiPhase extends ForwardingLogicalPlan {
     public static LogicalPlan createIfNeeded(LogicalPlan source,
                                              AnalyzedRelation relation,
                                              SubqueryPlanner subqueryPlanner) {
-        Map<LogicalPlan, SelectSymbol> subQueries = subqueryPlanner.planSubQueries(relation);
+        return createIfNeeded(source, subqueryPlanner.planSubQueries(relation));
+    }
+
+    public static LogicalPlan createIfNeeded(LogicalPlan source, Map<LogicalPlan, SelectSymbol> subQueries) {
         if (subQueries.isEmpty()) {
             return source;
         } else {
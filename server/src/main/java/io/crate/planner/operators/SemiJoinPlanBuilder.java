@@ -0,0 +1,202 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.operators;
+
+import static io.crate.expression.symbol.SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.crate.analyze.relations.AliasedAnalyzedRelation;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.Operator;
+import io.crate.expression.operator.any.AnyEqOperator;
+import io.crate.expression.predicate.NotPredicate;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.metadata.RelationName;
+import io.crate.planner.node.dql.join.JoinType;
+
+/**
+ * Plans the sub-query conditions of a where clause as {@link HashJoin}s:
+ *
+ * <pre>
+ *     x IN (SELECT y FROM t2)          -> SEMI join
+ *     NOT (x IN (SELECT y FROM t2))    -> null-aware ANTI join
+ * </pre>
+ *
+ * Without this the result of the sub-query is collected into an array up-front, which then has to fit into memory.
+ * <p>
+ * Only top-level conditions are rewritten, and only if the sub-query is expected to return more than
+ * {@link #MIN_SUB_QUERY_ROWS} rows. Smaller results are used as a terms query of the outer relation instead,
+ * which avoids loading the rows that can't match in the first place.
+ * </p>
+ */
+final class SemiJoinPlanBuilder {
+
+    /**
+     * The same limit as the one up to which the keys of the build side of a hash join are pushed into the
+     * probe side as a terms query, see {@link io.crate.planner.optimizer.rule.PushBuildKeysIntoHashJoinProbeSide}.
+     */
+    static final long MIN_SUB_QUERY_ROWS = 10_000L;
+
+    private final Symbol remainingQuery;
+    private final List<SemiJoin> semiJoins;
+
+    private SemiJoinPlanBuilder(Symbol remainingQuery, List<SemiJoin> semiJoins) {
+        this.remainingQuery = remainingQuery;
+        this.semiJoins = semiJoins;
+    }
+
+    /**
+     * @param plan creates the plan of a sub-query relation, used to get the expected number of rows
+     */
+    static SemiJoinPlanBuilder create(Symbol query,
+                                      boolean hashJoinEnabled,
+                                      java.util.function.Function<AnalyzedRelation, LogicalPlan> plan) {
+        if (hashJoinEnabled == false) {
+            return new SemiJoinPlanBuilder(query, List.of());
+        }
+        ArrayList<Symbol> remainingParts = new ArrayList<>();
+        ArrayList<SemiJoin> semiJoins = new ArrayList<>();
+        for (Symbol part : AndOperator.split(query)) {
+            SemiJoin semiJoin = tryCreate(part, semiJoins.size(), plan);
+            if (semiJoin == null) {
+                remainingParts.add(part);
+            } else {
+                semiJoins.add(semiJoin);
+            }
+        }
+        if (semiJoins.isEmpty()) {
+            return new SemiJoinPlanBuilder(query, List.of());
+        }
+        return new SemiJoinPlanBuilder(AndOperator.join(remainingParts), semiJoins);
+    }
+
+    @Nullable
+    private static SemiJoin tryCreate(Symbol part,
+                                      int position,
+                                      java.util.function.Function<AnalyzedRelation, LogicalPlan> plan) {
+        Symbol condition = part;
+        boolean anti = false;
+        if (condition instanceof Function not && not.name().equals(NotPredicate.NAME)) {
+            condition = not.arguments().get(0);
+            anti = true;
+        }
+        if (!(condition instanceof Function anyEq)
+            || !anyEq.name().equals(AnyEqOperator.NAME)
+            || !(anyEq.arguments().get(1) instanceof SelectSymbol subQuery)
+            || subQuery.getResultType() != SINGLE_COLUMN_MULTIPLE_VALUES) {
+            return null;
+        }
+        Symbol key = anyEq.arguments().get(0);
+        if (SymbolVisitors.any(s -> s instanceof SelectSymbol, key)) {
+            return null;
+        }
+        // The alias makes sure the columns of the sub-query can be told apart from those of the outer relation,
+        // also if both select from the same table
+        var relation = new AliasedAnalyzedRelation(
+            subQuery.relation(),
+            new RelationName(null, "_subquery" + position)
+        );
+        Symbol subQueryKey = relation.outputs().get(0);
+        if (!subQueryKey.valueType().equals(key.valueType())) {
+            return null;
+        }
+        LogicalPlan subQueryPlan = plan.apply(relation);
+        if (subQueryPlan.numExpectedRows() <= MIN_SUB_QUERY_ROWS) {
+            // Also the case if the number of rows is unknown (-1)
+            return null;
+        }
+        Function joinCondition = new Function(EqOperator.SIGNATURE, List.of(key, subQueryKey), Operator.RETURN_TYPE);
+        return new SemiJoin(subQuery, relation, subQueryPlan, joinCondition, anti);
+    }
+
+    /**
+     * @return the query without the conditions that are planned as joins
+     */
+    Symbol remainingQuery() {
+        return remainingQuery;
+    }
+
+    /**
+     * @return the sub-queries that are planned as joins and must not be executed up-front
+     */
+    Collection<SelectSymbol> subQueries() {
+        ArrayList<SelectSymbol> subQueries = new ArrayList<>(semiJoins.size());
+        for (SemiJoin semiJoin : semiJoins) {
+            subQueries.add(semiJoin.subQuery);
+        }
+        return subQueries;
+    }
+
+    /**
+     * @return the keys of the outer relation, they must be part of the outputs of the source passed to {@link #build}
+     */
+    List<Symbol> keys() {
+        ArrayList<Symbol> keys = new ArrayList<>(semiJoins.size());
+        for (SemiJoin semiJoin : semiJoins) {
+            keys.add(semiJoin.joinCondition.arguments().get(0));
+        }
+        return keys;
+    }
+
+    LogicalPlan build(LogicalPlan source) {
+        LogicalPlan plan = source;
+        for (SemiJoin semiJoin : semiJoins) {
+            plan = new HashJoin(
+                plan,
+                semiJoin.plan,
+                semiJoin.joinCondition,
+                semiJoin.relation,
+                semiJoin.anti ? JoinType.ANTI : JoinType.SEMI,
+                semiJoin.anti,
+                false
+            );
+        }
+        return plan;
+    }
+
+    private static final class SemiJoin {
+
+        private final SelectSymbol subQuery;
+        private final AnalyzedRelation relation;
+        private final LogicalPlan plan;
+        private final Function joinCondition;
+        private final boolean anti;
+
+        SemiJoin(SelectSymbol subQuery, AnalyzedRelation relation, LogicalPlan plan, Function joinCondition, boolean anti) {
+            this.subQuery = subQuery;
+            this.relation = relation;
+            this.plan = plan;
+            this.joinCondition = joinCondition;
+            this.anti = anti;
+        }
+    }
+}
@@ -23,6 +23,8 @@ package io.crate.planner.operators;
 
 import io.crate.data.Row;
 import io.crate.exceptions.ConversionException;
+import io.crate.expression.operator.any.AnyEqOperator;
+import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.FunctionCopyVisitor;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.ParameterSymbol;
@@ -60,6 +62,18 @@ public class SubQueryAndParamBinder extends FunctionCopyVisitor<Void>
         return convert(parameterSymbol, params);
     }
 
+    @Override
+    public Symbol visitFunction(Function func, Void context) {
+        // A sub-query with a limited number of values is a redundant filter, it is dropped if the limit is exceeded
+        if (func.name().equals(AnyEqOperator.NAME)
+            && func.arguments().get(1) instanceof SelectSymbol selectSymbol
+            && selectSymbol.maxValues() >= 0
+            && subQueryResults.getSafe(selectSymbol) == null) {
+            return Literal.BOOLEAN_TRUE;
+        }
+        return super.visitFunction(func, context);
+    }
+
     @Override
     public Symbol visitSelectSymbol(SelectSymbol selectSymbol, Void context) {
         Object value = subQueryResults.getSafe(selectSymbol);
@@ -52,11 +52,15 @@ import io.crate.expression.symbol.WindowFunction;
 import io.crate.planner.ExecutionPlan;
 import io.crate.planner.Merge;
 import io.crate.planner.PlannerContext;
+import io.crate.planner.PositionalOrderBy;
 import io.crate.planner.ResultDescription;
+import io.crate.planner.consumer.OrderByPositionVisitor;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.distribution.DistributionType;
 import io.crate.statistics.TableStats;
 
+import org.elasticsearch.Version;
+
 public class WindowAgg extends ForwardingLogicalPlan {
 
     final WindowDefinition windowDefinition;
@@ -149,13 +153,6 @@ public class WindowAgg extends ForwardingLogicalPlan {
         Function<Symbol, Symbol> toInputCols = binder.andThen(s -> InputColumns.create(s, sourceSymbols));
 
         List<WindowFunction> boundWindowFunctions = (List<WindowFunction>)(List) Lists2.map(windowFunctions, toInputCols);
-        List<Projection> projections = new ArrayList<>();
-        WindowAggProjection windowAggProjection = new WindowAggProjection(
-            windowDefinition.map(toInputCols),
-            boundWindowFunctions,
-            InputColumns.create(this.standalone, sourceSymbols)
-        );
-        projections.add(windowAggProjection);
         ExecutionPlan sourcePlan = source.build(
             plannerContext,
             planHints,
@@ -169,19 +166,36 @@ public class WindowAgg extends ForwardingLogicalPlan {
         );
         ResultDescription resultDescription = sourcePlan.resultDescription();
         boolean executesOnHandler = executesOnHandler(plannerContext.handlerNode(), resultDescription.nodeIds());
-        boolean nonDistExecution = windowDefinition.partitions().isEmpty()
+        int[] distributeByColumns = distributeByColumns(
+            windowDefinition.partitions(),
+            source.outputs(),
+            plannerContext.clusterState().nodes().getMinNodeVersion()
+        );
+        boolean nonDistExecution = distributeByColumns == null
                                    || resultDescription.hasRemainingLimitOrOffset()
                                    || executesOnHandler;
+        // The distributed execution merges the rows of the upstreams unordered
+        boolean sourceSorted = nonDistExecution && isSortedBy(
+            resultDescription.orderBy(),
+            createOrderByInclPartitionBy(windowDefinition),
+            source.outputs()
+        );
+        List<Projection> projections = new ArrayList<>();
+        WindowAggProjection windowAggProjection = new WindowAggProjection(
+            windowDefinition.map(toInputCols),
+            boundWindowFunctions,
+            InputColumns.create(this.standalone, sourceSymbols),
+            sourceSorted
+        );
+        projections.add(windowAggProjection);
         if (nonDistExecution) {
             sourcePlan = Merge.ensureOnHandler(sourcePlan, plannerContext);
             for (Projection projection : projections) {
                 sourcePlan.addProjection(projection);
             }
         } else {
-            sourcePlan.setDistributionInfo(new DistributionInfo(
-                DistributionType.MODULO,
-                source.outputs().indexOf(windowDefinition.partitions().iterator().next()))
-            );
+            // Each node computes the window functions for the partitions whose keys hash to it
+            sourcePlan.setDistributionInfo(new DistributionInfo(DistributionType.MODULO, distributeByColumns));
             MergePhase distWindowAgg = new MergePhase(
                 UUID.randomUUID(),
                 plannerContext.nextExecutionPhaseId(),
@@ -207,6 +221,53 @@ public class WindowAgg extends ForwardingLogicalPlan {
         return sourcePlan;
     }
 
+    /**
+     * @return the positions of the PARTITION BY keys within the source outputs, or null if the rows can't be
+     *         distributed by them. Nodes before 4.7 only support distributing by a single column.
+     */
+    @Nullable
+    @VisibleForTesting
+    static int[] distributeByColumns(List<Symbol> partitions, List<Symbol> sourceOutputs, Version minNodeVersion) {
+        if (partitions.isEmpty()) {
+            return null;
+        }
+        int numColumns = minNodeVersion.onOrAfter(Version.V_4_7_0) ? partitions.size() : 1;
+        int[] columns = new int[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            columns[i] = sourceOutputs.indexOf(partitions.get(i));
+            if (columns[i] < 0) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * @return true if rows sorted by {@code sourceOrder} are also sorted by {@code requiredOrder}
+     */
+    @VisibleForTesting
+    static boolean isSortedBy(@Nullable PositionalOrderBy sourceOrder,
+                              @Nullable OrderBy requiredOrder,
+                              List<Symbol> sourceOutputs) {
+        if (sourceOrder == null || requiredOrder == null) {
+            return false;
+        }
+        int[] positions = OrderByPositionVisitor.orderByPositionsOrNull(requiredOrder.orderBySymbols(), sourceOutputs);
+        if (positions == null || positions.length > sourceOrder.indices().length) {
+            return false;
+        }
+        boolean[] reverseFlags = requiredOrder.reverseFlags();
+        boolean[] nullsFirst = requiredOrder.nullsFirst();
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] != sourceOrder.indices()[i]
+                || reverseFlags[i] != sourceOrder.reverseFlags()[i]
+                || nullsFirst[i] != sourceOrder.nullsFirst()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Nullable
     static OrderBy createOrderByInclPartitionBy(WindowDefinition windowDefinition) {
         var orderBy = windowDefinition.orderBy();
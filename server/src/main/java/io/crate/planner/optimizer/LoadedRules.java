@@ -51,6 +51,7 @@ import io.crate.planner.optimizer.rule.MoveOrderBeneathFetchOrEval;
 import io.crate.planner.optimizer.rule.MoveOrderBeneathNestedLoop;
 import io.crate.planner.optimizer.rule.MoveOrderBeneathRename;
 import io.crate.planner.optimizer.rule.MoveOrderBeneathUnion;
+import io.crate.planner.optimizer.rule.PushBuildKeysIntoHashJoinProbeSide;
 import io.crate.planner.optimizer.rule.RemoveRedundantFetchOrEval;
 import io.crate.planner.optimizer.rule.OptimizeCollectWhereClauseAccess;
 import io.crate.planner.optimizer.rule.RewriteFilterOnOuterJoinToInnerJoin;
@@ -84,6 +85,7 @@ public class LoadedRules implements SessionSettingProvider {
         MoveOrderBeneathFetchOrEval.class,
         MoveOrderBeneathRename.class,
         DeduplicateOrder.class,
+        PushBuildKeysIntoHashJoinProbeSide.class,
         OptimizeCollectWhereClauseAccess.class,
         RewriteGroupByKeysLimitToTopNDistinct.class,
         RewriteInsertFromSubQueryToInsertFromValues.class,
@@ -0,0 +1,183 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.optimizer.rule;
+
+import static io.crate.planner.optimizer.matcher.Pattern.typeOf;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.any.AnyEqOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.Reference;
+import io.crate.metadata.TransactionContext;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.planner.operators.Collect;
+import io.crate.planner.operators.HashJoin;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.operators.MultiPhase;
+import io.crate.planner.operators.RootRelationBoundary;
+import io.crate.planner.optimizer.Rule;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.planner.optimizer.matcher.Pattern;
+import io.crate.planner.selectivity.SelectivityFunctions;
+import io.crate.statistics.Stats;
+import io.crate.statistics.TableStats;
+import io.crate.types.ArrayType;
+
+/**
+ * Filters the probe side of a {@link HashJoin} by the join keys of the build side:
+ *
+ * <pre>
+ *     HashJoin[(x = y)]                 HashJoin[(x = y)]
+ *       ├ Collect[t1 | 10 rows]           ├ Collect[t1 | 10 rows]
+ *       └ Collect[t2 | 1M rows]    -->    └ MultiPhase
+ *                                           └ Collect[t2 | (y = ANY(keys))]
+ *                                           └ Collect[t1 | [x]]              // keys
+ * </pre>
+ *
+ * The keys of the (small) build side are collected before the join runs and the probe side uses them as a
+ * terms query, so that probe rows which cannot match are never loaded, nor sent to the join nodes.
+ *
+ * <p>
+ * This is only applied if both sides are known to be collected from tables and the build side is expected
+ * to return at most {@link #MAX_BUILD_ROWS} rows. The build side is collected twice.
+ * If the build side returns more than {@link #MAX_BUILD_ROWS} keys at runtime, because the statistics are outdated,
+ * the filter is dropped; see {@link SelectSymbol#maxValues()}.
+ * </p>
+ */
+public final class PushBuildKeysIntoHashJoinProbeSide implements Rule<HashJoin> {
+
+    static final int MAX_BUILD_ROWS = 10_000;
+
+    private final Pattern<HashJoin> pattern;
+
+    public PushBuildKeysIntoHashJoinProbeSide() {
+        this.pattern = typeOf(HashJoin.class)
+            .with(join -> join.joinType() == JoinType.INNER
+                          && join.lhs() instanceof Collect
+                          && join.rhs() instanceof Collect);
+    }
+
+    @Override
+    public Pattern<HashJoin> pattern() {
+        return pattern;
+    }
+
+    @Override
+    public LogicalPlan apply(HashJoin join,
+                             Captures captures,
+                             TableStats tableStats,
+                             TransactionContext txnCtx,
+                             NodeContext nodeCtx) {
+        Collect lhs = (Collect) join.lhs();
+        Collect rhs = (Collect) join.rhs();
+        // Same choice as in HashJoin.build: The smaller side is loaded into the hash table
+        boolean rhsIsBuildSide = lhs.numExpectedRows() > rhs.numExpectedRows();
+        Collect build = rhsIsBuildSide ? rhs : lhs;
+        Collect probe = rhsIsBuildSide ? lhs : rhs;
+        if (build.numExpectedRows() < 0
+            || build.numExpectedRows() > MAX_BUILD_ROWS
+            || probe.numExpectedRows() <= build.numExpectedRows()
+            || !(probe.relation() instanceof DocTableRelation)
+            || SymbolVisitors.any(s -> s instanceof SelectSymbol, build.where().queryOrFallback())) {
+            return null;
+        }
+        Symbol[] keys = findKeys(join.joinCondition(), build, probe);
+        if (keys == null) {
+            return null;
+        }
+        Symbol buildKey = keys[0];
+        Symbol probeKey = keys[1];
+
+        SelectSymbol buildKeys = new SelectSymbol(
+            build.relation(),
+            new ArrayType<>(buildKey.valueType()),
+            SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES,
+            MAX_BUILD_ROWS
+        );
+        List<Symbol> arguments = List.of(probeKey, buildKeys);
+        FunctionImplementation anyEq = nodeCtx.functions().get(
+            null,
+            AnyEqOperator.NAME,
+            arguments,
+            txnCtx.sessionSettings().searchPath()
+        );
+        Function filter = new Function(
+            anyEq.signature(),
+            arguments,
+            anyEq.boundSignature().getReturnType().createType()
+        );
+        Stats stats = tableStats.getStats(probe.relation().tableInfo().ident());
+        WhereClause newWhere = probe.where().add(filter);
+        Collect filteredProbe = new Collect(
+            probe.relation(),
+            probe.outputs(),
+            newWhere,
+            SelectivityFunctions.estimateNumRows(stats, newWhere.queryOrFallback(), null),
+            probe.estimatedRowSize()
+        );
+        LogicalPlan buildKeysPlan = new RootRelationBoundary(build.pruneOutputsExcept(tableStats, List.of(buildKey)));
+        LogicalPlan newProbe = MultiPhase.createIfNeeded(filteredProbe, Map.of(buildKeysPlan, buildKeys));
+        return join.replaceSources(rhsIsBuildSide ? List.of(newProbe, rhs) : List.of(lhs, newProbe));
+    }
+
+    /**
+     * @return the first `buildKey = probeKey` pair of the join condition where the probe key is a column
+     *         of the probe side; or null if there is none.
+     */
+    @Nullable
+    private static Symbol[] findKeys(Symbol joinCondition, Collect build, Collect probe) {
+        for (Symbol part : AndOperator.split(joinCondition)) {
+            if (!(part instanceof Function eq) || !eq.name().equals(EqOperator.NAME)) {
+                continue;
+            }
+            Symbol left = eq.arguments().get(0);
+            Symbol right = eq.arguments().get(1);
+            if (isKeyPair(left, right, build, probe)) {
+                return new Symbol[] {left, right};
+            }
+            if (isKeyPair(right, left, build, probe)) {
+                return new Symbol[] {right, left};
+            }
+        }
+        return null;
+    }
+
+    private static boolean isKeyPair(Symbol buildKey, Symbol probeKey, Collect build, Collect probe) {
+        return probeKey instanceof Reference
+            && probe.outputs().contains(probeKey)
+            && build.outputs().contains(buildKey)
+            && buildKey.valueType().equals(probeKey.valueType());
+    }
+}
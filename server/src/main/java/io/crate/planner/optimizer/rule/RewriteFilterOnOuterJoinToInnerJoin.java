@@ -34,6 +34,7 @@ import io.crate.metadata.RelationName;
 import io.crate.metadata.TransactionContext;
 import io.crate.planner.node.dql.join.JoinType;
 import io.crate.planner.operators.Filter;
+import io.crate.planner.operators.HashJoin;
 import io.crate.planner.operators.LogicalPlan;
 import io.crate.planner.operators.NestedLoopJoin;
 import io.crate.planner.optimizer.Rule;
@@ -66,6 +67,8 @@ import static io.crate.planner.optimizer.rule.FilterOnJoinsUtil.getNewSource;
  *     LHS  RHS
  * </pre>
  *
+ * (or the same with a {@link HashJoin})
+ *
  * into
  *
  * <pre>
@@ -100,17 +103,27 @@ import static io.crate.planner.optimizer.rule.FilterOnJoinsUtil.getNewSource;
  */
 public final class RewriteFilterOnOuterJoinToInnerJoin implements Rule<Filter> {
 
-    private final Capture<NestedLoopJoin> nlCapture;
+    private final Capture<LogicalPlan> joinCapture;
     private final Pattern<Filter> pattern;
 
     public RewriteFilterOnOuterJoinToInnerJoin() {
-        this.nlCapture = new Capture<>();
+        this.joinCapture = new Capture<>();
         this.pattern = typeOf(Filter.class)
-                .with(source(), typeOf(NestedLoopJoin.class).capturedAs(nlCapture)
-                    .with(nl -> nl.joinType().isOuter() && !nl.isRewriteFilterOnOuterJoinToInnerJoinDone())
+                .with(source(), typeOf(LogicalPlan.class).capturedAs(joinCapture)
+                    .with(RewriteFilterOnOuterJoinToInnerJoin::isOuterJoinToRewrite)
                 );
     }
 
+    private static boolean isOuterJoinToRewrite(LogicalPlan plan) {
+        if (plan instanceof NestedLoopJoin nl) {
+            return nl.joinType().isOuter() && !nl.isRewriteFilterOnOuterJoinToInnerJoinDone();
+        }
+        if (plan instanceof HashJoin hashJoin) {
+            return hashJoin.joinType().isOuter() && !hashJoin.isRewriteFilterOnOuterJoinToInnerJoinDone();
+        }
+        return false;
+    }
+
     @Override
     public Pattern<Filter> pattern() {
         return pattern;
@@ -123,14 +136,17 @@ public final class RewriteFilterOnOuterJoinToInnerJoin implements Rule<Filter> {
                              TransactionContext txnCtx,
                              NodeContext nodeCtx) {
         EvaluatingNormalizer normalizer = EvaluatingNormalizer.functionOnlyNormalizer(nodeCtx);
-        NestedLoopJoin nl = captures.get(nlCapture);
+        LogicalPlan join = captures.get(joinCapture);
+        JoinType joinType = join instanceof HashJoin hashJoin
+            ? hashJoin.joinType()
+            : ((NestedLoopJoin) join).joinType();
         Symbol query = filter.query();
         Map<Set<RelationName>, Symbol> splitQueries = QuerySplitter.split(query);
         if (splitQueries.size() == 1 && splitQueries.keySet().iterator().next().size() > 1) {
             return null;
         }
-        LogicalPlan lhs = nl.sources().get(0);
-        LogicalPlan rhs = nl.sources().get(1);
+        LogicalPlan lhs = join.sources().get(0);
+        LogicalPlan rhs = join.sources().get(1);
         Set<RelationName> leftName = lhs.getRelationNames();
         Set<RelationName> rightName = rhs.getRelationNames();
 
@@ -140,7 +156,7 @@ public final class RewriteFilterOnOuterJoinToInnerJoin implements Rule<Filter> {
         final LogicalPlan newLhs;
         final LogicalPlan newRhs;
         final boolean newJoinIsInnerJoin;
-        switch (nl.joinType()) {
+        switch (joinType) {
             case LEFT:
                 /* LEFT OUTER JOIN -> NULL rows are generated for the RHS if the join-condition doesn't match
                  *
@@ -244,22 +260,36 @@ public final class RewriteFilterOnOuterJoinToInnerJoin implements Rule<Filter> {
                 break;
             default:
                 throw new UnsupportedOperationException(
-                    "The Rule to rewrite filter+outer-joins to inner joins must not be run on joins of type=" + nl.joinType());
+                    "The Rule to rewrite filter+outer-joins to inner joins must not be run on joins of type=" + joinType);
         }
         if (newLhs == lhs && newRhs == rhs) {
             return null;
         }
-        NestedLoopJoin newJoin = new NestedLoopJoin(
-            newLhs,
-            newRhs,
-            newJoinIsInnerJoin ? JoinType.INNER : nl.joinType(),
-            nl.joinCondition(),
-            nl.isFiltered(),
-            nl.topMostLeftRelation(),
-            nl.orderByWasPushedDown(),
-            true
-        );
-        assert newJoin.outputs().equals(nl.outputs()) : "Outputs after rewrite must be the same as before";
+        JoinType newJoinType = newJoinIsInnerJoin ? JoinType.INNER : joinType;
+        LogicalPlan newJoin;
+        if (join instanceof HashJoin hashJoin) {
+            newJoin = new HashJoin(
+                newLhs,
+                newRhs,
+                hashJoin.joinCondition(),
+                hashJoin.concreteRelation(),
+                newJoinType,
+                true
+            );
+        } else {
+            NestedLoopJoin nl = (NestedLoopJoin) join;
+            newJoin = new NestedLoopJoin(
+                newLhs,
+                newRhs,
+                newJoinType,
+                nl.joinCondition(),
+                nl.isFiltered(),
+                nl.topMostLeftRelation(),
+                nl.orderByWasPushedDown(),
+                true
+            );
+        }
+        assert newJoin.outputs().equals(join.outputs()) : "Outputs after rewrite must be the same as before";
         return splitQueries.isEmpty() ? newJoin : new Filter(newJoin, AndOperator.join(splitQueries.values()));
     }
 
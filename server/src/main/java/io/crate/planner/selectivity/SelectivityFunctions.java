@@ -24,7 +24,13 @@ package io.crate.planner.selectivity;
 import io.crate.data.Row;
 import io.crate.expression.operator.AndOperator;
 import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LikeOperators;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
 import io.crate.expression.operator.OrOperator;
+import io.crate.expression.operator.any.AnyEqOperator;
 import io.crate.expression.predicate.IsNullPredicate;
 import io.crate.expression.predicate.NotPredicate;
 import io.crate.expression.symbol.Function;
@@ -35,12 +41,19 @@ import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.SymbolVisitor;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Reference;
+import io.crate.metadata.RelationName;
 import io.crate.statistics.ColumnStats;
 import io.crate.statistics.Stats;
+import io.crate.statistics.TableStats;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Used to estimate the number of rows returned after applying a given query.
@@ -58,8 +71,27 @@ public class SelectivityFunctions {
     private static final double MAGIC_SEL = 0.333;
 
     public static long estimateNumRows(Stats stats, Symbol query, @Nullable Row params) {
+        return (long) (stats.numDocs() * estimateSelectivity(stats, query, params));
+    }
+
+    public static double estimateSelectivity(Stats stats, Symbol query, @Nullable Row params) {
         var estimator = new SelectivityEstimator(stats, params);
-        return (long) (stats.numDocs() * query.accept(estimator, null));
+        return query.accept(estimator, null);
+    }
+
+    /**
+     * Estimates the fraction of the cross product of two or more relations that matches the given join condition.
+     *
+     * For `a.x = b.y` this is `1 / max(distinct(a.x), distinct(b.y))`, assuming that the values of the side
+     * with fewer distinct values are contained in the other side.
+     *
+     * @param numRows the estimated number of rows of a relation. Used to cap the number of distinct values, or as
+     *                number of distinct values if there are no column statistics. A negative number means unknown.
+     */
+    public static double estimateJoinSelectivity(Symbol joinCondition,
+                                                 TableStats tableStats,
+                                                 ToDoubleFunction<RelationName> numRows) {
+        return joinCondition.accept(new JoinSelectivityEstimator(tableStats, numRows), null);
     }
 
     static class SelectivityEstimator extends SymbolVisitor<Void, Double> {
@@ -94,13 +126,8 @@ public class SelectivityFunctions {
         @Override
         public Double visitFunction(Function function, Void context) {
             switch (function.name()) {
-                case AndOperator.NAME: {
-                    double selectivity = 1.0;
-                    for (Symbol argument : function.arguments()) {
-                        selectivity *= argument.accept(this, context);
-                    }
-                    return selectivity;
-                }
+                case AndOperator.NAME:
+                    return andSelectivity(function, context);
 
                 case OrOperator.NAME: {
                     double sel1 = 1.0;
@@ -125,11 +152,392 @@ public class SelectivityFunctions {
                     return isNullSelectivity(arguments.get(0), stats);
                 }
 
+                case LtOperator.NAME:
+                case LteOperator.NAME:
+                case GtOperator.NAME:
+                case GteOperator.NAME: {
+                    RangeComparison comparison = RangeComparison.of(function, params);
+                    return comparison == null ? MAGIC_SEL : comparison.selectivity(stats);
+                }
+
+                case LikeOperators.OP_LIKE: {
+                    List<Symbol> arguments = function.arguments();
+                    return likeSelectivity(arguments.get(0), arguments.get(1), stats, params);
+                }
+
                 default:
+                    if (function.name().equals(AnyEqOperator.NAME)) {
+                        List<Symbol> arguments = function.arguments();
+                        return anyEqSelectivity(arguments.get(0), arguments.get(1), stats, params);
+                    }
                     return MAGIC_SEL;
             }
         }
 
+        /**
+         * Multiplies the selectivities of the arguments, except for a lower and an upper bound on the same column
+         * (e.g. `x >= 10 AND x <= 20`, which is what `BETWEEN` is analyzed to). These are not independent,
+         * so they're combined into a single range selectivity instead.
+         */
+        private double andSelectivity(Function and, Void context) {
+            double selectivity = 1.0;
+            HashMap<ColumnIdent, Double> lowerBounds = new HashMap<>();
+            HashMap<ColumnIdent, Double> upperBounds = new HashMap<>();
+            for (Symbol argument : AndOperator.split(and)) {
+                RangeComparison comparison = argument instanceof Function
+                    ? RangeComparison.of((Function) argument, params)
+                    : null;
+                if (comparison == null || stats.statsByColumn().get(comparison.column) == null) {
+                    selectivity *= argument.accept(this, context);
+                } else {
+                    var bounds = comparison.lessThan ? upperBounds : lowerBounds;
+                    bounds.merge(comparison.column, comparison.selectivity(stats), Math::min);
+                }
+            }
+            for (var entry : lowerBounds.entrySet()) {
+                ColumnIdent column = entry.getKey();
+                double lowerSel = entry.getValue();
+                Double upperSel = upperBounds.remove(column);
+                if (upperSel == null) {
+                    selectivity *= lowerSel;
+                } else {
+                    // P(lo AND hi) = P(lo) + P(hi) - P(lo OR hi); (lo OR hi) matches all non-null values
+                    double nullFraction = stats.statsByColumn().get(column).nullFraction();
+                    selectivity *= Math.max(0.0, lowerSel + upperSel - (1.0 - nullFraction));
+                }
+            }
+            for (double upperSel : upperBounds.values()) {
+                selectivity *= upperSel;
+            }
+            return selectivity;
+        }
+    }
+
+    /**
+     * A `column <op> value` comparison with op being one of `<`, `<=`, `>` or `>=`.
+     * The comparison is normalized so that the column is always on the left side.
+     */
+    private static class RangeComparison {
+
+        private final ColumnIdent column;
+        private final boolean lessThan;
+        private final boolean inclusive;
+        @Nullable
+        private final Object value;
+
+        private RangeComparison(ColumnIdent column, boolean lessThan, boolean inclusive, @Nullable Object value) {
+            this.column = column;
+            this.lessThan = lessThan;
+            this.inclusive = inclusive;
+            this.value = value;
+        }
+
+        @Nullable
+        static RangeComparison of(Function function, @Nullable Row params) {
+            boolean lessThan;
+            boolean inclusive;
+            switch (function.name()) {
+                case LtOperator.NAME:
+                    lessThan = true;
+                    inclusive = false;
+                    break;
+                case LteOperator.NAME:
+                    lessThan = true;
+                    inclusive = true;
+                    break;
+                case GtOperator.NAME:
+                    lessThan = false;
+                    inclusive = false;
+                    break;
+                case GteOperator.NAME:
+                    lessThan = false;
+                    inclusive = true;
+                    break;
+                default:
+                    return null;
+            }
+            List<Symbol> arguments = function.arguments();
+            Symbol columnArg = arguments.get(0);
+            Symbol valueArg = arguments.get(1);
+            ColumnIdent column = getColumn(columnArg);
+            if (column == null) {
+                // `10 < x` is the same as `x > 10`
+                column = getColumn(valueArg);
+                valueArg = columnArg;
+                lessThan = !lessThan;
+            }
+            if (column == null || !isValue(valueArg, params)) {
+                return null;
+            }
+            return new RangeComparison(column, lessThan, inclusive, getValue(valueArg, params));
+        }
+
+        double selectivity(Stats stats) {
+            ColumnStats<?> columnStats = stats.statsByColumn().get(column);
+            if (columnStats == null) {
+                return MAGIC_SEL;
+            }
+            return rangeSelectivity(columnStats, lessThan, inclusive, value);
+        }
+    }
+
+    /**
+     * Estimates the selectivity of `column < value` (or `>`, `<=`, `>=`) using the most common values for the values
+     * they cover and the histogram for the remaining values.
+     */
+    private static <T> double rangeSelectivity(ColumnStats<T> columnStats,
+                                               boolean lessThan,
+                                               boolean inclusive,
+                                               @Nullable Object rawValue) {
+        T value = castOrNull(columnStats.type(), rawValue);
+        if (value == null) {
+            // x < null -> is always null
+            return rawValue == null ? 0.0 : MAGIC_SEL;
+        }
+        DataType<T> type = columnStats.type();
+        var mcv = columnStats.mostCommonValues();
+        Object[] mcvValues = mcv.values();
+        double[] mcvFrequencies = mcv.frequencies();
+        double mcvSelectivity = 0.0;
+        double sumMcvFrequencies = 0.0;
+        for (int i = 0; i < mcvValues.length; i++) {
+            @SuppressWarnings("unchecked")
+            int cmp = type.compare((T) mcvValues[i], value);
+            if ((lessThan ? cmp < 0 : cmp > 0) || (inclusive && cmp == 0)) {
+                mcvSelectivity += mcvFrequencies[i];
+            }
+            sumMcvFrequencies += mcvFrequencies[i];
+        }
+        double histogramFraction = histogramFractionBelow(columnStats, value);
+        if (histogramFraction < 0) {
+            histogramFraction = 0.5;
+        } else if (!lessThan) {
+            histogramFraction = 1.0 - histogramFraction;
+        }
+        double histogramSelectivity = histogramFraction * (1.0 - sumMcvFrequencies - columnStats.nullFraction());
+        return clamp(mcvSelectivity + histogramSelectivity);
+    }
+
+    /**
+     * @return the fraction of histogram values that are lower than the given value,
+     *         or -1 if there is no histogram.
+     *         Within a histogram bucket numeric values are interpolated linearly,
+     *         other values are assumed to be in the middle of the bucket.
+     */
+    private static <T> double histogramFractionBelow(ColumnStats<T> columnStats, T value) {
+        List<T> histogram = columnStats.histogram();
+        if (histogram.size() < 2) {
+            return -1;
+        }
+        DataType<T> type = columnStats.type();
+        int last = histogram.size() - 1;
+        if (type.compare(value, histogram.get(0)) <= 0) {
+            return 0.0;
+        }
+        if (type.compare(value, histogram.get(last)) >= 0) {
+            return 1.0;
+        }
+        // Find the bucket with histogram[lo] < value <= histogram[lo + 1]
+        int lo = 0;
+        int hi = last;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (type.compare(histogram.get(mid), value) < 0) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        T lower = histogram.get(lo);
+        T upper = histogram.get(hi);
+        double bucketFraction = 0.5;
+        if (value instanceof Number && lower instanceof Number && upper instanceof Number) {
+            double lowerValue = ((Number) lower).doubleValue();
+            double width = ((Number) upper).doubleValue() - lowerValue;
+            if (width > 0) {
+                bucketFraction = (((Number) value).doubleValue() - lowerValue) / width;
+            }
+        }
+        return (lo + bucketFraction) / last;
+    }
+
+    /**
+     * `x = ANY([a, b, c])`, which is also what `x IN (a, b, c)` is analyzed to, is estimated as sum of
+     * `x = a`, `x = b` and `x = c`.
+     */
+    private static double anyEqSelectivity(Symbol leftArg, Symbol rightArg, Stats stats, @Nullable Row params) {
+        ColumnIdent column = getColumn(leftArg);
+        if (column == null || !isValue(rightArg, params)) {
+            return MAGIC_SEL;
+        }
+        Object values = getValue(rightArg, params);
+        if (!(values instanceof List)) {
+            return MAGIC_SEL;
+        }
+        var columnStats = stats.statsByColumn().get(column);
+        double selectivity = 0.0;
+        for (Object value : new HashSet<>((List<?>) values)) {
+            if (value != null) {
+                selectivity += columnStats == null ? DEFAULT_EQ_SEL : eqSelectivityFromValueAndStats(value, columnStats);
+            }
+        }
+        return clamp(selectivity);
+    }
+
+    /**
+     * `x LIKE 'abc%'` is estimated as the range `x >= 'abc' AND x < 'abd'`.
+     * A pattern without wildcards is estimated like `=`.
+     */
+    private static double likeSelectivity(Symbol leftArg, Symbol rightArg, Stats stats, @Nullable Row params) {
+        ColumnIdent column = getColumn(leftArg);
+        if (column == null || !isValue(rightArg, params)) {
+            return MAGIC_SEL;
+        }
+        Object pattern = getValue(rightArg, params);
+        if (pattern == null) {
+            return 0.0;
+        }
+        if (!(pattern instanceof String)) {
+            return MAGIC_SEL;
+        }
+        var columnStats = stats.statsByColumn().get(column);
+        if (columnStats == null || columnStats.type().id() != DataTypes.STRING.id()) {
+            return MAGIC_SEL;
+        }
+        @SuppressWarnings("unchecked")
+        ColumnStats<String> stringStats = (ColumnStats<String>) columnStats;
+        String patternString = (String) pattern;
+        StringBuilder prefix = new StringBuilder();
+        boolean hasWildcard = false;
+        boolean escaped = false;
+        for (int i = 0; i < patternString.length(); i++) {
+            char c = patternString.charAt(i);
+            if (!escaped && c == LikeOperators.DEFAULT_ESCAPE) {
+                escaped = true;
+                continue;
+            }
+            if (!escaped && (c == '%' || c == '_')) {
+                hasWildcard = true;
+                break;
+            }
+            prefix.append(c);
+            escaped = false;
+        }
+        if (!hasWildcard) {
+            return eqSelectivityFromValueAndStats(prefix.toString(), stringStats);
+        }
+        if (prefix.length() == 0) {
+            return MAGIC_SEL;
+        }
+        var mcv = stringStats.mostCommonValues();
+        Object[] mcvValues = mcv.values();
+        double[] mcvFrequencies = mcv.frequencies();
+        double mcvSelectivity = 0.0;
+        double sumMcvFrequencies = 0.0;
+        for (int i = 0; i < mcvValues.length; i++) {
+            if (LikeOperators.matches((String) mcvValues[i], patternString, LikeOperators.CaseSensitivity.SENSITIVE)) {
+                mcvSelectivity += mcvFrequencies[i];
+            }
+            sumMcvFrequencies += mcvFrequencies[i];
+        }
+        String lower = prefix.toString();
+        double lowerFraction = histogramFractionBelow(stringStats, lower);
+        double histogramFraction;
+        if (lowerFraction < 0) {
+            histogramFraction = MAGIC_SEL;
+        } else {
+            String upper = prefixUpperBound(lower);
+            double upperFraction = upper == null ? 1.0 : histogramFractionBelow(stringStats, upper);
+            histogramFraction = upperFraction - lowerFraction;
+        }
+        double histogramSelectivity = histogramFraction * (1.0 - sumMcvFrequencies - stringStats.nullFraction());
+        return clamp(mcvSelectivity + histogramSelectivity);
+    }
+
+    /**
+     * @return the smallest string greater than all strings starting with the prefix, or null if there is none
+     *         because the prefix consists only of {@code '\uffff'} characters.
+     */
+    @Nullable
+    static String prefixUpperBound(String prefix) {
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+        return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+    }
+
+    static class JoinSelectivityEstimator extends SymbolVisitor<Void, Double> {
+
+        private final TableStats tableStats;
+        private final ToDoubleFunction<RelationName> numRows;
+
+        JoinSelectivityEstimator(TableStats tableStats, ToDoubleFunction<RelationName> numRows) {
+            this.tableStats = tableStats;
+            this.numRows = numRows;
+        }
+
+        @Override
+        protected Double visitSymbol(Symbol symbol, Void context) {
+            return MAGIC_SEL;
+        }
+
+        @Override
+        public Double visitLiteral(Literal literal, Void context) {
+            Object value = literal.value();
+            if (value instanceof Boolean) {
+                return (Boolean) value ? 1.0 : 0.0;
+            }
+            return MAGIC_SEL;
+        }
+
+        @Override
+        public Double visitFunction(Function function, Void context) {
+            switch (function.name()) {
+                case AndOperator.NAME: {
+                    double selectivity = 1.0;
+                    for (Symbol argument : function.arguments()) {
+                        selectivity *= argument.accept(this, context);
+                    }
+                    return selectivity;
+                }
+
+                case EqOperator.NAME: {
+                    List<Symbol> arguments = function.arguments();
+                    double leftDistinct = approxDistinct(arguments.get(0));
+                    double rightDistinct = approxDistinct(arguments.get(1));
+                    if (leftDistinct < 0 || rightDistinct < 0) {
+                        return DEFAULT_EQ_SEL;
+                    }
+                    return 1.0 / Math.max(1.0, Math.max(leftDistinct, rightDistinct));
+                }
+
+                default:
+                    return MAGIC_SEL;
+            }
+        }
+
+        /**
+         * @return the approximate number of distinct values of a column or -1 if unknown
+         */
+        private double approxDistinct(Symbol symbol) {
+            ColumnIdent column = getColumn(symbol);
+            RelationName relation = getRelation(symbol);
+            if (column == null || relation == null) {
+                return -1;
+            }
+            double rows = numRows.applyAsDouble(relation);
+            ColumnStats<?> columnStats = tableStats.getStats(relation).statsByColumn().get(column);
+            if (columnStats == null) {
+                // Assume the column is unique
+                return rows;
+            }
+            double approxDistinct = columnStats.approxDistinct();
+            return rows < 0 ? approxDistinct : Math.min(approxDistinct, rows);
+        }
     }
 
     private static double isNullSelectivity(Symbol arg, Stats stats) {
@@ -177,6 +585,43 @@ public class SelectivityFunctions {
         }
     }
 
+    private static boolean isValue(Symbol symbol, @Nullable Row params) {
+        return symbol instanceof Literal || (symbol instanceof ParameterSymbol && params != null);
+    }
+
+    @Nullable
+    private static Object getValue(Symbol symbol, @Nullable Row params) {
+        if (symbol instanceof ParameterSymbol) {
+            assert params != null : "params must be present to resolve a parameter";
+            return params.get(((ParameterSymbol) symbol).index());
+        }
+        return ((Literal<?>) symbol).value();
+    }
+
+    @Nullable
+    private static <T> T castOrNull(DataType<T> type, @Nullable Object value) {
+        try {
+            return type.implicitCast(value);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static double clamp(double selectivity) {
+        return Math.max(0.0, Math.min(1.0, selectivity));
+    }
+
+    @Nullable
+    private static RelationName getRelation(Symbol symbol) {
+        if (symbol instanceof Reference) {
+            return ((Reference) symbol).ident().tableIdent();
+        } else if (symbol instanceof ScopedSymbol) {
+            return ((ScopedSymbol) symbol).relation();
+        } else {
+            return null;
+        }
+    }
+
     @Nullable
     private static ColumnIdent getColumn(Symbol symbol) {
         if (symbol instanceof Reference) {
@@ -0,0 +1,202 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.statement;
+
+import io.crate.analyze.AnalyzedCopyFromStdin;
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Projector;
+import io.crate.data.Row;
+import io.crate.data.RowConsumer;
+import io.crate.execution.dsl.projection.ColumnIndexWriterProjection;
+import io.crate.exceptions.UnsupportedFeatureException;
+import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
+import io.crate.execution.jobs.AbstractTask;
+import io.crate.execution.jobs.RootTask;
+import io.crate.execution.jobs.TasksService;
+import io.crate.expression.InputFactory;
+import io.crate.expression.eval.EvaluatingNormalizer;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.NodeContext;
+import io.crate.planner.DependencyCarrier;
+import io.crate.planner.Plan;
+import io.crate.planner.PlannerContext;
+import io.crate.planner.consumer.InsertFromSubQueryPlanner;
+import io.crate.planner.operators.SubQueryResults;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+
+/**
+ * Plan for {@code COPY table FROM STDIN}.
+ *
+ * The rows are streamed by the client, so this plan can't be executed like other plans.
+ * Use {@link #execute(DependencyCarrier, PlannerContext, BatchIterator, RowConsumer)} with a
+ * {@link BatchIterator} providing the rows received from the client instead.
+ */
+public final class CopyFromStdinPlan implements Plan {
+
+    private final AnalyzedCopyFromStdin copyFrom;
+
+    public CopyFromStdinPlan(AnalyzedCopyFromStdin copyFrom) {
+        this.copyFrom = copyFrom;
+    }
+
+    @Override
+    public StatementType type() {
+        return StatementType.COPY;
+    }
+
+    @Override
+    public void executeOrFail(DependencyCarrier dependencies,
+                              PlannerContext plannerContext,
+                              RowConsumer consumer,
+                              Row params,
+                              SubQueryResults subQueryResults) {
+        throw new UnsupportedFeatureException(
+            "COPY FROM STDIN is only supported using the simple query protocol of the PostgreSQL wire protocol");
+    }
+
+    /**
+     * Indexes the rows of {@code source} into the target table.
+     * The rows must contain the values of {@link AnalyzedCopyFromStdin#columns()}, casted to the column types.
+     *
+     * The execution is registered as a job in the {@link TasksService}, so that it can be killed.
+     * The consumer receives a single row with the number of indexed rows.
+     */
+    public void execute(DependencyCarrier dependencies,
+                        PlannerContext plannerContext,
+                        BatchIterator<Row> source,
+                        RowConsumer consumer) {
+        ColumnIndexWriterProjection projection = InsertFromSubQueryPlanner.createIndexWriterProjection(copyFrom.insert());
+        NodeContext nodeCtx = plannerContext.nodeContext();
+        var circuitBreakerService = dependencies.circuitBreakerService();
+        var ramAccounting = ConcurrentRamAccounting.forCircuitBreaker(
+            "copy-from-stdin",
+            circuitBreakerService.getBreaker(HierarchyCircuitBreakerService.QUERY));
+        var projectorFactory = new ProjectionToProjectorVisitor(
+            dependencies.clusterService(),
+            dependencies.nodeLimits(),
+            circuitBreakerService,
+            nodeCtx,
+            dependencies.threadPool(),
+            dependencies.settings(),
+            dependencies.transportActionProvider(),
+            new InputFactory(nodeCtx),
+            EvaluatingNormalizer.functionOnlyNormalizer(nodeCtx),
+            relationName -> {
+                throw new UnsupportedFeatureException("COPY FROM STDIN doesn't support system tables");
+            },
+            relationName -> {
+                throw new UnsupportedFeatureException("COPY FROM STDIN doesn't support system tables");
+            }
+        );
+        TasksService tasksService = dependencies.tasksService();
+        RootTask.Builder builder = tasksService.newBuilder(
+            plannerContext.jobId(),
+            plannerContext.transactionContext().sessionSettings().userName(),
+            dependencies.localNodeId(),
+            Collections.emptySet()
+        );
+        RootTask rootTask;
+        try {
+            Projector projector = projectorFactory.create(
+                projection,
+                plannerContext.transactionContext(),
+                ramAccounting,
+                new OnHeapMemoryManager(ramAccounting::addBytes),
+                plannerContext.jobId());
+            builder.addTask(new CopyFromStdinTask(source, projector.apply(source), consumer, ramAccounting));
+            rootTask = tasksService.createTask(builder);
+        } catch (Throwable t) {
+            ramAccounting.close();
+            source.kill(t);
+            consumer.accept(null, t);
+            return;
+        }
+        try {
+            rootTask.start();
+        } catch (Throwable t) {
+            // the task fails the consumer if it can't be started
+            rootTask.kill(t.getMessage());
+        }
+    }
+
+    /**
+     * Passes the projected rows to the consumer once started. Killing the task kills the rows sent by the client,
+     * which fails the consumer.
+     */
+    private static final class CopyFromStdinTask extends AbstractTask {
+
+        private final BatchIterator<Row> source;
+        private final BatchIterator<Row> projected;
+        private final RowConsumer consumer;
+        private final RamAccounting ramAccounting;
+        private boolean started = false;
+
+        private CopyFromStdinTask(BatchIterator<Row> source,
+                                  BatchIterator<Row> projected,
+                                  RowConsumer consumer,
+                                  RamAccounting ramAccounting) {
+            super(0);
+            this.source = source;
+            this.projected = projected;
+            this.consumer = consumer;
+            this.ramAccounting = ramAccounting;
+        }
+
+        @Override
+        protected synchronized void innerStart() {
+            started = true;
+            consumer.completionFuture().whenComplete((result, failure) -> {
+                ramAccounting.close();
+                if (failure == null) {
+                    close();
+                } else {
+                    kill(failure);
+                }
+            });
+            consumer.accept(projected, null);
+        }
+
+        @Override
+        protected synchronized void innerKill(@Nonnull Throwable t) {
+            source.kill(t);
+            if (!started) {
+                ramAccounting.close();
+                consumer.accept(null, t);
+            }
+        }
+
+        @Override
+        public String name() {
+            return "copy-from-stdin";
+        }
+
+        @Override
+        public long bytesUsed() {
+            return ramAccounting.totalBytes();
+        }
+    }
+}
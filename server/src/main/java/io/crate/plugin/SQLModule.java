@@ -22,10 +22,12 @@
 package io.crate.plugin;
 
 import io.crate.action.sql.SQLOperations;
+import io.crate.execution.engine.collect.ShardResultCache;
 import io.crate.expression.udf.UserDefinedFunctionService;
 import io.crate.memory.MemoryManagerFactory;
 import io.crate.metadata.DanglingArtifactsService;
 import io.crate.metadata.FulltextAnalyzerResolver;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import io.crate.protocols.postgres.PostgresNetty;
 import io.crate.rest.action.RestSQLAction;
@@ -42,6 +44,8 @@ public class SQLModule extends AbstractModule {
         bind(PostgresNetty.class).asEagerSingleton();
         bind(SQLOperations.class).asEagerSingleton();
         bind(Planner.class).asEagerSingleton();
+        bind(PlanCache.class).asEagerSingleton();
+        bind(ShardResultCache.class).asEagerSingleton();
         bind(TableStats.class).asEagerSingleton();
         bind(TableStatsService.class).asEagerSingleton();
         bind(MemoryManagerFactory.class).asEagerSingleton();
@@ -63,6 +63,7 @@ import io.crate.cluster.gracefulstop.DecommissionAllocationDecider;
 import io.crate.cluster.gracefulstop.DecommissioningService;
 import io.crate.execution.TransportExecutorModule;
 import io.crate.execution.engine.collect.CollectOperationModule;
+import io.crate.execution.engine.collect.ShardResultCache;
 import io.crate.execution.engine.collect.stats.JobsLogService;
 import io.crate.execution.jobs.JobModule;
 import io.crate.execution.jobs.TasksService;
@@ -88,6 +89,7 @@ import io.crate.metadata.upgrade.MetadataIndexUpgrader;
 import io.crate.metadata.view.ViewsMetadata;
 import io.crate.module.CrateCommonModule;
 import io.crate.monitor.MonitorModule;
+import io.crate.planner.PlanCache;
 import io.crate.protocols.postgres.PostgresNetty;
 import io.crate.protocols.ssl.SslSettings;
 import io.crate.protocols.ssl.SslContextProviderService;
@@ -111,6 +113,8 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
         List<Setting<?>> settings = new ArrayList<>();
         settings.add(AnalyzerSettings.CUSTOM_ANALYSIS_SETTING_GROUP);
         settings.add(SQLOperations.NODE_READ_ONLY_SETTING);
+        settings.add(PlanCache.PLAN_CACHE_SIZE_SETTING);
+        settings.add(ShardResultCache.SHARD_RESULT_CACHE_SIZE_SETTING);
 
         // Postgres settings are node settings
         settings.add(PostgresNetty.PSQL_ENABLED_SETTING);
@@ -0,0 +1,204 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.exceptions.Exceptions;
+import io.netty.channel.Channel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Provides the rows which a client sends during a {@code COPY ... FROM STDIN}.
+ *
+ * The rows are added by the network thread while the consumer may run on any thread.
+ * If more than {@link #MAX_BUFFERED_ROWS} rows are buffered because the consumer can't keep up,
+ * reading from the channel is suspended until the consumer took the buffered rows.
+ * This propagates the back pressure of the indexing to the client.
+ */
+final class CopyInBatchIterator implements BatchIterator<Row> {
+
+    static final int MAX_BUFFERED_ROWS = 10_000;
+
+    private final Channel channel;
+    private final RowN row;
+
+    // Guarded by this
+    private ArrayList<Object[]> buffered = new ArrayList<>();
+    private boolean finished = false;
+    private boolean readSuspended = false;
+    @Nullable
+    private CompletableFuture<Void> pendingLoad;
+
+    private volatile Throwable killed;
+
+    // Only accessed by the consumer, or by the producer before it completes the pendingLoad
+    private List<Object[]> batch = List.of();
+    private int batchIdx = 0;
+
+    CopyInBatchIterator(Channel channel, int numColumns) {
+        this.channel = channel;
+        this.row = new RowN(numColumns);
+    }
+
+    /**
+     * Adds the rows decoded from a CopyData message
+     */
+    void addAll(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Void> loaded;
+        synchronized (this) {
+            if (finished || killed != null) {
+                return;
+            }
+            buffered.addAll(rows);
+            loaded = pendingLoad;
+            if (loaded == null) {
+                if (!readSuspended && buffered.size() >= MAX_BUFFERED_ROWS) {
+                    readSuspended = true;
+                    channel.config().setAutoRead(false);
+                }
+                return;
+            }
+            pendingLoad = null;
+            takeBuffered();
+        }
+        loaded.complete(null);
+    }
+
+    /**
+     * Marks the end of the data, called once the client sent CopyDone
+     */
+    void finish() {
+        CompletableFuture<Void> loaded;
+        synchronized (this) {
+            finished = true;
+            loaded = pendingLoad;
+            pendingLoad = null;
+            if (loaded != null) {
+                takeBuffered();
+            }
+        }
+        if (loaded != null) {
+            loaded.complete(null);
+        }
+    }
+
+    private void takeBuffered() {
+        assert Thread.holdsLock(this) : "Must hold the lock to take the buffered rows";
+        batch = buffered;
+        batchIdx = 0;
+        buffered = new ArrayList<>();
+        if (readSuspended) {
+            readSuspended = false;
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    @Override
+    public Row currentElement() {
+        return row;
+    }
+
+    @Override
+    public void moveToStart() {
+        throw new UnsupportedOperationException("The rows of COPY FROM STDIN can only be consumed once");
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfKilled();
+        if (batchIdx < batch.size()) {
+            row.cells(batch.get(batchIdx));
+            batchIdx++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        kill(BatchIterator.CLOSED);
+    }
+
+    @Override
+    public synchronized CompletionStage<?> loadNextBatch() throws Exception {
+        raiseIfKilled();
+        if (!buffered.isEmpty()) {
+            takeBuffered();
+            return CompletableFuture.completedFuture(null);
+        }
+        if (finished) {
+            return CompletableFuture.failedFuture(new IllegalStateException("All batches already loaded"));
+        }
+        assert pendingLoad == null : "loadNextBatch must not be called while a previous call is pending";
+        pendingLoad = new CompletableFuture<>();
+        return pendingLoad;
+    }
+
+    @Override
+    public synchronized boolean allLoaded() {
+        return finished && buffered.isEmpty();
+    }
+
+    @Override
+    public boolean hasLazyResultSet() {
+        return true;
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        CompletableFuture<Void> loaded;
+        synchronized (this) {
+            if (killed != null) {
+                return;
+            }
+            killed = throwable;
+            finished = true;
+            buffered.clear();
+            if (readSuspended) {
+                readSuspended = false;
+                channel.config().setAutoRead(true);
+            }
+            loaded = pendingLoad;
+            pendingLoad = null;
+        }
+        if (loaded != null) {
+            loaded.completeExceptionally(throwable);
+        }
+    }
+
+    private void raiseIfKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+}
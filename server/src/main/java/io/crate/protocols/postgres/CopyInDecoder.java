@@ -0,0 +1,382 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.analyze.CopyStdioOptions;
+import io.crate.common.collections.Lists2;
+import io.crate.protocols.postgres.types.PGType;
+import io.crate.protocols.postgres.types.PGTypes;
+import io.crate.types.DataType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decodes the rows of the CopyData messages of a {@code COPY ... FROM STDIN}.
+ *
+ * Supports the text, csv and binary format of PostgreSQL.
+ * A row may be split across several CopyData messages, incomplete rows are kept until the next message arrives.
+ */
+final class CopyInDecoder {
+
+    static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    private static final int BINARY_HEADER_LENGTH = BINARY_SIGNATURE.length + 4 + 4;
+
+    private final CopyStdioOptions options;
+    private final List<? extends DataType<?>> types;
+    private final List<PGType<?>> pgTypes;
+    private final ByteBuf pending = Unpooled.buffer();
+
+    private boolean headerConsumed;
+    private boolean endOfData = false;
+
+    // Number of bytes of the current line which have already been searched for the line end
+    private int scannedBytes = 0;
+    private boolean inQuotes = false;
+
+    CopyInDecoder(CopyStdioOptions options, List<? extends DataType<?>> types) {
+        this.options = options;
+        this.types = types;
+        this.pgTypes = Lists2.map(types, PGTypes::get);
+        this.headerConsumed = options.format() != CopyStdioOptions.Format.BINARY && !options.header();
+    }
+
+    /**
+     * @param data the content of a CopyData message
+     * @return the rows which are complete
+     */
+    List<Object[]> decode(ByteBuf data) {
+        if (endOfData) {
+            return List.of();
+        }
+        pending.writeBytes(data);
+        ArrayList<Object[]> rows = new ArrayList<>();
+        if (options.format() == CopyStdioOptions.Format.BINARY) {
+            decodeBinary(rows);
+        } else {
+            decodeLines(rows, false);
+        }
+        pending.discardReadBytes();
+        return rows;
+    }
+
+    /**
+     * Called once the client sent CopyDone.
+     *
+     * @return the last row, if the data didn't end with a line break.
+     */
+    List<Object[]> finish() {
+        ArrayList<Object[]> rows = new ArrayList<>();
+        if (options.format() == CopyStdioOptions.Format.BINARY) {
+            if (!endOfData && pending.isReadable()) {
+                throw new IllegalArgumentException("COPY binary data ended with an incomplete row");
+            }
+        } else {
+            decodeLines(rows, true);
+        }
+        endOfData = true;
+        return rows;
+    }
+
+    void close() {
+        if (pending.refCnt() > 0) {
+            pending.release();
+        }
+    }
+
+    private void decodeLines(List<Object[]> rows, boolean eof) {
+        while (!endOfData) {
+            int lineEnd = findLineEnd();
+            int lineLength;
+            int consumed;
+            if (lineEnd < 0) {
+                if (!eof || !pending.isReadable()) {
+                    return;
+                }
+                if (inQuotes) {
+                    throw new IllegalArgumentException("COPY data ended within a quoted CSV field");
+                }
+                lineLength = pending.readableBytes();
+                consumed = lineLength;
+            } else {
+                lineLength = lineEnd - pending.readerIndex();
+                consumed = lineLength + 1;
+            }
+            if (lineLength > 0 && pending.getByte(pending.readerIndex() + lineLength - 1) == '\r') {
+                lineLength--;
+            }
+            String line = pending.toString(pending.readerIndex(), lineLength, StandardCharsets.UTF_8);
+            pending.skipBytes(consumed);
+            scannedBytes = 0;
+            inQuotes = false;
+            decodeLine(line, rows);
+        }
+    }
+
+    /**
+     * @return the index of the line break which ends the current line or -1 if the line is incomplete.
+     */
+    private int findLineEnd() {
+        int start = pending.readerIndex() + scannedBytes;
+        int end = pending.writerIndex();
+        if (options.format() == CopyStdioOptions.Format.TEXT) {
+            // Line breaks within values are escaped
+            int idx = pending.indexOf(start, end, (byte) '\n');
+            scannedBytes = (idx < 0 ? end : idx) - pending.readerIndex();
+            return idx;
+        }
+        for (int i = start; i < end; i++) {
+            byte b = pending.getByte(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                scannedBytes = i - pending.readerIndex();
+                return i;
+            }
+        }
+        scannedBytes = end - pending.readerIndex();
+        return -1;
+    }
+
+    private void decodeLine(String line, List<Object[]> rows) {
+        if (line.equals("\\.")) {
+            endOfData = true;
+            return;
+        }
+        if (!headerConsumed) {
+            headerConsumed = true;
+            return;
+        }
+        List<String> values = options.format() == CopyStdioOptions.Format.TEXT
+            ? splitText(line, options.delimiter(), options.nullString())
+            : splitCsv(line, options.delimiter(), options.nullString());
+        if (values.size() != types.size()) {
+            throw new IllegalArgumentException(String.format(
+                Locale.ENGLISH,
+                "COPY row has %d values but %d columns are expected: %s",
+                values.size(),
+                types.size(),
+                line));
+        }
+        Object[] cells = new Object[values.size()];
+        for (int i = 0; i < cells.length; i++) {
+            String value = values.get(i);
+            if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                Object decoded = pgTypes.get(i).readTextValue(Unpooled.wrappedBuffer(bytes), bytes.length);
+                cells[i] = types.get(i).implicitCast(decoded);
+            }
+        }
+        rows.add(cells);
+    }
+
+    /**
+     * Splits a line of the text format into its values. Values matching the {@code nullString} are null,
+     * the backslash escape sequences of the other values are resolved.
+     */
+    static List<String> splitText(String line, char delimiter, String nullString) {
+        ArrayList<String> values = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i <= line.length()) {
+            if (i == line.length() || line.charAt(i) == delimiter) {
+                String raw = line.substring(start, i);
+                values.add(raw.equals(nullString) ? null : unescape(raw));
+                start = i + 1;
+            } else if (line.charAt(i) == '\\') {
+                // the escaped character might be the delimiter
+                i++;
+            }
+            i++;
+        }
+        return values;
+    }
+
+    private static String unescape(String raw) {
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 == raw.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = raw.charAt(++i);
+            switch (next) {
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'v' -> sb.append('\u000B');
+                case 'x' -> {
+                    int end = i + 1;
+                    while (end < raw.length() && end < i + 3 && Character.digit(raw.charAt(end), 16) >= 0) {
+                        end++;
+                    }
+                    if (end == i + 1) {
+                        sb.append(next);
+                    } else {
+                        sb.append((char) Integer.parseInt(raw.substring(i + 1, end), 16));
+                        i = end - 1;
+                    }
+                }
+                default -> {
+                    if (next >= '0' && next <= '7') {
+                        int end = i + 1;
+                        while (end < raw.length() && end < i + 3 && raw.charAt(end) >= '0' && raw.charAt(end) <= '7') {
+                            end++;
+                        }
+                        sb.append((char) Integer.parseInt(raw.substring(i, end), 8));
+                        i = end - 1;
+                    } else {
+                        sb.append(next);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits a line of the CSV format into its values.
+     * Unquoted values matching the {@code nullString} are null.
+     */
+    static List<String> splitCsv(String line, char delimiter, String nullString) {
+        ArrayList<String> values = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    sb.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == delimiter) {
+                values.add(csvValue(sb, quoted, nullString));
+                sb.setLength(0);
+                quoted = false;
+            } else {
+                sb.append(c);
+            }
+        }
+        if (inQuotes) {
+            throw new IllegalArgumentException("Unterminated quoted CSV value: " + line);
+        }
+        values.add(csvValue(sb, quoted, nullString));
+        return values;
+    }
+
+    private static String csvValue(StringBuilder sb, boolean quoted, String nullString) {
+        String value = sb.toString();
+        return !quoted && value.equals(nullString) ? null : value;
+    }
+
+    private void decodeBinary(List<Object[]> rows) {
+        if (!headerConsumed) {
+            if (pending.readableBytes() < BINARY_HEADER_LENGTH) {
+                return;
+            }
+            int start = pending.readerIndex();
+            for (int i = 0; i < BINARY_SIGNATURE.length; i++) {
+                if (pending.getByte(start + i) != BINARY_SIGNATURE[i]) {
+                    throw new IllegalArgumentException("COPY file signature not recognized");
+                }
+            }
+            int flags = pending.getInt(start + BINARY_SIGNATURE.length);
+            if ((flags & (1 << 16)) != 0) {
+                throw new IllegalArgumentException("COPY binary data with OIDs is not supported");
+            }
+            int extensionLength = pending.getInt(start + BINARY_SIGNATURE.length + 4);
+            if (pending.readableBytes() < BINARY_HEADER_LENGTH + extensionLength) {
+                return;
+            }
+            pending.skipBytes(BINARY_HEADER_LENGTH + extensionLength);
+            headerConsumed = true;
+        }
+        while (!endOfData && pending.readableBytes() >= 2) {
+            int start = pending.readerIndex();
+            short numFields = pending.getShort(start);
+            if (numFields == -1) {
+                pending.skipBytes(2);
+                endOfData = true;
+                return;
+            }
+            if (numFields != types.size()) {
+                throw new IllegalArgumentException(String.format(
+                    Locale.ENGLISH,
+                    "COPY row has %d values but %d columns are expected",
+                    numFields,
+                    types.size()));
+            }
+            if (!isRowComplete(start + 2, numFields)) {
+                return;
+            }
+            pending.skipBytes(2);
+            Object[] cells = new Object[numFields];
+            for (int i = 0; i < numFields; i++) {
+                int length = pending.readInt();
+                if (length >= 0) {
+                    Object decoded = pgTypes.get(i).readBinaryValue(pending, length);
+                    cells[i] = types.get(i).implicitCast(decoded);
+                }
+            }
+            rows.add(cells);
+        }
+    }
+
+    private boolean isRowComplete(int position, int numFields) {
+        int end = pending.writerIndex();
+        for (int i = 0; i < numFields; i++) {
+            if (end - position < 4) {
+                return false;
+            }
+            int length = pending.getInt(position);
+            position += 4;
+            if (length > 0) {
+                if (end - position < length) {
+                    return false;
+                }
+                position += length;
+            }
+        }
+        return true;
+    }
+}
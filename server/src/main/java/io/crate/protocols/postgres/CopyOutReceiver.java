@@ -0,0 +1,218 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.analyze.CopyStdioOptions;
+import io.crate.auth.AccessControl;
+import io.crate.common.collections.Lists2;
+import io.crate.data.Row;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
+import io.crate.protocols.postgres.types.PGType;
+import io.crate.protocols.postgres.types.PGTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+
+/**
+ * Streams the result of a {@code COPY ... TO STDOUT} as CopyData messages, one per row.
+ */
+class CopyOutReceiver extends BaseResultReceiver {
+
+    private final String query;
+    private final Channel channel;
+    private final AccessControl accessControl;
+    private final CopyStdioOptions options;
+    private final List<Symbol> fields;
+    private final List<PGType<?>> columnTypes;
+    private final byte delimiter;
+    private final byte[] nullString;
+    private final ByteBuf scratch = Unpooled.buffer();
+
+    private boolean started = false;
+    private long rowCount = 0;
+
+    CopyOutReceiver(String query,
+                    Channel channel,
+                    AccessControl accessControl,
+                    CopyStdioOptions options,
+                    List<Symbol> fields) {
+        this.query = query;
+        this.channel = channel;
+        this.accessControl = accessControl;
+        this.options = options;
+        this.fields = fields;
+        this.columnTypes = Lists2.map(fields, x -> PGTypes.get(x.valueType()));
+        this.delimiter = (byte) options.delimiter();
+        this.nullString = options.nullString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        boolean binary = options.format() == CopyStdioOptions.Format.BINARY;
+        Messages.sendCopyOutResponse(channel, binary, fields.size());
+        if (binary) {
+            ByteBuf header = channel.alloc().buffer(CopyInDecoder.BINARY_SIGNATURE.length + 8);
+            header.writeBytes(CopyInDecoder.BINARY_SIGNATURE);
+            header.writeInt(0);
+            header.writeInt(0);
+            Messages.sendCopyData(channel, header);
+        } else if (options.header()) {
+            ByteBuf header = channel.alloc().buffer();
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    header.writeByte(delimiter);
+                }
+                byte[] name = Symbols.pathFromSymbol(fields.get(i)).sqlFqn().getBytes(StandardCharsets.UTF_8);
+                writeCsvValue(header, name, 0, name.length);
+            }
+            header.writeByte('\n');
+            Messages.sendCopyData(channel, header);
+        }
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        start();
+        rowCount++;
+        ByteBuf buffer = channel.alloc().buffer();
+        switch (options.format()) {
+            case BINARY -> writeBinaryRow(buffer, row);
+            case CSV, TEXT -> writeTextRow(buffer, row);
+            default -> throw new AssertionError("Unexpected COPY format: " + options.format());
+        }
+        Messages.sendCopyData(channel, buffer);
+        if (rowCount % 1000 == 0) {
+            channel.flush();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeBinaryRow(ByteBuf buffer, Row row) {
+        buffer.writeShort(columnTypes.size());
+        for (int i = 0; i < columnTypes.size(); i++) {
+            Object value = row.get(i);
+            if (value == null) {
+                buffer.writeInt(-1);
+            } else {
+                ((PGType<Object>) columnTypes.get(i)).writeAsBinary(buffer, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeTextRow(ByteBuf buffer, Row row) {
+        boolean csv = options.format() == CopyStdioOptions.Format.CSV;
+        for (int i = 0; i < columnTypes.size(); i++) {
+            if (i > 0) {
+                buffer.writeByte(delimiter);
+            }
+            Object value = row.get(i);
+            if (value == null) {
+                buffer.writeBytes(nullString);
+                continue;
+            }
+            scratch.clear();
+            ((PGType<Object>) columnTypes.get(i)).writeAsText(scratch, value);
+            // skip the length prefix written by writeAsText
+            int start = 4;
+            int end = scratch.writerIndex();
+            if (csv) {
+                writeCsvValue(buffer, scratch, start, end);
+            } else {
+                writeTextValue(buffer, scratch, start, end);
+            }
+        }
+        buffer.writeByte('\n');
+    }
+
+    private void writeTextValue(ByteBuf out, ByteBuf value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = value.getByte(i);
+            switch (b) {
+                case '\\' -> out.writeByte('\\').writeByte('\\');
+                case '\n' -> out.writeByte('\\').writeByte('n');
+                case '\r' -> out.writeByte('\\').writeByte('r');
+                case '\t' -> out.writeByte('\\').writeByte('t');
+                default -> {
+                    if (b == delimiter) {
+                        out.writeByte('\\');
+                    }
+                    out.writeByte(b);
+                }
+            }
+        }
+    }
+
+    private void writeCsvValue(ByteBuf out, byte[] value, int start, int end) {
+        writeCsvValue(out, Unpooled.wrappedBuffer(value), start, end);
+    }
+
+    private void writeCsvValue(ByteBuf out, ByteBuf value, int start, int end) {
+        boolean quote = end - start == nullString.length && value.slice(start, end - start).equals(Unpooled.wrappedBuffer(nullString));
+        for (int i = start; i < end && !quote; i++) {
+            byte b = value.getByte(i);
+            quote = b == delimiter || b == '"' || b == '\n' || b == '\r';
+        }
+        if (!quote) {
+            out.writeBytes(value, start, end - start);
+            return;
+        }
+        out.writeByte('"');
+        for (int i = start; i < end; i++) {
+            byte b = value.getByte(i);
+            if (b == '"') {
+                out.writeByte('"');
+            }
+            out.writeByte(b);
+        }
+        out.writeByte('"');
+    }
+
+    @Override
+    public void allFinished(boolean interrupted) {
+        scratch.release();
+        start();
+        if (options.format() == CopyStdioOptions.Format.BINARY) {
+            ByteBuf trailer = channel.alloc().buffer(2);
+            trailer.writeShort(-1);
+            Messages.sendCopyData(channel, trailer);
+        }
+        Messages.sendCopyDone(channel);
+        Messages.sendCommandComplete(channel, query, rowCount).addListener(f -> super.allFinished(interrupted));
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable throwable) {
+        scratch.release();
+        Messages.sendErrorResponse(channel, accessControl, throwable).addListener(f -> super.fail(throwable));
+    }
+}
@@ -26,9 +26,9 @@ import io.crate.execution.engine.collect.stats.JobsLogs;
 
 import javax.annotation.Nullable;
 import java.util.UUID;
-import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 
-public class JobsLogsUpdateListener implements Consumer<Throwable> {
+public class JobsLogsUpdateListener implements ObjLongConsumer<Throwable> {
 
     private final UUID jobId;
     private final JobsLogs jobsLogs;
@@ -39,11 +39,11 @@ public class JobsLogsUpdateListener implements Consumer<Throwable> {
     }
 
     @Override
-    public void accept(@Nullable Throwable throwable) {
+    public void accept(@Nullable Throwable throwable, long rowCount) {
         if (throwable == null) {
-            jobsLogs.logExecutionEnd(jobId, null);
+            jobsLogs.logExecutionEnd(jobId, null, rowCount);
         } else {
-            jobsLogs.logExecutionEnd(jobId, SQLExceptions.messageOf(throwable));
+            jobsLogs.logExecutionEnd(jobId, SQLExceptions.messageOf(throwable), rowCount);
         }
     }
 }
@@ -487,6 +487,58 @@ public class Messages {
         sendShortMsg(channel, 's', "sentPortalSuspended");
     }
 
+    /**
+     * CopyInResponse
+     * | 'G' | int32 len | int8 format | int16 numColumns | int16 format per column |
+     */
+    static void sendCopyInResponse(Channel channel, boolean binary, int numColumns) {
+        sendCopyResponse(channel, 'G', binary, numColumns);
+    }
+
+    /**
+     * CopyOutResponse
+     * | 'H' | int32 len | int8 format | int16 numColumns | int16 format per column |
+     */
+    static void sendCopyOutResponse(Channel channel, boolean binary, int numColumns) {
+        sendCopyResponse(channel, 'H', binary, numColumns);
+    }
+
+    private static void sendCopyResponse(Channel channel, char msgType, boolean binary, int numColumns) {
+        int length = 4 + 1 + 2 + numColumns * 2;
+        ByteBuf buffer = channel.alloc().buffer(length + 1);
+        buffer.writeByte(msgType);
+        buffer.writeInt(length);
+        int format = binary ? 1 : 0;
+        buffer.writeByte(format);
+        buffer.writeShort(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            buffer.writeShort(format);
+        }
+        channel.writeAndFlush(buffer);
+    }
+
+    /**
+     * CopyData
+     * | 'd' | int32 len | byteN data |
+     *
+     * Takes ownership of {@code data}
+     */
+    static void sendCopyData(Channel channel, ByteBuf data) {
+        ByteBuf header = channel.alloc().buffer(5);
+        header.writeByte('d');
+        header.writeInt(4 + data.readableBytes());
+        channel.write(header);
+        channel.write(data);
+    }
+
+    /**
+     * CopyDone
+     * | 'c' | int32 len |
+     */
+    static void sendCopyDone(Channel channel) {
+        sendShortMsg(channel, 'c', "sentCopyDone");
+    }
+
     /**
      * CloseComplete
      * | '3' | int32 len |
@@ -22,6 +22,10 @@
 package io.crate.protocols.postgres;
 
 import io.crate.action.sql.DescribeResult;
+import io.crate.analyze.AnalyzedCopyFromStdin;
+import io.crate.analyze.AnalyzedCopyToStdout;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.CopyStdioOptions;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.SQLOperations;
 import io.crate.action.sql.Session;
@@ -33,6 +37,7 @@ import io.crate.auth.AccessControl;
 import io.crate.user.User;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.collections.Lists2;
+import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.expression.symbol.Symbol;
 import io.crate.protocols.postgres.types.PGType;
 import io.crate.protocols.postgres.types.PGTypes;
@@ -199,6 +204,14 @@ public class PostgresWireProtocol {
     private byte msgType;
     private Session session;
     private boolean ignoreTillSync = false;
+
+    /**
+     * Set while a {@code COPY ... FROM STDIN} receives CopyData messages
+     */
+    @Nullable
+    private CopyInBatchIterator copyInRows;
+    @Nullable
+    private CopyInDecoder copyInDecoder;
     private AuthenticationContext authContext;
     private Properties properties;
 
@@ -364,10 +377,23 @@ public class PostgresWireProtocol {
                     handleExecute(buffer, channel);
                     return;
                 case 'H':
-                    handleFlush(channel);
+                    if (copyInRows == null) {
+                        handleFlush(channel);
+                    }
                     return;
                 case 'S':
-                    handleSync(channel);
+                    if (copyInRows == null) {
+                        handleSync(channel);
+                    }
+                    return;
+                case 'd':
+                    handleCopyData(buffer);
+                    return;
+                case 'c':
+                    handleCopyDone();
+                    return;
+                case 'f':
+                    handleCopyFail(buffer);
                     return;
                 case 'C':
                     handleClose(buffer, channel);
@@ -407,6 +433,10 @@ public class PostgresWireProtocol {
         public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
             LOGGER.trace("channelDisconnected");
             channel = null;
+            if (copyInRows != null) {
+                copyInRows.kill(new ClientInterrupted());
+                clearCopyIn();
+            }
             closeSession();
             super.channelUnregistered(ctx);
         }
@@ -641,6 +671,11 @@ public class PostgresWireProtocol {
             Messages.sendEmptyQueryResponse(channel);
             return;
         }
+        AnalyzedStatement analyzedStatement = session.getAnalyzedStatement(portalName);
+        if (analyzedStatement instanceof AnalyzedCopyFromStdin || analyzedStatement instanceof AnalyzedCopyToStdout) {
+            throw new UnsupportedFeatureException(
+                "COPY FROM STDIN and COPY TO STDOUT are only supported using the simple query protocol");
+        }
         List<? extends DataType> outputTypes = session.getOutputTypes(portalName);
         ResultReceiver resultReceiver;
         if (outputTypes == null) {
@@ -747,6 +782,19 @@ public class PostgresWireProtocol {
         try {
             session.parse("", query, Collections.emptyList());
             session.bind("", "", Collections.emptyList(), null);
+            AnalyzedStatement analyzedStatement = session.getAnalyzedStatement("");
+            if (analyzedStatement instanceof AnalyzedCopyFromStdin copyFrom) {
+                return handleCopyFromStdin(query, copyFrom, channel, accessControl);
+            }
+            if (analyzedStatement instanceof AnalyzedCopyToStdout copyTo) {
+                CopyOutReceiver copyOutReceiver = new CopyOutReceiver(
+                    query, channel.bypassDelay(), accessControl, copyTo.options(), copyTo.outputs());
+                CompletableFuture<?> execute = session.execute("", 0, copyOutReceiver);
+                if (execute != null) {
+                    channel.delayWritesUntil(execute);
+                }
+                return session.sync();
+            }
             DescribeResult describeResult = session.describe('P', "");
             List<Symbol> fields = describeResult.getFields();
 
@@ -777,6 +825,86 @@ public class PostgresWireProtocol {
         }
     }
 
+    /**
+     * Starts the COPY IN sub-protocol: The client streams the rows using CopyData messages and ends it with
+     * either CopyDone or CopyFail. The rows are indexed while they arrive.
+     */
+    private CompletableFuture<?> handleCopyFromStdin(String query,
+                                                     AnalyzedCopyFromStdin copyFrom,
+                                                     DelayableWriteChannel channel,
+                                                     AccessControl accessControl) {
+        CopyStdioOptions options = copyFrom.options();
+        CopyInBatchIterator rows = new CopyInBatchIterator(channel, copyFrom.columns().size());
+        CopyInDecoder decoder = new CopyInDecoder(options, Lists2.map(copyFrom.columns(), Symbol::valueType));
+        RowCountReceiver rowCountReceiver = new RowCountReceiver(query, channel.bypassDelay(), accessControl);
+        CompletableFuture<?> execute;
+        try {
+            execute = session.copyFromStdin("", rows, rowCountReceiver);
+        } catch (Throwable t) {
+            decoder.close();
+            throw t;
+        }
+        copyInRows = rows;
+        copyInDecoder = decoder;
+        Messages.sendCopyInResponse(
+            channel, options.format() == CopyStdioOptions.Format.BINARY, copyFrom.columns().size());
+        channel.delayWritesUntil(execute);
+        return session.sync();
+    }
+
+    /**
+     * | 'd' | int32 len | byteN data |
+     */
+    private void handleCopyData(ByteBuf buffer) {
+        if (copyInRows == null) {
+            // The copy failed already, the client may still send data until it receives the error
+            buffer.skipBytes(msgLength);
+            return;
+        }
+        try {
+            copyInRows.addAll(copyInDecoder.decode(buffer.readSlice(msgLength)));
+        } catch (Throwable t) {
+            copyInRows.kill(t);
+            clearCopyIn();
+        }
+    }
+
+    /**
+     * | 'c' | int32 len |
+     */
+    private void handleCopyDone() {
+        if (copyInRows == null) {
+            return;
+        }
+        try {
+            copyInRows.addAll(copyInDecoder.finish());
+            copyInRows.finish();
+        } catch (Throwable t) {
+            copyInRows.kill(t);
+        }
+        clearCopyIn();
+    }
+
+    /**
+     * | 'f' | int32 len | string errorMessage |
+     */
+    private void handleCopyFail(ByteBuf buffer) {
+        String message = readCString(buffer);
+        if (copyInRows == null) {
+            return;
+        }
+        copyInRows.kill(new IllegalStateException("COPY from stdin failed: " + message));
+        clearCopyIn();
+    }
+
+    private void clearCopyIn() {
+        copyInRows = null;
+        if (copyInDecoder != null) {
+            copyInDecoder.close();
+            copyInDecoder = null;
+        }
+    }
+
 
     /**
      * FrameDecoder that makes sure that a full message is in the buffer before delegating work to the MessageHandler
@@ -0,0 +1,214 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.ResultReceiver;
+import io.crate.data.Row;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.http.netty4.cors.Netty4CorsConfig;
+import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Writes a result set to the channel using chunked transfer encoding.
+ *
+ * <p>
+ * The statement must be executed with {@code maxRows > 0}. Once {@code maxRows} rows have been received
+ * ({@link #batchFinished()}), they're flushed as one chunk and the execution stays suspended until the chunk
+ * was written and the channel is writable again. This way slow clients apply backpressure to the execution
+ * and at most one chunk of rows is held in memory.
+ * </p>
+ *
+ * <p>
+ * Failures before the first chunk was written complete the {@link #completionFuture()} exceptionally so that a
+ * regular error response can be sent. Failures after that close the connection without writing the terminating
+ * chunk, which clients detect as an incomplete response.
+ * </p>
+ */
+class RestStreamingResultSetReceiver implements ResultReceiver<Void> {
+
+    private static final Logger LOGGER = LogManager.getLogger(RestStreamingResultSetReceiver.class);
+
+    private final Channel channel;
+    private final HttpRequest request;
+    private final Netty4CorsConfig corsConfig;
+    private final StreamingFormat format;
+    private final List<String> columns;
+    private final Consumer<RestStreamingResultSetReceiver> resume;
+    private final boolean closeConnection;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    @Nullable
+    private ByteBuf buffer;
+    private boolean headersSent = false;
+
+    /**
+     * Only accessed from the event loop of the channel
+     */
+    private boolean waitingForWritability = false;
+
+    /**
+     * @param resume called on the event loop of the channel to resume the suspended execution,
+     *               which must continue to push rows into this receiver.
+     */
+    RestStreamingResultSetReceiver(Channel channel,
+                                   HttpRequest request,
+                                   boolean closeConnection,
+                                   Netty4CorsConfig corsConfig,
+                                   StreamingFormat format,
+                                   List<String> columns,
+                                   Consumer<RestStreamingResultSetReceiver> resume) throws IOException {
+        this.channel = channel;
+        this.request = request;
+        this.corsConfig = corsConfig;
+        this.format = format;
+        this.columns = columns;
+        this.resume = resume;
+        // Without chunked transfer encoding the end of the response is signaled by closing the connection
+        this.closeConnection = closeConnection || request.protocolVersion().equals(HttpVersion.HTTP_1_0);
+        this.buffer = channel.alloc().buffer();
+        format.writeHeader(columns, buffer);
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            format.writeRow(columns, row, buffer);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void batchFinished() {
+        if (buffer == null) {
+            return;
+        }
+        ByteBuf chunk = buffer;
+        buffer = channel.alloc().buffer();
+        writeHeadersIfNeeded();
+        channel.writeAndFlush(new DefaultHttpContent(chunk)).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                abort(future.cause());
+            } else if (channel.isWritable()) {
+                resume.accept(this);
+            } else {
+                waitingForWritability = true;
+            }
+        });
+    }
+
+    /**
+     * Must be called from the event loop once the channel became writable again
+     */
+    void channelWritable() {
+        if (waitingForWritability && channel.isWritable()) {
+            waitingForWritability = false;
+            resume.accept(this);
+        }
+    }
+
+    @Override
+    public void allFinished(boolean interrupted) {
+        if (buffer == null) {
+            return;
+        }
+        ByteBuf chunk = buffer;
+        buffer = null;
+        writeHeadersIfNeeded();
+        ChannelFuture future = channel.writeAndFlush(new DefaultLastHttpContent(chunk));
+        if (closeConnection) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+        result.complete(null);
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable t) {
+        if (buffer == null) {
+            return;
+        }
+        buffer.release();
+        buffer = null;
+        if (headersSent) {
+            abort(t);
+        } else {
+            result.completeExceptionally(t);
+        }
+    }
+
+    private void abort(Throwable t) {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+        LOGGER.debug("Aborting streamed HTTP response", t);
+        channel.close();
+        result.complete(null);
+    }
+
+    private void writeHeadersIfNeeded() {
+        if (headersSent) {
+            return;
+        }
+        HttpResponse response = new DefaultHttpResponse(request.protocolVersion(), HttpResponseStatus.OK);
+        response.headers().add(HttpHeaderNames.CONTENT_TYPE, format.contentType());
+        Netty4CorsHandler.setCorsResponseHeaders(request, response, corsConfig);
+        if (closeConnection) {
+            response.headers().add(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        }
+        if (request.protocolVersion().equals(HttpVersion.HTTP_1_1)) {
+            HttpUtil.setTransferEncodingChunked(response, true);
+        }
+        channel.write(response);
+        headersSent = true;
+    }
+
+    @Override
+    public CompletableFuture<Void> completionFuture() {
+        return result;
+    }
+}
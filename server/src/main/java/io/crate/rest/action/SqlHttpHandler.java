@@ -31,6 +31,7 @@ import io.crate.action.sql.parser.SQLRequestParser;
 import io.crate.auth.AuthSettings;
 import io.crate.auth.AccessControl;
 import io.crate.common.annotations.VisibleForTesting;
+import io.crate.common.collections.Lists2;
 import io.crate.user.User;
 import io.crate.user.UserLookup;
 import io.crate.breaker.BlockBasedRamAccounting;
@@ -41,6 +42,7 @@ import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.Symbols;
 import io.crate.protocols.http.Headers;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
@@ -82,6 +84,11 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
     private static final String REQUEST_HEADER_USER = "User";
     private static final String REQUEST_HEADER_SCHEMA = "Default-Schema";
 
+    /**
+     * Number of rows per chunk if the result is streamed, see {@link RestStreamingResultSetReceiver}
+     */
+    private static final int STREAMING_BATCH_SIZE = 1000;
+
     private final Settings settings;
     private final SQLOperations sqlOperations;
     private final Function<String, CircuitBreaker> circuitBreakerProvider;
@@ -91,6 +98,9 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
 
     private Session session;
 
+    @Nullable
+    private volatile RestStreamingResultSetReceiver streamingReceiver;
+
     SqlHttpHandler(Settings settings,
                    SQLOperations sqlOperations,
                    Function<String, CircuitBreaker> circuitBreakerProvider,
@@ -111,10 +121,13 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         if (request.uri().startsWith("/_sql")) {
             Session session = ensureSession(request);
             Map<String, List<String>> parameters = new QueryStringDecoder(request.uri()).parameters();
-            ByteBuf content = request.content();
-            handleSQLRequest(session, content, paramContainFlag(parameters, "types"))
+            handleSQLRequest(session, ctx, request, parameters)
                 .whenComplete((result, t) -> {
                     try {
+                        if (t == null && result == null) {
+                            // The result has been streamed
+                            return;
+                        }
                         sendResponse(session, ctx, request, parameters, result, t);
                     } catch (Throwable ex) {
                         LOGGER.error("Error sending response", ex);
@@ -128,6 +141,12 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         }
     }
 
+    @Nullable
+    private static String paramValue(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.get(values.size() - 1);
+    }
+
     /**
      * @return true if the parameters contains a flag entry (e.g. "/_sql?flag" or "/_sql?flag=true")
      */
@@ -136,6 +155,15 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         return values != null && (values.equals(singletonList("")) || values.equals(singletonList("true")));
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        RestStreamingResultSetReceiver receiver = streamingReceiver;
+        if (receiver != null) {
+            receiver.channelWritable();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
         if (session != null) {
@@ -188,10 +216,18 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         ctx.writeAndFlush(resp, promise);
     }
 
-    private CompletableFuture<XContentBuilder> handleSQLRequest(Session session, ByteBuf content, boolean includeTypes) {
+    /**
+     * @return a future completed with the response content or with null if the result has been streamed
+     */
+    private CompletableFuture<XContentBuilder> handleSQLRequest(Session session,
+                                                                ChannelHandlerContext ctx,
+                                                                FullHttpRequest request,
+                                                                Map<String, List<String>> parameters) {
         SQLRequestParseContext parseContext;
+        StreamingFormat format;
         try {
-            parseContext = SQLRequestParser.parseSource(Netty4Utils.toBytesReference(content));
+            format = StreamingFormat.of(paramValue(parameters, "format"));
+            parseContext = SQLRequestParser.parseSource(Netty4Utils.toBytesReference(request.content()));
         } catch (Throwable t) {
             return CompletableFuture.failedFuture(t);
         }
@@ -203,7 +239,15 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         }
         try {
             if (args != null || bulkArgs == null) {
-                return executeSimpleRequest(session, parseContext.stmt(), args, includeTypes);
+                return executeSimpleRequest(
+                    session,
+                    ctx,
+                    request,
+                    parseContext.stmt(),
+                    args,
+                    paramContainFlag(parameters, "types"),
+                    format
+                );
             } else {
                 return executeBulkRequest(session, parseContext.stmt(), bulkArgs);
             }
@@ -228,14 +272,20 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
     }
 
     private CompletableFuture<XContentBuilder> executeSimpleRequest(Session session,
+                                                                    ChannelHandlerContext ctx,
+                                                                    FullHttpRequest request,
                                                                     String stmt,
                                                                     List<Object> args,
-                                                                    boolean includeTypes) throws IOException {
+                                                                    boolean includeTypes,
+                                                                    @Nullable StreamingFormat format) throws IOException {
         long startTimeInNs = System.nanoTime();
         session.parse(UNNAMED, stmt, emptyList());
         session.bind(UNNAMED, UNNAMED, args == null ? emptyList() : args, null);
         DescribeResult description = session.describe('P', UNNAMED);
         List<Symbol> resultFields = description.getFields();
+        if (resultFields != null && format != null) {
+            return executeStreamingRequest(session, ctx, request, resultFields, format);
+        }
         ResultReceiver<XContentBuilder> resultReceiver;
         if (resultFields == null) {
             resultReceiver = new RestRowCountReceiver(JsonXContent.contentBuilder(), startTimeInNs, includeTypes);
@@ -261,6 +311,49 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
             .thenCompose(ignored -> resultReceiver.completionFuture());
     }
 
+    /**
+     * Executes the bound statement in batches of {@link #STREAMING_BATCH_SIZE} rows and writes each batch
+     * as a chunk once it is complete. The next batch is only requested once the channel is writable again.
+     */
+    private CompletableFuture<XContentBuilder> executeStreamingRequest(Session session,
+                                                                       ChannelHandlerContext ctx,
+                                                                       FullHttpRequest request,
+                                                                       List<Symbol> resultFields,
+                                                                       StreamingFormat format) throws IOException {
+        Channel channel = ctx.channel();
+        RestStreamingResultSetReceiver receiver = new RestStreamingResultSetReceiver(
+            channel,
+            request,
+            isCloseConnection(request),
+            corsConfig,
+            format,
+            Lists2.map(resultFields, field -> Symbols.pathFromSymbol(field).sqlFqn()),
+            suspendedReceiver -> {
+                try {
+                    session.execute(UNNAMED, STREAMING_BATCH_SIZE, suspendedReceiver);
+                    session.sync();
+                } catch (Throwable t) {
+                    suspendedReceiver.fail(t);
+                }
+            }
+        );
+        // Further requests on this connection would replace the unnamed portal of the suspended execution
+        channel.config().setAutoRead(false);
+        streamingReceiver = receiver;
+        try {
+            session.execute(UNNAMED, STREAMING_BATCH_SIZE, receiver);
+            session.sync();
+        } catch (Throwable t) {
+            receiver.fail(t);
+        }
+        return receiver.completionFuture()
+            .whenComplete((ignored, t) -> {
+                streamingReceiver = null;
+                channel.config().setAutoRead(true);
+            })
+            .thenApply(ignored -> null);
+    }
+
     private CompletableFuture<XContentBuilder> executeBulkRequest(Session session,
                                                                   String stmt,
                                                                   List<List<Object>> bulkArgs) {
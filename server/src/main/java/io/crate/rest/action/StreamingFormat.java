@@ -0,0 +1,160 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.data.Row;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Row based format of the result set of a statement sent via HTTP, selected with the {@code format} query parameter.
+ * These formats are streamed using chunked transfer encoding, see {@link RestStreamingResultSetReceiver}.
+ *
+ * <p>
+ * The default format {@code json} isn't streamed and builds the whole response in memory,
+ * see {@link RestResultSetReceiver}.
+ * </p>
+ */
+enum StreamingFormat {
+
+    /**
+     * One JSON object per row, keyed by the column names and terminated by a newline.
+     */
+    NDJSON("application/x-ndjson; charset=UTF-8") {
+        @Override
+        void writeHeader(List<String> columns, ByteBuf out) {
+        }
+
+        @Override
+        void writeRow(List<String> columns, Row row, ByteBuf out) throws IOException {
+            try (XContentBuilder builder = new XContentBuilder(JsonXContent.jsonXContent, new ByteBufOutputStream(out))) {
+                builder.startObject();
+                for (int i = 0; i < columns.size(); i++) {
+                    builder.field(columns.get(i), row.get(i));
+                }
+                builder.endObject();
+            }
+            out.writeByte('\n');
+        }
+    },
+
+    /**
+     * RFC 4180 CSV with a header line containing the column names.
+     * Values of object and array columns are written as JSON.
+     */
+    CSV("text/csv; charset=UTF-8") {
+        @Override
+        void writeHeader(List<String> columns, ByteBuf out) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.writeByte(',');
+                }
+                writeCsvField(columns.get(i), out);
+            }
+            out.writeCharSequence(CSV_LINE_SEPARATOR, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        void writeRow(List<String> columns, Row row, ByteBuf out) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.writeByte(',');
+                }
+                Object value = row.get(i);
+                if (value == null) {
+                    continue;
+                }
+                if (value instanceof String) {
+                    writeCsvField((String) value, out);
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    out.writeCharSequence(value.toString(), StandardCharsets.UTF_8);
+                } else {
+                    writeCsvField(Strings.toString(JsonXContent.contentBuilder().value(value)), out);
+                }
+            }
+            out.writeCharSequence(CSV_LINE_SEPARATOR, StandardCharsets.US_ASCII);
+        }
+    };
+
+    private static final String CSV_LINE_SEPARATOR = "\r\n";
+
+    private final String contentType;
+
+    StreamingFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Writes the part of the response which precedes the rows.
+     */
+    abstract void writeHeader(List<String> columns, ByteBuf out) throws IOException;
+
+    abstract void writeRow(List<String> columns, Row row, ByteBuf out) throws IOException;
+
+    /**
+     * @return the streaming format or null if the result is not streamed but returned as {@code json}.
+     */
+    @Nullable
+    static StreamingFormat of(@Nullable String format) {
+        if (format == null || format.isEmpty() || format.equalsIgnoreCase("json")) {
+            return null;
+        }
+        try {
+            return valueOf(format.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                "Unsupported result format: " + format + ", supported formats are: json, ndjson, csv");
+        }
+    }
+
+    private static void writeCsvField(String value, ByteBuf out) {
+        // Quote empty strings to distinguish them from null values
+        boolean needsQuotes = value.isEmpty();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (needsQuotes) {
+            out.writeByte('"');
+            out.writeCharSequence(value.replace("\"", "\"\""), StandardCharsets.UTF_8);
+            out.writeByte('"');
+        } else {
+            out.writeCharSequence(value, StandardCharsets.UTF_8);
+        }
+    }
+}
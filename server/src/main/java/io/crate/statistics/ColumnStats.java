@@ -111,6 +111,10 @@ public final class ColumnStats<T> implements Writeable {
         return histogram;
     }
 
+    public DataType<T> type() {
+        return type;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
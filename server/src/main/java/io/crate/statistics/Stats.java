@@ -36,6 +36,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @VisibleForTesting
 public class Stats implements Writeable {
@@ -126,4 +127,23 @@ public class Stats implements Writeable {
         }
         return sum;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Stats stats = (Stats) o;
+        return numDocs == stats.numDocs &&
+               sizeInBytes == stats.sizeInBytes &&
+               statsByColumn.equals(stats.statsByColumn);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(numDocs, sizeInBytes, statsByColumn);
+    }
 }
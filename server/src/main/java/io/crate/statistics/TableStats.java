@@ -24,8 +24,13 @@ package io.crate.statistics;
 import io.crate.metadata.RelationName;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Holds table statistics that are updated periodically by {@link TableStatsService}.
@@ -33,9 +38,38 @@ import java.util.Set;
 public class TableStats {
 
     private volatile Map<RelationName, Stats> tableStats = new HashMap<>();
+    private final List<Consumer<Set<RelationName>>> listeners = new CopyOnWriteArrayList<>();
 
     public void updateTableStats(Map<RelationName, Stats> tableStats) {
+        Map<RelationName, Stats> previous = this.tableStats;
         this.tableStats = tableStats;
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Set<RelationName> changedRelations = new HashSet<>();
+        for (var entry : tableStats.entrySet()) {
+            if (!Objects.equals(previous.get(entry.getKey()), entry.getValue())) {
+                changedRelations.add(entry.getKey());
+            }
+        }
+        for (RelationName relationName : previous.keySet()) {
+            if (!tableStats.containsKey(relationName)) {
+                changedRelations.add(relationName);
+            }
+        }
+        if (changedRelations.isEmpty()) {
+            return;
+        }
+        for (var listener : listeners) {
+            listener.accept(changedRelations);
+        }
+    }
+
+    /**
+     * Adds a listener which is called with the relations whose statistics changed on an update.
+     */
+    public void addListener(Consumer<Set<RelationName>> listener) {
+        listeners.add(listener);
     }
 
     /**
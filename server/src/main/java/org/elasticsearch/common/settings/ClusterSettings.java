@@ -301,6 +301,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
         TransportSettings.PUBLISH_PORT_PROFILE,
         TransportSettings.OLD_TRANSPORT_COMPRESS,
         TransportSettings.TRANSPORT_COMPRESS,
+        TransportSettings.TRANSPORT_COMPRESSION_SCHEME,
+        TransportSettings.TRANSPORT_COMPRESS_ACTIONS,
         TransportSettings.PING_SCHEDULE,
         TransportSettings.TCP_CONNECT_TIMEOUT,
         TransportSettings.CONNECT_TIMEOUT,
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.StreamSupport;
 
 import javax.annotation.Nullable;
@@ -54,6 +55,11 @@ final class DocumentParser {
     ParsedDocument parseDocument(SourceToParse source, MetadataFieldMapper[] metadataFieldsMappers) throws MapperParsingException {
         validateType();
 
+        Map<String, Object> values = source.values();
+        if (values != null && canCreateFieldsFromValues(values)) {
+            return createDocumentFromValues(source, values, metadataFieldsMappers);
+        }
+
         final Mapping mapping = docMapper.mapping();
         final ParseContext.InternalParseContext context;
         final XContentType xContentType = source.getXContentType();
@@ -83,6 +89,88 @@ final class DocumentParser {
         );
     }
 
+    /**
+     * Values can be indexed without parsing the source if each one is a scalar of an already mapped field
+     * which supports external values. Everything else, like objects, arrays or new columns, requires the source.
+     */
+    private boolean canCreateFieldsFromValues(Map<String, Object> values) {
+        DocumentFieldMappers fieldMappers = docMapper.mappers();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            if (!(fieldMappers.getMapper(entry.getKey()) instanceof FieldMapper fieldMapper)
+                || !acceptsExternalValue(fieldMapper, value)) {
+                return false;
+            }
+            for (String copyToField : fieldMapper.copyTo().copyToFields()) {
+                if (!(fieldMappers.getMapper(copyToField) instanceof FieldMapper copyToMapper)
+                    || !acceptsExternalValue(copyToMapper, value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean acceptsExternalValue(FieldMapper fieldMapper, Object value) {
+        if (fieldMapper instanceof KeywordFieldMapper
+            || fieldMapper instanceof TextFieldMapper
+            || fieldMapper instanceof IpFieldMapper) {
+            return value instanceof String;
+        } else if (fieldMapper instanceof NumberFieldMapper) {
+            return value instanceof Number;
+        } else if (fieldMapper instanceof DateFieldMapper) {
+            return value instanceof Long;
+        } else if (fieldMapper instanceof BooleanFieldMapper) {
+            return value instanceof Boolean;
+        }
+        return false;
+    }
+
+    /**
+     * Creates the document by passing the values as external values to the field mappers.
+     * This creates the same fields as {@link #parseDocument(SourceToParse, MetadataFieldMapper[])} but avoids
+     * tokenizing the source. The source is still stored as is.
+     */
+    private ParsedDocument createDocumentFromValues(SourceToParse source,
+                                                    Map<String, Object> values,
+                                                    MetadataFieldMapper[] metadataFieldsMappers) {
+        final ParseContext.InternalParseContext context =
+            new ParseContext.InternalParseContext(indexSettings, docMapperParser, docMapper, source, null);
+        DocumentFieldMappers fieldMappers = docMapper.mappers();
+        try {
+            for (MetadataFieldMapper metadataMapper : metadataFieldsMappers) {
+                metadataMapper.preParse(context);
+            }
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                Object value = entry.getValue();
+                if (value == null) {
+                    continue;
+                }
+                FieldMapper fieldMapper = (FieldMapper) fieldMappers.getMapper(entry.getKey());
+                ParseContext valueContext = context.createExternalValueContext(value);
+                fieldMapper.parse(valueContext);
+                parseCopyFields(valueContext, fieldMapper.copyTo().copyToFields());
+            }
+            for (MetadataFieldMapper metadataMapper : metadataFieldsMappers) {
+                metadataMapper.postParse(context);
+            }
+        } catch (Exception e) {
+            throw wrapInMapperParsingException(source, e);
+        }
+        return new ParsedDocument(
+            context.version(),
+            context.seqID(),
+            source.id(),
+            source.routing(),
+            context.docs(),
+            source.source(),
+            null
+        );
+    }
+
     private static void internalParseDocument(Mapping mapping, MetadataFieldMapper[] metadataFieldsMappers,
                                               ParseContext.InternalParseContext context, XContentParser parser) throws IOException {
         final boolean emptyDoc = isEmptyDoc(mapping, parser);
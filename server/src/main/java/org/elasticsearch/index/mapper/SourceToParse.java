@@ -24,6 +24,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentType;
 
+import java.util.Map;
 import java.util.Objects;
 
 public class SourceToParse {
@@ -38,7 +39,18 @@ public class SourceToParse {
 
     private final XContentType xContentType;
 
-    public SourceToParse(String index, String id, BytesReference source, XContentType xContentType, @Nullable String routing) {
+    private final @Nullable Map<String, Object> values;
+
+    /**
+     * @param values the typed values of the top-level columns the {@code source} was generated from.
+     *               If present, the fields of the document are created from them instead of parsing the source.
+     */
+    public SourceToParse(String index,
+                         String id,
+                         BytesReference source,
+                         XContentType xContentType,
+                         @Nullable String routing,
+                         @Nullable Map<String, Object> values) {
         this.index = Objects.requireNonNull(index);
         this.id = Objects.requireNonNull(id);
         // we always convert back to byte array, since we store it and Field only supports bytes..
@@ -46,6 +58,11 @@ public class SourceToParse {
         this.source = new BytesArray(Objects.requireNonNull(source).toBytesRef());
         this.xContentType = Objects.requireNonNull(xContentType);
         this.routing = routing;
+        this.values = values;
+    }
+
+    public SourceToParse(String index, String id, BytesReference source, XContentType xContentType, @Nullable String routing) {
+        this(index, id, source, xContentType, routing, null);
     }
 
     public SourceToParse(String index, String id, BytesReference source, XContentType xContentType) {
@@ -72,6 +89,10 @@ public class SourceToParse {
         return this.xContentType;
     }
 
+    public @Nullable Map<String, Object> values() {
+        return this.values;
+    }
+
     public enum Origin {
         PRIMARY,
         REPLICA
@@ -31,7 +31,7 @@ import java.util.zip.DeflaterOutputStream;
 
 /**
  * This class exists to provide a stream with optional compression. This is useful as using compression
- * requires that the underlying {@link DeflaterOutputStream} be closed to write EOS bytes. However, the
+ * requires that the underlying {@link DeflaterOutputStream} or {@link Lz4StreamOutput} be closed to write EOS bytes. However, the
  * {@link BytesStream} should not be closed yet, as we have not used the bytes. This class handles these
  * intricacies.
  *
@@ -49,10 +49,19 @@ final class CompressibleBytesOutputStream extends StreamOutput {
     private final boolean shouldCompress;
 
     CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress) throws IOException {
+        this(bytesStreamOutput, shouldCompress, Compression.Scheme.DEFLATE);
+    }
+
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput,
+                                  boolean shouldCompress,
+                                  Compression.Scheme scheme) throws IOException {
         this.bytesStreamOutput = bytesStreamOutput;
         this.shouldCompress = shouldCompress;
         if (shouldCompress) {
-            this.stream = CompressorFactory.COMPRESSOR.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+            this.stream = switch (scheme) {
+                case DEFLATE -> CompressorFactory.COMPRESSOR.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+                case LZ4 -> new Lz4StreamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+            };
         } else {
             this.stream = bytesStreamOutput;
         }
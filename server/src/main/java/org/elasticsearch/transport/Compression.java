@@ -0,0 +1,112 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.transport;
+
+import java.util.Locale;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.settings.Settings;
+
+/**
+ * Decides if and how transport messages are compressed.
+ *
+ * <p>
+ * Requests are compressed if compression is enabled for the connection ({@link TransportSettings#TRANSPORT_COMPRESS})
+ * or if their action matches one of the patterns of {@link TransportSettings#TRANSPORT_COMPRESS_ACTIONS}.
+ * Responses are compressed if the request was compressed.
+ * </p>
+ *
+ * <p>
+ * The scheme is chosen by the sender. LZ4 is only used if the version negotiated with the other node during the
+ * handshake supports it, otherwise DEFLATE is used. The receiver detects the scheme by the header of the compressed
+ * content.
+ * </p>
+ */
+public final class Compression {
+
+    public enum Scheme {
+        DEFLATE,
+        LZ4;
+
+        static final Version LZ4_VERSION = Version.V_4_7_0;
+        static final int HEADER_LENGTH = 4;
+        static final byte[] LZ4_HEADER = new byte[] {'L', 'Z', '4', '\0'};
+
+        public static Scheme of(String value) {
+            return valueOf(value.toUpperCase(Locale.ENGLISH));
+        }
+
+        static boolean isDeflate(BytesReference bytes) {
+            return CompressorFactory.COMPRESSOR.isCompressed(bytes);
+        }
+
+        static boolean isLZ4(BytesReference bytes) {
+            if (bytes.length() < LZ4_HEADER.length) {
+                return false;
+            }
+            for (int i = 0; i < LZ4_HEADER.length; i++) {
+                if (bytes.get(i) != LZ4_HEADER[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static final Compression DEFAULT = new Compression(Scheme.DEFLATE, new String[0]);
+
+    private final Scheme scheme;
+    private final String[] actionPatterns;
+
+    public Compression(Settings settings) {
+        this(
+            TransportSettings.TRANSPORT_COMPRESSION_SCHEME.get(settings),
+            TransportSettings.TRANSPORT_COMPRESS_ACTIONS.get(settings).toArray(new String[0])
+        );
+    }
+
+    Compression(Scheme scheme, String[] actionPatterns) {
+        this.scheme = scheme;
+        this.actionPatterns = actionPatterns;
+    }
+
+    /**
+     * @param compressAll true if compression is enabled for all requests of the connection
+     */
+    boolean compressRequest(String action, boolean compressAll) {
+        return compressAll || (actionPatterns.length > 0 && Regex.simpleMatch(actionPatterns, action));
+    }
+
+    /**
+     * @param version the version used to communicate with the other node
+     * @return the scheme to use if a message to the other node is compressed
+     */
+    Scheme scheme(Version version) {
+        if (scheme == Scheme.LZ4 && version.onOrAfter(Scheme.LZ4_VERSION)) {
+            return Scheme.LZ4;
+        }
+        return Scheme.DEFLATE;
+    }
+}
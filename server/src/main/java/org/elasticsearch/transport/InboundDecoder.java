@@ -38,6 +38,7 @@ public class InboundDecoder implements Releasable {
     private final Version version;
     private final PageCacheRecycler recycler;
     private TransportDecompressor decompressor;
+    private boolean isCompressed = false;
     private int totalNetworkSize = -1;
     private int bytesConsumed = 0;
     private boolean isClosed = false;
@@ -74,9 +75,7 @@ public class InboundDecoder implements Releasable {
 
                     Header header = readHeader(messageLength, reference);
                     bytesConsumed += headerBytesToRead;
-                    if (header.isCompressed()) {
-                        decompressor = new TransportDecompressor(recycler);
-                    }
+                    isCompressed = header.isCompressed();
                     fragmentConsumer.accept(header);
 
                     if (isDone()) {
@@ -86,9 +85,15 @@ public class InboundDecoder implements Releasable {
                 }
             }
         } else {
-            // There are a minimum number of bytes required to start decompression
-            if (decompressor != null && decompressor.canDecompress(reference.length()) == false) {
-                return 0;
+            if (isCompressed && decompressor == null) {
+                // Attempt to initialize decompressor, there are a minimum number of bytes required
+                // to detect the compression scheme
+                TransportDecompressor decompressor = TransportDecompressor.getDecompressor(recycler, reference);
+                if (decompressor == null) {
+                    return 0;
+                } else {
+                    this.decompressor = decompressor;
+                }
             }
             int bytesToConsume = Math.min(reference.length(), totalNetworkSize - bytesConsumed);
             bytesConsumed += bytesToConsume;
@@ -129,6 +134,7 @@ public class InboundDecoder implements Releasable {
     private void cleanDecodeState() {
         IOUtils.closeWhileHandlingException(decompressor);
         decompressor = null;
+        isCompressed = false;
         totalNetworkSize = -1;
         bytesConsumed = 0;
     }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.transport;
+
+import java.io.IOException;
+
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+/**
+ * Compresses the written bytes in blocks with {@link LZ4}.
+ *
+ * <pre>
+ * header       - {@link Compression.Scheme#LZ4_HEADER}
+ * blocks       - uncompressed length (int), compressed length (int), compressed bytes
+ * end of stream - uncompressed length of 0 (int)
+ * </pre>
+ *
+ * The blocks can be decompressed independently, see {@link Lz4TransportDecompressor}.
+ */
+final class Lz4StreamOutput extends StreamOutput {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private final StreamOutput out;
+    private final LZ4.FastCompressionHashTable hashTable = new LZ4.FastCompressionHashTable();
+    private final ByteArrayDataOutput compressedOut = new ByteArrayDataOutput();
+    private byte[] buffer = new byte[1024];
+    private byte[] compressed = new byte[0];
+    private int position = 0;
+    private boolean closed = false;
+
+    /**
+     * @param out the stream the compressed bytes are written to, it is closed once this stream is closed.
+     */
+    Lz4StreamOutput(StreamOutput out) throws IOException {
+        this.out = out;
+        out.writeBytes(Compression.Scheme.LZ4_HEADER);
+    }
+
+    @Override
+    public void writeByte(byte b) throws IOException {
+        if (position == buffer.length) {
+            makeRoom(1);
+        }
+        buffer[position++] = b;
+    }
+
+    @Override
+    public void writeBytes(byte[] b, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position == buffer.length) {
+                makeRoom(length);
+            }
+            int toCopy = Math.min(length, buffer.length - position);
+            System.arraycopy(b, offset, buffer, position, toCopy);
+            position += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+        }
+    }
+
+    /**
+     * Grows the buffer up to the block size, or writes the block if the buffer is full.
+     */
+    private void makeRoom(int bytesToWrite) throws IOException {
+        if (buffer.length < BLOCK_SIZE) {
+            int newLength = Math.min(BLOCK_SIZE, ArrayUtil.oversize(position + bytesToWrite, Byte.BYTES));
+            buffer = ArrayUtil.growExact(buffer, newLength);
+        } else {
+            writeBlock();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        // Worst case if the bytes can't be compressed, see LZ4 block format
+        compressed = ArrayUtil.grow(compressed, position + position / 255 + 16);
+        compressedOut.reset(compressed);
+        LZ4.compress(buffer, 0, position, compressedOut, hashTable);
+        out.writeInt(position);
+        out.writeInt(compressedOut.getPosition());
+        out.writeBytes(compressed, 0, compressedOut.getPosition());
+        position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writeBlock();
+        out.writeInt(0);
+        out.close();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.transport;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.util.PageCacheRecycler;
+
+/**
+ * Decompresses content written by {@link Lz4StreamOutput}.
+ * Bytes of a block are buffered until the block was received completely.
+ */
+public class Lz4TransportDecompressor implements TransportDecompressor {
+
+    private final PageCacheRecycler recycler;
+    private final ArrayDeque<Recycler.V<byte[]>> pages = new ArrayDeque<>(4);
+    private int pageOffset = PageCacheRecycler.BYTE_PAGE_SIZE;
+    private boolean hasReadHeader = false;
+    private boolean isEOS = false;
+
+    private byte[] pending = BytesRef.EMPTY_BYTES;
+    private int pendingLength = 0;
+    private byte[] uncompressed = BytesRef.EMPTY_BYTES;
+
+    public Lz4TransportDecompressor(PageCacheRecycler recycler) {
+        this.recycler = recycler;
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        int bytesConsumed = 0;
+        if (hasReadHeader == false) {
+            if (Compression.Scheme.isLZ4(bytesReference) == false) {
+                throw new IllegalStateException("stream marked as LZ4 compressed, but the LZ4 header is missing");
+            }
+            hasReadHeader = true;
+            int headerLength = Compression.Scheme.HEADER_LENGTH;
+            bytesReference = bytesReference.slice(headerLength, bytesReference.length() - headerLength);
+            bytesConsumed += headerLength;
+        }
+        if (isEOS) {
+            return bytesConsumed;
+        }
+
+        pending = ArrayUtil.grow(pending, pendingLength + bytesReference.length());
+        BytesRefIterator refIterator = bytesReference.iterator();
+        BytesRef ref;
+        while ((ref = refIterator.next()) != null) {
+            System.arraycopy(ref.bytes, ref.offset, pending, pendingLength, ref.length);
+            pendingLength += ref.length;
+        }
+        bytesConsumed += bytesReference.length();
+
+        int offset = 0;
+        while (pendingLength - offset >= Integer.BYTES) {
+            int uncompressedLength = readInt(pending, offset);
+            if (uncompressedLength == 0) {
+                isEOS = true;
+                offset += Integer.BYTES;
+                break;
+            }
+            if (pendingLength - offset < 2 * Integer.BYTES) {
+                break;
+            }
+            int compressedLength = readInt(pending, offset + Integer.BYTES);
+            if (uncompressedLength < 0 || uncompressedLength > Lz4StreamOutput.BLOCK_SIZE || compressedLength < 0) {
+                throw new IOException("Invalid LZ4 block, uncompressed length [" + uncompressedLength
+                                      + "], compressed length [" + compressedLength + "]");
+            }
+            if (pendingLength - offset - 2 * Integer.BYTES < compressedLength) {
+                break;
+            }
+            uncompressed = ArrayUtil.grow(uncompressed, uncompressedLength);
+            LZ4.decompress(
+                new ByteArrayDataInput(pending, offset + 2 * Integer.BYTES, compressedLength),
+                uncompressedLength,
+                uncompressed,
+                0
+            );
+            addToPages(uncompressed, uncompressedLength);
+            offset += 2 * Integer.BYTES + compressedLength;
+        }
+        if (isEOS) {
+            // Any remaining bytes don't belong to the compressed content
+            bytesConsumed -= pendingLength - offset;
+            pendingLength = 0;
+        } else {
+            System.arraycopy(pending, offset, pending, 0, pendingLength - offset);
+            pendingLength -= offset;
+        }
+        return bytesConsumed;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+               | ((bytes[offset + 1] & 0xFF) << 16)
+               | ((bytes[offset + 2] & 0xFF) << 8)
+               | (bytes[offset + 3] & 0xFF);
+    }
+
+    private void addToPages(byte[] bytes, int length) {
+        int offset = 0;
+        while (offset < length) {
+            if (pageOffset == PageCacheRecycler.BYTE_PAGE_SIZE) {
+                pages.add(recycler.bytePage(false));
+                pageOffset = 0;
+            }
+            byte[] page = pages.getLast().v();
+            int toCopy = Math.min(length - offset, PageCacheRecycler.BYTE_PAGE_SIZE - pageOffset);
+            System.arraycopy(bytes, offset, page, pageOffset, toCopy);
+            pageOffset += toCopy;
+            offset += toCopy;
+        }
+    }
+
+    @Override
+    public boolean isEOS() {
+        return isEOS;
+    }
+
+    @Override
+    public ReleasableBytesReference pollDecompressedPage() {
+        if (pages.isEmpty()) {
+            return null;
+        } else if (pages.size() == 1) {
+            if (isEOS) {
+                Recycler.V<byte[]> page = pages.pollFirst();
+                ReleasableBytesReference reference = new ReleasableBytesReference(new BytesArray(page.v(), 0, pageOffset), page);
+                pageOffset = 0;
+                return reference;
+            } else {
+                return null;
+            }
+        } else {
+            Recycler.V<byte[]> page = pages.pollFirst();
+            return new ReleasableBytesReference(new BytesArray(page.v()), page);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Recycler.V<byte[]> page : pages) {
+            page.close();
+        }
+    }
+}
@@ -48,6 +48,7 @@ final class OutboundHandler {
     private final StatsTracker statsTracker;
     private final ThreadPool threadPool;
     private final BigArrays bigArrays;
+    private final Compression compression;
 
     private volatile TransportMessageListener messageListener = TransportMessageListener.NOOP_LISTENER;
 
@@ -56,11 +57,21 @@ final class OutboundHandler {
                     StatsTracker statsTracker,
                     ThreadPool threadPool,
                     BigArrays bigArrays) {
+        this(nodeName, version, statsTracker, threadPool, bigArrays, Compression.DEFAULT);
+    }
+
+    OutboundHandler(String nodeName,
+                    Version version,
+                    StatsTracker statsTracker,
+                    ThreadPool threadPool,
+                    BigArrays bigArrays,
+                    Compression compression) {
         this.nodeName = nodeName;
         this.version = version;
         this.statsTracker = statsTracker;
         this.threadPool = threadPool;
         this.bigArrays = bigArrays;
+        this.compression = compression;
     }
 
     void sendBytes(TcpChannel channel, BytesReference bytes, ActionListener<Void> listener) {
@@ -93,7 +104,8 @@ final class OutboundHandler {
             action,
             requestId,
             isHandshake,
-            compressRequest
+            isHandshake ? compressRequest : compression.compressRequest(action, compressRequest),
+            compression.scheme(version)
         );
         ActionListener<Void> listener = ActionListener.wrap(() ->
             messageListener.onRequestSent(node, requestId, action, request, options));
@@ -118,7 +130,8 @@ final class OutboundHandler {
             version,
             requestId,
             isHandshake,
-            compress
+            compress,
+            compression.scheme(version)
         );
         ActionListener<Void> listener = ActionListener.wrap(
             () -> messageListener.onResponseSent(requestId, action, response)
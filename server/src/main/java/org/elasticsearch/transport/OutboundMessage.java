@@ -34,10 +34,12 @@ import java.io.IOException;
 abstract class OutboundMessage extends NetworkMessage {
 
     private final Writeable message;
+    private final Compression.Scheme compressionScheme;
 
-    OutboundMessage(Version version, byte status, long requestId, Writeable message) {
+    OutboundMessage(Version version, byte status, long requestId, Writeable message, Compression.Scheme compressionScheme) {
         super(version, status, requestId);
         this.message = message;
+        this.compressionScheme = compressionScheme;
     }
 
     BytesReference serialize(BytesStreamOutput bytesStream) throws IOException {
@@ -54,7 +56,7 @@ abstract class OutboundMessage extends NetworkMessage {
             variableHeaderLength = Math.toIntExact(bytesStream.position() - preHeaderPosition);
         }
 
-        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status))) {
+        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status), compressionScheme)) {
             stream.setVersion(version);
             if (variableHeaderLength == -1) {
                 writeVariableHeader(stream);
@@ -108,7 +110,17 @@ abstract class OutboundMessage extends NetworkMessage {
                 long requestId,
                 boolean isHandshake,
                 boolean compress) {
-            super(version, setStatus(compress, isHandshake, message), requestId, message);
+            this(message, version, action, requestId, isHandshake, compress, Compression.Scheme.DEFLATE);
+        }
+
+        Request(Writeable message,
+                Version version,
+                String action,
+                long requestId,
+                boolean isHandshake,
+                boolean compress,
+                Compression.Scheme compressionScheme) {
+            super(version, setStatus(compress, isHandshake, message), requestId, message, compressionScheme);
             this.action = action;
         }
 
@@ -143,7 +155,16 @@ abstract class OutboundMessage extends NetworkMessage {
                  long requestId,
                  boolean isHandshake,
                  boolean compress) {
-            super(version, setStatus(compress, isHandshake, message), requestId, message);
+            this(message, version, requestId, isHandshake, compress, Compression.Scheme.DEFLATE);
+        }
+
+        Response(Writeable message,
+                 Version version,
+                 long requestId,
+                 boolean isHandshake,
+                 boolean compress,
+                 Compression.Scheme compressionScheme) {
+            super(version, setStatus(compress, isHandshake, message), requestId, message, compressionScheme);
         }
 
         private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
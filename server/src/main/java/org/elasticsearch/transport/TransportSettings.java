@@ -28,6 +28,7 @@ import io.crate.types.DataTypes;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Function;
 
 import static io.crate.types.DataTypes.STRING_ARRAY;
@@ -80,6 +81,14 @@ public final class TransportSettings {
         boolSetting("transport.tcp.compress", false, Setting.Property.NodeScope);
     public static final Setting<Boolean> TRANSPORT_COMPRESS =
         boolSetting("transport.compress", OLD_TRANSPORT_COMPRESS, Setting.Property.NodeScope);
+    public static final Setting<Compression.Scheme> TRANSPORT_COMPRESSION_SCHEME = new Setting<>(
+        "transport.compression_scheme",
+        Compression.Scheme.DEFLATE.name().toLowerCase(Locale.ENGLISH),
+        Compression.Scheme::of,
+        DataTypes.STRING,
+        Setting.Property.NodeScope);
+    public static final Setting<List<String>> TRANSPORT_COMPRESS_ACTIONS =
+        listSetting("transport.compress_actions", emptyList(), Function.identity(), STRING_ARRAY, Setting.Property.NodeScope);
     // the scheduled internal ping interval setting, defaults to disabled (-1)
     public static final Setting<TimeValue> PING_SCHEDULE =
         timeSetting("transport.ping_schedule", TimeValue.timeValueSeconds(-1), Setting.Property.NodeScope);
@@ -60,6 +60,7 @@ import io.crate.expression.symbol.ParameterSymbol;
 import io.crate.expression.symbol.Symbol;
 import io.crate.planner.DependencyCarrier;
 import io.crate.planner.Plan;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import io.crate.planner.PlannerContext;
 import io.crate.planner.operators.SubQueryResults;
@@ -130,6 +131,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             sqlExecutor.planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             mock(DependencyCarrier.class),
@@ -152,6 +154,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             sqlExecutor.planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             executor,
@@ -176,6 +179,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             sqlExecutor.planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             mock(DependencyCarrier.class),
@@ -218,6 +222,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             mock(Planner.class, Answers.RETURNS_MOCKS),
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             dependencies,
@@ -378,6 +383,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             sqlExecutor.planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             executor,
@@ -414,6 +420,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             sqlExecutor.planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             executor,
@@ -442,6 +449,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             sqlExecutor.planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             executor,
@@ -469,6 +477,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             sqlExecutor.planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             executor,
@@ -494,6 +503,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             sqlExecutor.planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             executor,
@@ -544,6 +554,7 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             planner,
+            new PlanCache(0),
             jobsLogs,
             false,
             executor,
@@ -382,4 +382,50 @@ public class CopyAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         BoundCopyTo analysis = analyze("COPY doc.generated_copy (i) TO DIRECTORY '/dummy'");
         assertThat(analysis.outputNames(), contains("i"));
     }
+
+    @Test
+    public void test_copy_from_stdin_resolves_target_columns_and_options() throws Exception {
+        AnalyzedCopyFromStdin analysis = e.analyze(
+            "COPY users (id, name) FROM STDIN WITH (format = 'csv', header = true, delimiter = ';')");
+        assertThat(analysis.tableInfo().ident(), is(USER_TABLE_IDENT));
+        assertThat(analysis.columns(), contains(isReference("id"), isReference("name")));
+        assertThat(analysis.options().format(), is(CopyStdioOptions.Format.CSV));
+        assertThat(analysis.options().delimiter(), is(';'));
+        assertThat(analysis.options().nullString(), is(""));
+        assertThat(analysis.options().header(), is(true));
+    }
+
+    @Test
+    public void test_copy_from_stdin_uses_text_format_by_default() throws Exception {
+        AnalyzedCopyFromStdin analysis = e.analyze("COPY users (id) FROM STDIN");
+        assertThat(analysis.options(), is(CopyStdioOptions.DEFAULT));
+    }
+
+    @Test
+    public void test_copy_from_stdin_rejects_header_in_text_format() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("COPY option `header` is only supported in csv format");
+        e.analyze("COPY users FROM STDIN WITH (header = true)");
+    }
+
+    @Test
+    public void test_copy_from_stdin_rejects_options_in_binary_format() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("COPY options other than `format` are not supported in binary format");
+        e.analyze("COPY users FROM STDIN WITH (format = 'binary', delimiter = ',')");
+    }
+
+    @Test
+    public void test_copy_to_stdout_of_table_selects_the_columns() throws Exception {
+        AnalyzedCopyToStdout analysis = e.analyze("COPY users (id, name) TO STDOUT WITH (format = 'csv')");
+        assertThat(analysis.outputs(), contains(isReference("id"), isReference("name")));
+        assertThat(analysis.options().format(), is(CopyStdioOptions.Format.CSV));
+    }
+
+    @Test
+    public void test_copy_to_stdout_of_query() throws Exception {
+        AnalyzedCopyToStdout analysis = e.analyze("COPY (SELECT id FROM users WHERE id > 1) TO STDOUT");
+        assertThat(analysis.outputs(), contains(isReference("id")));
+        assertThat(analysis.options(), is(CopyStdioOptions.DEFAULT));
+    }
 }
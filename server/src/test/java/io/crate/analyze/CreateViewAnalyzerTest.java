@@ -23,6 +23,7 @@ package io.crate.analyze;
 
 import io.crate.user.User;
 import io.crate.exceptions.InvalidRelationName;
+import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.Schemas;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
@@ -83,6 +84,34 @@ public class CreateViewAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         assertTrue(createView.replaceExisting());
     }
 
+    @Test
+    public void test_create_materialized_view_with_mergeable_aggregates() {
+        CreateViewStmt createView = e.analyze("create materialized view v1 as select x, count(*), sum(x) from t1 group by x");
+        assertThat(createView.materialized(), is(true));
+    }
+
+    @Test
+    public void test_create_materialized_view_without_aggregates_is_not_allowed() {
+        expectedException.expect(UnsupportedFeatureException.class);
+        expectedException.expectMessage("The query of a materialized view must contain at least one aggregate");
+        e.analyze("create materialized view v1 as select x from t1");
+    }
+
+    @Test
+    public void test_create_materialized_view_with_order_by_is_not_allowed() {
+        expectedException.expect(UnsupportedFeatureException.class);
+        expectedException.expectMessage(
+            "The query of a materialized view must not contain DISTINCT, HAVING, ORDER BY, LIMIT or OFFSET");
+        e.analyze("create materialized view v1 as select x, count(*) from t1 group by x order by 2");
+    }
+
+    @Test
+    public void test_create_materialized_view_with_not_mergeable_aggregate_is_not_allowed() {
+        expectedException.expect(UnsupportedFeatureException.class);
+        expectedException.expectMessage("The query of a materialized view must only select group keys and the aggregates");
+        e.analyze("create materialized view v1 as select x, array_agg(x) from t1 group by x");
+    }
+
     @Test
     public void testViewNameWithDotsAreNotAllowed() {
         expectedException.expect(InvalidRelationName.class);
@@ -0,0 +1,164 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.data.Input;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.SearchPath;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class MaterializedAggregationTest extends CrateDummyClusterServiceUnitTest {
+
+    private final OnHeapMemoryManager memoryManager = new OnHeapMemoryManager(bytes -> { });
+    private SQLExecutor e;
+
+    @Before
+    public void setUpExecutor() throws Exception {
+        e = SQLExecutor.builder(clusterService)
+            .addTable("create table doc.t (g text, x int)")
+            .build();
+    }
+
+    private MaterializedAggregation materialize(String stmt) {
+        return MaterializedAggregation.of(e.analyze(stmt), e.nodeCtx, SearchPath.pathWithPGCatalogAndDoc());
+    }
+
+    /**
+     * Computes the partial states of the aggregates for rows with the given values of {@code x}
+     */
+    @SuppressWarnings("unchecked")
+    private Object[] states(MaterializedAggregation aggregation, int... values) {
+        List<Function> aggregates = aggregation.aggregates();
+        Object[] states = new Object[aggregates.size()];
+        for (int i = 0; i < states.length; i++) {
+            Function aggregate = aggregates.get(i);
+            var function = (AggregationFunction<Object, ?>) e.nodeCtx.functions().getQualified(
+                aggregate, SearchPath.pathWithPGCatalogAndDoc());
+            Object state = function.newState(RamAccounting.NO_ACCOUNTING, Version.CURRENT, Version.CURRENT, memoryManager);
+            for (int value : values) {
+                List<Symbol> arguments = aggregate.arguments();
+                Input<?>[] inputs = new Input[arguments.size()];
+                for (int j = 0; j < inputs.length; j++) {
+                    if (arguments.get(j) instanceof Literal<?> literal) {
+                        inputs[j] = literal;
+                    } else {
+                        inputs[j] = () -> value;
+                    }
+                }
+                state = function.iterate(RamAccounting.NO_ACCOUNTING, memoryManager, state, inputs);
+            }
+            states[i] = state;
+        }
+        return states;
+    }
+
+    private static Map<List<Object>, Object[]> terminate(MaterializedAggregation aggregation,
+                                                        Map<List<Object>, Object[]> groups) {
+        HashMap<List<Object>, Object[]> rows = new HashMap<>();
+        aggregation.terminate(groups, rows::put);
+        return rows;
+    }
+
+    @Test
+    public void test_stored_and_new_states_of_shards_are_merged_per_group() {
+        MaterializedAggregation aggregation = materialize(
+            "select g, count(*), sum(x), avg(x), percentile(x, 0.5) from doc.t group by g");
+
+        HashMap<List<Object>, Object[]> storedShard = new HashMap<>();
+        aggregation.merge(storedShard, List.of("a"), states(aggregation, 0, 1, 2, 3, 4));
+        aggregation.merge(storedShard, List.of("b"), states(aggregation, 10));
+        HashMap<List<Object>, Object[]> changedShard = new HashMap<>();
+        aggregation.merge(changedShard, List.of("a"), states(aggregation, 5, 6, 7));
+        aggregation.merge(changedShard, List.of("a"), states(aggregation, 8, 9));
+        assertThat(changedShard, aMapWithSize(1));
+
+        BytesReference stored = aggregation.serialize(storedShard.entrySet());
+        BytesReference changed = aggregation.serialize(changedShard.entrySet());
+        HashMap<List<Object>, Object[]> groups = new HashMap<>();
+        aggregation.deserializeInto(changed, groups);
+        aggregation.deserializeInto(stored, groups);
+
+        Map<List<Object>, Object[]> rows = terminate(aggregation, groups);
+        assertThat(rows, aMapWithSize(2));
+        assertThat(rows.get(List.of("a")), is($("a", 10L, 45L, 4.5, 4.5)));
+        assertThat(rows.get(List.of("b")), is($("b", 1L, 10L, 10.0, 10.0)));
+    }
+
+    @Test
+    public void test_outputs_are_terminated_in_the_order_of_the_view_query() {
+        MaterializedAggregation aggregation = materialize("select avg(x), g, count(*) from doc.t group by g");
+
+        HashMap<List<Object>, Object[]> groups = new HashMap<>();
+        aggregation.merge(groups, List.of("a"), states(aggregation, 1, 2));
+        HashMap<List<Object>, Object[]> deserialized = new HashMap<>();
+        aggregation.deserializeInto(aggregation.serialize(groups.entrySet()), deserialized);
+
+        assertThat(terminate(aggregation, deserialized).get(List.of("a")), is($(1.5, "a", 2L)));
+    }
+
+    @Test
+    public void test_global_aggregate_without_states_results_in_a_single_row() {
+        MaterializedAggregation aggregation = materialize(
+            "select count(*), sum(x), avg(x), percentile(x, 0.5) from doc.t");
+
+        Map<List<Object>, Object[]> rows = terminate(aggregation, Map.of());
+        assertThat(rows, aMapWithSize(1));
+        assertThat(rows.get(List.of()), is($(0L, null, null, null)));
+        assertThat(aggregation.serializeKey(List.of()).length(), greaterThan(0));
+    }
+
+    @Test
+    public void test_global_aggregate_states_are_merged_into_a_single_group() {
+        MaterializedAggregation aggregation = materialize("select count(*), avg(x) from doc.t");
+
+        HashMap<List<Object>, Object[]> shard1 = new HashMap<>();
+        aggregation.merge(shard1, List.of(), states(aggregation, 1, 2));
+        HashMap<List<Object>, Object[]> shard2 = new HashMap<>();
+        aggregation.merge(shard2, List.of(), states(aggregation, 6));
+        HashMap<List<Object>, Object[]> groups = new HashMap<>();
+        aggregation.deserializeInto(aggregation.serialize(shard1.entrySet()), groups);
+        aggregation.deserializeInto(aggregation.serialize(shard2.entrySet()), groups);
+
+        Map<List<Object>, Object[]> rows = terminate(aggregation, groups);
+        assertThat(rows, aMapWithSize(1));
+        assertThat(rows.get(List.of()), is($(3L, 3.0)));
+    }
+}
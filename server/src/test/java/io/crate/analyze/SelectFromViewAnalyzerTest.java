@@ -30,6 +30,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static io.crate.testing.RelationMatchers.isDocTable;
+import static io.crate.testing.SymbolMatchers.isAlias;
 import static io.crate.testing.SymbolMatchers.isField;
 import static io.crate.testing.SymbolMatchers.isReference;
 import static org.hamcrest.Matchers.contains;
@@ -44,6 +45,9 @@ public class SelectFromViewAnalyzerTest extends CrateDummyClusterServiceUnitTest
         e = SQLExecutor.builder(clusterService)
             .addTable("create table doc.t1 (name string, x int)")
             .addView(new RelationName("doc", "v1"), "select name, count(*) from doc.t1 group by name")
+            .addMaterializedView(new RelationName("doc", "mv1"), "select name, count(*) from doc.t1 group by name")
+            .addTable("create table doc.mv1__rows (group_key text primary key, c0 text, c1 bigint)")
+            .addMaterializedView(new RelationName("doc", "mv2"), "select count(*) from doc.t1")
             .build();
     }
 
@@ -57,4 +61,26 @@ public class SelectFromViewAnalyzerTest extends CrateDummyClusterServiceUnitTest
         assertThat(queriedDocTable.groupBy(), contains(isReference("name")));
         assertThat(queriedDocTable.from(), contains(isDocTable(new RelationName("doc", "t1"))));
     }
+
+    @Test
+    public void test_select_from_materialized_view_reads_the_rows_table() {
+        QueriedSelectRelation query = e.analyze("select * from doc.mv1");
+        assertThat(query.outputs(), contains(isField("name"), isField("count(*)")));
+        AnalyzedView view = (AnalyzedView) query.from().get(0);
+        QueriedSelectRelation rows = (QueriedSelectRelation) view.relation();
+        assertThat(rows.groupBy(), Matchers.empty());
+        assertThat(rows.from(), contains(isDocTable(new RelationName("doc", "mv1__rows"))));
+        assertThat(rows.outputs(), contains(isAlias("name", isReference("c0")), isAlias("count(*)", isReference("c1"))));
+        QueriedSelectRelation source = (QueriedSelectRelation) view.source();
+        assertThat(source.from(), contains(isDocTable(new RelationName("doc", "t1"))));
+    }
+
+    @Test
+    public void test_select_from_materialized_view_without_rows_table_runs_the_view_query() {
+        QueriedSelectRelation query = e.analyze("select * from doc.mv2");
+        AnalyzedView view = (AnalyzedView) query.from().get(0);
+        assertThat(view.relation(), Matchers.sameInstance(view.source()));
+        QueriedSelectRelation queriedDocTable = (QueriedSelectRelation) view.relation();
+        assertThat(queriedDocTable.from(), contains(isDocTable(new RelationName("doc", "t1"))));
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze.where;
+
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PartitionIndexTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+    private DocTableInfo table;
+
+    @Before
+    public void prepare() throws Exception {
+        RelationName relationName = new RelationName("doc", "parted");
+        e = SQLExecutor.builder(clusterService)
+            .addPartitionedTable(
+                "create table doc.parted (" +
+                "   x int," +
+                "   p int," +
+                "   s text" +
+                ") partitioned by (p, s)",
+                new PartitionName(relationName, Arrays.asList("3", "a")).asIndexName(),
+                new PartitionName(relationName, Arrays.asList("1", "b")).asIndexName(),
+                new PartitionName(relationName, Arrays.asList("2", "a")).asIndexName(),
+                new PartitionName(relationName, Arrays.asList(null, "c")).asIndexName(),
+                new PartitionName(relationName, Arrays.asList("2", null)).asIndexName()
+            )
+            .build();
+        table = e.resolveTableInfo("doc.parted");
+    }
+
+    @Nullable
+    private List<List<String>> candidates(String query) {
+        BitSet candidates = table.partitionIndex().candidates(e.asSymbol(query));
+        if (candidates == null) {
+            return null;
+        }
+        List<List<String>> result = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            result.add(table.partitions().get(i).values());
+        }
+        return result;
+    }
+
+    @Test
+    public void test_equality_on_partition_column() {
+        assertThat(candidates("p = 2"), containsInAnyOrder(Arrays.asList("2", "a"), Arrays.asList("2", null)));
+        assertThat(candidates("s = 'b'"), containsInAnyOrder(List.of("1", "b")));
+        assertThat(candidates("p = 4"), is(empty()));
+    }
+
+    @Test
+    public void test_range_on_partition_column() {
+        assertThat(candidates("p > 1"), containsInAnyOrder(List.of("3", "a"), List.of("2", "a"), Arrays.asList("2", null)));
+        assertThat(candidates("p >= 3"), containsInAnyOrder(List.of("3", "a")));
+        assertThat(candidates("p < 2"), containsInAnyOrder(List.of("1", "b")));
+        assertThat(candidates("p <= 2"), containsInAnyOrder(List.of("1", "b"), List.of("2", "a"), Arrays.asList("2", null)));
+        assertThat(candidates("2 < p"), containsInAnyOrder(List.of("3", "a")));
+    }
+
+    @Test
+    public void test_any_on_partition_column() {
+        assertThat(candidates("p = any([1, 3, null])"), containsInAnyOrder(List.of("3", "a"), List.of("1", "b")));
+    }
+
+    @Test
+    public void test_conjunctions_and_disjunctions() {
+        assertThat(candidates("p >= 2 and s = 'a'"), containsInAnyOrder(List.of("3", "a"), List.of("2", "a")));
+        assertThat(candidates("p = 1 or s = 'c'"), containsInAnyOrder(List.of("1", "b"), Arrays.asList(null, "c")));
+        assertThat(candidates("p = 1 and x = 10"), containsInAnyOrder(List.of("1", "b")));
+    }
+
+    @Test
+    public void test_unsupported_predicates_do_not_narrow_partitions() {
+        assertThat(candidates("x = 10"), is(nullValue()));
+        assertThat(candidates("p = 1 or x = 10"), is(nullValue()));
+        assertThat(candidates("p is null"), is(nullValue()));
+        assertThat(candidates("p + 1 = 2"), is(nullValue()));
+    }
+}
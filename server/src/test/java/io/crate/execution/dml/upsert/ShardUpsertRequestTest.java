@@ -34,12 +34,14 @@ import io.crate.metadata.settings.SessionSettings;
 import org.elasticsearch.test.ESTestCase;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import io.crate.common.unit.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
 import org.junit.Test;
 
+import java.util.Map;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -159,4 +161,40 @@ public class ShardUpsertRequestTest extends ESTestCase {
 
         assertThat(request, equalTo(request2));
     }
+
+    @Test
+    public void test_streaming_source_values() throws Exception {
+        ShardId shardId = new ShardId("test", UUIDs.randomBase64UUID(), 1);
+        ShardUpsertRequest request = new ShardUpsertRequest.Builder(
+            new SessionSettings("dummyUser", SearchPath.createSearchPathFrom("dummySchema")),
+            TimeValue.timeValueSeconds(30),
+            DuplicateKeyAction.UPDATE_OR_FAIL,
+            false,
+            null,
+            new Reference[]{ID_REF, NAME_REF},
+            null,
+            UUID.randomUUID(),
+            false
+        ).newRequest(shardId);
+
+        ShardUpsertRequest.Item item = new ShardUpsertRequest.Item(
+            "99",
+            null,
+            new Object[]{99, "Marvin"},
+            null,
+            null,
+            null);
+        item.source(new BytesArray("{\"id\":99,\"name\":\"Marvin\"}"));
+        item.sourceValues(Map.of("id", 99, "name", "Marvin"));
+        request.add(123, item);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+
+        StreamInput in = out.bytes().streamInput();
+        ShardUpsertRequest request2 = new ShardUpsertRequest(in);
+
+        assertThat(request, equalTo(request2));
+        assertThat(request2.items().get(0).sourceValues(), equalTo(Map.of("id", 99, "name", "Marvin")));
+    }
 }
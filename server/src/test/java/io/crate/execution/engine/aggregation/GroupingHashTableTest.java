@@ -0,0 +1,117 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.types.DataTypes;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class GroupingHashTableTest extends ESTestCase {
+
+    private final OnHeapMemoryManager memoryManager = new OnHeapMemoryManager(bytes -> {});
+
+    @Test
+    public void test_integral_keys_including_null_are_mapped_to_dense_group_ids() {
+        GroupingHashTable table = GroupingHashTable.create(
+            List.of(DataTypes.INTEGER), 1, RamAccounting.NO_ACCOUNTING, memoryManager);
+
+        int numKeys = 10_000;
+        for (int i = 0; i < numKeys; i++) {
+            Object[] key = new Object[] { i };
+            assertThat(table.find(key), is(-1));
+            assertThat(table.add(), is(i));
+            table.setState(i, 0, (long) i);
+        }
+        assertThat(table.find(new Object[] { null }), is(-1));
+        int nullGroupId = table.add();
+        assertThat(table.size(), is(numKeys + 1));
+
+        Object[] key = new Object[1];
+        for (int i = 0; i < numKeys; i++) {
+            assertThat(table.find(new Object[] { i }), is(i));
+            assertThat(table.state(i, 0), is((long) i));
+            table.readKey(i, key);
+            assertThat(key[0], is(i));
+        }
+        assertThat(table.find(new Object[] { null }), is(nullGroupId));
+        assertThat(table.state(nullGroupId, 0), nullValue());
+        table.readKey(nullGroupId, key);
+        assertThat(key[0], nullValue());
+    }
+
+    @Test
+    public void test_multiple_keys_are_serialized() {
+        GroupingHashTable table = GroupingHashTable.create(
+            List.of(DataTypes.STRING, DataTypes.LONG), 0, RamAccounting.NO_ACCOUNTING, memoryManager);
+
+        String largeKey = "x".repeat(GroupingHashTable.PAGE_SIZE * 2);
+        List<Object[]> keys = List.of(
+            new Object[] { "a", 1L },
+            new Object[] { "a", 2L },
+            new Object[] { "b", 1L },
+            new Object[] { null, 1L },
+            new Object[] { "a", null },
+            new Object[] { largeKey, 1L },
+            new Object[] { "c", 3L }
+        );
+        for (Object[] key : keys) {
+            assertThat(table.find(key), is(-1));
+            table.add();
+        }
+        Object[] target = new Object[2];
+        for (int groupId = 0; groupId < keys.size(); groupId++) {
+            Object[] key = keys.get(groupId);
+            assertThat(table.find(key), is(groupId));
+            table.readKey(groupId, target);
+            assertThat(target, is(key));
+        }
+    }
+
+    @Test
+    public void test_cleared_table_can_be_reused() {
+        GroupingHashTable table = GroupingHashTable.create(
+            List.of(DataTypes.STRING), 1, RamAccounting.NO_ACCOUNTING, memoryManager);
+        for (int i = 0; i < 5_000; i++) {
+            table.find(new Object[] { "key-" + i });
+            table.setState(table.add(), 0, i);
+        }
+        table.clear();
+        assertThat(table.size(), is(0));
+        assertThat(table.find(new Object[] { "key-1" }), is(-1));
+
+        int groupId = table.add();
+        assertThat(groupId, is(0));
+        assertThat(table.state(groupId, 0), nullValue());
+        assertThat(table.find(new Object[] { "key-1" }), is(0));
+        assertThat(table.find(new Object[] { "key-2" }), is(-1));
+        Object[] key = new Object[1];
+        table.readKey(groupId, key);
+        assertThat(key[0], is("key-1"));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.aggregation.impl.SumAggregation;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Literal;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.functions.Signature;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.crate.testing.TestingHelpers.createNodeContext;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class SpillableGroupingCollectorTest extends ESTestCase {
+
+    private AggregationFunction<?, ?> sum;
+
+    @Before
+    public void prepareFunctions() {
+        sum = (AggregationFunction<?, ?>) createNodeContext().functions().getQualified(
+            Signature.aggregate(
+                SumAggregation.NAME,
+                DataTypes.LONG.getTypeSignature(),
+                DataTypes.LONG.getTypeSignature()
+            ),
+            List.of(DataTypes.LONG),
+            DataTypes.LONG
+        );
+    }
+
+    private SpillableGroupingCollector collector(AggregateMode mode,
+                                                 List<DataType<?>> keyTypes,
+                                                 RamAccounting ramAccounting,
+                                                 @Nullable Path spillDirectory) {
+        return collector(mode, keyTypes, ramAccounting, spillDirectory, Long.MAX_VALUE);
+    }
+
+    private SpillableGroupingCollector collector(AggregateMode mode,
+                                                 List<DataType<?>> keyTypes,
+                                                 RamAccounting ramAccounting,
+                                                 @Nullable Path spillDirectory,
+                                                 long maxBytesInMemory) {
+        int numKeys = keyTypes.size();
+        CollectExpression<Row, ?>[] expressions = new CollectExpression[numKeys + 1];
+        List<Input<?>> keyInputs = new ArrayList<>();
+        for (int i = 0; i < numKeys; i++) {
+            InputCollectExpression keyInput = new InputCollectExpression(i);
+            expressions[i] = keyInput;
+            keyInputs.add(keyInput);
+        }
+        InputCollectExpression value = new InputCollectExpression(numKeys);
+        expressions[numKeys] = value;
+        return new SpillableGroupingCollector(
+            expressions,
+            mode,
+            new AggregationFunction[] { sum },
+            new Input[][] { new Input[] { value } },
+            new Input[] { Literal.BOOLEAN_TRUE },
+            ramAccounting,
+            new OnHeapMemoryManager(ramAccounting::addBytes),
+            Version.CURRENT,
+            keyInputs,
+            keyTypes,
+            Version.CURRENT,
+            spillDirectory,
+            () -> maxBytesInMemory
+        );
+    }
+
+    private static Map<Object, Object> collect(SpillableGroupingCollector collector, Iterable<Object[]> rows) {
+        var groups = collector.supplier().get();
+        for (Object[] cells : rows) {
+            collector.accumulator().accept(groups, new RowN(cells));
+        }
+        Map<Object, Object> result = new HashMap<>();
+        for (Row row : collector.finisher().apply(groups)) {
+            Object previous = result.put(row.get(0), row.get(1));
+            assertThat("Duplicate group: " + row.get(0), previous, is((Object) null));
+        }
+        return result;
+    }
+
+    @Test
+    public void test_group_by_single_key_with_nulls() {
+        var collector = collector(AggregateMode.ITER_FINAL, List.of(DataTypes.LONG), RamAccounting.NO_ACCOUNTING, null);
+        Map<Object, Object> result = collect(collector, List.of(
+            new Object[] { 1L, 10L },
+            new Object[] { 2L, 5L },
+            new Object[] { null, 3L },
+            new Object[] { 1L, 1L },
+            new Object[] { null, 4L }
+        ));
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put(1L, 11L);
+        expected.put(2L, 5L);
+        expected.put(null, 7L);
+        assertThat(result, is(expected));
+    }
+
+    @Test
+    public void test_groups_are_spilled_and_merged_if_the_circuit_breaker_trips() throws Exception {
+        for (AggregateMode mode : List.of(AggregateMode.ITER_FINAL, AggregateMode.PARTIAL_FINAL)) {
+            Path spillDirectory = createTempDir();
+            LimitedRamAccounting ramAccounting = new LimitedRamAccounting(256 * 1024);
+            var collector = collector(mode, List.of(DataTypes.STRING), ramAccounting, spillDirectory);
+
+            int numKeys = 20_000;
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                for (int key = 0; key < numKeys; key++) {
+                    rows.add(new Object[] { "key-" + key, (long) key });
+                }
+            }
+            Map<Object, Object> result = collect(collector, rows);
+            try (var files = Files.list(spillDirectory)) {
+                assertThat(files.count(), greaterThan(0L));
+            }
+            assertThat(result.size(), is(numKeys));
+            for (int key = 0; key < numKeys; key++) {
+                assertThat(result.get("key-" + key), is(3L * key));
+            }
+
+            collector.close();
+            try (var files = Files.list(spillDirectory)) {
+                assertThat(files.count(), is(0L));
+            }
+        }
+    }
+
+    @Test
+    public void test_groups_are_spilled_once_they_exceed_the_memory_budget() throws Exception {
+        for (AggregateMode mode : List.of(AggregateMode.ITER_FINAL, AggregateMode.PARTIAL_FINAL)) {
+            Path spillDirectory = createTempDir();
+            // The breaker must never trip, the budget is far below its limit
+            LimitedRamAccounting ramAccounting = new LimitedRamAccounting(64 * 1024 * 1024);
+            var collector = collector(mode, List.of(DataTypes.STRING), ramAccounting, spillDirectory, 128 * 1024);
+
+            int numKeys = 20_000;
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                for (int key = 0; key < numKeys; key++) {
+                    rows.add(new Object[] { "key-" + key, (long) key });
+                }
+            }
+            Map<Object, Object> result = collect(collector, rows);
+            try (var files = Files.list(spillDirectory)) {
+                assertThat(files.count(), greaterThan(0L));
+            }
+            assertThat(result.size(), is(numKeys));
+            for (int key = 0; key < numKeys; key++) {
+                assertThat(result.get("key-" + key), is(3L * key));
+            }
+            collector.close();
+        }
+    }
+
+    @Test
+    public void test_circuit_breaker_exception_is_raised_if_spilling_is_disabled() {
+        var collector = collector(
+            AggregateMode.ITER_FINAL, List.of(DataTypes.LONG), new LimitedRamAccounting(64 * 1024), null);
+        var groups = collector.supplier().get();
+        expectThrows(CircuitBreakingException.class, () -> {
+            for (long key = 0; key < 100_000; key++) {
+                collector.accumulator().accept(groups, new RowN(key, 1L));
+            }
+        });
+    }
+
+    private static class LimitedRamAccounting implements RamAccounting {
+
+        private final long limit;
+        private long totalBytes = 0;
+
+        LimitedRamAccounting(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void addBytes(long bytes) {
+            if (totalBytes + bytes > limit) {
+                throw new CircuitBreakingException("Limit of " + limit + " bytes reached");
+            }
+            totalBytes += bytes;
+        }
+
+        @Override
+        public long totalBytes() {
+            return totalBytes;
+        }
+
+        @Override
+        public void release() {
+            totalBytes = 0;
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.analyze.FunctionArgumentDefinition;
+import io.crate.data.BatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.SentinelRow;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.expression.udf.UdfUnitTest;
+import io.crate.expression.udf.UserDefinedFunctionMetadata;
+import io.crate.metadata.Schemas;
+import io.crate.planner.Merge;
+import io.crate.planner.node.dql.Collect;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
+
+public class ShardResultCacheTest extends CrateDummyClusterServiceUnitTest {
+
+    private final ShardId shardId = new ShardId("users", "_na_", 0);
+    private SQLExecutor e;
+    private ByteBuffersDirectory directory;
+    private IndexWriter writer;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        e = SQLExecutor.builder(clusterService)
+            .enableDefaultTables()
+            .build();
+        directory = new ByteBuffersDirectory();
+        writer = new IndexWriter(directory, new IndexWriterConfig());
+        writer.addDocument(new Document());
+        writer.commit();
+        reader = DirectoryReader.open(writer);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        reader.close();
+        writer.close();
+        directory.close();
+    }
+
+    private RoutedCollectPhase collectPhase(String statement) {
+        Merge merge = e.plan(statement);
+        return (RoutedCollectPhase) ((Collect) merge.subPlan()).collectPhase();
+    }
+
+    @Test
+    public void test_disabled_cache_does_not_create_keys() {
+        ShardResultCache cache = new ShardResultCache(0, e.nodeCtx.functions());
+        assertThat(cache.enabled(), is(false));
+        assertThat(cache.key(shardId, reader, e.asSymbol("name = 'Arthur'")), nullValue());
+    }
+
+    @Test
+    public void test_count_is_cached_per_reader_and_filter() throws Exception {
+        ShardResultCache cache = new ShardResultCache(1024 * 1024, e.nodeCtx.functions());
+        var key = cache.key(shardId, reader, e.asSymbol("name = 'Arthur'"));
+        assertThat(cache.getCount(key), nullValue());
+        cache.putCount(key, 42L);
+
+        assertThat(cache.getCount(cache.key(shardId, reader, e.asSymbol("name = 'Arthur'"))), is(42L));
+        assertThat(cache.getCount(cache.key(shardId, reader, e.asSymbol("name = 'Trillian'"))), nullValue());
+        assertThat(cache.getCount(cache.key(new ShardId("users", "_na_", 1), reader, e.asSymbol("name = 'Arthur'"))), nullValue());
+
+        writer.addDocument(new Document());
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+        assertThat(newReader, notNullValue());
+        try {
+            assertThat(cache.getCount(cache.key(shardId, newReader, e.asSymbol("name = 'Arthur'"))), nullValue());
+        } finally {
+            newReader.close();
+        }
+        assertThat(cache.hits(), is(1L));
+        assertThat(cache.misses(), is(1L));
+        assertThat(cache.size(), is(1L));
+        assertThat(cache.sizeInBytes(), is(not(0L)));
+    }
+
+    @Test
+    public void test_closing_the_reader_invalidates_its_entries() throws Exception {
+        ShardResultCache cache = new ShardResultCache(1024 * 1024, e.nodeCtx.functions());
+        cache.putCount(cache.key(shardId, reader, e.asSymbol("name = 'Arthur'")), 42L);
+        assertThat(cache.size(), is(1L));
+
+        reader.close();
+        reader = DirectoryReader.open(writer);
+        assertThat(cache.size(), is(0L));
+        assertThat(cache.sizeInBytes(), is(0L));
+        assertThat(cache.evictions(), is(0L));
+    }
+
+    @Test
+    public void test_results_of_non_deterministic_functions_are_not_cached() {
+        ShardResultCache cache = new ShardResultCache(1024 * 1024, e.nodeCtx.functions());
+        assertThat(cache.key(shardId, reader, e.asSymbol("random() > 0.5")), nullValue());
+    }
+
+    @Test
+    public void test_results_of_user_defined_functions_are_not_cached_as_they_can_be_replaced() throws Exception {
+        UserDefinedFunctionMetadata udf = new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME, "my_udf", List.of(FunctionArgumentDefinition.of("x", DataTypes.LONG)),
+            DataTypes.LONG, UdfUnitTest.DUMMY_LANG.name(), "function my_udf(x) { return x; }"
+        );
+        e = SQLExecutor.builder(clusterService)
+            .enableDefaultTables()
+            .addUDFLanguage(UdfUnitTest.DUMMY_LANG)
+            .addUDF(udf)
+            .build();
+        ShardResultCache cache = new ShardResultCache(1024 * 1024, e.nodeCtx.functions());
+        String statement = "select sum(my_udf(id)) from users";
+        assertThat(cache.key(shardId, reader, collectPhase(statement)), nullValue());
+        assertThat(cache.key(shardId, reader, e.asSymbol("my_udf(id) = 1")), nullValue());
+
+        UserDefinedFunctionMetadata replaced = new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME, "my_udf", List.of(FunctionArgumentDefinition.of("x", DataTypes.LONG)),
+            DataTypes.LONG, UdfUnitTest.DUMMY_LANG.name(), "function my_udf(x) { return x + 1; }"
+        );
+        e.udfService().updateImplementations(Schemas.DOC_SCHEMA_NAME, Stream.of(replaced));
+        assertThat(cache.key(shardId, reader, collectPhase(statement)), nullValue());
+        assertThat(cache.key(shardId, reader, collectPhase("select sum(id) from users")), notNullValue());
+    }
+
+    @Test
+    public void test_rows_are_cached_once_all_iterators_are_consumed() throws Exception {
+        ShardResultCache cache = new ShardResultCache(1024 * 1024, e.nodeCtx.functions());
+        RoutedCollectPhase phase = collectPhase("select id, count(*) from users group by id");
+        var key = cache.key(shardId, reader, phase);
+        assertThat(cache.getRows(key, phase), nullValue());
+
+        List<BatchIterator<Row>> iterators = cache.putRows(key, phase, List.of(
+            InMemoryBatchIterator.of(List.of(new RowN(1L, 2L)), SentinelRow.SENTINEL, false),
+            InMemoryBatchIterator.of(List.of(new RowN(2L, 1L)), SentinelRow.SENTINEL, false)
+        ));
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(iterators.get(0), null);
+        consumer.getResult();
+        assertThat(cache.size(), is(0L));
+
+        consumer = new TestingRowConsumer();
+        consumer.accept(iterators.get(1), null);
+        consumer.getResult();
+        assertThat(cache.size(), is(1L));
+
+        consumer = new TestingRowConsumer();
+        consumer.accept(cache.getRows(cache.key(shardId, reader, phase), phase), null);
+        assertThat(consumer.getResult(), contains(
+            new Object[] { 1L, 2L },
+            new Object[] { 2L, 1L }
+        ));
+        assertThat(cache.hits(), is(1L));
+        assertThat(cache.misses(), is(1L));
+    }
+
+    @Test
+    public void test_results_larger_than_a_fraction_of_the_cache_are_not_cached() throws Exception {
+        ShardResultCache cache = new ShardResultCache(100, e.nodeCtx.functions());
+        RoutedCollectPhase phase = collectPhase("select id, count(*) from users group by id");
+        var key = cache.key(shardId, reader, phase);
+        List<BatchIterator<Row>> iterators = cache.putRows(key, phase, List.of(
+            InMemoryBatchIterator.of(List.of(new RowN(1L, 2L)), SentinelRow.SENTINEL, false)
+        ));
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(iterators.get(0), null);
+        assertThat(consumer.getResult().size(), is(1));
+        assertThat(cache.size(), is(0L));
+    }
+}
@@ -75,7 +75,8 @@ public class LuceneBatchIteratorTest {
                 false,
                 new CollectorContext(),
                 columnRefs,
-                columnRefs
+                columnRefs,
+                null
             )
         );
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
@@ -0,0 +1,124 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MinMaxSegmentFilterTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        e = SQLExecutor.builder(clusterService)
+            .addTable("create table tbl (x bigint, i int, ts timestamp with time zone, y bigint, s text)")
+            .build();
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config);
+        // 3 segments containing the values 0-9, 10-19 and 20-29
+        for (int segment = 0; segment < 3; segment++) {
+            for (int i = segment * 10; i < segment * 10 + 10; i++) {
+                Document doc = new Document();
+                doc.add(new LongPoint("x", i));
+                doc.add(new IntPoint("i", i));
+                doc.add(new LongPoint("ts", i * 1000L));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        reader = DirectoryReader.open(iw);
+        iw.close();
+        assertThat(reader.leaves().size(), is(3));
+    }
+
+    @After
+    public void closeReader() throws Exception {
+        reader.close();
+    }
+
+    private List<Integer> matchingSegments(String query) throws IOException {
+        MinMaxSegmentFilter filter = MinMaxSegmentFilter.create(e.asSymbol(query));
+        List<Integer> result = new ArrayList<>();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            if (filter == null || filter.canMatch(leaf.reader())) {
+                result.add(leaf.ord);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void test_equality_skips_segments_not_containing_the_value() throws Exception {
+        assertThat(matchingSegments("x = 15"), contains(1));
+        assertThat(matchingSegments("i = 29"), contains(2));
+        assertThat(matchingSegments("x = 30"), is(empty()));
+    }
+
+    @Test
+    public void test_range_skips_segments_outside_of_the_range() throws Exception {
+        assertThat(matchingSegments("x > 9"), contains(1, 2));
+        assertThat(matchingSegments("x >= 9"), contains(0, 1, 2));
+        assertThat(matchingSegments("x < 10"), contains(0));
+        assertThat(matchingSegments("x <= 10"), contains(0, 1));
+        assertThat(matchingSegments("19 < i"), contains(2));
+        assertThat(matchingSegments("ts >= 12000 and ts < 15000"), contains(1));
+        assertThat(matchingSegments("x > 5 and i < 5"), contains(0));
+        assertThat(matchingSegments("x > 25 and i < 5"), is(empty()));
+    }
+
+    @Test
+    public void test_columns_without_point_values_do_not_skip_segments() throws Exception {
+        assertThat(matchingSegments("y = 100"), contains(0, 1, 2));
+    }
+
+    @Test
+    public void test_unsupported_queries_do_not_create_a_filter() throws Exception {
+        assertThat(MinMaxSegmentFilter.create(e.asSymbol("x = 15 or x = 25")), is(nullValue()));
+        assertThat(MinMaxSegmentFilter.create(e.asSymbol("x + 1 = 15")), is(nullValue()));
+        assertThat(MinMaxSegmentFilter.create(e.asSymbol("s = 'foo'")), is(nullValue()));
+    }
+}
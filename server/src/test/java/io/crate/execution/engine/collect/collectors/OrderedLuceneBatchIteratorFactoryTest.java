@@ -44,8 +44,10 @@ import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.SortedNumericSortField;
@@ -139,6 +141,38 @@ public class OrderedLuceneBatchIteratorFactoryTest extends ESTestCase {
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
 
+    @Test
+    public void test_ordered_collectors_of_slices_of_the_same_shard_are_merged() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config);
+        for (int i = 0; i < 20; i++) {
+            Document doc = new Document();
+            doc.add(new NumericDocValuesField(columnName, i));
+            iw.addDocument(doc);
+            if (i % 7 == 6) {
+                iw.commit();
+            }
+        }
+        iw.commit();
+        IndexSearcher searcher = new IndexSearcher(DirectoryReader.open(iw));
+        List<SliceQuery> slices = SliceQuery.split(searcher.getTopReaderContext().leaves(), 4, 1);
+        assertThat(slices.size(), is(4));
+
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> OrderedLuceneBatchIteratorFactory.newInstance(
+                slices.stream()
+                    .map(slice -> createOrderedCollector(searcher, 1, slice.filter(new MatchAllDocsQuery())))
+                    .collect(Collectors.toList()),
+                OrderingByPosition.rowOrdering(new int[]{0}, reverseFlags, nullsFirst),
+                ROW_ACCOUNTING,
+                Runnable::run,
+                () -> 2,
+                true
+            )
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
     @Test
     public void testSingleCollectorOrderedLuceneBatchIteratorTripsCircuitBreaker() throws Exception {
         RowAccounting rowAccounting = mock(RowAccounting.class);
@@ -221,13 +255,17 @@ public class OrderedLuceneBatchIteratorFactoryTest extends ESTestCase {
     }
 
     private LuceneOrderedDocCollector createOrderedCollector(IndexSearcher searcher, int shardId) {
+        return createOrderedCollector(searcher, shardId, new MatchAllDocsQuery());
+    }
+
+    private LuceneOrderedDocCollector createOrderedCollector(IndexSearcher searcher, int shardId, Query query) {
         CollectorContext collectorContext = new CollectorContext();
         List<LuceneCollectorExpression<?>> expressions = Collections.singletonList(
             new OrderByCollectorExpression(reference, orderBy, o -> o));
         return new LuceneOrderedDocCollector(
             new ShardId("dummy", UUIDs.randomBase64UUID(), shardId),
             searcher,
-            new MatchAllDocsQuery(),
+            query,
             null,
             false,
             5, // batchSize < 10 to have at least one searchMore call.
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.expression.reference.doc.lucene.CollectorContext;
+import io.crate.expression.reference.doc.lucene.LongColumnReference;
+
+public class SliceQueryTest {
+
+    private IndexSearcher indexSearcher;
+
+    @Before
+    public void prepareSearcher() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config);
+        // segments with 10, 2 and 18 documents
+        for (long i = 0; i < 30; i++) {
+            Document doc = new Document();
+            doc.add(new NumericDocValuesField("x", i));
+            iw.addDocument(doc);
+            if (i == 9 || i == 11) {
+                iw.commit();
+            }
+        }
+        iw.commit();
+        indexSearcher = new IndexSearcher(DirectoryReader.open(iw));
+        assertThat(indexSearcher.getTopReaderContext().leaves().size(), is(3));
+    }
+
+    @Test
+    public void test_no_slices_if_shard_has_less_docs_than_min_docs_per_slice() {
+        assertThat(SliceQuery.split(indexSearcher.getTopReaderContext().leaves(), 4, 16).size(), is(0));
+        assertThat(SliceQuery.split(indexSearcher.getTopReaderContext().leaves(), 1, 1).size(), is(0));
+    }
+
+    @Test
+    public void test_slices_contain_each_document_once() throws Exception {
+        List<SliceQuery> slices = SliceQuery.split(indexSearcher.getTopReaderContext().leaves(), 4, 5);
+        assertThat(slices.size(), is(4));
+
+        List<Long> values = new ArrayList<>();
+        List<Integer> docsPerSlice = new ArrayList<>();
+        for (SliceQuery slice : slices) {
+            List<Long> sliceValues = collect(slice);
+            docsPerSlice.add(sliceValues.size());
+            values.addAll(sliceValues);
+        }
+        assertThat(docsPerSlice, contains(8, 8, 8, 6));
+        assertThat(values, is(LongStream.range(0, 30).boxed().collect(Collectors.toList())));
+    }
+
+    @Test
+    public void test_slice_of_query_with_minimum_docs_per_slice() {
+        List<SliceQuery> slices = SliceQuery.split(indexSearcher.getTopReaderContext().leaves(), 8, 10);
+        assertThat(slices.size(), is(3));
+        assertThat(slices.get(0).toString(), is("slice([0:0-10))"));
+        assertThat(slices.get(1).toString(), is("slice([1:0-2)[2:0-8))"));
+        assertThat(slices.get(2).toString(), is("slice([2:8-18))"));
+    }
+
+    private List<Long> collect(SliceQuery slice) throws Exception {
+        LongColumnReference x = new LongColumnReference("x");
+        BatchIterator<Row> it = new LuceneBatchIterator(
+            indexSearcher,
+            slice.filter(new MatchAllDocsQuery()),
+            null,
+            false,
+            new CollectorContext(),
+            List.of(x),
+            List.of(x),
+            null
+        );
+        List<Long> values = new ArrayList<>();
+        while (it.moveNext()) {
+            values.add((Long) it.currentElement().get(0));
+        }
+        it.close();
+        return values;
+    }
+}
@@ -22,12 +22,15 @@
 package io.crate.execution.engine.collect.files;
 
 import io.crate.analyze.CopyFromParserProperties;
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.expression.InputFactory;
 import io.crate.expression.reference.file.FileLineReferenceResolver;
+import io.crate.expression.reference.file.SourceLineNumberExpression;
 import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.Functions;
 import io.crate.metadata.NodeContext;
@@ -45,16 +48,23 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import static io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat.CSV;
 import static io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat.JSON;
 import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 
 public class FileReadingIteratorTest extends ESTestCase {
@@ -194,6 +204,121 @@ public class FileReadingIteratorTest extends ESTestCase {
         )));
     }
 
+    @Test
+    public void test_large_files_are_parsed_in_chunks_and_keep_the_order_of_the_lines() throws Exception {
+        tempFilePath = createTempFile("tempfile", ".csv");
+        tmpFile = tempFilePath.toFile();
+        List<Object[]> expectedResult = new ArrayList<>();
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+            writer.write("name,id\r\n");
+            for (int i = 0; i < 200; i++) {
+                writer.write("Arthur" + i + "," + i + (i % 2 == 0 ? "\r\n" : "\n"));
+                if (i % 10 == 0) {
+                    writer.write("\n");
+                }
+                expectedResult.add(new Object[] { "{\"name\":\"Arthur" + i + "\",\"id\":\"" + i + "\"}", i + 1L });
+            }
+        }
+        fileUri = tempFilePath.toUri().toString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> createBatchIterator(
+                List.of(fileUri),
+                CSV,
+                new CopyFromParserProperties(false, ',', 3),
+                executor,
+                64
+            );
+            BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+            tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_chunks_are_decoded_and_accounted_until_their_lines_are_consumed() throws Exception {
+        tempFilePath = createTempFile("tempfile", ".json");
+        tmpFile = tempFilePath.toFile();
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 200; i++) {
+                writer.write("{\"name\": \"Arthur" + i + "\"}\n");
+            }
+        }
+        AtomicLong usedBytes = new AtomicLong();
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(usedBytes::addAndGet, bytes -> usedBytes.addAndGet(- bytes));
+
+        Reference name = createReference("name", DataTypes.STRING);
+        InputFactory.Context<LineCollectorExpression<?>> ctx =
+            inputFactory.ctxForRefs(txnCtx, FileLineReferenceResolver::getImplementation);
+        List<Input<?>> inputs = List.of(ctx.add(name));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            BatchIterator<Row> iterator = FileReadingIterator.newInstance(
+                List.of(tempFilePath.toUri().toString()),
+                inputs,
+                ctx.expressions(),
+                null,
+                Map.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+                false,
+                1,
+                0,
+                new CopyFromParserProperties(false, ',', 3),
+                JSON,
+                executor,
+                64,
+                ramAccounting);
+            List<Object> names = new ArrayList<>();
+            long maxUsedBytes = 0;
+            while (true) {
+                if (iterator.moveNext()) {
+                    names.add(iterator.currentElement().get(0));
+                    maxUsedBytes = Math.max(maxUsedBytes, usedBytes.get());
+                } else if (iterator.allLoaded()) {
+                    break;
+                } else {
+                    iterator.loadNextBatch().get(5, TimeUnit.SECONDS);
+                }
+            }
+            iterator.close();
+
+            assertThat(names.size(), is(200));
+            assertThat(names.get(199), is("Arthur199"));
+            assertThat(maxUsedBytes, greaterThan(0L));
+            assertThat(usedBytes.get(), is(0L));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private BatchIterator<Row> createBatchIterator(Collection<String> fileUris,
+                                                   FileUriCollectPhase.InputFormat format,
+                                                   CopyFromParserProperties parserProperties,
+                                                   Executor executor,
+                                                   long bytesPerChunk) {
+        Reference raw = createReference("_raw", DataTypes.STRING);
+        Reference lineNumber = createReference(SourceLineNumberExpression.COLUMN_NAME, DataTypes.LONG);
+        InputFactory.Context<LineCollectorExpression<?>> ctx =
+            inputFactory.ctxForRefs(txnCtx, FileLineReferenceResolver::getImplementation);
+
+        List<Input<?>> inputs = List.of(ctx.add(raw), ctx.add(lineNumber));
+        return FileReadingIterator.newInstance(
+            fileUris,
+            inputs,
+            ctx.expressions(),
+            null,
+            Map.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+            false,
+            1,
+            0,
+            parserProperties,
+            format,
+            executor,
+            bytesPerChunk,
+            RamAccounting.NO_ACCOUNTING);
+    }
+
     private BatchIterator<Row> createBatchIterator(Collection<String> fileUris,
                                                    FileUriCollectPhase.InputFormat format) {
         Reference raw = createReference("_raw", DataTypes.STRING);
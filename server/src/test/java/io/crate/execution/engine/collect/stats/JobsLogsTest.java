@@ -63,6 +63,7 @@ import io.crate.expression.reference.sys.job.JobContextLog;
 import io.crate.expression.reference.sys.operation.OperationContext;
 import io.crate.expression.reference.sys.operation.OperationContextLog;
 import io.crate.metadata.sys.MetricsView;
+import io.crate.metadata.sys.StatementStatsView;
 import io.crate.planner.operators.StatementClassifier.Classification;
 import io.crate.plugin.SQLPlugin;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
@@ -424,6 +425,26 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
         assertThat(metrics.get(0).classification(), is(new Classification(UNDEFINED)));
     }
 
+    @Test
+    public void test_execution_is_recorded_in_statement_stats() {
+        JobsLogs jobsLogs = new JobsLogs(() -> true);
+        User user = User.of("arthur");
+        UUID jobId = UUID.randomUUID();
+        jobsLogs.logExecutionStart(jobId, "select name from t where id = 1", user, new Classification(SELECT));
+        jobsLogs.logExecutionEnd(jobId, null, 3L);
+
+        List<StatementStatsView> stats = StreamSupport.stream(jobsLogs.statementStats().spliterator(), false)
+            .collect(Collectors.toList());
+        assertThat(stats.size(), is(1));
+        assertThat(stats.get(0).statement(), is("select name from t where id = ?"));
+        assertThat(stats.get(0).username(), is("arthur"));
+        assertThat(stats.get(0).calls(), is(1L));
+        assertThat(stats.get(0).rows(), is(3L));
+
+        jobsLogs.resetMetrics();
+        assertThat(jobsLogs.statementStats().iterator().hasNext(), is(false));
+    }
+
     @Test
     public void testUniqueOperationIdsInOperationsTable() {
         JobsLogs jobsLogs = new JobsLogs(() -> true);
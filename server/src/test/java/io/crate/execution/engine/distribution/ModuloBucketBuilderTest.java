@@ -25,6 +25,7 @@ import io.crate.Streamer;
 import io.crate.breaker.RamAccounting;
 import io.crate.data.Bucket;
 import io.crate.data.Row1;
+import io.crate.data.RowN;
 import org.elasticsearch.test.ESTestCase;
 import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
@@ -55,4 +56,40 @@ public class ModuloBucketBuilderTest extends ESTestCase {
         assertThat(rowsD2.size(), is(2));
         assertThat(TestingHelpers.printedTable(rowsD2), is("1\n3\n"));
     }
+
+    @Test
+    public void test_rows_are_distributed_by_the_hash_of_all_distributed_by_columns() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] {
+            DataTypes.STRING.streamer(), DataTypes.INTEGER.streamer(), DataTypes.STRING.streamer()
+        };
+        final ModuloBucketBuilder builder = new ModuloBucketBuilder(
+            streamers, 4, new int[] {0, 2}, RamAccounting.NO_ACCOUNTING);
+
+        int numRows = 200;
+        for (int i = 0; i < numRows; i++) {
+            builder.add(new RowN("a", i, "b" + (i % 10)));
+        }
+        StreamBucket[] buckets = new StreamBucket[4];
+        builder.build(buckets);
+
+        int numNonEmptyBuckets = 0;
+        for (StreamBucket bucket : buckets) {
+            if (bucket.size() > 0) {
+                numNonEmptyBuckets++;
+            }
+            // all rows with the same key pair must end up in the same bucket
+            for (var row : bucket) {
+                String secondKey = (String) row.get(2);
+                for (StreamBucket other : buckets) {
+                    if (other != bucket) {
+                        for (var otherRow : other) {
+                            assertThat(otherRow.get(2).equals(secondKey), is(false));
+                        }
+                    }
+                }
+            }
+        }
+        // With a single distributed-by column all rows would end up in the same bucket
+        assertThat(numNonEmptyBuckets > 1, is(true));
+    }
 }
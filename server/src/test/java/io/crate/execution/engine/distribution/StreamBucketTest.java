@@ -0,0 +1,134 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.Streamer;
+import io.crate.breaker.RamAccounting;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class StreamBucketTest extends ESTestCase {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[] {
+        DataTypes.LONG,
+        DataTypes.INTEGER,
+        DataTypes.STRING,
+        DataTypes.STRING,
+        DataTypes.DOUBLE,
+        DataTypes.TIMESTAMPZ
+    };
+
+    private static List<Object[]> randomRows(int numRows) {
+        List<Object[]> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(new Object[] {
+                (long) i,
+                randomBoolean() ? null : randomInt(),
+                randomFrom("foo", "bar", "baz", null),
+                randomBoolean() ? randomAlphaOfLength(8) : null,
+                randomBoolean() ? null : randomDouble(),
+                randomFrom(Long.MIN_VALUE, Long.MAX_VALUE, 0L, randomLong())
+            });
+        }
+        return rows;
+    }
+
+    private static StreamBucket build(List<Object[]> rows, boolean columnar) {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, columnar, RamAccounting.NO_ACCOUNTING);
+        for (Object[] row : rows) {
+            builder.add(new RowN(row));
+        }
+        return builder.build();
+    }
+
+    private static StreamBucket streamed(StreamBucket bucket, Version version) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        bucket.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
+        return new StreamBucket(in, STREAMERS);
+    }
+
+    private static void assertRows(StreamBucket bucket, List<Object[]> expectedRows) {
+        assertThat(bucket.size(), is(expectedRows.size()));
+        int i = 0;
+        for (Row row : bucket) {
+            assertThat(row.materialize(), is(expectedRows.get(i)));
+            i++;
+        }
+        assertThat(i, is(expectedRows.size()));
+    }
+
+    @Test
+    public void test_columnar_bucket_can_be_streamed() throws Exception {
+        List<Object[]> rows = randomRows(randomIntBetween(1, 2000));
+        StreamBucket bucket = build(rows, true);
+
+        assertRows(bucket, rows);
+        assertRows(streamed(bucket, Version.CURRENT), rows);
+    }
+
+    @Test
+    public void test_columnar_bucket_is_sent_row_wise_to_nodes_without_columnar_support() throws Exception {
+        List<Object[]> rows = randomRows(randomIntBetween(1, 200));
+        StreamBucket bucket = build(rows, true);
+
+        assertRows(streamed(bucket, Version.V_4_6_0), rows);
+    }
+
+    @Test
+    public void test_columnar_encoding_needs_less_bytes_than_row_encoding() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new Object[] { (long) i, i % 7, "name-" + (i % 10), null, (double) i, 1_600_000_000_000L + i });
+        }
+        BytesStreamOutput columnarOut = new BytesStreamOutput();
+        build(rows, true).writeTo(columnarOut);
+        BytesStreamOutput rowsOut = new BytesStreamOutput();
+        build(rows, false).writeTo(rowsOut);
+
+        assertThat(columnarOut.size(), lessThan(rowsOut.size() / 4));
+        assertRows(streamed(build(rows, true), Version.CURRENT), rows);
+    }
+
+    @Test
+    public void test_row_wise_bucket_can_be_streamed() throws Exception {
+        List<Object[]> rows = randomRows(randomIntBetween(1, 200));
+        StreamBucket bucket = build(rows, false);
+
+        assertRows(streamed(bucket, Version.CURRENT), rows);
+        assertRows(streamed(bucket, Version.V_4_6_0), rows);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.Streamer;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.BatchSimulatingIterator;
+import io.crate.testing.TestingBatchIterators;
+import io.crate.types.DataTypes;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Joins a single integer column of {@link #LEFT} with a single integer column of {@link #RIGHT} on equality.
+ */
+public abstract class AbstractHashJoinBatchIteratorTest {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    static final List<Integer> LEFT = Arrays.asList(0, 0, 1, 2, 2, 3, 4, 4, 7);
+    static final List<Integer> RIGHT = Arrays.asList(1, 1, 2, 3, 4, 4, 5, 5, 6);
+
+    static final Predicate<Row> COL0_EQ_COL1 =
+        row -> row.get(0) != null && Objects.equals(row.get(0), row.get(1));
+
+    static ToIntFunction<Row> hash() {
+        return row -> Objects.hashCode(row.get(0));
+    }
+
+    static ToIntFunction<Row> hashWithCollisions() {
+        return row -> row.get(0) == null ? 0 : (Integer) row.get(0) % 3;
+    }
+
+    @Nullable
+    SpillFile.Factory spillFiles(boolean spillingEnabled) {
+        if (spillingEnabled) {
+            return SpillFile.factory(tmpFolder.getRoot().toPath(), new Streamer[] { DataTypes.INTEGER.streamer() });
+        }
+        return null;
+    }
+
+    abstract BatchIterator<Row> createJoin(JoinType joinType,
+                                           BatchIterator<Row> left,
+                                           BatchIterator<Row> right,
+                                           ToIntFunction<Row> hash,
+                                           int maxRowsInMemory,
+                                           boolean spillingEnabled);
+
+    /**
+     * Joins {@link #LEFT} with {@link #RIGHT}, once with all rows available and once with simulated batches.
+     */
+    void assertJoin(JoinType joinType,
+                    ToIntFunction<Row> hash,
+                    int maxRowsInMemory,
+                    boolean spillingEnabled,
+                    List<Object[]> expectedResult) throws Exception {
+        Supplier<BatchIterator<Row>> plain = () -> createJoin(
+            joinType,
+            TestingBatchIterators.ofValues(LEFT),
+            TestingBatchIterators.ofValues(RIGHT),
+            hash,
+            maxRowsInMemory,
+            spillingEnabled
+        );
+        new BatchIteratorTester(plain).verifyResultAndEdgeCaseBehaviour(expectedResult);
+
+        Supplier<BatchIterator<Row>> batched = () -> createJoin(
+            joinType,
+            new BatchSimulatingIterator<>(TestingBatchIterators.ofValues(LEFT), 2, 5, null),
+            new BatchSimulatingIterator<>(TestingBatchIterators.ofValues(RIGHT), 2, 5, null),
+            hash,
+            maxRowsInMemory,
+            spillingEnabled
+        );
+        new BatchIteratorTester(batched).verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+}
@@ -21,29 +21,39 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.Streamer;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.Paging;
 import io.crate.data.Row;
 import io.crate.data.join.CombinedRow;
+import io.crate.execution.engine.spill.SpillFile;
 import io.crate.testing.BatchSimulatingIterator;
 import io.crate.testing.TestingBatchIterators;
 import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
 
 public class HashInnerJoinBatchIteratorBehaviouralTest {
 
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
     private int originalPageSize = Paging.PAGE_SIZE;
 
     @Before
@@ -57,12 +67,16 @@ public class HashInnerJoinBatchIteratorBehaviouralTest {
     }
 
     @Test
-    public void testDistributed_SwitchToRightEvenIfLeftBatchDoesNotDeliverAllRowsExpectedByOneBatch() throws Exception {
+    public void test_right_side_is_consumed_once_if_left_side_does_not_fit_into_memory() throws Exception {
         BatchSimulatingIterator<Row> leftIterator = new BatchSimulatingIterator<>(
-            TestingBatchIterators.ofValues(Arrays.asList(1, 2, 4)), 1, 2, null);
+            TestingBatchIterators.ofValues(Arrays.asList(1, 2, 4, 6, 7, 8)), 1, 6, null);
         BatchSimulatingIterator<Row> rightIterator = new BatchSimulatingIterator<>(
-            TestingBatchIterators.ofValues(Arrays.asList(2, 0, 4, 5)), 2, 1, null);
+            TestingBatchIterators.ofValues(Arrays.asList(2, 0, 4, 5, 8)), 2, 3, null);
 
+        SpillFile.Factory spillFiles = SpillFile.factory(
+            tmpFolder.getRoot().toPath(),
+            new Streamer[] { DataTypes.INTEGER.streamer() }
+        );
         BatchIterator<Row> batchIterator = new HashInnerJoinBatchIterator(
                 leftIterator,
                 rightIterator,
@@ -71,19 +85,25 @@ public class HashInnerJoinBatchIteratorBehaviouralTest {
                 row -> Objects.equals(row.get(0), row.get(1)),
                 row -> Objects.hash(row.get(0)),
                 row -> Objects.hash(row.get(0)),
-                () -> 2
+                () -> 2,
+                2,
+                spillFiles,
+                spillFiles
             );
 
         TestingRowConsumer consumer = new TestingRowConsumer();
         consumer.accept(batchIterator, null);
         List<Object[]> result = consumer.getResult();
-        assertThat(result, contains(new Object[]{2, 2}, new Object[]{4, 4}));
+        assertThat(result, containsInAnyOrder(new Object[]{2, 2}, new Object[]{4, 4}, new Object[]{8, 8}));
 
-        // as the blocksize is defined of 2 but the left batch size 1, normally it would call left loadNextBatch until
-        // the blocksize is reached. we don't want that as parallel running hash iterators must call loadNextBatch always
-        // on the same side synchronously as the upstreams will only send new data after all downstreams responded.
-        // to validate this, the right must be repeated 3 times
-        assertThat(rightIterator.getMovetoStartCalls(), is(2));
+        // Partitions which don't fit into memory are spilled to disk instead of re-reading the right side per block.
+        // This also ensures that parallel running hash iterators never switch back to the left side, which would
+        // dead-lock as the upstreams only send new data after all downstreams responded.
+        assertThat(rightIterator.getMovetoStartCalls(), is(0));
+        assertThat(leftIterator.getMovetoStartCalls(), is(0));
+        try (var spillFilesLeft = Files.list(tmpFolder.getRoot().toPath())) {
+            assertThat("spill files must be deleted once consumed", spillFilesLeft.count(), is(0L));
+        }
     }
 
     @Test
@@ -101,7 +121,10 @@ public class HashInnerJoinBatchIteratorBehaviouralTest {
             row -> Objects.equals(row.get(0), row.get(1)),
             row -> Objects.hash(row.get(0)),
             row -> Objects.hash(row.get(0)),
-            () -> 500000
+            () -> 500000,
+            8,
+            null,
+            null
         );
 
         TestingRowConsumer consumer = new TestingRowConsumer();
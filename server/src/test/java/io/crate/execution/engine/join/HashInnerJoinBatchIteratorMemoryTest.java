@@ -21,21 +21,31 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.Streamer;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.data.join.CombinedRow;
+import io.crate.execution.engine.spill.SpillFile;
 import io.crate.testing.BatchSimulatingIterator;
 import io.crate.testing.TestingBatchIterators;
 import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -43,6 +53,9 @@ import static org.mockito.Mockito.when;
 
 public class HashInnerJoinBatchIteratorMemoryTest {
 
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
     private final CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
 
     private static Predicate<Row> getCol0EqCol1JoinCondition() {
@@ -79,12 +92,112 @@ public class HashInnerJoinBatchIteratorMemoryTest {
             getCol0EqCol1JoinCondition(),
             getHashForLeft(),
             getHashForRight(),
-            () -> 2
+            () -> 20,
+            8,
+            null,
+            null
         );
         TestingRowConsumer consumer = new TestingRowConsumer();
         consumer.accept(it, null);
         consumer.getResult();
-        verify(rowAccounting, times(8)).release();
         verify(rowAccounting, times(12)).accountForAndMaybeBreak(Mockito.any(Object[].class));
+        verify(rowAccounting, Mockito.atLeastOnce()).release();
+    }
+
+    @Test
+    public void test_rows_in_memory_stay_within_limit_if_partitions_are_spilled() throws Exception {
+        BatchSimulatingIterator<Row> leftIterator = new BatchSimulatingIterator<>(
+            TestingBatchIterators.range(0, 12),
+            3,
+            4,
+            null
+        );
+        BatchIterator<Row> rightIterator = new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 10), 2, 5, null);
+
+        CountingRowAccounting rowAccounting = new CountingRowAccounting();
+        SpillFile.Factory spillFiles = SpillFile.factory(
+            tmpFolder.getRoot().toPath(),
+            new Streamer[] { DataTypes.INTEGER.streamer() }
+        );
+        BatchIterator<Row> it = new HashInnerJoinBatchIterator(
+            leftIterator,
+            rightIterator,
+            rowAccounting,
+            new CombinedRow(1, 1),
+            getCol0EqCol1JoinCondition(),
+            getHashForLeft(),
+            getHashForRight(),
+            () -> 4,
+            4,
+            spillFiles,
+            spillFiles
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        List<Object[]> result = consumer.getResult();
+
+        assertThat(result.size(), is(10));
+        assertThat(rowAccounting.maxRows, lessThanOrEqualTo(4));
+        assertThat(rowAccounting.rows, is(0));
+    }
+
+    @Test
+    public void test_partition_is_spilled_if_circuit_breaker_trips() throws Exception {
+        BatchIterator<Row> leftIterator = TestingBatchIterators.range(0, 12);
+        BatchIterator<Row> rightIterator = TestingBatchIterators.range(0, 10);
+
+        CountingRowAccounting rowAccounting = new CountingRowAccounting();
+        rowAccounting.breakAfterRows = 3;
+        SpillFile.Factory spillFiles = SpillFile.factory(
+            tmpFolder.getRoot().toPath(),
+            new Streamer[] { DataTypes.INTEGER.streamer() }
+        );
+        BatchIterator<Row> it = new HashInnerJoinBatchIterator(
+            leftIterator,
+            rightIterator,
+            rowAccounting,
+            new CombinedRow(1, 1),
+            getCol0EqCol1JoinCondition(),
+            getHashForLeft(),
+            getHashForRight(),
+            () -> Integer.MAX_VALUE,
+            8,
+            spillFiles,
+            spillFiles
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        List<Object[]> result = consumer.getResult();
+
+        assertThat(result.size(), is(10));
+        assertThat(rowAccounting.maxRows, lessThanOrEqualTo(3));
+        assertThat(rowAccounting.rows, is(0));
+    }
+
+    private static class CountingRowAccounting implements RowAccounting<Object[]> {
+
+        private int breakAfterRows = Integer.MAX_VALUE;
+        private int rows = 0;
+        private int maxRows = 0;
+
+        @Override
+        public long accountForAndMaybeBreak(Object[] row) {
+            if (rows == breakAfterRows) {
+                throw new CircuitBreakingException("Too many rows");
+            }
+            rows++;
+            maxRows = Math.max(maxRows, rows);
+            return 1;
+        }
+
+        @Override
+        public void release() {
+            rows = 0;
+        }
+
+        @Override
+        public void release(long bytes) {
+            rows -= bytes;
+        }
     }
 }
@@ -25,15 +25,22 @@ import com.carrotsearch.randomizedtesting.RandomizedRunner;
 import com.carrotsearch.randomizedtesting.annotations.Name;
 import com.carrotsearch.randomizedtesting.annotations.ParametersFactory;
 import com.carrotsearch.randomizedtesting.annotations.ThreadLeakScope;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccounting;
+import io.crate.breaker.RowCellsAccountingWithEstimators;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.data.join.CombinedRow;
+import io.crate.execution.engine.spill.SpillFile;
 import io.crate.testing.BatchIteratorTester;
 import io.crate.testing.BatchSimulatingIterator;
 import io.crate.testing.TestingBatchIterators;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 
 import java.util.Arrays;
@@ -51,6 +58,9 @@ import static org.mockito.Mockito.when;
 @ThreadLeakScope(ThreadLeakScope.Scope.NONE)
 public class HashInnerJoinBatchIteratorTest {
 
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
     private final CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
     private final List<Object[]> expectedResult;
     private final Supplier<BatchIterator<Row>> leftIterator;
@@ -124,65 +134,96 @@ public class HashInnerJoinBatchIteratorTest {
               resultForDuplicateValues));
     }
 
-    @Test
-    public void testInnerHashJoin() throws Exception {
-        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator(
+    private BatchIterator<Row> createHashJoin(ToIntFunction<Row> hashForLeft,
+                                              ToIntFunction<Row> hashForRight,
+                                              int maxRowsInMemory,
+                                              boolean spillingEnabled) {
+        SpillFile.Factory spillFiles = null;
+        if (spillingEnabled) {
+            spillFiles = SpillFile.factory(tmpFolder.getRoot().toPath(), new Streamer[] { DataTypes.INTEGER.streamer() });
+        }
+        return new HashInnerJoinBatchIterator(
             leftIterator.get(),
             rightIterator.get(),
             mock(RowAccounting.class),
             new CombinedRow(1, 1),
             getCol0EqCol1JoinCondition(),
-            getHashForLeft(),
-            getHashForRight(),
-            () -> 5
+            hashForLeft,
+            hashForRight,
+            () -> maxRowsInMemory,
+            4,
+            spillFiles,
+            spillFiles
         );
+    }
+
+    @Test
+    public void testInnerHashJoin() throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier =
+            () -> createHashJoin(getHashForLeft(), getHashForRight(), 5, true);
         BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
 
     @Test
     public void testInnerHashJoinWithHashCollisions() throws Exception {
-        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator(
-            leftIterator.get(),
-            rightIterator.get(),
-            mock(RowAccounting.class),
-            new CombinedRow(1, 1),
-            getCol0EqCol1JoinCondition(),
-            getHashWithCollisions(),
-            getHashWithCollisions(),
-            () -> 5
-        );
+        Supplier<BatchIterator<Row>> batchIteratorSupplier =
+            () -> createHashJoin(getHashWithCollisions(), getHashWithCollisions(), 5, true);
         BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
 
     @Test
     public void testInnerHashJoinWithBlockSizeSmallerThanDataSet() throws Exception {
-        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator(
-            leftIterator.get(),
-            rightIterator.get(),
-            mock(RowAccounting.class),
-            new CombinedRow(1, 1),
-            getCol0EqCol1JoinCondition(),
-            getHashForLeft(),
-            getHashForRight(),
-            () -> 1
-        );
+        Supplier<BatchIterator<Row>> batchIteratorSupplier =
+            () -> createHashJoin(getHashForLeft(), getHashForRight(), 1, true);
         BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
 
     @Test
     public void testInnerHashJoinWithBlockSizeBiggerThanIteratorBatchSize() throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier =
+            () -> createHashJoin(getHashForLeft(), getHashForRight(), 3, true);
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testInnerHashJoinWithSpilledPartitionsAndHashCollisions() throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier =
+            () -> createHashJoin(getHashWithCollisions(), getHashWithCollisions(), 1, true);
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testInnerHashJoinWithSpillingDisabled() throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier =
+            () -> createHashJoin(getHashForLeft(), getHashForRight(), 1, false);
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testInnerHashJoinSpillsPartitionsExceedingTheMemoryBudget() throws Exception {
+        SpillFile.Factory spillFiles =
+            SpillFile.factory(tmpFolder.getRoot().toPath(), new Streamer[] { DataTypes.INTEGER.streamer() });
         Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator(
             leftIterator.get(),
             rightIterator.get(),
-            mock(RowAccounting.class),
+            new HashJoinOperation.BudgetedRowAccounting(
+                new RowCellsAccountingWithEstimators(List.of(DataTypes.INTEGER), RamAccounting.NO_ACCOUNTING, 0),
+                () -> 40L
+            ),
             new CombinedRow(1, 1),
             getCol0EqCol1JoinCondition(),
             getHashForLeft(),
             getHashForRight(),
-            () -> 3
+            () -> Integer.MAX_VALUE,
+            4,
+            spillFiles,
+            spillFiles
         );
         BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
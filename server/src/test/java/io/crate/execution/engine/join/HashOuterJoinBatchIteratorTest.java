@@ -0,0 +1,166 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.breaker.RowAccounting;
+import io.crate.common.collections.Lists2;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.join.CombinedRow;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.TestingBatchIterators;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import static org.mockito.Mockito.mock;
+
+public class HashOuterJoinBatchIteratorTest extends AbstractHashJoinBatchIteratorTest {
+
+    private static final List<Object[]> MATCHES = Arrays.asList(
+        new Object[] { 1, 1 }, new Object[] { 1, 1 },
+        new Object[] { 2, 2 }, new Object[] { 2, 2 },
+        new Object[] { 3, 3 },
+        new Object[] { 4, 4 }, new Object[] { 4, 4 }, new Object[] { 4, 4 }, new Object[] { 4, 4 }
+    );
+    private static final List<Object[]> UNMATCHED_LEFT = Arrays.asList(
+        new Object[] { 0, null }, new Object[] { 0, null }, new Object[] { 7, null }
+    );
+    private static final List<Object[]> UNMATCHED_RIGHT = Arrays.asList(
+        new Object[] { null, 5 }, new Object[] { null, 5 }, new Object[] { null, 6 }
+    );
+
+    @Override
+    BatchIterator<Row> createJoin(JoinType joinType,
+                                  BatchIterator<Row> left,
+                                  BatchIterator<Row> right,
+                                  ToIntFunction<Row> hash,
+                                  int maxRowsInMemory,
+                                  boolean spillingEnabled) {
+        SpillFile.Factory spillFiles = spillFiles(spillingEnabled);
+        return new HashOuterJoinBatchIterator(
+            left,
+            right,
+            joinType,
+            mock(RowAccounting.class),
+            new CombinedRow(1, 1),
+            COL0_EQ_COL1,
+            hash,
+            hash,
+            () -> maxRowsInMemory,
+            4,
+            spillFiles,
+            spillFiles
+        );
+    }
+
+    private static List<Object[]> leftJoinResult() {
+        return Lists2.concat(MATCHES, UNMATCHED_LEFT);
+    }
+
+    private static List<Object[]> rightJoinResult() {
+        return Lists2.concat(MATCHES, UNMATCHED_RIGHT);
+    }
+
+    private static List<Object[]> fullJoinResult() {
+        return Lists2.concat(leftJoinResult(), UNMATCHED_RIGHT);
+    }
+
+    @Test
+    public void test_left_join() throws Exception {
+        assertJoin(JoinType.LEFT, hash(), 20, true, leftJoinResult());
+        assertJoin(JoinType.LEFT, hashWithCollisions(), 20, true, leftJoinResult());
+    }
+
+    @Test
+    public void test_left_join_with_spilled_partitions() throws Exception {
+        assertJoin(JoinType.LEFT, hash(), 1, true, leftJoinResult());
+        assertJoin(JoinType.LEFT, hashWithCollisions(), 2, true, leftJoinResult());
+    }
+
+    @Test
+    public void test_right_join() throws Exception {
+        assertJoin(JoinType.RIGHT, hash(), 20, true, rightJoinResult());
+        assertJoin(JoinType.RIGHT, hashWithCollisions(), 20, true, rightJoinResult());
+    }
+
+    @Test
+    public void test_right_join_with_spilled_partitions() throws Exception {
+        assertJoin(JoinType.RIGHT, hash(), 1, true, rightJoinResult());
+        assertJoin(JoinType.RIGHT, hashWithCollisions(), 2, true, rightJoinResult());
+    }
+
+    @Test
+    public void test_full_join() throws Exception {
+        assertJoin(JoinType.FULL, hash(), 20, true, fullJoinResult());
+        assertJoin(JoinType.FULL, hashWithCollisions(), 20, true, fullJoinResult());
+    }
+
+    @Test
+    public void test_full_join_with_spilled_partitions() throws Exception {
+        assertJoin(JoinType.FULL, hash(), 1, true, fullJoinResult());
+        assertJoin(JoinType.FULL, hashWithCollisions(), 2, true, fullJoinResult());
+    }
+
+    @Test
+    public void test_full_join_with_spilling_disabled() throws Exception {
+        assertJoin(JoinType.FULL, hash(), 1, false, fullJoinResult());
+    }
+
+    @Test
+    public void test_null_keys_never_match() throws Exception {
+        Supplier<BatchIterator<Row>> it = () -> createJoin(
+            JoinType.FULL,
+            TestingBatchIterators.ofValues(Arrays.asList(1, null)),
+            TestingBatchIterators.ofValues(Arrays.asList(null, 1)),
+            hash(),
+            20,
+            false
+        );
+        new BatchIteratorTester(it).verifyResultAndEdgeCaseBehaviour(Arrays.asList(
+            new Object[] { 1, 1 },
+            new Object[] { null, null },
+            new Object[] { null, null }
+        ));
+    }
+
+    @Test
+    public void test_left_join_with_empty_right_side_emits_all_left_rows() throws Exception {
+        Supplier<BatchIterator<Row>> it = () -> createJoin(
+            JoinType.LEFT,
+            TestingBatchIterators.ofValues(Arrays.asList(1, 2)),
+            TestingBatchIterators.ofValues(List.of()),
+            hash(),
+            1,
+            true
+        );
+        new BatchIteratorTester(it).verifyResultAndEdgeCaseBehaviour(Arrays.asList(
+            new Object[] { 1, null },
+            new Object[] { 2, null }
+        ));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.breaker.RowAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.join.CombinedRow;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.TestingBatchIterators;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import static org.mockito.Mockito.mock;
+
+public class HashSemiJoinBatchIteratorTest extends AbstractHashJoinBatchIteratorTest {
+
+    private static final List<Object[]> SEMI_RESULT = Arrays.asList(
+        new Object[] { 1 },
+        new Object[] { 2 }, new Object[] { 2 },
+        new Object[] { 3 },
+        new Object[] { 4 }, new Object[] { 4 }
+    );
+    private static final List<Object[]> ANTI_RESULT = Arrays.asList(
+        new Object[] { 0 }, new Object[] { 0 }, new Object[] { 7 }
+    );
+
+    private static final Predicate<Row> COL0_IS_NULL = row -> row.get(0) == null;
+
+    @Override
+    BatchIterator<Row> createJoin(JoinType joinType,
+                                  BatchIterator<Row> left,
+                                  BatchIterator<Row> right,
+                                  ToIntFunction<Row> hash,
+                                  int maxRowsInMemory,
+                                  boolean spillingEnabled) {
+        return createJoin(joinType, left, right, hash, null, maxRowsInMemory, spillingEnabled);
+    }
+
+    private BatchIterator<Row> createJoin(JoinType joinType,
+                                          BatchIterator<Row> left,
+                                          BatchIterator<Row> right,
+                                          ToIntFunction<Row> hash,
+                                          @Nullable Predicate<Row> keyIsNull,
+                                          int maxRowsInMemory,
+                                          boolean spillingEnabled) {
+        SpillFile.Factory spillFiles = spillFiles(spillingEnabled);
+        return new HashSemiJoinBatchIterator(
+            left,
+            right,
+            joinType,
+            mock(RowAccounting.class),
+            new CombinedRow(1, 1),
+            COL0_EQ_COL1,
+            hash,
+            hash,
+            keyIsNull,
+            keyIsNull,
+            () -> maxRowsInMemory,
+            4,
+            spillFiles,
+            spillFiles
+        );
+    }
+
+    @Test
+    public void test_semi_join_emits_left_rows_with_a_match_once() throws Exception {
+        assertJoin(JoinType.SEMI, hash(), 20, true, SEMI_RESULT);
+    }
+
+    @Test
+    public void test_semi_join_with_hash_collisions() throws Exception {
+        assertJoin(JoinType.SEMI, hashWithCollisions(), 20, true, SEMI_RESULT);
+    }
+
+    @Test
+    public void test_semi_join_with_spilled_partitions() throws Exception {
+        assertJoin(JoinType.SEMI, hash(), 1, true, SEMI_RESULT);
+        assertJoin(JoinType.SEMI, hashWithCollisions(), 2, true, SEMI_RESULT);
+    }
+
+    @Test
+    public void test_semi_join_with_spilling_disabled() throws Exception {
+        assertJoin(JoinType.SEMI, hash(), 1, false, SEMI_RESULT);
+    }
+
+    @Test
+    public void test_anti_join_emits_left_rows_without_a_match() throws Exception {
+        assertJoin(JoinType.ANTI, hash(), 20, true, ANTI_RESULT);
+    }
+
+    @Test
+    public void test_anti_join_with_hash_collisions() throws Exception {
+        assertJoin(JoinType.ANTI, hashWithCollisions(), 20, true, ANTI_RESULT);
+    }
+
+    @Test
+    public void test_anti_join_with_spilled_partitions() throws Exception {
+        assertJoin(JoinType.ANTI, hash(), 1, true, ANTI_RESULT);
+        assertJoin(JoinType.ANTI, hashWithCollisions(), 2, true, ANTI_RESULT);
+    }
+
+    @Test
+    public void test_anti_join_with_spilling_disabled() throws Exception {
+        assertJoin(JoinType.ANTI, hash(), 1, false, ANTI_RESULT);
+    }
+
+    @Test
+    public void test_anti_join_without_null_awareness_emits_left_rows_with_null_keys() throws Exception {
+        Supplier<BatchIterator<Row>> it = () -> createJoin(
+            JoinType.ANTI,
+            TestingBatchIterators.ofValues(Arrays.asList(1, 2, null)),
+            TestingBatchIterators.ofValues(Arrays.asList(2, null)),
+            hash(),
+            null,
+            20,
+            false
+        );
+        new BatchIteratorTester(it).verifyResultAndEdgeCaseBehaviour(
+            Arrays.asList(new Object[] { 1 }, new Object[] { null }));
+    }
+
+    @Test
+    public void test_null_aware_anti_join_skips_left_rows_with_null_keys() throws Exception {
+        Supplier<BatchIterator<Row>> it = () -> createJoin(
+            JoinType.ANTI,
+            TestingBatchIterators.ofValues(Arrays.asList(1, 2, 3, null)),
+            TestingBatchIterators.ofValues(Arrays.asList(2)),
+            hash(),
+            COL0_IS_NULL,
+            20,
+            false
+        );
+        new BatchIteratorTester(it).verifyResultAndEdgeCaseBehaviour(
+            Arrays.asList(new Object[] { 1 }, new Object[] { 3 }));
+    }
+
+    @Test
+    public void test_null_aware_anti_join_emits_nothing_if_the_right_side_contains_a_null_key() throws Exception {
+        Supplier<BatchIterator<Row>> it = () -> createJoin(
+            JoinType.ANTI,
+            TestingBatchIterators.ofValues(Arrays.asList(1, 2, 3)),
+            TestingBatchIterators.ofValues(Arrays.asList(2, null)),
+            hash(),
+            COL0_IS_NULL,
+            20,
+            false
+        );
+        new BatchIteratorTester(it).verifyResultAndEdgeCaseBehaviour(List.of());
+    }
+
+    @Test
+    public void test_null_aware_anti_join_with_empty_right_side_emits_all_left_rows() throws Exception {
+        Supplier<BatchIterator<Row>> it = () -> createJoin(
+            JoinType.ANTI,
+            TestingBatchIterators.ofValues(Arrays.asList(1, null)),
+            TestingBatchIterators.ofValues(List.of()),
+            hash(),
+            COL0_IS_NULL,
+            20,
+            false
+        );
+        new BatchIteratorTester(it).verifyResultAndEdgeCaseBehaviour(
+            Arrays.asList(new Object[] { 1 }, new Object[] { null }));
+    }
+}
@@ -53,6 +53,7 @@ import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.projection.AggregationProjection;
+import io.crate.execution.dsl.projection.EvalProjection;
 import io.crate.execution.dsl.projection.FilterProjection;
 import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.OrderedTopNProjection;
@@ -66,6 +67,9 @@ import io.crate.execution.jobs.NodeLimits;
 import io.crate.expression.InputFactory;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.Operator;
+import io.crate.expression.scalar.arithmetic.ArithmeticFunctions;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.Aggregation;
 import io.crate.expression.symbol.Function;
@@ -76,6 +80,7 @@ import io.crate.memory.OnHeapMemoryManager;
 import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.RowGranularity;
+import io.crate.metadata.Scalar;
 import io.crate.metadata.SearchPath;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
@@ -276,4 +281,61 @@ public class ProjectionToProjectorVisitorTest extends CrateDummyClusterServiceUn
         Bucket bucket = consumer.getBucket();
         assertThat(bucket.size(), is(1));
     }
+
+    @Test
+    public void test_filter_projection_with_vectorized_functions_uses_vectorized_projector() throws Exception {
+        List<Symbol> arguments = Arrays.asList(new InputColumn(1, DataTypes.INTEGER), Literal.of(1));
+        Scalar<?, ?> op = (Scalar<?, ?>) nodeCtx.functions().get(
+            null, GtOperator.NAME, arguments, SearchPath.pathWithPGCatalogAndDoc());
+        Function function = new Function(op.signature(), arguments, Operator.RETURN_TYPE);
+        FilterProjection projection = new FilterProjection(
+            function,
+            Arrays.asList(new InputColumn(0, DataTypes.STRING), new InputColumn(1, DataTypes.INTEGER)));
+
+        Projector projector = visitor.create(
+            projection, txnCtx, RamAccounting.NO_ACCOUNTING, memoryManager, UUID.randomUUID());
+        assertThat(projector, instanceOf(VectorizedProjector.class));
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < VectorizedProjector.BATCH_SIZE + 10; i++) {
+            rows.add($("human", i % 3));
+        }
+        BatchIterator<Row> filteredBI = projector.apply(
+            InMemoryBatchIterator.of(new CollectionBucket(rows), SENTINEL, true));
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(filteredBI, null);
+        List<Object[]> result = consumer.getResult();
+        assertThat(result.size(), is(344));
+        assertThat(result.get(0), is($("human", 2)));
+    }
+
+    @Test
+    public void test_vectorized_eval_projection_followed_by_limit_does_not_fail_on_rows_after_the_limit() throws Exception {
+        List<Symbol> arguments = Arrays.asList(Literal.of(1), new InputColumn(0, DataTypes.INTEGER));
+        Scalar<?, ?> divide = (Scalar<?, ?>) nodeCtx.functions().get(
+            null, ArithmeticFunctions.Names.DIVIDE, arguments, SearchPath.pathWithPGCatalogAndDoc());
+        Function function = new Function(divide.signature(), arguments, DataTypes.INTEGER);
+        Projector evalProjector = visitor.create(
+            new EvalProjection(List.of(function)),
+            txnCtx,
+            RamAccounting.NO_ACCOUNTING,
+            memoryManager,
+            UUID.randomUUID()
+        );
+        assertThat(evalProjector, instanceOf(VectorizedProjector.class));
+        Projector topNProjector = visitor.create(
+            new TopNProjection(1, 0, List.of(DataTypes.INTEGER)),
+            txnCtx,
+            RamAccounting.NO_ACCOUNTING,
+            memoryManager,
+            UUID.randomUUID()
+        );
+
+        List<Object[]> rows = List.of($(1), $(0), $(2));
+        BatchIterator<Row> batchIterator = topNProjector.apply(evalProjector.apply(
+            InMemoryBatchIterator.of(new CollectionBucket(rows), SENTINEL, true)));
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(batchIterator, null);
+        assertThat(consumer.getResult(), contains(isRow(1)));
+    }
 }
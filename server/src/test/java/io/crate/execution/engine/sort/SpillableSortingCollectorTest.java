@@ -0,0 +1,200 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.RowCellsAccountingWithEstimators;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.execution.engine.pipeline.TopN;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class SpillableSortingCollectorTest extends ESTestCase {
+
+    private static final List<DataType<?>> TYPES = List.of(DataTypes.LONG, DataTypes.STRING);
+
+    private static SpillableSortingCollector collector(long memoryLimit, Path spillDirectory, int limit, int offset) {
+        return collector(memoryLimit, Long.MAX_VALUE, spillDirectory, limit, offset);
+    }
+
+    private static SpillableSortingCollector collector(long memoryLimit,
+                                                       long maxBytesInMemory,
+                                                       Path spillDirectory,
+                                                       int limit,
+                                                       int offset) {
+        InputCollectExpression value = new InputCollectExpression(0);
+        InputCollectExpression label = new InputCollectExpression(1);
+        return new SpillableSortingCollector(
+            new RowCellsAccountingWithEstimators(TYPES, new LimitedRamAccounting(memoryLimit), 32),
+            List.of(value, label),
+            List.<CollectExpression<Row, ?>>of(value, label),
+            1,
+            OrderingByPosition.arrayOrdering(0, false, false),
+            limit,
+            offset,
+            SpillFile.factory(spillDirectory, DataTypes.getStreamers(TYPES)),
+            () -> maxBytesInMemory
+        );
+    }
+
+    private static List<Object> collect(SpillableSortingCollector collector, List<Long> values) {
+        var runs = collector.supplier().get();
+        for (Long value : values) {
+            collector.accumulator().accept(runs, new RowN(value, "label-" + value));
+        }
+        List<Object> result = new ArrayList<>();
+        for (Row row : collector.finisher().apply(runs)) {
+            assertThat(row.numColumns(), is(1));
+            result.add(row.get(0));
+        }
+        return result;
+    }
+
+    private static List<Long> shuffledValues(int numValues) {
+        List<Long> values = new ArrayList<>(numValues);
+        for (long i = 0; i < numValues; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, random());
+        return values;
+    }
+
+    private static long numFiles(Path directory) throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void test_rows_are_sorted_in_memory_if_they_fit() throws Exception {
+        Path spillDirectory = createTempDir();
+        var collector = collector(Long.MAX_VALUE, spillDirectory, TopN.NO_LIMIT, 2);
+        List<Object> result = collect(collector, List.of(3L, 1L, 4L, 2L, 5L));
+        assertThat(result, contains(3L, 4L, 5L));
+        assertThat(numFiles(spillDirectory), is(0L));
+    }
+
+    @Test
+    public void test_runs_are_spilled_and_merged_if_the_circuit_breaker_trips() throws Exception {
+        Path spillDirectory = createTempDir();
+        // Small enough to require more runs than can be merged at once
+        var collector = collector(4 * 1024, spillDirectory, TopN.NO_LIMIT, 0);
+        int numValues = 20_000;
+        List<Object> result = collect(collector, shuffledValues(numValues));
+
+        assertThat(numFiles(spillDirectory), greaterThan(0L));
+        assertThat(result.size(), is(numValues));
+        for (int i = 0; i < numValues; i++) {
+            assertThat(result.get(i), is((long) i));
+        }
+
+        collector.close();
+        assertThat(numFiles(spillDirectory), is(0L));
+    }
+
+    @Test
+    public void test_runs_are_spilled_once_they_exceed_the_memory_budget() throws Exception {
+        Path spillDirectory = createTempDir();
+        // The breaker must never trip, the budget is far below its limit
+        var collector = collector(64 * 1024 * 1024, 16 * 1024, spillDirectory, TopN.NO_LIMIT, 0);
+        int numValues = 10_000;
+        List<Object> result = collect(collector, shuffledValues(numValues));
+
+        assertThat(numFiles(spillDirectory), greaterThan(0L));
+        assertThat(result.size(), is(numValues));
+        for (int i = 0; i < numValues; i++) {
+            assertThat(result.get(i), is((long) i));
+        }
+        collector.close();
+        assertThat(numFiles(spillDirectory), is(0L));
+    }
+
+    @Test
+    public void test_limit_and_offset_are_applied_to_the_merged_runs() throws Exception {
+        Path spillDirectory = createTempDir();
+        var collector = collector(16 * 1024, spillDirectory, 10, 5_000);
+        List<Object> result = collect(collector, shuffledValues(10_000));
+
+        assertThat(numFiles(spillDirectory), greaterThan(0L));
+        assertThat(result, contains(5000L, 5001L, 5002L, 5003L, 5004L, 5005L, 5006L, 5007L, 5008L, 5009L));
+        collector.close();
+    }
+
+    @Test
+    public void test_circuit_breaker_exception_is_raised_if_a_single_row_does_not_fit() throws Exception {
+        var collector = collector(8, createTempDir(), TopN.NO_LIMIT, 0);
+        var runs = collector.supplier().get();
+        expectThrows(
+            CircuitBreakingException.class,
+            () -> collector.accumulator().accept(runs, new RowN(1L, "label")));
+    }
+
+    private static class LimitedRamAccounting implements RamAccounting {
+
+        private final long limit;
+        private long totalBytes = 0;
+
+        LimitedRamAccounting(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void addBytes(long bytes) {
+            if (totalBytes + bytes > limit) {
+                throw new CircuitBreakingException("Limit of " + limit + " bytes reached");
+            }
+            totalBytes += bytes;
+        }
+
+        @Override
+        public long totalBytes() {
+            return totalBytes;
+        }
+
+        @Override
+        public void release() {
+            totalBytes = 0;
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.spill;
+
+import io.crate.Streamer;
+import io.crate.data.CloseableIterator;
+import io.crate.data.RowN;
+import io.crate.types.DataTypes;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class SpillFileTest extends ESTestCase {
+
+    @Test
+    public void test_rows_are_read_back_in_insertion_order() throws Exception {
+        Path dir = createTempDir();
+        Streamer<?>[] streamers = new Streamer[] { DataTypes.INTEGER.streamer(), DataTypes.STRING.streamer() };
+        try (SpillFile spillFile = new SpillFile(dir, streamers)) {
+            spillFile.add(new Object[] { 1, "a" });
+            spillFile.add(new RowN(2, null));
+            spillFile.add(new Object[] { null, "c" });
+            assertThat(spillFile.numRows(), is(3));
+
+            for (int i = 0; i < 2; i++) {
+                List<Object[]> rows = new ArrayList<>();
+                try (CloseableIterator<Object[]> it = spillFile.read()) {
+                    it.forEachRemaining(rows::add);
+                }
+                assertThat(rows, contains(
+                    new Object[] { 1, "a" },
+                    new Object[] { 2, null },
+                    new Object[] { null, "c" }
+                ));
+            }
+        }
+        try (var files = Files.list(dir)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
+    @Test
+    public void test_rows_are_read_back_starting_at_a_recorded_position() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] { DataTypes.INTEGER.streamer(), DataTypes.STRING.streamer() };
+        try (SpillFile spillFile = new SpillFile(createTempDir(), streamers)) {
+            long[] positions = new long[10];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = spillFile.position();
+                spillFile.add(new Object[] { i, "row-" + i });
+            }
+            List<Object[]> rows = new ArrayList<>();
+            try (CloseableIterator<Object[]> it = spillFile.read(positions[7], 2)) {
+                it.forEachRemaining(rows::add);
+            }
+            assertThat(rows, contains(
+                new Object[] { 7, "row-7" },
+                new Object[] { 8, "row-8" }
+            ));
+        }
+    }
+}
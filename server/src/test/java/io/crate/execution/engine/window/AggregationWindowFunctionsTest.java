@@ -243,6 +243,38 @@ public class AggregationWindowFunctionsTest extends AbstractWindowFunctionTest {
             new Object[]{12.0, 12.0});
     }
 
+    @Test
+    public void test_max_over_sliding_rows_frame() throws Throwable {
+        assertEvaluate("max(x) OVER(" +
+                            "ORDER BY y ROWS BETWEEN 1 PRECEDING and 1 FOLLOWING" +
+                       ")",
+            contains(3, 4, 4, 5, 9, 9, 9),
+            List.of(new ColumnIdent("x"), new ColumnIdent("y")),
+            new Object[]{3, 1},
+            new Object[]{1, 2},
+            new Object[]{4, 3},
+            new Object[]{1, 4},
+            new Object[]{5, 5},
+            new Object[]{9, 6},
+            new Object[]{2, 7});
+    }
+
+    @Test
+    public void test_min_over_sliding_rows_frame_in_partitions() throws Throwable {
+        assertEvaluate("min(x) OVER(" +
+                            "PARTITION BY z ORDER BY y ROWS BETWEEN CURRENT ROW and 2 FOLLOWING" +
+                       ")",
+            contains(3, 3, 4, 6, 6, 1, 1),
+            List.of(new ColumnIdent("z"), new ColumnIdent("y"), new ColumnIdent("x")),
+            new Object[]{"a", 1, 5},
+            new Object[]{"a", 2, 3},
+            new Object[]{"a", 3, 4},
+            new Object[]{"a", 4, null},
+            new Object[]{"a", 5, 6},
+            new Object[]{"b", 1, 2},
+            new Object[]{"b", 2, 1});
+    }
+
     @Test
     public void test_agg_over_range_following() throws Throwable {
         Object[] expected = new Object[]{
@@ -0,0 +1,71 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.window;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RowCellsAccountingWithEstimators;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SpillablePartitionTest extends ESTestCase {
+
+    @Test
+    public void test_spilled_rows_can_be_accessed_in_any_order_within_the_memory_budget() throws Exception {
+        Path spillDirectory = createTempDir();
+        List<DataType<?>> rowTypes = List.of(DataTypes.INTEGER, DataTypes.STRING);
+        var ramAccounting = new ConcurrentRamAccounting(bytes -> {}, bytes -> {});
+        var rowAccounting = new RowCellsAccountingWithEstimators(rowTypes, ramAccounting, 0);
+        long maxBytesInMemory = 64 * 1024;
+        int numRows = 10 * SpillablePartition.BLOCK_SIZE + 10;
+        try (var partition = new SpillablePartition(
+                rowAccounting,
+                SpillFile.factory(spillDirectory, DataTypes.getStreamers(rowTypes)),
+                () -> maxBytesInMemory)) {
+            for (int i = 0; i < numRows; i++) {
+                partition.add(new Object[] { i, "row-" + i });
+            }
+            assertThat(partition.hasSpilled(), is(true));
+            assertThat(partition.size(), is(numRows));
+
+            for (int i = 0; i < 1000; i++) {
+                int idx = randomIntBetween(0, numRows - 1);
+                assertThat(partition.get(idx), is(new Object[] { idx, "row-" + idx }));
+                assertThat(ramAccounting.totalBytes(), lessThanOrEqualTo(maxBytesInMemory));
+            }
+        }
+        assertThat(ramAccounting.totalBytes(), is(0L));
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+}
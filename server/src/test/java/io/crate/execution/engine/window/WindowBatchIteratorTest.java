@@ -24,6 +24,7 @@ package io.crate.execution.engine.window;
 import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccountingWithEstimators;
+import io.crate.breaker.RowCellsAccountingWithEstimators;
 import io.crate.common.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.Input;
@@ -113,6 +114,31 @@ public class WindowBatchIteratorTest {
         tester.verifyResultAndEdgeCaseBehaviour(expectedRowNumberResult);
     }
 
+    @Test
+    public void test_window_functions_are_computed_per_partition_on_sorted_source() throws Exception {
+        // partitions: [0, 1, 2], [3, 4, 5], [6, 7, 8], [9]
+        Comparator<Object[]> cmpPartitionBy = Comparator.comparingInt(row -> (int) row[0] / 3);
+        List<Object[]> expectedResult = IntStream.range(0, 10)
+            .mapToObj(l -> new Object[]{l, l % 3 + 1}).collect(toList());
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> WindowFunctionBatchIterator.ofSortedSource(
+                new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 10), 4, 2, null),
+                new RowCellsAccountingWithEstimators(
+                    List.of(DataTypes.INTEGER, DataTypes.INTEGER), RamAccounting.NO_ACCOUNTING, 0),
+                null,
+                () -> Long.MAX_VALUE,
+                getComputeFrameStart(null, FrameBound.Type.UNBOUNDED_PRECEDING),
+                getComputeFrameEnd(null, FrameBound.Type.CURRENT_ROW),
+                cmpPartitionBy,
+                1,
+                Collections.singletonList(rowNumberWindowFunction()),
+                Collections.emptyList(),
+                new Boolean[]{null},
+                new Input[0])
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
     @Test
     public void testFrameBoundsEmptyWindow() throws Exception {
         var rows = IntStream.range(0, 10).mapToObj(i -> new Object[]{i, null}).collect(toList());
@@ -22,25 +22,42 @@
 package io.crate.execution.engine.window;
 
 import com.carrotsearch.randomizedtesting.annotations.Repeat;
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.RowCellsAccountingWithEstimators;
 import io.crate.common.collections.Lists2;
+import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
+import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Row;
+import io.crate.data.RowN;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.sort.OrderingByPosition;
+import io.crate.execution.engine.spill.SpillFile;
 import io.crate.metadata.functions.Signature;
+import io.crate.testing.TestingBatchIterators;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import static io.crate.data.SentinelRow.SENTINEL;
 import static io.crate.execution.engine.window.WindowFunctionBatchIterator.sortAndComputeWindowFunctions;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
 
 public class WindowFunctionBatchIteratorTest extends ESTestCase {
 
@@ -97,6 +114,97 @@ public class WindowFunctionBatchIteratorTest extends ESTestCase {
         );
     }
 
+    @Test
+    public void test_rows_are_spilled_and_window_functions_computed_per_partition() throws Exception {
+        int numPartitions = 20;
+        int rowsPerPartition = 500;
+        List<Row> sourceRows = new ArrayList<>();
+        for (int i = 0; i < rowsPerPartition; i++) {
+            for (int p = 0; p < numPartitions; p++) {
+                sourceRows.add(new RowN(p, i));
+            }
+        }
+        Collections.shuffle(sourceRows, random());
+        Path spillDirectory = createTempDir();
+        List<DataType<?>> rowTypes = List.of(DataTypes.INTEGER, DataTypes.INTEGER, DataTypes.INTEGER);
+        // Fits a single partition, but not all rows
+        var ramAccounting = new LimitedRamAccounting(64 * 1024);
+        BatchIterator<Row> iterator = WindowFunctionBatchIterator.spillable(
+            InMemoryBatchIterator.of(sourceRows, SENTINEL, false),
+            new RowCellsAccountingWithEstimators(rowTypes, ramAccounting, 32),
+            new RowCellsAccountingWithEstimators(rowTypes, new LimitedRamAccounting(64 * 1024), 32),
+            SpillFile.factory(spillDirectory, DataTypes.getStreamers(rowTypes)),
+            () -> Long.MAX_VALUE,
+            (partitionStart, partitionEnd, currentIndex, sortedRows) -> 0,
+            (partitionStart, partitionEnd, currentIndex, sortedRows) -> currentIndex,
+            OrderingByPosition.arrayOrdering(0, false, false),
+            OrderingByPosition.arrayOrdering(1, false, false),
+            2,
+            () -> 1,
+            Runnable::run,
+            List.of(rowNumberWindowFunction()),
+            Collections.emptyList(),
+            new Boolean[]{null},
+            new Input[][] { new Input[0] }
+        );
+        List<Object[]> result = BatchIterators.collect(
+            iterator,
+            Collectors.mapping(Row::materialize, Collectors.toList())
+        ).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.size(), is(numPartitions * rowsPerPartition));
+        for (int i = 0; i < result.size(); i++) {
+            int partition = i / rowsPerPartition;
+            int idxInPartition = i % rowsPerPartition;
+            assertThat(result.get(i), is(new Object[] { partition, idxInPartition, idxInPartition + 1 }));
+        }
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files.count(), greaterThan(0L));
+        }
+        iterator.close();
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
+    @Test
+    public void test_partition_larger_than_memory_is_spilled_on_sorted_source() throws Exception {
+        int numRows = 2000;
+        Path spillDirectory = createTempDir();
+        List<DataType<?>> rowTypes = List.of(DataTypes.INTEGER, DataTypes.LONG);
+        BatchIterator<Row> iterator = WindowFunctionBatchIterator.ofSortedSource(
+            TestingBatchIterators.range(0, numRows),
+            new RowCellsAccountingWithEstimators(rowTypes, new LimitedRamAccounting(64 * 1024), 32),
+            SpillFile.factory(spillDirectory, DataTypes.getStreamers(rowTypes)),
+            () -> 4 * 1024,
+            // ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW
+            (partitionStart, partitionEnd, currentIndex, sortedRows) -> partitionStart,
+            (partitionStart, partitionEnd, currentIndex, sortedRows) -> currentIndex + 1,
+            null,
+            1,
+            List.of(frameSumWindowFunction()),
+            Collections.emptyList(),
+            new Boolean[]{null},
+            new Input[][] { new Input[0] }
+        );
+        List<Object[]> result = BatchIterators.collect(
+            iterator,
+            Collectors.mapping(Row::materialize, Collectors.toList())
+        ).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.size(), is(numRows));
+        for (int i = 0; i < numRows; i++) {
+            assertThat(result.get(i), is(new Object[] { i, (long) i * (i + 1) / 2 }));
+        }
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files.count(), is(1L));
+        }
+        iterator.close();
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
     @Test
     @Repeat (iterations = 100)
     public void testOptimizedFindFirstNonPeerMatchesBehaviorOfTrivial() {
@@ -128,4 +236,90 @@ public class WindowFunctionBatchIteratorTest extends ESTestCase {
         }
         return end;
     }
+
+    /**
+     * Sums up the first column of all rows in the frame, accessing each of them
+     */
+    private static WindowFunction frameSumWindowFunction() {
+        return new WindowFunction() {
+            @Override
+            public Object execute(int idxInPartition,
+                                  WindowFrameState currentFrame,
+                                  List<? extends CollectExpression<Row, ?>> expressions,
+                                  Boolean ignoreNulls,
+                                  Input... args) {
+                long sum = 0;
+                for (int i = currentFrame.lowerBound(); i < currentFrame.upperBoundExclusive(); i++) {
+                    sum += (int) currentFrame.getRowInFrameAtIndexOrNull(i)[0];
+                }
+                return sum;
+            }
+
+            @Override
+            public Signature signature() {
+                return null;
+            }
+
+            @Override
+            public Signature boundSignature() {
+                return null;
+            }
+        };
+    }
+
+    private static WindowFunction rowNumberWindowFunction() {
+        return new WindowFunction() {
+            @Override
+            public Object execute(int idxInPartition,
+                                  WindowFrameState currentFrame,
+                                  List<? extends CollectExpression<Row, ?>> expressions,
+                                  Boolean ignoreNulls,
+                                  Input... args) {
+                return idxInPartition + 1;
+            }
+
+            @Override
+            public Signature signature() {
+                return null;
+            }
+
+            @Override
+            public Signature boundSignature() {
+                return null;
+            }
+        };
+    }
+
+    private static class LimitedRamAccounting implements RamAccounting {
+
+        private final long limit;
+        private long totalBytes = 0;
+
+        LimitedRamAccounting(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void addBytes(long bytes) {
+            if (totalBytes + bytes > limit) {
+                throw new CircuitBreakingException("Limit of " + limit + " bytes reached");
+            }
+            totalBytes += bytes;
+        }
+
+        @Override
+        public long totalBytes() {
+            return totalBytes;
+        }
+
+        @Override
+        public void release() {
+            totalBytes = 0;
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
 }
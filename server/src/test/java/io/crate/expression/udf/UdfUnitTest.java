@@ -45,7 +45,7 @@ public abstract class UdfUnitTest extends CrateDummyClusterServiceUnitTest {
         udfService = new UserDefinedFunctionService(clusterService, createNodeContext());
     }
 
-    static final UDFLanguage DUMMY_LANG = new UDFLanguage() {
+    public static final UDFLanguage DUMMY_LANG = new UDFLanguage() {
         @Override
         public Scalar createFunctionImplementation(UserDefinedFunctionMetadata metadata,
                                                    Signature signature) throws ScriptException {
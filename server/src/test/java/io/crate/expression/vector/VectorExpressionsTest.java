@@ -0,0 +1,149 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.expression.vector;
+
+import static io.crate.testing.Asserts.assertThrowsMatches;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.LongColumnVector;
+import io.crate.data.vector.ObjectColumnVector;
+import io.crate.data.vector.SelectionVector;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.RefReplacer;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.RelationName;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.T3;
+
+public class VectorExpressionsTest extends CrateDummyClusterServiceUnitTest {
+
+    private static final List<String> COLUMNS = List.of("a", "x", "i");
+
+    private SqlExpressions expressions;
+    private VectorExpressions vectorExpressions;
+    private ColumnVector[] batch;
+    private SelectionVector selection;
+
+    @Before
+    public void prepare() throws Exception {
+        Map<RelationName, AnalyzedRelation> sources = T3.sources(List.of(T3.T1), clusterService);
+        DocTableRelation tr1 = (DocTableRelation) sources.get(T3.T1);
+        expressions = new SqlExpressions(sources, tr1);
+        vectorExpressions = new VectorExpressions(CoordinatorTxnCtx.systemTransactionContext(), expressions.nodeCtx);
+
+        Object[][] rows = new Object[][] {
+            new Object[] { "foo", 1, 10 },
+            new Object[] { null, 2, null },
+            new Object[] { "Bar", 3, 30 },
+            new Object[] { "baz", 4, 0 },
+        };
+        batch = new ColumnVector[COLUMNS.size()];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new ObjectColumnVector(rows.length);
+            for (int pos = 0; pos < rows.length; pos++) {
+                batch[i].set(pos, rows[pos][i]);
+            }
+        }
+        selection = new SelectionVector(rows.length);
+        selection.selectAll(rows.length);
+    }
+
+    private VectorExpression compile(String expression) {
+        Symbol symbol = RefReplacer.replaceRefs(
+            expressions.asSymbol(expression),
+            ref -> new InputColumn(COLUMNS.indexOf(ref.column().name()), ref.valueType())
+        );
+        return vectorExpressions.compile(symbol);
+    }
+
+    private List<Object> evaluate(String expression) {
+        ColumnVector result = compile(expression).evaluate(batch, selection);
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < selection.size(); i++) {
+            values.add(result.get(selection.get(i)));
+        }
+        return values;
+    }
+
+    @Test
+    public void test_arithmetic_on_integers_keeps_type_and_nulls() {
+        assertThat(evaluate("x * 2 + i"), contains(12, null, 36, 8));
+        assertThat(vectorExpressions.numVectorized(), is(2));
+        assertThat(vectorExpressions.numInputColumns(), is(3));
+    }
+
+    @Test
+    public void test_arithmetic_errors_are_raised_like_row_based_evaluation() {
+        assertThrowsMatches(
+            () -> evaluate("x / i"),
+            IllegalArgumentException.class,
+            "/ by zero"
+        );
+    }
+
+    @Test
+    public void test_filter_narrows_selection() {
+        ColumnVector matches = compile("x > 1 and (i >= 30 or a = 'baz')").evaluate(batch, selection);
+        selection.retainTrue(matches);
+        assertThat(selection.size(), is(2));
+        assertThat(selection.get(0), is(2));
+        assertThat(selection.get(1), is(3));
+
+        // functions are only evaluated for the remaining positions
+        assertThat(evaluate("lower(a)"), contains("bar", "baz"));
+    }
+
+    @Test
+    public void test_cast_and_date_trunc_use_long_vectors() {
+        VectorExpression expression = compile("date_trunc('second', x::bigint * 1000 + 999)");
+        assertThat(expression.evaluate(batch, selection), instanceOf(LongColumnVector.class));
+        assertThat(evaluate("date_trunc('second', x::bigint * 1000 + 999)"), contains(1000L, 2000L, 3000L, 4000L));
+    }
+
+    @Test
+    public void test_functions_without_vectorized_implementation_are_evaluated_row_by_row() {
+        assertThat(evaluate("case when i = 0 then null else x / i end"), contains(0, null, 0, null));
+        assertThat(vectorExpressions.numVectorized(), is(0));
+        assertThat(evaluate("coalesce(i, x) + 1"), contains(11, 3, 31, 1));
+        assertThat(vectorExpressions.numVectorized(), is(1));
+    }
+
+    @Test
+    public void test_references_are_not_supported() {
+        assertThat(vectorExpressions.compile(expressions.asSymbol("x + 1")), nullValue());
+    }
+}
@@ -144,14 +144,15 @@ public class AggregateExpressionIntegrationTest extends SQLIntegrationTestCase {
     @Test
     public void test_filter_in_aggregate_expr_with_group_by_single_numeric_column_with_nulls() {
         execute("SELECT" +
-                "   COLLECT_SET(x) FILTER (WHERE x > 1) " +
+                "   y, COLLECT_SET(x) FILTER (WHERE x > 1) " +
                 "FROM UNNEST(" +
                 "   [1, 2, 1, 3]," +
                 "   [1, 1, null, null]) AS t(x, y) " +
-                "GROUP BY y");
+                "GROUP BY y " +
+                "ORDER BY y NULLS FIRST");
         assertThat(printedTable(response.rows()),
-                   is("[3]\n" +
-                      "[2]\n"));
+                   is("NULL| [3]\n" +
+                      "1| [2]\n"));
     }
 
     @Test
@@ -44,7 +44,7 @@ public class GroupByAggregateBreakerTest extends SQLIntegrationTestCase {
     @Test
     public void selectGroupByWithBreaking() throws Exception {
         assertThrowsMatches(() -> execute("select region, count(*) from sys.summits group by 1"),
-                     isSQLError(is("[query] Data too large, data for [collect: 0] would be [280/280b], " +
+                     isSQLError(is("[query] Data too large, data for [collect: 0] would be [272/272b], " +
                                    "which is larger than the limit of [256/256b]"),
                                 INTERNAL_ERROR,
                                 INTERNAL_SERVER_ERROR,
@@ -1206,9 +1206,9 @@ public class GroupByAggregateTest extends SQLIntegrationTestCase {
     public void testGroupByOnScalarOnArray() throws Exception {
         execute("select string_to_array(col1, ' ')[2], count(*) " +
                 "from unnest([' select foo', 'insert into ', 'select 1']) " +
-                "group by 1 order by 2 desc");
-        assertThat(printedTable(response.rows()), is("into| 1\n" +
-                                                     "1| 1\n" +
+                "group by 1 order by 2 desc, 1");
+        assertThat(printedTable(response.rows()), is("1| 1\n" +
+                                                     "into| 1\n" +
                                                      "select| 1\n"));
     }
 
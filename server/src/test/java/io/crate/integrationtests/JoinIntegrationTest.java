@@ -21,6 +21,7 @@
 
 package io.crate.integrationtests;
 
+import io.crate.action.sql.Session;
 import io.crate.data.CollectionBucket;
 import io.crate.execution.engine.join.RamBlockSizeCalculator;
 import io.crate.execution.engine.sort.OrderingByPosition;
@@ -53,6 +54,7 @@ import static io.crate.testing.TestingHelpers.printedTable;
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static org.hamcrest.Matchers.arrayContaining;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
@@ -1159,7 +1161,7 @@ public class JoinIntegrationTest extends SQLIntegrationTestCase {
                 t1
                 JOIN t2 on t2.id = t1.id
                 JOIN t3 on t3.id = t2.id
-                LEFT OUTER JOIN t4 on t4.id = t3.id
+                LEFT OUTER JOIN t4 on t4.id >= t3.id AND t4.id <= t3.id
             WHERE
                 t2.id = 1 OR t2.id = 2
         """;
@@ -1168,7 +1170,7 @@ public class JoinIntegrationTest extends SQLIntegrationTestCase {
         // This should prevent from the test case becoming invalid
         assertThat(printedTable(response.rows()), is(
             "Eval[id, a, id, b, id, c, id, d]\n" +
-            "  └ NestedLoopJoin[LEFT | (id = id)]\n" +
+            "  └ NestedLoopJoin[LEFT | ((id >= id) AND (id <= id))]\n" +
             "    ├ HashJoin[(id = id)]\n" +
             "    │  ├ HashJoin[(id = id)]\n" +
             "    │  │  ├ Get[doc.t2 | id, b | DocKeys{1; 2} | ((id = 1) OR (id = 2))]\n" +
@@ -1222,6 +1224,48 @@ public class JoinIntegrationTest extends SQLIntegrationTestCase {
     }
 
 
+    @Test
+    @UseHashJoins(1)
+    @UseRandomizedSchema(random = false)
+    public void test_hash_join_result_is_unchanged_if_build_keys_are_pushed_into_probe_side() throws Exception {
+        execute("create table t1 (id int, a text)");
+        execute("create table t2 (id int, b text)");
+        execute("insert into t1 (id, a) values (1, 'a1'), (5, 'a5'), (null, 'a_null'), (100, 'a100')");
+        Object[][] bulkArgs = new Object[200][];
+        for (int i = 0; i < bulkArgs.length; i++) {
+            bulkArgs[i] = new Object[] { i % 50, "b" + i };
+        }
+        execute("insert into t2 (id, b) values (?, ?)", bulkArgs);
+        execute("insert into t2 (id, b) values (null, 'b_null')");
+        execute("refresh table t1, t2");
+        execute("analyze");
+
+        String stmt = "SELECT t1.a, t2.b FROM t1 JOIN t2 ON t1.id = t2.id ORDER BY t2.b";
+        execute("EXPLAIN " + stmt);
+        // ensure that the rule is applied, the probe side t2 is filtered by the keys of t1
+        String plan = printedTable(response.rows());
+        assertThat(plan, containsString("MultiPhase"));
+        assertThat(plan, containsString("(id = ANY("));
+        execute(stmt);
+        String result = printedTable(response.rows());
+        assertThat(result, is(
+            "a1| b1\n" +
+            "a1| b101\n" +
+            "a5| b105\n" +
+            "a1| b151\n" +
+            "a5| b155\n" +
+            "a5| b5\n" +
+            "a1| b51\n" +
+            "a5| b55\n"
+        ));
+
+        try (Session session = createSession(null)) {
+            execute("SET optimizer_push_build_keys_into_hash_join_probe_side = false", null, session);
+            execute(stmt, null, session);
+            assertThat(printedTable(response.rows()), is(result));
+        }
+    }
+
     @Test
     @UseHashJoins(1)
     public void test_inner_join_on_empty_system_tables() throws Exception {
@@ -131,6 +131,7 @@ public class PgCatalogITest extends SQLIntegrationTestCase {
             "optimizer_move_order_beneath_rename| true| Indicates if the optimizer rule MoveOrderBeneathRename is activated.| NULL| NULL",
             "optimizer_move_order_beneath_union| true| Indicates if the optimizer rule MoveOrderBeneathUnion is activated.| NULL| NULL",
             "optimizer_optimize_collect_where_clause_access| true| Indicates if the optimizer rule OptimizeCollectWhereClauseAccess is activated.| NULL| NULL",
+            "optimizer_push_build_keys_into_hash_join_probe_side| true| Indicates if the optimizer rule PushBuildKeysIntoHashJoinProbeSide is activated.| NULL| NULL",
             "optimizer_remove_redundant_fetch_or_eval| true| Indicates if the optimizer rule RemoveRedundantFetchOrEval is activated.| NULL| NULL",
             "optimizer_rewrite_filter_on_outer_join_to_inner_join| true| Indicates if the optimizer rule RewriteFilterOnOuterJoinToInnerJoin is activated.| NULL| NULL",
             "optimizer_rewrite_group_by_keys_limit_to_top_n_distinct| true| Indicates if the optimizer rule RewriteGroupByKeysLimitToTopNDistinct is activated.| NULL| NULL",
@@ -138,7 +139,8 @@ public class PgCatalogITest extends SQLIntegrationTestCase {
             "optimizer_rewrite_to_query_then_fetch| true| Indicates if the optimizer rule RewriteToQueryThenFetch is activated.| NULL| NULL",
             "search_path| pg_catalog, doc| Sets the schema search order.| NULL| NULL",
             "server_version| 10.5| Reports the emulated PostgreSQL version number| NULL| NULL",
-            "server_version_num| 100500| Reports the emulated PostgreSQL version number| NULL| NULL")
+            "server_version_num| 100500| Reports the emulated PostgreSQL version number| NULL| NULL",
+            "shard_collect_concurrency| 0| The maximum number of threads used to collect the documents of a single shard. 0 uses the idle threads of the search thread pool.| NULL| NULL")
         );
     }
 
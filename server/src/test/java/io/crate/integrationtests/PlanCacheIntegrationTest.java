@@ -0,0 +1,90 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import org.elasticsearch.test.ESIntegTestCase;
+import org.junit.Test;
+
+@ESIntegTestCase.ClusterScope(numDataNodes = 1, numClientNodes = 0, supportsDedicatedMasters = false)
+public class PlanCacheIntegrationTest extends SQLIntegrationTestCase {
+
+    @Test
+    public void test_cached_plan_is_executed_with_the_new_parameters() {
+        execute("create table tbl (id int, p int, x int, primary key (id, p)) clustered into 2 shards partitioned by (p)");
+        execute("insert into tbl (id, p, x) values (1, 1, 10), (2, 1, 20), (3, 2, 30)");
+        execute("refresh table tbl");
+
+        String stmt = "select p, sum(x) from tbl where p = ? group by p";
+        execute(stmt, new Object[] { 1 });
+        assertThat(printedTable(response.rows()), is("1| 30\n"));
+        execute(stmt, new Object[] { 2 });
+        assertThat(printedTable(response.rows()), is("2| 30\n"));
+
+        execute("select x from tbl where id = ? and p = ?", new Object[] { 3, 2 });
+        assertThat(printedTable(response.rows()), is("30\n"));
+        execute("select x from tbl where id = ? and p = ?", new Object[] { 2, 1 });
+        assertThat(printedTable(response.rows()), is("20\n"));
+
+        execute("select sum(hits) from sys.plan_cache");
+        assertThat((long) response.rows()[0][0], greaterThan(0L));
+    }
+
+    @Test
+    public void test_cached_plan_is_invalidated_on_schema_change() {
+        execute("create table tbl (id int primary key, x int)");
+        execute("insert into tbl (id, x) values (1, 10)");
+        execute("refresh table tbl");
+
+        String stmt = "select * from tbl where id = ?";
+        execute(stmt, new Object[] { 1 });
+        assertThat(printedTable(response.rows()), is("1| 10\n"));
+
+        execute("alter table tbl add column y int");
+        execute("update tbl set y = 20 where id = 1");
+        execute("refresh table tbl");
+        execute(stmt, new Object[] { 1 });
+        assertThat(printedTable(response.rows()), is("1| 10| 20\n"));
+    }
+
+    @Test
+    public void test_cached_plan_is_invalidated_on_table_stats_change_and_statements_without_parameters_are_not_cached() {
+        execute("create table tbl (id int primary key, x int)");
+        execute("insert into tbl (id, x) values (1, 10), (2, 20)");
+        execute("refresh table tbl");
+
+        execute("select * from tbl where id = 1");
+        execute("select sum(size) from sys.plan_cache");
+        assertThat((long) response.rows()[0][0], is(0L));
+
+        execute("select * from tbl where id = ?", new Object[] { 1 });
+        execute("select sum(size) from sys.plan_cache");
+        assertThat((long) response.rows()[0][0], is(1L));
+
+        execute("analyze");
+        execute("select sum(size), sum(invalidations) from sys.plan_cache");
+        assertThat(printedTable(response.rows()), is("0| 1\n"));
+    }
+}
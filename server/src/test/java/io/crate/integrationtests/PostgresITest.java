@@ -34,6 +34,8 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.core.Is.is;
 
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.sql.Array;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
@@ -61,7 +63,10 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
+import org.postgresql.PGConnection;
 import org.postgresql.PGProperty;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.postgresql.geometric.PGpoint;
 import org.postgresql.jdbc.PreferQueryMode;
 import org.postgresql.util.PGobject;
@@ -970,6 +975,93 @@ public class PostgresITest extends SQLIntegrationTestCase {
         }
     }
 
+    @Test
+    public void test_copy_from_stdin_indexes_the_rows_sent_by_the_client() throws Exception {
+        try (Connection conn = DriverManager.getConnection(url(RW), properties)) {
+            conn.createStatement().executeUpdate("create table t (id int, name text)");
+            ensureYellow();
+
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+            long numRows = copyManager.copyIn(
+                "COPY t (id, name) FROM STDIN",
+                new StringReader("1\tArthur\n2\tTrillian\n"));
+            assertThat(numRows, is(2L));
+
+            conn.createStatement().executeUpdate("refresh table t");
+            ResultSet result = conn.createStatement().executeQuery("select name from t order by id");
+            assertThat(result.next(), is(true));
+            assertThat(result.getString(1), is("Arthur"));
+            assertThat(result.next(), is(true));
+            assertThat(result.getString(1), is("Trillian"));
+            assertThat(result.next(), is(false));
+        }
+    }
+
+    @Test
+    public void test_copy_from_stdin_fails_on_malformed_row() throws Exception {
+        try (Connection conn = DriverManager.getConnection(url(RW), properties)) {
+            conn.createStatement().executeUpdate("create table t (id int, name text)");
+            ensureYellow();
+
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+            PSQLException e = assertThrows(
+                PSQLException.class,
+                () -> copyManager.copyIn("COPY t (id, name) FROM STDIN", new StringReader("1\tArthur\n2\n")));
+            assertThat(e.getMessage(), containsString("COPY row has 1 values but 2 columns are expected"));
+
+            // the connection can be used after the failed copy
+            assertSelectNameFromSysClusterWorks(conn);
+        }
+    }
+
+    @Test
+    public void test_copy_from_stdin_is_aborted_by_copy_fail_of_the_client() throws Exception {
+        try (Connection conn = DriverManager.getConnection(url(RW), properties)) {
+            conn.createStatement().executeUpdate("create table t (id int, name text)");
+            ensureYellow();
+
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+            CopyIn copyIn = copyManager.copyIn("COPY t (id, name) FROM STDIN");
+            byte[] row = "1\tArthur\n".getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(row, 0, row.length);
+            copyIn.flushCopy();
+            // sends CopyFail and expects exactly one error response
+            copyIn.cancelCopy();
+            assertThat(copyIn.isActive(), is(false));
+
+            assertSelectNameFromSysClusterWorks(conn);
+            ResultSet result = conn.createStatement().executeQuery(
+                "select count(*) from sys.jobs where stmt like 'COPY t%'");
+            assertThat(result.next(), is(true));
+            assertThat(result.getLong(1), is(0L));
+        }
+    }
+
+    @Test
+    public void test_copy_from_stdin_can_be_killed() throws Exception {
+        try (Connection conn = DriverManager.getConnection(url(RW), properties);
+             Connection killConn = DriverManager.getConnection(url(RW), properties)) {
+            conn.createStatement().executeUpdate("create table t (id int, name text)");
+            ensureYellow();
+
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+            CopyIn copyIn = copyManager.copyIn("COPY t (id, name) FROM STDIN");
+            byte[] row = "1\tArthur\n".getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(row, 0, row.length);
+            copyIn.flushCopy();
+
+            ResultSet result = killConn.createStatement().executeQuery(
+                "select id from sys.jobs where stmt like 'COPY t%'");
+            assertThat(result.next(), is(true));
+            String jobId = result.getString(1);
+            killConn.createStatement().execute("KILL '" + jobId + "'");
+
+            PSQLException e = assertThrows(PSQLException.class, copyIn::endCopy);
+            assertThat(e.getMessage(), containsString("Job killed"));
+            assertSelectNameFromSysClusterWorks(conn);
+        }
+    }
+
     private long getNumQueriesFromJobsLogs() {
         long result = 0;
         Iterable<JobsLogs> jobLogs = internalCluster().getInstances(JobsLogs.class);
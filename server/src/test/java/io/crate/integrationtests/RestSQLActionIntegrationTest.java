@@ -108,6 +108,43 @@ public class RestSQLActionIntegrationTest extends SQLHttpIntegrationTest {
         assertThat(bodyAsString, containsString("BinaryScalar.java"));
     }
 
+    @Test
+    public void test_ndjson_result_is_streamed_in_chunks() throws Exception {
+        var resp = postWithFormat("{\"stmt\": \"select col1 from generate_series(1, 2500)\"}", "ndjson");
+        assertThat(resp.getStatusLine().getStatusCode(), is(200));
+        assertThat(resp.getFirstHeader("Content-Type").getValue(), is("application/x-ndjson; charset=UTF-8"));
+        assertThat(resp.getFirstHeader("Transfer-Encoding").getValue(), is("chunked"));
+
+        String[] lines = EntityUtils.toString(resp.getEntity()).split("\n");
+        assertThat(lines.length, is(2500));
+        assertThat(lines[0], is("{\"col1\":1}"));
+        assertThat(lines[1000], is("{\"col1\":1001}"));
+        assertThat(lines[2499], is("{\"col1\":2500}"));
+    }
+
+    @Test
+    public void test_csv_result_is_streamed_in_chunks() throws Exception {
+        var resp = postWithFormat(
+            "{\"stmt\": \"select col1, 'a,' || col1 as s from generate_series(1, 2500)\"}", "csv");
+        assertThat(resp.getStatusLine().getStatusCode(), is(200));
+        assertThat(resp.getFirstHeader("Content-Type").getValue(), is("text/csv; charset=UTF-8"));
+        assertThat(resp.getFirstHeader("Transfer-Encoding").getValue(), is("chunked"));
+
+        String[] lines = EntityUtils.toString(resp.getEntity()).split("\r\n");
+        assertThat(lines.length, is(2501));
+        assertThat(lines[0], is("col1,s"));
+        assertThat(lines[1], is("1,\"a,1\""));
+        assertThat(lines[2500], is("2500,\"a,2500\""));
+    }
+
+    @Test
+    public void test_streamed_result_failing_before_the_first_chunk_returns_an_error_response() throws Exception {
+        var resp = postWithFormat("{\"stmt\": \"select 10 / (col1 - 3) from generate_series(1, 5)\"}", "csv");
+        assertThat(resp.getStatusLine().getStatusCode(), is(400));
+        assertThat(resp.getFirstHeader("Content-Type").getValue(), containsString("application/json"));
+        assertThat(EntityUtils.toString(resp.getEntity()), containsString("/ by zero"));
+    }
+
     @Test
     public void test_interval_is_represented_as_text_via_http() throws Exception{
         var resp = post("{\"stmt\": \"select '5 days'::interval as x\"}");
@@ -98,6 +98,17 @@ public abstract class SQLHttpIntegrationTest extends SQLIntegrationTestCase {
         return post(body, null);
     }
 
+    /**
+     * Sends the body with the {@code format} query parameter, which selects the format of the result
+     */
+    protected CloseableHttpResponse postWithFormat(String body, String format) throws IOException {
+        HttpPost httpPostWithFormat = new HttpPost(String.format(Locale.ENGLISH,
+            "%s://%s:%s/_sql?error_trace&format=%s",
+            usesSSL ? "https" : "http", address.getHostName(), address.getPort(), format));
+        httpPostWithFormat.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        return httpClient.execute(httpPostWithFormat);
+    }
+
     protected String upload(String table, String content) throws IOException {
         String digest = blobDigest(content);
         String url = Blobs.url(usesSSL, address, table, digest);
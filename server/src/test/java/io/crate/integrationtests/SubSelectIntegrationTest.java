@@ -27,6 +27,7 @@ import io.crate.metadata.RelationName;
 import io.crate.statistics.Stats;
 import io.crate.statistics.TableStats;
 import io.crate.testing.TestingHelpers;
+import io.crate.testing.UseHashJoins;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.junit.Test;
 
@@ -713,6 +714,35 @@ public class SubSelectIntegrationTest extends SQLIntegrationTestCase {
         );
     }
 
+    @Test
+    @UseHashJoins(1)
+    public void test_in_and_not_in_subqueries_with_many_rows_are_executed_as_semi_and_anti_joins() throws Exception {
+        execute("create table doc.t1 (x int)");
+        execute("create table doc.t2 (y int)");
+        execute("insert into doc.t1 (x) values (1), (2), (20000), (null)");
+        execute("insert into doc.t2 (y) (select col1 from generate_series(1, 15000))");
+        execute("refresh table doc.t1, doc.t2");
+        execute("analyze");
+
+        execute("explain select x from doc.t1 where x in (select y from doc.t2)");
+        assertThat(printedTable(response.rows()), containsString("HashJoin[SEMI | (x = y)]"));
+        execute("select x from doc.t1 where x in (select y from doc.t2) order by x");
+        assertThat(printedTable(response.rows()), is(
+            "1\n" +
+            "2\n"));
+
+        execute("explain select x from doc.t1 where x not in (select y from doc.t2)");
+        assertThat(printedTable(response.rows()), containsString("HashJoin[NULL_AWARE_ANTI | (x = y)]"));
+        execute("select x from doc.t1 where x not in (select y from doc.t2) order by x");
+        assertThat(printedTable(response.rows()), is("20000\n"));
+
+        // A null in the subquery result makes `NOT IN` null for every row
+        execute("insert into doc.t2 (y) values (null)");
+        execute("refresh table doc.t2");
+        execute("select x from doc.t1 where x not in (select y from doc.t2)");
+        assertThat(response.rowCount(), is(0L));
+    }
+
     /**
      * Test that results from subQueries are bound to the parent query's where clause
      * BEFORE creating any execution phase (for this test case: before resolving the routing)
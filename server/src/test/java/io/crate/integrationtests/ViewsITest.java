@@ -212,4 +212,44 @@ public class ViewsITest extends SQLIntegrationTestCase {
             )
         );
     }
+
+    @Test
+    public void test_refresh_of_materialized_view_only_recomputes_changed_shards_and_removes_dropped_partitions() {
+        execute("create table t (p int, g text, x int) clustered into 2 shards partitioned by (p)");
+        execute("insert into t (p, g, x) values (1, 'a', 1), (1, 'b', 2), (2, 'a', 3)");
+        execute("refresh table t");
+        execute("create materialized view mv as select g, count(*), sum(x) from t group by g");
+        assertThat(printedTable(execute("select * from mv order by g").rows()), is(
+            "a| 2| 4\n" +
+            "b| 1| 2\n"));
+
+        execute("refresh materialized view mv");
+        assertThat(response.rowCount(), is(0L));
+
+        execute("insert into t (p, g, x) values (2, 'c', 5)");
+        execute("refresh materialized view mv");
+        assertThat(response.rowCount(), is(1L));
+        assertThat(printedTable(execute("select * from mv order by g").rows()), is(
+            "a| 2| 4\n" +
+            "b| 1| 2\n" +
+            "c| 1| 5\n"));
+
+        execute("delete from t where p = 1");
+        execute("refresh materialized view mv");
+        assertThat(response.rowCount(), is(0L));
+        assertThat(printedTable(execute("select * from mv order by g").rows()), is(
+            "a| 1| 3\n" +
+            "c| 1| 5\n"));
+    }
+
+    @Test
+    public void test_materialized_global_aggregate_of_empty_table_contains_a_single_row() {
+        execute("create table t (x int)");
+        execute("create materialized view mv as select count(*), sum(x) from t");
+        assertThat(printedTable(execute("select * from mv").rows()), is("0| NULL\n"));
+
+        execute("insert into t (x) values (1), (2)");
+        execute("refresh materialized view mv");
+        assertThat(printedTable(execute("select * from mv").rows()), is("2| 3\n"));
+    }
 }
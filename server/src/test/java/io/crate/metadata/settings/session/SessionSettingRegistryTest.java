@@ -72,6 +72,18 @@ public class SessionSettingRegistryTest {
         assertBooleanNonEmptySetting(sessionContext::errorOnUnknownObjectKey, setting, true);
     }
 
+    @Test
+    public void test_shard_collect_concurrency_setting() {
+        SessionSetting<?> setting = new SessionSettingRegistry(Set.of(new LoadedRules())).settings().get(SessionSettingRegistry.SHARD_COLLECT_CONCURRENCY);
+        assertThat(sessionContext.shardCollectConcurrency(), is(0));
+        setting.apply(sessionContext, List.of(Literal.of(4)), eval);
+        assertThat(sessionContext.shardCollectConcurrency(), is(4));
+        assertThrows(IllegalArgumentException.class,
+                     () -> setting.apply(sessionContext, List.of(Literal.of(-1)), eval),
+                     "shard_collect_concurrency must be greater than or equal to 0.");
+        assertThat(sessionContext.shardCollectConcurrency(), is(4));
+    }
+
     private void assertBooleanNonEmptySetting(Supplier<Boolean> contextBooleanSupplier,
                                               SessionSetting<?> sessionSetting,
                                               boolean defaultValue) {
@@ -0,0 +1,145 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import io.crate.expression.reference.sys.job.JobContext;
+import io.crate.expression.reference.sys.job.JobContextLog;
+import io.crate.planner.Plan;
+import io.crate.planner.operators.StatementClassifier;
+import io.crate.user.User;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+public class StatementStatsTest {
+
+    private static final User ARTHUR = User.of("arthur");
+
+    private static JobContextLog log(String stmt, User user, long duration, @Nullable String errorMessage) {
+        JobContext jobContext = new JobContext(
+            UUID.randomUUID(),
+            stmt,
+            100L,
+            user,
+            new StatementClassifier.Classification(Plan.StatementType.SELECT));
+        return new JobContextLog(jobContext, errorMessage, 100L + duration);
+    }
+
+    @Test
+    public void test_executions_with_different_literals_are_aggregated() {
+        StatementStats stats = new StatementStats(10);
+        stats.record(log("select * from t where x = 1", ARTHUR, 10, null), 5);
+        stats.record(log("SELECT * FROM t WHERE x = 20", ARTHUR, 30, null), 1);
+        stats.record(log("select * from t where x = 3", ARTHUR, 20, "error"), 0);
+
+        StatementStatsView view = stats.get("arthur", "select * from t where x = ?");
+        assertThat(view, notNullValue());
+        assertThat(view.statement(), is("select * from t where x = ?"));
+        assertThat(view.username(), is("arthur"));
+        assertThat(view.calls(), is(3L));
+        assertThat(view.failedCount(), is(1L));
+        assertThat(view.rows(), is(6L));
+        assertThat(view.sumOfDurations(), is(60L));
+        assertThat(view.minDuration(), is(10L));
+        assertThat(view.maxDuration(), is(30L));
+        assertThat(view.meanDuration(), is(20.0));
+        assertThat(view.getDurationAtPercentile(50.0), is(20L));
+        assertThat(stats.size(), is(1));
+    }
+
+    @Test
+    public void test_statements_are_tracked_per_user() {
+        StatementStats stats = new StatementStats(10);
+        stats.record(log("select 1", ARTHUR, 10, null), 1);
+        stats.record(log("select 2", User.of("trillian"), 10, null), 1);
+
+        assertThat(stats.size(), is(2));
+        assertThat(stats.get("arthur", "select ?").calls(), is(1L));
+        assertThat(stats.get("trillian", "select ?").calls(), is(1L));
+    }
+
+    @Test
+    public void test_statements_with_fewest_calls_are_evicted_if_limit_is_reached() {
+        StatementStats stats = new StatementStats(2);
+        stats.record(log("select a from t", ARTHUR, 10, null), 1);
+        stats.record(log("select a from t", ARTHUR, 10, null), 1);
+        stats.record(log("select b from t", ARTHUR, 10, null), 1);
+        stats.record(log("select c from t", ARTHUR, 10, null), 1);
+
+        assertThat(stats.size(), is(2));
+        assertThat(stats.get("arthur", "select a from t").calls(), is(2L));
+        assertThat(stats.get("arthur", "select b from t"), nullValue());
+        assertThat(stats.get("arthur", "select c from t").calls(), is(1L));
+    }
+
+    @Test
+    public void test_negative_and_high_durations_are_recorded() {
+        StatementStats stats = new StatementStats(10);
+        stats.record(log("select 1", ARTHUR, -2, null), 1);
+        stats.record(log("select 1", ARTHUR, 3_600_000L, null), 1);
+
+        StatementStatsView view = stats.get("arthur", "select 1");
+        assertThat(view.minDuration(), is(0L));
+        assertThat(view.maxDuration(), is(3_600_000L));
+        assertThat(view.sumOfDurations(), is(3_600_000L));
+    }
+
+    @Test
+    public void test_fingerprint_of_the_job_is_used_if_present() {
+        StatementStats stats = new StatementStats(10);
+        JobContext jobContext = new JobContext(
+            UUID.randomUUID(),
+            "select 1",
+            "select ? -- prepared",
+            100L,
+            ARTHUR,
+            new StatementClassifier.Classification(Plan.StatementType.SELECT));
+        stats.record(new JobContextLog(jobContext, null, 110L), 1);
+
+        assertThat(stats.iterator().next().statement(), is("select ? -- prepared"));
+    }
+
+    @Test
+    public void test_entries_are_evicted_if_max_entries_is_reduced() {
+        StatementStats stats = new StatementStats(10);
+        stats.record(log("select a from t", ARTHUR, 10, null), 1);
+        stats.record(log("select a from t", ARTHUR, 10, null), 1);
+        stats.record(log("select b from t", ARTHUR, 10, null), 1);
+        stats.record(log("select c from t", ARTHUR, 10, null), 1);
+        stats.record(log("select d from t", ARTHUR, 10, null), 1);
+
+        stats.updateMaxEntries(2);
+        assertThat(stats.size(), is(1));
+        assertThat(stats.get("arthur", "select a from t").calls(), is(2L));
+
+        stats.updateMaxEntries(0);
+        assertThat(stats.size(), is(0));
+        stats.record(log("select a from t", ARTHUR, 10, null), 1);
+        assertThat(stats.size(), is(0));
+    }
+}
@@ -45,7 +45,9 @@ public class ViewsMetadataTest extends ESTestCase {
             "doc.my_view",
             new ViewMetadata("SELECT x, y FROM t1 WHERE z = 'a'", "user_a"),
             "my_schema.other_view",
-            new ViewMetadata("SELECT a, b FROM t2 WHERE c = 1", "user_b"));
+            new ViewMetadata("SELECT a, b FROM t2 WHERE c = 1", "user_b"),
+            "doc.materialized_view",
+            new ViewMetadata("SELECT x, count(*) FROM t1 GROUP BY x", "user_a", true));
         return new ViewsMetadata(map);
     }
 
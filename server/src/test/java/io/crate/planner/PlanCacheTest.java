@@ -0,0 +1,174 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Set;
+
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.action.sql.SessionContext;
+import io.crate.metadata.RelationName;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.testing.T3;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+public class PlanCacheTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+    private PlanCache planCache;
+
+    @Before
+    public void prepare() throws Exception {
+        e = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .build();
+        planCache = new PlanCache(10);
+    }
+
+    private static PlanCache.Key key(String statement) {
+        return new PlanCache.Key(statement, new DataType<?>[] { DataTypes.INTEGER }, SessionContext.systemSessionContext());
+    }
+
+    private void putPlan(String statement) {
+        LogicalPlan plan = e.logicalPlan(statement);
+        planCache.put(key(statement), plan, clusterService.state().metadata().version(), planCache.tableStatsVersion());
+    }
+
+    @Test
+    public void test_get_returns_cached_plan_and_tracks_hits_and_misses() {
+        String statement = "select * from t1 where x = ?";
+        assertThat(planCache.get(key(statement)), nullValue());
+        LogicalPlan plan = e.logicalPlan(statement);
+        planCache.put(key(statement), plan, clusterService.state().metadata().version(), planCache.tableStatsVersion());
+
+        assertThat(planCache.get(key(statement)), sameInstance(plan));
+        assertThat(planCache.get(key("select * from t1 where i = ?")), nullValue());
+        assertThat(planCache.size(), is(1L));
+        assertThat(planCache.hits(), is(1L));
+        assertThat(planCache.misses(), is(2L));
+    }
+
+    @Test
+    public void test_key_includes_parameter_types_and_search_path() {
+        String statement = "select * from t1 where x = ?";
+        putPlan(statement);
+
+        var longParamKey = new PlanCache.Key(
+            statement, new DataType<?>[] { DataTypes.LONG }, SessionContext.systemSessionContext());
+        assertThat(planCache.get(longParamKey), nullValue());
+
+        var sessionContext = SessionContext.systemSessionContext();
+        sessionContext.setSearchPath("custom");
+        var otherSchemaKey = new PlanCache.Key(statement, new DataType<?>[] { DataTypes.INTEGER }, sessionContext);
+        assertThat(planCache.get(otherSchemaKey), nullValue());
+    }
+
+    @Test
+    public void test_metadata_change_of_referenced_relation_invalidates_only_plans_of_that_relation() {
+        putPlan("select * from t1 where x = ?");
+        putPlan("select * from t2 where y = ?");
+
+        ClusterState prevState = clusterService.state();
+        IndexMetadata t1 = prevState.metadata().index("t1");
+        ClusterState newState = ClusterState.builder(prevState)
+            .metadata(Metadata.builder(prevState.metadata())
+                .put(IndexMetadata.builder(t1).version(t1.getVersion() + 1)))
+            .build();
+        planCache.clusterChanged(new ClusterChangedEvent("test", newState, prevState));
+
+        assertThat(planCache.get(key("select * from t1 where x = ?")), nullValue());
+        assertThat(planCache.get(key("select * from t2 where y = ?")), notNullValue());
+        assertThat(planCache.invalidations(), is(1L));
+    }
+
+    @Test
+    public void test_new_table_invalidates_all_plans() throws Exception {
+        putPlan("select * from t1 where x = ?");
+        putPlan("select * from t2 where y = ?");
+
+        ClusterState prevState = clusterService.state();
+        SQLExecutor.builder(clusterService).addTable(T3.T3_DEFINITION).build();
+        planCache.clusterChanged(new ClusterChangedEvent("test", clusterService.state(), prevState));
+
+        assertThat(planCache.size(), is(0L));
+        assertThat(planCache.invalidations(), is(2L));
+    }
+
+    @Test
+    public void test_plan_created_from_outdated_cluster_state_is_not_cached() {
+        String statement = "select * from t1 where x = ?";
+        LogicalPlan plan = e.logicalPlan(statement);
+        ClusterState prevState = clusterService.state();
+        ClusterState newState = ClusterState.builder(prevState)
+            .metadata(Metadata.builder(prevState.metadata()).version(prevState.metadata().version() + 1))
+            .build();
+        planCache.clusterChanged(new ClusterChangedEvent("test", newState, prevState));
+
+        planCache.put(key(statement), plan, prevState.metadata().version(), planCache.tableStatsVersion());
+        assertThat(planCache.get(key(statement)), nullValue());
+    }
+
+    @Test
+    public void test_table_stats_change_of_referenced_relation_invalidates_only_plans_of_that_relation() {
+        putPlan("select * from t1 where x = ?");
+        putPlan("select * from t2 where y = ?");
+
+        planCache.tableStatsChanged(Set.of(new RelationName("doc", "t1")));
+
+        assertThat(planCache.get(key("select * from t1 where x = ?")), nullValue());
+        assertThat(planCache.get(key("select * from t2 where y = ?")), notNullValue());
+        assertThat(planCache.invalidations(), is(1L));
+    }
+
+    @Test
+    public void test_plan_created_with_outdated_table_stats_is_not_cached() {
+        String statement = "select * from t1 where x = ?";
+        long tableStatsVersion = planCache.tableStatsVersion();
+        LogicalPlan plan = e.logicalPlan(statement);
+        planCache.tableStatsChanged(Set.of(new RelationName("doc", "t1")));
+
+        planCache.put(key(statement), plan, clusterService.state().metadata().version(), tableStatsVersion);
+        assertThat(planCache.get(key(statement)), nullValue());
+    }
+
+    @Test
+    public void test_cache_with_size_0_is_disabled() {
+        planCache = new PlanCache(0);
+        putPlan("select * from t1 where x = ?");
+        assertThat(planCache.get(key("select * from t1 where x = ?")), nullValue());
+        assertThat(planCache.misses(), is(0L));
+    }
+}
@@ -131,19 +131,20 @@ public class SubQueryPlannerTest extends CrateDummyClusterServiceUnitTest {
         assertThat(join.joinPhase().projections().size(), is(1));
         assertThat(join.joinPhase().projections().get(0), instanceOf(EvalProjection.class));
 
-        QueryThenFetch leftQtf = (QueryThenFetch) join.left();
-        Collect left = (Collect) leftQtf.subPlan();
-        assertThat("1 node, otherwise mergePhases would be required", left.nodeIds().size(), is(1));
-        assertThat(left.orderBy(), isSQL("OrderByPositions{indices=[1], reverseFlags=[false], nullsFirst=[false]}"));
-        assertThat(left.collectPhase().projections(), contains(
+        // t2 is expected to have less rows and is used as build side of the hash join, which is the left side
+        QueryThenFetch t1Qtf = (QueryThenFetch) join.right();
+        Collect t1 = (Collect) t1Qtf.subPlan();
+        assertThat("1 node, otherwise mergePhases would be required", t1.nodeIds().size(), is(1));
+        assertThat(t1.orderBy(), isSQL("OrderByPositions{indices=[1], reverseFlags=[false], nullsFirst=[false]}"));
+        assertThat(t1.collectPhase().projections(), contains(
             isTopN(10, 2),
             instanceOf(FetchProjection.class)
         ));
-        QueryThenFetch rightQtf = (QueryThenFetch) join.right();
-        Collect right = (Collect) rightQtf.subPlan();
-        assertThat("1 node, otherwise mergePhases would be required", right.nodeIds().size(), is(1));
-        assertThat(((RoutedCollectPhase) right.collectPhase()).orderBy(), isSQL("doc.t2.b"));
-        assertThat(right.collectPhase().projections(), contains(
+        QueryThenFetch t2Qtf = (QueryThenFetch) join.left();
+        Collect t2 = (Collect) t2Qtf.subPlan();
+        assertThat("1 node, otherwise mergePhases would be required", t2.nodeIds().size(), is(1));
+        assertThat(((RoutedCollectPhase) t2.collectPhase()).orderBy(), isSQL("doc.t2.b"));
+        assertThat(t2.collectPhase().projections(), contains(
             isTopN(5, 5),
             instanceOf(FetchProjection.class),
             instanceOf(EvalProjection.class) // strips `b` used in order by from the outputs
@@ -159,21 +160,21 @@ public class SubQueryPlannerTest extends CrateDummyClusterServiceUnitTest {
                          "on t1.i = t2.i " +
                          "group by t1.a");
 
-        QueryThenFetch qtf = (QueryThenFetch) join.left();
-        Collect left = (Collect) qtf.subPlan();
-        assertThat("1 node, otherwise mergePhases would be required", left.nodeIds().size(), is(1));
-        assertThat(((RoutedCollectPhase) left.collectPhase()).orderBy(), isSQL("doc.t1.a"));
-        assertThat(left.collectPhase().projections(), contains(
+        QueryThenFetch t1Qtf = (QueryThenFetch) join.right();
+        Collect t1 = (Collect) t1Qtf.subPlan();
+        assertThat("1 node, otherwise mergePhases would be required", t1.nodeIds().size(), is(1));
+        assertThat(((RoutedCollectPhase) t1.collectPhase()).orderBy(), isSQL("doc.t1.a"));
+        assertThat(t1.collectPhase().projections(), contains(
             isTopN(10, 2),
             instanceOf(FetchProjection.class)
         ));
-        assertThat(left.collectPhase().toCollect(), isSQL("doc.t1._fetchid, doc.t1.a"));
+        assertThat(t1.collectPhase().toCollect(), isSQL("doc.t1._fetchid, doc.t1.a"));
 
 
-        Collect right = (Collect) join.right();
-        assertThat("1 node, otherwise mergePhases would be required", right.nodeIds().size(), is(1));
-        assertThat(((RoutedCollectPhase) right.collectPhase()).orderBy(), isSQL("doc.t2.i DESC"));
-        assertThat(right.collectPhase().projections(), contains(
+        Collect t2 = (Collect) join.left();
+        assertThat("1 node, otherwise mergePhases would be required", t2.nodeIds().size(), is(1));
+        assertThat(((RoutedCollectPhase) t2.collectPhase()).orderBy(), isSQL("doc.t2.i DESC"));
+        assertThat(t2.collectPhase().projections(), contains(
             isTopN(5, 5)
         ));
 
@@ -193,20 +194,20 @@ public class SubQueryPlannerTest extends CrateDummyClusterServiceUnitTest {
                          " (select i from t2 order by i desc limit 5 offset 5) t2 " +
                          "on t1.i = t2.i");
 
-        QueryThenFetch leftQtf = (QueryThenFetch) join.left();
-        Collect left = (Collect) leftQtf.subPlan();
-        assertThat("1 node, otherwise mergePhases would be required", left.nodeIds().size(), is(1));
-        assertThat(left.collectPhase().toCollect(), isSQL("doc.t1._fetchid, doc.t1.a"));
-        assertThat(((RoutedCollectPhase) left.collectPhase()).orderBy(), isSQL("doc.t1.a"));
-        assertThat(left.collectPhase().projections(), contains(
+        QueryThenFetch t1Qtf = (QueryThenFetch) join.right();
+        Collect t1 = (Collect) t1Qtf.subPlan();
+        assertThat("1 node, otherwise mergePhases would be required", t1.nodeIds().size(), is(1));
+        assertThat(t1.collectPhase().toCollect(), isSQL("doc.t1._fetchid, doc.t1.a"));
+        assertThat(((RoutedCollectPhase) t1.collectPhase()).orderBy(), isSQL("doc.t1.a"));
+        assertThat(t1.collectPhase().projections(), contains(
             isTopN(10, 2),
             instanceOf(FetchProjection.class)
         ));
 
-        Collect right = (Collect) join.right();
-        assertThat("1 node, otherwise mergePhases would be required", right.nodeIds().size(), is(1));
-        assertThat(((RoutedCollectPhase) right.collectPhase()).orderBy(), isSQL("doc.t2.i DESC"));
-        assertThat(right.collectPhase().projections(), contains(
+        Collect t2 = (Collect) join.left();
+        assertThat("1 node, otherwise mergePhases would be required", t2.nodeIds().size(), is(1));
+        assertThat(((RoutedCollectPhase) t2.collectPhase()).orderBy(), isSQL("doc.t2.i DESC"));
+        assertThat(t2.collectPhase().projections(), contains(
             isTopN(5, 5)
         ));
 
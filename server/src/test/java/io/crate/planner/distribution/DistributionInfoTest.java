@@ -21,6 +21,7 @@
 
 package io.crate.planner.distribution;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -55,4 +56,21 @@ public class DistributionInfoTest extends ESTestCase {
 
         assertThat(streamed, equalTo(distributionInfo));
     }
+
+    @Test
+    public void test_multiple_distribute_by_columns_are_only_streamed_to_nodes_supporting_them() throws Exception {
+        DistributionInfo distributionInfo = new DistributionInfo(DistributionType.MODULO, new int[] {2, 0});
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        distributionInfo.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        assertThat(new DistributionInfo(in), equalTo(distributionInfo));
+
+        out = new BytesStreamOutput();
+        out.setVersion(Version.V_4_6_0);
+        distributionInfo.writeTo(out);
+        in = out.bytes().streamInput();
+        in.setVersion(Version.V_4_6_0);
+        assertThat(new DistributionInfo(in), equalTo(new DistributionInfo(DistributionType.MODULO, 2)));
+    }
 }
@@ -71,6 +71,7 @@ public class ResetSettingsPlanTest extends ESTestCase {
             .put("stats.jobs_log_persistent_filter", (String) null)
             .put("stats.operations_log_size", (String) null)
             .put("stats.operations_log_expiration", (String) null)
+            .put("stats.statement_stats_size", (String) null)
             .put("stats.service.interval", (String) null)
             .build();
 
@@ -143,10 +143,13 @@ public class JoinPhaseTest extends ESTestCase {
             2,
             3,
             Set.of("node1", "node2"),
+            JoinType.ANTI,
+            true,
             joinCondition,
             List.of(Literal.of("testLeft"), Literal.of(10)),
             List.of(Literal.of("testRight"), Literal.of(20)),
             List.of(DataTypes.STRING, DataTypes.INTEGER),
+            List.of(DataTypes.LONG, DataTypes.STRING, DataTypes.INTEGER),
             111,
             222);
 
@@ -165,12 +168,14 @@ public class JoinPhaseTest extends ESTestCase {
         assertThat(node.name(), is(node2.name()));
         assertThat(node.outputTypes(), is(node2.outputTypes()));
         assertThat(node.joinType(), is(node2.joinType()));
+        assertThat(node2.isNullAware(), is(true));
         assertThat(node.joinCondition(), is(node2.joinCondition()));
         assertThat(node.leftJoinConditionInputs(), is(node2.leftJoinConditionInputs()));
         assertThat(node.rightJoinConditionInputs(), is(node2.rightJoinConditionInputs()));
         assertThat(node.numLeftOutputs(), is(node2.numLeftOutputs()));
         assertThat(node.numRightOutputs(), is(node2.numRightOutputs()));
         assertThat(node.leftOutputTypes(), is(node2.leftOutputTypes()));
+        assertThat(node.rightOutputTypes(), is(node2.rightOutputTypes()));
         assertThat(node.estimatedRowSizeForLeft(), is(node2.estimatedRowSizeForLeft()));
         assertThat(node.numberOfRowsForLeft(), is(node2.numberOfRowsForLeft()));
     }
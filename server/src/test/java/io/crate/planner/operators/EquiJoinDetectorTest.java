@@ -77,15 +77,29 @@ public class EquiJoinDetectorTest extends CrateDummyClusterServiceUnitTest {
     }
 
     @Test
-    public void testNotPossibleIfNotAnInnerJoin() {
+    public void testNotPossibleOnCrossJoin() {
         assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.CROSS, null), is(false));
+    }
 
+    @Test
+    public void testPossibleOnOuterJoinWithEqCondition() {
         Symbol joinCondition = sqlExpressions.asSymbol("t1.x = t2.y");
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.LEFT, joinCondition), is(true));
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.RIGHT, joinCondition), is(true));
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.FULL, joinCondition), is(true));
+    }
+
+    @Test
+    public void testNotPossibleOnOuterJoinWithoutEqCondition() {
+        Symbol joinCondition = sqlExpressions.asSymbol("t1.x > t2.y");
         assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.LEFT, joinCondition), is(false));
-        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.RIGHT, joinCondition), is(false));
-        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.FULL, joinCondition), is(false));
-        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.ANTI, joinCondition), is(false));
-        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.SEMI, joinCondition), is(false));
+    }
+
+    @Test
+    public void testPossibleOnSemiAndAntiJoinWithEqCondition() {
+        Symbol joinCondition = sqlExpressions.asSymbol("t1.x = t2.y");
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.ANTI, joinCondition), is(true));
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.SEMI, joinCondition), is(true));
     }
 
     @Test
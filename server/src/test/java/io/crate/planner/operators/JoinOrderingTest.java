@@ -22,19 +22,33 @@
 package io.crate.planner.operators;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.RelationName;
+import io.crate.statistics.ColumnStats;
+import io.crate.statistics.MostCommonValues;
+import io.crate.statistics.Stats;
+import io.crate.statistics.TableStats;
 import io.crate.testing.T3;
+import io.crate.types.DataTypes;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import static io.crate.testing.TestingHelpers.createReference;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 public class JoinOrderingTest {
@@ -78,4 +92,101 @@ public class JoinOrderingTest {
         );
         assertThat(qualifiedNames, contains(T3.T1, T3.T2, T3.T3));
     }
+
+    private static Symbol eq(RelationName left, RelationName right, String column) {
+        return new Function(
+            EqOperator.SIGNATURE,
+            List.of(
+                createReference(left.name(), new ColumnIdent(column), DataTypes.INTEGER),
+                createReference(right.name(), new ColumnIdent(column), DataTypes.INTEGER)
+            ),
+            EqOperator.RETURN_TYPE
+        );
+    }
+
+    @Test
+    public void test_order_by_cost_starts_with_the_most_selective_join_and_the_smaller_relation() {
+        // SELECT * FROM t1, t2, t3 WHERE t1.x = t2.x AND t1.y = t3.y
+        Map<RelationName, Long> numRows = Map.of(T3.T1, 1_000_000L, T3.T2, 10L, T3.T3, 1000L);
+        Map<Set<RelationName>, Symbol> conditions = Map.of(
+            Set.of(T3.T1, T3.T2), eq(T3.T1, T3.T2, "x"),
+            Set.of(T3.T1, T3.T3), eq(T3.T1, T3.T3, "y")
+        );
+        List<RelationName> ordered = JoinOrdering.orderByCost(
+            List.of(T3.T1, T3.T3, T3.T2), conditions, numRows::get, new TableStats());
+        assertThat(ordered, contains(T3.T2, T3.T1, T3.T3));
+    }
+
+    @Test
+    public void test_order_by_cost_uses_the_number_of_distinct_values_of_the_join_columns() {
+        // SELECT * FROM t1, t2, t3 WHERE t1.x = t2.x AND t2.y = t3.y
+        // x has only 2 distinct values, so t1 ⋈ t2 results in 50000 rows
+        // t2 ⋈ t3 results in 100 rows
+        TableStats tableStats = new TableStats();
+        Map<RelationName, Stats> stats = new HashMap<>();
+        ColumnStats<Integer> twoDistinctValues =
+            new ColumnStats<>(0.0, 4, 2, DataTypes.INTEGER, MostCommonValues.EMPTY, List.of());
+        stats.put(T3.T1, new Stats(1000, 0, Map.of(new ColumnIdent("x"), twoDistinctValues)));
+        stats.put(T3.T2, new Stats(100, 0, Map.of(new ColumnIdent("x"), twoDistinctValues)));
+        tableStats.updateTableStats(stats);
+
+        Map<RelationName, Long> numRows = Map.of(T3.T1, 1000L, T3.T2, 100L, T3.T3, 200L);
+        Map<Set<RelationName>, Symbol> conditions = Map.of(
+            Set.of(T3.T1, T3.T2), eq(T3.T1, T3.T2, "x"),
+            Set.of(T3.T2, T3.T3), eq(T3.T2, T3.T3, "y")
+        );
+        List<RelationName> ordered = JoinOrdering.orderByCost(
+            List.of(T3.T1, T3.T2, T3.T3), conditions, numRows::get, tableStats);
+        assertThat(ordered, contains(T3.T2, T3.T3, T3.T1));
+    }
+
+    @Test
+    public void test_order_by_cost_avoids_cross_joins() {
+        // SELECT * FROM t1, t2, t3 WHERE t1.x = t2.x AND t2.x = t3.x
+        // t1 and t3 are the smallest relations, but have no join condition
+        Map<RelationName, Long> numRows = Map.of(T3.T1, 10L, T3.T2, 1_000L, T3.T3, 10L);
+        Map<Set<RelationName>, Symbol> conditions = Map.of(
+            Set.of(T3.T1, T3.T2), eq(T3.T1, T3.T2, "x"),
+            Set.of(T3.T2, T3.T3), eq(T3.T2, T3.T3, "x")
+        );
+        List<RelationName> ordered = JoinOrdering.orderByCost(
+            List.of(T3.T1, T3.T2, T3.T3), conditions, numRows::get, new TableStats());
+        assertThat(ordered.get(1), is(T3.T2));
+    }
+
+    @Test
+    public void test_order_by_cost_is_not_possible_without_row_counts() {
+        Map<RelationName, Long> numRows = Map.of(T3.T1, 10L, T3.T2, -1L, T3.T3, 10L);
+        Map<Set<RelationName>, Symbol> conditions = Map.of(
+            Set.of(T3.T1, T3.T2), eq(T3.T1, T3.T2, "x"),
+            Set.of(T3.T2, T3.T3), eq(T3.T2, T3.T3, "x")
+        );
+        assertThat(
+            JoinOrdering.orderByCost(List.of(T3.T1, T3.T2, T3.T3), conditions, numRows::get, new TableStats()),
+            nullValue()
+        );
+    }
+
+    @Test
+    public void test_order_by_cost_is_greedy_for_many_relations() {
+        // A chain t0 ⋈ t1 ⋈ ... ⋈ tN where the relations get bigger towards the end
+        int numRelations = JoinOrdering.MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH + 2;
+        List<RelationName> relations = new ArrayList<>();
+        Map<RelationName, Long> numRows = new HashMap<>();
+        for (int i = 0; i < numRelations; i++) {
+            RelationName relation = new RelationName("doc", "t" + i);
+            relations.add(relation);
+            numRows.put(relation, 10L * (i + 1));
+        }
+        Map<Set<RelationName>, Symbol> conditions = new HashMap<>();
+        for (int i = 1; i < numRelations; i++) {
+            RelationName left = relations.get(i - 1);
+            RelationName right = relations.get(i);
+            conditions.put(Set.of(left, right), eq(left, right, "x"));
+        }
+        List<RelationName> reversed = new ArrayList<>(relations);
+        Collections.reverse(reversed);
+        List<RelationName> ordered = JoinOrdering.orderByCost(reversed, conditions, numRows::get, new TableStats());
+        assertThat(ordered, contains(relations.toArray()));
+    }
 }
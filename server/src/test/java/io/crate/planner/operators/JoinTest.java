@@ -106,7 +106,8 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
             mss.where(),
             mss.joinPairs(),
             rel -> logicalPlanner.plan(rel, plannerCtx, subqueryPlanner, true),
-            txnCtx.sessionContext().isHashJoinEnabled()
+            txnCtx.sessionContext().isHashJoinEnabled(),
+            tableStats
         );
     }
 
@@ -142,6 +143,7 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
 
     @Test
     public void testNestedLoop_TablesAreSwitchedIfBlockJoinAndRightIsSmallerThanLeft() throws IOException {
+        txnCtx.sessionContext().setHashJoinEnabled(false);
         // blockNL is only possible on single node clusters
         e = SQLExecutor.builder(clusterService)
             .addTable("create table j.left_table (id int)")
@@ -196,7 +198,8 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
             mss.where(),
             mss.joinPairs(),
             rel -> logicalPlanner.plan(rel, plannerCtx, subqueryPlanner, false),
-            false
+            false,
+            tableStats
         );
         Join nl = (Join) operator.build(
             context, Set.of(), projectionBuilder, -1, 0, null, null, Row.EMPTY, SubQueryResults.EMPTY);
@@ -237,8 +240,8 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
 
         TableStats tableStats = new TableStats();
         Map<RelationName, Stats> rowCountByTable = new HashMap<>();
-        rowCountByTable.put(USER_TABLE_IDENT, new Stats(100, 0, Map.of()));
-        rowCountByTable.put(TEST_DOC_LOCATIONS_TABLE_IDENT, new Stats(10, 0, Map.of()));
+        rowCountByTable.put(USER_TABLE_IDENT, new Stats(10, 0, Map.of()));
+        rowCountByTable.put(TEST_DOC_LOCATIONS_TABLE_IDENT, new Stats(100, 0, Map.of()));
         tableStats.updateTableStats(rowCountByTable);
 
         LogicalPlan operator = createLogicalPlan(mss, tableStats);
@@ -250,21 +253,22 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
     }
 
     @Test
-    public void testHashJoin_TablesSwitchWhenRightBiggerThanLeft() {
+    public void testHashJoin_TablesSwitchWhenLeftBiggerThanRight() {
         QueriedSelectRelation mss = e.analyze("select users.name, locations.id " +
                                               "from users " +
                                               "join locations on users.id = locations.id");
 
         TableStats tableStats = new TableStats();
         Map<RelationName, Stats> rowCountByTable = new HashMap<>();
-        rowCountByTable.put(USER_TABLE_IDENT, new Stats(10, 0, Map.of()));
-        rowCountByTable.put(TEST_DOC_LOCATIONS_TABLE_IDENT, new Stats(100, 0, Map.of()));
+        rowCountByTable.put(USER_TABLE_IDENT, new Stats(100, 0, Map.of()));
+        rowCountByTable.put(TEST_DOC_LOCATIONS_TABLE_IDENT, new Stats(10, 0, Map.of()));
         tableStats.updateTableStats(rowCountByTable);
 
         LogicalPlan operator = createLogicalPlan(mss, tableStats);
         assertThat(operator, instanceOf(HashJoin.class));
         assertThat(((HashJoin) operator).concreteRelation.toString(), is("DocTableRelation{doc.locations}"));
 
+        // The smaller table is the build side of the hash join and must be on the left
         Join join = buildJoin(operator);
         assertThat(((Collect) join.left()).collectPhase().toCollect().get(1), isReference("loc"));
     }
@@ -286,11 +290,42 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
         assertThat(((Join)join.left()).joinPhase(), instanceOf(HashJoinPhase.class));
     }
 
+    @Test
+    public void testHashJoin_OuterJoinTablesAreSwitchedAndJoinTypeInvertedIfLeftIsBigger() throws IOException {
+        e = SQLExecutor.builder(clusterService)
+            .addTable("create table j.left_table (id int)")
+            .addTable("create table j.right_table (id int)")
+            .build();
+        RelationName leftName = new RelationName("j", "left_table");
+        RelationName rightName = new RelationName("j", "right_table");
+
+        QueriedSelectRelation mss = e.analyze("select * from j.left_table as l left join j.right_table as r on l.id = r.id");
+
+        TableStats tableStats = new TableStats();
+        Map<RelationName, Stats> rowCountByTable = new HashMap<>();
+        rowCountByTable.put(leftName, new Stats(10, 0, Map.of()));
+        rowCountByTable.put(rightName, new Stats(10_000, 0, Map.of()));
+        tableStats.updateTableStats(rowCountByTable);
+
+        Join join = plan(mss, tableStats);
+        assertThat(join.joinPhase(), instanceOf(HashJoinPhase.class));
+        assertThat(((Reference) ((Collect) join.left()).collectPhase().toCollect().get(0)).ident().tableIdent().name(), is(leftName.name()));
+        assertThat(join.joinPhase().joinType(), is(JoinType.LEFT));
+
+        rowCountByTable.put(leftName, new Stats(10_000, 0, Map.of()));
+        rowCountByTable.put(rightName, new Stats(10, 0, Map.of()));
+        tableStats.updateTableStats(rowCountByTable);
+
+        join = plan(mss, tableStats);
+        assertThat(((Reference) ((Collect) join.left()).collectPhase().toCollect().get(0)).ident().tableIdent().name(), is(rightName.name()));
+        assertThat(join.joinPhase().joinType(), is(JoinType.RIGHT));
+    }
+
     @Test
     public void testMixedHashJoinNestedLoop() {
         QueriedSelectRelation mss = e.analyze("select * " +
                                               "from t1 inner join t2 on t1.a = t2.b " +
-                                              "left join t3 on t3.c = t2.b");
+                                              "left join t3 on t3.c > t2.b");
 
         LogicalPlan operator = createLogicalPlan(mss, new TableStats());
         assertThat(operator, instanceOf(NestedLoopJoin.class));
@@ -46,9 +46,11 @@ import java.util.Map;
 
 import static io.crate.testing.MemoryLimits.assertMaxBytesAllocated;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 public class LogicalPlannerTest extends CrateDummyClusterServiceUnitTest {
 
@@ -472,6 +474,51 @@ public class LogicalPlannerTest extends CrateDummyClusterServiceUnitTest {
         ));
     }
 
+    @Test
+    public void test_in_subquery_with_many_rows_is_planned_as_semi_join() {
+        TableInfo t2 = sqlExecutor.resolveTableInfo("t2");
+        tableStats.updateTableStats(Map.of(t2.ident(), new Stats(20_000L, 20_000L * 16, Map.of())));
+        LogicalPlan plan = plan("select a from t1 where x in (select y from t2)");
+        assertThat(plan, isPlan(
+            "Eval[a]\n" +
+            "  └ HashJoin[SEMI | (x = y)]\n" +
+            "    ├ Collect[doc.t1 | [a, x] | true]\n" +
+            "    └ Rename[y] AS _subquery0\n" +
+            "      └ Collect[doc.t2 | [y] | true]"
+        ));
+    }
+
+    @Test
+    public void test_not_in_subquery_with_many_rows_is_planned_as_null_aware_anti_join() {
+        TableInfo t2 = sqlExecutor.resolveTableInfo("t2");
+        tableStats.updateTableStats(Map.of(t2.ident(), new Stats(20_000L, 20_000L * 16, Map.of())));
+        LogicalPlan plan = plan("select a from t1 where x not in (select y from t2) and a = 'foo'");
+        assertThat(plan, isPlan(
+            "Eval[a]\n" +
+            "  └ HashJoin[NULL_AWARE_ANTI | (x = y)]\n" +
+            "    ├ Collect[doc.t1 | [a, x] | (a = 'foo')]\n" +
+            "    └ Rename[y] AS _subquery0\n" +
+            "      └ Collect[doc.t2 | [y] | true]"
+        ));
+    }
+
+    @Test
+    public void test_in_subquery_with_few_or_unknown_rows_is_not_planned_as_semi_join() {
+        LogicalPlan plan = plan("select a from t1 where x in (select y from t2)");
+        assertThat(printPlan(plan), not(containsString("HashJoin")));
+
+        TableInfo t2 = sqlExecutor.resolveTableInfo("t2");
+        tableStats.updateTableStats(Map.of(t2.ident(), new Stats(100L, 100L * 16, Map.of())));
+        plan = plan("select a from t1 where x in (select y from t2)");
+        assertThat(printPlan(plan), not(containsString("HashJoin")));
+    }
+
+    private static String printPlan(LogicalPlan plan) {
+        var printContext = new PrintContext();
+        plan.print(printContext);
+        return printContext.toString();
+    }
+
 
     public static Matcher<LogicalPlan> isPlan(String expectedPlan) {
         return new FeatureMatcher<>(equalTo(expectedPlan), "same output", "output ") {
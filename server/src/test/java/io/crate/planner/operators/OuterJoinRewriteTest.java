@@ -40,6 +40,7 @@ public class OuterJoinRewriteTest extends CrateDummyClusterServiceUnitTest {
             .addTable("create table t1 (x int)")
             .addTable("create table t2 (x int)")
             .build();
+        sqlExecutor.getSessionContext().setHashJoinEnabled(false);
     }
 
     @Test
@@ -110,4 +111,33 @@ public class OuterJoinRewriteTest extends CrateDummyClusterServiceUnitTest {
             "    └ Collect[doc.t2 | [x] | (x > 5)]";
         assertThat(plan, isPlan(expectedPlan));
     }
+
+    @Test
+    public void testFilterAndOuterHashJoinIsRewrittenToInnerHashJoinIfFilterEliminatesNullRow() {
+        sqlExecutor.getSessionContext().setHashJoinEnabled(true);
+        var plan = sqlExecutor.logicalPlan(
+            "SELECT * FROM t1 LEFT JOIN t2 ON t1.x = t2.x " +
+            "WHERE t2.x = '10'"
+        );
+        var expectedPlan =
+            "HashJoin[(x = x)]\n" +
+            "  ├ Collect[doc.t1 | [x] | true]\n" +
+            "  └ Collect[doc.t2 | [x] | (x = 10)]";
+        assertThat(plan, isPlan(expectedPlan));
+    }
+
+    @Test
+    public void testFilterOnLeftOuterHashJoinIsPartiallyPushedDownToTheLeftSide() {
+        sqlExecutor.getSessionContext().setHashJoinEnabled(true);
+        var plan = sqlExecutor.logicalPlan(
+            "SELECT * FROM t1 LEFT JOIN t2 ON t1.x = t2.x " +
+            "WHERE coalesce(t2.x, 10) = 10 AND t1.x > 5"
+        );
+        var expectedPlan =
+            "Filter[(coalesce(x, 10) = 10)]\n" +
+            "  └ HashJoin[LEFT | (x = x)]\n" +
+            "    ├ Collect[doc.t1 | [x] | (x > 5)]\n" +
+            "    └ Collect[doc.t2 | [x] | true]";
+        assertThat(plan, isPlan(expectedPlan));
+    }
 }
@@ -22,13 +22,25 @@
 package io.crate.planner.operators;
 
 import io.crate.data.Row;
+import io.crate.expression.operator.any.AnyEqOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.SelectSymbol;
 import io.crate.expression.symbol.Symbol;
+import io.crate.types.ArrayType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.test.ESTestCase;
 import io.crate.testing.SqlExpressions;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static io.crate.testing.SymbolMatchers.isFunction;
+import static io.crate.testing.SymbolMatchers.isLiteral;
+import static org.hamcrest.Matchers.is;
+
 public class SubQueryAndParamBinderTest extends ESTestCase {
 
     @Test
@@ -39,4 +51,27 @@ public class SubQueryAndParamBinderTest extends ESTestCase {
         expectedException.expectMessage("The query contains a parameter placeholder $1, but there are only 0 parameter values");
         paramBinder.apply(symbol);
     }
+
+    @Test
+    public void test_any_eq_on_sub_query_with_max_values_is_dropped_if_max_values_is_exceeded() {
+        SelectSymbol subQuery = new SelectSymbol(
+            null,
+            new ArrayType<>(DataTypes.INTEGER),
+            SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES,
+            2
+        );
+        Function anyEq = (Function) new SqlExpressions(Map.of()).asSymbol("1 = ANY([1])");
+        Symbol symbol = new Function(
+            anyEq.signature(), List.of(anyEq.arguments().get(0), subQuery), anyEq.valueType());
+
+        // The consumer of the sub-query results in null if there are more than maxValues values
+        HashMap<SelectSymbol, Object> values = new HashMap<>();
+        values.put(subQuery, null);
+        Symbol bound = SubQueryAndParamBinder.convert(symbol, Row.EMPTY, new SubQueryResults(values));
+        assertThat(bound, is(Literal.BOOLEAN_TRUE));
+
+        values.put(subQuery, new Object[] {1, 2});
+        bound = SubQueryAndParamBinder.convert(symbol, Row.EMPTY, new SubQueryResults(values));
+        assertThat(bound, isFunction(AnyEqOperator.NAME, isLiteral(1), isLiteral(List.of(1, 2))));
+    }
 }
@@ -25,16 +25,21 @@ import io.crate.analyze.OrderBy;
 import io.crate.analyze.WindowDefinition;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.WindowFunction;
+import io.crate.planner.PositionalOrderBy;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.SQLExecutor;
+import org.elasticsearch.Version;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+
 import static io.crate.planner.operators.LogicalPlannerTest.isPlan;
 import static io.crate.testing.SymbolMatchers.isReference;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 
 public class WindowAggTest extends CrateDummyClusterServiceUnitTest {
@@ -131,6 +136,39 @@ public class WindowAggTest extends CrateDummyClusterServiceUnitTest {
         assertThat(orderBy.orderBySymbols(), contains(isReference("y"), isReference("x")));
     }
 
+    @Test
+    public void test_source_is_sorted_if_its_order_starts_with_partition_by_and_order_by() {
+        OrderBy orderBy = WindowAgg.createOrderByInclPartitionBy(wd("avg(x) OVER (PARTITION BY y ORDER BY x)"));
+        List<Symbol> sourceOutputs = List.of(e.asSymbol("x"), e.asSymbol("y"));
+        var sortedByYThenX = new PositionalOrderBy(new int[] {1, 0}, new boolean[2], new boolean[2]);
+        assertThat(WindowAgg.isSortedBy(sortedByYThenX, orderBy, sourceOutputs), is(true));
+
+        var sortedByXThenY = new PositionalOrderBy(new int[] {0, 1}, new boolean[2], new boolean[2]);
+        assertThat(WindowAgg.isSortedBy(sortedByXThenY, orderBy, sourceOutputs), is(false));
+
+        var sortedByY = new PositionalOrderBy(new int[] {1}, new boolean[1], new boolean[1]);
+        assertThat(WindowAgg.isSortedBy(sortedByY, orderBy, sourceOutputs), is(false));
+
+        var sortedByYThenXDesc = new PositionalOrderBy(new int[] {1, 0}, new boolean[] {false, true}, new boolean[2]);
+        assertThat(WindowAgg.isSortedBy(sortedByYThenXDesc, orderBy, sourceOutputs), is(false));
+
+        assertThat(WindowAgg.isSortedBy(null, orderBy, sourceOutputs), is(false));
+    }
+
+    @Test
+    public void test_rows_are_distributed_by_all_partition_by_keys() {
+        WindowDefinition windowDefinition = wd("avg(x) OVER (PARTITION BY y, x)");
+        List<Symbol> sourceOutputs = List.of(e.asSymbol("x"), e.asSymbol("y"));
+        int[] columns = WindowAgg.distributeByColumns(windowDefinition.partitions(), sourceOutputs, Version.CURRENT);
+        assertThat(columns, is(new int[] {1, 0}));
+
+        columns = WindowAgg.distributeByColumns(windowDefinition.partitions(), sourceOutputs, Version.V_4_6_0);
+        assertThat(columns, is(new int[] {1}));
+
+        columns = WindowAgg.distributeByColumns(windowDefinition.partitions(), List.of(e.asSymbol("y")), Version.CURRENT);
+        assertThat(columns, Matchers.nullValue());
+    }
+
     private WindowDefinition wd(String expression) {
         Symbol symbol = e.asSymbol(expression);
         assertThat(symbol, instanceOf(WindowFunction.class));
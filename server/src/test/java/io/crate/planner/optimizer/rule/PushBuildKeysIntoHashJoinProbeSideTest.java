@@ -0,0 +1,151 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.optimizer.rule;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.expression.operator.any.AnyEqOperator;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.RelationName;
+import io.crate.planner.operators.Collect;
+import io.crate.planner.operators.HashJoin;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.operators.MultiPhase;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.planner.optimizer.matcher.Match;
+import io.crate.statistics.TableStats;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.T3;
+
+public class PushBuildKeysIntoHashJoinProbeSideTest extends CrateDummyClusterServiceUnitTest {
+
+    private SqlExpressions e;
+    private AbstractTableRelation<?> tr1;
+    private AbstractTableRelation<?> tr2;
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        Map<RelationName, AnalyzedRelation> sources = T3.sources(clusterService);
+        e = new SqlExpressions(sources);
+        tr1 = (AbstractTableRelation<?>) sources.get(T3.T1);
+        tr2 = (AbstractTableRelation<?>) sources.get(T3.T2);
+    }
+
+    private LogicalPlan apply(HashJoin join) {
+        PushBuildKeysIntoHashJoinProbeSide rule = new PushBuildKeysIntoHashJoinProbeSide();
+        Match<HashJoin> match = rule.pattern().accept(join, Captures.empty());
+        assertThat(match.isPresent(), is(true));
+        return rule.apply(
+            match.value(), match.captures(), new TableStats(), CoordinatorTxnCtx.systemTransactionContext(), e.nodeCtx);
+    }
+
+    @Test
+    public void test_probe_side_is_filtered_by_the_keys_of_the_small_build_side() {
+        Collect build = new Collect(tr1, List.of(e.asSymbol("x"), e.asSymbol("a")), WhereClause.MATCH_ALL, 10, 10);
+        Collect probe = new Collect(tr2, List.of(e.asSymbol("y"), e.asSymbol("b")), WhereClause.MATCH_ALL, 100_000, 10);
+        HashJoin join = new HashJoin(build, probe, e.asSymbol("x = y"), tr2);
+
+        LogicalPlan plan = apply(join);
+
+        assertThat(plan, instanceOf(HashJoin.class));
+        HashJoin newJoin = (HashJoin) plan;
+        assertThat(newJoin.lhs(), sameInstance(build));
+        assertThat(newJoin.rhs(), instanceOf(MultiPhase.class));
+
+        Map<LogicalPlan, SelectSymbol> dependencies = newJoin.dependencies();
+        assertThat(dependencies.size(), is(1));
+        LogicalPlan buildKeysPlan = dependencies.keySet().iterator().next();
+        assertThat(buildKeysPlan.outputs(), is(List.of(e.asSymbol("x"))));
+        SelectSymbol buildKeys = dependencies.get(buildKeysPlan);
+
+        Collect filteredProbe = (Collect) ((MultiPhase) newJoin.rhs()).source();
+        assertThat(filteredProbe.outputs(), is(probe.outputs()));
+        Symbol query = filteredProbe.where().queryOrFallback();
+        assertThat(query, instanceOf(Function.class));
+        Function anyEq = (Function) query;
+        assertThat(anyEq.name(), is(AnyEqOperator.NAME));
+        assertThat(anyEq.arguments().get(0), is(e.asSymbol("y")));
+        assertThat(anyEq.arguments().get(1), sameInstance(buildKeys));
+
+        // The probe side is no longer a Collect, so the rule doesn't match again
+        Match<HashJoin> match = new PushBuildKeysIntoHashJoinProbeSide().pattern().accept(newJoin, Captures.empty());
+        assertThat(match.isPresent(), is(false));
+    }
+
+    @Test
+    public void test_build_side_is_the_smaller_side_if_it_is_on_the_right() {
+        Collect probe = new Collect(tr1, List.of(e.asSymbol("x")), WhereClause.MATCH_ALL, 100_000, 10);
+        Collect build = new Collect(tr2, List.of(e.asSymbol("y")), WhereClause.MATCH_ALL, 10, 10);
+        HashJoin join = new HashJoin(probe, build, e.asSymbol("x = y"), tr2);
+
+        HashJoin newJoin = (HashJoin) apply(join);
+
+        assertThat(newJoin.lhs(), instanceOf(MultiPhase.class));
+        assertThat(newJoin.rhs(), sameInstance(build));
+    }
+
+    @Test
+    public void test_rule_is_not_applied_if_build_side_is_too_large() {
+        long numRows = PushBuildKeysIntoHashJoinProbeSide.MAX_BUILD_ROWS + 1;
+        Collect build = new Collect(tr1, List.of(e.asSymbol("x")), WhereClause.MATCH_ALL, numRows, 10);
+        Collect probe = new Collect(tr2, List.of(e.asSymbol("y")), WhereClause.MATCH_ALL, numRows * 10, 10);
+        HashJoin join = new HashJoin(build, probe, e.asSymbol("x = y"), tr2);
+
+        assertThat(apply(join), nullValue());
+    }
+
+    @Test
+    public void test_rule_is_not_applied_if_row_counts_are_unknown() {
+        Collect build = new Collect(tr1, List.of(e.asSymbol("x")), WhereClause.MATCH_ALL, -1, 10);
+        Collect probe = new Collect(tr2, List.of(e.asSymbol("y")), WhereClause.MATCH_ALL, -1, 10);
+        HashJoin join = new HashJoin(build, probe, e.asSymbol("x = y"), tr2);
+
+        assertThat(apply(join), nullValue());
+    }
+
+    @Test
+    public void test_rule_is_not_applied_if_probe_key_is_not_a_column() {
+        Collect build = new Collect(tr1, List.of(e.asSymbol("a")), WhereClause.MATCH_ALL, 10, 10);
+        Collect probe = new Collect(
+            tr2, List.of(e.asSymbol("b"), e.asSymbol("y")), WhereClause.MATCH_ALL, 100_000, 10);
+        HashJoin join = new HashJoin(build, probe, e.asSymbol("a = lower(b)"), tr2);
+
+        assertThat(apply(join), nullValue());
+    }
+}
@@ -122,4 +122,94 @@ public class SelectivityFunctionsTest extends CrateDummyClusterServiceUnitTest {
         Stats stats = new Stats(100, 16, Map.of(new ColumnIdent("x"), columnStats));
         assertThat(SelectivityFunctions.estimateNumRows(stats, query, null), Matchers.is(50L));
     }
+
+    private static Stats uniformIntegerStats() {
+        var numbers = IntStream.range(1, 20_001)
+            .boxed()
+            .collect(Collectors.toList());
+        var columnStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, 20_000L);
+        return new Stats(20_000, 16, Map.of(new ColumnIdent("x"), columnStats));
+    }
+
+    @Test
+    public void test_range_selectivity_is_based_on_histogram() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Stats stats = uniformIntegerStats();
+        Symbol query = expressions.asSymbol("x < 5000");
+        assertThat(SelectivityFunctions.estimateSelectivity(stats, query, null), Matchers.closeTo(0.25, 0.01));
+
+        query = expressions.asSymbol("x >= 5000");
+        assertThat(SelectivityFunctions.estimateSelectivity(stats, query, null), Matchers.closeTo(0.75, 0.01));
+
+        query = expressions.asSymbol("5000 > x");
+        assertThat(SelectivityFunctions.estimateSelectivity(stats, query, null), Matchers.closeTo(0.25, 0.01));
+
+        query = expressions.asSymbol("x > ?");
+        assertThat(SelectivityFunctions.estimateSelectivity(stats, query, new Row1(19_000)), Matchers.closeTo(0.05, 0.01));
+    }
+
+    @Test
+    public void test_range_selectivity_includes_most_common_values() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("x <= 1");
+        var numbers = Lists2.concat(
+            List.of(1, 1, 1, 1, 1, 1, 1, 1, 1, 1),
+            IntStream.range(2, 12).boxed().collect(Collectors.toList())
+        );
+        var columnStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, numbers.size());
+        Stats stats = new Stats(numbers.size(), 16, Map.of(new ColumnIdent("x"), columnStats));
+        assertThat(SelectivityFunctions.estimateSelectivity(stats, query, null), Matchers.closeTo(0.5, 0.01));
+    }
+
+    @Test
+    public void test_between_combines_lower_and_upper_bound_to_a_range() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("x between 5000 and 7000");
+        assertThat(SelectivityFunctions.estimateSelectivity(uniformIntegerStats(), query, null), Matchers.closeTo(0.1, 0.01));
+    }
+
+    @Test
+    public void test_in_list_sums_eq_selectivity_of_each_value() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("x in (1, 2, 3, 3)");
+        assertThat(SelectivityFunctions.estimateNumRows(uniformIntegerStats(), query, null), Matchers.is(3L));
+    }
+
+    @Test
+    public void test_like_with_prefix_is_estimated_as_range() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        var strings = IntStream.range(0, 10_000)
+            .mapToObj(i -> (char) ('a' + i / 1000) + String.format("%03d", i % 1000))
+            .collect(Collectors.toList());
+        var columnStats = ColumnStats.fromSortedValues(strings, DataTypes.STRING, 0, 10_000L);
+        Stats stats = new Stats(10_000, 16, Map.of(new ColumnIdent("a"), columnStats));
+
+        Symbol query = expressions.asSymbol("a like 'b%'");
+        assertThat(SelectivityFunctions.estimateSelectivity(stats, query, null), Matchers.closeTo(0.1, 0.01));
+
+        query = expressions.asSymbol("a like 'b123'");
+        assertThat(SelectivityFunctions.estimateNumRows(stats, query, null), Matchers.is(1L));
+    }
+
+    @Test
+    public void test_prefix_upper_bound_drops_trailing_max_characters() {
+        assertThat(SelectivityFunctions.prefixUpperBound("ab"), Matchers.is("ac"));
+        assertThat(SelectivityFunctions.prefixUpperBound("a\uffff\uffff"), Matchers.is("b"));
+        assertThat(SelectivityFunctions.prefixUpperBound("\uffff"), Matchers.nullValue());
+    }
+
+    @Test
+    public void test_like_with_prefix_ending_in_max_character_is_estimated_as_range() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        var strings = IntStream.range(0, 10_000)
+            .mapToObj(i -> (char) ('a' + i / 1000) + String.format("%03d", i % 1000))
+            .collect(Collectors.toList());
+        var columnStats = ColumnStats.fromSortedValues(strings, DataTypes.STRING, 0, 10_000L);
+        Stats stats = new Stats(10_000, 16, Map.of(new ColumnIdent("a"), columnStats));
+
+        Symbol query = expressions.asSymbol("a like 'b\uffff%'");
+        assertThat(SelectivityFunctions.estimateSelectivity(stats, query, null), Matchers.closeTo(0.0, 0.01));
+        query = expressions.asSymbol("a like '\uffff%'");
+        assertThat(SelectivityFunctions.estimateSelectivity(stats, query, null), Matchers.closeTo(0.0, 0.01));
+    }
 }
@@ -33,6 +33,7 @@ import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.metadata.settings.session.SessionSettingRegistry;
 import io.crate.planner.DependencyCarrier;
 import io.crate.planner.Plan;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import io.crate.planner.PlannerContext;
 import io.crate.statistics.TableStats;
@@ -101,6 +102,7 @@ public class BatchPortalTest extends CrateDummyClusterServiceUnitTest {
             sqlExecutor.nodeCtx,
             sqlExecutor.analyzer,
             planner,
+            new PlanCache(0),
             new JobsLogs(() -> false),
             false,
             executor,
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.analyze.CopyStdioOptions;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.sql.tree.GenericProperties;
+import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+public class CopyInDecoderTest extends ESTestCase {
+
+    private static CopyStdioOptions options(Map<String, Symbol> properties) {
+        return CopyStdioOptions.of(new GenericProperties<>(properties));
+    }
+
+    private static ByteBuf utf8(String s) {
+        return Unpooled.wrappedBuffer(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test_text_format_unescapes_values_and_detects_nulls() {
+        CopyInDecoder decoder = new CopyInDecoder(CopyStdioOptions.DEFAULT, List.of(DataTypes.INTEGER, DataTypes.STRING));
+        List<Object[]> rows = new ArrayList<>(decoder.decode(utf8("1\tfoo\\tbar\n2\t\\N\n3\tli")));
+        rows.addAll(decoder.decode(utf8("ne\\nbreak\n")));
+        rows.addAll(decoder.finish());
+        decoder.close();
+        assertThat(rows.size(), is(3));
+        assertThat(rows.get(0), is(new Object[] {1, "foo\tbar"}));
+        assertThat(rows.get(1), is(new Object[] {2, null}));
+        assertThat(rows.get(2), is(new Object[] {3, "line\nbreak"}));
+    }
+
+    @Test
+    public void test_text_format_stops_at_end_of_data_marker() {
+        CopyInDecoder decoder = new CopyInDecoder(CopyStdioOptions.DEFAULT, List.of(DataTypes.STRING));
+        List<Object[]> rows = decoder.decode(utf8("a\n\\.\nb\n"));
+        decoder.close();
+        assertThat(rows.size(), is(1));
+        assertThat(rows.get(0), is(new Object[] {"a"}));
+    }
+
+    @Test
+    public void test_csv_format_with_header_quotes_and_line_break_within_value() {
+        CopyStdioOptions options = options(Map.of("format", Literal.of("csv"), "header", Literal.of(true)));
+        CopyInDecoder decoder = new CopyInDecoder(options, List.of(DataTypes.LONG, DataTypes.STRING));
+        List<Object[]> rows = new ArrayList<>(decoder.decode(utf8("id,name\r\n1,\"a, \"\"b")));
+        rows.addAll(decoder.decode(utf8("\"\"\nc\"\n2,\n3,\"\"")));
+        rows.addAll(decoder.finish());
+        decoder.close();
+        assertThat(rows.size(), is(3));
+        assertThat(rows.get(0), is(new Object[] {1L, "a, \"b\"\nc"}));
+        assertThat(rows.get(1), is(new Object[] {2L, null}));
+        assertThat(rows.get(2), is(new Object[] {3L, ""}));
+    }
+
+    @Test
+    public void test_split_text_keeps_escaped_delimiter() {
+        assertThat(CopyInDecoder.splitText("a\\,b,c", ',', "\\N"), contains("a,b", "c"));
+    }
+
+    @Test
+    public void test_wrong_number_of_values_is_rejected() {
+        CopyInDecoder decoder = new CopyInDecoder(CopyStdioOptions.DEFAULT, List.of(DataTypes.INTEGER, DataTypes.INTEGER));
+        try {
+            expectThrows(IllegalArgumentException.class, () -> decoder.decode(utf8("1\n")));
+        } finally {
+            decoder.close();
+        }
+    }
+
+    @Test
+    public void test_binary_format_rows_split_across_messages() {
+        CopyStdioOptions options = options(Map.of("format", Literal.of("binary")));
+        ByteBuf data = Unpooled.buffer();
+        data.writeBytes(CopyInDecoder.BINARY_SIGNATURE);
+        data.writeInt(0);
+        data.writeInt(0);
+        data.writeShort(2);
+        data.writeInt(4);
+        data.writeInt(42);
+        data.writeInt(-1);
+        data.writeShort(-1);
+
+        CopyInDecoder decoder = new CopyInDecoder(options, List.of(DataTypes.INTEGER, DataTypes.STRING));
+        List<Object[]> rows = new ArrayList<>(decoder.decode(data.readSlice(20)));
+        assertThat(rows.size(), is(0));
+        rows.addAll(decoder.decode(data));
+        rows.addAll(decoder.finish());
+        decoder.close();
+        assertThat(rows.size(), is(1));
+        assertThat(rows.get(0), is(new Object[] {42, null}));
+    }
+}
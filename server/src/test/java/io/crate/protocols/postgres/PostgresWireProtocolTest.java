@@ -34,6 +34,7 @@ import io.crate.user.UserManager;
 import io.crate.exceptions.JobKilledException;
 import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.planner.DependencyCarrier;
+import io.crate.planner.PlanCache;
 import io.crate.protocols.postgres.types.PGTypes;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.SQLExecutor;
@@ -91,6 +92,7 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
             e.nodeCtx,
             e.analyzer,
             e.planner,
+            new PlanCache(0),
             () -> mock(DependencyCarrier.class),
             new JobsLogs(() -> true),
             Settings.EMPTY,
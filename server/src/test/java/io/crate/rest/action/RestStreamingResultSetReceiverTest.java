@@ -0,0 +1,150 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.data.RowN;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.elasticsearch.http.netty4.cors.Netty4CorsConfigBuilder;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RestStreamingResultSetReceiverTest extends ESTestCase {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private final AtomicInteger numResumes = new AtomicInteger(0);
+
+    @After
+    public void closeChannel() throws Exception {
+        channel.finishAndReleaseAll();
+    }
+
+    private RestStreamingResultSetReceiver newReceiver(StreamingFormat format) throws IOException {
+        return new RestStreamingResultSetReceiver(
+            channel,
+            new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/_sql"),
+            false,
+            Netty4CorsConfigBuilder.forAnyOrigin().build(),
+            format,
+            List.of("name", "x"),
+            receiver -> numResumes.incrementAndGet()
+        );
+    }
+
+    private String readContent() {
+        HttpContent content = channel.readOutbound();
+        try {
+            return content.content().toString(StandardCharsets.UTF_8);
+        } finally {
+            content.release();
+        }
+    }
+
+    @Test
+    public void test_rows_are_written_as_chunk_and_execution_is_resumed_on_batch_finished() throws Exception {
+        RestStreamingResultSetReceiver receiver = newReceiver(StreamingFormat.NDJSON);
+        receiver.setNextRow(new RowN("Arthur", 42));
+        receiver.setNextRow(new RowN("Trillian", null));
+        receiver.batchFinished();
+
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.status(), is(HttpResponseStatus.OK));
+        assertThat(HttpUtil.isTransferEncodingChunked(response), is(true));
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_TYPE), is("application/x-ndjson; charset=UTF-8"));
+        assertThat(readContent(), is("{\"name\":\"Arthur\",\"x\":42}\n{\"name\":\"Trillian\",\"x\":null}\n"));
+        assertThat(numResumes.get(), is(1));
+
+        receiver.setNextRow(new RowN("Ford", 1));
+        receiver.allFinished(false);
+
+        assertThat(channel.outboundMessages().peek(), instanceOf(LastHttpContent.class));
+        assertThat(readContent(), is("{\"name\":\"Ford\",\"x\":1}\n"));
+        assertThat(receiver.completionFuture().isDone(), is(true));
+        assertThat(numResumes.get(), is(1));
+    }
+
+    @Test
+    public void test_csv_result_contains_header_and_quoted_values() throws Exception {
+        RestStreamingResultSetReceiver receiver = newReceiver(StreamingFormat.CSV);
+        receiver.setNextRow(new RowN("Arthur, Dent", 42));
+        receiver.setNextRow(new RowN("", null));
+        receiver.setNextRow(new RowN("\"Ford\"", Map.of("a", 1)));
+        receiver.allFinished(false);
+
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_TYPE), is("text/csv; charset=UTF-8"));
+        assertThat(readContent(), is(
+            "name,x\r\n" +
+            "\"Arthur, Dent\",42\r\n" +
+            "\"\",\r\n" +
+            "\"\"\"Ford\"\"\",\"{\"\"a\"\":1}\"\r\n"));
+    }
+
+    @Test
+    public void test_failure_before_first_chunk_fails_future_without_writing_a_response() throws Exception {
+        RestStreamingResultSetReceiver receiver = newReceiver(StreamingFormat.CSV);
+        receiver.setNextRow(new RowN("Arthur", 42));
+        receiver.fail(new IllegalStateException("dummy"));
+
+        assertThat(receiver.completionFuture().isCompletedExceptionally(), is(true));
+        assertThat(channel.outboundMessages().isEmpty(), is(true));
+    }
+
+    @Test
+    public void test_failure_after_first_chunk_closes_the_channel() throws Exception {
+        RestStreamingResultSetReceiver receiver = newReceiver(StreamingFormat.CSV);
+        receiver.setNextRow(new RowN("Arthur", 42));
+        receiver.batchFinished();
+        receiver.fail(new IllegalStateException("dummy"));
+
+        assertThat(receiver.completionFuture().isCompletedExceptionally(), is(false));
+        assertThat(receiver.completionFuture().isDone(), is(true));
+        assertThat(channel.isOpen(), is(false));
+    }
+
+    @Test
+    public void test_unknown_format_is_rejected() {
+        expectThrows(IllegalArgumentException.class, () -> StreamingFormat.of("arrow"));
+        assertThat(StreamingFormat.of(null), nullValue());
+        assertThat(StreamingFormat.of("json"), nullValue());
+        assertThat(StreamingFormat.of("ndjson"), is(StreamingFormat.NDJSON));
+    }
+}
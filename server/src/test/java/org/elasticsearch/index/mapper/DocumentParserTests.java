@@ -0,0 +1,140 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.IndexableField;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.MapperTestUtils;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.Constants;
+import io.crate.common.collections.Lists2;
+
+public class DocumentParserTests extends ESTestCase {
+
+    private static final String INDEX = "tbl";
+
+    private DocumentMapper mapper;
+
+    @Before
+    public void setUpMapper() throws Exception {
+        // @formatter:off
+        String mapping = Strings.toString(XContentFactory.jsonBuilder()
+            .startObject()
+                .startObject(Constants.DEFAULT_MAPPING_TYPE)
+                    .startObject("properties")
+                        .startObject("name")
+                            .field("type", "keyword")
+                            .field("copy_to", List.of("name_ft"))
+                        .endObject()
+                        .startObject("name_ft")
+                            .field("type", "text")
+                        .endObject()
+                        .startObject("id")
+                            .field("type", "long")
+                        .endObject()
+                        .startObject("score")
+                            .field("type", "float")
+                        .endObject()
+                        .startObject("active")
+                            .field("type", "boolean")
+                        .endObject()
+                        .startObject("ts")
+                            .field("type", "date")
+                            .field("format", "epoch_millis||strict_date_optional_time")
+                        .endObject()
+                        .startObject("address")
+                            .field("type", "ip")
+                        .endObject()
+                    .endObject()
+                .endObject()
+            .endObject());
+        // @formatter:on
+        MapperService mapperService = MapperTestUtils.newMapperService(
+            NamedXContentRegistry.EMPTY,
+            createTempDir(),
+            Settings.EMPTY,
+            INDEX
+        );
+        mapper = mapperService.documentMapperParser().parse(
+            Constants.DEFAULT_MAPPING_TYPE, new CompressedXContent(mapping));
+    }
+
+    private static BytesReference toSource(Map<String, Object> values) throws IOException {
+        return BytesReference.bytes(XContentFactory.jsonBuilder().map(values));
+    }
+
+    private static List<String> fields(ParsedDocument doc) {
+        assertThat(doc.docs().size(), is(1));
+        return Lists2.map(doc.rootDoc().getFields(), IndexableField::toString)
+            .stream()
+            .sorted()
+            .toList();
+    }
+
+    @Test
+    public void test_document_from_values_has_the_same_fields_as_the_parsed_source() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "Arthur");
+        values.put("id", 42L);
+        values.put("score", 1.5f);
+        values.put("active", true);
+        values.put("ts", 1_600_000_000_000L);
+        values.put("address", "127.0.0.1");
+        values.put("name_ft", null);
+        BytesReference source = toSource(values);
+
+        ParsedDocument parsed = mapper.parse(new SourceToParse(INDEX, "1", source, XContentType.JSON));
+        ParsedDocument fromValues = mapper.parse(new SourceToParse(INDEX, "1", source, XContentType.JSON, null, values));
+
+        assertThat(fromValues.dynamicMappingsUpdate(), nullValue());
+        assertThat(fromValues.source(), is(parsed.source()));
+        assertThat(fields(fromValues), is(fields(parsed)));
+    }
+
+    @Test
+    public void test_document_with_new_column_falls_back_to_parsing_the_source() throws Exception {
+        Map<String, Object> values = Map.of("name", "Trillian", "new_column", "x");
+        BytesReference source = toSource(values);
+
+        ParsedDocument doc = mapper.parse(new SourceToParse(INDEX, "2", source, XContentType.JSON, null, values));
+
+        assertThat(doc.dynamicMappingsUpdate(), notNullValue());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.transport;
+
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+
+public class CompressionTests extends ESTestCase {
+
+    public void testDefaultCompressesNothingAndUsesDeflate() {
+        Compression compression = new Compression(Settings.EMPTY);
+        assertThat(compression.compressRequest("internal:crate:sql/node/merge", false), is(false));
+        assertThat(compression.compressRequest("internal:crate:sql/node/merge", true), is(true));
+        assertThat(compression.scheme(Version.CURRENT), is(Compression.Scheme.DEFLATE));
+    }
+
+    public void testRequestsMatchingActionPatternsAreCompressed() {
+        Compression compression = new Compression(Settings.builder()
+            .putList(TransportSettings.TRANSPORT_COMPRESS_ACTIONS.getKey(),
+                     List.of("internal:crate:sql/node/merge*", "internal:index/shard/recovery/*"))
+            .build());
+        assertThat(compression.compressRequest("internal:crate:sql/node/merge", false), is(true));
+        assertThat(compression.compressRequest("internal:index/shard/recovery/file_chunk", false), is(true));
+        assertThat(compression.compressRequest("internal:crate:sql/node/fetch", false), is(false));
+    }
+
+    public void testLz4IsOnlyUsedIfSupportedByTheOtherNode() {
+        Compression compression = new Compression(Settings.builder()
+            .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), "lz4")
+            .build());
+        assertThat(compression.scheme(Version.CURRENT), is(Compression.Scheme.LZ4));
+        assertThat(compression.scheme(Version.V_4_6_0), is(Compression.Scheme.DEFLATE));
+    }
+}
@@ -158,16 +158,17 @@ public class InboundDecoderTests extends ESTestCase {
         boolean isRequest = randomBoolean();
         String action = "test-request";
         long requestId = randomNonNegativeLong();
+        Compression.Scheme scheme = randomFrom(Compression.Scheme.values());
         OutboundMessage message;
         TransportMessage transportMessage;
         if (isRequest) {
             transportMessage = new TestRequest(randomAlphaOfLength(100));
             message = new OutboundMessage.Request(transportMessage, Version.CURRENT, action, requestId,
-                false, true);
+                false, true, scheme);
         } else {
             transportMessage = new TestResponse(randomAlphaOfLength(100));
             message = new OutboundMessage.Response(transportMessage, Version.CURRENT, requestId,
-                false, true);
+                false, true, scheme);
         }
 
         final BytesReference totalBytes = message.serialize(new BytesStreamOutput());
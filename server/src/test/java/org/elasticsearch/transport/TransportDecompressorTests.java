@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
@@ -30,8 +31,10 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.test.ESTestCase;
+import org.hamcrest.Matchers;
 
 import java.io.IOException;
+import java.util.ArrayList;
 
 public class TransportDecompressorTests extends ESTestCase {
 
@@ -44,7 +47,7 @@ public class TransportDecompressorTests extends ESTestCase {
 
             BytesReference bytes = output.bytes();
 
-            TransportDecompressor decompressor = new TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            TransportDecompressor decompressor = new DeflateTransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
             int bytesConsumed = decompressor.decompress(bytes);
             assertEquals(bytes.length(), bytesConsumed);
             assertTrue(decompressor.isEOS());
@@ -65,7 +68,7 @@ public class TransportDecompressorTests extends ESTestCase {
 
             BytesReference bytes = output.bytes();
 
-            TransportDecompressor decompressor = new TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            TransportDecompressor decompressor = new DeflateTransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
             int bytesConsumed = decompressor.decompress(bytes);
             assertEquals(bytes.length(), bytesConsumed);
             assertTrue(decompressor.isEOS());
@@ -93,7 +96,7 @@ public class TransportDecompressorTests extends ESTestCase {
 
             BytesReference bytes = output.bytes();
 
-            TransportDecompressor decompressor = new TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            TransportDecompressor decompressor = new DeflateTransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
 
             int split1 = (int) (bytes.length() * 0.3);
             int split2 = (int) (bytes.length() * 0.65);
@@ -125,4 +128,100 @@ public class TransportDecompressorTests extends ESTestCase {
         }
     }
 
+    public void testSimpleLz4Compression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            StreamOutput lz4Stream = new Lz4StreamOutput(Streams.flushOnCloseStream(output));
+            byte randomByte = randomByte();
+            lz4Stream.write(randomByte);
+            lz4Stream.close();
+
+            BytesReference bytes = output.bytes();
+
+            TransportDecompressor decompressor = TransportDecompressor.getDecompressor(
+                PageCacheRecycler.NON_RECYCLING_INSTANCE, bytes);
+            assertThat(decompressor, Matchers.instanceOf(Lz4TransportDecompressor.class));
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isEOS());
+            ReleasableBytesReference releasableBytesReference = decompressor.pollDecompressedPage();
+            assertEquals(randomByte, releasableBytesReference.get(0));
+            releasableBytesReference.close();
+        }
+    }
+
+    public void testMultiBlockLz4Compression() throws IOException {
+        int numInts = Lz4StreamOutput.BLOCK_SIZE;
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            StreamOutput lz4Stream = new Lz4StreamOutput(Streams.flushOnCloseStream(output));
+            for (int i = 0; i < numInts; ++i) {
+                lz4Stream.writeInt(i);
+            }
+            lz4Stream.close();
+
+            BytesReference bytes = output.bytes();
+
+            TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isEOS());
+            assertDecompressedInts(decompressor, numInts);
+        }
+    }
+
+    public void testIncrementalLz4Decompression() throws IOException {
+        int numInts = 50000;
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            StreamOutput lz4Stream = new Lz4StreamOutput(Streams.flushOnCloseStream(output));
+            for (int i = 0; i < numInts; ++i) {
+                lz4Stream.writeInt(i);
+            }
+            lz4Stream.close();
+
+            BytesReference bytes = output.bytes();
+
+            TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int offset = 0;
+            while (offset < bytes.length()) {
+                assertFalse(decompressor.isEOS());
+                int length = Math.min(bytes.length() - offset, randomIntBetween(Compression.Scheme.HEADER_LENGTH, 1000));
+                int bytesConsumed = decompressor.decompress(bytes.slice(offset, length));
+                assertEquals(length, bytesConsumed);
+                offset += length;
+            }
+            assertTrue(decompressor.isEOS());
+            assertDecompressedInts(decompressor, numInts);
+        }
+    }
+
+    public void testGetDecompressorDetectsScheme() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            StreamOutput deflateStream = CompressorFactory.COMPRESSOR.streamOutput(Streams.flushOnCloseStream(output));
+            deflateStream.writeInt(1);
+            deflateStream.close();
+            assertThat(
+                TransportDecompressor.getDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE, output.bytes()),
+                Matchers.instanceOf(DeflateTransportDecompressor.class));
+        }
+        assertNull(TransportDecompressor.getDecompressor(
+            PageCacheRecycler.NON_RECYCLING_INSTANCE, new BytesArray(new byte[] {'L', 'Z'})));
+        expectThrows(
+            IllegalStateException.class,
+            () -> TransportDecompressor.getDecompressor(
+                PageCacheRecycler.NON_RECYCLING_INSTANCE, new BytesArray(new byte[] {1, 2, 3, 4, 5})));
+    }
+
+    private static void assertDecompressedInts(TransportDecompressor decompressor, int numInts) throws IOException {
+        ArrayList<ReleasableBytesReference> pages = new ArrayList<>();
+        ReleasableBytesReference page;
+        while ((page = decompressor.pollDecompressedPage()) != null) {
+            pages.add(page);
+        }
+        CompositeBytesReference composite = new CompositeBytesReference(pages.toArray(new BytesReference[0]));
+        assertEquals(4 * numInts, composite.length());
+        StreamInput streamInput = composite.streamInput();
+        for (int i = 0; i < numInts; ++i) {
+            assertEquals(i, streamInput.readInt());
+        }
+        Releasables.close(pages);
+    }
 }
@@ -26,10 +26,15 @@ import io.crate.breaker.RowAccounting;
 public class IgnoreRowCellsAccounting implements RowAccounting<Object[]> {
 
     @Override
-    public void accountForAndMaybeBreak(Object[] cells) {
+    public long accountForAndMaybeBreak(Object[] cells) {
+        return 0;
     }
 
     @Override
     public void release() {
     }
+
+    @Override
+    public void release(long bytes) {
+    }
 }
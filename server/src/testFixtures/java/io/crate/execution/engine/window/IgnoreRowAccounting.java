@@ -27,10 +27,15 @@ import io.crate.data.Row;
 public class IgnoreRowAccounting implements RowAccounting<Row> {
 
     @Override
-    public void accountForAndMaybeBreak(Row row) {
+    public long accountForAndMaybeBreak(Row row) {
+        return 0;
     }
 
     @Override
     public void release() {
     }
+
+    @Override
+    public void release(long bytes) {
+    }
 }
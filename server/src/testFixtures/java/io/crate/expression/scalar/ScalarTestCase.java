@@ -26,6 +26,10 @@ import io.crate.analyze.relations.DocTableRelation;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Input;
 import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.vector.BooleanColumnVector;
+import io.crate.data.vector.ColumnVector;
+import io.crate.data.vector.SelectionVector;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.expression.InputFactory;
 import io.crate.expression.symbol.Function;
@@ -34,8 +38,12 @@ import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.ParameterBinder;
 import io.crate.expression.symbol.RefReplacer;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.vector.ColumnVectors;
+import io.crate.expression.vector.VectorExpression;
+import io.crate.expression.vector.VectorExpressions;
 import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.SearchPath;
@@ -51,6 +59,7 @@ import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -180,10 +189,12 @@ public abstract class ScalarTestCase extends CrateDummyClusterServiceUnitTest {
             return;
         }
         LinkedList<Literal<?>> unusedLiterals = new LinkedList<>(Arrays.asList(literals));
+        List<Reference> replacedRefs = new ArrayList<>();
         Function function = (Function) RefReplacer.replaceRefs(functionSymbol, r -> {
             if (unusedLiterals.isEmpty()) {
                 throw new IllegalArgumentException("No value literal for reference=" + r + ", please add more literals");
             }
+            replacedRefs.add(r);
             Literal<?> literal = unusedLiterals.pollFirst(); //Can be null.
             return literal;
         });
@@ -219,6 +230,82 @@ public abstract class ScalarTestCase extends CrateDummyClusterServiceUnitTest {
 
         actualValue = scalar.evaluate(txnCtx, sqlExpressions.nodeCtx, arguments);
         assertThat((T) actualValue, expectedValue);
+
+        VectorExpression vectorExpression = new VectorExpressions(txnCtx, sqlExpressions.nodeCtx).compile(function);
+        if (vectorExpression != null) {
+            SelectionVector selection = new SelectionVector(1);
+            selection.selectAll(1);
+            ColumnVector result = vectorExpression.evaluate(new ColumnVector[0], selection);
+            assertThat("vectorized evaluation must match", (T) result.get(0), expectedValue);
+        }
+        if (!replacedRefs.isEmpty()) {
+            assertVectorizedEvaluationOfBatch(functionSymbol, replacedRefs, literals, expectedValue);
+        }
+    }
+
+    /**
+     * Evaluates the function on a batch in which the references are replaced by input columns.
+     * The batch contains multiple rows, of which only some are selected, and null values in the first column.
+     * The selected rows must match the row by row evaluation of the function.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void assertVectorizedEvaluationOfBatch(Symbol functionSymbol,
+                                                       List<Reference> refs,
+                                                       Literal<?>[] literals,
+                                                       Matcher<T> expectedValue) {
+        for (int i = 0; i < refs.size(); i++) {
+            Literal<?> literal = literals[i];
+            if (literal == null || (literal.value() != null && !literal.valueType().equals(refs.get(i).valueType()))) {
+                // the column vector of the reference type can't hold the value
+                return;
+            }
+        }
+        List<Reference> replaced = new ArrayList<>(refs.size());
+        Symbol batchFunction = RefReplacer.replaceRefs(functionSymbol, r -> {
+            replaced.add(r);
+            return new InputColumn(replaced.size() - 1, r.valueType());
+        });
+        VectorExpressions vectorExpressions = new VectorExpressions(txnCtx, sqlExpressions.nodeCtx);
+        VectorExpression vectorExpression = vectorExpressions.compile(batchFunction);
+        if (vectorExpression == null || vectorExpressions.numVectorized() == 0) {
+            return;
+        }
+
+        // rows 0 and 3 contain the values, row 2 contains null in the first column, rows 1 and 4 aren't selected
+        int numRows = 5;
+        ColumnVector[] batch = new ColumnVector[refs.size()];
+        for (int i = 0; i < batch.length; i++) {
+            Object value = literals[i].value();
+            batch[i] = ColumnVectors.create(refs.get(i).valueType(), numRows);
+            batch[i].set(0, value);
+            batch[i].set(1, null);
+            batch[i].set(2, i == 0 ? null : value);
+            batch[i].set(3, value);
+            batch[i].set(4, value);
+        }
+        BooleanColumnVector selected = new BooleanColumnVector(numRows);
+        for (int pos = 0; pos < numRows; pos++) {
+            selected.set(pos, pos == 0 || pos == 2 || pos == 3);
+        }
+        SelectionVector selection = new SelectionVector(numRows);
+        selection.selectAll(numRows);
+        selection.retainTrue(selected);
+
+        ColumnVector result = vectorExpression.evaluate(batch, selection);
+        assertThat("vectorized evaluation of the batch must match", (T) result.get(0), expectedValue);
+        assertThat("vectorized evaluation of the batch must match", (T) result.get(3), expectedValue);
+
+        InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(txnCtx);
+        Input<?> rowInput = ctx.add(batchFunction);
+        Object[] cells = new Object[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            cells[i] = batch[i].get(2);
+        }
+        Row row = new RowN(cells);
+        for (CollectExpression<Row, ?> expression : ctx.expressions()) {
+            expression.setNextRow(row);
+        }
+        assertThat("vectorized evaluation of a row with null values must match", result.get(2), is(rowInput.value()));
     }
 
     /**
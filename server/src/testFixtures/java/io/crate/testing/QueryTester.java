@@ -171,7 +171,8 @@ public final class QueryTester implements AutoCloseable {
                 false,
                 new CollectorContext(),
                 Collections.singletonList(input),
-                ctx.expressions()
+                ctx.expressions(),
+                null
             );
         }
 
@@ -563,9 +563,26 @@ public class SQLExecutor {
          * resolve logic for columns (`*` is not resolved to the column names)
          */
         public Builder addView(RelationName name, String query) {
+            return addView(name, query, false);
+        }
+
+        /**
+         * Like {@link #addView(RelationName, String)} but adds a materialized view.
+         * The backing tables aren't created, add them with {@link #addTable(String)} if needed.
+         */
+        public Builder addMaterializedView(RelationName name, String query) {
+            return addView(name, query, true);
+        }
+
+        private Builder addView(RelationName name, String query, boolean materialized) {
             ClusterState prevState = clusterService.state();
             ViewsMetadata newViews = ViewsMetadata.addOrReplace(
-                prevState.metadata().custom(ViewsMetadata.TYPE), name, query, user == null ? null : user.name());
+                prevState.metadata().custom(ViewsMetadata.TYPE),
+                name,
+                query,
+                user == null ? null : user.name(),
+                materialized
+            );
 
             Metadata newMetadata = Metadata.builder(prevState.metadata()).putCustom(ViewsMetadata.TYPE, newViews).build();
             ClusterState newState = ClusterState.builder(prevState)